@@ -0,0 +1,121 @@
+package io.clustercontroller;
+
+import io.clustercontroller.metrics.MetricsProvider;
+import io.clustercontroller.metrics.MetricsUtils;
+import io.clustercontroller.store.SnapshotMetadataStore;
+import io.clustercontroller.store.SnapshotMetadataStore.Fingerprint;
+import io.clustercontroller.store.SnapshotMetadataStore.Section;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static io.clustercontroller.metrics.MetricsConstants.*;
+
+/**
+ * Interval of a cluster's periodic reconcile pass, adapted to what the last pass saw, within the cluster's bounds.
+ * <p>
+ * While shard allocations differ from the plan or a rollout is in flight, or the state changed since the pass
+ * before, passes run at the minimum interval. Each pass that finds the cluster converged and unchanged doubles the
+ * interval, up to the maximum. Without a snapshot to judge from (a store that cannot load one, or a view that read
+ * through) the default interval is used.
+ */
+@Slf4j
+public class AdaptiveInterval {
+
+    /**
+     * Why the interval is what it is; exported as a tag of the reason gauge.
+     */
+    public enum Reason {
+        DRIFT,
+        ROLLOUT,
+        CHANGED,
+        IDLE,
+        UNKNOWN
+    }
+
+    private static final EnumSet<Section> ALL_SECTIONS = EnumSet.allOf(Section.class);
+
+    private final String clusterName;
+    private final long minMillis;
+    private final long maxMillis;
+    private final long defaultMillis;
+    private final MetricsProvider metricsProvider;
+    private volatile long intervalMillis;
+    private volatile Reason reason = Reason.UNKNOWN;
+    private Optional<Fingerprint> lastFingerprint = Optional.empty();
+
+    /**
+     * @param defaultSeconds interval used until a pass could be judged, clamped to the bounds
+     */
+    public AdaptiveInterval(String clusterName, long minSeconds, long maxSeconds, long defaultSeconds,
+                            MetricsProvider metricsProvider) {
+        this.clusterName = clusterName;
+        this.minMillis = TimeUnit.SECONDS.toMillis(Math.max(1, minSeconds));
+        this.maxMillis = Math.max(minMillis, TimeUnit.SECONDS.toMillis(maxSeconds));
+        this.defaultMillis = Math.min(maxMillis, Math.max(minMillis, TimeUnit.SECONDS.toMillis(defaultSeconds)));
+        this.metricsProvider = metricsProvider;
+        this.intervalMillis = defaultMillis;
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    /**
+     * Adapt the interval to the cluster state a pass left behind, as seen through its snapshot view.
+     */
+    public synchronized void observe(Optional<SnapshotMetadataStore> snapshot) {
+        Optional<SnapshotMetadataStore.Convergence> convergence =
+            snapshot.flatMap(SnapshotMetadataStore::convergence);
+        Optional<Fingerprint> fingerprint = snapshot.flatMap(view -> view.fingerprint(ALL_SECTIONS));
+
+        Reason next;
+        if (convergence.isEmpty() || fingerprint.isEmpty()) {
+            next = Reason.UNKNOWN;
+        } else if (convergence.get().divergentShards() > 0) {
+            next = Reason.DRIFT;
+        } else if (convergence.get().shardsInFlight() > 0) {
+            next = Reason.ROLLOUT;
+        } else if (!fingerprint.equals(lastFingerprint)) {
+            next = Reason.CHANGED;
+        } else {
+            next = Reason.IDLE;
+        }
+        lastFingerprint = fingerprint;
+
+        long nextIntervalMillis = switch (next) {
+            case DRIFT, ROLLOUT, CHANGED -> minMillis;
+            case IDLE -> Math.min(maxMillis, intervalMillis * 2);
+            case UNKNOWN -> defaultMillis;
+        };
+        if (nextIntervalMillis != intervalMillis || next != reason) {
+            log.info("[Cluster: {}] Reconcile interval {}ms ({}{})", clusterName, nextIntervalMillis, next,
+                convergence.map(c -> ": " + c.divergentShards() + " divergent, " + c.shardsInFlight() + " in flight")
+                    .orElse(""));
+        }
+        intervalMillis = nextIntervalMillis;
+        reason = next;
+        publish();
+    }
+
+    private void publish() {
+        if (metricsProvider == null) {
+            return;
+        }
+        metricsProvider.gauge(RECONCILE_INTERVAL_SECONDS_METRIC_NAME, intervalMillis / 1000.0,
+            MetricsUtils.buildClusterMetricsTags(clusterName));
+        // One series per reason, 1 for the current one
+        for (Reason candidate : Reason.values()) {
+            Map<String, String> tags = MetricsUtils.buildClusterMetricsTags(clusterName);
+            tags.put(REASON_TAG, candidate.name().toLowerCase());
+            metricsProvider.gauge(RECONCILE_INTERVAL_REASON_METRIC_NAME, candidate == reason ? 1 : 0, tags);
+        }
+    }
+}
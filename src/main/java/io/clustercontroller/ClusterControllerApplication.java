@@ -3,6 +3,8 @@ package io.clustercontroller;
 import io.clustercontroller.allocation.ActualAllocationUpdater;
 import io.clustercontroller.allocation.ShardAllocator;
 import io.clustercontroller.config.ClusterControllerConfig;
+import io.clustercontroller.config.Constants;
+import io.clustercontroller.config.TaskProperties;
 import io.clustercontroller.discovery.Discovery;
 import io.clustercontroller.health.ClusterHealthManager;
 import io.clustercontroller.indices.AliasManager;
@@ -13,20 +15,29 @@ import io.clustercontroller.proxy.CoordinatorProxy;
 import io.clustercontroller.proxy.CoordinatorSelector;
 import io.clustercontroller.proxy.HttpForwarder;
 import io.clustercontroller.templates.TemplateManager;
+import io.clustercontroller.tracing.PassTracer;
 import io.clustercontroller.store.MetadataStore;
+import io.clustercontroller.store.CachingMetadataStore;
+import io.clustercontroller.store.EmbeddedMetadataStore;
 import io.clustercontroller.store.EtcdMetadataStore;
+import io.clustercontroller.store.EtcdTimeouts;
+import io.clustercontroller.store.InstrumentedMetadataStore;
 import io.clustercontroller.store.EtcdPathResolver;
+import io.clustercontroller.store.WatchHub;
 import io.etcd.jetcd.Client;
 
 import io.clustercontroller.util.EnvironmentUtils;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Primary;
 
+import java.nio.file.Paths;
+
 /**
  * Main Spring Boot application class for the Cluster Controller with multi-cluster support.
  * This application provides production-ready controller functionality for managing
@@ -37,6 +48,7 @@ import org.springframework.context.annotation.Primary;
 @Slf4j
 @SpringBootApplication
 @ComponentScan(basePackages = "io.clustercontroller")
+@EnableConfigurationProperties(TaskProperties.class)
 public class ClusterControllerApplication {
 
     public static void main(String[] args) {
@@ -65,12 +77,17 @@ public class ClusterControllerApplication {
     /**
      * MetadataStore bean - cluster-agnostic, uses etcd endpoints only
      * Depends on EtcdPathResolver to ensure it's initialized first (reads its own config via @Value)
+     * Optionally wrapped in a watch-backed cache (metadata_cache.enabled), and always in per-operation metrics
      */
     @Bean
     public MetadataStore metadataStore(
             ClusterControllerConfig config,
             EnvironmentUtils envUtils,
-            EtcdPathResolver pathResolver) {
+            EtcdPathResolver pathResolver,
+            MetricsProvider metricsProvider) {
+        if (Constants.METADATA_STORE_BACKEND_EMBEDDED.equals(config.getMetadataStoreBackend())) {
+            return embeddedMetadataStore(config, pathResolver, metricsProvider);
+        }
         log.info("Initializing cluster-agnostic MetadataStore connection to etcd");
         try {
             
@@ -80,15 +97,61 @@ public class ClusterControllerApplication {
                 config.getCoordinatorGoalStateGroup(),
                 config.getCoordinatorGoalStateUnit()
             );
+            store.setMaxTxnOps(config.getEtcdMaxTxnOps());
+            store.setMaxInFlightPerCluster(config.getEtcdMaxInFlightPerCluster());
+            store.setPrefixScanPageSize(config.getEtcdPrefixScanPageSize());
+            store.setDecodeCacheMaxMb(config.getEtcdDecodeCacheMaxMb());
+            store.setStateValueFormat(config.getEtcdStateValueFormat(), config.isEtcdStateValueCompressed());
+            store.setTimeouts(new EtcdTimeouts(
+                config.getEtcdReadTimeoutMs(),
+                config.getEtcdScanTimeoutMs(),
+                config.getEtcdWriteTimeoutMs(),
+                config.getEtcdTxnTimeoutMs(),
+                config.getEtcdReadMaxAttempts(),
+                config.getEtcdReadRetryBackoffMs(),
+                config.getEtcdPassDeadlineMs()
+            ));
             store.initialize();
             log.info("MetadataStore initialized successfully");
-            return store;
+            if (config.isMetadataCacheEnabled()) {
+                log.info("Wrapping MetadataStore with watch-backed cache");
+                CachingMetadataStore cachingStore = new CachingMetadataStore(store, store.getEtcdClient(), pathResolver,
+                    metricsProvider, config.getMetadataCacheReadYourWritesTimeoutMs());
+                cachingStore.setStateValueCodec(store.getStateValueCodec());
+                cachingStore.setScanTimeoutMs(config.getEtcdScanTimeoutMs());
+                return new InstrumentedMetadataStore(cachingStore, metricsProvider);
+            }
+            return new InstrumentedMetadataStore(store, metricsProvider);
         } catch (Exception e) {
             log.error("Failed to initialize MetadataStore: {}", e.getMessage(), e);
             throw new RuntimeException("MetadataStore initialization failed", e);
         }
     }
     
+    /**
+     * File-backed MetadataStore in metadata_store.embedded_dir, for single-node and edge deployments.
+     * The watch-backed cache is skipped: reads are already served from memory.
+     */
+    private MetadataStore embeddedMetadataStore(ClusterControllerConfig config, EtcdPathResolver pathResolver,
+                                                MetricsProvider metricsProvider) {
+        log.info("Initializing embedded MetadataStore in {}", config.getMetadataStoreEmbeddedDir());
+        try {
+            EmbeddedMetadataStore store = new EmbeddedMetadataStore(Paths.get(config.getMetadataStoreEmbeddedDir()),
+                config.isMetadataStoreEmbeddedFsync(), pathResolver);
+            store.setCoordinatorGoalStateLocation(
+                config.getCoordinatorGoalStateGroup(),
+                config.getCoordinatorGoalStateUnit()
+            );
+            store.setStateValueFormat(config.getEtcdStateValueFormat(), config.isEtcdStateValueCompressed());
+            store.initialize();
+            log.info("Embedded MetadataStore initialized successfully");
+            return new InstrumentedMetadataStore(store, metricsProvider);
+        } catch (Exception e) {
+            log.error("Failed to initialize embedded MetadataStore: {}", e.getMessage(), e);
+            throw new RuntimeException("MetadataStore initialization failed", e);
+        }
+    }
+    
     /**
      * IndexManager bean for multi-cluster index lifecycle operations.
      * Includes template support for automatic application of matching templates during index creation.
@@ -147,6 +210,15 @@ public class ClusterControllerApplication {
         return new Discovery(metadataStore, metricsProvider);
     }
 
+    /**
+     * PassTracer bean keeping the last reconcile pass traces of every managed cluster.
+     */
+    @Bean
+    public PassTracer passTracer(MetadataStore metadataStore, TaskProperties taskProperties) {
+        log.info("Initializing PassTracer keeping {} passes per cluster", taskProperties.getTracePasses());
+        return new PassTracer(metadataStore.stats(), taskProperties.getTracePasses(), taskProperties.getTraceMaxSpans());
+    }
+
     /**
      * TaskContext bean - shared singleton providing access to cluster-agnostic services.
      * In multi-cluster mode, this single instance is shared across all clusters.
@@ -158,23 +230,44 @@ public class ClusterControllerApplication {
             ShardAllocator shardAllocator,
             ActualAllocationUpdater actualAllocationUpdater,
             GoalStateOrchestrator goalStateOrchestrator,
-            Discovery discovery) {
+            Discovery discovery,
+            PassTracer passTracer) {
         log.info("Initializing shared TaskContext for multi-cluster support");
         return new io.clustercontroller.tasks.TaskContext(
             indexManager,
             shardAllocator,
             actualAllocationUpdater,
             goalStateOrchestrator,
-            discovery
+            discovery,
+            passTracer
         );
     }
 
     /**
-     * Expose etcd Client for components that need direct access (e.g., MultiClusterManager)
+     * Expose etcd Client for components that need direct access (e.g., MultiClusterManager).
+     * Not created with the embedded metadata store, which runs without etcd.
      */
     @Bean
-    public Client etcdClient(MetadataStore metadataStore) {
-        return ((EtcdMetadataStore) metadataStore).getEtcdClient();
+    @ConditionalOnProperty(name = Constants.METADATA_STORE_BACKEND_PROPERTY, havingValue = Constants.METADATA_STORE_BACKEND_ETCD,
+        matchIfMissing = true)
+    public Client etcdClient(MetadataStore metadataStore, ClusterControllerConfig config) throws Exception {
+        // metadataStore may be a decorator, so go through the singleton
+        return EtcdMetadataStore.getInstance(config.getEtcdEndpoints()).getEtcdClient();
+    }
+
+    /**
+     * Shared etcd watches for the multi-cluster components (registries, cluster locks) and the store's index
+     * readiness tracking: one watch per key or prefix, whatever the number of listeners.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = Constants.METADATA_STORE_BACKEND_PROPERTY, havingValue = Constants.METADATA_STORE_BACKEND_ETCD,
+        matchIfMissing = true)
+    public WatchHub watchHub(Client etcdClient, MetricsProvider metricsProvider) {
+        log.info("Initializing WatchHub");
+        WatchHub watchHub = new WatchHub(etcdClient.getWatchClient(), Constants.DEFAULT_WATCH_HUB_DISPATCH_THREADS,
+            metricsProvider);
+        EtcdMetadataStore.getInstance().setWatchHub(watchHub);
+        return watchHub;
     }
 
     /**
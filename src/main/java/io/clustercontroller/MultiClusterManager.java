@@ -1,5 +1,6 @@
 package io.clustercontroller;
 
+import io.clustercontroller.config.Constants;
 import io.clustercontroller.multicluster.AssignmentPolicy;
 import io.clustercontroller.multicluster.RendezvousHashPolicy;
 import io.clustercontroller.multicluster.lifecycle.ClusterLifecycleManager;
@@ -9,10 +10,11 @@ import io.clustercontroller.multicluster.lock.LockException;
 import io.clustercontroller.multicluster.registry.ClusterRegistry;
 import io.clustercontroller.multicluster.registry.ControllerRegistration;
 import io.clustercontroller.multicluster.registry.ControllerRegistry;
-import io.etcd.jetcd.Watch;
+import io.clustercontroller.store.WatchHub;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
@@ -38,9 +40,13 @@ import java.util.concurrent.TimeUnit;
  * - Each cluster is locked by exactly one controller at a time
  * - Uses Rendezvous Hashing (HRW) for fair distribution
  * - Automatically rebalances when controllers join/leave
+ * 
+ * Only with the etcd metadata store; with the embedded one, {@link SingleNodeClusterManager} takes its place.
  */
 @Slf4j
 @Component
+@ConditionalOnProperty(name = Constants.METADATA_STORE_BACKEND_PROPERTY, havingValue = Constants.METADATA_STORE_BACKEND_ETCD,
+        matchIfMissing = true)
 public class MultiClusterManager {
     
     private static final int RECONCILE_POOL_SIZE = 1;
@@ -61,8 +67,8 @@ public class MultiClusterManager {
     // Runtime state
     private final ScheduledExecutorService reconcileScheduler;
     private ControllerRegistration registration;
-    private Watch.Watcher controllerWatcher;
-    private Watch.Watcher clusterWatcher;
+    private WatchHub.Subscription controllerWatcher;
+    private WatchHub.Subscription clusterWatcher;
     
     /**
      * Constructor with all dependencies injected.
@@ -0,0 +1,320 @@
+package io.clustercontroller;
+
+import io.clustercontroller.metrics.MetricsProvider;
+import io.clustercontroller.metrics.MetricsUtils;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+import static io.clustercontroller.metrics.MetricsConstants.*;
+
+/**
+ * Controller-wide scheduler of the clusters' reconcile passes, in place of a thread pool per cluster.
+ * <p>
+ * Each cluster registers a {@link Lane}. A lane runs at most one pass at a time, in the order they became due,
+ * and at most maxConcurrentPasses passes run across all lanes, since every pass scans and writes etcd. Lanes with
+ * a due pass wait in one queue: a lane that has run a pass goes to the back of it, so a cluster with a backlog
+ * cannot hold the slots while the others wait. Passes run on virtual threads; a single timer thread only makes
+ * them due. Checks ({@link #scheduleCheck}) bypass the lanes and the cap, so they must only look at memory; work
+ * that lists or scans etcd, however small, is scheduled as a pass.
+ */
+@Slf4j
+public class PassScheduler implements AutoCloseable {
+
+    private final int maxConcurrentPasses;
+    private final MetricsProvider metricsProvider;
+    private final ScheduledExecutorService timer;
+    private final ExecutorService workers;
+
+    private final Object lock = new Object();
+    // Lanes with a due pass and none running, in turn; guarded by lock
+    private final Deque<Lane> ready = new ArrayDeque<>();
+    private int runningPasses;
+    private volatile boolean closed;
+
+    /**
+     * @param maxConcurrentPasses passes running at the same time across all clusters
+     * @param metricsProvider     for the per-cluster queue wait and run time; may be null
+     */
+    public PassScheduler(int maxConcurrentPasses, MetricsProvider metricsProvider) {
+        this.maxConcurrentPasses = Math.max(1, maxConcurrentPasses);
+        this.metricsProvider = metricsProvider;
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r);
+            t.setName("pass-scheduler-timer");
+            t.setDaemon(true);
+            return t;
+        });
+        this.workers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("cluster-pass-", 0).factory());
+    }
+
+    public int getMaxConcurrentPasses() {
+        return maxConcurrentPasses;
+    }
+
+    /**
+     * Passes running right now, across all lanes.
+     */
+    public int getRunningPasses() {
+        synchronized (lock) {
+            return runningPasses;
+        }
+    }
+
+    /**
+     * Register a cluster; its passes are scheduled through the returned lane.
+     */
+    public Lane register(String clusterId) {
+        return new Lane(clusterId);
+    }
+
+    /**
+     * Run a check of in-memory state at a fixed rate, each run on a virtual thread, outside the cap: it must not
+     * read etcd. A run is skipped while the previous one is still going. Cancel the returned future to stop it.
+     */
+    public ScheduledFuture<?> scheduleCheck(Runnable check, long initialDelay, long period, TimeUnit unit) {
+        AtomicBoolean running = new AtomicBoolean();
+        return timer.scheduleAtFixedRate(() -> {
+            if (!running.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                workers.execute(() -> {
+                    try {
+                        check.run();
+                    } catch (Exception e) {
+                        log.error("Check failed: {}", e.getMessage(), e);
+                    } finally {
+                        running.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                running.set(false);
+            }
+        }, initialDelay, period, unit);
+    }
+
+    /**
+     * Stop making passes due. Passes already running finish.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        synchronized (lock) {
+            ready.forEach(lane -> lane.pending.clear());
+            ready.clear();
+        }
+        timer.shutdownNow();
+        workers.shutdown();
+    }
+
+    // =================================================================
+    // DISPATCH
+    // =================================================================
+
+    private void enqueue(Lane lane, Pass pass) {
+        synchronized (lock) {
+            if (closed || lane.closed) {
+                return;
+            }
+            lane.pending.add(pass);
+            pass.dueNanos = System.nanoTime();
+            if (!lane.running && !lane.queued) {
+                ready.add(lane);
+                lane.queued = true;
+            }
+            dispatch();
+        }
+    }
+
+    // Called holding lock
+    private void dispatch() {
+        while (runningPasses < maxConcurrentPasses && !ready.isEmpty()) {
+            Lane lane = ready.poll();
+            lane.queued = false;
+            Pass pass = lane.pending.poll();
+            if (pass == null) {
+                continue;
+            }
+            lane.running = true;
+            runningPasses++;
+            try {
+                workers.execute(() -> run(lane, pass));
+            } catch (RejectedExecutionException e) {
+                // Closed meanwhile
+                lane.running = false;
+                runningPasses--;
+                return;
+            }
+        }
+    }
+
+    private void run(Lane lane, Pass pass) {
+        long start = System.nanoTime();
+        lane.record(lane.queueWaitTimer, start - pass.dueNanos);
+        try {
+            pass.job.run();
+        } catch (Exception e) {
+            log.error("[Cluster: {}] Pass failed: {}", lane.clusterId, e.getMessage(), e);
+        } finally {
+            lane.record(lane.runTimeTimer, System.nanoTime() - start);
+            synchronized (lock) {
+                lane.running = false;
+                runningPasses--;
+                // Behind the lanes that were waiting meanwhile
+                if (!lane.pending.isEmpty() && !lane.closed) {
+                    ready.add(lane);
+                    lane.queued = true;
+                }
+                dispatch();
+            }
+            if (pass.then != null) {
+                pass.then.run();
+            }
+        }
+    }
+
+    private static final class Pass {
+        private final Runnable job;
+        // Run after the pass completes, e.g. to make the next run of a fixed-delay job due
+        private final Runnable then;
+        private long dueNanos;
+
+        private Pass(Runnable job, Runnable then) {
+            this.job = job;
+            this.then = then;
+        }
+    }
+
+    /**
+     * A cluster's passes: at most one runs at a time, and each waits for a slot under the global cap.
+     */
+    public final class Lane implements AutoCloseable {
+        private final String clusterId;
+        // Guarded by the scheduler's lock
+        private final Deque<Pass> pending = new ArrayDeque<>();
+        private boolean running;
+        private boolean queued;
+        private volatile boolean closed;
+        private final List<ScheduledFuture<?>> checks = new CopyOnWriteArrayList<>();
+        private final List<Recurring> recurringPasses = new CopyOnWriteArrayList<>();
+        private final Timer queueWaitTimer;
+        private final Timer runTimeTimer;
+
+        private Lane(String clusterId) {
+            this.clusterId = clusterId;
+            this.queueWaitTimer = metricsProvider != null
+                ? metricsProvider.timer(CLUSTER_PASS_QUEUE_WAIT_METRIC_NAME, MetricsUtils.buildClusterMetricsTags(clusterId))
+                : null;
+            this.runTimeTimer = metricsProvider != null
+                ? metricsProvider.timer(CLUSTER_PASS_RUN_TIME_METRIC_NAME, MetricsUtils.buildClusterMetricsTags(clusterId))
+                : null;
+        }
+
+        public String getClusterId() {
+            return clusterId;
+        }
+
+        /**
+         * Run a pass after the initial delay, then again each time the delay has passed since the last one ended.
+         */
+        public void scheduleWithFixedDelay(Runnable job, long initialDelay, long delay, TimeUnit unit) {
+            long delayNanos = unit.toNanos(delay);
+            scheduleWithDelay(job, initialDelay, unit, () -> delayNanos);
+        }
+
+        /**
+         * Run a pass after the initial delay, then again each time the delay the supplier returns in nanoseconds
+         * (asked once the previous run has ended) has passed.
+         */
+        public void scheduleWithDelay(Runnable job, long initialDelay, TimeUnit unit, LongSupplier nextDelayNanos) {
+            Recurring recurring = new Recurring(job, nextDelayNanos);
+            recurringPasses.add(recurring);
+            recurring.scheduleNext(unit.toNanos(initialDelay));
+        }
+
+        /**
+         * Run a pass once, after the delay.
+         */
+        public void schedule(Runnable job, long delay, TimeUnit unit) {
+            if (closed) {
+                throw new RejectedExecutionException("Lane of cluster " + clusterId + " is closed");
+            }
+            timer.schedule(() -> enqueue(this, new Pass(job, null)), delay, unit);
+        }
+
+        /**
+         * Run a check of this cluster's in-memory state at a fixed rate, outside the lane and the cap (see
+         * {@link PassScheduler#scheduleCheck}); stopped when the lane is closed.
+         */
+        public void scheduleCheck(Runnable check, long initialDelay, long period, TimeUnit unit) {
+            checks.add(PassScheduler.this.scheduleCheck(check, initialDelay, period, unit));
+        }
+
+        /**
+         * Stop this cluster's schedules and drop its passes that are not running yet. A running pass finishes.
+         */
+        @Override
+        public void close() {
+            closed = true;
+            checks.forEach(check -> check.cancel(false));
+            recurringPasses.forEach(Recurring::cancel);
+            synchronized (lock) {
+                pending.clear();
+                ready.remove(this);
+                queued = false;
+            }
+        }
+
+        private void record(Timer meter, long nanos) {
+            if (meter != null) {
+                meter.record(nanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        /**
+         * A recurring pass whose next run is made due only once the previous one has ended.
+         */
+        private final class Recurring {
+            private final Runnable job;
+            private final LongSupplier nextDelayNanos;
+            private volatile ScheduledFuture<?> next;
+
+            private Recurring(Runnable job, LongSupplier nextDelayNanos) {
+                this.job = job;
+                this.nextDelayNanos = nextDelayNanos;
+            }
+
+            private void scheduleNext(long delayNanos) {
+                if (closed || PassScheduler.this.closed) {
+                    return;
+                }
+                try {
+                    next = timer.schedule(() -> enqueue(Lane.this, new Pass(job, () -> scheduleNext(nextDelayNanos.getAsLong()))),
+                        delayNanos, TimeUnit.NANOSECONDS);
+                } catch (RejectedExecutionException e) {
+                    // Scheduler closed meanwhile
+                }
+            }
+
+            private void cancel() {
+                ScheduledFuture<?> scheduled = next;
+                if (scheduled != null) {
+                    scheduled.cancel(false);
+                }
+            }
+        }
+    }
+}
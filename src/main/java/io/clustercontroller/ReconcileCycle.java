@@ -0,0 +1,194 @@
+package io.clustercontroller;
+
+import io.clustercontroller.metrics.MetricsProvider;
+import io.clustercontroller.metrics.MetricsUtils;
+import io.clustercontroller.models.TaskMetadata;
+import io.clustercontroller.store.MetadataStore;
+import io.clustercontroller.store.PassDeadline;
+import io.clustercontroller.store.SnapshotMetadataStore;
+import io.clustercontroller.store.SnapshotMetadataStore.Fingerprint;
+import io.clustercontroller.store.SnapshotMetadataStore.Section;
+import io.clustercontroller.tasks.TaskContext;
+import io.clustercontroller.tasks.TaskFactory;
+import io.clustercontroller.tracing.PassTracer;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static io.clustercontroller.config.Constants.*;
+import static io.clustercontroller.metrics.MetricsConstants.*;
+
+/**
+ * Runs the recurring reconcile tasks of a cluster back to back as the stages of one cycle: discovery, shard
+ * allocation, goal state orchestration and the actual allocation update. The stages share one pass deadline and
+ * one cluster snapshot, and each stage reads the writes of the stages before it from the snapshot instead of
+ * scanning etcd again, so a topology change reaches the coordinators within a single cycle.
+ * <p>
+ * A stage is skipped while the parts of the snapshot it reads are unchanged since its last successful run, up to
+ * a maximum skip age after which it runs anyway (for its time-based checks, e.g. heartbeat staleness). Discovery
+ * reads the raw heartbeats and always runs. Not thread-safe: cycles over a cluster never overlap.
+ */
+@Slf4j
+public class ReconcileCycle {
+
+    public static final String STAGE_STATUS_SKIPPED = "SKIPPED";
+
+    private final MetadataStore metadataStore;
+    private final TaskContext taskContext;
+    private final String clusterName;
+    private final long maxSkipNanos;
+    private final MetricsProvider metricsProvider;
+    private final List<Stage> stages;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private volatile Result lastResult;
+
+    public ReconcileCycle(MetadataStore metadataStore, TaskContext taskContext, String clusterName,
+                          long maxSkipSeconds, MetricsProvider metricsProvider) {
+        this.metadataStore = metadataStore;
+        this.taskContext = taskContext;
+        this.clusterName = clusterName;
+        this.maxSkipNanos = TimeUnit.SECONDS.toNanos(maxSkipSeconds);
+        this.metricsProvider = metricsProvider;
+        this.stages = List.of(
+            new Stage(TASK_ACTION_DISCOVERY, 1, EnumSet.noneOf(Section.class)),
+            new Stage(TASK_ACTION_SHARD_ALLOCATOR, 2,
+                EnumSet.of(Section.SEARCH_UNITS, Section.INDEX_CONFIGS, Section.PLANNED_ALLOCATIONS)),
+            new Stage(TASK_ACTION_GOAL_STATE_ORCHESTRATOR, 3,
+                EnumSet.of(Section.SEARCH_UNITS, Section.SHARD_ROUTING, Section.GOAL_STATES, Section.PLANNED_ALLOCATIONS)),
+            new Stage(TASK_ACTION_ACTUAL_ALLOCATION_UPDATER, 4,
+                EnumSet.of(Section.SEARCH_UNITS, Section.SHARD_ROUTING, Section.GOAL_STATES, Section.INDEX_CONFIGS,
+                    Section.ACTUAL_ALLOCATIONS))
+        );
+    }
+
+    /**
+     * Outcome of one stage: its task result or {@link #STAGE_STATUS_SKIPPED}, and how long it took.
+     */
+    public record StageResult(String stage, String status, long durationMs) {
+        public boolean skipped() {
+            return STAGE_STATUS_SKIPPED.equals(status);
+        }
+    }
+
+    /**
+     * Outcome of one cycle: the snapshot revision it started from (0 if it read etcd directly) and its stages in order.
+     */
+    public record Result(long revision, long durationMs, List<StageResult> stages) {
+    }
+
+    /**
+     * Result of the last cycle, if one has run.
+     */
+    public Optional<Result> getLastResult() {
+        return Optional.ofNullable(lastResult);
+    }
+
+    /**
+     * Run one cycle. Stage failures are logged and do not stop the later stages.
+     */
+    public Result run() {
+        long start = System.nanoTime();
+        List<StageResult> results = new ArrayList<>();
+        long revision = 0;
+        // The snapshot load and every stage's etcd requests share the pass budget
+        try (PassDeadline deadline = metadataStore.startPassDeadline(clusterName);
+             SnapshotMetadataStore.SharedPass pass = SnapshotMetadataStore.share(metadataStore, clusterName)) {
+            Optional<SnapshotMetadataStore> snapshot = pass.getSnapshot();
+            revision = snapshot.map(SnapshotMetadataStore::getRevision).orElse(0L);
+            for (Stage stage : stages) {
+                try (PassTracer.Span span = PassTracer.span(PassTracer.KIND_STAGE, stage.name)) {
+                    StageResult stageResult = runStage(stage, snapshot);
+                    PassTracer.tag("status", stageResult.status());
+                    results.add(stageResult);
+                }
+            }
+        }
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Result result = new Result(revision, durationMs, List.copyOf(results));
+        lastResult = result;
+        record(RECONCILE_CYCLE_LATENCY_METRIC_NAME, null, System.nanoTime() - start);
+        log.info("[Cluster: {}] Reconcile cycle at revision {} took {}ms: {}", clusterName, revision, durationMs, results);
+        return result;
+    }
+
+    private StageResult runStage(Stage stage, Optional<SnapshotMetadataStore> snapshot) {
+        Optional<Fingerprint> before = snapshot.flatMap(view -> view.fingerprint(stage.inputs));
+        if (canSkip(stage, before)) {
+            log.debug("[Cluster: {}] Skipping stage {}, inputs unchanged", clusterName, stage.name);
+            if (metricsProvider != null) {
+                metricsProvider.counter(RECONCILE_STAGE_SKIPPED_METRIC_NAME, stageTags(stage.name)).increment();
+            }
+            return new StageResult(stage.name, STAGE_STATUS_SKIPPED, 0);
+        }
+
+        long start = System.nanoTime();
+        String status;
+        try {
+            status = TaskFactory.createTask(stage.metadata).execute(taskContext, clusterName);
+        } catch (Exception e) {
+            log.error("[Cluster: {}] Stage {} failed: {}", clusterName, stage.name, e.getMessage(), e);
+            status = TASK_STATUS_FAILED;
+        }
+        long nanos = System.nanoTime() - start;
+        record(RECONCILE_STAGE_LATENCY_METRIC_NAME, stage.name, nanos);
+
+        if (TASK_STATUS_COMPLETED.equals(status)) {
+            // Inputs as this stage left them, so its own writes do not make it run again
+            stage.lastFingerprint = snapshot.flatMap(view -> view.fingerprint(stage.inputs));
+            stage.lastRunNanos = start;
+        } else {
+            stage.lastFingerprint = Optional.empty();
+        }
+        return new StageResult(stage.name, status, TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    private boolean canSkip(Stage stage, Optional<Fingerprint> fingerprint) {
+        if (stage.inputs.isEmpty() || fingerprint.isEmpty() || !fingerprint.equals(stage.lastFingerprint)) {
+            return false;
+        }
+        return System.nanoTime() - stage.lastRunNanos < maxSkipNanos;
+    }
+
+    private void record(String metricName, String stageName, long nanos) {
+        if (metricsProvider == null) {
+            return;
+        }
+        String key = metricName + (stageName != null ? ":" + stageName : "");
+        timers.computeIfAbsent(key, k -> metricsProvider.timer(metricName, stageTags(stageName)))
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Map<String, String> stageTags(String stageName) {
+        Map<String, String> tags = MetricsUtils.buildClusterMetricsTags(clusterName);
+        if (stageName != null) {
+            tags.put(STAGE_TAG, stageName);
+        }
+        return tags;
+    }
+
+    /**
+     * A recurring task run as a cycle stage, with the snapshot sections it reads and the state of its last run.
+     */
+    private static final class Stage {
+        private final String name;
+        private final TaskMetadata metadata;
+        private final Set<Section> inputs;
+        private Optional<Fingerprint> lastFingerprint = Optional.empty();
+        private long lastRunNanos;
+
+        private Stage(String name, int priority, Set<Section> inputs) {
+            this.name = name;
+            this.metadata = new TaskMetadata(name, priority);
+            this.metadata.setSchedule(TASK_SCHEDULE_REPEAT);
+            this.inputs = inputs;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package io.clustercontroller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.clustercontroller.models.SearchUnitActualState;
+import io.clustercontroller.models.ShardAllocation;
+import io.clustercontroller.models.TaskMetadata;
+import io.clustercontroller.store.EtcdPathResolver;
+import io.clustercontroller.store.JacksonValueCodec;
+import io.clustercontroller.store.ValueCodec;
+import io.clustercontroller.store.WatchHub;
+import io.etcd.jetcd.KeyValue;
+import io.etcd.jetcd.watch.WatchEvent;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.clustercontroller.config.Constants.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Tells a cluster's task manager when a reconcile pass is worth running, from the shared watches on the
+ * cluster's search units, indices and controller tasks instead of polling.
+ * <p>
+ * Only changes a pass acts on count: an actual state whose routing, role, address or derived health changed
+ * (not every heartbeat), an index config, a planned allocation whose nodes changed (the allocator rewrites
+ * unchanged plans), a new one-shot task, and any of those keys being deleted. Keys the controller writes for
+ * itself (goal states, actual allocations, search unit confs, task status updates) are ignored.
+ * <p>
+ * A node that stops heartbeating produces no event, so {@link #pollStaleUnits()} reports units whose last
+ * heartbeat has just aged past the staleness timeout the actual allocation update applies.
+ * <p>
+ * The same task watch tells the cluster's task queue, if any, when it has something to do: a new task, a cancel
+ * request, or a one-shot task queued again.
+ */
+@Slf4j
+public class ReconcileTrigger implements AutoCloseable {
+
+    private static final ValueCodec CODEC = JacksonValueCodec.json(new ObjectMapper().registerModule(new JavaTimeModule()));
+
+    private final WatchHub watchHub;
+    private final EtcdPathResolver pathResolver;
+    private final String clusterName;
+    private final long debounceMs;
+    private final long resyncIntervalSeconds;
+    private volatile Runnable onChange = () -> { };
+    private volatile Runnable onTaskChange = () -> { };
+    // Key -> digest of the fields a pass acts on, to tell real changes from rewrites of the same content
+    private final Map<String, Integer> digests = new ConcurrentHashMap<>();
+    // Unit name -> heartbeat timestamp after which it counts as stale, removed once reported
+    private final Map<String, Long> staleAt = new ConcurrentHashMap<>();
+    // A task was created (or events may have been missed) since the last poll
+    private final AtomicBoolean tasksChanged = new AtomicBoolean(true);
+    private final List<WatchHub.Subscription> subscriptions = new ArrayList<>();
+
+    /**
+     * @param debounceMs            how long changes are collected before the pass they trigger runs
+     * @param resyncIntervalSeconds interval of the periodic pass kept as a safety net for missed changes
+     */
+    public ReconcileTrigger(WatchHub watchHub, EtcdPathResolver pathResolver, String clusterName,
+                            long debounceMs, long resyncIntervalSeconds) {
+        this.watchHub = watchHub;
+        this.pathResolver = pathResolver;
+        this.clusterName = clusterName;
+        this.debounceMs = debounceMs;
+        this.resyncIntervalSeconds = resyncIntervalSeconds;
+    }
+
+    public long getDebounceMs() {
+        return debounceMs;
+    }
+
+    public long getResyncIntervalSeconds() {
+        return resyncIntervalSeconds;
+    }
+
+    /**
+     * Start watching, calling onChange (on a watch dispatch thread) for every batch of relevant changes.
+     */
+    public void start(Runnable onChange) {
+        start(onChange, () -> { });
+    }
+
+    /**
+     * Start watching, also calling onTaskChange for every batch of task changes the task queue acts on.
+     */
+    public synchronized void start(Runnable onChange, Runnable onTaskChange) {
+        this.onChange = onChange;
+        this.onTaskChange = onTaskChange;
+        subscribe("search-units", pathResolver.getSearchUnitsPrefix(clusterName));
+        subscribe("indices", pathResolver.getIndicesPrefix(clusterName));
+        subscribe("tasks", pathResolver.getControllerTasksPrefix(clusterName));
+        log.info("[Cluster: {}] Watching for changes that trigger reconcile passes", clusterName);
+    }
+
+    private void subscribe(String name, String prefix) {
+        subscriptions.add(watchHub.subscribePrefix("reconcile-" + name + "-" + clusterName, prefix + PATH_DELIMITER,
+            new WatchHub.Listener() {
+                @Override
+                public void onEvents(List<WatchEvent> events) {
+                    ReconcileTrigger.this.onEvents(events);
+                }
+
+                @Override
+                public void onResync() {
+                    // Events may have been missed: forget what was seen and reconcile
+                    digests.clear();
+                    tasksChanged.set(true);
+                    onChange.run();
+                    onTaskChange.run();
+                }
+            }));
+    }
+
+    void onEvents(List<WatchEvent> events) {
+        boolean relevant = false;
+        boolean dispatchable = false;
+        for (WatchEvent event : events) {
+            // Evaluate every event so digests and heartbeats stay current
+            relevant |= isRelevant(event);
+            dispatchable |= isDispatchable(event);
+        }
+        if (relevant) {
+            onChange.run();
+        }
+        if (dispatchable) {
+            onTaskChange.run();
+        }
+    }
+
+    /**
+     * Whether the event gives the task queue something to do. Its own RUNNING and outcome writes do not, nor
+     * do the checkpoints of the recurring tasks.
+     */
+    private boolean isDispatchable(WatchEvent event) {
+        KeyValue kv = event.getKeyValue();
+        if (event.getEventType() == WatchEvent.EventType.DELETE
+                || !kv.getKey().toString(UTF_8).startsWith(pathResolver.getControllerTasksPrefix(clusterName) + PATH_DELIMITER)) {
+            return false;
+        }
+        if (kv.getVersion() == 1) {
+            return true;
+        }
+        TaskMetadata task = decode(kv, TaskMetadata.class);
+        if (task == null) {
+            return true;
+        }
+        if (task.isRecurring()) {
+            return false;
+        }
+        return TASK_STATUS_PENDING.equals(task.getStatus())
+            || (task.isCancelRequested() && TASK_STATUS_RUNNING.equals(task.getStatus()));
+    }
+
+    private boolean isRelevant(WatchEvent event) {
+        KeyValue kv = event.getKeyValue();
+        String key = kv.getKey().toString(UTF_8);
+        boolean deleted = event.getEventType() == WatchEvent.EventType.DELETE;
+
+        if (key.startsWith(pathResolver.getControllerTasksPrefix(clusterName) + PATH_DELIMITER)) {
+            // Task creations only; status updates are the task manager's own writes
+            if (deleted || kv.getVersion() != 1) {
+                return false;
+            }
+            tasksChanged.set(true);
+            return true;
+        }
+        if (key.endsWith(PATH_DELIMITER + SUFFIX_ACTUAL_STATE)) {
+            String unitName = unitName(key);
+            if (deleted) {
+                staleAt.remove(unitName);
+                digests.remove(key);
+                return true;
+            }
+            SearchUnitActualState state = decode(kv, SearchUnitActualState.class);
+            if (state == null) {
+                return true;
+            }
+            staleAt.put(unitName, state.getTimestamp() + STALE_HEARTBEAT_TIMEOUT_MS);
+            return changed(key, Objects.hash(state.getNodeRouting(), state.getRole(), state.getAddress(),
+                state.getHttpPort(), state.getTransportPort(), state.getShardId(), state.deriveNodeState(),
+                state.deriveAdminState()));
+        }
+        if (key.endsWith(PATH_DELIMITER + SUFFIX_PLANNED_ALLOCATION)) {
+            if (deleted) {
+                digests.remove(key);
+                return true;
+            }
+            ShardAllocation planned = decode(kv, ShardAllocation.class);
+            return planned == null || changed(key, Objects.hash(planned.getIngestSUs(), planned.getSearchSUs()));
+        }
+        // Index configs; search unit confs live under the search units prefix and are written by discovery
+        return key.startsWith(pathResolver.getIndicesPrefix(clusterName) + PATH_DELIMITER)
+            && key.endsWith(PATH_DELIMITER + SUFFIX_CONF);
+    }
+
+    private boolean changed(String key, int digest) {
+        Integer previous = digests.put(key, digest);
+        return previous == null || previous != digest;
+    }
+
+    private static String unitName(String actualStateKey) {
+        String withoutSuffix = actualStateKey.substring(0, actualStateKey.length() - SUFFIX_ACTUAL_STATE.length() - 1);
+        return withoutSuffix.substring(withoutSuffix.lastIndexOf(PATH_DELIMITER) + 1);
+    }
+
+    private <T> T decode(KeyValue kv, Class<T> clazz) {
+        try {
+            return CODEC.decode(kv.getValue().getBytes(), clazz);
+        } catch (Exception e) {
+            log.debug("[Cluster: {}] Failed to decode {}: {}", clusterName, kv.getKey().toString(UTF_8), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Whether a unit's heartbeat has aged past the staleness timeout since the last poll.
+     */
+    public boolean pollStaleUnits() {
+        long now = System.currentTimeMillis();
+        boolean stale = false;
+        for (Map.Entry<String, Long> entry : staleAt.entrySet()) {
+            if (now > entry.getValue() && staleAt.remove(entry.getKey(), entry.getValue())) {
+                log.info("[Cluster: {}] Search unit {} stopped heartbeating", clusterName, entry.getKey());
+                stale = true;
+            }
+        }
+        return stale;
+    }
+
+    /**
+     * Whether a task was created since the last poll, so the task list is worth reading again.
+     */
+    public boolean pollTaskChanges() {
+        return tasksChanged.getAndSet(false);
+    }
+
+    @Override
+    public synchronized void close() {
+        subscriptions.forEach(WatchHub.Subscription::close);
+        subscriptions.clear();
+    }
+}
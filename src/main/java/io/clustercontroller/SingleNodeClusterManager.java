@@ -0,0 +1,99 @@
+package io.clustercontroller;
+
+import io.clustercontroller.config.Constants;
+import io.clustercontroller.multicluster.lifecycle.ClusterLifecycleManager;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Manages a fixed set of clusters on a single controller, in place of {@link MultiClusterManager} when the
+ * metadata store is embedded and there is no etcd to register controllers, discover clusters or lock them.
+ *
+ * The clusters are listed in metadata_store.embedded_clusters. Each is started without a lock, since no other
+ * controller can open the same store, and started again if its TaskManager stopped (e.g. after a failed health
+ * check).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = Constants.METADATA_STORE_BACKEND_PROPERTY, havingValue = Constants.METADATA_STORE_BACKEND_EMBEDDED)
+public class SingleNodeClusterManager {
+
+    private static final long RECONCILE_INTERVAL_SECONDS = 60L;
+    private static final int SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final ClusterLifecycleManager lifecycleManager;
+    private final Set<String> clusters;
+    private final ScheduledExecutorService reconcileScheduler;
+
+    @Autowired
+    public SingleNodeClusterManager(
+            ClusterLifecycleManager lifecycleManager,
+            @Value("${metadata_store.embedded_clusters:}") String clusters) {
+        this.lifecycleManager = lifecycleManager;
+        this.clusters = new LinkedHashSet<>();
+        Arrays.stream(clusters.split(","))
+            .map(String::trim)
+            .filter(clusterId -> !clusterId.isEmpty())
+            .forEach(this.clusters::add);
+        this.reconcileScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r);
+            t.setName("single-node-reconcile-" + t.getId());
+            t.setDaemon(true);
+            return t;
+        });
+        log.info("SingleNodeClusterManager initialized for clusters: {}", this.clusters);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (clusters.isEmpty()) {
+            log.warn("No clusters listed in metadata_store.embedded_clusters, nothing to manage");
+            return;
+        }
+        reconcile();
+        reconcileScheduler.scheduleWithFixedDelay(this::reconcile, RECONCILE_INTERVAL_SECONDS,
+            RECONCILE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Start every listed cluster that is not managed.
+     */
+    void reconcile() {
+        for (String clusterId : clusters) {
+            if (lifecycleManager.isClusterManaged(clusterId)) {
+                continue;
+            }
+            try {
+                lifecycleManager.startCluster(clusterId, null);
+            } catch (Exception e) {
+                log.warn("Failed to start cluster {}, retrying in {}s", clusterId, RECONCILE_INTERVAL_SECONDS, e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        log.info("Shutting down SingleNodeClusterManager");
+        try {
+            reconcileScheduler.shutdown();
+            if (!reconcileScheduler.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                reconcileScheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lifecycleManager.stopAll();
+    }
+}
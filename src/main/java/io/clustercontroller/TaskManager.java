@@ -1,22 +1,30 @@
 package io.clustercontroller;
 
+import io.clustercontroller.config.TaskProperties;
 import io.clustercontroller.models.TaskMetadata;
+import io.clustercontroller.store.InstrumentedMetadataStore;
 import io.clustercontroller.store.MetadataStore;
+import io.clustercontroller.store.PassDeadline;
+import io.clustercontroller.store.SnapshotMetadataStore;
 import io.clustercontroller.tasks.Task;
 import io.clustercontroller.tasks.TaskContext;
 import io.clustercontroller.tasks.TaskFactory;
+import io.clustercontroller.tracing.PassTracer;
 import lombok.extern.slf4j.Slf4j;
 
 import static io.clustercontroller.config.Constants.*;
 
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Generic task manager for scheduling and executing tasks.
@@ -29,16 +37,71 @@ public class TaskManager {
     private final TaskContext taskContext;
     private final String clusterName;
     
-    private final ScheduledExecutorService scheduler;
+    // This cluster's lane of the controller-wide pass scheduler: task compaction runs between task loop passes,
+    // never alongside one
+    private final PassScheduler.Lane lane;
+    // Scheduler of a task manager created without a shared one, closed when it stops
+    private final PassScheduler ownedScheduler;
     private final long intervalSeconds;
-    private boolean isRunning = false;
+    // Completed and failed one-shot tasks older than this are deleted by the background compaction
+    private final long cleanupRetentionSeconds;
+    private final long cleanupIntervalSeconds;
+    // Write the deleted tasks to a compressed history key first
+    private final boolean cleanupArchive;
+    // Runs the recurring tasks as one cycle per tick; null runs one task per tick. The recurring tasks' records
+    // are left untouched in cycle mode, the loop only picks one-shot tasks from them.
+    private final ReconcileCycle reconcileCycle;
+    // Runs passes shortly after relevant changes, the fixed-delay loop becoming a slow safety resync; null polls
+    private final ReconcileTrigger reconcileTrigger;
+    private final AtomicBoolean passRequested = new AtomicBoolean();
+    private final AtomicBoolean queuePollRequested = new AtomicBoolean();
+    // Sets the polling loop's interval from what each pass leaves behind; null keeps the fixed interval. Unused in
+    // event-driven mode, where changes trigger the passes and the loop is only the resync
+    private final AdaptiveInterval adaptiveInterval;
+    // The task context's tracer of reconcile passes; null leaves the passes untraced
+    private final PassTracer tracer;
+    // Runs the one-shot tasks apart from the passes, several at a time; null runs them in the passes, one per pass
+    private final TaskQueue taskQueue;
+    // Recurring tasks by name. Their runs update them here only; the store copy is written when a run's outcome
+    // changes or once the checkpoint interval has passed. One-shot tasks are written on every transition.
+    private final Map<String, TaskMetadata> recurringTasks = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastCheckpointMillis = new ConcurrentHashMap<>();
+    private final long checkpointIntervalMillis;
+    // Whether the last listing had pending one-shot tasks; in event-driven mode the tasks are listed again only
+    // then or once the trigger has seen a task created
+    private volatile boolean oneShotTasksPending = true;
+    private volatile boolean isRunning = false;
     
     public TaskManager(MetadataStore metadataStore, TaskContext taskContext, String clusterName, long intervalSeconds) {
+        this(metadataStore, taskContext, clusterName, intervalSeconds, new TaskProperties(), null, null, null, null, null);
+    }
+    
+    /**
+     * @param properties    task settings; the task manager reads the cleanup and checkpoint ones, the others
+     *                      configure the optional collaborators built by the caller
+     * @param passScheduler controller-wide scheduler to run on; null runs on one of its own
+     */
+    public TaskManager(MetadataStore metadataStore, TaskContext taskContext, String clusterName, long intervalSeconds,
+                       TaskProperties properties, PassScheduler passScheduler, ReconcileCycle reconcileCycle,
+                       ReconcileTrigger reconcileTrigger, AdaptiveInterval adaptiveInterval, TaskQueue taskQueue) {
         this.metadataStore = metadataStore;
         this.taskContext = taskContext;
         this.clusterName = clusterName;
         this.intervalSeconds = intervalSeconds;
-        this.scheduler = Executors.newScheduledThreadPool(1);
+        this.cleanupRetentionSeconds = properties.getCleanupRetentionSeconds();
+        this.cleanupIntervalSeconds = properties.getCleanupIntervalSeconds();
+        this.cleanupArchive = properties.isCleanupArchive();
+        this.reconcileCycle = reconcileCycle;
+        this.reconcileTrigger = reconcileTrigger;
+        this.checkpointIntervalMillis = TimeUnit.SECONDS.toMillis(properties.getCheckpointIntervalSeconds());
+        this.adaptiveInterval = reconcileTrigger == null ? adaptiveInterval : null;
+        if (adaptiveInterval != null && reconcileTrigger != null) {
+            log.info("[Cluster: {}] Passes triggered by changes, ignoring the adaptive interval", clusterName);
+        }
+        this.tracer = taskContext != null ? taskContext.getTracer() : null;
+        this.taskQueue = taskQueue;
+        this.ownedScheduler = passScheduler == null ? new PassScheduler(1, null) : null;
+        this.lane = (passScheduler != null ? passScheduler : ownedScheduler).register(clusterName);
     }
     
     public TaskMetadata createTask(String taskName, String input, int priority) {
@@ -101,12 +164,103 @@ public class TaskManager {
         bootstrapRecurringTasks();
         
         isRunning = true;
-        scheduler.scheduleWithFixedDelay(
-                this::processTaskLoop,
-                0,
-                intervalSeconds,
-                TimeUnit.SECONDS
-        );
+        long loopIntervalSeconds = intervalSeconds;
+        if (reconcileTrigger != null) {
+            reconcileTrigger.start(this::requestPass, taskQueue != null ? this::requestQueuePoll : () -> { });
+            loopIntervalSeconds = reconcileTrigger.getResyncIntervalSeconds();
+            // A node that stops heartbeating sends no event; its heartbeat ageing out is checked in memory
+            lane.scheduleCheck(this::checkStaleUnits, 1, 1, TimeUnit.SECONDS);
+            log.info("[Cluster: {}] Passes triggered by changes, resync every {}s", clusterName, loopIntervalSeconds);
+        }
+        if (adaptiveInterval != null) {
+            lane.scheduleWithDelay(this::processTaskLoop, 0, TimeUnit.SECONDS,
+                () -> TimeUnit.MILLISECONDS.toNanos(adaptiveInterval.getIntervalMillis()));
+            log.info("[Cluster: {}] Task loop interval adapts to the cluster state", clusterName);
+        } else {
+            lane.scheduleWithFixedDelay(
+                    this::processTaskLoop,
+                    0,
+                    loopIntervalSeconds,
+                    TimeUnit.SECONDS
+            );
+        }
+        if (cleanupIntervalSeconds > 0) {
+            lane.scheduleWithFixedDelay(
+                    this::cleanupOldTasks,
+                    cleanupIntervalSeconds,
+                    cleanupIntervalSeconds,
+                    TimeUnit.SECONDS
+            );
+        } else {
+            log.info("[Cluster: {}] Task cleanup disabled", clusterName);
+        }
+        if (taskQueue != null) {
+            // Listing the tasks reads etcd, so it takes a pass slot; the tasks it starts run outside the lane and
+            // never hold a pass up
+            taskQueue.setPollRequester(this::requestQueuePoll);
+            if (reconcileTrigger != null) {
+                // Polled when the task watch sees something to do or a deadline comes due, and at every resync
+                lane.scheduleWithFixedDelay(taskQueue::poll, 0, reconcileTrigger.getResyncIntervalSeconds(), TimeUnit.SECONDS);
+                lane.scheduleCheck(this::checkQueueDeadlines, 1, 1, TimeUnit.SECONDS);
+            } else {
+                lane.scheduleWithFixedDelay(taskQueue::poll, 0, taskQueue.getPollIntervalMs(), TimeUnit.MILLISECONDS);
+            }
+            log.info("[Cluster: {}] One-shot tasks run by the task queue", clusterName);
+        }
+    }
+    
+    /**
+     * Run a pass once the debounce window has passed; requests made before it runs are coalesced into it.
+     * Requests made while a pass is running schedule the next one, which starts after it.
+     */
+    void requestPass() {
+        if (!isRunning || !passRequested.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            lane.schedule(() -> {
+                passRequested.set(false);
+                processTaskLoop();
+            }, reconcileTrigger.getDebounceMs(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Stopped meanwhile
+            passRequested.set(false);
+        }
+    }
+    
+    /**
+     * Poll the task queue as soon as a pass slot is free, e.g. when a task ends while others wait for a slot.
+     * Requests made before the poll runs are coalesced into it.
+     */
+    private void requestQueuePoll() {
+        if (!isRunning || !queuePollRequested.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            lane.schedule(() -> {
+                queuePollRequested.set(false);
+                taskQueue.poll();
+            }, 0, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Stopped meanwhile
+            queuePollRequested.set(false);
+        }
+    }
+    
+    private void checkQueueDeadlines() {
+        if (taskQueue.isDeadlineDue()) {
+            requestQueuePoll();
+        }
+    }
+    
+    private void checkStaleUnits() {
+        try {
+            if (reconcileTrigger.pollStaleUnits()) {
+                requestPass();
+            }
+        } catch (Exception e) {
+            log.error("[Cluster: {}] Failed to check search unit heartbeats: {}", clusterName, e.getMessage(), e);
+        }
     }
     
     /**
@@ -141,8 +295,10 @@ public class TaskManager {
      */
     private void ensureRecurringTask(String taskName, int priority, String description) {
         try {
-            if (getTask(taskName).isPresent()) {
+            Optional<TaskMetadata> existing = getTask(taskName);
+            if (existing.isPresent()) {
                 log.debug("[Cluster: {}] Task {} already exists", clusterName, taskName);
+                recurringTasks.put(taskName, existing.get());
                 return;
             }
             
@@ -152,6 +308,8 @@ public class TaskManager {
             task.setInput(description);
             
             metadataStore.createTask(clusterName, task);
+            recurringTasks.put(taskName, task);
+            lastCheckpointMillis.put(taskName, System.currentTimeMillis());
             log.info("[Cluster: {}] Created recurring task: {} (priority: {})", clusterName, taskName, priority);
         } catch (Exception e) {
             log.error("[Cluster: {}] Failed to ensure recurring task {}: {}", clusterName, taskName, e.getMessage());
@@ -161,7 +319,16 @@ public class TaskManager {
     public void stop() {
         log.info("[Cluster: {}] Stopping task manager", clusterName);
         isRunning = false;
-        scheduler.shutdown();
+        if (reconcileTrigger != null) {
+            reconcileTrigger.close();
+        }
+        lane.close();
+        if (taskQueue != null) {
+            taskQueue.close();
+        }
+        if (ownedScheduler != null) {
+            ownedScheduler.close();
+        }
         // NOTE: Do NOT close metadataStore here - it's a shared resource used by all TaskManagers
         // The metadataStore will be closed when the application shuts down
     }
@@ -170,8 +337,21 @@ public class TaskManager {
         return isRunning;
     }
     
-    private void processTaskLoop() {
-        try {
+    /**
+     * Per-stage timings of the last reconcile cycle; empty unless running in cycle mode.
+     */
+    public Optional<ReconcileCycle.Result> getLastReconcileCycle() {
+        return reconcileCycle != null ? reconcileCycle.getLastResult() : Optional.empty();
+    }
+    
+    void processTaskLoop() {
+        // Logs the pass's metadata store operations, etcd requests and bytes when it ends. With an adaptive interval
+        // the pass's tasks share one snapshot, which then shows the state they left behind. The pass is traced
+        // with its phases, indices and shards when the task context has a tracer.
+        try (PassTracer.Span trace = PassTracer.startPass(tracer, clusterName);
+             InstrumentedMetadataStore.Pass pass = InstrumentedMetadataStore.startPass(metadataStore, clusterName);
+             SnapshotMetadataStore.SharedPass shared = adaptiveInterval != null
+                 ? SnapshotMetadataStore.share(metadataStore, clusterName) : null) {
             // TODO: Leader check disabled for multi-cluster mode
             // In multi-cluster mode, MultiClusterManager handles cluster ownership via distributed locks
             // If reverting to single-cluster mode, uncomment the following:
@@ -182,28 +362,68 @@ public class TaskManager {
             
             log.info("[Cluster: {}] Running task processing loop - checking for tasks", clusterName);
             
-            List<TaskMetadata> taskMetadataList = getAllTasks();
-            log.info("[Cluster: {}] Found {} tasks in etcd", clusterName, taskMetadataList.size());
+            List<TaskMetadata> taskMetadataList;
+            try (PassTracer.Span span = PassTracer.span(PassTracer.KIND_PHASE, "list-tasks")) {
+                taskMetadataList = listTasks();
+            }
+            log.info("[Cluster: {}] Found {} tasks", clusterName, taskMetadataList.size());
             for (TaskMetadata task : taskMetadataList) {
                 log.info("[Cluster: {}] Task: {} status: {} priority: {}", clusterName, task.getName(), task.getStatus(), task.getPriority());
             }
             
-            cleanupOldTasks(taskMetadataList);
+            if (reconcileCycle != null) {
+                reconcileCycle.run();
+            }
             
             TaskMetadata taskMetadataToProcess = selectNextTask(taskMetadataList);
             if (taskMetadataToProcess != null) {
                 log.info("[Cluster: {}] Processing task: {}", clusterName, taskMetadataToProcess.getName());
-                String result = executeTask(taskMetadataToProcess);
+                String result;
+                try (PassTracer.Span span = PassTracer.span(PassTracer.KIND_TASK, taskMetadataToProcess.getName())) {
+                    result = executeTask(taskMetadataToProcess);
+                    PassTracer.tag("status", result);
+                }
                 log.info("[Cluster: {}] Task {} completed with result: {}", clusterName, taskMetadataToProcess.getName(), result);
             } else {
                 log.info("[Cluster: {}] No pending tasks to process", clusterName);
             }
+            
+            if (shared != null) {
+                adaptiveInterval.observe(shared.getSnapshot());
+            }
         } catch (Exception e) {
             log.error("[Cluster: {}] Error in task processing loop: {}", clusterName, e.getMessage(), e);
         }
     }
     
+    /**
+     * The recurring tasks as kept in memory and the one-shot tasks from the store. Recurring task records seen in
+     * the store for the first time (e.g. created by hand) are taken over; later copies of them are ignored.
+     */
+    private List<TaskMetadata> listTasks() {
+        List<TaskMetadata> oneShotTasks = new ArrayList<>();
+        // Without a trigger nothing tells a new task apart, so the tasks are listed in every pass
+        if (reconcileTrigger == null || oneShotTasksPending || reconcileTrigger.pollTaskChanges()) {
+            for (TaskMetadata task : getAllTasks()) {
+                if (task.isRecurring()) {
+                    recurringTasks.putIfAbsent(task.getName(), task);
+                } else {
+                    oneShotTasks.add(task);
+                }
+            }
+            // The task queue finds its tasks itself
+            oneShotTasksPending = taskQueue == null
+                && oneShotTasks.stream().anyMatch(t -> TASK_STATUS_PENDING.equals(t.getStatus()));
+        }
+        List<TaskMetadata> tasks = new ArrayList<>(recurringTasks.values());
+        tasks.addAll(oneShotTasks);
+        return tasks;
+    }
+    
     private String executeTask(TaskMetadata taskMetadata) {
+        if (taskMetadata.isRecurring()) {
+            return executeRecurringTask(taskMetadata);
+        }
         try {
             taskMetadata.setStatus(TASK_STATUS_RUNNING);
             updateTask(taskMetadata);
@@ -211,16 +431,15 @@ public class TaskManager {
             log.info("Executing task: {}", taskMetadata.getName());
             
             // Create Task implementation from metadata and execute
+            // Its etcd requests share the pass budget and fail fast once it is spent; the status updates do not
             Task task = TaskFactory.createTask(taskMetadata);
-            String result = task.execute(taskContext, clusterName);
-            
-            // Make repeat tasks eligible again by resetting status to pending
-            if (TASK_SCHEDULE_REPEAT.equalsIgnoreCase(taskMetadata.getSchedule())) {
-                taskMetadata.setStatus(TASK_STATUS_PENDING);
-            } else {
-                taskMetadata.setStatus(result);
+            String result;
+            try (PassDeadline deadline = metadataStore.startPassDeadline(clusterName)) {
+                result = task.execute(taskContext, clusterName);
             }
             
+            taskMetadata.setStatus(result);
+            
             // Update timestamp so task selection considers recency
             taskMetadata.setLastUpdated(OffsetDateTime.now(ZoneOffset.UTC));
             updateTask(taskMetadata);
@@ -238,6 +457,38 @@ public class TaskManager {
         }
     }
     
+    /**
+     * Run a recurring task without writing its RUNNING and PENDING states to the store. A failed run leaves it
+     * FAILED until a run succeeds; the store copy is written on that change of outcome or at the checkpoint interval.
+     */
+    private String executeRecurringTask(TaskMetadata taskMetadata) {
+        String previousStatus = taskMetadata.getStatus();
+        String result;
+        try (PassDeadline deadline = metadataStore.startPassDeadline(clusterName)) {
+            log.info("Executing task: {}", taskMetadata.getName());
+            result = TaskFactory.createTask(taskMetadata).execute(taskContext, clusterName);
+        } catch (Exception e) {
+            log.error("Failed to execute task {}: {}", taskMetadata.getName(), e.getMessage(), e);
+            result = TASK_STATUS_FAILED;
+        }
+        
+        taskMetadata.setStatus(TASK_STATUS_FAILED.equals(result) ? TASK_STATUS_FAILED : TASK_STATUS_PENDING);
+        // Update timestamp so task selection considers recency
+        taskMetadata.setLastUpdated(OffsetDateTime.now(ZoneOffset.UTC));
+        long now = System.currentTimeMillis();
+        if (!taskMetadata.getStatus().equals(previousStatus)
+                || now - lastCheckpointMillis.getOrDefault(taskMetadata.getName(), 0L) >= checkpointIntervalMillis) {
+            try {
+                updateTask(taskMetadata);
+                lastCheckpointMillis.put(taskMetadata.getName(), now);
+            } catch (Exception e) {
+                // Kept in memory; written again at the next checkpoint
+                log.error("[Cluster: {}] Failed to checkpoint task {}: {}", clusterName, taskMetadata.getName(), e.getMessage());
+            }
+        }
+        return result;
+    }
+    
     private TaskMetadata selectNextTask(List<TaskMetadata> tasks) {
         //TODO: Implement advanced task selection logic based on priority and lastUpdated
         
@@ -245,7 +496,11 @@ public class TaskManager {
         // This allows repeat tasks to alternate naturally based on priority + age
         // Lower effective time = higher priority (should run sooner)
         return tasks.stream()
-                .filter(t -> TASK_SCHEDULE_REPEAT.equals(t.getSchedule()) || TASK_STATUS_PENDING.equals(t.getStatus()))
+                // In cycle mode the recurring tasks have already run as the cycle's stages, and with a task queue
+                // the one-shot tasks are its own
+                .filter(t -> t.isRecurring()
+                    ? reconcileCycle == null
+                    : taskQueue == null && TASK_STATUS_PENDING.equals(t.getStatus()))
                 .min(Comparator.comparingLong(t -> {
                     long lastUpdated = t.getLastUpdated() != null 
                         ? t.getLastUpdated().toInstant().toEpochMilli() 
@@ -257,8 +512,23 @@ public class TaskManager {
                 .orElse(null);
     }
     
-    private void cleanupOldTasks(List<TaskMetadata> tasks) {
-        // TODO: Implement task cleanup logic
-        log.debug("Cleaning up old tasks");
+    /**
+     * Delete completed and failed one-shot tasks past the retention age. Runs on its own schedule rather than
+     * in every task loop pass; failures are logged and retried at the next run.
+     */
+    int cleanupOldTasks() {
+        long olderThan = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(cleanupRetentionSeconds);
+        try {
+            int deleted = metadataStore.deleteOldTasks(clusterName, olderThan, cleanupArchive);
+            if (deleted > 0) {
+                log.info("[Cluster: {}] Cleaned up {} tasks older than {}s", clusterName, deleted, cleanupRetentionSeconds);
+            } else {
+                log.debug("[Cluster: {}] No old tasks to clean up", clusterName);
+            }
+            return deleted;
+        } catch (Exception e) {
+            log.error("[Cluster: {}] Failed to clean up old tasks: {}", clusterName, e.getMessage(), e);
+            return 0;
+        }
     }
 }
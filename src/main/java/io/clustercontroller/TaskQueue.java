@@ -0,0 +1,432 @@
+package io.clustercontroller;
+
+import io.clustercontroller.models.TaskMetadata;
+import io.clustercontroller.store.MetadataStore;
+import io.clustercontroller.store.PassDeadline;
+import io.clustercontroller.store.VersionConflictException;
+import io.clustercontroller.store.Versioned;
+import io.clustercontroller.tasks.Task;
+import io.clustercontroller.tasks.TaskContext;
+import io.clustercontroller.tasks.TaskFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+import static io.clustercontroller.config.Constants.*;
+
+/**
+ * Queue of a cluster's one-shot tasks, run apart from the reconcile passes so admin operations (e.g. creating
+ * many indices) wait neither for the recurring tasks nor for each other.
+ * <p>
+ * A poll lists the cluster's tasks and starts the pending one-shot ones by priority, then in the order their
+ * keys were created (etcd create revision; creation time on backends without one). Up to maxConcurrentTasks run
+ * at the same time, each on a virtual thread; tasks on the same resource (e.g. an index) run one at a time, in
+ * queue order. A task is claimed with a key bound to the lease of the cluster lock before it runs, so one
+ * controller runs it; a task left RUNNING whose claim went away with its controller's lease is queued again.
+ * A task past its deadline is failed and a task with a cancel request is cancelled, before it starts or by
+ * interrupting its run. Every status write is conditional on the revision the task was read at and retried on
+ * the task as it is now, so it never undoes a cancel request or an outcome written meanwhile.
+ * <p>
+ * Polls run in the cluster's lane of the pass scheduler, under a pass deadline like a pass. The task manager
+ * asks for them when the task watch sees something to do and when {@link #isDeadlineDue()}, or on a fixed
+ * interval when it polls. The runs themselves are outside any pass: their etcd requests are only bound by the
+ * operation timeouts, and they are not traced.
+ */
+@Slf4j
+public class TaskQueue implements AutoCloseable {
+
+    private static final int MAX_TASK_WRITE_ATTEMPTS = 3;
+
+    // Priority (0 first), then creation order, the name breaking ties
+    static final Comparator<TaskMetadata> QUEUE_ORDER = Comparator.comparingInt(TaskMetadata::getPriority)
+        .thenComparingLong(TaskMetadata::getCreateRevision)
+        .thenComparing(TaskMetadata::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder()))
+        .thenComparing(TaskMetadata::getName);
+
+    private final MetadataStore metadataStore;
+    private final TaskContext taskContext;
+    private final String clusterName;
+    // Written into the claims, to tell which controller runs a task
+    private final String owner;
+    // Lease of the cluster lock: the claims expire with it when this controller goes away
+    private final long leaseId;
+    private final int maxConcurrentTasks;
+    private final long pollIntervalMs;
+    private final ExecutorService workers;
+
+    // Tasks started and not done yet, by name
+    private final Map<String, Run> running = new ConcurrentHashMap<>();
+    // Tasks this queue finished that a listing may still show as running or pending, until one no longer does
+    private final Set<String> finished = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean polling = new AtomicBoolean();
+    private final AtomicBoolean pollRequested = new AtomicBoolean();
+    // Whether the last dispatch left pending tasks waiting for a slot; a run ending then asks for a poll at once
+    private volatile boolean backlog;
+    // Earliest deadline (epoch millis) of the tasks the last dispatch left pending or running
+    private volatile long nextDeadline = Long.MAX_VALUE;
+    // How that poll is asked for: through the cluster's lane when the task manager runs the queue
+    private volatile Runnable pollRequester = this::poll;
+    private volatile boolean closed;
+
+    /**
+     * @param owner              the controller running the tasks
+     * @param leaseId            lease of the cluster lock the claims are bound to
+     * @param maxConcurrentTasks one-shot tasks of the cluster running at the same time
+     * @param pollIntervalMs     how often the cluster's tasks are listed when there is no task watch
+     */
+    public TaskQueue(MetadataStore metadataStore, TaskContext taskContext, String clusterName, String owner,
+                     long leaseId, int maxConcurrentTasks, long pollIntervalMs) {
+        this.metadataStore = metadataStore;
+        this.taskContext = taskContext;
+        this.clusterName = clusterName;
+        this.owner = owner;
+        this.leaseId = leaseId;
+        this.maxConcurrentTasks = Math.max(1, maxConcurrentTasks);
+        this.pollIntervalMs = Math.max(1, pollIntervalMs);
+        this.workers = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("task-" + clusterName + "-", 0).factory());
+    }
+
+    public long getPollIntervalMs() {
+        return pollIntervalMs;
+    }
+
+    /**
+     * Set how a run that frees a slot while tasks wait asks for the next poll; by default it polls itself.
+     */
+    public void setPollRequester(Runnable pollRequester) {
+        this.pollRequester = pollRequester;
+    }
+
+    /**
+     * One-shot tasks running right now.
+     */
+    public int getRunningTasks() {
+        return running.size();
+    }
+
+    /**
+     * Whether a task left pending or running by the last dispatch has reached its deadline, so a poll is due to
+     * fail it. Only reads memory, for the task manager to check often.
+     */
+    public boolean isDeadlineDue() {
+        return System.currentTimeMillis() >= nextDeadline;
+    }
+
+    /**
+     * List the cluster's tasks and dispatch the one-shot ones. A poll requested while one is going runs right
+     * after it.
+     */
+    public void poll() {
+        pollRequested.set(true);
+        while (pollRequested.get() && !closed && polling.compareAndSet(false, true)) {
+            try (PassDeadline deadline = metadataStore.startPassDeadline(clusterName)) {
+                while (pollRequested.getAndSet(false) && !closed) {
+                    dispatch(metadataStore.getAllTasks(clusterName));
+                }
+            } catch (Exception e) {
+                log.error("[Cluster: {}] Failed to poll the task queue: {}", clusterName, e.getMessage(), e);
+            } finally {
+                polling.set(false);
+            }
+        }
+    }
+
+    /**
+     * Stop starting tasks and interrupt the running ones. They are left RUNNING with their claims released, so
+     * the next owner of the cluster runs them again.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        running.values().forEach(Run::interrupt);
+        workers.shutdown();
+    }
+
+    // =================================================================
+    // DISPATCH
+    // =================================================================
+
+    /**
+     * Settle cancelled, expired and orphaned tasks, then start pending tasks in queue order while slots are free.
+     */
+    void dispatch(List<TaskMetadata> tasks) {
+        long now = System.currentTimeMillis();
+        long earliestDeadline = Long.MAX_VALUE;
+        Set<String> listed = new HashSet<>();
+        List<TaskMetadata> pending = new ArrayList<>();
+        for (TaskMetadata task : tasks) {
+            if (task.isRecurring()) {
+                continue;
+            }
+            listed.add(task.getName());
+            if (finished.contains(task.getName())) {
+                continue;
+            }
+            Run run = running.get(task.getName());
+            if (run != null) {
+                if (task.isCancelRequested()) {
+                    run.stop(TASK_STATUS_CANCELLED, "Cancelled while running");
+                } else if (isPastDeadline(task, now)) {
+                    run.stop(TASK_STATUS_FAILED, "Deadline exceeded while running");
+                } else {
+                    earliestDeadline = Math.min(earliestDeadline, deadlineMillis(task));
+                }
+            } else if (TASK_STATUS_RUNNING.equals(task.getStatus())) {
+                requeueIfOrphaned(task);
+            } else if (TASK_STATUS_PENDING.equals(task.getStatus())) {
+                if (task.isCancelRequested()) {
+                    record(task.getName(), TASK_STATUS_PENDING, TASK_STATUS_CANCELLED, "Cancelled before it started");
+                } else if (isPastDeadline(task, now)) {
+                    record(task.getName(), TASK_STATUS_PENDING, TASK_STATUS_FAILED, "Deadline exceeded before it started");
+                } else {
+                    pending.add(task);
+                    earliestDeadline = Math.min(earliestDeadline, deadlineMillis(task));
+                }
+            }
+        }
+        // The listing no longer shows them as active: their final state is visible
+        finished.retainAll(listed);
+        nextDeadline = earliestDeadline;
+
+        pending.sort(QUEUE_ORDER);
+        Set<String> busyResources = new HashSet<>();
+        running.values().forEach(run -> {
+            if (run.resource != null) {
+                busyResources.add(run.resource);
+            }
+        });
+        boolean waiting = false;
+        for (TaskMetadata task : pending) {
+            Task impl = TaskFactory.createTask(task);
+            String resource = impl.getResource();
+            // Later tasks on the resource stay behind this one
+            if (resource != null && !busyResources.add(resource)) {
+                continue;
+            }
+            if (running.size() >= maxConcurrentTasks) {
+                waiting = true;
+                break;
+            }
+            start(task, impl, resource);
+        }
+        backlog = waiting;
+    }
+
+    private void start(TaskMetadata task, Task impl, String resource) {
+        try {
+            if (!metadataStore.claimTask(clusterName, task.getName(), owner, leaseId)) {
+                log.info("[Cluster: {}] Task {} is claimed by another controller", clusterName, task.getName());
+                return;
+            }
+        } catch (Exception e) {
+            log.error("[Cluster: {}] Failed to claim task {}: {}", clusterName, task.getName(), e.getMessage());
+            return;
+        }
+        Run run = new Run(task.getName(), impl, resource);
+        running.put(task.getName(), run);
+        try {
+            // Unless it was cancelled, expired or started elsewhere since it was listed
+            long now = System.currentTimeMillis();
+            TaskMetadata started = update(task.getName(), current -> {
+                if (!TASK_STATUS_PENDING.equals(current.getStatus()) || current.isCancelRequested()
+                        || isPastDeadline(current, now)) {
+                    return false;
+                }
+                current.setStatus(TASK_STATUS_RUNNING);
+                return true;
+            });
+            if (started == null) {
+                log.info("[Cluster: {}] Task {} changed since it was listed; left to the next poll", clusterName, task.getName());
+                release(run, false);
+                return;
+            }
+            workers.execute(() -> execute(run));
+            log.info("[Cluster: {}] Started task {} ({} running)", clusterName, task.getName(), running.size());
+        } catch (RejectedExecutionException e) {
+            // Closed meanwhile
+            release(run, false);
+        } catch (Exception e) {
+            // Still pending; tried again at the next poll
+            log.error("[Cluster: {}] Failed to start task {}: {}", clusterName, task.getName(), e.getMessage());
+            release(run, false);
+        }
+    }
+
+    private void execute(Run run) {
+        run.thread = Thread.currentThread();
+        String name = run.name;
+        try {
+            // Stopped before it got here
+            if (run.done.get() || closed) {
+                return;
+            }
+            log.info("Executing task: {}", name);
+            String status;
+            String output;
+            try {
+                status = run.impl.execute(taskContext, clusterName);
+                output = run.impl.getOutput();
+            } catch (Exception e) {
+                log.error("Failed to execute task {}: {}", name, e.getMessage(), e);
+                status = TASK_STATUS_FAILED;
+                output = e.getMessage();
+            }
+            // Interrupted by close: left RUNNING for the next owner
+            if (!closed && run.done.compareAndSet(false, true)) {
+                record(name, TASK_STATUS_RUNNING, status, output);
+                log.info("[Cluster: {}] Task {} completed with result: {}", clusterName, name, status);
+            }
+        } finally {
+            // Not to fail the releasing write
+            Thread.interrupted();
+            release(run, true);
+            if (backlog && !closed) {
+                pollRequester.run();
+            }
+        }
+    }
+
+    /**
+     * Release the claim and the slot of a task. A task that ran is skipped until listings show it as done.
+     */
+    private void release(Run run, boolean ran) {
+        String name = run.name;
+        try {
+            metadataStore.releaseTaskClaim(clusterName, name);
+        } catch (Exception e) {
+            // Expires with the lease
+            log.error("[Cluster: {}] Failed to release claim on task {}: {}", clusterName, name, e.getMessage());
+        }
+        if (ran) {
+            finished.add(name);
+        }
+        running.remove(name, run);
+    }
+
+    /**
+     * Write a one-shot task's final status and output, if it still has the status it was seen with.
+     */
+    private void record(String taskName, String expectedStatus, String status, String output) {
+        try {
+            TaskMetadata written = update(taskName, current -> {
+                if (!expectedStatus.equals(current.getStatus())) {
+                    return false;
+                }
+                current.setStatus(status);
+                current.setOutput(output);
+                return true;
+            });
+            if (written == null) {
+                log.info("[Cluster: {}] Task {} is no longer {}; {} not recorded", clusterName, taskName, expectedStatus, status);
+            }
+        } catch (Exception e) {
+            log.error("[Cluster: {}] Failed to update task {} to {}: {}", clusterName, taskName, status, e.getMessage());
+        }
+    }
+
+    /**
+     * Queue a RUNNING task again if no controller holds its claim, e.g. its controller went away mid-run.
+     */
+    private void requeueIfOrphaned(TaskMetadata task) {
+        try {
+            if (metadataStore.isTaskClaimed(clusterName, task.getName())) {
+                return;
+            }
+            TaskMetadata requeued = update(task.getName(), current -> {
+                if (!TASK_STATUS_RUNNING.equals(current.getStatus())) {
+                    return false;
+                }
+                current.setStatus(TASK_STATUS_PENDING);
+                return true;
+            });
+            if (requeued != null) {
+                log.warn("[Cluster: {}] Task {} was left running without a claim; queued it again", clusterName, task.getName());
+            }
+        } catch (Exception e) {
+            log.error("[Cluster: {}] Failed to requeue task {}: {}", clusterName, task.getName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Apply a change to a task as stored and write it only if the task was not modified since it was read. On a
+     * conflict the change is applied again to the task as it is now, returned with the conflict; the change
+     * returns false to leave the task as it is. Returns the task as written, or null if it was left as it is or
+     * no longer exists.
+     */
+    private TaskMetadata update(String taskName, Predicate<TaskMetadata> change) throws Exception {
+        Versioned<TaskMetadata> current = metadataStore.getTaskVersioned(clusterName, taskName);
+        for (int attempt = 1; ; attempt++) {
+            TaskMetadata task = current.getValue();
+            if (task == null || !change.test(task)) {
+                return null;
+            }
+            task.setLastUpdated(OffsetDateTime.now(ZoneOffset.UTC));
+            try {
+                metadataStore.updateTask(clusterName, task, current.getModRevision());
+                return task;
+            } catch (VersionConflictException e) {
+                if (attempt >= MAX_TASK_WRITE_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("[Cluster: {}] Task {} changed concurrently, retrying on revision {}",
+                    clusterName, taskName, e.getCurrent().getModRevision());
+                current = e.getCurrent();
+            }
+        }
+    }
+
+    private static boolean isPastDeadline(TaskMetadata task, long nowMillis) {
+        return deadlineMillis(task) <= nowMillis;
+    }
+
+    private static long deadlineMillis(TaskMetadata task) {
+        return task.getDeadline() != null ? task.getDeadline().toInstant().toEpochMilli() : Long.MAX_VALUE;
+    }
+
+    /**
+     * A started task. Its outcome is recorded once: by its run, or by a stop for cancellation or the deadline.
+     */
+    private final class Run {
+        private final String name;
+        private final Task impl;
+        private final String resource;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private volatile Thread thread;
+
+        private Run(String name, Task impl, String resource) {
+            this.name = name;
+            this.impl = impl;
+            this.resource = resource;
+        }
+
+        private void stop(String status, String output) {
+            if (!done.compareAndSet(false, true)) {
+                return;
+            }
+            log.info("[Cluster: {}] Stopping task {}: {}", clusterName, name, output);
+            record(name, TASK_STATUS_RUNNING, status, output);
+            interrupt();
+        }
+
+        private void interrupt() {
+            Thread runner = thread;
+            if (runner != null) {
+                runner.interrupt();
+            }
+        }
+    }
+}
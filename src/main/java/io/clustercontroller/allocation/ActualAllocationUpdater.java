@@ -11,7 +11,13 @@ import io.clustercontroller.models.SearchUnit;
 import io.clustercontroller.models.SearchUnitActualState;
 import io.clustercontroller.models.SearchUnitGoalState;
 import io.clustercontroller.models.ShardAllocation;
+import io.clustercontroller.store.AsyncMetadataStore;
 import io.clustercontroller.store.MetadataStore;
+import io.clustercontroller.store.SnapshotMetadataStore;
+import io.clustercontroller.store.WriteBatch;
+import io.clustercontroller.store.WriteBatchResult;
+import io.clustercontroller.store.WriteOperation;
+import io.clustercontroller.tracing.PassTracer;
 import lombok.extern.slf4j.Slf4j;
 import io.clustercontroller.config.Constants;
 
@@ -21,6 +27,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import static io.clustercontroller.metrics.MetricsConstants.*;
 import static io.clustercontroller.metrics.MetricsUtils.*;
@@ -54,7 +61,6 @@ public class ActualAllocationUpdater {
     
     private final MetadataStore metadataStore;
     private final MetricsProvider metricsProvider;
-    private static final long ONE_MINUTE_MS = 60 * 1000;
     
     public ActualAllocationUpdater(MetadataStore metadataStore, MetricsProvider metricsProvider) {
         this.metadataStore = metadataStore;
@@ -68,28 +74,44 @@ public class ActualAllocationUpdater {
     public void updateActualAllocations(String clusterId) throws Exception {
         log.info("ActualAllocationUpdater - Starting actual allocation update process for cluster {}", clusterId);
         
+        // Read the whole pass from one snapshot revision (plus the pass's own writes)
+        MetadataStore store = SnapshotMetadataStore.forPass(metadataStore, clusterId);
+        
         // Get all search units to read their actual states
-        List<SearchUnit> searchUnits = metadataStore.getAllSearchUnits(clusterId);
+        List<SearchUnit> searchUnits = store.getAllSearchUnits(clusterId);
         if (searchUnits.isEmpty()) {
             log.info("ActualAllocationUpdater - No search units found for cluster {}", clusterId);
             return;
         }
         
         // Collect actual state information from all search units
-        Map<String, Map<String, Set<String>>> actualAllocations = collectActualAllocations(clusterId, searchUnits);
+        Map<String, Map<String, Set<String>>> actualAllocations;
+        try (PassTracer.Span span = PassTracer.span(PassTracer.KIND_PHASE, "collect-actual-states")) {
+            actualAllocations = collectActualAllocations(store, clusterId, searchUnits);
+        }
         
         // Update actual allocation records for each index/shard combination
-        int totalUpdates = updateActualAllocationRecords(clusterId, actualAllocations);
+        int totalUpdates;
+        try (PassTracer.Span span = PassTracer.span(PassTracer.KIND_PHASE, "update-actual-allocations")) {
+            totalUpdates = updateActualAllocationRecords(store, clusterId, actualAllocations);
+        }
         
         // IMPORTANT: Clean up stale actual allocations that are no longer valid
         // This prevents replica duplication when replicas are moved between indices
-        cleanupStaleActualAllocations(clusterId, actualAllocations);
+        try (PassTracer.Span span = PassTracer.span(PassTracer.KIND_PHASE, "cleanup-stale-actual-allocations")) {
+            cleanupStaleActualAllocations(store, clusterId, actualAllocations);
+        }
         
         // NEW: Update coordinator goal states based on planned allocations
-        int coordinatorUpdates = updateCoordinatorGoalStates(clusterId, searchUnits);
+        int coordinatorUpdates;
+        try (PassTracer.Span span = PassTracer.span(PassTracer.KIND_PHASE, "coordinator-goal-states")) {
+            coordinatorUpdates = updateCoordinatorGoalStates(store, clusterId, searchUnits);
+        }
         
         // Emit shard distribution and doc count metrics
-        emitShardDistributionMetrics(clusterId, searchUnits, actualAllocations);
+        try (PassTracer.Span span = PassTracer.span(PassTracer.KIND_PHASE, "shard-metrics")) {
+            emitShardDistributionMetrics(store, clusterId, searchUnits, actualAllocations);
+        }
         
         // Cleanup stale gauges for deleted indices/shards/nodes
         metricsProvider.cleanupStaleGauges();
@@ -102,9 +124,18 @@ public class ActualAllocationUpdater {
      * Collect actual allocations from all search units
      * Returns: Map<indexName, Map<shardId, Set<unitNames>>>
      */
-    private Map<String, Map<String, Set<String>>> collectActualAllocations(String clusterId, List<SearchUnit> searchUnits) {
+    private Map<String, Map<String, Set<String>>> collectActualAllocations(MetadataStore store, String clusterId, List<SearchUnit> searchUnits) {
         Map<String, Map<String, Set<String>>> actualAllocations = new HashMap<>();
         
+        // Issue all actual-state reads up front; the store bounds how many are in flight per cluster
+        AsyncMetadataStore asyncStore = AsyncMetadataStore.of(store);
+        Map<String, CompletableFuture<SearchUnitActualState>> pendingActualStates = new HashMap<>();
+        for (SearchUnit searchUnit : searchUnits) {
+            if (!isCoordinatorNode(searchUnit)) {
+                pendingActualStates.put(searchUnit.getName(), asyncStore.getSearchUnitActualState(clusterId, searchUnit.getName()));
+            }
+        }
+        
         for (SearchUnit searchUnit : searchUnits) {
             String unitName = searchUnit.getName();
             
@@ -115,7 +146,7 @@ public class ActualAllocationUpdater {
                     continue;
                 }
                 
-                SearchUnitActualState actualState = metadataStore.getSearchUnitActualState(clusterId, unitName);
+                SearchUnitActualState actualState = AsyncMetadataStore.await(pendingActualStates.get(unitName));
                 if (actualState == null) {
                     log.debug("ActualAllocationUpdater - No actual state found for SU: {}", unitName);
                     continue;
@@ -168,43 +199,59 @@ public class ActualAllocationUpdater {
     }
     
     /**
-     * Update actual allocation records based on collected data
+     * Update actual allocation records based on collected data; changed records are committed in one write batch
      */
-    private int updateActualAllocationRecords(String clusterId, Map<String, Map<String, Set<String>>> actualAllocations) {
-        int totalUpdates = 0;
+    private int updateActualAllocationRecords(MetadataStore store, String clusterId, Map<String, Map<String, Set<String>>> actualAllocations) {
+        WriteBatch batch = store.newWriteBatch();
         
         for (Map.Entry<String, Map<String, Set<String>>> indexEntry : actualAllocations.entrySet()) {
             String indexName = indexEntry.getKey();
             
-            for (Map.Entry<String, Set<String>> shardEntry : indexEntry.getValue().entrySet()) {
-                String shardId = shardEntry.getKey();
-                Set<String> allocatedUnits = shardEntry.getValue();
-                
-                try {
-                    if (updateShardActualAllocation(clusterId, indexName, shardId, allocatedUnits)) {
-                        totalUpdates++;
+            try (PassTracer.Span indexSpan = PassTracer.span(PassTracer.KIND_INDEX, indexName)) {
+                for (Map.Entry<String, Set<String>> shardEntry : indexEntry.getValue().entrySet()) {
+                    String shardId = shardEntry.getKey();
+                    Set<String> allocatedUnits = shardEntry.getValue();
+                    
+                    try (PassTracer.Span shardSpan = PassTracer.span(PassTracer.KIND_SHARD, shardId)) {
+                        updateShardActualAllocation(store, batch, clusterId, indexName, shardId, allocatedUnits);
+                    } catch (Exception e) {
+                        log.error("ActualAllocationUpdater - Error updating actual allocation for {}/{}: {}", 
+                            indexName, shardId, e.getMessage(), e);
+                        recordActualAllocationFailure(clusterId, indexName, shardId);
+                        // Continue with other shards
                     }
-                } catch (Exception e) {
-                    log.error("ActualAllocationUpdater - Error updating actual allocation for {}/{}: {}", 
-                        indexName, shardId, e.getMessage(), e);
-                    metricsProvider.counter(
-                        UPDATE_ACTUAL_ALLOCATION_FAILURES_METRIC_NAME,
-                        buildMetricsTags(clusterId, indexName, shardId)
-                    ).increment();
-                    // Continue with other shards
                 }
             }
         }
         
-        return totalUpdates;
+        try (PassTracer.Span span = PassTracer.span(PassTracer.KIND_PHASE, "commit")) {
+            WriteBatchResult result = batch.commit();
+            for (WriteOperation operation : result.getOperations(WriteBatchResult.Status.FAILED)) {
+                log.error("ActualAllocationUpdater - Error updating actual allocation for {}/{}", 
+                    operation.getName(), operation.getShardId());
+                recordActualAllocationFailure(clusterId, operation.getName(), operation.getShardId());
+            }
+            return result.count(WriteBatchResult.Status.APPLIED);
+        } catch (Exception e) {
+            log.error("ActualAllocationUpdater - Error committing actual allocation updates for cluster {}: {}", 
+                clusterId, e.getMessage(), e);
+            return 0;
+        }
+    }
+    
+    private void recordActualAllocationFailure(String clusterId, String indexName, String shardId) {
+        metricsProvider.counter(
+            UPDATE_ACTUAL_ALLOCATION_FAILURES_METRIC_NAME,
+            buildMetricsTags(clusterId, indexName, shardId)
+        ).increment();
     }
     
     /**
-     * Update actual allocation for a specific shard
+     * Add the actual allocation of a specific shard to the batch if it changed
      */
-    private boolean updateShardActualAllocation(String clusterId, String indexName, String shardId, Set<String> allocatedUnits) throws Exception {
+    private boolean updateShardActualAllocation(MetadataStore store, WriteBatch batch, String clusterId, String indexName, String shardId, Set<String> allocatedUnits) throws Exception {
         // Get current actual allocation
-        ShardAllocation currentActual = metadataStore.getActualAllocation(clusterId, indexName, shardId);
+        ShardAllocation currentActual = store.getActualAllocation(clusterId, indexName, shardId);
         
         // Separate units by role
         List<String> ingestSUs = new ArrayList<>();
@@ -212,7 +259,7 @@ public class ActualAllocationUpdater {
         
         for (String unitName : allocatedUnits) {
             try {
-                SearchUnit searchUnit = metadataStore.getSearchUnit(clusterId, unitName).orElse(null);
+                SearchUnit searchUnit = store.getSearchUnit(clusterId, unitName).orElse(null);
                 if (searchUnit != null) {
                     String role = searchUnit.getRole() != null ? searchUnit.getRole().toUpperCase() : "UNKNOWN";
                     
@@ -262,9 +309,9 @@ public class ActualAllocationUpdater {
         actualAllocation.setIngestSUs(ingestSUs);
         actualAllocation.setSearchSUs(searchSUs);
         
-        metadataStore.setActualAllocation(clusterId, indexName, shardId, actualAllocation);
+        batch.setActualAllocation(clusterId, indexName, shardId, actualAllocation);
         
-        log.info("ActualAllocationUpdater - Updated actual allocation for {}/{}: ingest={}, search={}", 
+        log.info("ActualAllocationUpdater - Updating actual allocation for {}/{}: ingest={}, search={}", 
             indexName, shardId, ingestSUs, searchSUs);
         return true;
     }
@@ -272,18 +319,18 @@ public class ActualAllocationUpdater {
     /**
      * Clean up actual allocations for shards that no longer exist on any search unit
      * Also cleans up actual allocations for deleted indices (indices without configs)
-     * Uses the already-collected actual allocation data for efficiency
+     * Uses the already-collected actual allocation data for efficiency; all cleanups are committed in one write batch
      */
-    private void cleanupStaleActualAllocations(String clusterId, Map<String, Map<String, Set<String>>> currentActualAllocations) throws Exception {
+    private void cleanupStaleActualAllocations(MetadataStore store, String clusterId, Map<String, Map<String, Set<String>>> currentActualAllocations) throws Exception {
         log.info("ActualAllocationUpdater - Starting cleanup of stale actual allocations");
         
         // Get all index configurations to know what indices exist
-        List<Index> indexConfigs = metadataStore.getAllIndexConfigs(clusterId);
+        List<Index> indexConfigs = store.getAllIndexConfigs(clusterId);
         Set<String> existingIndexNames = indexConfigs.stream()
             .map(Index::getIndexName)
             .collect(java.util.stream.Collectors.toSet());
         
-        int totalCleanups = 0;
+        WriteBatch batch = store.newWriteBatch();
         
         // PHASE 1: Clean up stale allocations for EXISTING indices
         for (Index indexConfig : indexConfigs) {
@@ -291,7 +338,7 @@ public class ActualAllocationUpdater {
             
             try {
                 // Get all stored actual allocations for this index
-                List<ShardAllocation> storedActualAllocations = metadataStore.getAllActualAllocations(clusterId, indexName);
+                List<ShardAllocation> storedActualAllocations = store.getAllActualAllocations(clusterId, indexName);
                 
                 for (ShardAllocation storedAllocation : storedActualAllocations) {
                     String shardId = storedAllocation.getShardId();
@@ -307,10 +354,9 @@ public class ActualAllocationUpdater {
                         emptyAllocation.setIngestSUs(new ArrayList<>());
                         emptyAllocation.setSearchSUs(new ArrayList<>());
                         
-                        metadataStore.setActualAllocation(clusterId, indexName, shardId, emptyAllocation);
-                        totalCleanups++;
+                        batch.setActualAllocation(clusterId, indexName, shardId, emptyAllocation);
                         
-                        log.info("ActualAllocationUpdater - Cleaned up stale actual allocation for {}/{}", indexName, shardId);
+                        log.info("ActualAllocationUpdater - Cleaning up stale actual allocation for {}/{}", indexName, shardId);
                     }
                 }
                 
@@ -324,7 +370,7 @@ public class ActualAllocationUpdater {
         // PHASE 2: Clean up actual allocations for DELETED indices (orphaned entries)
         // These are indices that have actual-allocations in etcd but no config (index was deleted)
         // NOTE: We need to check ALL indices with actual-allocations in etcd, not just those reported by search units
-        Set<String> indicesWithActualAllocations = getAllIndicesWithActualAllocations(clusterId);
+        Set<String> indicesWithActualAllocations = getAllIndicesWithActualAllocations(store, clusterId);
         
         for (String indexName : indicesWithActualAllocations) {
             if (!existingIndexNames.contains(indexName)) {
@@ -333,16 +379,15 @@ public class ActualAllocationUpdater {
                 
                 try {
                     // Get all actual allocations for this deleted index
-                    List<ShardAllocation> orphanedAllocations = metadataStore.getAllActualAllocations(clusterId, indexName);
+                    List<ShardAllocation> orphanedAllocations = store.getAllActualAllocations(clusterId, indexName);
                     
                     for (ShardAllocation allocation : orphanedAllocations) {
                         String shardId = allocation.getShardId();
                         
                         // Delete the actual allocation entry completely
-                        metadataStore.deleteActualAllocation(clusterId, indexName, shardId);
-                        totalCleanups++;
+                        batch.deleteActualAllocation(clusterId, indexName, shardId);
                         
-                        log.info("ActualAllocationUpdater - Deleted orphaned actual allocation for deleted index {}/{}", 
+                        log.info("ActualAllocationUpdater - Deleting orphaned actual allocation for deleted index {}/{}", 
                             indexName, shardId);
                     }
                     
@@ -354,7 +399,14 @@ public class ActualAllocationUpdater {
             }
         }
         
-        log.info("ActualAllocationUpdater - Completed cleanup, removed {} stale actual allocations", totalCleanups);
+        WriteBatchResult result = batch.commit();
+        for (WriteOperation operation : result.getOperations(WriteBatchResult.Status.FAILED)) {
+            log.error("ActualAllocationUpdater - Error cleaning up actual allocation for {}/{}", 
+                operation.getName(), operation.getShardId());
+        }
+        
+        log.info("ActualAllocationUpdater - Completed cleanup, removed {} stale actual allocations", 
+            result.count(WriteBatchResult.Status.APPLIED));
     }
     
     // (standalone cleanup wrapper removed; no external callers)
@@ -364,8 +416,8 @@ public class ActualAllocationUpdater {
      * This is needed for PHASE 2 cleanup to find orphaned allocations for deleted indices
      * that are no longer being reported by any search units.
      */
-    private Set<String> getAllIndicesWithActualAllocations(String clusterId) throws Exception {
-        return metadataStore.getAllIndicesWithActualAllocations(clusterId);
+    private Set<String> getAllIndicesWithActualAllocations(MetadataStore store, String clusterId) throws Exception {
+        return store.getAllIndicesWithActualAllocations(clusterId);
     }
     
     /**
@@ -397,13 +449,17 @@ public class ActualAllocationUpdater {
      * Builds a single remote_shards structure for the default coordinator group
      */
     public int updateCoordinatorGoalStates(String clusterId, List<SearchUnit> searchUnits) throws Exception {
+        return updateCoordinatorGoalStates(metadataStore, clusterId, searchUnits);
+    }
+    
+    private int updateCoordinatorGoalStates(MetadataStore store, String clusterId, List<SearchUnit> searchUnits) throws Exception {
         log.info("ActualAllocationUpdater - Starting coordinator goal state updates for coordinator group");
         
         // Get all index configurations that still exist
-        List<Index> indexConfigs = metadataStore.getAllIndexConfigs(clusterId);
+        List<Index> indexConfigs = store.getAllIndexConfigs(clusterId);
         
         // Get all alias configurations
-        List<Alias> aliases = metadataStore.getAllAliases(clusterId);
+        List<Alias> aliases = store.getAllAliases(clusterId);
         
         // Build new coordinator goal state from scratch
         CoordinatorGoalState coordinatorGoalState = new CoordinatorGoalState();
@@ -437,7 +493,7 @@ public class ActualAllocationUpdater {
             // Check if this index has any actual allocations
             List<ShardAllocation> actualAllocations;
             try {
-                actualAllocations = metadataStore.getAllActualAllocations(clusterId, indexName);
+                actualAllocations = store.getAllActualAllocations(clusterId, indexName);
                 if (actualAllocations.isEmpty()) {
                     log.debug("ActualAllocationUpdater - Index '{}' has no actual allocations, skipping", indexName);
                     continue;
@@ -458,7 +514,7 @@ public class ActualAllocationUpdater {
                 String shardId = String.valueOf(shardIndex);
                 
                 // Get actual allocation for this shard
-                ShardAllocation actual = getAggregatedActualAllocation(clusterId, indexName, shardId, searchUnits);
+                ShardAllocation actual = getAggregatedActualAllocation(store, clusterId, indexName, shardId, searchUnits);
                 if (actual.getIngestSUs().isEmpty() && actual.getSearchSUs().isEmpty()) {
                     log.debug("ActualAllocationUpdater - No actual allocation found for {}/{}", indexName, shardId);
                     // Add empty shard routing for this shard
@@ -471,7 +527,7 @@ public class ActualAllocationUpdater {
                 
                 // Add primary nodes (if converged)
                 for (String unitName : actual.getIngestSUs()) {
-                    if (isNodeGoalStateConverged(clusterId, unitName, indexName, shardId)) {
+                    if (isNodeGoalStateConverged(store, clusterId, unitName, indexName, shardId)) {
                         CoordinatorGoalState.ShardNodeAssignment node = new CoordinatorGoalState.ShardNodeAssignment();
                         node.setNodeName(unitName);
                         node.setPrimary(true);
@@ -486,7 +542,7 @@ public class ActualAllocationUpdater {
                 
                 // Add search replica nodes (if converged)
                 for (String unitName : actual.getSearchSUs()) {
-                    if (isNodeGoalStateConverged(clusterId, unitName, indexName, shardId)) {
+                    if (isNodeGoalStateConverged(store, clusterId, unitName, indexName, shardId)) {
                         CoordinatorGoalState.ShardNodeAssignment node = new CoordinatorGoalState.ShardNodeAssignment();
                         node.setNodeName(unitName);
                         node.setPrimary(false);
@@ -527,7 +583,7 @@ public class ActualAllocationUpdater {
         
         // Update the coordinator goal state in etcd
         try {
-            metadataStore.setCoordinatorGoalState(clusterId, coordinatorGoalState);
+            store.setCoordinatorGoalState(clusterId, coordinatorGoalState);
             log.info("ActualAllocationUpdater - Updated coordinator goal state with {} indexes: {}", 
                 indices.size(), indices.keySet());
         } catch (Exception e) {
@@ -544,9 +600,9 @@ public class ActualAllocationUpdater {
      * Check if a node's goal state matches the given index/shard (i.e., converged)
      * Returns true if the node's goal state includes this index/shard, false otherwise
      */
-    private boolean isNodeGoalStateConverged(String clusterId, String unitName, String indexName, String shardId) {
+    private boolean isNodeGoalStateConverged(MetadataStore store, String clusterId, String unitName, String indexName, String shardId) {
         try {
-            SearchUnitGoalState goalState = metadataStore.getSearchUnitGoalState(clusterId, unitName);
+            SearchUnitGoalState goalState = store.getSearchUnitGoalState(clusterId, unitName);
             if (goalState == null) {
                 log.debug("ActualAllocationUpdater - Node '{}' has no goal state, considering not converged for {}/{}", 
                     unitName, indexName, shardId);
@@ -577,7 +633,7 @@ public class ActualAllocationUpdater {
      * Get aggregated actual allocation for a shard by reading search unit actual states
      * This replicates the logic used for building actual allocations in the main update flow
      */
-    private ShardAllocation getAggregatedActualAllocation(String clusterId, String indexName, String shardId, List<SearchUnit> searchUnits) {
+    private ShardAllocation getAggregatedActualAllocation(MetadataStore store, String clusterId, String indexName, String shardId, List<SearchUnit> searchUnits) {
         List<String> actualIngestSUs = new ArrayList<>();
         List<String> actualSearchSUs = new ArrayList<>();
         
@@ -589,7 +645,7 @@ public class ActualAllocationUpdater {
             
             String unitName = searchUnit.getName();
             try {
-                SearchUnitActualState actualState = metadataStore.getSearchUnitActualState(clusterId, unitName);
+                SearchUnitActualState actualState = store.getSearchUnitActualState(clusterId, unitName);
                 if (actualState == null) {
                     continue;
                 }
@@ -660,7 +716,7 @@ public class ActualAllocationUpdater {
         long nodeTimestamp = actualState.getTimestamp();
         long timeDiff = currentTime - nodeTimestamp;
         
-        if (timeDiff > ONE_MINUTE_MS) {
+        if (timeDiff > Constants.STALE_HEARTBEAT_TIMEOUT_MS) {
             log.debug("ActualAllocationUpdater - Skipping stale SU: {} (timestamp: {}, age: {}ms)", 
                 unitName, nodeTimestamp, timeDiff);
             return false;
@@ -682,7 +738,7 @@ public class ActualAllocationUpdater {
      * 7. shard_replica_lag_docs - (Primary doc count - Replica doc count) per replica
      * 8. index_total_doc_count - Sum of all primary doc counts for an index
      */
-    private void emitShardDistributionMetrics(String clusterId, List<SearchUnit> searchUnits, 
+    private void emitShardDistributionMetrics(MetadataStore store, String clusterId, List<SearchUnit> searchUnits, 
             Map<String, Map<String, Set<String>>> actualAllocations) {
         log.debug("ActualAllocationUpdater - Emitting shard distribution metrics for cluster {}", clusterId);
         
@@ -703,7 +759,7 @@ public class ActualAllocationUpdater {
             }
             String unitName = searchUnit.getName();
             try {
-                SearchUnitActualState actualState = metadataStore.getSearchUnitActualState(clusterId, unitName);
+                SearchUnitActualState actualState = store.getSearchUnitActualState(clusterId, unitName);
                 if (actualState != null && isNodeTimestampRecent(actualState, unitName)) {
                     actualStates.put(unitName, actualState);
                     
@@ -756,7 +812,7 @@ public class ActualAllocationUpdater {
                 
                 // 3. Emit shard_total_allocation_count and shard_pending_allocation_count
                 try {
-                    ShardAllocation plannedAllocation = metadataStore.getPlannedAllocation(clusterId, indexName, shardId);
+                    ShardAllocation plannedAllocation = store.getPlannedAllocation(clusterId, indexName, shardId);
                     if (plannedAllocation != null) {
                         int totalPlanned = plannedAllocation.getIngestSUs().size() + plannedAllocation.getSearchSUs().size();
                         metricsProvider.gauge(
@@ -6,6 +6,11 @@ import io.clustercontroller.models.Index;
 import io.clustercontroller.models.ShardAllocation;
 import io.clustercontroller.models.SearchUnit;
 import io.clustercontroller.store.MetadataStore;
+import io.clustercontroller.store.SnapshotMetadataStore;
+import io.clustercontroller.store.WriteBatch;
+import io.clustercontroller.store.WriteBatchResult;
+import io.clustercontroller.store.WriteOperation;
+import io.clustercontroller.tracing.PassTracer;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
@@ -49,75 +54,93 @@ public class ShardAllocator {
         log.info("Planning shard allocation for cluster {} with strategy: {}", clusterId, strategy);
         
         try {
+            // Read the whole pass from one snapshot revision
+            MetadataStore store = SnapshotMetadataStore.forPass(metadataStore, clusterId);
+            
             // Get all index configs from etcd
-            List<Index> indexConfigs = metadataStore.getAllIndexConfigs(clusterId);
+            List<Index> indexConfigs = store.getAllIndexConfigs(clusterId);
             if (indexConfigs.isEmpty()) {
                 log.info("No index configs found for cluster {}", clusterId);
                 return;
             }
             
+            // Planned allocations of all shards are committed together at the end of the pass
+            WriteBatch batch = store.newWriteBatch();
+            
             // For each index
             for (Index indexConfig : indexConfigs) {
                 String indexName = indexConfig.getIndexName();
-                int numberOfShards = indexConfig.getSettings().getNumberOfShards();
-                List<Integer> shardReplicaCounts = indexConfig.getSettings().getShardReplicaCount();
+                try (PassTracer.Span indexSpan = PassTracer.span(PassTracer.KIND_INDEX, indexName)) {
+                    int numberOfShards = indexConfig.getSettings().getNumberOfShards();
+                    List<Integer> shardReplicaCounts = indexConfig.getSettings().getShardReplicaCount();
                 
-                log.debug("Processing index {} with {} shards", indexName, numberOfShards);
+                    log.debug("Processing index {} with {} shards", indexName, numberOfShards);
                 
-                // For each shard in the index
-                for (int shardIndex = 0; shardIndex < numberOfShards; shardIndex++) {
-                    String shardIdStr = String.valueOf(shardIndex);
+                    // For each shard in the index
+                    for (int shardIndex = 0; shardIndex < numberOfShards; shardIndex++) {
+                        String shardIdStr = String.valueOf(shardIndex);
+                        try (PassTracer.Span shardSpan = PassTracer.span(PassTracer.KIND_SHARD, shardIdStr)) {
                     
-                    // Validate and get replica count for RESPECT_REPLICA_COUNT strategy
-                    int replicaCount = 0; // Default for USE_ALL_AVAILABLE_NODES
-                    if (strategy == AllocationStrategy.RESPECT_REPLICA_COUNT) {
-                        if (shardReplicaCounts == null || shardIndex >= shardReplicaCounts.size()) {
-                            log.error("Missing replica count for shard {} in index {} - required for RESPECT_REPLICA_COUNT strategy", 
-                                     shardIndex, indexName);
-                            continue;
-                        }
-                        replicaCount = shardReplicaCounts.get(shardIndex);
-                    }
+                            // Validate and get replica count for RESPECT_REPLICA_COUNT strategy
+                            int replicaCount = 0; // Default for USE_ALL_AVAILABLE_NODES
+                            if (strategy == AllocationStrategy.RESPECT_REPLICA_COUNT) {
+                                if (shardReplicaCounts == null || shardIndex >= shardReplicaCounts.size()) {
+                                    log.error("Missing replica count for shard {} in index {} - required for RESPECT_REPLICA_COUNT strategy", 
+                                             shardIndex, indexName);
+                                    continue;
+                                }
+                                replicaCount = shardReplicaCounts.get(shardIndex);
+                            }
                     
-                    // Get current planned allocation and all nodes
-                    ShardAllocation currentPlanned = metadataStore.getPlannedAllocation(clusterId, indexName, shardIdStr);
-                    List<SearchUnit> allNodes = metadataStore.getAllSearchUnits(clusterId);
+                            // Get current planned allocation and all nodes
+                            ShardAllocation currentPlanned = store.getPlannedAllocation(clusterId, indexName, shardIdStr);
+                            List<SearchUnit> allNodes = store.getAllSearchUnits(clusterId);
                     
-                    // Handle IngestSUs first (primary allocation)
-                    List<String> ingestNodes = planIngestAllocation(clusterId, indexName, shardIndex, indexConfig, allNodes, currentPlanned);
-                    if (ingestNodes == null || ingestNodes.isEmpty()) {
-                        log.warn("IngestSU allocation failed or empty for shard {}/{}", indexName, shardIndex);
-                    }
+                            // Handle IngestSUs first (primary allocation)
+                            List<String> ingestNodes = planIngestAllocation(clusterId, indexName, shardIndex, indexConfig, allNodes, currentPlanned);
+                            if (ingestNodes == null || ingestNodes.isEmpty()) {
+                                log.warn("IngestSU allocation failed or empty for shard {}/{}", indexName, shardIndex);
+                            }
                     
-                    // Handle SearchSUs (replica allocation)
-                    List<String> searchNodes = planSearchReplicaAllocation(clusterId, indexName, shardIndex, indexConfig, replicaCount, strategy, allNodes, currentPlanned);
-                    if (searchNodes.isEmpty()) {
-                        log.warn("SearchSU allocation empty for shard {}/{}", indexName, shardIndex);
-                    }
+                            // Handle SearchSUs (replica allocation)
+                            List<String> searchNodes = planSearchReplicaAllocation(clusterId, indexName, shardIndex, indexConfig, replicaCount, strategy, allNodes, currentPlanned);
+                            if (searchNodes.isEmpty()) {
+                                log.warn("SearchSU allocation empty for shard {}/{}", indexName, shardIndex);
+                            }
                     
-                    // Update planned allocation in etcd (only if we have valid allocations)
-                    if ((ingestNodes == null || ingestNodes.isEmpty()) && searchNodes.isEmpty()) {
-                        log.warn("Skipping planned allocation update for shard {}/{} - no valid allocations", indexName, shardIndex);
-                        continue;
-                    }
+                            // Update planned allocation in etcd (only if we have valid allocations)
+                            if ((ingestNodes == null || ingestNodes.isEmpty()) && searchNodes.isEmpty()) {
+                                log.warn("Skipping planned allocation update for shard {}/{} - no valid allocations", indexName, shardIndex);
+                                continue;
+                            }
                     
-                    updatePlannedAllocation(clusterId, indexName, shardIdStr, ingestNodes, searchNodes);
-                    metricsProvider.gauge(
-                        PLANNED_INGEST_SU_ALLOCATION_METRIC_NAME,
-                        ingestNodes == null ? 0 : ingestNodes.size(),
-                        buildMetricsTags(clusterId, indexName, shardIdStr)
-                    );
-                    metricsProvider.gauge(
-                        PLANNED_SEARCH_SU_ALLOCATION_METRIC_NAME,
-                        searchNodes.size(),
-                        buildMetricsTags(clusterId, indexName, shardIdStr)
-                    );
+                            updatePlannedAllocation(batch, clusterId, indexName, shardIdStr, ingestNodes, searchNodes);
+                            metricsProvider.gauge(
+                                PLANNED_INGEST_SU_ALLOCATION_METRIC_NAME,
+                                ingestNodes == null ? 0 : ingestNodes.size(),
+                                buildMetricsTags(clusterId, indexName, shardIdStr)
+                            );
+                            metricsProvider.gauge(
+                                PLANNED_SEARCH_SU_ALLOCATION_METRIC_NAME,
+                                searchNodes.size(),
+                                buildMetricsTags(clusterId, indexName, shardIdStr)
+                            );
                     
-                    log.info("Planned allocation for shard {}/{} - IngestSUs: {}, SearchSUs: {}", 
-                             indexName, shardIndex, ingestNodes, searchNodes);
+                            log.info("Planned allocation for shard {}/{} - IngestSUs: {}, SearchSUs: {}", 
+                                     indexName, shardIndex, ingestNodes, searchNodes);
+                        }
+                    }
                 }
             }
             
+            WriteBatchResult result;
+            try (PassTracer.Span span = PassTracer.span(PassTracer.KIND_PHASE, "commit")) {
+                result = batch.commit();
+            }
+            for (WriteOperation operation : result.getOperations(WriteBatchResult.Status.FAILED)) {
+                log.error("Failed to update planned allocation for shard {}/{}", operation.getName(), operation.getShardId());
+            }
+            
             log.info("Completed shard allocation planning for cluster {} with strategy: {}", clusterId, strategy);
             
         } catch (Exception e) {
@@ -271,9 +294,9 @@ public class ShardAllocator {
     }
     
     /**
-     * Update planned allocation in etcd
+     * Add the planned allocation update to the pass's write batch
      */
-    private void updatePlannedAllocation(String clusterId, String indexName, String shardId, 
+    private void updatePlannedAllocation(WriteBatch batch, String clusterId, String indexName, String shardId, 
                                        List<String> ingestNodes, List<String> searchNodes) {
         try {
             // Create new planned allocation
@@ -284,10 +307,9 @@ public class ShardAllocator {
             plannedAllocation.setSearchSUs(searchNodes);
             plannedAllocation.setAllocationTimestamp(System.currentTimeMillis());
             
-            // Update in etcd
-            metadataStore.setPlannedAllocation(clusterId, indexName, shardId, plannedAllocation);
+            batch.setPlannedAllocation(clusterId, indexName, shardId, plannedAllocation);
             
-            log.debug("Updated planned allocation for shard {}/{} - IngestSUs: {}, SearchSUs: {}", 
+            log.debug("Queued planned allocation for shard {}/{} - IngestSUs: {}, SearchSUs: {}", 
                      indexName, shardId, ingestNodes, searchNodes);
             
         } catch (Exception e) {
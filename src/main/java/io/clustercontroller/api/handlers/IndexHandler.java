@@ -11,6 +11,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
+import static io.clustercontroller.config.Constants.MAX_INDEX_READY_WAIT_MS;
+
 /**
  * REST API handler for index lifecycle operations with multi-cluster support.
  * 
@@ -259,4 +263,30 @@ public class IndexHandler {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ErrorResponse.internalError(e.getMessage()));
         }
     }
+
+    /**
+     * Long-poll variant of readiness: answers as soon as the index becomes ready, or not ready once the wait
+     * (capped at {@value io.clustercontroller.config.Constants#MAX_INDEX_READY_WAIT_MS}ms) runs out.
+     * GET /{clusterId}/{index}/_ready?wait_for_ms=10000
+     */
+    @GetMapping(value = "/{index}/_ready", params = "wait_for_ms")
+    public CompletableFuture<ResponseEntity<Object>> waitForIndexReady(
+            @PathVariable String clusterId,
+            @PathVariable String index,
+            @RequestParam("wait_for_ms") long waitForMs) {
+        if (waitForMs < 0) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ErrorResponse.badRequest("wait_for_ms must not be negative")));
+        }
+        long timeoutMs = Math.min(waitForMs, MAX_INDEX_READY_WAIT_MS);
+        return indexManager.waitForIndexReady(clusterId, index, timeoutMs)
+            .<ResponseEntity<Object>>thenApply(isReady -> isReady
+                ? ResponseEntity.ok(IndexReadinessResponse.ready(index))
+                : ResponseEntity.ok(IndexReadinessResponse.notReady(index,
+                    "Index is not ready - waiting for docs to be ingested and replication to complete")))
+            .exceptionally(e -> {
+                log.error("Error waiting for readiness of index '{}' in cluster '{}': {}", index, clusterId, e.getMessage());
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ErrorResponse.internalError(e.getMessage()));
+            });
+    }
 }
\ No newline at end of file
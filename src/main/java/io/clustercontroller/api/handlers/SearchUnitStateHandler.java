@@ -0,0 +1,77 @@
+package io.clustercontroller.api.handlers;
+
+import io.clustercontroller.api.models.responses.ErrorResponse;
+import io.clustercontroller.models.SearchUnitActualState;
+import io.clustercontroller.models.SearchUnitGoalState;
+import io.clustercontroller.store.MetadataStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * REST API handler through which search units report their actual state and fetch their goal state from the
+ * controller instead of reading and writing the metadata store themselves. Required with the embedded metadata
+ * store, which only the controller process can open; works the same with etcd.
+ *
+ * Multi-cluster supported operations:
+ * - PUT /{clusterId}/_units/{unitName}/_actual_state - Report the unit's actual state (its heartbeat)
+ * - GET /{clusterId}/_units/{unitName}/_goal_state - Get the unit's goal state
+ */
+@Slf4j
+@RestController
+@RequestMapping("/{clusterId}/_units/{unitName}")
+public class SearchUnitStateHandler {
+
+    private final MetadataStore metadataStore;
+
+    public SearchUnitStateHandler(MetadataStore metadataStore) {
+        this.metadataStore = metadataStore;
+    }
+
+    /**
+     * Store the actual state a search unit reports.
+     * PUT /{clusterId}/_units/{unitName}/_actual_state
+     */
+    @PutMapping("/_actual_state")
+    public ResponseEntity<Object> putActualState(
+            @PathVariable String clusterId,
+            @PathVariable String unitName,
+            @RequestBody SearchUnitActualState actualState) {
+        try {
+            if (actualState == null) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ErrorResponse.badRequest("Actual state body is required"));
+            }
+            log.debug("Storing actual state of unit '{}' in cluster '{}'", unitName, clusterId);
+            metadataStore.setSearchUnitActualState(clusterId, unitName, actualState);
+            return ResponseEntity.ok(Map.of("acknowledged", true));
+        } catch (Exception e) {
+            log.error("Error storing actual state of unit '{}' in cluster '{}': {}", unitName, clusterId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ErrorResponse.internalError(e.getMessage()));
+        }
+    }
+
+    /**
+     * Get the goal state the controller planned for a search unit.
+     * GET /{clusterId}/_units/{unitName}/_goal_state
+     */
+    @GetMapping("/_goal_state")
+    public ResponseEntity<Object> getGoalState(
+            @PathVariable String clusterId,
+            @PathVariable String unitName) {
+        try {
+            log.debug("Getting goal state of unit '{}' in cluster '{}'", unitName, clusterId);
+            SearchUnitGoalState goalState = metadataStore.getSearchUnitGoalState(clusterId, unitName);
+            if (goalState == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ErrorResponse.notFound("Goal state of " + unitName));
+            }
+            return ResponseEntity.ok(goalState);
+        } catch (Exception e) {
+            log.error("Error getting goal state of unit '{}' in cluster '{}': {}", unitName, clusterId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ErrorResponse.internalError(e.getMessage()));
+        }
+    }
+}
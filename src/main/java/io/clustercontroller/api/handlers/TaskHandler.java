@@ -0,0 +1,162 @@
+package io.clustercontroller.api.handlers;
+
+import io.clustercontroller.api.models.requests.TaskRequest;
+import io.clustercontroller.api.models.responses.ErrorResponse;
+import io.clustercontroller.config.TaskProperties;
+import io.clustercontroller.models.TaskMetadata;
+import io.clustercontroller.store.MetadataStore;
+import io.clustercontroller.store.VersionConflictException;
+import io.clustercontroller.store.Versioned;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static io.clustercontroller.config.Constants.*;
+
+/**
+ * REST API handler for the one-shot tasks of a cluster, run by the task queue of the controller managing it.
+ *
+ * Multi-cluster supported operations:
+ * - POST /{clusterId}/_tasks - Submit a one-shot task (create_index, delete_index)
+ * - GET /{clusterId}/_tasks/{taskName} - Get a task and its status
+ * - POST /{clusterId}/_tasks/{taskName}/_cancel - Cancel a pending or running task
+ *
+ * Deadlines (timeout_seconds) and cancellation are enforced by the task queue only, so they are rejected when
+ * task.queue_max_concurrent is 0 and the tasks run in the reconcile passes.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/{clusterId}/_tasks")
+public class TaskHandler {
+
+    private static final Set<String> ONE_SHOT_ACTIONS = Set.of(TASK_ACTION_CREATE_INDEX, TASK_ACTION_DELETE_INDEX);
+    private static final int DEFAULT_PRIORITY = 10;
+    private static final int MAX_TASK_WRITE_ATTEMPTS = 3;
+
+    private final MetadataStore metadataStore;
+    private final ObjectMapper objectMapper;
+    private final boolean taskQueueEnabled;
+
+    public TaskHandler(MetadataStore metadataStore, ObjectMapper objectMapper, TaskProperties taskProperties) {
+        this.metadataStore = metadataStore;
+        this.objectMapper = objectMapper;
+        this.taskQueueEnabled = taskProperties.getQueueMaxConcurrent() > 0;
+    }
+
+    /**
+     * Submit a one-shot task to the specified cluster.
+     * POST /{clusterId}/_tasks
+     * Returns the task as stored, with its generated name.
+     */
+    @PostMapping
+    public ResponseEntity<Object> submitTask(
+            @PathVariable String clusterId,
+            @RequestBody TaskRequest request) {
+        try {
+            if (request == null || request.getAction() == null || !ONE_SHOT_ACTIONS.contains(request.getAction())) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ErrorResponse.badRequest("action must be one of " + ONE_SHOT_ACTIONS));
+            }
+            if (request.getTimeoutSeconds() != null && request.getTimeoutSeconds() <= 0) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ErrorResponse.badRequest("timeout_seconds must be positive"));
+            }
+            if (request.getTimeoutSeconds() != null && !taskQueueEnabled) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ErrorResponse.badRequest("timeout_seconds needs the task queue (task.queue_max_concurrent > 0)"));
+            }
+            TaskMetadata task = new TaskMetadata(request.getAction() + "-" + UUID.randomUUID(),
+                request.getPriority() != null ? request.getPriority() : DEFAULT_PRIORITY);
+            task.setAction(request.getAction());
+            task.setSchedule(TASK_SCHEDULE_ONCE);
+            task.setInput(request.getInput() != null ? objectMapper.writeValueAsString(request.getInput()) : null);
+            if (request.getTimeoutSeconds() != null) {
+                task.setDeadline(OffsetDateTime.now(ZoneOffset.UTC).plusSeconds(request.getTimeoutSeconds()));
+            }
+            log.info("Submitting task '{}' ({}) to cluster '{}'", task.getName(), task.getAction(), clusterId);
+            metadataStore.createTask(clusterId, task);
+            return ResponseEntity.status(HttpStatus.CREATED).body(task);
+        } catch (Exception e) {
+            log.error("Error submitting task to cluster '{}': {}", clusterId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ErrorResponse.internalError(e.getMessage()));
+        }
+    }
+
+    /**
+     * Get a task of the specified cluster.
+     * GET /{clusterId}/_tasks/{taskName}
+     */
+    @GetMapping("/{taskName}")
+    public ResponseEntity<Object> getTask(
+            @PathVariable String clusterId,
+            @PathVariable String taskName) {
+        try {
+            log.debug("Getting task '{}' of cluster '{}'", taskName, clusterId);
+            Optional<TaskMetadata> task = metadataStore.getTask(clusterId, taskName);
+            if (task.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ErrorResponse.notFound("Task " + taskName));
+            }
+            return ResponseEntity.ok(task.get());
+        } catch (Exception e) {
+            log.error("Error getting task '{}' of cluster '{}': {}", taskName, clusterId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ErrorResponse.internalError(e.getMessage()));
+        }
+    }
+
+    /**
+     * Request the cancellation of a one-shot task; the task queue cancels it when it sees the request.
+     * The request is written only if the task was not modified since it was read, checked again on the task as
+     * it is now otherwise, so it cannot bring back a task that finished meanwhile.
+     * POST /{clusterId}/_tasks/{taskName}/_cancel
+     */
+    @PostMapping("/{taskName}/_cancel")
+    public ResponseEntity<Object> cancelTask(
+            @PathVariable String clusterId,
+            @PathVariable String taskName) {
+        try {
+            if (!taskQueueEnabled) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ErrorResponse.badRequest("Cancelling a task needs the task queue (task.queue_max_concurrent > 0)"));
+            }
+            Versioned<TaskMetadata> current = metadataStore.getTaskVersioned(clusterId, taskName);
+            for (int attempt = 1; ; attempt++) {
+                TaskMetadata task = current.getValue();
+                if (task == null) {
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ErrorResponse.notFound("Task " + taskName));
+                }
+                if (task.isRecurring()) {
+                    return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(ErrorResponse.badRequest("Recurring task " + taskName + " cannot be cancelled"));
+                }
+                if (!TASK_STATUS_PENDING.equals(task.getStatus()) && !TASK_STATUS_RUNNING.equals(task.getStatus())) {
+                    return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(ErrorResponse.badRequest("Task " + taskName + " is already " + task.getStatus()));
+                }
+                log.info("Cancelling task '{}' of cluster '{}'", taskName, clusterId);
+                task.setCancelRequested(true);
+                task.setLastUpdated(OffsetDateTime.now(ZoneOffset.UTC));
+                try {
+                    metadataStore.updateTask(clusterId, task, current.getModRevision());
+                    return ResponseEntity.ok(task);
+                } catch (VersionConflictException e) {
+                    if (attempt >= MAX_TASK_WRITE_ATTEMPTS) {
+                        throw e;
+                    }
+                    // Checked again against the task as it is now, returned with the conflict
+                    current = e.getCurrent();
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error cancelling task '{}' of cluster '{}': {}", taskName, clusterId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ErrorResponse.internalError(e.getMessage()));
+        }
+    }
+}
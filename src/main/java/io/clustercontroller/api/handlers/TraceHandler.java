@@ -0,0 +1,57 @@
+package io.clustercontroller.api.handlers;
+
+import io.clustercontroller.api.models.responses.ErrorResponse;
+import io.clustercontroller.tracing.PassTracer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST API handler for the reconcile pass traces this controller keeps of the clusters it manages.
+ *
+ * Each trace is a tree of spans (pass, phases, tasks or cycle stages, indices, shards) with their
+ * durations and the etcd requests, keys and bytes used while they were open.
+ *
+ * Multi-cluster supported operations:
+ * - GET /{clusterId}/_cluster/traces - Last pass traces of the cluster, newest first
+ * - GET /{clusterId}/_cluster/traces?limit=N - Only the last N
+ */
+@Slf4j
+@RestController
+@RequestMapping("/{clusterId}/_cluster/traces")
+public class TraceHandler {
+
+    private final PassTracer passTracer;
+
+    public TraceHandler(PassTracer passTracer) {
+        this.passTracer = passTracer;
+    }
+
+    /**
+     * Get the last reconcile pass traces of the specified cluster.
+     * GET /{clusterId}/_cluster/traces
+     */
+    @GetMapping
+    public ResponseEntity<Object> getTraces(
+            @PathVariable String clusterId,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        try {
+            log.debug("Getting pass traces for cluster '{}'", clusterId);
+            if (limit != null && limit < 0) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ErrorResponse.badRequest("limit must not be negative"));
+            }
+            List<PassTracer.PassTrace> traces = passTracer.getTraces(clusterId);
+            if (limit != null && limit < traces.size()) {
+                traces = traces.subList(0, limit);
+            }
+            return ResponseEntity.ok(traces);
+        } catch (Exception e) {
+            log.error("Error getting pass traces for cluster '{}': {}", clusterId, e.getMessage());
+            return ResponseEntity.status(500).body(ErrorResponse.internalError(e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package io.clustercontroller.api.models.requests;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Request model for submitting a one-shot task to a cluster's task queue.
+ *
+ * Example usage:
+ * <pre>
+ * {
+ *   "action": "create_index",
+ *   "input": {"index": "logs-2024-01", "config": {"settings": {"number_of_shards": 2}}},
+ *   "priority": 5,
+ *   "timeout_seconds": 600
+ * }
+ * </pre>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class TaskRequest {
+    private String action;
+    private Map<String, Object> input;
+    // 0 = highest priority
+    private Integer priority;
+    // The task is failed if not finished this long after it was submitted
+    private Long timeoutSeconds;
+}
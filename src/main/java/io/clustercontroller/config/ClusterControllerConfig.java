@@ -6,6 +6,10 @@ import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.yaml.snakeyaml.Yaml;
 import org.yaml.snakeyaml.constructor.Constructor;
+import org.yaml.snakeyaml.introspector.BeanAccess;
+import org.yaml.snakeyaml.introspector.MissingProperty;
+import org.yaml.snakeyaml.introspector.Property;
+import org.yaml.snakeyaml.introspector.PropertyUtils;
 
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -13,6 +17,7 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.Set;
 
 import static io.clustercontroller.config.Constants.*;
 
@@ -28,9 +33,27 @@ import static io.clustercontroller.config.Constants.*;
 public class ClusterControllerConfig {
     
     private final String[] etcdEndpoints;
+    private final int etcdMaxTxnOps;
+    private final int etcdMaxInFlightPerCluster;
+    private final int etcdPrefixScanPageSize;
+    private final int etcdDecodeCacheMaxMb;
+    private final String etcdStateValueFormat;
+    private final boolean etcdStateValueCompressed;
+    private final long etcdReadTimeoutMs;
+    private final long etcdScanTimeoutMs;
+    private final long etcdWriteTimeoutMs;
+    private final long etcdTxnTimeoutMs;
+    private final int etcdReadMaxAttempts;
+    private final long etcdReadRetryBackoffMs;
+    private final long etcdPassDeadlineMs;
     private final long taskIntervalSeconds;
     private final String coordinatorGoalStateGroup;
     private final String coordinatorGoalStateUnit;
+    private final boolean metadataCacheEnabled;
+    private final long metadataCacheReadYourWritesTimeoutMs;
+    private final String metadataStoreBackend;
+    private final String metadataStoreEmbeddedDir;
+    private final boolean metadataStoreEmbeddedFsync;
 
     // Default classpath location
     private static final String DEFAULT_CONFIG_FILE_CLASSPATH = "application.yml";
@@ -42,9 +65,29 @@ public class ClusterControllerConfig {
         
         // Parse configuration values with null-safe defaults
         this.etcdEndpoints = parseEndpoints(config);
+        this.etcdMaxTxnOps = parseEtcdMaxTxnOps(config);
+        this.etcdMaxInFlightPerCluster = parseEtcdMaxInFlightPerCluster(config);
+        this.etcdPrefixScanPageSize = parseEtcdPrefixScanPageSize(config);
+        this.etcdDecodeCacheMaxMb = parseEtcdDecodeCacheMaxMb(config);
+        this.etcdStateValueFormat = parseEtcdStateValueFormat(config);
+        this.etcdStateValueCompressed = parseEtcdStateValueCompressed(config);
+        Etcd etcd = config.getEtcd() != null ? config.getEtcd() : new Etcd();
+        this.etcdReadTimeoutMs = parseEtcdMillis(etcd.getRead_timeout_ms(), DEFAULT_ETCD_READ_TIMEOUT_MS, "read timeout", false);
+        this.etcdScanTimeoutMs = parseEtcdMillis(etcd.getScan_timeout_ms(), DEFAULT_ETCD_SCAN_TIMEOUT_MS, "scan timeout", false);
+        this.etcdWriteTimeoutMs = parseEtcdMillis(etcd.getWrite_timeout_ms(), DEFAULT_ETCD_WRITE_TIMEOUT_MS, "write timeout", false);
+        this.etcdTxnTimeoutMs = parseEtcdMillis(etcd.getTxn_timeout_ms(), DEFAULT_ETCD_TXN_TIMEOUT_MS, "txn timeout", false);
+        this.etcdReadMaxAttempts = parseEtcdReadMaxAttempts(config);
+        this.etcdReadRetryBackoffMs = parseEtcdMillis(etcd.getRead_retry_backoff_ms(), DEFAULT_ETCD_READ_RETRY_BACKOFF_MS,
+                "read retry backoff", true);
+        this.etcdPassDeadlineMs = parseEtcdMillis(etcd.getPass_deadline_ms(), DEFAULT_ETCD_PASS_DEADLINE_MS, "pass deadline", true);
         this.taskIntervalSeconds = parseTaskIntervalSeconds(config);
         this.coordinatorGoalStateGroup = parseCoordinatorGoalStateGroup(config);
         this.coordinatorGoalStateUnit = parseCoordinatorGoalStateUnit(config);
+        this.metadataCacheEnabled = parseMetadataCacheEnabled(config);
+        this.metadataCacheReadYourWritesTimeoutMs = parseMetadataCacheReadYourWritesTimeoutMs(config);
+        this.metadataStoreBackend = parseMetadataStoreBackend(config);
+        this.metadataStoreEmbeddedDir = parseMetadataStoreEmbeddedDir(config);
+        this.metadataStoreEmbeddedFsync = parseMetadataStoreEmbeddedFsync(config);
         
         log.info("Loaded cluster controller config - etcd endpoints: {}, task interval: {}s", 
                 String.join(", ", etcdEndpoints), taskIntervalSeconds);
@@ -52,7 +95,9 @@ public class ClusterControllerConfig {
 
 
     private ConfigModel loadYamlConfig() {
-        Yaml yaml = new Yaml(new Constructor(ConfigModel.class));
+        Constructor constructor = new Constructor(ConfigModel.class);
+        constructor.setPropertyUtils(new ConfigPropertyUtils());
+        Yaml yaml = new Yaml(constructor);
         InputStream inputStream = null;
         String loadedFrom = "";
 
@@ -121,6 +166,106 @@ public class ClusterControllerConfig {
         return new String[]{DEFAULT_ETCD_ENDPOINT};
     }
     
+    private int parseEtcdMaxTxnOps(ConfigModel config) {
+        try {
+            if (config.getEtcd() != null && config.getEtcd().getMax_txn_ops() != null
+                    && config.getEtcd().getMax_txn_ops() > 0) {
+                return config.getEtcd().getMax_txn_ops();
+            }
+        } catch (Exception e) {
+            log.warn("Failed to parse etcd max txn ops, using default: {}", e.getMessage());
+        }
+        return DEFAULT_ETCD_MAX_TXN_OPS;
+    }
+    
+    private int parseEtcdMaxInFlightPerCluster(ConfigModel config) {
+        try {
+            if (config.getEtcd() != null && config.getEtcd().getMax_in_flight_per_cluster() != null
+                    && config.getEtcd().getMax_in_flight_per_cluster() > 0) {
+                return config.getEtcd().getMax_in_flight_per_cluster();
+            }
+        } catch (Exception e) {
+            log.warn("Failed to parse etcd max in-flight requests per cluster, using default: {}", e.getMessage());
+        }
+        return DEFAULT_ETCD_MAX_IN_FLIGHT_PER_CLUSTER;
+    }
+    
+    private int parseEtcdPrefixScanPageSize(ConfigModel config) {
+        try {
+            if (config.getEtcd() != null && config.getEtcd().getPrefix_scan_page_size() != null
+                    && config.getEtcd().getPrefix_scan_page_size() > 0) {
+                return config.getEtcd().getPrefix_scan_page_size();
+            }
+        } catch (Exception e) {
+            log.warn("Failed to parse etcd prefix scan page size, using default: {}", e.getMessage());
+        }
+        return DEFAULT_ETCD_PREFIX_SCAN_PAGE_SIZE;
+    }
+    
+    private int parseEtcdDecodeCacheMaxMb(ConfigModel config) {
+        try {
+            // 0 is allowed and disables the cache
+            if (config.getEtcd() != null && config.getEtcd().getDecode_cache_max_mb() != null
+                    && config.getEtcd().getDecode_cache_max_mb() >= 0) {
+                return config.getEtcd().getDecode_cache_max_mb();
+            }
+        } catch (Exception e) {
+            log.warn("Failed to parse etcd decode cache size, using default: {}", e.getMessage());
+        }
+        return DEFAULT_ETCD_DECODE_CACHE_MAX_MB;
+    }
+    
+    private String parseEtcdStateValueFormat(ConfigModel config) {
+        try {
+            if (config.getEtcd() != null && config.getEtcd().getState_value_format() != null) {
+                String format = config.getEtcd().getState_value_format().trim().toLowerCase();
+                if (Set.of("json", "smile", "cbor").contains(format)) {
+                    return format;
+                }
+                log.warn("Unknown etcd state value format '{}', using default", format);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to parse etcd state value format, using default: {}", e.getMessage());
+        }
+        return DEFAULT_ETCD_STATE_VALUE_FORMAT;
+    }
+    
+    private boolean parseEtcdStateValueCompressed(ConfigModel config) {
+        try {
+            if (config.getEtcd() != null && config.getEtcd().getState_value_compressed() != null) {
+                return config.getEtcd().getState_value_compressed();
+            }
+        } catch (Exception e) {
+            log.warn("Failed to parse etcd state value compression flag, using default: {}", e.getMessage());
+        }
+        return DEFAULT_ETCD_STATE_VALUE_COMPRESSED;
+    }
+    
+    /**
+     * Parse an etcd duration in milliseconds; 0 is accepted only where it disables the feature.
+     */
+    private long parseEtcdMillis(Long value, long defaultValue, String name, boolean zeroAllowed) {
+        if (value != null) {
+            if (value > 0 || (zeroAllowed && value == 0)) {
+                return value;
+            }
+            log.warn("Invalid etcd {} of {} ms, using default", name, value);
+        }
+        return defaultValue;
+    }
+    
+    private int parseEtcdReadMaxAttempts(ConfigModel config) {
+        try {
+            if (config.getEtcd() != null && config.getEtcd().getRead_max_attempts() != null
+                    && config.getEtcd().getRead_max_attempts() > 0) {
+                return config.getEtcd().getRead_max_attempts();
+            }
+        } catch (Exception e) {
+            log.warn("Failed to parse etcd read max attempts, using default: {}", e.getMessage());
+        }
+        return DEFAULT_ETCD_READ_MAX_ATTEMPTS;
+    }
+    
     private long parseTaskIntervalSeconds(ConfigModel config) {
         try {
             if (config.getTask() != null && config.getTask().getIntervalSeconds() != null) {
@@ -159,6 +304,78 @@ public class ClusterControllerConfig {
         return COORDINATOR_DEFAULT_UNIT;
     }
     
+    private boolean parseMetadataCacheEnabled(ConfigModel config) {
+        try {
+            if (config.getMetadata_cache() != null && config.getMetadata_cache().getEnabled() != null) {
+                return config.getMetadata_cache().getEnabled();
+            }
+        } catch (Exception e) {
+            log.warn("Failed to parse metadata cache enabled flag, using default: {}", e.getMessage());
+        }
+        return DEFAULT_METADATA_CACHE_ENABLED;
+    }
+    
+    private long parseMetadataCacheReadYourWritesTimeoutMs(ConfigModel config) {
+        try {
+            if (config.getMetadata_cache() != null && config.getMetadata_cache().getRead_your_writes_timeout_ms() != null) {
+                return config.getMetadata_cache().getRead_your_writes_timeout_ms();
+            }
+        } catch (Exception e) {
+            log.warn("Failed to parse metadata cache read-your-writes timeout, using default: {}", e.getMessage());
+        }
+        return DEFAULT_METADATA_CACHE_READ_YOUR_WRITES_TIMEOUT_MS;
+    }
+    
+    private String parseMetadataStoreBackend(ConfigModel config) {
+        String backend = null;
+        try {
+            // Through EnvironmentUtils first, so ${METADATA_STORE_BACKEND:...} placeholders are resolved
+            backend = EnvironmentUtils.get("metadata_store.backend");
+        } catch (Exception e) {
+            log.debug("metadata_store.backend not resolvable from environment: {}", e.getMessage());
+        }
+        if ((backend == null || backend.isBlank()) && config.getMetadata_store() != null) {
+            backend = config.getMetadata_store().getBackend();
+        }
+        if (backend == null || backend.isBlank()) {
+            return DEFAULT_METADATA_STORE_BACKEND;
+        }
+        backend = backend.trim().toLowerCase();
+        if (!METADATA_STORE_BACKEND_ETCD.equals(backend) && !METADATA_STORE_BACKEND_EMBEDDED.equals(backend)) {
+            log.warn("Unknown metadata store backend '{}', using default", backend);
+            return DEFAULT_METADATA_STORE_BACKEND;
+        }
+        return backend;
+    }
+
+    private String parseMetadataStoreEmbeddedDir(ConfigModel config) {
+        String dir = null;
+        try {
+            dir = EnvironmentUtils.get("metadata_store.embedded_dir");
+        } catch (Exception e) {
+            log.debug("metadata_store.embedded_dir not resolvable from environment: {}", e.getMessage());
+        }
+        if ((dir == null || dir.isBlank()) && config.getMetadata_store() != null) {
+            dir = config.getMetadata_store().getEmbedded_dir();
+        }
+        // An unresolved ${...} placeholder read straight from the YAML is not a usable path
+        if (dir == null || dir.isBlank() || dir.startsWith("${")) {
+            return DEFAULT_METADATA_STORE_EMBEDDED_DIR;
+        }
+        return dir.trim();
+    }
+
+    private boolean parseMetadataStoreEmbeddedFsync(ConfigModel config) {
+        try {
+            if (config.getMetadata_store() != null && config.getMetadata_store().getEmbedded_fsync() != null) {
+                return config.getMetadata_store().getEmbedded_fsync();
+            }
+        } catch (Exception e) {
+            log.warn("Failed to parse embedded metadata store fsync flag, using default: {}", e.getMessage());
+        }
+        return DEFAULT_METADATA_STORE_EMBEDDED_FSYNC;
+    }
+    
     /**
      * Configuration model for the application.yml file.
      */
@@ -168,11 +385,26 @@ public class ClusterControllerConfig {
         private Task task;
         private Controller controller; // Multi-cluster controller config (used by Spring @Value)
         private CoordinatorGoalState coordinator_goal_state;
+        private MetadataCache metadata_cache;
+        private MetadataStore metadata_store;
     }
     
     @Data
     public static class Etcd {
         private String endpoints;  // Comma-separated, resolved via Spring: ${ETCD_ENDPOINTS:default}
+        private Integer max_txn_ops;
+        private Integer max_in_flight_per_cluster;
+        private Integer prefix_scan_page_size;
+        private Integer decode_cache_max_mb;
+        private String state_value_format;
+        private Boolean state_value_compressed;
+        private Long read_timeout_ms;
+        private Long scan_timeout_ms;
+        private Long write_timeout_ms;
+        private Long txn_timeout_ms;
+        private Integer read_max_attempts;
+        private Long read_retry_backoff_ms;
+        private Long pass_deadline_ms;
     }
     
     @Data
@@ -180,6 +412,20 @@ public class ClusterControllerConfig {
         private Long intervalSeconds;
     }
     
+    /**
+     * Skips the keys under task: other than those of {@link Task}; TaskProperties binds them. Unknown keys of
+     * every other section still fail the load.
+     */
+    private static class ConfigPropertyUtils extends PropertyUtils {
+        @Override
+        public Property getProperty(Class<? extends Object> type, String name, BeanAccess bAccess) {
+            if (type == Task.class && !getPropertiesMap(type, bAccess).containsKey(name)) {
+                return new MissingProperty(name);
+            }
+            return super.getProperty(type, name, bAccess);
+        }
+    }
+    
     @Data
     public static class Controller {
         private String id;
@@ -194,6 +440,20 @@ public class ClusterControllerConfig {
         private String search_unit;
     }
     
+    @Data
+    public static class MetadataCache {
+        private Boolean enabled;
+        private Long read_your_writes_timeout_ms;
+    }
+    
+    @Data
+    public static class MetadataStore {
+        private String backend;  // etcd or embedded, resolved via Spring: ${METADATA_STORE_BACKEND:etcd}
+        private String embedded_dir;
+        private Boolean embedded_fsync;
+        private String embedded_clusters;  // read by SingleNodeClusterManager via Spring
+    }
+    
     @Data
     public static class Ttl {
         private Integer seconds;
@@ -12,12 +12,64 @@ public final class Constants {
     // Default configuration values
     public static final String DEFAULT_ETCD_ENDPOINT = "http://localhost:2379";
     public static final long DEFAULT_TASK_INTERVAL_SECONDS = 30L;
+    // Completed and failed one-shot tasks are kept this long, compacted at this interval (0 disables)
+    public static final long DEFAULT_TASK_CLEANUP_RETENTION_SECONDS = 86400L;
+    public static final long DEFAULT_TASK_CLEANUP_INTERVAL_SECONDS = 300L;
+    public static final boolean DEFAULT_TASK_CLEANUP_ARCHIVE = false;
+    // Run discovery, allocation, orchestration and the actual allocation update as one cycle per tick
+    public static final boolean DEFAULT_TASK_RECONCILE_CYCLE = false;
+    // A cycle stage whose inputs are unchanged is still run once its last run is this old
+    public static final long DEFAULT_TASK_RECONCILE_STAGE_MAX_SKIP_SECONDS = 60L;
+    // Trigger passes from watch events, collected over the debounce window, with a slow periodic resync
+    public static final boolean DEFAULT_TASK_EVENT_DRIVEN = false;
+    public static final long DEFAULT_TASK_EVENT_DEBOUNCE_MS = 250L;
+    public static final long DEFAULT_TASK_RESYNC_INTERVAL_SECONDS = 60L;
+    // Reconcile passes running at the same time across all clusters this controller manages
+    public static final int DEFAULT_TASK_MAX_CONCURRENT_PASSES = 4;
+    // Recurring task state is written to the store when a run's outcome changes, otherwise at most this often
+    public static final long DEFAULT_TASK_CHECKPOINT_INTERVAL_SECONDS = 300L;
+    // Adapt each cluster's loop interval between these bounds: shortest while converging, backing off when idle
+    public static final boolean DEFAULT_TASK_ADAPTIVE_INTERVAL = false;
+    public static final long DEFAULT_TASK_ADAPTIVE_INTERVAL_MIN_SECONDS = 2L;
+    public static final long DEFAULT_TASK_ADAPTIVE_INTERVAL_MAX_SECONDS = 120L;
+    // One-shot tasks run by each cluster's task queue at the same time (0 runs them in the passes, one per pass),
+    // and how often the queue looks for new ones
+    public static final int DEFAULT_TASK_QUEUE_MAX_CONCURRENT = 0;
+    public static final long DEFAULT_TASK_QUEUE_POLL_INTERVAL_MS = 1000L;
+    // Reconcile pass traces kept per cluster (0 disables tracing), and spans recorded per pass
+    public static final int DEFAULT_TASK_TRACE_PASSES = 20;
+    public static final int DEFAULT_TASK_TRACE_MAX_SPANS = 10000;
+    public static final boolean DEFAULT_METADATA_CACHE_ENABLED = false;
+    public static final long DEFAULT_METADATA_CACHE_READ_YOUR_WRITES_TIMEOUT_MS = 2000L;
+    public static final String METADATA_STORE_BACKEND_PROPERTY = "metadata_store.backend";
+    public static final String METADATA_STORE_BACKEND_ETCD = "etcd";
+    public static final String METADATA_STORE_BACKEND_EMBEDDED = "embedded";
+    public static final String DEFAULT_METADATA_STORE_BACKEND = METADATA_STORE_BACKEND_ETCD;
+    public static final String DEFAULT_METADATA_STORE_EMBEDDED_DIR = "./data/metadata-store";
+    public static final boolean DEFAULT_METADATA_STORE_EMBEDDED_FSYNC = true;
+    public static final int DEFAULT_ETCD_MAX_TXN_OPS = 128;
+    public static final int DEFAULT_ETCD_MAX_IN_FLIGHT_PER_CLUSTER = 32;
+    public static final int DEFAULT_ETCD_PREFIX_SCAN_PAGE_SIZE = 256;
+    public static final int DEFAULT_ETCD_DECODE_CACHE_MAX_MB = 64;
+    public static final String DEFAULT_ETCD_STATE_VALUE_FORMAT = "json";
+    public static final boolean DEFAULT_ETCD_STATE_VALUE_COMPRESSED = false;
+    public static final long DEFAULT_ETCD_READ_TIMEOUT_MS = 5000L;
+    public static final long DEFAULT_ETCD_SCAN_TIMEOUT_MS = 5000L;
+    public static final long DEFAULT_ETCD_WRITE_TIMEOUT_MS = 5000L;
+    public static final long DEFAULT_ETCD_TXN_TIMEOUT_MS = 5000L;
+    public static final int DEFAULT_ETCD_READ_MAX_ATTEMPTS = 3;
+    public static final long DEFAULT_ETCD_READ_RETRY_BACKOFF_MS = 50L;
+    public static final long DEFAULT_ETCD_PASS_DEADLINE_MS = 60000L;
+    public static final int DEFAULT_WATCH_HUB_DISPATCH_THREADS = 4;
+    // Longest wait of a _ready long-poll, below the servlet container's default async request timeout
+    public static final long MAX_INDEX_READY_WAIT_MS = 25000L;
     
     // Task statuses
     public static final String TASK_STATUS_PENDING = "PENDING";
     public static final String TASK_STATUS_RUNNING = "RUNNING";
     public static final String TASK_STATUS_COMPLETED = "COMPLETED";
     public static final String TASK_STATUS_FAILED = "FAILED";
+    public static final String TASK_STATUS_CANCELLED = "CANCELLED";
     
     // Task schedule types
     public static final String TASK_SCHEDULE_ONCE = "once";
@@ -35,9 +87,12 @@ public final class Constants {
     // etcd path segments
     public static final String PATH_DELIMITER = "/";
     public static final String PATH_CTL_TASKS = "ctl-tasks";
+    public static final String PATH_CTL_TASK_HISTORY = "ctl-task-history";
+    public static final String PATH_CTL_TASK_CLAIMS = "ctl-task-claims";
     public static final String PATH_SEARCH_UNITS = "search-unit";
     public static final String PATH_INDICES = "indices";
     public static final String PATH_TEMPLATES = "templates";
+    public static final String PATH_ALIASES = "aliases";
     public static final String PATH_COORDINATORS = "coordinators";
     public static final String PATH_LEADER_ELECTION = "leader-election";
     // Default coordinator unit name for coordinator goal state path
@@ -59,6 +114,8 @@ public final class Constants {
     
     // Discovery cleanup thresholds
     public static final long STALE_SEARCH_UNIT_TIMEOUT_MINUTES = 10L;
+    // Search units without a heartbeat for this long are left out of actual allocations
+    public static final long STALE_HEARTBEAT_TIMEOUT_MS = 60 * 1000L;
     
     // Admin state values
     public static final String ADMIN_STATE_NORMAL = "NORMAL";
@@ -0,0 +1,47 @@
+package io.clustercontroller.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import static io.clustercontroller.config.Constants.*;
+
+/**
+ * Settings of each managed cluster's task manager, bound from the task section of application.yml
+ * (e.g. task.queue_max_concurrent binds queueMaxConcurrent). See application.yml for what each one does;
+ * a setting left out keeps its default from {@link Constants}.
+ */
+@Data
+@ConfigurationProperties(prefix = "task")
+public class TaskProperties {
+
+    // Background compaction of finished one-shot tasks
+    private long cleanupRetentionSeconds = DEFAULT_TASK_CLEANUP_RETENTION_SECONDS;
+    private long cleanupIntervalSeconds = DEFAULT_TASK_CLEANUP_INTERVAL_SECONDS;
+    private boolean cleanupArchive = DEFAULT_TASK_CLEANUP_ARCHIVE;
+
+    // Recurring tasks run as one reconcile cycle per tick
+    private boolean reconcileCycle = DEFAULT_TASK_RECONCILE_CYCLE;
+    private long reconcileStageMaxSkipSeconds = DEFAULT_TASK_RECONCILE_STAGE_MAX_SKIP_SECONDS;
+
+    // Passes triggered by changes seen by the shared watches
+    private boolean eventDriven = DEFAULT_TASK_EVENT_DRIVEN;
+    private long eventDebounceMs = DEFAULT_TASK_EVENT_DEBOUNCE_MS;
+    private long resyncIntervalSeconds = DEFAULT_TASK_RESYNC_INTERVAL_SECONDS;
+
+    // Passes running at the same time across all managed clusters
+    private int maxConcurrentPasses = DEFAULT_TASK_MAX_CONCURRENT_PASSES;
+    private long checkpointIntervalSeconds = DEFAULT_TASK_CHECKPOINT_INTERVAL_SECONDS;
+
+    // Loop interval adapted to the cluster state
+    private boolean adaptiveInterval = DEFAULT_TASK_ADAPTIVE_INTERVAL;
+    private long adaptiveIntervalMinSeconds = DEFAULT_TASK_ADAPTIVE_INTERVAL_MIN_SECONDS;
+    private long adaptiveIntervalMaxSeconds = DEFAULT_TASK_ADAPTIVE_INTERVAL_MAX_SECONDS;
+
+    // One-shot tasks run by a task queue; 0 leaves them to the passes
+    private int queueMaxConcurrent = DEFAULT_TASK_QUEUE_MAX_CONCURRENT;
+    private long queuePollIntervalMs = DEFAULT_TASK_QUEUE_POLL_INTERVAL_MS;
+
+    // Reconcile pass tracing; 0 passes disables it
+    private int tracePasses = DEFAULT_TASK_TRACE_PASSES;
+    private int traceMaxSpans = DEFAULT_TASK_TRACE_MAX_SPANS;
+}
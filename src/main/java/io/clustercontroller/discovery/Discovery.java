@@ -7,6 +7,8 @@ import io.clustercontroller.models.NodeAttributes;
 import io.clustercontroller.models.SearchUnit;
 import io.clustercontroller.models.SearchUnitActualState;
 import io.clustercontroller.store.MetadataStore;
+import io.clustercontroller.store.SnapshotMetadataStore;
+import io.clustercontroller.tracing.PassTracer;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
@@ -39,14 +41,23 @@ public class Discovery {
     public void discoverSearchUnits(String clusterName) {
         log.info("Discovery - Starting search unit discovery process for cluster: {}", clusterName);
         
+        // Read the whole pass from one snapshot revision (plus the pass's own writes)
+        MetadataStore store = SnapshotMetadataStore.forPass(metadataStore, clusterName);
+        
         // Discover and update search units from Etcd actual-states
-        discoverSearchUnitsFromEtcd(clusterName);
+        try (PassTracer.Span span = PassTracer.span(PassTracer.KIND_PHASE, "discover-search-units")) {
+            discoverSearchUnitsFromEtcd(store, clusterName);
+        }
         
         // Clean up stale search units before processing
-        cleanupStaleSearchUnits(clusterName);
+        try (PassTracer.Span span = PassTracer.span(PassTracer.KIND_PHASE, "cleanup-stale-search-units")) {
+            cleanupStaleSearchUnits(store, clusterName);
+        }
         
         // Process all search units to ensure they're up-to-date
-        processAllSearchUnits(clusterName);
+        try (PassTracer.Span span = PassTracer.span(PassTracer.KIND_PHASE, "process-search-units")) {
+            processAllSearchUnits(store, clusterName);
+        }
         
         log.info("Discovery - Completed search unit discovery process for cluster: {}", clusterName);
     }
@@ -54,9 +65,9 @@ public class Discovery {
     /**
      * Process all search units to ensure they're current
      */
-    private void processAllSearchUnits(String clusterName) {
+    private void processAllSearchUnits(MetadataStore store, String clusterName) {
         try {
-            List<SearchUnit> allSearchUnits = metadataStore.getAllSearchUnits(clusterName);
+            List<SearchUnit> allSearchUnits = store.getAllSearchUnits(clusterName);
             log.info("Discovery - Processing {} total search units for updates", allSearchUnits.size());
             
             for (SearchUnit searchUnit : allSearchUnits) {
@@ -64,7 +75,7 @@ public class Discovery {
                     log.debug("Discovery - Processing search unit: {}", searchUnit.getName());
                     
                     // Update the search unit (this could include health checks, metrics, etc.)
-                    metadataStore.updateSearchUnit(clusterName, searchUnit);
+                    store.updateSearchUnit(clusterName, searchUnit);
                     
                     log.debug("Discovery - Successfully updated search unit: {}", searchUnit.getName());
                 } catch (Exception e) {
@@ -79,21 +90,21 @@ public class Discovery {
     /**
      * Dynamically discover search units from Etcd actual-states
      */
-    private void discoverSearchUnitsFromEtcd(String clusterName) {
+    private void discoverSearchUnitsFromEtcd(MetadataStore store, String clusterName) {
         try {
             // fetch search units from actual-state paths
-            List<SearchUnit> etcdSearchUnits = fetchSearchUnitsFromEtcd(clusterName); 
+            List<SearchUnit> etcdSearchUnits = fetchSearchUnitsFromEtcd(store, clusterName); 
             log.info("Discovery - Found {} search units from Etcd", etcdSearchUnits.size());
             
             // Update/create search units in metadata store
             for (SearchUnit searchUnit : etcdSearchUnits) {
                 try {
-                    if (metadataStore.getSearchUnit(clusterName, searchUnit.getName()).isPresent()) {
+                    if (store.getSearchUnit(clusterName, searchUnit.getName()).isPresent()) {
                         log.debug("Discovery - Updating existing search unit '{}' from Etcd", searchUnit.getName());
-                        metadataStore.updateSearchUnit(clusterName, searchUnit);
+                        store.updateSearchUnit(clusterName, searchUnit);
                     } else {
                         log.info("Discovery - Creating new search unit '{}' from Etcd", searchUnit.getName());
-                        metadataStore.upsertSearchUnit(clusterName, searchUnit.getName(), searchUnit);
+                        store.upsertSearchUnit(clusterName, searchUnit.getName(), searchUnit);
                     }
                 } catch (Exception e) {
                     log.warn("Discovery - Failed to update search unit '{}' from Etcd: {}", 
@@ -110,11 +121,15 @@ public class Discovery {
      * Public method to allow reuse by SearchUnitLoader for bootstrapping
      */
     public List<SearchUnit> fetchSearchUnitsFromEtcd(String clusterName) {
+        return fetchSearchUnitsFromEtcd(metadataStore, clusterName);
+    }
+    
+    private List<SearchUnit> fetchSearchUnitsFromEtcd(MetadataStore store, String clusterName) {
         log.info("Discovery - Fetching search units from Etcd...");
         
         try {
             Map<String, SearchUnitActualState> actualStates = 
-                    metadataStore.getAllSearchUnitActualStates(clusterName);
+                    store.getAllSearchUnitActualStates(clusterName);
             
             List<SearchUnit> searchUnits = new ArrayList<>();
             
@@ -179,13 +194,13 @@ public class Discovery {
     /**
      * Clean up search units with missing or stale actual state timestamp (older than configured timeout)
      */
-    private void cleanupStaleSearchUnits(String clusterName) {
+    private void cleanupStaleSearchUnits(MetadataStore store, String clusterName) {
         int deletedCount = 0;
         try {
             log.info("Discovery - Starting cleanup of stale search units...");
             
             // Get all existing search units from metadata store
-            List<SearchUnit> allSearchUnits = metadataStore.getAllSearchUnits(clusterName);
+            List<SearchUnit> allSearchUnits = store.getAllSearchUnits(clusterName);
             
             for (SearchUnit searchUnit : allSearchUnits) {
                 String unitName = searchUnit.getName();
@@ -193,7 +208,7 @@ public class Discovery {
                 try {
                     // Check if actual state exists
                     SearchUnitActualState actualState = 
-                            metadataStore.getSearchUnitActualState(clusterName, unitName);
+                            store.getSearchUnitActualState(clusterName, unitName);
                     
                     boolean shouldDelete = false;
                     String reason = "";
@@ -213,7 +228,7 @@ public class Discovery {
                     if (shouldDelete) {
                         log.info("Discovery - Deleting search unit '{}' due to: {}", unitName, reason);
                         // Delete the entire search unit (conf, actual-state, goal-state) with single call
-                        metadataStore.deleteSearchUnit(clusterName, unitName);
+                        store.deleteSearchUnit(clusterName, unitName);
                         deletedCount++;
                     }
                     
@@ -46,7 +46,8 @@ public class ClusterHealthManager {
     private final ObjectMapper objectMapper;
     
    public ClusterHealthManager(MetadataStore metadataStore) {
-        this.metadataStore = metadataStore;
+        // Health reporting only reads, so it need not go through the etcd leader
+        this.metadataStore = MetadataStore.serializableReads(metadataStore);
         this.objectMapper = new ObjectMapper();
    }
    
@@ -20,6 +20,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static io.clustercontroller.config.Constants.INDEX_METADATA;
 
@@ -800,7 +801,19 @@ public class IndexManager {
      */
     public boolean isIndexReady(String clusterId, String indexName) throws Exception {
         log.info("Checking if index '{}' is ready in cluster '{}'", indexName, clusterId);
-        return metadataStore.isIndexReady(clusterId, indexName);
+        // Readiness polling is read-only and tolerates slightly stale answers
+        return MetadataStore.serializableReads(metadataStore).isIndexReady(clusterId, indexName);
+    }
+
+    /**
+     * Wait until an index is ready, answering as soon as its last shard becomes ready.
+     *
+     * @param timeoutMs how long to wait before answering not ready
+     * @return completes with true once the index is ready, false if it is not within the timeout
+     */
+    public CompletableFuture<Boolean> waitForIndexReady(String clusterId, String indexName, long timeoutMs) {
+        log.debug("Waiting up to {}ms for index '{}' to be ready in cluster '{}'", timeoutMs, indexName, clusterId);
+        return MetadataStore.serializableReads(metadataStore).waitForIndexReady(clusterId, indexName, timeoutMs);
     }
 
     /**
@@ -33,12 +33,50 @@ public class MetricsConstants {
     // Index level metrics
     public final static String INDEX_TOTAL_DOC_COUNT_METRIC_NAME = "index_total_doc_count";
     
+    // Metadata store cache metrics
+    public final static String METADATA_CACHE_LAG_MS_METRIC_NAME = "metadata_cache_lag_ms";
+    public final static String METADATA_CACHE_KEYS_METRIC_NAME = "metadata_cache_keys";
+
+    // Metadata store operation and etcd traffic metrics
+    public final static String METADATA_STORE_OP_LATENCY_METRIC_NAME = "metadata_store_op_latency";
+    public final static String METADATA_STORE_ETCD_REQUESTS_METRIC_NAME = "metadata_store_etcd_requests_count";
+    public final static String METADATA_STORE_KEYS_READ_METRIC_NAME = "metadata_store_keys_read_count";
+    public final static String METADATA_STORE_BYTES_READ_METRIC_NAME = "metadata_store_bytes_read";
+    public final static String METADATA_STORE_BYTES_WRITTEN_METRIC_NAME = "metadata_store_bytes_written";
+    public final static String METADATA_STORE_CAS_CONFLICTS_METRIC_NAME = "metadata_store_cas_conflicts_count";
+    public final static String METADATA_STORE_TIMEOUTS_METRIC_NAME = "metadata_store_timeouts_count";
+    public final static String METADATA_STORE_PASS_ETCD_REQUESTS_METRIC_NAME = "metadata_store_pass_etcd_requests";
+    public final static String METADATA_STORE_PASS_BYTES_METRIC_NAME = "metadata_store_pass_bytes";
+
+    // Shared etcd watch metrics
+    public final static String WATCH_HUB_OPEN_WATCHES_METRIC_NAME = "watch_hub_open_watches";
+    public final static String WATCH_HUB_LISTENER_LAG_MS_METRIC_NAME = "watch_hub_listener_lag_ms";
+    public final static String WATCH_HUB_LISTENER_REVISION_LAG_METRIC_NAME = "watch_hub_listener_revision_lag";
+    public final static String WATCH_HUB_COALESCED_EVENTS_METRIC_NAME = "watch_hub_coalesced_events_count";
+
+    // Reconcile cycle metrics
+    public final static String RECONCILE_CYCLE_LATENCY_METRIC_NAME = "reconcile_cycle_latency";
+    public final static String RECONCILE_STAGE_LATENCY_METRIC_NAME = "reconcile_stage_latency";
+    public final static String RECONCILE_STAGE_SKIPPED_METRIC_NAME = "reconcile_stage_skipped_count";
+
+    // Controller-wide pass scheduler metrics
+    public final static String CLUSTER_PASS_QUEUE_WAIT_METRIC_NAME = "cluster_pass_queue_wait";
+    public final static String CLUSTER_PASS_RUN_TIME_METRIC_NAME = "cluster_pass_run_time";
+
+    // Adaptive reconcile interval metrics
+    public final static String RECONCILE_INTERVAL_SECONDS_METRIC_NAME = "reconcile_interval_seconds";
+    public final static String RECONCILE_INTERVAL_REASON_METRIC_NAME = "reconcile_interval_reason";
+    
     // Tags
     public final static String CLUSTER_ID_TAG = "clusterId";
     public final static String INDEX_NAME_TAG = "indexName";
     public final static String SHARD_ID_TAG = "shardId";
     public final static String ROLE_TAG = "role";
     public final static String NODE_NAME_TAG = "nodeName";
+    public final static String OPERATION_TAG = "operation";
+    public final static String LISTENER_TAG = "listener";
+    public final static String STAGE_TAG = "stage";
+    public final static String REASON_TAG = "reason";
 
     private MetricsConstants() {}
 }
@@ -97,6 +97,18 @@ public class MetricsUtils {
         return tags;
     }
     
+    /**
+     * Builds a map of metrics tags for cluster-level metrics.
+     *
+     * @param clusterId the cluster ID
+     * @return a map of metrics tags
+     */
+    public static Map<String, String> buildClusterMetricsTags(String clusterId) {
+        Map<String, String> tags = new HashMap<>();
+        tags.put(CLUSTER_ID_TAG, clusterId);
+        return tags;
+    }
+    
     /**
      * Builds a map of metrics tags for index-level metrics.
      *
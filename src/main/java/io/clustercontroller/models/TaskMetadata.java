@@ -1,5 +1,6 @@
 package io.clustercontroller.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 
@@ -16,6 +17,10 @@ public class TaskMetadata {
     @JsonProperty("name")
     private String name;
     
+    // What the task runs; the name when unset, as for the recurring tasks
+    @JsonProperty("action")
+    private String action;
+    
     @JsonProperty("status")
     private String status;
     
@@ -37,6 +42,19 @@ public class TaskMetadata {
     @JsonProperty("created_at")
     private OffsetDateTime createdAt;
     
+    // A one-shot task not finished by then is failed, whether it has started or not
+    @JsonProperty("deadline")
+    private OffsetDateTime deadline;
+    
+    // Set to cancel a one-shot task: it is not started, or its run is interrupted
+    @JsonProperty("cancel_requested")
+    private boolean cancelRequested;
+    
+    // Revision at which the task key was created, set when read from etcd (0 otherwise); queues one-shot tasks
+    // of equal priority in the order they were created without relying on the creators' clocks
+    @JsonIgnore
+    private long createRevision;
+    
     public TaskMetadata() {
         this.createdAt = OffsetDateTime.now();
         this.lastUpdated = OffsetDateTime.now();
@@ -48,5 +66,14 @@ public class TaskMetadata {
         this.name = name;
         this.priority = priority;
     }
+    
+    /**
+     * Whether the task runs on every loop rather than once; the one check all readers of the schedule use.
+     * Case is ignored, for task records written by hand.
+     */
+    @JsonIgnore
+    public boolean isRecurring() {
+        return TASK_SCHEDULE_REPEAT.equalsIgnoreCase(schedule);
+    }
 }
 
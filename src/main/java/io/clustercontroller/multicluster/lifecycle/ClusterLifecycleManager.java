@@ -1,18 +1,28 @@
 package io.clustercontroller.multicluster.lifecycle;
 
+import io.clustercontroller.AdaptiveInterval;
+import io.clustercontroller.PassScheduler;
+import io.clustercontroller.ReconcileCycle;
+import io.clustercontroller.ReconcileTrigger;
 import io.clustercontroller.TaskManager;
+import io.clustercontroller.TaskQueue;
+import io.clustercontroller.config.TaskProperties;
+import io.clustercontroller.metrics.MetricsProvider;
 import io.clustercontroller.multicluster.lock.ClusterLock;
 import io.clustercontroller.multicluster.lock.DistributedLockManager;
 import io.clustercontroller.store.EtcdPathResolver;
 import io.clustercontroller.store.MetadataStore;
+import io.clustercontroller.store.WatchHub;
 import io.clustercontroller.tasks.TaskContext;
 import io.etcd.jetcd.ByteSequence;
 import io.etcd.jetcd.Client;
 import io.etcd.jetcd.KV;
 import io.etcd.jetcd.options.PutOption;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
@@ -21,8 +31,6 @@ import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
@@ -30,6 +38,8 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 /**
  * Manages TaskManager lifecycle and health monitoring for clusters.
+ * With the embedded metadata store there is no etcd: clusters are started without a lock and no assignment
+ * keys are written.
  */
 @Component
 @Slf4j
@@ -37,50 +47,74 @@ public class ClusterLifecycleManager {
     
     private static final int ETCD_OPERATION_TIMEOUT_SECONDS = 5;
     
+    // Fixed task loop interval, and the adaptive interval's starting point
+    private static final long TASK_LOOP_INTERVAL_SECONDS = 10L;
+    
     private final MetadataStore metadataStore;
     private final TaskContext taskContext;  // Shared singleton
+    // Both null without etcd (embedded metadata store)
     private final DistributedLockManager lockManager;
     private final KV kvClient;
     private final EtcdPathResolver pathResolver;
     private final String controllerId;
-    private final ScheduledExecutorService healthCheckScheduler;
+    // Runs every cluster's passes and health checks: one pass per cluster at a time, a global cap, in turn
+    private final PassScheduler passScheduler;
+    // Settings of the task managers and the collaborators built for them
+    private final TaskProperties taskProperties;
     private final Duration healthCheckInterval;
+    private final MetricsProvider metricsProvider;
+    // Shared watches that trigger passes in event-driven mode; null without etcd, where passes poll
+    private final WatchHub watchHub;
     
     private final ConcurrentMap<String, ManagedCluster> clusters = new ConcurrentHashMap<>();
     
-    @Autowired
     public ClusterLifecycleManager(
             MetadataStore metadataStore,
             TaskContext taskContext,
             DistributedLockManager lockManager,
             Client etcdClient,
             EtcdPathResolver pathResolver,
+            String controllerId,
+            int healthCheckIntervalSeconds) {
+        this(metadataStore, taskContext, lockManager, etcdClient, pathResolver, controllerId, healthCheckIntervalSeconds,
+            new TaskProperties(), null, null);
+    }
+    
+    @Autowired
+    public ClusterLifecycleManager(
+            MetadataStore metadataStore,
+            TaskContext taskContext,
+            @Nullable DistributedLockManager lockManager,
+            @Nullable Client etcdClient,
+            EtcdPathResolver pathResolver,
             @Value("${controller.id}") String controllerId,
-            @Value("${multi-cluster.health-check-interval:10}") int healthCheckIntervalSeconds) {
+            @Value("${multi-cluster.health-check-interval:10}") int healthCheckIntervalSeconds,
+            TaskProperties taskProperties,
+            MetricsProvider metricsProvider,
+            @Nullable WatchHub watchHub) {
         
         this.metadataStore = metadataStore;
         this.taskContext = taskContext;
         this.lockManager = lockManager;
-        this.kvClient = etcdClient.getKVClient();
+        this.kvClient = etcdClient != null ? etcdClient.getKVClient() : null;
         this.pathResolver = pathResolver;
         this.controllerId = controllerId;
         this.healthCheckInterval = Duration.ofSeconds(healthCheckIntervalSeconds);
+        this.taskProperties = taskProperties;
+        this.metricsProvider = metricsProvider;
+        this.watchHub = watchHub;
+        this.passScheduler = new PassScheduler(taskProperties.getMaxConcurrentPasses(), metricsProvider);
         
-        this.healthCheckScheduler = Executors.newScheduledThreadPool(10, r -> {
-            Thread t = new Thread(r);
-            t.setName("cluster-health-check-" + t.threadId());
-            t.setDaemon(true);
-            return t;
-        });
-        
-        log.info("ClusterLifecycleManager initialized (controller: {}, health check interval: {}s)", 
-            controllerId, healthCheckIntervalSeconds);
+        log.info("ClusterLifecycleManager initialized (controller: {}, health check interval: {}s, max concurrent passes: {})", 
+            controllerId, healthCheckIntervalSeconds, passScheduler.getMaxConcurrentPasses());
     }
     
     /**
      * Start managing a cluster.
+     *
+     * @param lock the cluster's lock, or null without etcd, where this controller is the only one
      */
-    public void startCluster(String clusterId, ClusterLock lock) {
+    public void startCluster(String clusterId, @Nullable ClusterLock lock) {
         if (clusters.containsKey(clusterId)) {
             log.warn("Cluster {} already managed", clusterId);
             return;
@@ -89,25 +123,50 @@ public class ClusterLifecycleManager {
         try {
             log.info("Starting management of cluster: {}", clusterId);
             
+            // Per-cluster store state kept only for managed clusters (e.g. cached keyspace, index readiness
+            // watches); before the TaskManager starts so its first pass already reads through it
+            metadataStore.manageCluster(clusterId);
+            
             // Create and start TaskManager for this cluster
             // TaskManager will automatically bootstrap recurring tasks on start()
             TaskManager taskManager = new TaskManager(
                 metadataStore,
                 taskContext,
                 clusterId,
-                10L  // Task loop interval: 10 seconds
+                TASK_LOOP_INTERVAL_SECONDS,
+                taskProperties,
+                passScheduler,
+                taskProperties.isReconcileCycle()
+                    ? new ReconcileCycle(metadataStore, taskContext, clusterId,
+                        taskProperties.getReconcileStageMaxSkipSeconds(), metricsProvider)
+                    : null,
+                eventDriven()
+                    ? new ReconcileTrigger(watchHub, pathResolver, clusterId, taskProperties.getEventDebounceMs(),
+                        taskProperties.getResyncIntervalSeconds())
+                    : null,
+                // Only when polling: event-driven passes follow the changes, with the resync interval as the loop
+                taskProperties.isAdaptiveInterval() && !eventDriven()
+                    ? new AdaptiveInterval(clusterId, taskProperties.getAdaptiveIntervalMinSeconds(),
+                        taskProperties.getAdaptiveIntervalMaxSeconds(), TASK_LOOP_INTERVAL_SECONDS, metricsProvider)
+                    : null,
+                // Claims on the cluster's tasks are bound to the lock's lease, if there is one
+                taskProperties.getQueueMaxConcurrent() > 0
+                    ? new TaskQueue(metadataStore, taskContext, clusterId, controllerId,
+                        lock != null ? lock.getLeaseId() : 0, taskProperties.getQueueMaxConcurrent(),
+                        taskProperties.getQueuePollIntervalMs())
+                    : null
             );
             taskManager.start();
             
             // Watch for unexpected lock loss (split-brain prevention)
             // If lock is lost while we think we still own it, stop immediately
-            var lockWatcher = lockManager.watchLock(lock, () -> {
+            var lockWatcher = lock == null ? null : lockManager.watchLock(lock, () -> {
                 log.warn("Lock lost for cluster {}, stopping", clusterId);
                 stopCluster(clusterId);
             });
             
             // Schedule health checks
-            ScheduledFuture<?> healthCheck = healthCheckScheduler.scheduleAtFixedRate(
+            ScheduledFuture<?> healthCheck = passScheduler.scheduleCheck(
                 () -> checkHealth(clusterId, taskManager),
                 healthCheckInterval.toSeconds(),
                 healthCheckInterval.toSeconds(),
@@ -120,17 +179,29 @@ public class ClusterLifecycleManager {
             clusters.put(clusterId, managed);
             
             // Write assignment key for observability
-            writeAssignmentKey(clusterId, lock.getLeaseId());
+            if (lock != null && kvClient != null) {
+                writeAssignmentKey(clusterId, lock.getLeaseId());
+            }
             
             log.info("✓ Started managing cluster: {} (total: {})", clusterId, clusters.size());
             
         } catch (Exception e) {
             log.error("Failed to start cluster: {}", clusterId, e);
-            lockManager.releaseLock(lock);
+            metadataStore.releaseCluster(clusterId);
+            if (lock != null) {
+                lockManager.releaseLock(lock);
+            }
             throw new RuntimeException("Failed to start cluster: " + clusterId, e);
         }
     }
     
+    /**
+     * Whether passes are triggered by changes seen by the shared watches, rather than polled.
+     */
+    private boolean eventDriven() {
+        return taskProperties.isEventDriven() && watchHub != null;
+    }
+    
     /**
      * Stop managing a cluster.
      */
@@ -157,11 +228,17 @@ public class ClusterLifecycleManager {
                 managed.getLockWatcher().close();
             }
             
-            // Release lock
-            lockManager.releaseLock(managed.getLock());
+            // Release lock; revoking its lease also deletes the assignment keys bound to it. Deleting them
+            // explicitly could remove the keys of a controller that has taken the cluster over since.
+            if (managed.getLock() != null) {
+                lockManager.releaseLock(managed.getLock());
+            }
             
-            // Delete assignment key for observability
-            deleteAssignmentKey(clusterId);
+            // Drop per-cluster store state (e.g. cached keyspace and its watch)
+            metadataStore.releaseCluster(clusterId);
+            if (taskContext.getTracer() != null) {
+                taskContext.getTracer().releaseCluster(clusterId);
+            }
             
             log.info("✓ Stopped managing cluster: {} (remaining: {})", clusterId, clusters.size());
             
@@ -203,7 +280,15 @@ public class ClusterLifecycleManager {
     }
     
     /**
-     * Write assignment keys to etcd for observability.
+     * Stop the pass scheduler once the clusters are stopped, on shutdown.
+     */
+    @PreDestroy
+    public void shutdown() {
+        passScheduler.close();
+    }
+    
+    /**
+     * Write assignment keys to etcd for observability, bound to the lock's lease so they go with it.
      * - Controller-level: /multi-cluster/controllers/{controller-id}/assigned/{cluster-id}
      * - Cluster-level: /multi-cluster/clusters/{cluster-id}/assigned-to
      * Value: JSON with assignment metadata
@@ -240,30 +325,4 @@ public class ClusterLifecycleManager {
             log.error("✗ Failed to write cluster assignment key for cluster {}", clusterId, e);
         }
     }
-    
-    /**
-     * Delete assignment keys from etcd (both controller-level and cluster-level).
-     */
-    private void deleteAssignmentKey(String clusterId) {
-        // Delete controller-level assignment key
-        try {
-            String controllerAssignmentPath = pathResolver.getControllerAssignmentPath(controllerId, clusterId);
-            kvClient.delete(ByteSequence.from(controllerAssignmentPath, UTF_8))
-                .get(ETCD_OPERATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-            log.info("✓ Deleted controller assignment key: {} → {}", controllerId, clusterId);
-        } catch (Exception e) {
-            log.error("✗ Failed to delete controller assignment key for cluster {}", clusterId, e);
-        }
-        
-        // Delete cluster-level assignment key
-        try {
-            String clusterAssignmentPath = pathResolver.getClusterAssignedControllerPath(clusterId);
-            kvClient.delete(ByteSequence.from(clusterAssignmentPath, UTF_8))
-                .get(ETCD_OPERATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-            log.info("✓ Deleted cluster assignment key: {} ← {}", controllerId, clusterId);
-        } catch (Exception e) {
-            log.error("✗ Failed to delete cluster assignment key for cluster {}", clusterId, e);
-        }
-    }
 }
-
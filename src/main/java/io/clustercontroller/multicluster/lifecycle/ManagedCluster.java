@@ -2,7 +2,7 @@ package io.clustercontroller.multicluster.lifecycle;
 
 import io.clustercontroller.TaskManager;
 import io.clustercontroller.multicluster.lock.ClusterLock;
-import io.etcd.jetcd.Watch;
+import io.clustercontroller.store.WatchHub;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
@@ -17,7 +17,7 @@ public class ManagedCluster {
     private final String clusterId;
     private final TaskManager taskManager;
     private final ClusterLock lock;
-    private final Watch.Watcher lockWatcher;
+    private final WatchHub.Subscription lockWatcher;
     private final ScheduledFuture<?> healthCheckTask;
 }
 
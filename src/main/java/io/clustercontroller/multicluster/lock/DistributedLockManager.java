@@ -1,15 +1,20 @@
 package io.clustercontroller.multicluster.lock;
 
+import io.clustercontroller.config.Constants;
 import io.clustercontroller.store.EtcdPathResolver;
+import io.clustercontroller.store.WatchHub;
 import io.etcd.jetcd.*;
 import io.etcd.jetcd.lock.LockResponse;
+import io.etcd.jetcd.options.LeaseOption;
 import io.etcd.jetcd.support.CloseableClient;
 import io.etcd.jetcd.support.Observers;
 import io.etcd.jetcd.watch.WatchEvent;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -20,6 +25,8 @@ import static java.nio.charset.StandardCharsets.UTF_8;
  * Handles lock acquisition, release, and lease management.
  */
 @Component
+@ConditionalOnProperty(name = Constants.METADATA_STORE_BACKEND_PROPERTY, havingValue = Constants.METADATA_STORE_BACKEND_ETCD,
+        matchIfMissing = true)
 @Slf4j
 public class DistributedLockManager {
     
@@ -27,14 +34,14 @@ public class DistributedLockManager {
     
     private final Lock lockClient;
     private final Lease leaseClient;
-    private final Watch watchClient;
+    private final WatchHub watchHub;
     private final EtcdPathResolver pathResolver;
     
     @Autowired
-    public DistributedLockManager(Client etcdClient, EtcdPathResolver pathResolver) {
+    public DistributedLockManager(Client etcdClient, WatchHub watchHub, EtcdPathResolver pathResolver) {
         this.lockClient = etcdClient.getLockClient();
         this.leaseClient = etcdClient.getLeaseClient();
-        this.watchClient = etcdClient.getWatchClient();
+        this.watchHub = watchHub;
         this.pathResolver = pathResolver;
         
         log.info("DistributedLockManager initialized");
@@ -154,24 +161,51 @@ public class DistributedLockManager {
      * 
      * Primary case: DELETE - lease expired, lock automatically released by etcd
      * Defensive case: PUT - manual intervention or unexpected key modification
+     * Resync (events may have been missed): the lock is lost if its lease is gone
      * 
      * @param lock The lock to watch
      * @param onLockLost Callback to invoke when lock is lost
-     * @return Watcher that can be closed to stop watching
+     * @return Subscription that can be closed to stop watching
      */
-    public Watch.Watcher watchLock(ClusterLock lock, Runnable onLockLost) {
-        return watchClient.watch(lock.getLockKey(), watchResponse -> {
-            for (WatchEvent event : watchResponse.getEvents()) {
-                // DELETE is the expected event when lease expires
-                // PUT is a safety net for unexpected modifications
-                if (event.getEventType() == WatchEvent.EventType.DELETE ||
-                    event.getEventType() == WatchEvent.EventType.PUT) {
-                    log.warn("Lock lost for cluster: {} (event: {})", 
-                        lock.getClusterId(), event.getEventType());
-                    onLockLost.run();
-                    break;
+    public WatchHub.Subscription watchLock(ClusterLock lock, Runnable onLockLost) {
+        return watchHub.subscribeKey("cluster-lock-" + lock.getClusterId(), lock.getLockKey(), new WatchHub.Listener() {
+            @Override
+            public void onEvents(List<WatchEvent> events) {
+                for (WatchEvent event : events) {
+                    // DELETE is the expected event when lease expires
+                    // PUT is a safety net for unexpected modifications
+                    if (event.getEventType() == WatchEvent.EventType.DELETE ||
+                        event.getEventType() == WatchEvent.EventType.PUT) {
+                        log.warn("Lock lost for cluster: {} (event: {})", 
+                            lock.getClusterId(), event.getEventType());
+                        onLockLost.run();
+                        break;
+                    }
                 }
             }
+
+            @Override
+            public void onResync() {
+                checkLease(lock, onLockLost);
+            }
         });
     }
+    
+    /**
+     * Invoke onLockLost unless the lock's lease is still alive. Asynchronous so the watch dispatcher is not blocked.
+     */
+    private void checkLease(ClusterLock lock, Runnable onLockLost) {
+        leaseClient.timeToLive(lock.getLeaseId(), LeaseOption.DEFAULT)
+            .orTimeout(ETCD_OPERATION_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+            .whenComplete((response, error) -> {
+                if (error != null) {
+                    log.warn("Lock lease check failed for cluster: {}, treating lock as lost: {}",
+                        lock.getClusterId(), error.getMessage());
+                    onLockLost.run();
+                } else if (response.getTTl() <= 0) {
+                    log.warn("Lock lease expired for cluster: {} while its watch was resyncing", lock.getClusterId());
+                    onLockLost.run();
+                }
+            });
+    }
 }
@@ -1,12 +1,14 @@
 package io.clustercontroller.multicluster.registry;
 
+import io.clustercontroller.config.Constants;
 import io.clustercontroller.store.EtcdPathResolver;
+import io.clustercontroller.store.WatchHub;
 import io.etcd.jetcd.*;
 import io.etcd.jetcd.kv.GetResponse;
 import io.etcd.jetcd.options.GetOption;
-import io.etcd.jetcd.options.WatchOption;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import java.util.HashSet;
@@ -20,19 +22,21 @@ import static java.nio.charset.StandardCharsets.UTF_8;
  * Manages cluster discovery and monitoring.
  */
 @Component
+@ConditionalOnProperty(name = Constants.METADATA_STORE_BACKEND_PROPERTY, havingValue = Constants.METADATA_STORE_BACKEND_ETCD,
+        matchIfMissing = true)
 @Slf4j
 public class ClusterRegistry {
     
     private static final int ETCD_OPERATION_TIMEOUT_SECONDS = 5;
     
     private final KV kvClient;
-    private final Watch watchClient;
+    private final WatchHub watchHub;
     private final EtcdPathResolver pathResolver;
     
     @Autowired
-    public ClusterRegistry(Client etcdClient, EtcdPathResolver pathResolver) {
+    public ClusterRegistry(Client etcdClient, WatchHub watchHub, EtcdPathResolver pathResolver) {
         this.kvClient = etcdClient.getKVClient();
-        this.watchClient = etcdClient.getWatchClient();
+        this.watchHub = watchHub;
         this.pathResolver = pathResolver;
         
         log.info("ClusterRegistry initialized");
@@ -48,6 +52,7 @@ public class ClusterRegistry {
                 ByteSequence.from(prefix, UTF_8),
                 GetOption.newBuilder()
                     .withPrefix(ByteSequence.from(prefix, UTF_8))
+                    .withKeysOnly(true)
                     .build()
             ).get(ETCD_OPERATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
             
@@ -73,21 +78,15 @@ public class ClusterRegistry {
     }
     
     /**
-     * Watch for cluster membership changes.
-     * Note: Callback should NOT do blocking operations - offload to another thread!
+     * Watch for cluster membership changes, through the shared watch hub.
+     * Also called after a resync, when changes may have been missed.
+     * Note: Callback runs on a shared dispatch thread and should NOT block - offload to another thread!
      */
-    public Watch.Watcher watchClusters(Runnable onClusterChange) {
-        String prefix = pathResolver.getClustersPrefix();
-        return watchClient.watch(
-            ByteSequence.from(prefix, UTF_8),
-            WatchOption.newBuilder()
-                .withPrefix(ByteSequence.from(prefix, UTF_8))
-                .build(),
-            watchResponse -> {
-                log.debug("Cluster membership changed");
-                onClusterChange.run();  // Just notify, don't do blocking work here
-            }
-        );
+    public WatchHub.Subscription watchClusters(Runnable onClusterChange) {
+        return watchHub.onChange("cluster-registry", pathResolver.getClustersPrefix(), () -> {
+            log.debug("Cluster membership changed");
+            onClusterChange.run();  // Just notify, don't do blocking work here
+        });
     }
 }
 
@@ -1,15 +1,17 @@
 package io.clustercontroller.multicluster.registry;
 
+import io.clustercontroller.config.Constants;
 import io.clustercontroller.store.EtcdPathResolver;
+import io.clustercontroller.store.WatchHub;
 import io.etcd.jetcd.*;
 import io.etcd.jetcd.kv.GetResponse;
 import io.etcd.jetcd.options.GetOption;
 import io.etcd.jetcd.options.PutOption;
-import io.etcd.jetcd.options.WatchOption;
 import io.etcd.jetcd.support.CloseableClient;
 import io.etcd.jetcd.support.Observers;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import java.util.HashSet;
@@ -23,6 +25,8 @@ import static java.nio.charset.StandardCharsets.UTF_8;
  * Manages controller registration, heartbeat, and discovery.
  */
 @Component
+@ConditionalOnProperty(name = Constants.METADATA_STORE_BACKEND_PROPERTY, havingValue = Constants.METADATA_STORE_BACKEND_ETCD,
+        matchIfMissing = true)
 @Slf4j
 public class ControllerRegistry {
     
@@ -31,14 +35,14 @@ public class ControllerRegistry {
     
     private final KV kvClient;
     private final Lease leaseClient;
-    private final Watch watchClient;
+    private final WatchHub watchHub;
     private final EtcdPathResolver pathResolver;
     
     @Autowired
-    public ControllerRegistry(Client etcdClient, EtcdPathResolver pathResolver) {
+    public ControllerRegistry(Client etcdClient, WatchHub watchHub, EtcdPathResolver pathResolver) {
         this.kvClient = etcdClient.getKVClient();
         this.leaseClient = etcdClient.getLeaseClient();
-        this.watchClient = etcdClient.getWatchClient();
+        this.watchHub = watchHub;
         this.pathResolver = pathResolver;
         
         log.info("ControllerRegistry initialized");
@@ -125,6 +129,7 @@ public class ControllerRegistry {
                 ByteSequence.from(prefix, UTF_8),
                 GetOption.newBuilder()
                     .withPrefix(ByteSequence.from(prefix, UTF_8))
+                    .withKeysOnly(true)
                     .build()
             ).get(ETCD_OPERATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
             
@@ -150,21 +155,15 @@ public class ControllerRegistry {
     }
     
     /**
-     * Watch for controller membership changes.
-     * Note: Callback should NOT do blocking operations - offload to another thread!
+     * Watch for controller membership changes, through the shared watch hub.
+     * Also called after a resync, when changes may have been missed.
+     * Note: Callback runs on a shared dispatch thread and should NOT block - offload to another thread!
      */
-    public Watch.Watcher watchControllers(Runnable onMembershipChange) {
-        String prefix = pathResolver.getControllersPrefix();
-        return watchClient.watch(
-            ByteSequence.from(prefix, UTF_8),
-            WatchOption.newBuilder()
-                .withPrefix(ByteSequence.from(prefix, UTF_8))
-                .build(),
-            watchResponse -> {
-                log.info("Controller membership changed");
-                onMembershipChange.run();  // Just notify, don't do blocking work here
-            }
-        );
+    public WatchHub.Subscription watchControllers(Runnable onMembershipChange) {
+        return watchHub.onChange("controller-registry", pathResolver.getControllersPrefix(), () -> {
+            log.info("Controller membership changed");
+            onMembershipChange.run();  // Just notify, don't do blocking work here
+        });
     }
 }
 
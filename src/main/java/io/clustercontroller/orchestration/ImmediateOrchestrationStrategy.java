@@ -5,6 +5,8 @@ import io.clustercontroller.models.Index;
 import io.clustercontroller.models.ShardAllocation;
 import io.clustercontroller.models.SearchUnitGoalState;
 import io.clustercontroller.store.MetadataStore;
+import io.clustercontroller.store.VersionConflictException;
+import io.clustercontroller.store.Versioned;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
@@ -19,6 +21,9 @@ import java.util.List;
 @Slf4j
 public class ImmediateOrchestrationStrategy implements GoalStateOrchestrationStrategy {
     
+    // A conflicting write returns the current goal state, so each retry costs a single round trip
+    private static final int MAX_GOAL_STATE_WRITE_ATTEMPTS = 3;
+    
     private final MetadataStore metadataStore;
     
     public ImmediateOrchestrationStrategy(MetadataStore metadataStore) {
@@ -104,32 +109,42 @@ public class ImmediateOrchestrationStrategy implements GoalStateOrchestrationStr
     
     private void updateNodeGoalState(String nodeId, String indexName, String shardId, ShardAllocation planned, String clusterId) throws Exception {
         try {
-            // Get current goal state for the node
-            SearchUnitGoalState currentGoalState = metadataStore.getSearchUnitGoalState(clusterId, nodeId);
+            // Get current goal state for the node, with the revision to make the write conditional on
+            Versioned<SearchUnitGoalState> current = metadataStore.getSearchUnitGoalStateVersioned(clusterId, nodeId);
             
             // Determine role based on whether this node is in IngestSUs or SearchSUs
             String role = planned.getIngestSUs().contains(nodeId) ? NodeRole.PRIMARY.getValue() : NodeRole.REPLICA.getValue();
             
-            // Check if the shard with this role already exists in the goal state
-            // If so, skip the update to avoid unnecessary etcd writes that trigger data node watchers
-            if (currentGoalState != null && currentGoalState.hasShardWithRole(indexName, shardId, role)) {
-                log.debug("Goal state for node {} already has shard {}/{} with role {}, skipping update", 
-                    nodeId, indexName, shardId, role);
-                return;
-            }
-            
-            // If null, create new one
-            if (currentGoalState == null) {
-                currentGoalState = new SearchUnitGoalState();
+            for (int attempt = 1; ; attempt++) {
+                SearchUnitGoalState currentGoalState = current.getValue();
+                
+                // Check if the shard with this role already exists in the goal state
+                // If so, skip the update to avoid unnecessary etcd writes that trigger data node watchers
+                if (currentGoalState != null && currentGoalState.hasShardWithRole(indexName, shardId, role)) {
+                    log.debug("Goal state for node {} already has shard {}/{} with role {}, skipping update", 
+                        nodeId, indexName, shardId, role);
+                    return;
+                }
+                
+                // Update goal state with new shard allocation (a new one if the node has none yet)
+                SearchUnitGoalState newGoalState = updateGoalStateForIndexShard(currentGoalState, indexName, shardId, role);
+                
+                // Set new goal state in etcd, only if nobody changed it since it was read
+                try {
+                    metadataStore.setSearchUnitGoalState(clusterId, nodeId, newGoalState, current.getModRevision());
+                    log.info("Updated goal state for node {} with shard {}/{} role {}", nodeId, indexName, shardId, role);
+                    return;
+                } catch (VersionConflictException e) {
+                    if (attempt >= MAX_GOAL_STATE_WRITE_ATTEMPTS) {
+                        throw e;
+                    }
+                    // Merge into the goal state that won, returned with the conflict
+                    log.debug("Goal state for node {} changed concurrently, retrying on revision {}", 
+                        nodeId, e.getCurrent().getModRevision());
+                    current = e.getCurrent();
+                }
             }
             
-            // Update goal state with new shard allocation
-            SearchUnitGoalState newGoalState = updateGoalStateForIndexShard(currentGoalState, indexName, shardId, role);
-            
-            // Set new goal state in etcd
-            metadataStore.setSearchUnitGoalState(clusterId, nodeId, newGoalState);
-            log.info("Updated goal state for node {} with shard {}/{} role {}", nodeId, indexName, shardId, role);
-            
         } catch (Exception e) {
             log.error("Failed to update goal state for node {}: {}", nodeId, e.getMessage(), e);
             throw e;
@@ -8,7 +8,13 @@ import io.clustercontroller.models.IndexShardProgress;
 import io.clustercontroller.models.ShardAllocation;
 import io.clustercontroller.models.SearchUnitActualState;
 import io.clustercontroller.models.SearchUnitGoalState;
+import io.clustercontroller.store.AsyncMetadataStore;
 import io.clustercontroller.store.MetadataStore;
+import io.clustercontroller.store.SnapshotMetadataStore;
+import io.clustercontroller.store.WriteBatch;
+import io.clustercontroller.store.WriteBatchResult;
+import io.clustercontroller.store.WriteOperation;
+import io.clustercontroller.tracing.PassTracer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
@@ -16,6 +22,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static io.clustercontroller.metrics.MetricsConstants.ROLLING_UPDATE_PROGRESS_PERCENTAGE_METRIC_NAME;
 import static io.clustercontroller.metrics.MetricsConstants.ROLLING_UPDATE_TRANSIT_NODES_PERCENTAGE_METRIC_NAME;
@@ -42,8 +49,13 @@ public class RollingUpdateOrchestrationStrategy implements GoalStateOrchestratio
         log.info("Starting rolling update orchestration for cluster: {}", clusterId);
         
         try {
+            // Read the whole pass from one snapshot revision (plus the pass's own writes)
+            MetadataStore store = SnapshotMetadataStore.forPass(metadataStore, clusterId);
+            
             // PHASE 1: Cleanup stale goal states (instant deletion, no orchestration)
-            cleanupStaleGoalStates(clusterId);
+            try (PassTracer.Span span = PassTracer.span(PassTracer.KIND_PHASE, "cleanup-stale-goal-states")) {
+                cleanupStaleGoalStates(store, clusterId);
+            }
             
             // PHASE 2: Orchestrate new goal states (rolling update)
             // Batch all goal state updates per node to minimize etcd writes
@@ -51,42 +63,46 @@ public class RollingUpdateOrchestrationStrategy implements GoalStateOrchestratio
             Map<String, SearchUnitGoalState> pendingGoalStateUpdates = new HashMap<>();
             
             // Get all index configs to iterate over indexes and shards
-            List<Index> indexConfigs = metadataStore.getAllIndexConfigs(clusterId);
+            List<Index> indexConfigs = store.getAllIndexConfigs(clusterId);
             
             // Outer loop: Iterate over indexes
             for (Index indexConfig : indexConfigs) {
                 String indexName = indexConfig.getIndexName();
-                int numberOfShards = indexConfig.getSettings().getNumberOfShards();
+                try (PassTracer.Span indexSpan = PassTracer.span(PassTracer.KIND_INDEX, indexName)) {
+                    int numberOfShards = indexConfig.getSettings().getNumberOfShards();
                 
-                log.debug("Processing index: {} with {} shards", indexName, numberOfShards);
+                    log.debug("Processing index: {} with {} shards", indexName, numberOfShards);
                 
-                // Inner loop: Iterate over shards
-                for (int shardIndex = 0; shardIndex < numberOfShards; shardIndex++) {
-                    String shardId = String.valueOf(shardIndex);
+                    // Inner loop: Iterate over shards
+                    for (int shardIndex = 0; shardIndex < numberOfShards; shardIndex++) {
+                        String shardId = String.valueOf(shardIndex);
                     
-                    try {
-                        log.debug("Processing shard: {}/{}", indexName, shardId);
+                        try (PassTracer.Span shardSpan = PassTracer.span(PassTracer.KIND_SHARD, shardId)) {
+                            log.debug("Processing shard: {}/{}", indexName, shardId);
                         
-                        // Get planned allocation for this specific index-shard
-                        ShardAllocation planned = metadataStore.getPlannedAllocation(clusterId, indexName, shardId);
+                            // Get planned allocation for this specific index-shard
+                            ShardAllocation planned = store.getPlannedAllocation(clusterId, indexName, shardId);
                         
-                        if (planned == null) {
-                            log.debug("No planned allocation found for shard {}/{}", indexName, shardId);
-                            continue;
-                        }
+                            if (planned == null) {
+                                log.debug("No planned allocation found for shard {}/{}", indexName, shardId);
+                                continue;
+                            }
                         
-                        // Process this index-shard with rolling update logic
-                        orchestrateIndexShard(indexName, shardId, planned, clusterId, pendingGoalStateUpdates);
+                            // Process this index-shard with rolling update logic
+                            orchestrateIndexShard(store, indexName, shardId, planned, clusterId, pendingGoalStateUpdates);
                         
-                    } catch (Exception e) {
-                        log.error("Failed to orchestrate shard {}/{}: {}", indexName, shardId, e.getMessage(), e);
-                        // TODO: Add alert/notification system for orchestration failures
+                        } catch (Exception e) {
+                            log.error("Failed to orchestrate shard {}/{}: {}", indexName, shardId, e.getMessage(), e);
+                            // TODO: Add alert/notification system for orchestration failures
+                        }
                     }
                 }
             }
             
             // PHASE 3: Flush all pending goal state updates to etcd (one write per node)
-            flushPendingGoalStates(clusterId, pendingGoalStateUpdates);
+            try (PassTracer.Span span = PassTracer.span(PassTracer.KIND_PHASE, "flush-goal-states")) {
+                flushPendingGoalStates(store, clusterId, pendingGoalStateUpdates);
+            }
             
             // Cleanup stale gauges for deleted indices/shards
             metricsProvider.cleanupStaleGauges();
@@ -97,20 +113,20 @@ public class RollingUpdateOrchestrationStrategy implements GoalStateOrchestratio
         }
     }
     
-    private void orchestrateIndexShard(String indexName, String shardId, ShardAllocation planned, String clusterId,
+    private void orchestrateIndexShard(MetadataStore store, String indexName, String shardId, ShardAllocation planned, String clusterId,
                                         Map<String, SearchUnitGoalState> pendingGoalStateUpdates) {
         // Process IngestSUs (Primary nodes) separately
         List<String> ingestSUs = planned.getIngestSUs();
         if (!ingestSUs.isEmpty()) {
             log.debug("Processing {} IngestSUs (primary nodes) for shard {}/{}", ingestSUs.size(), indexName, shardId);
-            orchestrateNodeGroup(indexName, shardId, ingestSUs, NodeRole.PRIMARY, planned, clusterId, pendingGoalStateUpdates);
+            orchestrateNodeGroup(store, indexName, shardId, ingestSUs, NodeRole.PRIMARY, planned, clusterId, pendingGoalStateUpdates);
         }
         
         // Process SearchSUs (Replica nodes) separately
         List<String> searchSUs = planned.getSearchSUs();
         if (!searchSUs.isEmpty()) {
             log.debug("Processing {} SearchSUs (replica nodes) for shard {}/{}", searchSUs.size(), indexName, shardId);
-            orchestrateNodeGroup(indexName, shardId, searchSUs, NodeRole.REPLICA, planned, clusterId, pendingGoalStateUpdates);
+            orchestrateNodeGroup(store, indexName, shardId, searchSUs, NodeRole.REPLICA, planned, clusterId, pendingGoalStateUpdates);
         }
         
         if (ingestSUs.isEmpty() && searchSUs.isEmpty()) {
@@ -118,13 +134,13 @@ public class RollingUpdateOrchestrationStrategy implements GoalStateOrchestratio
         }
     }
     
-    private void orchestrateNodeGroup(String indexName, String shardId, List<String> nodeGroup, NodeRole role, 
+    private void orchestrateNodeGroup(MetadataStore store, String indexName, String shardId, List<String> nodeGroup, NodeRole role, 
                                        ShardAllocation planned, String clusterId,
                                        Map<String, SearchUnitGoalState> pendingGoalStateUpdates) {
         String indexShard = indexName + "/" + shardId;
         
         // Check current progress for this node group
-        IndexShardProgress progress = getIndexShardProgress(indexShard, nodeGroup, clusterId);
+        IndexShardProgress progress = getIndexShardProgress(store, indexShard, nodeGroup, clusterId);
         int successfulUpdates = 0;
         
         // Calculate how many nodes can be updated (20% of this group)
@@ -146,7 +162,7 @@ public class RollingUpdateOrchestrationStrategy implements GoalStateOrchestratio
             
             for (String nodeId : nextBatch) {
                 try {
-                    queueNodeGoalStateUpdate(nodeId, indexName, shardId, planned, clusterId, pendingGoalStateUpdates);
+                    queueNodeGoalStateUpdate(store, nodeId, indexName, shardId, planned, clusterId, pendingGoalStateUpdates);
                     successfulUpdates++;
                     log.debug("Queued update for {} node {} with shard {}/{}", role, nodeId, indexName, shardId);
                 } catch (Exception e) {
@@ -170,7 +186,7 @@ public class RollingUpdateOrchestrationStrategy implements GoalStateOrchestratio
         );
     }
     
-    private IndexShardProgress getIndexShardProgress(String indexShard, List<String> allNodes, String clusterId) {
+    private IndexShardProgress getIndexShardProgress(MetadataStore store, String indexShard, List<String> allNodes, String clusterId) {
         int goalStateUpdatedCount = 0;
         int actualStateConvergedCount = 0;
         List<String> updatedNodes = new ArrayList<>();
@@ -178,12 +194,12 @@ public class RollingUpdateOrchestrationStrategy implements GoalStateOrchestratio
         for (String nodeId : allNodes) {
             try {
                 // Check if goal state is updated
-                if (hasGoalStateUpdated(nodeId, indexShard, clusterId)) {
+                if (hasGoalStateUpdated(store, nodeId, indexShard, clusterId)) {
                     goalStateUpdatedCount++;
                     updatedNodes.add(nodeId);
                     
                     // Check if actual state has converged
-                    if (hasActualStateConverged(nodeId, indexShard, clusterId)) {
+                    if (hasActualStateConverged(store, nodeId, indexShard, clusterId)) {
                         actualStateConvergedCount++;
                     }
                 }
@@ -195,9 +211,9 @@ public class RollingUpdateOrchestrationStrategy implements GoalStateOrchestratio
         return new IndexShardProgress(indexShard, goalStateUpdatedCount, actualStateConvergedCount, allNodes.size(), updatedNodes);
     }
     
-    private boolean hasGoalStateUpdated(String nodeId, String indexShard, String clusterId) {
+    private boolean hasGoalStateUpdated(MetadataStore store, String nodeId, String indexShard, String clusterId) {
         try {
-            SearchUnitGoalState goalState = metadataStore.getSearchUnitGoalState(clusterId, nodeId);
+            SearchUnitGoalState goalState = store.getSearchUnitGoalState(clusterId, nodeId);
             if (goalState == null) {
                 return false;
             }
@@ -214,9 +230,9 @@ public class RollingUpdateOrchestrationStrategy implements GoalStateOrchestratio
         }
     }
     
-    private boolean hasActualStateConverged(String nodeId, String indexShard, String clusterId) {
+    private boolean hasActualStateConverged(MetadataStore store, String nodeId, String indexShard, String clusterId) {
         try {
-            SearchUnitActualState actualState = metadataStore.getSearchUnitActualState(clusterId, nodeId);
+            SearchUnitActualState actualState = store.getSearchUnitActualState(clusterId, nodeId);
             if (actualState == null) {
                 return false;
             }
@@ -254,7 +270,7 @@ public class RollingUpdateOrchestrationStrategy implements GoalStateOrchestratio
      * accumulates the change in pendingGoalStateUpdates map to be flushed later.
      * This batches all shard assignments per node into a single etcd write.
      */
-    private void queueNodeGoalStateUpdate(String nodeId, String indexName, String shardId, ShardAllocation planned, 
+    private void queueNodeGoalStateUpdate(MetadataStore store, String nodeId, String indexName, String shardId, ShardAllocation planned, 
                                           String clusterId, Map<String, SearchUnitGoalState> pendingGoalStateUpdates) throws Exception {
         try {
             // Determine role based on whether this node is in IngestSUs or SearchSUs
@@ -264,7 +280,7 @@ public class RollingUpdateOrchestrationStrategy implements GoalStateOrchestratio
             SearchUnitGoalState pendingState = pendingGoalStateUpdates.computeIfAbsent(nodeId, k -> {
                 try {
                     // Start with current state from etcd (or empty if none exists)
-                    SearchUnitGoalState current = metadataStore.getSearchUnitGoalState(clusterId, nodeId);
+                    SearchUnitGoalState current = store.getSearchUnitGoalState(clusterId, nodeId);
                     if (current != null) {
                         // Create a copy to avoid modifying the cached version
                         SearchUnitGoalState copy = new SearchUnitGoalState();
@@ -300,21 +316,22 @@ public class RollingUpdateOrchestrationStrategy implements GoalStateOrchestratio
     }
     
     /**
-     * Flush all pending goal state updates to etcd. Each node gets exactly one write
+     * Flush all pending goal state updates to etcd in one write batch. Each node gets exactly one write
      * containing all accumulated shard assignments. Compares with current state to
      * skip writes if unchanged.
      * 
+     * @param store the pass-scoped metadata store
      * @param clusterId the cluster ID
      * @param pendingGoalStateUpdates map of nodeId -> accumulated goal state
      */
-    private void flushPendingGoalStates(String clusterId, Map<String, SearchUnitGoalState> pendingGoalStateUpdates) {
+    private void flushPendingGoalStates(MetadataStore store, String clusterId, Map<String, SearchUnitGoalState> pendingGoalStateUpdates) {
         if (pendingGoalStateUpdates.isEmpty()) {
             log.debug("No pending goal state updates to flush");
             return;
         }
         
         log.info("Flushing {} pending goal state updates to etcd", pendingGoalStateUpdates.size());
-        int successCount = 0;
+        WriteBatch batch = store.newWriteBatch();
         int skipCount = 0;
         
         for (Map.Entry<String, SearchUnitGoalState> entry : pendingGoalStateUpdates.entrySet()) {
@@ -323,7 +340,7 @@ public class RollingUpdateOrchestrationStrategy implements GoalStateOrchestratio
             
             try {
                 // Read current state from etcd to compare - skip write if unchanged
-                SearchUnitGoalState currentState = metadataStore.getSearchUnitGoalState(clusterId, nodeId);
+                SearchUnitGoalState currentState = store.getSearchUnitGoalState(clusterId, nodeId);
                 
                 if (currentState != null && currentState.equals(newGoalState)) {
                     log.debug("Goal state unchanged for node {}, skipping write", nodeId);
@@ -331,21 +348,35 @@ public class RollingUpdateOrchestrationStrategy implements GoalStateOrchestratio
                     continue;
                 }
                 
-                // Write the accumulated goal state in one etcd PUT
-                metadataStore.setSearchUnitGoalState(clusterId, nodeId, newGoalState);
-                successCount++;
-                
-                int shardCount = newGoalState.getLocalShards().values().stream()
-                    .mapToInt(Map::size)
-                    .sum();
-                log.info("Flushed goal state for node {} ({} total shards)", nodeId, shardCount);
+                batch.setSearchUnitGoalState(clusterId, nodeId, newGoalState);
                 
             } catch (Exception e) {
                 log.error("Failed to flush goal state for node {}: {}", nodeId, e.getMessage(), e);
             }
         }
         
-        log.info("Goal state flush complete: {} written, {} skipped (unchanged)", successCount, skipCount);
+        int successCount = 0;
+        int failedCount = 0;
+        try {
+            // All changed goal states go out together, chunked into as few transactions as possible
+            WriteBatchResult result = batch.commit();
+            successCount = result.count(WriteBatchResult.Status.APPLIED);
+            failedCount = batch.size() - successCount;
+            for (WriteOperation operation : result.getOperations(WriteBatchResult.Status.APPLIED)) {
+                int shardCount = pendingGoalStateUpdates.get(operation.getName()).getLocalShards().values().stream()
+                    .mapToInt(Map::size)
+                    .sum();
+                log.info("Flushed goal state for node {} ({} total shards)", operation.getName(), shardCount);
+            }
+            for (WriteOperation operation : result.getOperations(WriteBatchResult.Status.FAILED)) {
+                log.error("Failed to flush goal state for node {}", operation.getName());
+            }
+        } catch (Exception e) {
+            failedCount = batch.size();
+            log.error("Failed to flush goal states for cluster {}: {}", clusterId, e.getMessage(), e);
+        }
+        
+        log.info("Goal state flush complete: {} written, {} failed, {} skipped (unchanged)", successCount, failedCount, skipCount);
     }
     
     /**
@@ -358,26 +389,42 @@ public class RollingUpdateOrchestrationStrategy implements GoalStateOrchestratio
      *    - Verify if this node is still in the planned allocation
      *    - If NOT, remove it immediately
      * 
+     * @param store the pass-scoped metadata store
      * @param clusterId the cluster ID to clean up
      */
-    private void cleanupStaleGoalStates(String clusterId) {
+    private void cleanupStaleGoalStates(MetadataStore store, String clusterId) {
         log.info("Starting goal state cleanup phase for cluster: {}", clusterId);
         
         try {
             // Get ALL nodes that have goal states (including decommissioned nodes without conf files)
             // This ensures we clean up orphaned goal states from deleted/decommissioned nodes
-            List<String> allNodeNames = metadataStore.getAllNodesWithGoalStates(clusterId);
+            List<String> allNodeNames = store.getAllNodesWithGoalStates(clusterId);
             
+            // Fetch every node's goal state concurrently; the store bounds how many are in flight per cluster
+            AsyncMetadataStore asyncStore = AsyncMetadataStore.of(store);
+            Map<String, CompletableFuture<SearchUnitGoalState>> pendingGoalStates = new HashMap<>();
+            for (String nodeName : allNodeNames) {
+                pendingGoalStates.put(nodeName, asyncStore.getSearchUnitGoalState(clusterId, nodeName));
+            }
+            
+            WriteBatch batch = store.newWriteBatch();
             int totalCleaned = 0;
             for (String nodeName : allNodeNames) {
                 try {
-                    int cleaned = cleanupNodeGoalState(clusterId, nodeName);
+                    SearchUnitGoalState goalState = AsyncMetadataStore.await(pendingGoalStates.get(nodeName));
+                    int cleaned = cleanupNodeGoalState(store, batch, clusterId, nodeName, goalState);
                     totalCleaned += cleaned;
                 } catch (Exception e) {
                     log.error("Failed to cleanup goal state for node {}: {}", nodeName, e.getMessage(), e);
                 }
             }
             
+            // Commit before orchestration so the rollout phase reads the cleaned goal states
+            WriteBatchResult result = batch.commit();
+            for (WriteOperation operation : result.getOperations(WriteBatchResult.Status.FAILED)) {
+                log.error("Failed to cleanup goal state for node {}", operation.getName());
+            }
+            
             if (totalCleaned > 0) {
                 log.info("Cleanup phase completed: removed {} stale goal state entries", totalCleaned);
             } else {
@@ -390,16 +437,17 @@ public class RollingUpdateOrchestrationStrategy implements GoalStateOrchestratio
     }
     
     /**
-     * Cleanup goal state for a single node
+     * Cleanup goal state for a single node, adding the updated goal state to the cleanup batch
      * 
+     * @param store the pass-scoped metadata store
+     * @param batch the cleanup write batch
      * @param clusterId the cluster ID
      * @param nodeId the node ID to clean up
+     * @param goalState the node's current goal state
      * @return number of index/shard entries removed
      */
-    private int cleanupNodeGoalState(String clusterId, String nodeId) throws Exception {
-        // Get current goal state for the node
-        SearchUnitGoalState goalState = metadataStore.getSearchUnitGoalState(clusterId, nodeId);
-        
+    private int cleanupNodeGoalState(MetadataStore store, WriteBatch batch, String clusterId, String nodeId,
+                                     SearchUnitGoalState goalState) throws Exception {
         if (goalState == null || goalState.getLocalShards().isEmpty()) {
             return 0; // No goal state to clean up
         }
@@ -419,7 +467,7 @@ public class RollingUpdateOrchestrationStrategy implements GoalStateOrchestratio
                 String role = shardEntry.getValue();
                 
                 // Check if this node is still in the planned allocation for this index/shard
-                ShardAllocation planned = metadataStore.getPlannedAllocation(clusterId, indexName, shardId);
+                ShardAllocation planned = store.getPlannedAllocation(clusterId, indexName, shardId);
                 
                 if (planned == null) {
                     // No planned allocation exists - remove from goal state
@@ -458,8 +506,8 @@ public class RollingUpdateOrchestrationStrategy implements GoalStateOrchestratio
         if (removedCount > 0) {
             SearchUnitGoalState updatedGoalState = new SearchUnitGoalState();
             updatedGoalState.setLocalShards(shardsToKeep);
-            metadataStore.setSearchUnitGoalState(clusterId, nodeId, updatedGoalState);
-            log.debug("Updated goal state for node {} after cleanup: {} index/shard entries removed", 
+            batch.setSearchUnitGoalState(clusterId, nodeId, updatedGoalState);
+            log.debug("Queued goal state update for node {} after cleanup: {} index/shard entries removed", 
                     nodeId, removedCount);
         }
         
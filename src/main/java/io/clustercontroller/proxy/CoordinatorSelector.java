@@ -21,7 +21,8 @@ public class CoordinatorSelector {
     private final AtomicInteger roundRobinCounter;
 
     public CoordinatorSelector(MetadataStore metadataStore) {
-        this.metadataStore = metadataStore;
+        // Coordinator lookup only reads, so it need not go through the etcd leader
+        this.metadataStore = MetadataStore.serializableReads(metadataStore);
         this.roundRobinCounter = new AtomicInteger(0);
     }
 
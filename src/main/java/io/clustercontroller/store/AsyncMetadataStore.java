@@ -0,0 +1,230 @@
+package io.clustercontroller.store;
+
+import io.clustercontroller.models.Alias;
+import io.clustercontroller.models.ClusterControllerAssignment;
+import io.clustercontroller.models.ClusterInformation;
+import io.clustercontroller.models.CoordinatorGoalState;
+import io.clustercontroller.models.Index;
+import io.clustercontroller.models.IndexSettings;
+import io.clustercontroller.models.SearchUnit;
+import io.clustercontroller.models.SearchUnitActualState;
+import io.clustercontroller.models.SearchUnitGoalState;
+import io.clustercontroller.models.ShardAllocation;
+import io.clustercontroller.models.TaskMetadata;
+import io.clustercontroller.models.Template;
+import io.clustercontroller.models.TypeMapping;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Non-blocking counterpart of {@link MetadataStore}: every cluster metadata operation returns a
+ * CompletableFuture, so callers can issue many reads or writes at once instead of one round trip at a time.
+ * Failures complete the future exceptionally with the same exception the blocking call would throw.
+ */
+public interface AsyncMetadataStore {
+
+    /**
+     * Non-blocking view of a store: its native one if it has it, otherwise an adapter
+     * that runs each call inline on the caller's thread.
+     */
+    static AsyncMetadataStore of(MetadataStore store) {
+        AsyncMetadataStore async = store.async();
+        return async != null ? async : new BlockingAsyncMetadataStore(store);
+    }
+
+    /**
+     * Wait for a future and rethrow its failure as the original exception rather than an ExecutionException.
+     */
+    static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw asException(e.getCause());
+        }
+    }
+
+    /**
+     * Strip CompletionException / ExecutionException wrappers added by future composition.
+     */
+    static Throwable unwrap(Throwable t) {
+        while ((t instanceof CompletionException || t instanceof ExecutionException) && t.getCause() != null) {
+            t = t.getCause();
+        }
+        return t;
+    }
+
+    private static Exception asException(Throwable t) {
+        Throwable cause = unwrap(t);
+        if (cause instanceof Exception e) {
+            return e;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new Exception(cause);
+    }
+
+    // =================================================================
+    // CONTROLLER TASKS OPERATIONS
+    // =================================================================
+
+    CompletableFuture<List<TaskMetadata>> getAllTasks(String clusterId);
+
+    CompletableFuture<Optional<TaskMetadata>> getTask(String clusterId, String taskName);
+
+    CompletableFuture<Versioned<TaskMetadata>> getTaskVersioned(String clusterId, String taskName);
+
+    CompletableFuture<String> createTask(String clusterId, TaskMetadata task);
+
+    CompletableFuture<Void> updateTask(String clusterId, TaskMetadata task);
+
+    /**
+     * Conditional task write; completes exceptionally with {@link VersionConflictException} on a stale revision
+     */
+    CompletableFuture<Versioned<TaskMetadata>> updateTask(String clusterId, TaskMetadata task, long expectedRevision);
+
+    CompletableFuture<Void> deleteTask(String clusterId, String taskName);
+
+    CompletableFuture<Integer> deleteOldTasks(String clusterId, long olderThanTimestamp, boolean archive);
+
+    // =================================================================
+    // SEARCH UNITS OPERATIONS
+    // =================================================================
+
+    CompletableFuture<List<SearchUnit>> getAllSearchUnits(String clusterId);
+
+    CompletableFuture<Optional<SearchUnit>> getSearchUnit(String clusterId, String unitName);
+
+    CompletableFuture<Void> upsertSearchUnit(String clusterId, String unitName, SearchUnit searchUnit);
+
+    CompletableFuture<Void> updateSearchUnit(String clusterId, SearchUnit searchUnit);
+
+    CompletableFuture<Void> deleteSearchUnit(String clusterId, String unitName);
+
+    // =================================================================
+    // SEARCH UNIT STATE OPERATIONS
+    // =================================================================
+
+    CompletableFuture<Map<String, SearchUnitActualState>> getAllSearchUnitActualStates(String clusterId);
+
+    CompletableFuture<SearchUnitGoalState> getSearchUnitGoalState(String clusterId, String unitName);
+
+    CompletableFuture<Versioned<SearchUnitGoalState>> getSearchUnitGoalStateVersioned(String clusterId, String unitName);
+
+    CompletableFuture<List<String>> getAllNodesWithGoalStates(String clusterId);
+
+    CompletableFuture<SearchUnitActualState> getSearchUnitActualState(String clusterId, String unitName);
+
+    CompletableFuture<Void> setSearchUnitGoalState(String clusterId, String unitName, SearchUnitGoalState goalState);
+
+    /**
+     * Conditional goal-state write; completes exceptionally with {@link VersionConflictException} on a stale revision
+     */
+    CompletableFuture<Versioned<SearchUnitGoalState>> setSearchUnitGoalState(String clusterId, String unitName,
+                                                                             SearchUnitGoalState goalState, long expectedRevision);
+
+    CompletableFuture<Void> setSearchUnitActualState(String clusterId, String unitName, SearchUnitActualState actualState);
+
+    CompletableFuture<List<SearchUnit>> getAllCoordinators(String clusterId);
+
+    // =================================================================
+    // INDEX CONFIGURATIONS OPERATIONS
+    // =================================================================
+
+    CompletableFuture<List<Index>> getAllIndexConfigs(String clusterId);
+
+    CompletableFuture<Optional<String>> getIndexConfig(String clusterId, String indexName);
+
+    CompletableFuture<String> createIndexConfig(String clusterId, String indexName, String indexConfig);
+
+    CompletableFuture<Void> updateIndexConfig(String clusterId, String indexName, String indexConfig);
+
+    CompletableFuture<Void> deleteIndexConfig(String clusterId, String indexName);
+
+    CompletableFuture<Void> setIndexMappings(String clusterId, String indexName, String mappings);
+
+    CompletableFuture<IndexSettings> getIndexSettings(String clusterId, String indexName);
+
+    CompletableFuture<Void> setIndexSettings(String clusterId, String indexName, String settings);
+
+    CompletableFuture<TypeMapping> getIndexMappings(String clusterId, String indexName);
+
+    CompletableFuture<Void> deletePrefix(String clusterId, String prefix);
+
+    // =================================================================
+    // TEMPLATE OPERATIONS
+    // =================================================================
+
+    /**
+     * Completes exceptionally with IllegalArgumentException if the template does not exist
+     */
+    CompletableFuture<Template> getTemplate(String clusterId, String templateName);
+
+    CompletableFuture<String> createTemplate(String clusterId, String templateName, String templateConfig);
+
+    CompletableFuture<Void> updateTemplate(String clusterId, String templateName, String templateConfig);
+
+    CompletableFuture<Void> deleteTemplate(String clusterId, String templateName);
+
+    CompletableFuture<List<Template>> getAllTemplates(String clusterId);
+
+    // =================================================================
+    // SHARD ALLOCATION OPERATIONS
+    // =================================================================
+
+    CompletableFuture<ShardAllocation> getPlannedAllocation(String clusterId, String indexName, String shardId);
+
+    CompletableFuture<Void> setPlannedAllocation(String clusterId, String indexName, String shardId, ShardAllocation allocation);
+
+    CompletableFuture<ShardAllocation> getActualAllocation(String clusterId, String indexName, String shardId);
+
+    CompletableFuture<Void> setActualAllocation(String clusterId, String indexName, String shardId, ShardAllocation allocation);
+
+    CompletableFuture<List<ShardAllocation>> getAllActualAllocations(String clusterId, String indexName);
+
+    CompletableFuture<Void> deleteActualAllocation(String clusterId, String indexName, String shardId);
+
+    CompletableFuture<Set<String>> getAllIndicesWithActualAllocations(String clusterId);
+
+    // =================================================================
+    // ALIAS CONFIGURATION OPERATIONS
+    // =================================================================
+
+    CompletableFuture<Alias> getAlias(String clusterId, String aliasName);
+
+    CompletableFuture<Void> setAlias(String clusterId, String aliasName, Alias alias);
+
+    CompletableFuture<Void> deleteAlias(String clusterId, String aliasName);
+
+    CompletableFuture<List<Alias>> getAllAliases(String clusterId);
+
+    // =================================================================
+    // CLUSTER SNAPSHOT OPERATIONS
+    // =================================================================
+
+    CompletableFuture<ClusterSnapshot> loadClusterSnapshot(String clusterId);
+
+    // =================================================================
+    // INDEX READINESS OPERATIONS
+    // =================================================================
+
+    CompletableFuture<Boolean> isIndexReady(String clusterId, String indexName);
+
+    // =================================================================
+    // CLUSTER OPERATIONS
+    // =================================================================
+
+    CompletableFuture<ClusterControllerAssignment> getAssignedController(String clusterId);
+
+    CompletableFuture<Void> setCoordinatorGoalState(String clusterId, CoordinatorGoalState goalState);
+
+    CompletableFuture<CoordinatorGoalState> getCoordinatorGoalState(String clusterId);
+
+    CompletableFuture<ClusterInformation.Version> getClusterVersion(String clusterId);
+}
@@ -0,0 +1,366 @@
+package io.clustercontroller.store;
+
+import io.clustercontroller.models.Alias;
+import io.clustercontroller.models.ClusterControllerAssignment;
+import io.clustercontroller.models.ClusterInformation;
+import io.clustercontroller.models.CoordinatorGoalState;
+import io.clustercontroller.models.Index;
+import io.clustercontroller.models.IndexSettings;
+import io.clustercontroller.models.SearchUnit;
+import io.clustercontroller.models.SearchUnitActualState;
+import io.clustercontroller.models.SearchUnitGoalState;
+import io.clustercontroller.models.ShardAllocation;
+import io.clustercontroller.models.TaskMetadata;
+import io.clustercontroller.models.Template;
+import io.clustercontroller.models.TypeMapping;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * AsyncMetadataStore over a store without a native non-blocking API (in-memory views, test doubles):
+ * each call runs inline and returns an already completed future.
+ */
+class BlockingAsyncMetadataStore implements AsyncMetadataStore {
+
+    private final MetadataStore store;
+
+    BlockingAsyncMetadataStore(MetadataStore store) {
+        this.store = store;
+    }
+
+    @FunctionalInterface
+    private interface BlockingCall {
+        void run() throws Exception;
+    }
+
+    private static <T> CompletableFuture<T> call(Callable<T> call) {
+        try {
+            return CompletableFuture.completedFuture(call.call());
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static CompletableFuture<Void> run(BlockingCall call) {
+        return call(() -> {
+            call.run();
+            return null;
+        });
+    }
+
+    // =================================================================
+    // CONTROLLER TASKS OPERATIONS
+    // =================================================================
+
+    @Override
+    public CompletableFuture<List<TaskMetadata>> getAllTasks(String clusterId) {
+        return call(() -> store.getAllTasks(clusterId));
+    }
+
+    @Override
+    public CompletableFuture<Optional<TaskMetadata>> getTask(String clusterId, String taskName) {
+        return call(() -> store.getTask(clusterId, taskName));
+    }
+
+    @Override
+    public CompletableFuture<Versioned<TaskMetadata>> getTaskVersioned(String clusterId, String taskName) {
+        return call(() -> store.getTaskVersioned(clusterId, taskName));
+    }
+
+    @Override
+    public CompletableFuture<String> createTask(String clusterId, TaskMetadata task) {
+        return call(() -> store.createTask(clusterId, task));
+    }
+
+    @Override
+    public CompletableFuture<Void> updateTask(String clusterId, TaskMetadata task) {
+        return run(() -> store.updateTask(clusterId, task));
+    }
+
+    @Override
+    public CompletableFuture<Versioned<TaskMetadata>> updateTask(String clusterId, TaskMetadata task, long expectedRevision) {
+        return call(() -> store.updateTask(clusterId, task, expectedRevision));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteTask(String clusterId, String taskName) {
+        return run(() -> store.deleteTask(clusterId, taskName));
+    }
+
+    @Override
+    public CompletableFuture<Integer> deleteOldTasks(String clusterId, long olderThanTimestamp, boolean archive) {
+        return call(() -> store.deleteOldTasks(clusterId, olderThanTimestamp, archive));
+    }
+
+    // =================================================================
+    // SEARCH UNITS OPERATIONS
+    // =================================================================
+
+    @Override
+    public CompletableFuture<List<SearchUnit>> getAllSearchUnits(String clusterId) {
+        return call(() -> store.getAllSearchUnits(clusterId));
+    }
+
+    @Override
+    public CompletableFuture<Optional<SearchUnit>> getSearchUnit(String clusterId, String unitName) {
+        return call(() -> store.getSearchUnit(clusterId, unitName));
+    }
+
+    @Override
+    public CompletableFuture<Void> upsertSearchUnit(String clusterId, String unitName, SearchUnit searchUnit) {
+        return run(() -> store.upsertSearchUnit(clusterId, unitName, searchUnit));
+    }
+
+    @Override
+    public CompletableFuture<Void> updateSearchUnit(String clusterId, SearchUnit searchUnit) {
+        return run(() -> store.updateSearchUnit(clusterId, searchUnit));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteSearchUnit(String clusterId, String unitName) {
+        return run(() -> store.deleteSearchUnit(clusterId, unitName));
+    }
+
+    // =================================================================
+    // SEARCH UNIT STATE OPERATIONS
+    // =================================================================
+
+    @Override
+    public CompletableFuture<Map<String, SearchUnitActualState>> getAllSearchUnitActualStates(String clusterId) {
+        return call(() -> store.getAllSearchUnitActualStates(clusterId));
+    }
+
+    @Override
+    public CompletableFuture<SearchUnitGoalState> getSearchUnitGoalState(String clusterId, String unitName) {
+        return call(() -> store.getSearchUnitGoalState(clusterId, unitName));
+    }
+
+    @Override
+    public CompletableFuture<Versioned<SearchUnitGoalState>> getSearchUnitGoalStateVersioned(String clusterId, String unitName) {
+        return call(() -> store.getSearchUnitGoalStateVersioned(clusterId, unitName));
+    }
+
+    @Override
+    public CompletableFuture<List<String>> getAllNodesWithGoalStates(String clusterId) {
+        return call(() -> store.getAllNodesWithGoalStates(clusterId));
+    }
+
+    @Override
+    public CompletableFuture<SearchUnitActualState> getSearchUnitActualState(String clusterId, String unitName) {
+        return call(() -> store.getSearchUnitActualState(clusterId, unitName));
+    }
+
+    @Override
+    public CompletableFuture<Void> setSearchUnitGoalState(String clusterId, String unitName, SearchUnitGoalState goalState) {
+        return run(() -> store.setSearchUnitGoalState(clusterId, unitName, goalState));
+    }
+
+    @Override
+    public CompletableFuture<Versioned<SearchUnitGoalState>> setSearchUnitGoalState(String clusterId, String unitName,
+                                                                                    SearchUnitGoalState goalState, long expectedRevision) {
+        return call(() -> store.setSearchUnitGoalState(clusterId, unitName, goalState, expectedRevision));
+    }
+
+    @Override
+    public CompletableFuture<Void> setSearchUnitActualState(String clusterId, String unitName, SearchUnitActualState actualState) {
+        return run(() -> store.setSearchUnitActualState(clusterId, unitName, actualState));
+    }
+
+    @Override
+    public CompletableFuture<List<SearchUnit>> getAllCoordinators(String clusterId) {
+        return call(() -> store.getAllCoordinators(clusterId));
+    }
+
+    // =================================================================
+    // INDEX CONFIGURATIONS OPERATIONS
+    // =================================================================
+
+    @Override
+    public CompletableFuture<List<Index>> getAllIndexConfigs(String clusterId) {
+        return call(() -> store.getAllIndexConfigs(clusterId));
+    }
+
+    @Override
+    public CompletableFuture<Optional<String>> getIndexConfig(String clusterId, String indexName) {
+        return call(() -> store.getIndexConfig(clusterId, indexName));
+    }
+
+    @Override
+    public CompletableFuture<String> createIndexConfig(String clusterId, String indexName, String indexConfig) {
+        return call(() -> store.createIndexConfig(clusterId, indexName, indexConfig));
+    }
+
+    @Override
+    public CompletableFuture<Void> updateIndexConfig(String clusterId, String indexName, String indexConfig) {
+        return run(() -> store.updateIndexConfig(clusterId, indexName, indexConfig));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteIndexConfig(String clusterId, String indexName) {
+        return run(() -> store.deleteIndexConfig(clusterId, indexName));
+    }
+
+    @Override
+    public CompletableFuture<Void> setIndexMappings(String clusterId, String indexName, String mappings) {
+        return run(() -> store.setIndexMappings(clusterId, indexName, mappings));
+    }
+
+    @Override
+    public CompletableFuture<IndexSettings> getIndexSettings(String clusterId, String indexName) {
+        return call(() -> store.getIndexSettings(clusterId, indexName));
+    }
+
+    @Override
+    public CompletableFuture<Void> setIndexSettings(String clusterId, String indexName, String settings) {
+        return run(() -> store.setIndexSettings(clusterId, indexName, settings));
+    }
+
+    @Override
+    public CompletableFuture<TypeMapping> getIndexMappings(String clusterId, String indexName) {
+        return call(() -> store.getIndexMappings(clusterId, indexName));
+    }
+
+    @Override
+    public CompletableFuture<Void> deletePrefix(String clusterId, String prefix) {
+        return run(() -> store.deletePrefix(clusterId, prefix));
+    }
+
+    // =================================================================
+    // TEMPLATE OPERATIONS
+    // =================================================================
+
+    @Override
+    public CompletableFuture<Template> getTemplate(String clusterId, String templateName) {
+        return call(() -> store.getTemplate(clusterId, templateName));
+    }
+
+    @Override
+    public CompletableFuture<String> createTemplate(String clusterId, String templateName, String templateConfig) {
+        return call(() -> store.createTemplate(clusterId, templateName, templateConfig));
+    }
+
+    @Override
+    public CompletableFuture<Void> updateTemplate(String clusterId, String templateName, String templateConfig) {
+        return run(() -> store.updateTemplate(clusterId, templateName, templateConfig));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteTemplate(String clusterId, String templateName) {
+        return run(() -> store.deleteTemplate(clusterId, templateName));
+    }
+
+    @Override
+    public CompletableFuture<List<Template>> getAllTemplates(String clusterId) {
+        return call(() -> store.getAllTemplates(clusterId));
+    }
+
+    // =================================================================
+    // SHARD ALLOCATION OPERATIONS
+    // =================================================================
+
+    @Override
+    public CompletableFuture<ShardAllocation> getPlannedAllocation(String clusterId, String indexName, String shardId) {
+        return call(() -> store.getPlannedAllocation(clusterId, indexName, shardId));
+    }
+
+    @Override
+    public CompletableFuture<Void> setPlannedAllocation(String clusterId, String indexName, String shardId, ShardAllocation allocation) {
+        return run(() -> store.setPlannedAllocation(clusterId, indexName, shardId, allocation));
+    }
+
+    @Override
+    public CompletableFuture<ShardAllocation> getActualAllocation(String clusterId, String indexName, String shardId) {
+        return call(() -> store.getActualAllocation(clusterId, indexName, shardId));
+    }
+
+    @Override
+    public CompletableFuture<Void> setActualAllocation(String clusterId, String indexName, String shardId, ShardAllocation allocation) {
+        return run(() -> store.setActualAllocation(clusterId, indexName, shardId, allocation));
+    }
+
+    @Override
+    public CompletableFuture<List<ShardAllocation>> getAllActualAllocations(String clusterId, String indexName) {
+        return call(() -> store.getAllActualAllocations(clusterId, indexName));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteActualAllocation(String clusterId, String indexName, String shardId) {
+        return run(() -> store.deleteActualAllocation(clusterId, indexName, shardId));
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> getAllIndicesWithActualAllocations(String clusterId) {
+        return call(() -> store.getAllIndicesWithActualAllocations(clusterId));
+    }
+
+    // =================================================================
+    // ALIAS CONFIGURATION OPERATIONS
+    // =================================================================
+
+    @Override
+    public CompletableFuture<Alias> getAlias(String clusterId, String aliasName) {
+        return call(() -> store.getAlias(clusterId, aliasName));
+    }
+
+    @Override
+    public CompletableFuture<Void> setAlias(String clusterId, String aliasName, Alias alias) {
+        return run(() -> store.setAlias(clusterId, aliasName, alias));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAlias(String clusterId, String aliasName) {
+        return run(() -> store.deleteAlias(clusterId, aliasName));
+    }
+
+    @Override
+    public CompletableFuture<List<Alias>> getAllAliases(String clusterId) {
+        return call(() -> store.getAllAliases(clusterId));
+    }
+
+    // =================================================================
+    // CLUSTER SNAPSHOT OPERATIONS
+    // =================================================================
+
+    @Override
+    public CompletableFuture<ClusterSnapshot> loadClusterSnapshot(String clusterId) {
+        return call(() -> store.loadClusterSnapshot(clusterId));
+    }
+
+    // =================================================================
+    // INDEX READINESS OPERATIONS
+    // =================================================================
+
+    @Override
+    public CompletableFuture<Boolean> isIndexReady(String clusterId, String indexName) {
+        return call(() -> store.isIndexReady(clusterId, indexName));
+    }
+
+    // =================================================================
+    // CLUSTER OPERATIONS
+    // =================================================================
+
+    @Override
+    public CompletableFuture<ClusterControllerAssignment> getAssignedController(String clusterId) {
+        return call(() -> store.getAssignedController(clusterId));
+    }
+
+    @Override
+    public CompletableFuture<Void> setCoordinatorGoalState(String clusterId, CoordinatorGoalState goalState) {
+        return run(() -> store.setCoordinatorGoalState(clusterId, goalState));
+    }
+
+    @Override
+    public CompletableFuture<CoordinatorGoalState> getCoordinatorGoalState(String clusterId) {
+        return call(() -> store.getCoordinatorGoalState(clusterId));
+    }
+
+    @Override
+    public CompletableFuture<ClusterInformation.Version> getClusterVersion(String clusterId) {
+        return call(() -> store.getClusterVersion(clusterId));
+    }
+}
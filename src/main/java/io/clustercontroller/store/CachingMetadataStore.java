@@ -0,0 +1,839 @@
+package io.clustercontroller.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.clustercontroller.metrics.MetricsProvider;
+import io.clustercontroller.metrics.MetricsUtils;
+import io.clustercontroller.models.Alias;
+import io.clustercontroller.models.ClusterControllerAssignment;
+import io.clustercontroller.models.ClusterInformation;
+import io.clustercontroller.models.CoordinatorGoalState;
+import io.clustercontroller.models.Index;
+import io.clustercontroller.models.IndexSettings;
+import io.clustercontroller.models.SearchUnit;
+import io.clustercontroller.models.SearchUnitActualState;
+import io.clustercontroller.models.SearchUnitGoalState;
+import io.clustercontroller.models.ShardAllocation;
+import io.clustercontroller.models.TaskMetadata;
+import io.clustercontroller.models.Template;
+import io.clustercontroller.models.TypeMapping;
+import io.etcd.jetcd.Client;
+import io.etcd.jetcd.KV;
+import io.etcd.jetcd.KeyValue;
+import io.etcd.jetcd.Watch;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static io.clustercontroller.config.Constants.DEFAULT_ETCD_SCAN_TIMEOUT_MS;
+import static io.clustercontroller.config.Constants.PATH_DELIMITER;
+import static io.clustercontroller.config.Constants.SUFFIX_ACTUAL_ALLOCATION;
+import static io.clustercontroller.config.Constants.SUFFIX_ACTUAL_STATE;
+import static io.clustercontroller.config.Constants.SUFFIX_CONF;
+import static io.clustercontroller.config.Constants.SUFFIX_GOAL_STATE;
+import static io.clustercontroller.metrics.MetricsConstants.METADATA_CACHE_KEYS_METRIC_NAME;
+import static io.clustercontroller.metrics.MetricsConstants.METADATA_CACHE_LAG_MS_METRIC_NAME;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Caching MetadataStore decorator backed by a watch-maintained view of each cluster's keyspace.
+ * Reads of a managed cluster are served from memory once its keyspace is loaded; reads of other clusters,
+ * and any read touching a key with a write not yet observed by the watch, go to the delegate.
+ * All writes go to the delegate; keys are marked dirty before the write is issued so the watch
+ * event for the write can never be missed. A failed write simply leaves its key dirty until the settle timeout.
+ */
+@Slf4j
+public class CachingMetadataStore implements MetadataStore {
+
+    private static final long CACHE_METRICS_INTERVAL_SECONDS = 10L;
+
+    private final MetadataStore delegate;
+    private final KV kvClient;
+    private final Watch watchClient;
+    private final EtcdPathResolver pathResolver;
+    private final MetricsProvider metricsProvider;
+    private final long readYourWritesTimeoutMs;
+    // Timeout of each page request while loading a cluster's keyspace
+    private volatile long scanTimeoutMs = DEFAULT_ETCD_SCAN_TIMEOUT_MS;
+    private final ObjectMapper objectMapper;
+    // Must match the delegate's state codec so written actual and goal states can be matched against watch events
+    private volatile ValueCodec stateCodec;
+    // Cached key-values are already in memory; this only routes decoding through the codec
+    private volatile DecodeCache decodeCache;
+    // Only clusters this controller manages, from manageCluster until releaseCluster
+    private final ConcurrentMap<String, ClusterKeyspaceCache> caches = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService metricsPublisher;
+    // Completed and failed tasks by modRevision, skipped without decoding when listing tasks from the cache
+    private final TerminalTasks terminalTasks = new TerminalTasks();
+
+    public CachingMetadataStore(MetadataStore delegate, Client etcdClient, EtcdPathResolver pathResolver,
+                                MetricsProvider metricsProvider, long readYourWritesTimeoutMs) {
+        this.delegate = delegate;
+        this.kvClient = etcdClient.getKVClient();
+        this.watchClient = etcdClient.getWatchClient();
+        this.pathResolver = pathResolver;
+        this.metricsProvider = metricsProvider;
+        this.readYourWritesTimeoutMs = readYourWritesTimeoutMs;
+        // Must serialize exactly like EtcdMetadataStore so written values can be matched against watch events
+        this.objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        setStateValueCodec(JacksonValueCodec.json(objectMapper));
+        this.metricsPublisher = metricsProvider != null ? startMetricsPublisher() : null;
+        log.info("CachingMetadataStore initialized (read-your-writes timeout: {}ms)", readYourWritesTimeoutMs);
+    }
+
+    /**
+     * Set the codec the delegate writes actual and goal states with.
+     */
+    public void setStateValueCodec(ValueCodec stateCodec) {
+        this.stateCodec = stateCodec;
+        this.decodeCache = new DecodeCache(stateCodec, 0);
+    }
+
+    /**
+     * Set the timeout of each page request while loading a cluster's keyspace.
+     */
+    public void setScanTimeoutMs(long scanTimeoutMs) {
+        this.scanTimeoutMs = scanTimeoutMs;
+    }
+
+    /**
+     * Get the ready cache for a cluster, or null when reads must go to the delegate (e.g. the cluster is not managed).
+     */
+    private ClusterKeyspaceCache readyCache(String clusterId, String keyOrPrefix) {
+        ClusterKeyspaceCache cache = caches.get(clusterId);
+        if (cache == null || !cache.ensureReady() || cache.isDirty(keyOrPrefix)) {
+            return null;
+        }
+        return cache;
+    }
+
+    /**
+     * Publish each cache's lag and size on a timer rather than per read, so the lag keeps moving while no reads arrive.
+     */
+    private ScheduledExecutorService startMetricsPublisher() {
+        ScheduledExecutorService publisher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r);
+            t.setName("metadata-cache-metrics-" + t.threadId());
+            t.setDaemon(true);
+            return t;
+        });
+        publisher.scheduleWithFixedDelay(this::publishCacheMetrics, CACHE_METRICS_INTERVAL_SECONDS,
+                CACHE_METRICS_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        return publisher;
+    }
+
+    void publishCacheMetrics() {
+        caches.forEach((clusterId, cache) -> {
+            try {
+                metricsProvider.gauge(METADATA_CACHE_LAG_MS_METRIC_NAME, cache.getLagMs(), MetricsUtils.buildClusterMetricsTags(clusterId));
+                metricsProvider.gauge(METADATA_CACHE_KEYS_METRIC_NAME, cache.size(), MetricsUtils.buildClusterMetricsTags(clusterId));
+            } catch (Exception e) {
+                log.debug("Failed to publish metadata cache metrics for cluster '{}': {}", clusterId, e.getMessage());
+            }
+        });
+    }
+
+    private void markPut(String clusterId, String key, String json) {
+        markPut(clusterId, key, json.getBytes(UTF_8));
+    }
+
+    private void markPut(String clusterId, String key, byte[] value) {
+        ClusterKeyspaceCache cache = caches.get(clusterId);
+        if (cache != null) {
+            cache.markPut(key, value);
+        }
+    }
+
+    private void markPut(String clusterId, String key, Object value) throws Exception {
+        markPut(clusterId, key, objectMapper.writeValueAsString(value));
+    }
+
+    private void markWritten(String clusterId, String key) {
+        ClusterKeyspaceCache cache = caches.get(clusterId);
+        if (cache != null) {
+            cache.markPut(key, null);
+        }
+    }
+
+    private void markDelete(String clusterId, String keyOrPrefix) {
+        ClusterKeyspaceCache cache = caches.get(clusterId);
+        if (cache != null) {
+            cache.markDelete(keyOrPrefix);
+        }
+    }
+
+    private static String asPrefix(String path) {
+        return path.endsWith(PATH_DELIMITER) ? path : path + PATH_DELIMITER;
+    }
+
+    private <T> T decode(KeyValue kv, Class<T> clazz) throws Exception {
+        return decodeCache.decode(kv, clazz);
+    }
+
+    /**
+     * Locate the path segments below a prefix, e.g. "unit-1" and "actual-state" in "/c/search-unit/unit-1/actual-state".
+     */
+    private static EtcdKeyBuilder.KeySegments relativeSegments(KeyValue kv, String prefix) {
+        return EtcdKeyBuilder.segments(kv.getKey().toString(UTF_8), prefix);
+    }
+
+    /**
+     * Cache the keyspace of a cluster this controller manages; it is loaded and watched on the first read.
+     */
+    @Override
+    public void manageCluster(String clusterId) {
+        caches.computeIfAbsent(clusterId,
+                id -> new ClusterKeyspaceCache(id, kvClient, watchClient, readYourWritesTimeoutMs, scanTimeoutMs));
+        delegate.manageCluster(clusterId);
+    }
+
+    /**
+     * Release the cached keyspace and watch for a cluster this controller no longer manages.
+     */
+    @Override
+    public void releaseCluster(String clusterId) {
+        ClusterKeyspaceCache cache = caches.remove(clusterId);
+        if (cache != null) {
+            cache.close();
+            log.info("Released metadata cache for cluster '{}'", clusterId);
+        }
+        terminalTasks.releaseCluster(clusterId);
+        delegate.releaseCluster(clusterId);
+    }
+
+    @Override
+    public StoreStats stats() {
+        return delegate.stats();
+    }
+
+    @Override
+    public PassDeadline startPassDeadline(String clusterId) {
+        return delegate.startPassDeadline(clusterId);
+    }
+
+    // =================================================================
+    // CONTROLLER TASKS OPERATIONS
+    // =================================================================
+
+    @Override
+    public List<TaskMetadata> getAllTasks(String clusterId) throws Exception {
+        String prefix = asPrefix(pathResolver.getControllerTasksPrefix(clusterId));
+        ClusterKeyspaceCache cache = readyCache(clusterId, prefix);
+        if (cache == null) {
+            return delegate.getAllTasks(clusterId);
+        }
+        List<TaskMetadata> tasks = new ArrayList<>();
+        Set<String> terminalKeys = new HashSet<>();
+        for (KeyValue kv : cache.scan(prefix)) {
+            String key = kv.getKey().toString(UTF_8);
+            if (terminalTasks.isKnownTerminal(clusterId, key, kv.getModRevision())) {
+                terminalKeys.add(key);
+                continue;
+            }
+            TaskMetadata task = decode(kv, TaskMetadata.class);
+            if (TerminalTasks.isTerminal(task)) {
+                terminalTasks.remember(clusterId, key, kv.getModRevision());
+                terminalKeys.add(key);
+            } else {
+                task.setCreateRevision(kv.getCreateRevision());
+                tasks.add(task);
+            }
+        }
+        terminalTasks.retain(clusterId, terminalKeys);
+        tasks.sort((t1, t2) -> Integer.compare(t1.getPriority(), t2.getPriority()));
+        return tasks;
+    }
+
+    @Override
+    public Optional<TaskMetadata> getTask(String clusterId, String taskName) throws Exception {
+        String key = pathResolver.getControllerTaskPath(clusterId, taskName);
+        ClusterKeyspaceCache cache = readyCache(clusterId, key);
+        if (cache == null) {
+            return delegate.getTask(clusterId, taskName);
+        }
+        KeyValue kv = cache.get(key);
+        return kv == null ? Optional.empty() : Optional.of(decode(kv, TaskMetadata.class));
+    }
+
+    @Override
+    public Versioned<TaskMetadata> getTaskVersioned(String clusterId, String taskName) throws Exception {
+        String key = pathResolver.getControllerTaskPath(clusterId, taskName);
+        ClusterKeyspaceCache cache = readyCache(clusterId, key);
+        if (cache == null) {
+            return delegate.getTaskVersioned(clusterId, taskName);
+        }
+        KeyValue kv = cache.get(key);
+        return kv == null ? Versioned.absent() : Versioned.of(decode(kv, TaskMetadata.class), kv.getModRevision());
+    }
+
+    @Override
+    public String createTask(String clusterId, TaskMetadata task) throws Exception {
+        markPut(clusterId, pathResolver.getControllerTaskPath(clusterId, task.getName()), task);
+        return delegate.createTask(clusterId, task);
+    }
+
+    @Override
+    public void updateTask(String clusterId, TaskMetadata task) throws Exception {
+        markPut(clusterId, pathResolver.getControllerTaskPath(clusterId, task.getName()), task);
+        delegate.updateTask(clusterId, task);
+    }
+
+    @Override
+    public Versioned<TaskMetadata> updateTask(String clusterId, TaskMetadata task, long expectedRevision) throws Exception {
+        markPut(clusterId, pathResolver.getControllerTaskPath(clusterId, task.getName()), task);
+        return delegate.updateTask(clusterId, task, expectedRevision);
+    }
+
+    @Override
+    public void deleteTask(String clusterId, String taskName) throws Exception {
+        markDelete(clusterId, pathResolver.getControllerTaskPath(clusterId, taskName));
+        delegate.deleteTask(clusterId, taskName);
+    }
+
+    @Override
+    public int deleteOldTasks(String clusterId, long olderThanTimestamp, boolean archive) throws Exception {
+        return delegate.deleteOldTasks(clusterId, olderThanTimestamp, archive);
+    }
+
+    @Override
+    public boolean claimTask(String clusterId, String taskName, String owner, long leaseId) throws Exception {
+        return delegate.claimTask(clusterId, taskName, owner, leaseId);
+    }
+
+    @Override
+    public void releaseTaskClaim(String clusterId, String taskName) throws Exception {
+        delegate.releaseTaskClaim(clusterId, taskName);
+    }
+
+    @Override
+    public boolean isTaskClaimed(String clusterId, String taskName) throws Exception {
+        return delegate.isTaskClaimed(clusterId, taskName);
+    }
+
+    // =================================================================
+    // SEARCH UNITS OPERATIONS
+    // =================================================================
+
+    @Override
+    public List<SearchUnit> getAllSearchUnits(String clusterId) throws Exception {
+        String prefix = asPrefix(pathResolver.getSearchUnitsPrefix(clusterId));
+        ClusterKeyspaceCache cache = readyCache(clusterId, prefix);
+        if (cache == null) {
+            return delegate.getAllSearchUnits(clusterId);
+        }
+        List<SearchUnit> searchUnits = new ArrayList<>();
+        for (KeyValue kv : cache.scan(prefix)) {
+            if (kv.getKey().toString(UTF_8).endsWith(PATH_DELIMITER + SUFFIX_CONF)) {
+                try {
+                    searchUnits.add(decode(kv, SearchUnit.class));
+                } catch (Exception parseException) {
+                    log.warn("Failed to parse cached search unit config at key {}: {}", kv.getKey().toString(UTF_8), parseException.getMessage());
+                }
+            }
+        }
+        return searchUnits;
+    }
+
+    @Override
+    public Optional<SearchUnit> getSearchUnit(String clusterId, String unitName) throws Exception {
+        String key = pathResolver.getSearchUnitConfPath(clusterId, unitName);
+        ClusterKeyspaceCache cache = readyCache(clusterId, key);
+        if (cache == null) {
+            return delegate.getSearchUnit(clusterId, unitName);
+        }
+        KeyValue kv = cache.get(key);
+        return kv == null ? Optional.empty() : Optional.of(decode(kv, SearchUnit.class));
+    }
+
+    @Override
+    public void upsertSearchUnit(String clusterId, String unitName, SearchUnit searchUnit) throws Exception {
+        markPut(clusterId, pathResolver.getSearchUnitConfPath(clusterId, unitName), searchUnit);
+        delegate.upsertSearchUnit(clusterId, unitName, searchUnit);
+    }
+
+    @Override
+    public void updateSearchUnit(String clusterId, SearchUnit searchUnit) throws Exception {
+        markPut(clusterId, pathResolver.getSearchUnitConfPath(clusterId, searchUnit.getName()), searchUnit);
+        delegate.updateSearchUnit(clusterId, searchUnit);
+    }
+
+    @Override
+    public void deleteSearchUnit(String clusterId, String unitName) throws Exception {
+        markDelete(clusterId, asPrefix(pathResolver.getSearchUnitsPrefix(clusterId) + PATH_DELIMITER + unitName));
+        delegate.deleteSearchUnit(clusterId, unitName);
+    }
+
+    // =================================================================
+    // SEARCH UNIT STATE OPERATIONS
+    // =================================================================
+
+    @Override
+    public Map<String, SearchUnitActualState> getAllSearchUnitActualStates(String clusterId) throws Exception {
+        String prefix = asPrefix(pathResolver.getSearchUnitsPrefix(clusterId));
+        ClusterKeyspaceCache cache = readyCache(clusterId, prefix);
+        if (cache == null) {
+            return delegate.getAllSearchUnitActualStates(clusterId);
+        }
+        Map<String, SearchUnitActualState> actualStates = new HashMap<>();
+        for (KeyValue kv : cache.scan(prefix)) {
+            EtcdKeyBuilder.KeySegments parts = relativeSegments(kv, prefix);
+            if (parts.size() >= 2 && parts.is(1, SUFFIX_ACTUAL_STATE)) {
+                String unitName = parts.get(0);
+                try {
+                    actualStates.put(unitName, decode(kv, SearchUnitActualState.class));
+                } catch (Exception e) {
+                    log.warn("Failed to parse cached actual state for unit {}: {}", unitName, e.getMessage());
+                }
+            }
+        }
+        return actualStates;
+    }
+
+    @Override
+    public SearchUnitGoalState getSearchUnitGoalState(String clusterId, String unitName) throws Exception {
+        String key = pathResolver.getSearchUnitGoalStatePath(clusterId, unitName);
+        ClusterKeyspaceCache cache = readyCache(clusterId, key);
+        if (cache == null) {
+            return delegate.getSearchUnitGoalState(clusterId, unitName);
+        }
+        KeyValue kv = cache.get(key);
+        return kv == null ? null : decode(kv, SearchUnitGoalState.class);
+    }
+
+    @Override
+    public Versioned<SearchUnitGoalState> getSearchUnitGoalStateVersioned(String clusterId, String unitName) throws Exception {
+        String key = pathResolver.getSearchUnitGoalStatePath(clusterId, unitName);
+        ClusterKeyspaceCache cache = readyCache(clusterId, key);
+        if (cache == null) {
+            return delegate.getSearchUnitGoalStateVersioned(clusterId, unitName);
+        }
+        // Watch events carry each key's modRevision, so the cached revision is as good as a fresh read
+        KeyValue kv = cache.get(key);
+        return kv == null ? Versioned.absent() : Versioned.of(decode(kv, SearchUnitGoalState.class), kv.getModRevision());
+    }
+
+    @Override
+    public List<String> getAllNodesWithGoalStates(String clusterId) throws Exception {
+        String prefix = asPrefix(pathResolver.getSearchUnitsPrefix(clusterId));
+        ClusterKeyspaceCache cache = readyCache(clusterId, prefix);
+        if (cache == null) {
+            return delegate.getAllNodesWithGoalStates(clusterId);
+        }
+        List<String> nodeNames = new ArrayList<>();
+        for (KeyValue kv : cache.scan(prefix)) {
+            EtcdKeyBuilder.KeySegments parts = relativeSegments(kv, prefix);
+            if (parts.size() >= 2 && parts.is(1, SUFFIX_GOAL_STATE)) {
+                nodeNames.add(parts.get(0));
+            }
+        }
+        return nodeNames;
+    }
+
+    @Override
+    public SearchUnitActualState getSearchUnitActualState(String clusterId, String unitName) throws Exception {
+        String key = pathResolver.getSearchUnitActualStatePath(clusterId, unitName);
+        ClusterKeyspaceCache cache = readyCache(clusterId, key);
+        if (cache == null) {
+            return delegate.getSearchUnitActualState(clusterId, unitName);
+        }
+        KeyValue kv = cache.get(key);
+        return kv == null ? null : decode(kv, SearchUnitActualState.class);
+    }
+
+    @Override
+    public void setSearchUnitGoalState(String clusterId, String unitName, SearchUnitGoalState goalState) throws Exception {
+        markPut(clusterId, pathResolver.getSearchUnitGoalStatePath(clusterId, unitName), stateCodec.encode(goalState));
+        delegate.setSearchUnitGoalState(clusterId, unitName, goalState);
+    }
+
+    @Override
+    public Versioned<SearchUnitGoalState> setSearchUnitGoalState(String clusterId, String unitName, SearchUnitGoalState goalState,
+                                                                 long expectedRevision) throws Exception {
+        markPut(clusterId, pathResolver.getSearchUnitGoalStatePath(clusterId, unitName), stateCodec.encode(goalState));
+        return delegate.setSearchUnitGoalState(clusterId, unitName, goalState, expectedRevision);
+    }
+
+    @Override
+    public void setSearchUnitActualState(String clusterId, String unitName, SearchUnitActualState actualState) throws Exception {
+        markPut(clusterId, pathResolver.getSearchUnitActualStatePath(clusterId, unitName), stateCodec.encode(actualState));
+        delegate.setSearchUnitActualState(clusterId, unitName, actualState);
+    }
+
+    @Override
+    public List<SearchUnit> getAllCoordinators(String clusterId) throws Exception {
+        return delegate.getAllCoordinators(clusterId);
+    }
+
+    // =================================================================
+    // INDEX CONFIGURATIONS OPERATIONS
+    // =================================================================
+
+    @Override
+    public List<Index> getAllIndexConfigs(String clusterId) throws Exception {
+        String prefix = asPrefix(pathResolver.getIndicesPrefix(clusterId));
+        ClusterKeyspaceCache cache = readyCache(clusterId, prefix);
+        if (cache == null) {
+            return delegate.getAllIndexConfigs(clusterId);
+        }
+        List<Index> indexConfigs = new ArrayList<>();
+        for (KeyValue kv : cache.scan(prefix)) {
+            if (kv.getKey().toString(UTF_8).endsWith(PATH_DELIMITER + SUFFIX_CONF)) {
+                try {
+                    indexConfigs.add(decode(kv, Index.class));
+                } catch (Exception parseException) {
+                    log.warn("Failed to parse cached index config at key {}: {}", kv.getKey().toString(UTF_8), parseException.getMessage());
+                }
+            }
+        }
+        return indexConfigs;
+    }
+
+    @Override
+    public Optional<String> getIndexConfig(String clusterId, String indexName) throws Exception {
+        String key = pathResolver.getIndexConfPath(clusterId, indexName);
+        ClusterKeyspaceCache cache = readyCache(clusterId, key);
+        if (cache == null) {
+            return delegate.getIndexConfig(clusterId, indexName);
+        }
+        KeyValue kv = cache.get(key);
+        return kv == null ? Optional.empty() : Optional.of(kv.getValue().toString(UTF_8));
+    }
+
+    @Override
+    public String createIndexConfig(String clusterId, String indexName, String indexConfig) throws Exception {
+        markPut(clusterId, pathResolver.getIndexConfPath(clusterId, indexName), indexConfig);
+        return delegate.createIndexConfig(clusterId, indexName, indexConfig);
+    }
+
+    @Override
+    public void updateIndexConfig(String clusterId, String indexName, String indexConfig) throws Exception {
+        markPut(clusterId, pathResolver.getIndexConfPath(clusterId, indexName), indexConfig);
+        delegate.updateIndexConfig(clusterId, indexName, indexConfig);
+    }
+
+    @Override
+    public void deleteIndexConfig(String clusterId, String indexName) throws Exception {
+        markDelete(clusterId, pathResolver.getIndexConfPath(clusterId, indexName));
+        delegate.deleteIndexConfig(clusterId, indexName);
+    }
+
+    @Override
+    public void setIndexMappings(String clusterId, String indexName, String mappings) throws Exception {
+        markPut(clusterId, pathResolver.getIndexMappingsPath(clusterId, indexName), mappings);
+        delegate.setIndexMappings(clusterId, indexName, mappings);
+    }
+
+    @Override
+    public IndexSettings getIndexSettings(String clusterId, String indexName) throws Exception {
+        return delegate.getIndexSettings(clusterId, indexName);
+    }
+
+    @Override
+    public void setIndexSettings(String clusterId, String indexName, String settings) throws Exception {
+        // Stored value is re-wrapped by the delegate, so settle on any put rather than matching bytes
+        markWritten(clusterId, pathResolver.getIndexSettingsPath(clusterId, indexName));
+        delegate.setIndexSettings(clusterId, indexName, settings);
+    }
+
+    @Override
+    public TypeMapping getIndexMappings(String clusterId, String indexName) throws Exception {
+        return delegate.getIndexMappings(clusterId, indexName);
+    }
+
+    @Override
+    public void deletePrefix(String clusterId, String prefix) throws Exception {
+        markDelete(clusterId, asPrefix(prefix));
+        delegate.deletePrefix(clusterId, prefix);
+    }
+
+    // =================================================================
+    // TEMPLATE OPERATIONS
+    // =================================================================
+
+    @Override
+    public Template getTemplate(String clusterId, String templateName) throws Exception {
+        String key = pathResolver.getTemplateConfPath(clusterId, templateName);
+        ClusterKeyspaceCache cache = readyCache(clusterId, key);
+        if (cache == null) {
+            return delegate.getTemplate(clusterId, templateName);
+        }
+        KeyValue kv = cache.get(key);
+        if (kv == null) {
+            throw new IllegalArgumentException("Template '" + templateName + "' not found");
+        }
+        return decode(kv, Template.class);
+    }
+
+    @Override
+    public String createTemplate(String clusterId, String templateName, String templateConfig) throws Exception {
+        markPut(clusterId, pathResolver.getTemplateConfPath(clusterId, templateName), templateConfig);
+        return delegate.createTemplate(clusterId, templateName, templateConfig);
+    }
+
+    @Override
+    public void updateTemplate(String clusterId, String templateName, String templateConfig) throws Exception {
+        markPut(clusterId, pathResolver.getTemplateConfPath(clusterId, templateName), templateConfig);
+        delegate.updateTemplate(clusterId, templateName, templateConfig);
+    }
+
+    @Override
+    public void deleteTemplate(String clusterId, String templateName) throws Exception {
+        markDelete(clusterId, pathResolver.getTemplateConfPath(clusterId, templateName));
+        delegate.deleteTemplate(clusterId, templateName);
+    }
+
+    @Override
+    public List<Template> getAllTemplates(String clusterId) throws Exception {
+        String prefix = asPrefix(pathResolver.getTemplatesPrefix(clusterId));
+        ClusterKeyspaceCache cache = readyCache(clusterId, prefix);
+        if (cache == null) {
+            return delegate.getAllTemplates(clusterId);
+        }
+        List<Template> templates = new ArrayList<>();
+        for (KeyValue kv : cache.scan(prefix)) {
+            if (kv.getKey().toString(UTF_8).endsWith(PATH_DELIMITER + SUFFIX_CONF)) {
+                try {
+                    templates.add(decode(kv, Template.class));
+                } catch (Exception parseException) {
+                    log.warn("Failed to parse cached template at key {}, skipping", kv.getKey().toString(UTF_8));
+                }
+            }
+        }
+        return templates;
+    }
+
+    // =================================================================
+    // SHARD ALLOCATION OPERATIONS
+    // =================================================================
+
+    @Override
+    public ShardAllocation getPlannedAllocation(String clusterId, String indexName, String shardId) throws Exception {
+        String key = pathResolver.getShardPlannedAllocationPath(clusterId, indexName, shardId);
+        ClusterKeyspaceCache cache = readyCache(clusterId, key);
+        if (cache == null) {
+            return delegate.getPlannedAllocation(clusterId, indexName, shardId);
+        }
+        KeyValue kv = cache.get(key);
+        return kv == null ? null : decode(kv, ShardAllocation.class);
+    }
+
+    @Override
+    public void setPlannedAllocation(String clusterId, String indexName, String shardId, ShardAllocation allocation) throws Exception {
+        markPut(clusterId, pathResolver.getShardPlannedAllocationPath(clusterId, indexName, shardId), allocation);
+        delegate.setPlannedAllocation(clusterId, indexName, shardId, allocation);
+    }
+
+    @Override
+    public ShardAllocation getActualAllocation(String clusterId, String indexName, String shardId) throws Exception {
+        String key = pathResolver.getShardActualAllocationPath(clusterId, indexName, shardId);
+        ClusterKeyspaceCache cache = readyCache(clusterId, key);
+        if (cache == null) {
+            return delegate.getActualAllocation(clusterId, indexName, shardId);
+        }
+        KeyValue kv = cache.get(key);
+        return kv == null ? null : decode(kv, ShardAllocation.class);
+    }
+
+    @Override
+    public void setActualAllocation(String clusterId, String indexName, String shardId, ShardAllocation allocation) throws Exception {
+        markPut(clusterId, pathResolver.getShardActualAllocationPath(clusterId, indexName, shardId), allocation);
+        delegate.setActualAllocation(clusterId, indexName, shardId, allocation);
+    }
+
+    @Override
+    public List<ShardAllocation> getAllActualAllocations(String clusterId, String indexName) throws Exception {
+        String prefix = asPrefix(pathResolver.getIndexPrefix(clusterId, indexName));
+        ClusterKeyspaceCache cache = readyCache(clusterId, prefix);
+        if (cache == null) {
+            return delegate.getAllActualAllocations(clusterId, indexName);
+        }
+        List<ShardAllocation> allocations = new ArrayList<>();
+        for (KeyValue kv : cache.scan(prefix)) {
+            if (kv.getKey().toString(UTF_8).endsWith(PATH_DELIMITER + SUFFIX_ACTUAL_ALLOCATION)) {
+                allocations.add(decode(kv, ShardAllocation.class));
+            }
+        }
+        return allocations;
+    }
+
+    @Override
+    public void deleteActualAllocation(String clusterId, String indexName, String shardId) throws Exception {
+        markDelete(clusterId, pathResolver.getShardActualAllocationPath(clusterId, indexName, shardId));
+        delegate.deleteActualAllocation(clusterId, indexName, shardId);
+    }
+
+    @Override
+    public Set<String> getAllIndicesWithActualAllocations(String clusterId) throws Exception {
+        String prefix = asPrefix(pathResolver.getIndicesPrefix(clusterId));
+        ClusterKeyspaceCache cache = readyCache(clusterId, prefix);
+        if (cache == null) {
+            return delegate.getAllIndicesWithActualAllocations(clusterId);
+        }
+        Set<String> indices = new HashSet<>();
+        for (KeyValue kv : cache.scan(prefix)) {
+            EtcdKeyBuilder.KeySegments parts = relativeSegments(kv, prefix);
+            if (parts.size() >= 3 && parts.is(2, SUFFIX_ACTUAL_ALLOCATION)) {
+                indices.add(parts.get(0));
+            }
+        }
+        return indices;
+    }
+
+    // =================================================================
+    // ALIAS CONFIGURATION OPERATIONS
+    // =================================================================
+
+    @Override
+    public Alias getAlias(String clusterId, String aliasName) throws Exception {
+        String key = pathResolver.getAliasConfPath(clusterId, aliasName);
+        ClusterKeyspaceCache cache = readyCache(clusterId, key);
+        if (cache == null) {
+            return delegate.getAlias(clusterId, aliasName);
+        }
+        KeyValue kv = cache.get(key);
+        return kv == null ? null : decode(kv, Alias.class);
+    }
+
+    @Override
+    public void setAlias(String clusterId, String aliasName, Alias alias) throws Exception {
+        markPut(clusterId, pathResolver.getAliasConfPath(clusterId, aliasName), alias);
+        delegate.setAlias(clusterId, aliasName, alias);
+    }
+
+    @Override
+    public void deleteAlias(String clusterId, String aliasName) throws Exception {
+        markDelete(clusterId, pathResolver.getAliasConfPath(clusterId, aliasName));
+        delegate.deleteAlias(clusterId, aliasName);
+    }
+
+    @Override
+    public List<Alias> getAllAliases(String clusterId) throws Exception {
+        String prefix = asPrefix(pathResolver.getAliasesPrefix(clusterId));
+        ClusterKeyspaceCache cache = readyCache(clusterId, prefix);
+        if (cache == null) {
+            return delegate.getAllAliases(clusterId);
+        }
+        List<Alias> aliases = new ArrayList<>();
+        for (KeyValue kv : cache.scan(prefix)) {
+            aliases.add(decode(kv, Alias.class));
+        }
+        return aliases;
+    }
+
+    // =================================================================
+    // CLUSTER SNAPSHOT OPERATIONS
+    // =================================================================
+
+    @Override
+    public ClusterSnapshot loadClusterSnapshot(String clusterId) throws Exception {
+        String unitsPrefix = asPrefix(pathResolver.getSearchUnitsPrefix(clusterId));
+        String indicesPrefix = asPrefix(pathResolver.getIndicesPrefix(clusterId));
+        String aliasesPrefix = asPrefix(pathResolver.getAliasesPrefix(clusterId));
+        ClusterKeyspaceCache cache = readyCache(clusterId, unitsPrefix);
+        if (cache == null || cache.isDirty(indicesPrefix) || cache.isDirty(aliasesPrefix)) {
+            return delegate.loadClusterSnapshot(clusterId);
+        }
+        ClusterKeyspaceCache.RevisionedScan scan = cache.scanAtRevision(unitsPrefix, indicesPrefix, aliasesPrefix);
+        return ClusterSnapshot.fromKeyValues(clusterId, scan.revision, scan.entries, pathResolver, decodeCache);
+    }
+
+    // =================================================================
+    // BATCH WRITE OPERATIONS
+    // =================================================================
+
+    /**
+     * Marks every key of the batch dirty, then commits it through the delegate's batch.
+     */
+    @Override
+    public WriteBatch newWriteBatch() {
+        return new WriteBatch() {
+            @Override
+            protected WriteBatchResult commit(List<WriteOperation> operations) throws Exception {
+                WriteBatch batch = delegate.newWriteBatch();
+                for (WriteOperation operation : operations) {
+                    String key = EtcdWriteBatch.keyOf(operation, pathResolver);
+                    if (operation.isDelete()) {
+                        markDelete(operation.getClusterId(), key);
+                    } else {
+                        markPut(operation.getClusterId(), key, EtcdWriteBatch.valueOf(operation, objectMapper, stateCodec));
+                    }
+                    batch.add(operation);
+                }
+                return batch.commit();
+            }
+        };
+    }
+
+    // =================================================================
+    // INDEX READINESS OPERATIONS
+    // =================================================================
+
+    @Override
+    public boolean isIndexReady(String clusterId, String indexName) throws Exception {
+        return delegate.isIndexReady(clusterId, indexName);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> waitForIndexReady(String clusterId, String indexName, long timeoutMs) {
+        return delegate.waitForIndexReady(clusterId, indexName, timeoutMs);
+    }
+
+    // =================================================================
+    // CLUSTER OPERATIONS
+    // =================================================================
+
+    @Override
+    public void initialize() throws Exception {
+        delegate.initialize();
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (metricsPublisher != null) {
+            metricsPublisher.shutdownNow();
+        }
+        caches.values().forEach(ClusterKeyspaceCache::close);
+        caches.clear();
+        delegate.close();
+    }
+
+    @Override
+    public boolean isLeader() {
+        return delegate.isLeader();
+    }
+
+    @Override
+    public ClusterControllerAssignment getAssignedController(String clusterId) throws Exception {
+        return delegate.getAssignedController(clusterId);
+    }
+
+    @Override
+    public void setCoordinatorGoalState(String clusterId, CoordinatorGoalState goalState) throws Exception {
+        delegate.setCoordinatorGoalState(clusterId, goalState);
+    }
+
+    @Override
+    public CoordinatorGoalState getCoordinatorGoalState(String clusterId) throws Exception {
+        return delegate.getCoordinatorGoalState(clusterId);
+    }
+
+    @Override
+    public ClusterInformation.Version getClusterVersion(String clusterId) throws Exception {
+        return delegate.getClusterVersion(clusterId);
+    }
+}
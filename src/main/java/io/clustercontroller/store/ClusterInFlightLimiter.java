@@ -0,0 +1,110 @@
+package io.clustercontroller.store;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Bounds the number of concurrent etcd requests per cluster without blocking callers:
+ * requests over the limit are queued and started as earlier ones complete.
+ * Keeps a fan-out over hundreds of nodes from flooding etcd or starving other clusters.
+ */
+@Slf4j
+class ClusterInFlightLimiter {
+
+    private final ConcurrentMap<String, Lane> lanes = new ConcurrentHashMap<>();
+    private volatile int maxInFlight;
+
+    ClusterInFlightLimiter(int maxInFlight) {
+        setMaxInFlight(maxInFlight);
+    }
+
+    void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Start the request now if the cluster is under its limit, otherwise once a slot frees up.
+     */
+    <T> CompletableFuture<T> submit(String clusterId, Supplier<CompletableFuture<T>> request) {
+        Lane lane = lanes.computeIfAbsent(clusterId, k -> new Lane());
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable start = () -> {
+            CompletableFuture<T> future;
+            try {
+                future = request.get();
+            } catch (Throwable t) {
+                future = CompletableFuture.failedFuture(t);
+            }
+            future.whenComplete((value, error) -> {
+                release(lane);
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        };
+        if (lane.tryAcquire(maxInFlight, start)) {
+            start.run();
+        }
+        return result;
+    }
+
+    /**
+     * Number of requests currently running for a cluster.
+     */
+    int inFlight(String clusterId) {
+        Lane lane = lanes.get(clusterId);
+        return lane == null ? 0 : lane.inFlight();
+    }
+
+    void releaseCluster(String clusterId) {
+        lanes.remove(clusterId);
+    }
+
+    private void release(Lane lane) {
+        Runnable next = lane.releaseOrHandOver();
+        if (next != null) {
+            next.run();
+        }
+    }
+
+    private static class Lane {
+        private final Queue<Runnable> waiting = new ArrayDeque<>();
+        private int inFlight = 0;
+
+        synchronized boolean tryAcquire(int limit, Runnable start) {
+            if (inFlight < limit) {
+                inFlight++;
+                return true;
+            }
+            waiting.add(start);
+            return false;
+        }
+
+        /**
+         * Hand the slot to the next waiting request, if any, or give it up.
+         */
+        synchronized Runnable releaseOrHandOver() {
+            Runnable next = waiting.poll();
+            if (next == null) {
+                inFlight--;
+            }
+            return next;
+        }
+
+        synchronized int inFlight() {
+            return inFlight;
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package io.clustercontroller.store;
+
+import io.etcd.jetcd.ByteSequence;
+import io.etcd.jetcd.KV;
+import io.etcd.jetcd.KeyValue;
+import io.etcd.jetcd.Watch;
+import io.etcd.jetcd.common.exception.CompactedException;
+import io.etcd.jetcd.options.WatchOption;
+import io.etcd.jetcd.watch.WatchEvent;
+import io.etcd.jetcd.watch.WatchResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+import static io.clustercontroller.config.Constants.DEFAULT_ETCD_PREFIX_SCAN_PAGE_SIZE;
+import static io.clustercontroller.config.Constants.PATH_DELIMITER;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * In-memory materialized view of a single cluster's etcd keyspace ("/{cluster}/").
+ * Loaded once with a prefix range read, then kept current from a Watch stream that resumes
+ * from the last applied revision. A compaction or unrecoverable watch error triggers a full reload.
+ *
+ * Read-your-writes: keys written through the owning store are marked dirty until the watch
+ * delivers the matching event (or the settle timeout passes); dirty keys must be read from etcd.
+ */
+@Slf4j
+class ClusterKeyspaceCache {
+
+    private static final long RELOAD_BACKOFF_MS = 1000;
+
+    private final String clusterId;
+    private final String rootPrefix;
+    private final KV kvClient;
+    private final Watch watchClient;
+    private final long settleTimeoutMs;
+    private final long scanTimeoutMs;
+
+    private volatile NavigableMap<String, KeyValue> entries = new ConcurrentSkipListMap<>();
+    private final Map<String, PendingWrite> pendingWrites = new ConcurrentHashMap<>();
+    // Held while applying a watch response so multi-prefix scans never see half of one
+    private final Object applyLock = new Object();
+    // Events applied while a load is in progress, replayed onto the loaded map if newer than it; guarded by applyLock
+    private List<WatchEvent> eventsDuringLoad;
+    private volatile long revision = 0;
+    private volatile boolean ready = false;
+    private volatile boolean closed = false;
+    private volatile long disconnectedSinceMs = 0;
+    private volatile long lastObservedLagMs = 0;
+    private volatile long lastLoadAttemptMs = 0;
+    private volatile Watch.Watcher watcher;
+
+    ClusterKeyspaceCache(String clusterId, KV kvClient, Watch watchClient, long settleTimeoutMs, long scanTimeoutMs) {
+        this.clusterId = clusterId;
+        this.rootPrefix = PATH_DELIMITER + clusterId + PATH_DELIMITER;
+        this.kvClient = kvClient;
+        this.watchClient = watchClient;
+        this.settleTimeoutMs = settleTimeoutMs;
+        this.scanTimeoutMs = scanTimeoutMs;
+    }
+
+    /**
+     * Load the keyspace (if not yet loaded) and open the watch. Returns true when the cache can serve reads.
+     * Failed loads are retried at most once per backoff period so a broken cache does not double etcd traffic.
+     */
+    synchronized boolean ensureReady() {
+        if (ready || closed) {
+            return ready;
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastLoadAttemptMs < RELOAD_BACKOFF_MS) {
+            return false;
+        }
+        lastLoadAttemptMs = now;
+        try {
+            load();
+            openWatch();
+            ready = true;
+            disconnectedSinceMs = 0;
+            log.info("Metadata cache for cluster '{}' loaded {} keys at revision {}", clusterId, entries.size(), revision);
+        } catch (Exception e) {
+            log.warn("Failed to load metadata cache for cluster '{}': {}", clusterId, e.getMessage());
+            disconnectedSinceMs = disconnectedSinceMs == 0 ? now : disconnectedSinceMs;
+        }
+        return ready;
+    }
+
+    private void load() throws Exception {
+        ByteSequence prefixBytes = ByteSequence.from(rootPrefix, UTF_8);
+        // Paged at one revision so a large keyspace never arrives as a single response
+        PrefixScanner.PageIterator pages = new PrefixScanner(kvClient::get, prefixBytes,
+                DEFAULT_ETCD_PREFIX_SCAN_PAGE_SIZE, 0).iterator(scanTimeoutMs, TimeUnit.MILLISECONDS);
+
+        synchronized (applyLock) {
+            eventsDuringLoad = new ArrayList<>();
+        }
+        try {
+            NavigableMap<String, KeyValue> loaded = new ConcurrentSkipListMap<>();
+            while (pages.hasNext()) {
+                KeyValue kv = pages.next();
+                loaded.put(kv.getKey().toString(UTF_8), kv);
+            }
+            synchronized (applyLock) {
+                // A watch still delivering while we read went to the old map; keep what the load did not see
+                long loadedRevision = pages.getRevision();
+                revision = loadedRevision;
+                for (WatchEvent event : eventsDuringLoad) {
+                    if (event.getKeyValue().getModRevision() > loadedRevision) {
+                        applyEvent(loaded, event);
+                    }
+                }
+                // Swap the whole map so concurrent readers never observe a half-loaded keyspace
+                entries = loaded;
+            }
+        } finally {
+            synchronized (applyLock) {
+                eventsDuringLoad = null;
+            }
+        }
+    }
+
+    private void openWatch() {
+        ByteSequence prefixBytes = ByteSequence.from(rootPrefix, UTF_8);
+        WatchOption option = WatchOption.newBuilder()
+                .withPrefix(prefixBytes)
+                .withRevision(revision + 1)
+                .build();
+        watcher = watchClient.watch(prefixBytes, option, this::apply, this::onWatchError);
+    }
+
+    void apply(WatchResponse response) {
+        synchronized (applyLock) {
+            NavigableMap<String, KeyValue> current = entries;
+            for (WatchEvent event : response.getEvents()) {
+                if (applyEvent(current, event) && eventsDuringLoad != null) {
+                    eventsDuringLoad.add(event);
+                }
+            }
+        }
+        disconnectedSinceMs = 0;
+    }
+
+    // Caller holds applyLock
+    private boolean applyEvent(NavigableMap<String, KeyValue> target, WatchEvent event) {
+        KeyValue kv = event.getKeyValue();
+        String key = kv.getKey().toString(UTF_8);
+        switch (event.getEventType()) {
+            case PUT -> target.put(key, kv);
+            case DELETE -> target.remove(key);
+            default -> {
+                return false;
+            }
+        }
+        if (kv.getModRevision() > revision) {
+            revision = kv.getModRevision();
+        }
+        settle(key, event);
+        return true;
+    }
+
+    private void onWatchError(Throwable error) {
+        if (closed) {
+            return;
+        }
+        log.warn("Metadata cache watch for cluster '{}' failed at revision {}: {}", clusterId, revision, error.getMessage());
+        disconnectedSinceMs = System.currentTimeMillis();
+        synchronized (this) {
+            closeWatcher();
+            if (error instanceof CompactedException) {
+                // Our resume revision was compacted away; only a full reload can restore consistency
+                ready = false;
+                lastLoadAttemptMs = 0;
+                return;
+            }
+            try {
+                openWatch();
+            } catch (Exception e) {
+                log.warn("Failed to resume metadata cache watch for cluster '{}': {}", clusterId, e.getMessage());
+                ready = false;
+            }
+        }
+    }
+
+    // =================================================================
+    // READS
+    // =================================================================
+
+    /**
+     * Get the cached entry for a key, or null if absent.
+     */
+    KeyValue get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Get all cached entries under a prefix (a trailing delimiter is appended), in key order.
+     */
+    List<KeyValue> scan(String prefix) {
+        String from = prefix.endsWith(PATH_DELIMITER) ? prefix : prefix + PATH_DELIMITER;
+        // Character.MAX_VALUE sorts after any key suffix, giving an exclusive upper bound for the prefix
+        return new ArrayList<>(entries.subMap(from, true, from + Character.MAX_VALUE, false).values());
+    }
+
+    /**
+     * Scan several prefixes as of one applied revision; a watch response is never half-visible in the result.
+     */
+    RevisionedScan scanAtRevision(String... prefixes) {
+        synchronized (applyLock) {
+            List<KeyValue> result = new ArrayList<>();
+            for (String prefix : prefixes) {
+                result.addAll(scan(prefix));
+            }
+            return new RevisionedScan(revision, result);
+        }
+    }
+
+    /**
+     * Whether a key (or any key under a prefix ending with the delimiter) has a write not yet seen by the watch.
+     */
+    boolean isDirty(String keyOrPrefix) {
+        if (pendingWrites.isEmpty()) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        pendingWrites.values().removeIf(pending -> now > pending.deadlineMs);
+        boolean isPrefix = keyOrPrefix.endsWith(PATH_DELIMITER);
+        for (String pendingKey : pendingWrites.keySet()) {
+            if (pendingKey.equals(keyOrPrefix)
+                    || (isPrefix && pendingKey.startsWith(keyOrPrefix))
+                    || (pendingKey.endsWith(PATH_DELIMITER) && keyOrPrefix.startsWith(pendingKey))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // =================================================================
+    // READ-YOUR-WRITES TRACKING
+    // =================================================================
+
+    /**
+     * Record a put about to be issued. The key stays dirty until the watch delivers the same value,
+     * or any put when the stored bytes are not known up front (value == null).
+     */
+    void markPut(String key, byte[] value) {
+        pendingWrites.put(key, new PendingWrite(value, false));
+    }
+
+    /**
+     * Record a delete about to be issued for a key, or for every key under a prefix ending with the delimiter.
+     */
+    void markDelete(String keyOrPrefix) {
+        pendingWrites.put(keyOrPrefix, new PendingWrite(null, true));
+    }
+
+    private void settle(String key, WatchEvent event) {
+        if (pendingWrites.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        pendingWrites.entrySet().removeIf(entry -> {
+            String pendingKey = entry.getKey();
+            PendingWrite pending = entry.getValue();
+            boolean matchesKey = pendingKey.equals(key)
+                    || (pendingKey.endsWith(PATH_DELIMITER) && key.startsWith(pendingKey));
+            if (!matchesKey) {
+                return false;
+            }
+            boolean settled = pending.delete
+                    ? event.getEventType() == WatchEvent.EventType.DELETE
+                    : event.getEventType() == WatchEvent.EventType.PUT
+                        && (pending.value == null || Arrays.equals(pending.value, event.getKeyValue().getValue().getBytes()));
+            if (settled) {
+                lastObservedLagMs = now - pending.writtenAtMs;
+            }
+            return settled;
+        });
+    }
+
+    // =================================================================
+    // STATUS
+    // =================================================================
+
+    boolean isReady() {
+        return ready;
+    }
+
+    long getRevision() {
+        return revision;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * How far the cache lags behind etcd, in milliseconds: the latest observed write-to-watch delay,
+     * or the time since the watch disconnected if it is currently down.
+     */
+    long getLagMs() {
+        long disconnectedSince = disconnectedSinceMs;
+        if (disconnectedSince > 0) {
+            return System.currentTimeMillis() - disconnectedSince;
+        }
+        return lastObservedLagMs;
+    }
+
+    synchronized void close() {
+        closed = true;
+        ready = false;
+        closeWatcher();
+        entries = new ConcurrentSkipListMap<>();
+        pendingWrites.clear();
+    }
+
+    private void closeWatcher() {
+        if (watcher != null) {
+            try {
+                watcher.close();
+            } catch (Exception e) {
+                log.debug("Error closing metadata cache watcher for cluster '{}': {}", clusterId, e.getMessage());
+            }
+            watcher = null;
+        }
+    }
+
+    static class RevisionedScan {
+        final long revision;
+        final List<KeyValue> entries;
+
+        private RevisionedScan(long revision, List<KeyValue> entries) {
+            this.revision = revision;
+            this.entries = entries;
+        }
+    }
+
+    private class PendingWrite {
+        private final byte[] value;
+        private final boolean delete;
+        private final long writtenAtMs = System.currentTimeMillis();
+        private final long deadlineMs = writtenAtMs + settleTimeoutMs;
+
+        private PendingWrite(byte[] value, boolean delete) {
+            this.value = value;
+            this.delete = delete;
+        }
+    }
+}
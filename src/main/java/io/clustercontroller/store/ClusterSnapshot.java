@@ -0,0 +1,249 @@
+package io.clustercontroller.store;
+
+import io.clustercontroller.models.Alias;
+import io.clustercontroller.models.Index;
+import io.clustercontroller.models.SearchUnit;
+import io.clustercontroller.models.SearchUnitActualState;
+import io.clustercontroller.models.SearchUnitGoalState;
+import io.clustercontroller.models.ShardAllocation;
+import io.clustercontroller.store.SnapshotMetadataStore.Section;
+import io.etcd.jetcd.KeyValue;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import static io.clustercontroller.config.Constants.PATH_DELIMITER;
+import static io.clustercontroller.config.Constants.SUFFIX_ACTUAL_ALLOCATION;
+import static io.clustercontroller.config.Constants.SUFFIX_ACTUAL_STATE;
+import static io.clustercontroller.config.Constants.SUFFIX_CONF;
+import static io.clustercontroller.config.Constants.SUFFIX_GOAL_STATE;
+import static io.clustercontroller.config.Constants.SUFFIX_PLANNED_ALLOCATION;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Immutable view of a cluster's search units, index configs, shard allocations and aliases,
+ * all read at a single store revision so a reconcile pass never mixes state from different points in time.
+ * <p>
+ * The maps are unmodifiable but the model objects inside them are shared; callers must not mutate them.
+ * {@link SnapshotMetadataStore} hands out copies for that reason.
+ */
+@Slf4j
+@Getter
+public class ClusterSnapshot {
+
+    private final String clusterId;
+    private final long revision;
+    /** unit name -> search unit conf */
+    private final Map<String, SearchUnit> searchUnits;
+    /** unit name -> actual state */
+    private final Map<String, SearchUnitActualState> actualStates;
+    /** unit name -> goal state */
+    private final Map<String, SearchUnitGoalState> goalStates;
+    /** unit name -> revision its goal state was last modified at, where known */
+    private final Map<String, Long> goalStateRevisions;
+    /** index name -> index conf */
+    private final Map<String, Index> indexConfigs;
+    /** index name -> shard id -> planned allocation */
+    private final Map<String, Map<String, ShardAllocation>> plannedAllocations;
+    /** index name -> shard id -> actual allocation */
+    private final Map<String, Map<String, ShardAllocation>> actualAllocations;
+    /** alias name -> alias conf */
+    private final Map<String, Alias> aliases;
+    /** section -> unit, index or "index/shard" name -> revision its conf or allocation was last modified at, where known */
+    @Getter(AccessLevel.NONE)
+    private final Map<Section, Map<String, Long>> modRevisions;
+
+    ClusterSnapshot(String clusterId, long revision,
+                    Map<String, SearchUnit> searchUnits,
+                    Map<String, SearchUnitActualState> actualStates,
+                    Map<String, SearchUnitGoalState> goalStates,
+                    Map<String, Index> indexConfigs,
+                    Map<String, Map<String, ShardAllocation>> plannedAllocations,
+                    Map<String, Map<String, ShardAllocation>> actualAllocations,
+                    Map<String, Alias> aliases) {
+        this(clusterId, revision, searchUnits, actualStates, goalStates, Map.of(), indexConfigs,
+                plannedAllocations, actualAllocations, aliases);
+    }
+
+    ClusterSnapshot(String clusterId, long revision,
+                    Map<String, SearchUnit> searchUnits,
+                    Map<String, SearchUnitActualState> actualStates,
+                    Map<String, SearchUnitGoalState> goalStates,
+                    Map<String, Long> goalStateRevisions,
+                    Map<String, Index> indexConfigs,
+                    Map<String, Map<String, ShardAllocation>> plannedAllocations,
+                    Map<String, Map<String, ShardAllocation>> actualAllocations,
+                    Map<String, Alias> aliases) {
+        this(clusterId, revision, searchUnits, actualStates, goalStates, goalStateRevisions, indexConfigs,
+                plannedAllocations, actualAllocations, aliases, Map.of());
+    }
+
+    ClusterSnapshot(String clusterId, long revision,
+                    Map<String, SearchUnit> searchUnits,
+                    Map<String, SearchUnitActualState> actualStates,
+                    Map<String, SearchUnitGoalState> goalStates,
+                    Map<String, Long> goalStateRevisions,
+                    Map<String, Index> indexConfigs,
+                    Map<String, Map<String, ShardAllocation>> plannedAllocations,
+                    Map<String, Map<String, ShardAllocation>> actualAllocations,
+                    Map<String, Alias> aliases,
+                    Map<Section, Map<String, Long>> modRevisions) {
+        this.clusterId = clusterId;
+        this.revision = revision;
+        this.searchUnits = Collections.unmodifiableMap(searchUnits);
+        this.actualStates = Collections.unmodifiableMap(actualStates);
+        this.goalStates = Collections.unmodifiableMap(goalStates);
+        this.goalStateRevisions = Collections.unmodifiableMap(goalStateRevisions);
+        this.indexConfigs = Collections.unmodifiableMap(indexConfigs);
+        this.plannedAllocations = unmodifiableNested(plannedAllocations);
+        this.actualAllocations = unmodifiableNested(actualAllocations);
+        this.aliases = Collections.unmodifiableMap(aliases);
+        Map<Section, Map<String, Long>> revisions = new EnumMap<>(Section.class);
+        modRevisions.forEach((section, byName) -> revisions.put(section, Collections.unmodifiableMap(byName)));
+        this.modRevisions = Collections.unmodifiableMap(revisions);
+    }
+
+    private static Map<String, Map<String, ShardAllocation>> unmodifiableNested(Map<String, Map<String, ShardAllocation>> byIndex) {
+        Map<String, Map<String, ShardAllocation>> result = new LinkedHashMap<>();
+        byIndex.forEach((indexName, byShard) -> result.put(indexName, Collections.unmodifiableMap(byShard)));
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Get the planned allocation for a shard, or null if none exists.
+     */
+    public ShardAllocation getPlannedAllocation(String indexName, String shardId) {
+        return plannedAllocations.getOrDefault(indexName, Map.of()).get(shardId);
+    }
+
+    /**
+     * Get the actual allocation for a shard, or null if none exists.
+     */
+    public ShardAllocation getActualAllocation(String indexName, String shardId) {
+        return actualAllocations.getOrDefault(indexName, Map.of()).get(shardId);
+    }
+
+    /**
+     * Get the revision an entry of a section was last modified at, or null if not known. Entries are named by unit
+     * (search units), by index (index configs) or by "index/shard" (allocations); goal states have
+     * {@link #getGoalStateRevisions()}.
+     */
+    public Long getModRevision(Section section, String name) {
+        return modRevisions.getOrDefault(section, Map.of()).get(name);
+    }
+
+    static String shardName(String indexName, String shardId) {
+        return indexName + PATH_DELIMITER + shardId;
+    }
+
+    /**
+     * Build a snapshot from the raw key-values under the cluster's search-unit, indices and aliases prefixes.
+     * Keys outside those prefixes, or with suffixes the snapshot does not track, are ignored.
+     * Values that fail to parse are skipped with a warning, matching the store's list reads.
+     * Decoding goes through the given cache, so actual and goal states unchanged since an earlier read are
+     * copied instead of parsed; the snapshot still owns every object it holds.
+     */
+    static ClusterSnapshot fromKeyValues(String clusterId, long revision, Iterable<KeyValue> kvs,
+                                         EtcdPathResolver pathResolver, DecodeCache decodeCache) {
+        return fromEntries(clusterId, revision, kvs, kv -> kv.getKey().toString(UTF_8), KeyValue::getModRevision,
+                decodeCache::decode, pathResolver);
+    }
+
+    /**
+     * Decodes the value of a backend entry; generic per call, so implemented by method references.
+     */
+    @FunctionalInterface
+    interface EntryDecoder<E> {
+        <T> T decode(E entry, Class<T> clazz) throws Exception;
+    }
+
+    /**
+     * Build a snapshot from any backend's entries under the cluster's prefixes, given how to read an entry's
+     * key, modRevision and value. See {@link #fromKeyValues}.
+     */
+    static <E> ClusterSnapshot fromEntries(String clusterId, long revision, Iterable<E> entries,
+                                           Function<E, String> keyOf, ToLongFunction<E> modRevisionOf,
+                                           EntryDecoder<E> decoder, EtcdPathResolver pathResolver) {
+        String unitsPrefix = pathResolver.getSearchUnitsPrefix(clusterId) + PATH_DELIMITER;
+        String indicesPrefix = pathResolver.getIndicesPrefix(clusterId) + PATH_DELIMITER;
+        String aliasesPrefix = pathResolver.getAliasesPrefix(clusterId) + PATH_DELIMITER;
+
+        Map<String, SearchUnit> searchUnits = new LinkedHashMap<>();
+        Map<String, SearchUnitActualState> actualStates = new LinkedHashMap<>();
+        Map<String, SearchUnitGoalState> goalStates = new LinkedHashMap<>();
+        Map<String, Long> goalStateRevisions = new LinkedHashMap<>();
+        Map<String, Index> indexConfigs = new LinkedHashMap<>();
+        Map<String, Map<String, ShardAllocation>> plannedAllocations = new LinkedHashMap<>();
+        Map<String, Map<String, ShardAllocation>> actualAllocations = new LinkedHashMap<>();
+        Map<String, Alias> aliases = new LinkedHashMap<>();
+        Map<Section, Map<String, Long>> modRevisions = new EnumMap<>(Section.class);
+
+        for (E kv : entries) {
+            String key = keyOf.apply(kv);
+            try {
+                if (key.startsWith(unitsPrefix)) {
+                    // <unit>/<suffix>
+                    EtcdKeyBuilder.KeySegments parts = EtcdKeyBuilder.segments(key, unitsPrefix);
+                    if (parts.size() != 2) {
+                        continue;
+                    }
+                    if (parts.is(1, SUFFIX_CONF)) {
+                        searchUnits.put(parts.get(0), decoder.decode(kv, SearchUnit.class));
+                        recordModRevision(modRevisions, Section.SEARCH_UNITS, parts.get(0), modRevisionOf.applyAsLong(kv));
+                    } else if (parts.is(1, SUFFIX_ACTUAL_STATE)) {
+                        actualStates.put(parts.get(0), decoder.decode(kv, SearchUnitActualState.class));
+                    } else if (parts.is(1, SUFFIX_GOAL_STATE)) {
+                        String unitName = parts.get(0);
+                        goalStates.put(unitName, decoder.decode(kv, SearchUnitGoalState.class));
+                        long modRevision = modRevisionOf.applyAsLong(kv);
+                        if (modRevision > 0) {
+                            goalStateRevisions.put(unitName, modRevision);
+                        }
+                    }
+                } else if (key.startsWith(indicesPrefix)) {
+                    // <index>/conf or <index>/<shard>/<allocation-suffix>
+                    EtcdKeyBuilder.KeySegments parts = EtcdKeyBuilder.segments(key, indicesPrefix);
+                    if (parts.size() == 2 && parts.is(1, SUFFIX_CONF)) {
+                        indexConfigs.put(parts.get(0), decoder.decode(kv, Index.class));
+                        recordModRevision(modRevisions, Section.INDEX_CONFIGS, parts.get(0), modRevisionOf.applyAsLong(kv));
+                    } else if (parts.size() == 3 && parts.is(2, SUFFIX_PLANNED_ALLOCATION)) {
+                        plannedAllocations.computeIfAbsent(parts.get(0), k -> new LinkedHashMap<>())
+                                .put(parts.get(1), decoder.decode(kv, ShardAllocation.class));
+                        recordModRevision(modRevisions, Section.PLANNED_ALLOCATIONS, shardName(parts.get(0), parts.get(1)),
+                                modRevisionOf.applyAsLong(kv));
+                    } else if (parts.size() == 3 && parts.is(2, SUFFIX_ACTUAL_ALLOCATION)) {
+                        actualAllocations.computeIfAbsent(parts.get(0), k -> new LinkedHashMap<>())
+                                .put(parts.get(1), decoder.decode(kv, ShardAllocation.class));
+                        recordModRevision(modRevisions, Section.ACTUAL_ALLOCATIONS, shardName(parts.get(0), parts.get(1)),
+                                modRevisionOf.applyAsLong(kv));
+                    }
+                } else if (key.startsWith(aliasesPrefix)) {
+                    // <alias>/conf
+                    EtcdKeyBuilder.KeySegments parts = EtcdKeyBuilder.segments(key, aliasesPrefix);
+                    if (parts.size() == 2 && parts.is(1, SUFFIX_CONF)) {
+                        aliases.put(parts.get(0), decoder.decode(kv, Alias.class));
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("Failed to parse snapshot value at key {}: {}", key, e.getMessage());
+            }
+        }
+
+        return new ClusterSnapshot(clusterId, revision, searchUnits, actualStates, goalStates, goalStateRevisions,
+                indexConfigs, plannedAllocations, actualAllocations, aliases, modRevisions);
+    }
+
+    private static void recordModRevision(Map<Section, Map<String, Long>> modRevisions, Section section, String name,
+                                          long modRevision) {
+        if (modRevision > 0) {
+            modRevisions.computeIfAbsent(section, k -> new LinkedHashMap<>()).put(name, modRevision);
+        }
+    }
+}
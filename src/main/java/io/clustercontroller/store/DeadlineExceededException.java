@@ -0,0 +1,21 @@
+package io.clustercontroller.store;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Thrown instead of sending an etcd request once the {@link PassDeadline} of its cluster has passed.
+ * The request never reached etcd, so the caller can fail the pass right away.
+ */
+public class DeadlineExceededException extends TimeoutException {
+
+    private final String clusterId;
+
+    public DeadlineExceededException(String clusterId) {
+        super("Reconcile pass deadline for cluster " + clusterId + " exceeded; etcd request not sent");
+        this.clusterId = clusterId;
+    }
+
+    public String getClusterId() {
+        return clusterId;
+    }
+}
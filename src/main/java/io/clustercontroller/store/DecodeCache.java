@@ -0,0 +1,270 @@
+package io.clustercontroller.store;
+
+import io.clustercontroller.models.SearchUnitActualState;
+import io.clustercontroller.models.SearchUnitGoalState;
+import io.etcd.jetcd.KeyValue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Bounded cache of decoded etcd values keyed by (key, modRevision), so a document that has not changed
+ * since it was last read is not parsed again. Only types with a registered deep copy are cached: the shared
+ * decoded instance never leaves this class, callers always receive their own copy.
+ * <p>
+ * Eviction is least-recently-used, weighted by the encoded size of each value in bytes. A key holds at most
+ * one entry; reading a newer revision replaces it.
+ */
+class DecodeCache {
+
+    private static final Map<Class<?>, UnaryOperator<?>> COPIERS = Map.of(
+        SearchUnitActualState.class, (UnaryOperator<SearchUnitActualState>) DecodeCache::copyActualState,
+        SearchUnitGoalState.class, (UnaryOperator<SearchUnitGoalState>) DecodeCache::copyGoalState
+    );
+
+    private final ValueCodec codec;
+    private final long maxBytes;
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long weightBytes;
+    private long hits;
+    private long misses;
+
+    private record Entry(long modRevision, Class<?> type, Object value, long weight) {
+    }
+
+    /**
+     * @param maxBytes total encoded size of cached values; 0 or less disables caching
+     */
+    DecodeCache(ValueCodec codec, long maxBytes) {
+        this.codec = codec;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Decode a value, reusing the cached instance when the key's modRevision is unchanged.
+     * The returned object is never shared with the cache or other callers.
+     */
+    <T> T decode(KeyValue kv, Class<T> clazz) throws Exception {
+        UnaryOperator<T> copier = copier(clazz);
+        if (copier == null || !cacheable(kv)) {
+            return codec.decode(kv.getValue().getBytes(), clazz);
+        }
+        return copier.apply(decodeShared(kv, clazz));
+    }
+
+    /**
+     * Decode a value for read-only use inside the store; the result may be the cached instance and must not be
+     * mutated or handed to callers.
+     */
+    <T> T decodeShared(KeyValue kv, Class<T> clazz) throws Exception {
+        if (copier(clazz) == null || !cacheable(kv)) {
+            return codec.decode(kv.getValue().getBytes(), clazz);
+        }
+
+        long modRevision = kv.getModRevision();
+        String key = kv.getKey().toString(UTF_8);
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.modRevision() == modRevision && entry.type() == clazz) {
+                hits++;
+                return clazz.cast(entry.value());
+            }
+            misses++;
+        }
+
+        byte[] bytes = kv.getValue().getBytes();
+        T value = codec.decode(bytes, clazz);
+        put(key, new Entry(modRevision, clazz, value, (long) key.length() + bytes.length));
+        return value;
+    }
+
+    private boolean cacheable(KeyValue kv) {
+        // etcd revisions start at 1; anything else did not come from a read and cannot be trusted as a version
+        return maxBytes > 0 && kv.getModRevision() > 0;
+    }
+
+    private synchronized void put(String key, Entry entry) {
+        if (entry.weight() > maxBytes) {
+            return;
+        }
+        Entry previous = entries.get(key);
+        if (previous != null && previous.modRevision() > entry.modRevision()) {
+            // A concurrent reader already cached a newer revision
+            return;
+        }
+        if (previous != null) {
+            weightBytes -= previous.weight();
+        }
+        entries.put(key, entry);
+        weightBytes += entry.weight();
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (weightBytes > maxBytes && eldest.hasNext()) {
+            weightBytes -= eldest.next().weight();
+            eldest.remove();
+        }
+    }
+
+    synchronized long getWeightBytes() {
+        return weightBytes;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> UnaryOperator<T> copier(Class<T> clazz) {
+        return (UnaryOperator<T>) COPIERS.get(clazz);
+    }
+
+    // =================================================================
+    // DEEP COPIES
+    // =================================================================
+
+    static SearchUnitGoalState copyGoalState(SearchUnitGoalState source) {
+        SearchUnitGoalState copy = new SearchUnitGoalState();
+        Map<String, Map<String, String>> localShards = new HashMap<>();
+        if (source.getLocalShards() != null) {
+            source.getLocalShards().forEach((indexName, shards) ->
+                localShards.put(indexName, shards != null ? new HashMap<>(shards) : null));
+        }
+        copy.setLocalShards(localShards);
+        copy.setLastUpdated(source.getLastUpdated());
+        copy.setVersion(source.getVersion());
+        return copy;
+    }
+
+    static SearchUnitActualState copyActualState(SearchUnitActualState source) {
+        SearchUnitActualState copy = new SearchUnitActualState();
+        copy.setNodeName(source.getNodeName());
+        copy.setAddress(source.getAddress());
+        copy.setHttpPort(source.getHttpPort());
+        copy.setTransportPort(source.getTransportPort());
+        copy.setNodeId(source.getNodeId());
+        copy.setEphemeralId(source.getEphemeralId());
+        copy.setMemoryUsedMB(source.getMemoryUsedMB());
+        copy.setMemoryMaxMB(source.getMemoryMaxMB());
+        copy.setMemoryUsedPercent(source.getMemoryUsedPercent());
+        copy.setHeapUsedMB(source.getHeapUsedMB());
+        copy.setHeapMaxMB(source.getHeapMaxMB());
+        copy.setHeapUsedPercent(source.getHeapUsedPercent());
+        copy.setDiskTotalMB(source.getDiskTotalMB());
+        copy.setDiskAvailableMB(source.getDiskAvailableMB());
+        copy.setCpuUsedPercent(source.getCpuUsedPercent());
+        copy.setHeartbeatIntervalMillis(source.getHeartbeatIntervalMillis());
+        copy.setTimestamp(source.getTimestamp());
+        copy.setRole(source.getRole());
+        copy.setShardId(source.getShardId());
+        copy.setClusterName(source.getClusterName());
+
+        if (source.getNodeRouting() == null) {
+            copy.setNodeRouting(null);
+        } else {
+            Map<String, List<SearchUnitActualState.ShardRoutingInfo>> nodeRouting = new HashMap<>();
+            source.getNodeRouting().forEach((indexName, routings) -> {
+                if (routings == null) {
+                    nodeRouting.put(indexName, null);
+                    return;
+                }
+                List<SearchUnitActualState.ShardRoutingInfo> routingCopies = new ArrayList<>(routings.size());
+                for (SearchUnitActualState.ShardRoutingInfo routing : routings) {
+                    routingCopies.add(routing != null ? copyRouting(routing) : null);
+                }
+                nodeRouting.put(indexName, routingCopies);
+            });
+            copy.setNodeRouting(nodeRouting);
+        }
+        copy.setStats(source.getStats() != null ? copyStats(source.getStats()) : null);
+        return copy;
+    }
+
+    private static SearchUnitActualState.ShardRoutingInfo copyRouting(SearchUnitActualState.ShardRoutingInfo source) {
+        SearchUnitActualState.ShardRoutingInfo copy = new SearchUnitActualState.ShardRoutingInfo();
+        copy.setShardId(source.getShardId());
+        copy.setRole(source.getRole());
+        copy.setState(source.getState());
+        copy.setRelocating(source.isRelocating());
+        copy.setRelocatingNodeId(source.getRelocatingNodeId());
+        copy.setAllocationId(source.getAllocationId());
+        copy.setCurrentNodeId(source.getCurrentNodeId());
+        copy.setCurrentNodeName(source.getCurrentNodeName());
+        return copy;
+    }
+
+    private static SearchUnitActualState.IndicesStats copyStats(SearchUnitActualState.IndicesStats source) {
+        SearchUnitActualState.IndicesStats copy = new SearchUnitActualState.IndicesStats();
+        SearchUnitActualState.IndicesContainer indices = source.getIndices();
+        if (indices == null) {
+            return copy;
+        }
+
+        SearchUnitActualState.IndicesContainer indicesCopy = new SearchUnitActualState.IndicesContainer();
+        indicesCopy.setDocs(copyDocs(indices.getDocs()));
+        if (indices.getShards() != null) {
+            Map<String, List<Map<String, SearchUnitActualState.ShardLevelStats>>> shards = new HashMap<>();
+            indices.getShards().forEach((indexName, shardMaps) -> {
+                if (shardMaps == null) {
+                    shards.put(indexName, null);
+                    return;
+                }
+                List<Map<String, SearchUnitActualState.ShardLevelStats>> shardMapCopies = new ArrayList<>(shardMaps.size());
+                for (Map<String, SearchUnitActualState.ShardLevelStats> shardMap : shardMaps) {
+                    if (shardMap == null) {
+                        shardMapCopies.add(null);
+                        continue;
+                    }
+                    Map<String, SearchUnitActualState.ShardLevelStats> shardMapCopy = new HashMap<>();
+                    shardMap.forEach((shardId, shardStats) -> shardMapCopy.put(shardId, copyShardStats(shardStats)));
+                    shardMapCopies.add(shardMapCopy);
+                }
+                shards.put(indexName, shardMapCopies);
+            });
+            indicesCopy.setShards(shards);
+        }
+        copy.setIndices(indicesCopy);
+        return copy;
+    }
+
+    private static SearchUnitActualState.ShardLevelStats copyShardStats(SearchUnitActualState.ShardLevelStats source) {
+        if (source == null) {
+            return null;
+        }
+        SearchUnitActualState.ShardLevelStats copy = new SearchUnitActualState.ShardLevelStats();
+        copy.setDocs(copyDocs(source.getDocs()));
+        if (source.getSeqNo() != null) {
+            SearchUnitActualState.SeqNoStats seqNo = new SearchUnitActualState.SeqNoStats();
+            seqNo.setMaxSeqNo(source.getSeqNo().getMaxSeqNo());
+            seqNo.setLocalCheckpoint(source.getSeqNo().getLocalCheckpoint());
+            seqNo.setGlobalCheckpoint(source.getSeqNo().getGlobalCheckpoint());
+            copy.setSeqNo(seqNo);
+        }
+        return copy;
+    }
+
+    private static SearchUnitActualState.DocsStats copyDocs(SearchUnitActualState.DocsStats source) {
+        if (source == null) {
+            return null;
+        }
+        SearchUnitActualState.DocsStats copy = new SearchUnitActualState.DocsStats();
+        copy.setCount(source.getCount());
+        copy.setDeleted(source.getDeleted());
+        return copy;
+    }
+}
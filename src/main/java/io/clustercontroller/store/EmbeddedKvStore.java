@@ -0,0 +1,738 @@
+package io.clustercontroller.store;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Single-process key-value engine behind {@link EmbeddedMetadataStore}: an append-only log on disk and a sorted
+ * in-memory index of the live keys, with etcd-like revisions.
+ * <p>
+ * Every commit is one log record holding all of its puts and deletes, checksummed as a whole, and is applied to
+ * the index only once it is written (and forced to disk unless fsync is off), so a crash loses at most the commit
+ * in flight. On open the log is replayed through a memory-mapped read; a torn or corrupt tail record is cut off.
+ * Each commit advances the global revision, which becomes the modRevision of the keys it wrote.
+ * <p>
+ * Watchers of a prefix are notified of committed changes in commit order, on a single dispatch thread.
+ * Once dead records outweigh the live data the log is rewritten with only the live keys, on a background thread
+ * so commits are not held up; the old log stays in use until the new one has replaced it.
+ */
+@Slf4j
+class EmbeddedKvStore implements AutoCloseable {
+
+    static final String LOG_FILE_NAME = "metadata.log";
+    private static final String COMPACT_FILE_NAME = LOG_FILE_NAME + ".compact";
+    private static final String LOCK_FILE_NAME = "metadata.lock";
+
+    // "CCKV"
+    private static final int RECORD_MAGIC = 0x43434B56;
+    // magic, body length, body crc
+    private static final int RECORD_HEADER_BYTES = 12;
+    private static final byte OP_PUT = 1;
+    private static final byte OP_DELETE = 2;
+    // Logs smaller than this are never compacted
+    private static final long COMPACTION_MIN_LOG_BYTES = 64L * 1024 * 1024;
+    private static final int COMPACTION_GARBAGE_RATIO = 2;
+    private static final Set<Path> OPEN_DIRECTORIES = ConcurrentHashMap.newKeySet();
+
+    private final Path directory;
+    private final boolean fsync;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Entry> index = new TreeMap<>();
+    private final List<Watcher> watchers = new CopyOnWriteArrayList<>();
+    private final ExecutorService dispatcher;
+    private final ExecutorService compactor;
+    // One compaction at a time, background or explicit
+    private final ReentrantLock compactionLock = new ReentrantLock();
+    private boolean compactionScheduled;
+    private FileChannel logChannel;
+    private FileChannel lockChannel;
+    private FileLock fileLock;
+    private long revision;
+    private long logBytes;
+    private long liveBytes;
+    // Set once this store holds the directory within the JVM
+    private Path openDirectory;
+    private boolean closed;
+
+    /**
+     * A live key with its value and the revision of the commit that last wrote it.
+     */
+    record Entry(String key, byte[] value, long modRevision) {
+    }
+
+    /**
+     * Entries read together, with the revision they were read at.
+     */
+    record ScanResult(long revision, List<Entry> entries) {
+    }
+
+    enum EventType {
+        PUT,
+        DELETE
+    }
+
+    /**
+     * A committed change of one key; the value is null for a delete.
+     */
+    record Event(EventType type, String key, byte[] value, long modRevision) {
+    }
+
+    /**
+     * A put (value set) or delete (value null), optionally conditional on the key's modRevision.
+     */
+    record Mutation(String key, byte[] value, Guard guard, long guardRevision) {
+
+        enum Guard {
+            NONE,
+            // Applied only if the key's modRevision equals the guard revision (0: the key does not exist)
+            MOD_REVISION_EQUALS,
+            // Applied only if the key was not modified after the guard revision
+            NOT_MODIFIED_AFTER
+        }
+
+        static Mutation put(String key, byte[] value) {
+            return new Mutation(key, value, Guard.NONE, 0);
+        }
+
+        static Mutation delete(String key) {
+            return new Mutation(key, null, Guard.NONE, 0);
+        }
+
+        Mutation ifModRevision(long modRevision) {
+            return new Mutation(key, value, Guard.MOD_REVISION_EQUALS, modRevision);
+        }
+
+        Mutation ifNotModifiedAfter(long revision) {
+            return new Mutation(key, value, Guard.NOT_MODIFIED_AFTER, revision);
+        }
+
+        boolean isDelete() {
+            return value == null;
+        }
+
+        private boolean holds(Entry current) {
+            long modRevision = current == null ? 0 : current.modRevision();
+            return switch (guard) {
+                case NONE -> true;
+                case MOD_REVISION_EQUALS -> modRevision == guardRevision;
+                case NOT_MODIFIED_AFTER -> modRevision <= guardRevision;
+            };
+        }
+    }
+
+    /**
+     * Outcome of a commit: the revision it was written at (the current revision if nothing was written)
+     * and the mutations left out because their guard failed.
+     */
+    record CommitResult(long revision, List<Mutation> rejected) {
+
+        boolean isFullyApplied() {
+            return rejected.isEmpty();
+        }
+    }
+
+    private EmbeddedKvStore(Path directory, boolean fsync) {
+        this.directory = directory;
+        this.fsync = fsync;
+        this.dispatcher = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r);
+            t.setName("embedded-store-watch-" + t.threadId());
+            t.setDaemon(true);
+            return t;
+        });
+        this.compactor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r);
+            t.setName("embedded-store-compact-" + t.threadId());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Open the store in the given directory, creating it if needed, and recover its state from the log.
+     *
+     * @param fsync force every commit to disk before acknowledging it; without it a crash of the host
+     *              (not only of the process) may lose the latest commits
+     */
+    static EmbeddedKvStore open(Path directory, boolean fsync) throws IOException {
+        EmbeddedKvStore store = new EmbeddedKvStore(directory, fsync);
+        try {
+            store.recover();
+        } catch (IOException | RuntimeException e) {
+            store.close();
+            throw e;
+        }
+        return store;
+    }
+
+    // =================================================================
+    // RECOVERY
+    // =================================================================
+
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        // File locks are per process, so opens within this JVM are tracked separately
+        Path realDirectory = directory.toRealPath();
+        if (!OPEN_DIRECTORIES.add(realDirectory)) {
+            throw new IOException("Embedded metadata store at " + directory + " is in use in this process");
+        }
+        openDirectory = realDirectory;
+        lockChannel = FileChannel.open(directory.resolve(LOCK_FILE_NAME), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        fileLock = lockChannel.tryLock();
+        if (fileLock == null) {
+            throw new IOException("Embedded metadata store at " + directory + " is in use by another process");
+        }
+        // A compaction that did not finish never replaced the log
+        Files.deleteIfExists(directory.resolve(COMPACT_FILE_NAME));
+
+        Path logFile = directory.resolve(LOG_FILE_NAME);
+        logChannel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = logChannel.size();
+        long validBytes = replay(size);
+        if (validBytes < size) {
+            log.warn("Embedded metadata store log {} has {} bytes of torn or corrupt records at offset {}, truncating",
+                logFile, size - validBytes, validBytes);
+            logChannel.truncate(validBytes);
+            logChannel.force(true);
+        }
+        logChannel.position(validBytes);
+        logBytes = validBytes;
+        log.info("Recovered embedded metadata store from {}: {} keys at revision {} ({} log bytes)",
+            logFile, index.size(), revision, logBytes);
+    }
+
+    /**
+     * Replay the log into the index and return the length of its valid prefix.
+     */
+    private long replay(long size) throws IOException {
+        if (size == 0) {
+            return 0;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Embedded metadata store log of " + size + " bytes is too large to recover");
+        }
+        MappedByteBuffer buffer = logChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        int position = 0;
+        while (size - position >= RECORD_HEADER_BYTES) {
+            buffer.position(position);
+            int magic = buffer.getInt();
+            int bodyLength = buffer.getInt();
+            int crc = buffer.getInt();
+            if (magic != RECORD_MAGIC || bodyLength < Long.BYTES + Integer.BYTES
+                    || bodyLength > size - position - RECORD_HEADER_BYTES) {
+                break;
+            }
+            ByteBuffer body = buffer.slice(position + RECORD_HEADER_BYTES, bodyLength);
+            if (crc(body.duplicate()) != crc) {
+                break;
+            }
+            if (!applyRecord(body)) {
+                break;
+            }
+            position += RECORD_HEADER_BYTES + bodyLength;
+        }
+        return position;
+    }
+
+    /**
+     * Apply one checksummed record body; false if its contents are malformed, in which case nothing is applied.
+     */
+    private boolean applyRecord(ByteBuffer body) {
+        List<Mutation> mutations = new ArrayList<>();
+        long recordRevision;
+        try {
+            recordRevision = body.getLong();
+            int opCount = body.getInt();
+            for (int i = 0; i < opCount; i++) {
+                byte op = body.get();
+                String key = new String(readBytes(body), UTF_8);
+                if (op == OP_PUT) {
+                    mutations.add(Mutation.put(key, readBytes(body)));
+                } else if (op == OP_DELETE) {
+                    mutations.add(Mutation.delete(key));
+                } else {
+                    return false;
+                }
+            }
+        } catch (RuntimeException e) {
+            return false;
+        }
+        for (Mutation mutation : mutations) {
+            apply(mutation, recordRevision);
+        }
+        revision = Math.max(revision, recordRevision);
+        return true;
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalStateException("Invalid length " + length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    // =================================================================
+    // READS
+    // =================================================================
+
+    long revision() {
+        lock.readLock().lock();
+        try {
+            return revision;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The live entry of a key, or null if it does not exist.
+     */
+    Entry get(String key) {
+        lock.readLock().lock();
+        try {
+            return index.get(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Entries of every key starting with one of the prefixes, in key order per prefix, all at one revision.
+     */
+    ScanResult scan(String... prefixes) {
+        lock.readLock().lock();
+        try {
+            List<Entry> entries = new ArrayList<>();
+            for (String prefix : prefixes) {
+                for (Entry entry : index.tailMap(prefix, true).values()) {
+                    if (!entry.key().startsWith(prefix)) {
+                        break;
+                    }
+                    entries.add(entry);
+                }
+            }
+            return new ScanResult(revision, entries);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // =================================================================
+    // WRITES
+    // =================================================================
+
+    long put(String key, byte[] value) throws IOException {
+        return commit(List.of(Mutation.put(key, value))).revision();
+    }
+
+    long delete(String key) throws IOException {
+        return commit(List.of(Mutation.delete(key))).revision();
+    }
+
+    /**
+     * Delete every key starting with the prefix in one commit.
+     */
+    long deletePrefix(String prefix) throws IOException {
+        lock.writeLock().lock();
+        try {
+            List<Mutation> deletes = new ArrayList<>();
+            for (String key : index.tailMap(prefix, true).keySet()) {
+                if (!key.startsWith(prefix)) {
+                    break;
+                }
+                deletes.add(Mutation.delete(key));
+            }
+            return commit(deletes).revision();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Atomically apply every mutation whose guard holds, as one log record at one new revision.
+     * Deletes of missing keys are dropped; if nothing is left to write the revision does not advance.
+     */
+    CommitResult commit(List<Mutation> mutations) throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                throw new IOException("Embedded metadata store is closed");
+            }
+            List<Mutation> rejected = new ArrayList<>();
+            List<Mutation> applied = new ArrayList<>();
+            for (Mutation mutation : mutations) {
+                Entry current = index.get(mutation.key());
+                if (!mutation.holds(current)) {
+                    rejected.add(mutation);
+                } else if (!mutation.isDelete() || current != null) {
+                    applied.add(mutation);
+                }
+            }
+            if (applied.isEmpty()) {
+                return new CommitResult(revision, rejected);
+            }
+
+            long newRevision = revision + 1;
+            append(encodeRecord(newRevision, applied));
+            List<Event> events = new ArrayList<>(applied.size());
+            for (Mutation mutation : applied) {
+                apply(mutation, newRevision);
+                events.add(new Event(mutation.isDelete() ? EventType.DELETE : EventType.PUT,
+                    mutation.key(), mutation.value(), newRevision));
+            }
+            revision = newRevision;
+            // Queued under the lock so watchers see commits in revision order
+            dispatch(events);
+            compactIfNeeded();
+            return new CommitResult(newRevision, rejected);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(Mutation mutation, long modRevision) {
+        Entry previous = mutation.isDelete()
+            ? index.remove(mutation.key())
+            : index.put(mutation.key(), new Entry(mutation.key(), mutation.value(), modRevision));
+        if (previous != null) {
+            liveBytes -= entryBytes(previous.key(), previous.value());
+        }
+        if (!mutation.isDelete()) {
+            liveBytes += entryBytes(mutation.key(), mutation.value());
+        }
+    }
+
+    private static long entryBytes(String key, byte[] value) {
+        return key.length() + value.length;
+    }
+
+    /**
+     * Append a record at the end of the log; on failure the log is cut back so no partial record stays behind.
+     */
+    private void append(ByteBuffer record) throws IOException {
+        long start = logBytes;
+        try {
+            while (record.hasRemaining()) {
+                logChannel.write(record);
+            }
+            if (fsync) {
+                logChannel.force(false);
+            }
+        } catch (IOException e) {
+            try {
+                logChannel.truncate(start);
+                logChannel.position(start);
+            } catch (IOException truncateError) {
+                e.addSuppressed(truncateError);
+            }
+            throw e;
+        }
+        logBytes = start + record.limit();
+    }
+
+    private static ByteBuffer encodeRecord(long revision, List<Mutation> mutations) {
+        int bodyLength = Long.BYTES + Integer.BYTES;
+        List<byte[]> keys = new ArrayList<>(mutations.size());
+        for (Mutation mutation : mutations) {
+            byte[] key = mutation.key().getBytes(UTF_8);
+            keys.add(key);
+            bodyLength += 1 + Integer.BYTES + key.length + (mutation.isDelete() ? 0 : Integer.BYTES + mutation.value().length);
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + bodyLength);
+        record.position(RECORD_HEADER_BYTES);
+        record.putLong(revision);
+        record.putInt(mutations.size());
+        for (int i = 0; i < mutations.size(); i++) {
+            Mutation mutation = mutations.get(i);
+            record.put(mutation.isDelete() ? OP_DELETE : OP_PUT);
+            record.putInt(keys.get(i).length);
+            record.put(keys.get(i));
+            if (!mutation.isDelete()) {
+                record.putInt(mutation.value().length);
+                record.put(mutation.value());
+            }
+        }
+        record.putInt(0, RECORD_MAGIC);
+        record.putInt(4, bodyLength);
+        record.putInt(8, crc(record.slice(RECORD_HEADER_BYTES, bodyLength)));
+        record.position(0);
+        return record;
+    }
+
+    private static int crc(ByteBuffer body) {
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    // =================================================================
+    // COMPACTION
+    // =================================================================
+
+    /**
+     * Schedule a background compaction once the log is mostly garbage; called under the write lock.
+     */
+    private void compactIfNeeded() {
+        if (compactionScheduled || logBytes < COMPACTION_MIN_LOG_BYTES
+                || logBytes < liveBytes * (COMPACTION_GARBAGE_RATIO + 1)) {
+            return;
+        }
+        try {
+            compactor.execute(() -> {
+                try {
+                    compact();
+                } catch (IOException e) {
+                    // The old log is still complete and in use; try again after a later commit
+                    log.warn("Failed to compact embedded metadata store log: {}", e.getMessage(), e);
+                } finally {
+                    lock.writeLock().lock();
+                    try {
+                        compactionScheduled = false;
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                }
+            });
+            compactionScheduled = true;
+        } catch (RejectedExecutionException e) {
+            // Closed
+        }
+    }
+
+    /**
+     * Rewrite the log with one record per live key, at the key's own modRevision, then replace the old log.
+     * <p>
+     * The live keys are written out without holding the write lock; commits made meanwhile are appended to the
+     * new log as they are in the old one before it replaces it. Until the new log has been moved in place, the
+     * old one stays open and in use, so a failure at any step leaves the store as it was.
+     */
+    void compact() throws IOException {
+        compactionLock.lock();
+        try {
+            rewriteLog();
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    private void rewriteLog() throws IOException {
+        Path compactFile = directory.resolve(COMPACT_FILE_NAME);
+        Path logFile = directory.resolve(LOG_FILE_NAME);
+        List<Entry> entries;
+        long snapshotRevision;
+        long snapshotLogBytes;
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            entries = new ArrayList<>(index.values());
+            snapshotRevision = revision;
+            snapshotLogBytes = logBytes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // Replay restores the global revision from the highest record, so keep modRevision order
+        entries.sort(Comparator.comparingLong(Entry::modRevision));
+
+        FileChannel out = FileChannel.open(compactFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        boolean replaced = false;
+        try {
+            long written = 0;
+            for (Entry entry : entries) {
+                written += writeFully(out, encodeRecord(entry.modRevision(), List.of(Mutation.put(entry.key(), entry.value()))));
+            }
+            // Empty record carrying the snapshot's revision, in case its latest commits were deletes
+            written += writeFully(out, encodeRecord(snapshotRevision, List.of()));
+
+            lock.writeLock().lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                // Records committed since the snapshot follow it unchanged, at their higher revisions
+                long tail = logBytes - snapshotLogBytes;
+                long copied = 0;
+                while (copied < tail) {
+                    copied += logChannel.transferTo(snapshotLogBytes + copied, tail - copied, out);
+                }
+                written += tail;
+                out.force(true);
+                // The new log is moved in place while still open, so the store never runs without a log
+                Files.move(compactFile, logFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                replaced = true;
+                closeQuietly(logChannel);
+                logChannel = out;
+                logChannel.position(written);
+                log.info("Compacted embedded metadata store log from {} to {} bytes ({} keys)", logBytes, written, index.size());
+                logBytes = written;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            if (!replaced) {
+                closeQuietly(out);
+                Files.deleteIfExists(compactFile);
+            }
+        }
+    }
+
+    private static long writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer);
+        }
+        return written;
+    }
+
+    long logBytes() {
+        lock.readLock().lock();
+        try {
+            return logBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // =================================================================
+    // WATCHES
+    // =================================================================
+
+    /**
+     * Deliver every change committed after this call to a key starting with the prefix.
+     * Listeners run on the store's dispatch thread, in commit order, and must not block.
+     *
+     * @return handle that stops the watch when closed
+     */
+    AutoCloseable watch(String prefix, Consumer<List<Event>> listener) {
+        Watcher watcher = new Watcher(prefix, listener);
+        watchers.add(watcher);
+        return () -> watchers.remove(watcher);
+    }
+
+    private void dispatch(List<Event> events) {
+        if (watchers.isEmpty()) {
+            return;
+        }
+        try {
+            dispatcher.execute(() -> {
+                for (Watcher watcher : watchers) {
+                    List<Event> matching = new ArrayList<>();
+                    for (Event event : events) {
+                        if (event.key().startsWith(watcher.prefix)) {
+                            matching.add(event);
+                        }
+                    }
+                    if (matching.isEmpty()) {
+                        continue;
+                    }
+                    try {
+                        watcher.listener.accept(matching);
+                    } catch (Exception e) {
+                        log.warn("Embedded metadata store watcher of {} failed: {}", watcher.prefix, e.getMessage(), e);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Closed
+        }
+    }
+
+    private record Watcher(String prefix, Consumer<List<Event>> listener) {
+    }
+
+    // =================================================================
+    // LIFECYCLE
+    // =================================================================
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            watchers.clear();
+            dispatcher.shutdown();
+            compactor.shutdown();
+            closeQuietly(logChannel);
+            if (fileLock != null) {
+                try {
+                    fileLock.release();
+                } catch (IOException e) {
+                    log.debug("Failed to release embedded metadata store lock: {}", e.getMessage());
+                }
+            }
+            closeQuietly(lockChannel);
+            if (openDirectory != null) {
+                OPEN_DIRECTORIES.remove(openDirectory);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.debug("Failed to close embedded metadata store file: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Current index contents, for tests.
+     */
+    Map<String, Entry> entries() {
+        lock.readLock().lock();
+        try {
+            return new TreeMap<>(index);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,1004 @@
+package io.clustercontroller.store;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.clustercontroller.config.Constants;
+import io.clustercontroller.models.Alias;
+import io.clustercontroller.models.ClusterControllerAssignment;
+import io.clustercontroller.models.ClusterInformation;
+import io.clustercontroller.models.CoordinatorGoalState;
+import io.clustercontroller.models.Index;
+import io.clustercontroller.models.IndexSettings;
+import io.clustercontroller.models.SearchUnit;
+import io.clustercontroller.models.SearchUnitActualState;
+import io.clustercontroller.models.SearchUnitGoalState;
+import io.clustercontroller.models.ShardAllocation;
+import io.clustercontroller.models.TaskMetadata;
+import io.clustercontroller.models.Template;
+import io.clustercontroller.models.TypeMapping;
+import io.clustercontroller.store.EmbeddedKvStore.CommitResult;
+import io.clustercontroller.store.EmbeddedKvStore.Entry;
+import io.clustercontroller.store.EmbeddedKvStore.Mutation;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static io.clustercontroller.config.Constants.PATH_DELIMITER;
+import static io.clustercontroller.config.Constants.SUFFIX_ACTUAL_ALLOCATION;
+import static io.clustercontroller.config.Constants.SUFFIX_ACTUAL_STATE;
+import static io.clustercontroller.config.Constants.SUFFIX_GOAL_STATE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * MetadataStore kept in a local directory instead of etcd, for single-node and edge deployments where running an
+ * etcd cluster is not worth it. Backed by {@link EmbeddedKvStore}: an append-only log recovered on start and a
+ * sorted in-memory index, so reads never leave the process and writes cost one local append.
+ * <p>
+ * Uses the same key layout and value encodings as {@link EtcdMetadataStore}, including modRevision-based CAS on
+ * goal states and revision guards in write batches, so callers see the same semantics. Only one process may open
+ * a directory; that process is always the leader.
+ */
+@Slf4j
+public class EmbeddedMetadataStore implements MetadataStore {
+
+    private final Path directory;
+    private final boolean fsync;
+    private final EtcdPathResolver pathResolver;
+    private final ObjectMapper objectMapper;
+    private final StoreStats stats = new StoreStats();
+    // Completed and failed tasks by modRevision, skipped without decoding when listing tasks
+    private final TerminalTasks terminalTasks = new TerminalTasks();
+    // Encoding of actual and goal states; decodes every format, so it can change while old values remain
+    private volatile ValueCodec stateCodec;
+    private volatile String coordinatorGoalStateGroup = Constants.PATH_COORDINATORS;
+    private volatile String coordinatorGoalStateUnit = "default-coordinator";
+    private volatile EmbeddedKvStore kvStore;
+
+    /**
+     * @param fsync force each write to disk before it is acknowledged
+     */
+    public EmbeddedMetadataStore(Path directory, boolean fsync, EtcdPathResolver pathResolver) {
+        this.directory = directory;
+        this.fsync = fsync;
+        this.pathResolver = pathResolver;
+        this.objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.stateCodec = JacksonValueCodec.json(objectMapper);
+    }
+
+    public void setCoordinatorGoalStateLocation(String searchUnitGroup, String searchUnit) {
+        if (searchUnitGroup != null && !searchUnitGroup.isBlank()) {
+            this.coordinatorGoalStateGroup = searchUnitGroup;
+        }
+        if (searchUnit != null && !searchUnit.isBlank()) {
+            this.coordinatorGoalStateUnit = searchUnit;
+        }
+    }
+
+    /**
+     * Set how search unit actual and goal states and the coordinator goal state are encoded on write.
+     * Reads accept every format regardless.
+     */
+    public void setStateValueFormat(String format, boolean compressed) {
+        ValueCodec.Format valueFormat = ValueCodec.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        this.stateCodec = new JacksonValueCodec(objectMapper, valueFormat, compressed);
+    }
+
+    public ValueCodec getStateValueCodec() {
+        return stateCodec;
+    }
+
+    // =================================================================
+    // CONTROLLER TASKS OPERATIONS
+    // =================================================================
+
+    @Override
+    public List<TaskMetadata> getAllTasks(String clusterId) throws Exception {
+        try {
+            List<TaskMetadata> tasks = new ArrayList<>();
+            Set<String> terminalKeys = new HashSet<>();
+            for (Entry entry : scan(clusterId, pathResolver.getControllerTasksPrefix(clusterId))) {
+                if (terminalTasks.isKnownTerminal(clusterId, entry.key(), entry.modRevision())) {
+                    terminalKeys.add(entry.key());
+                    continue;
+                }
+                TaskMetadata task = objectMapper.readValue(entry.value(), TaskMetadata.class);
+                if (TerminalTasks.isTerminal(task)) {
+                    terminalTasks.remember(clusterId, entry.key(), entry.modRevision());
+                    terminalKeys.add(entry.key());
+                } else {
+                    tasks.add(task);
+                }
+            }
+            terminalTasks.retain(clusterId, terminalKeys);
+            // Sort by priority (0 = highest priority)
+            tasks.sort((t1, t2) -> Integer.compare(t1.getPriority(), t2.getPriority()));
+            return tasks;
+        } catch (Exception e) {
+            log.error("Failed to get all tasks from embedded store: {}", e.getMessage(), e);
+            throw new Exception("Failed to retrieve tasks from embedded store", e);
+        }
+    }
+
+    @Override
+    public Optional<TaskMetadata> getTask(String clusterId, String taskName) throws Exception {
+        try {
+            return Optional.ofNullable(readJson(clusterId, pathResolver.getControllerTaskPath(clusterId, taskName), TaskMetadata.class));
+        } catch (Exception e) {
+            log.error("Failed to get task {} from embedded store: {}", taskName, e.getMessage(), e);
+            throw new Exception("Failed to retrieve task from embedded store", e);
+        }
+    }
+
+    @Override
+    public Versioned<TaskMetadata> getTaskVersioned(String clusterId, String taskName) throws Exception {
+        Entry entry = get(clusterId, pathResolver.getControllerTaskPath(clusterId, taskName));
+        return entry == null ? Versioned.absent()
+            : Versioned.of(objectMapper.readValue(entry.value(), TaskMetadata.class), entry.modRevision());
+    }
+
+    @Override
+    public String createTask(String clusterId, TaskMetadata task) throws Exception {
+        try {
+            writeJson(clusterId, pathResolver.getControllerTaskPath(clusterId, task.getName()), task);
+            log.info("Created task {} in embedded store", task.getName());
+            return task.getName();
+        } catch (Exception e) {
+            log.error("Failed to create task {} in embedded store: {}", task.getName(), e.getMessage(), e);
+            throw new Exception("Failed to create task in embedded store", e);
+        }
+    }
+
+    @Override
+    public void updateTask(String clusterId, TaskMetadata task) throws Exception {
+        try {
+            writeJson(clusterId, pathResolver.getControllerTaskPath(clusterId, task.getName()), task);
+        } catch (Exception e) {
+            log.error("Failed to update task {} in embedded store: {}", task.getName(), e.getMessage(), e);
+            throw new Exception("Failed to update task in embedded store", e);
+        }
+    }
+
+    @Override
+    public Versioned<TaskMetadata> updateTask(String clusterId, TaskMetadata task, long expectedRevision) throws Exception {
+        String key = pathResolver.getControllerTaskPath(clusterId, task.getName());
+        CommitResult result = commit(clusterId, Mutation.put(key, objectMapper.writeValueAsBytes(task)).ifModRevision(expectedRevision));
+        if (!result.isFullyApplied()) {
+            stats.recordCasConflict(clusterId);
+            throw new VersionConflictException(key, expectedRevision, getTaskVersioned(clusterId, task.getName()));
+        }
+        return Versioned.of(task, result.revision());
+    }
+
+    @Override
+    public void deleteTask(String clusterId, String taskName) throws Exception {
+        try {
+            String taskPath = pathResolver.getControllerTaskPath(clusterId, taskName);
+            delete(clusterId, taskPath);
+            terminalTasks.forget(clusterId, taskPath);
+            log.info("Deleted task {} from embedded store", taskName);
+        } catch (Exception e) {
+            log.error("Failed to delete task {} from embedded store: {}", taskName, e.getMessage(), e);
+            throw new Exception("Failed to delete task from embedded store", e);
+        }
+    }
+
+    /**
+     * One local commit; each delete is guarded by the modRevision the task was read at, so a task rewritten
+     * since is kept. The archive holds every task read as expired.
+     */
+    @Override
+    public int deleteOldTasks(String clusterId, long olderThanTimestamp, boolean archive) throws Exception {
+        log.debug("Deleting old tasks of cluster '{}' from embedded store older than {}", clusterId, olderThanTimestamp);
+        try {
+            List<Mutation> mutations = new ArrayList<>();
+            List<TaskMetadata> expired = new ArrayList<>();
+            for (Entry entry : scan(clusterId, pathResolver.getControllerTasksPrefix(clusterId))) {
+                TaskMetadata task;
+                try {
+                    task = objectMapper.readValue(entry.value(), TaskMetadata.class);
+                } catch (Exception e) {
+                    log.warn("Skipping unreadable task at key {}: {}", entry.key(), e.getMessage());
+                    continue;
+                }
+                if (TerminalTasks.isExpired(task, olderThanTimestamp)) {
+                    mutations.add(Mutation.delete(entry.key()).ifModRevision(entry.modRevision()));
+                    expired.add(task);
+                }
+            }
+            if (mutations.isEmpty()) {
+                return 0;
+            }
+            if (archive) {
+                String archiveKey = pathResolver.getControllerTaskHistoryPath(clusterId, String.valueOf(System.currentTimeMillis()));
+                mutations.add(Mutation.put(archiveKey, TerminalTasks.encodeArchive(objectMapper, expired)));
+            }
+            CommitResult result = commit(clusterId, mutations.toArray(new Mutation[0]));
+            int deleted = 0;
+            for (Mutation mutation : mutations) {
+                if (mutation.isDelete() && !result.rejected().contains(mutation)) {
+                    terminalTasks.forget(clusterId, mutation.key());
+                    deleted++;
+                }
+            }
+            log.info("Deleted {} old tasks of cluster '{}' from embedded store", deleted, clusterId);
+            return deleted;
+        } catch (Exception e) {
+            log.error("Failed to delete old tasks of cluster '{}' from embedded store: {}", clusterId, e.getMessage(), e);
+            throw new Exception("Failed to delete old tasks from embedded store", e);
+        }
+    }
+
+    // =================================================================
+    // SEARCH UNITS OPERATIONS
+    // =================================================================
+
+    @Override
+    public List<SearchUnit> getAllSearchUnits(String clusterId) throws Exception {
+        try {
+            return readAllConf(clusterId, pathResolver.getSearchUnitsPrefix(clusterId), SearchUnit.class);
+        } catch (Exception e) {
+            log.error("Failed to get all search units from embedded store: {}", e.getMessage(), e);
+            throw new Exception("Failed to retrieve search units from embedded store", e);
+        }
+    }
+
+    @Override
+    public Optional<SearchUnit> getSearchUnit(String clusterId, String unitName) throws Exception {
+        try {
+            return Optional.ofNullable(readJson(clusterId, pathResolver.getSearchUnitConfPath(clusterId, unitName), SearchUnit.class));
+        } catch (Exception e) {
+            log.error("Failed to get search unit {} from embedded store: {}", unitName, e.getMessage(), e);
+            throw new Exception("Failed to retrieve search unit from embedded store", e);
+        }
+    }
+
+    @Override
+    public void upsertSearchUnit(String clusterId, String unitName, SearchUnit searchUnit) throws Exception {
+        try {
+            writeJson(clusterId, pathResolver.getSearchUnitConfPath(clusterId, unitName), searchUnit);
+            log.info("Upserted search unit {} in embedded store", unitName);
+        } catch (Exception e) {
+            log.error("Failed to upsert search unit {} in embedded store: {}", unitName, e.getMessage(), e);
+            throw new Exception("Failed to upsert search unit in embedded store", e);
+        }
+    }
+
+    @Override
+    public void updateSearchUnit(String clusterId, SearchUnit searchUnit) throws Exception {
+        try {
+            writeJson(clusterId, pathResolver.getSearchUnitConfPath(clusterId, searchUnit.getName()), searchUnit);
+        } catch (Exception e) {
+            log.error("Failed to update search unit {} in embedded store: {}", searchUnit.getName(), e.getMessage(), e);
+            throw new Exception("Failed to update search unit in embedded store", e);
+        }
+    }
+
+    @Override
+    public void deleteSearchUnit(String clusterId, String unitName) throws Exception {
+        try {
+            // Removes conf, goal-state and actual-state together
+            deleteByPrefix(clusterId, pathResolver.getSearchUnitsPrefix(clusterId) + PATH_DELIMITER + unitName + PATH_DELIMITER);
+            log.info("Deleted search unit {} and all its state from embedded store", unitName);
+        } catch (Exception e) {
+            log.error("Failed to delete search unit {} from embedded store: {}", unitName, e.getMessage(), e);
+            throw new Exception("Failed to delete search unit from embedded store", e);
+        }
+    }
+
+    @Override
+    public List<SearchUnit> getAllCoordinators(String clusterId) throws Exception {
+        try {
+            List<SearchUnit> coordinators = new ArrayList<>();
+            for (Entry entry : scan(clusterId, pathResolver.getCoordinatorsPrefix(clusterId))) {
+                if (!entry.key().endsWith(PATH_DELIMITER + SUFFIX_ACTUAL_STATE)) {
+                    continue;
+                }
+                SearchUnitActualState actualState = decode(entry, SearchUnitActualState.class);
+                if (!"coordinator".equals(actualState.getRole())) {
+                    continue;
+                }
+                SearchUnit coordinator = EtcdAsyncMetadataStore.toCoordinator(clusterId, actualState);
+                if (coordinator != null) {
+                    coordinators.add(coordinator);
+                }
+            }
+            return coordinators;
+        } catch (Exception e) {
+            log.error("Failed to get coordinators from embedded store: {}", e.getMessage(), e);
+            throw new Exception("Failed to retrieve coordinators from embedded store", e);
+        }
+    }
+
+    // =================================================================
+    // SEARCH UNIT STATE OPERATIONS
+    // =================================================================
+
+    @Override
+    public Map<String, SearchUnitActualState> getAllSearchUnitActualStates(String clusterId) throws Exception {
+        String prefix = pathResolver.getSearchUnitsPrefix(clusterId);
+        Map<String, SearchUnitActualState> actualStates = new HashMap<>();
+        for (Entry entry : scan(clusterId, prefix)) {
+            // Key below the prefix: <unit-name>/actual-state
+            EtcdKeyBuilder.KeySegments parts = EtcdKeyBuilder.segments(entry.key(), prefix);
+            if (parts.size() >= 2 && parts.is(1, SUFFIX_ACTUAL_STATE)) {
+                try {
+                    actualStates.put(parts.get(0), decode(entry, SearchUnitActualState.class));
+                } catch (Exception e) {
+                    log.warn("Failed to parse actual state for unit {}: {}", parts.get(0), e.getMessage(), e);
+                }
+            }
+        }
+        return actualStates;
+    }
+
+    @Override
+    public SearchUnitGoalState getSearchUnitGoalState(String clusterId, String unitName) throws Exception {
+        return decodeOrNull(get(clusterId, pathResolver.getSearchUnitGoalStatePath(clusterId, unitName)), SearchUnitGoalState.class);
+    }
+
+    @Override
+    public Versioned<SearchUnitGoalState> getSearchUnitGoalStateVersioned(String clusterId, String unitName) throws Exception {
+        Entry entry = get(clusterId, pathResolver.getSearchUnitGoalStatePath(clusterId, unitName));
+        return entry == null ? Versioned.absent() : Versioned.of(decode(entry, SearchUnitGoalState.class), entry.modRevision());
+    }
+
+    @Override
+    public List<String> getAllNodesWithGoalStates(String clusterId) throws Exception {
+        return listChildNames(clusterId, pathResolver.getSearchUnitsPrefix(clusterId), SUFFIX_GOAL_STATE);
+    }
+
+    @Override
+    public SearchUnitActualState getSearchUnitActualState(String clusterId, String unitName) throws Exception {
+        return decodeOrNull(get(clusterId, pathResolver.getSearchUnitActualStatePath(clusterId, unitName)), SearchUnitActualState.class);
+    }
+
+    @Override
+    public void setSearchUnitGoalState(String clusterId, String unitName, SearchUnitGoalState goalState) throws Exception {
+        String key = pathResolver.getSearchUnitGoalStatePath(clusterId, unitName);
+        Entry current = get(clusterId, key);
+        long expectedRevision = current == null ? 0 : current.modRevision();
+        if (!commit(clusterId, Mutation.put(key, stateCodec.encode(goalState)).ifModRevision(expectedRevision)).isFullyApplied()) {
+            stats.recordCasConflict(clusterId);
+            throw new RuntimeException("Failed to update goal state for " + unitName + " due to concurrent modification. Please retry.");
+        }
+    }
+
+    @Override
+    public Versioned<SearchUnitGoalState> setSearchUnitGoalState(String clusterId, String unitName, SearchUnitGoalState goalState,
+                                                                 long expectedRevision) throws Exception {
+        String key = pathResolver.getSearchUnitGoalStatePath(clusterId, unitName);
+        CommitResult result = commit(clusterId, Mutation.put(key, stateCodec.encode(goalState)).ifModRevision(expectedRevision));
+        if (!result.isFullyApplied()) {
+            stats.recordCasConflict(clusterId);
+            throw new VersionConflictException(key, expectedRevision, getSearchUnitGoalStateVersioned(clusterId, unitName));
+        }
+        return Versioned.of(goalState, result.revision());
+    }
+
+    @Override
+    public void setSearchUnitActualState(String clusterId, String unitName, SearchUnitActualState actualState) throws Exception {
+        put(clusterId, pathResolver.getSearchUnitActualStatePath(clusterId, unitName), stateCodec.encode(actualState));
+    }
+
+    // =================================================================
+    // INDEX CONFIGURATIONS OPERATIONS
+    // =================================================================
+
+    @Override
+    public List<Index> getAllIndexConfigs(String clusterId) throws Exception {
+        try {
+            return readAllConf(clusterId, pathResolver.getIndicesPrefix(clusterId), Index.class);
+        } catch (Exception e) {
+            log.error("Failed to get all index configs from embedded store: {}", e.getMessage(), e);
+            throw new Exception("Failed to retrieve index configs from embedded store", e);
+        }
+    }
+
+    @Override
+    public Optional<String> getIndexConfig(String clusterId, String indexName) throws Exception {
+        try {
+            Entry entry = get(clusterId, pathResolver.getIndexConfPath(clusterId, indexName));
+            return entry == null ? Optional.empty() : Optional.of(new String(entry.value(), UTF_8));
+        } catch (Exception e) {
+            log.error("Failed to get index config {} from embedded store: {}", indexName, e.getMessage(), e);
+            throw new Exception("Failed to retrieve index config from embedded store", e);
+        }
+    }
+
+    @Override
+    public String createIndexConfig(String clusterId, String indexName, String indexConfig) throws Exception {
+        try {
+            put(clusterId, pathResolver.getIndexConfPath(clusterId, indexName), indexConfig.getBytes(UTF_8));
+            log.info("Created index config {} in embedded store", indexName);
+            return indexName;
+        } catch (Exception e) {
+            log.error("Failed to create index config {} in embedded store: {}", indexName, e.getMessage(), e);
+            throw new Exception("Failed to create index config in embedded store", e);
+        }
+    }
+
+    @Override
+    public void updateIndexConfig(String clusterId, String indexName, String indexConfig) throws Exception {
+        try {
+            put(clusterId, pathResolver.getIndexConfPath(clusterId, indexName), indexConfig.getBytes(UTF_8));
+        } catch (Exception e) {
+            log.error("Failed to update index config {} in embedded store: {}", indexName, e.getMessage(), e);
+            throw new Exception("Failed to update index config in embedded store", e);
+        }
+    }
+
+    @Override
+    public void deleteIndexConfig(String clusterId, String indexName) throws Exception {
+        try {
+            delete(clusterId, pathResolver.getIndexConfPath(clusterId, indexName));
+            log.info("Deleted index config {} from embedded store", indexName);
+        } catch (Exception e) {
+            log.error("Failed to delete index config {} from embedded store: {}", indexName, e.getMessage(), e);
+            throw new Exception("Failed to delete index config from embedded store", e);
+        }
+    }
+
+    @Override
+    public void setIndexMappings(String clusterId, String indexName, String mappings) throws Exception {
+        try {
+            put(clusterId, pathResolver.getIndexMappingsPath(clusterId, indexName), mappings.getBytes(UTF_8));
+        } catch (Exception e) {
+            log.error("Failed to set index mappings for {} in embedded store: {}", indexName, e.getMessage(), e);
+            throw new Exception("Failed to set index mappings in embedded store", e);
+        }
+    }
+
+    @Override
+    public TypeMapping getIndexMappings(String clusterId, String indexName) throws Exception {
+        return readJson(clusterId, pathResolver.getIndexMappingsPath(clusterId, indexName), TypeMapping.class);
+    }
+
+    @Override
+    public IndexSettings getIndexSettings(String clusterId, String indexName) throws Exception {
+        try {
+            Entry entry = get(clusterId, pathResolver.getIndexSettingsPath(clusterId, indexName));
+            if (entry == null) {
+                return null;
+            }
+            // Stored wrapped in an "index" object, as written by setIndexSettings
+            JsonNode rootNode = objectMapper.readTree(entry.value());
+            JsonNode settingsNode = rootNode.has("index") ? rootNode.get("index") : rootNode;
+            return objectMapper.treeToValue(settingsNode, IndexSettings.class);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to parse index settings JSON for {} from embedded store: {}", indexName, e.getMessage(), e);
+            throw new Exception("Failed to parse index settings JSON from embedded store", e);
+        } catch (Exception e) {
+            log.error("Failed to get index settings {} from embedded store: {}", indexName, e.getMessage(), e);
+            throw new Exception("Failed to retrieve index settings from embedded store", e);
+        }
+    }
+
+    @Override
+    public void setIndexSettings(String clusterId, String indexName, String settings) throws Exception {
+        try {
+            // Wrap settings in "index" key to match Elasticsearch convention
+            Map<String, JsonNode> wrappedSettings = new HashMap<>();
+            wrappedSettings.put("index", objectMapper.readTree(settings));
+            put(clusterId, pathResolver.getIndexSettingsPath(clusterId, indexName), objectMapper.writeValueAsBytes(wrappedSettings));
+        } catch (Exception e) {
+            log.error("Failed to set index settings for {} in embedded store: {}", indexName, e.getMessage(), e);
+            throw new Exception("Failed to set index settings in embedded store", e);
+        }
+    }
+
+    @Override
+    public void deletePrefix(String clusterId, String prefix) throws Exception {
+        try {
+            deleteByPrefix(clusterId, prefix + PATH_DELIMITER);
+        } catch (Exception e) {
+            log.error("Failed to delete keys with prefix {} in embedded store: {}", prefix, e.getMessage(), e);
+            throw new Exception("Failed to delete keys with prefix in embedded store", e);
+        }
+    }
+
+    // =================================================================
+    // TEMPLATE OPERATIONS
+    // =================================================================
+
+    @Override
+    public Template getTemplate(String clusterId, String templateName) throws Exception {
+        Template template;
+        try {
+            template = readJson(clusterId, pathResolver.getTemplateConfPath(clusterId, templateName), Template.class);
+        } catch (Exception e) {
+            log.error("Failed to get template {} from embedded store: {}", templateName, e.getMessage(), e);
+            throw new Exception("Failed to retrieve template from embedded store", e);
+        }
+        if (template == null) {
+            throw new IllegalArgumentException("Template '" + templateName + "' not found");
+        }
+        return template;
+    }
+
+    @Override
+    public String createTemplate(String clusterId, String templateName, String templateConfig) throws Exception {
+        try {
+            put(clusterId, pathResolver.getTemplateConfPath(clusterId, templateName), templateConfig.getBytes(UTF_8));
+            log.info("Created template {} in embedded store", templateName);
+            return templateName;
+        } catch (Exception e) {
+            log.error("Failed to create template {} in embedded store: {}", templateName, e.getMessage(), e);
+            throw new Exception("Failed to create template in embedded store", e);
+        }
+    }
+
+    @Override
+    public void updateTemplate(String clusterId, String templateName, String templateConfig) throws Exception {
+        try {
+            put(clusterId, pathResolver.getTemplateConfPath(clusterId, templateName), templateConfig.getBytes(UTF_8));
+        } catch (Exception e) {
+            log.error("Failed to update template {} in embedded store: {}", templateName, e.getMessage(), e);
+            throw new Exception("Failed to update template in embedded store", e);
+        }
+    }
+
+    @Override
+    public void deleteTemplate(String clusterId, String templateName) throws Exception {
+        try {
+            delete(clusterId, pathResolver.getTemplateConfPath(clusterId, templateName));
+            log.info("Deleted template {} from embedded store", templateName);
+        } catch (Exception e) {
+            log.error("Failed to delete template {} from embedded store: {}", templateName, e.getMessage(), e);
+            throw new Exception("Failed to delete template from embedded store", e);
+        }
+    }
+
+    @Override
+    public List<Template> getAllTemplates(String clusterId) throws Exception {
+        try {
+            return readAllConf(clusterId, pathResolver.getTemplatesPrefix(clusterId), Template.class);
+        } catch (Exception e) {
+            log.error("Failed to get all templates from embedded store for cluster {}: {}", clusterId, e.getMessage(), e);
+            throw new Exception("Failed to retrieve templates from embedded store", e);
+        }
+    }
+
+    // =================================================================
+    // SHARD ALLOCATION OPERATIONS
+    // =================================================================
+
+    @Override
+    public ShardAllocation getPlannedAllocation(String clusterId, String indexName, String shardId) throws Exception {
+        return readJson(clusterId, pathResolver.getShardPlannedAllocationPath(clusterId, indexName, shardId), ShardAllocation.class);
+    }
+
+    @Override
+    public void setPlannedAllocation(String clusterId, String indexName, String shardId, ShardAllocation allocation) throws Exception {
+        writeJson(clusterId, pathResolver.getShardPlannedAllocationPath(clusterId, indexName, shardId), allocation);
+    }
+
+    @Override
+    public ShardAllocation getActualAllocation(String clusterId, String indexName, String shardId) throws Exception {
+        return readJson(clusterId, pathResolver.getShardActualAllocationPath(clusterId, indexName, shardId), ShardAllocation.class);
+    }
+
+    @Override
+    public void setActualAllocation(String clusterId, String indexName, String shardId, ShardAllocation allocation) throws Exception {
+        writeJson(clusterId, pathResolver.getShardActualAllocationPath(clusterId, indexName, shardId), allocation);
+    }
+
+    @Override
+    public List<ShardAllocation> getAllActualAllocations(String clusterId, String indexName) throws Exception {
+        List<ShardAllocation> allocations = new ArrayList<>();
+        for (Entry entry : scan(clusterId, pathResolver.getIndexPrefix(clusterId, indexName))) {
+            if (entry.key().endsWith(PATH_DELIMITER + SUFFIX_ACTUAL_ALLOCATION)) {
+                allocations.add(objectMapper.readValue(entry.value(), ShardAllocation.class));
+            }
+        }
+        return allocations;
+    }
+
+    @Override
+    public void deleteActualAllocation(String clusterId, String indexName, String shardId) throws Exception {
+        try {
+            delete(clusterId, pathResolver.getShardActualAllocationPath(clusterId, indexName, shardId));
+        } catch (Exception e) {
+            log.error("Failed to delete actual allocation for {}/{} from embedded store: {}", indexName, shardId, e.getMessage(), e);
+            throw new Exception("Failed to delete actual allocation from embedded store", e);
+        }
+    }
+
+    @Override
+    public Set<String> getAllIndicesWithActualAllocations(String clusterId) throws Exception {
+        return new LinkedHashSet<>(listChildNames(clusterId, pathResolver.getIndicesPrefix(clusterId), SUFFIX_ACTUAL_ALLOCATION));
+    }
+
+    // =================================================================
+    // ALIAS CONFIGURATION OPERATIONS
+    // =================================================================
+
+    @Override
+    public Alias getAlias(String clusterId, String aliasName) throws Exception {
+        return readJson(clusterId, pathResolver.getAliasConfPath(clusterId, aliasName), Alias.class);
+    }
+
+    @Override
+    public void setAlias(String clusterId, String aliasName, Alias alias) throws Exception {
+        writeJson(clusterId, pathResolver.getAliasConfPath(clusterId, aliasName), alias);
+    }
+
+    @Override
+    public void deleteAlias(String clusterId, String aliasName) throws Exception {
+        delete(clusterId, pathResolver.getAliasConfPath(clusterId, aliasName));
+    }
+
+    @Override
+    public List<Alias> getAllAliases(String clusterId) throws Exception {
+        return readAll(clusterId, pathResolver.getAliasesPrefix(clusterId), Alias.class);
+    }
+
+    // =================================================================
+    // CLUSTER SNAPSHOT OPERATIONS
+    // =================================================================
+
+    /**
+     * Read under one lock of the index, so the snapshot is exactly the state at the store's current revision.
+     */
+    @Override
+    public ClusterSnapshot loadClusterSnapshot(String clusterId) throws Exception {
+        try {
+            EmbeddedKvStore.ScanResult scan = kvStore().scan(
+                pathResolver.getSearchUnitsPrefix(clusterId) + PATH_DELIMITER,
+                pathResolver.getIndicesPrefix(clusterId) + PATH_DELIMITER,
+                pathResolver.getAliasesPrefix(clusterId) + PATH_DELIMITER);
+            recordRead(clusterId, scan.entries());
+            return ClusterSnapshot.fromEntries(clusterId, scan.revision(), scan.entries(), Entry::key, Entry::modRevision,
+                this::decode, pathResolver);
+        } catch (Exception e) {
+            log.error("Failed to load cluster snapshot for cluster '{}': {}", clusterId, e.getMessage(), e);
+            throw new Exception("Failed to load cluster snapshot from embedded store", e);
+        }
+    }
+
+    // =================================================================
+    // BATCH WRITE OPERATIONS
+    // =================================================================
+
+    /**
+     * Batches are committed as one atomic append; guarded operations whose target changed are left out as CONFLICT.
+     */
+    @Override
+    public WriteBatch newWriteBatch() {
+        return new WriteBatch() {
+            @Override
+            protected WriteBatchResult commit(List<WriteOperation> operations) throws Exception {
+                return commitBatch(operations);
+            }
+        };
+    }
+
+    private WriteBatchResult commitBatch(List<WriteOperation> operations) throws Exception {
+        Map<Mutation, WriteOperation> byMutation = new HashMap<>();
+        List<Mutation> mutations = new ArrayList<>(operations.size());
+        for (WriteOperation operation : operations) {
+            String key = EtcdWriteBatch.keyOf(operation, pathResolver);
+            Mutation mutation = operation.isDelete()
+                ? Mutation.delete(key)
+                : Mutation.put(key, EtcdWriteBatch.valueOf(operation, objectMapper, stateCodec));
+            if (operation.isGuarded()) {
+                mutation = mutation.ifNotModifiedAfter(operation.getUnchangedSinceRevision());
+            }
+            mutations.add(mutation);
+            byMutation.put(mutation, operation);
+        }
+
+        // Batches are accounted to the cluster of their first operation, as for etcd
+        CommitResult committed = commit(operations.get(0).getClusterId(), mutations.toArray(new Mutation[0]));
+        Set<WriteOperation> conflicts = new LinkedHashSet<>();
+        for (Mutation rejected : committed.rejected()) {
+            conflicts.add(byMutation.get(rejected));
+            stats.recordCasConflict(byMutation.get(rejected).getClusterId());
+        }
+        WriteBatchResult result = new WriteBatchResult();
+        for (WriteOperation operation : operations) {
+            result.record(operation, conflicts.contains(operation) ? WriteBatchResult.Status.CONFLICT : WriteBatchResult.Status.APPLIED);
+        }
+        return result;
+    }
+
+    // =================================================================
+    // INDEX READINESS OPERATIONS
+    // =================================================================
+
+    @Override
+    public boolean isIndexReady(String clusterId, String indexName) throws Exception {
+        try {
+            Index indexConfig = getAllIndexConfigs(clusterId).stream()
+                .filter(i -> indexName.equals(i.getIndexName()))
+                .findFirst()
+                .orElse(null);
+            if (indexConfig == null) {
+                log.debug("Index {} not found in cluster {}, not ready", indexName, clusterId);
+                return false;
+            }
+            return EtcdAsyncMetadataStore.areAllShardsReady(clusterId, indexName,
+                indexConfig.getSettings().getNumberOfShards(), getAllSearchUnitActualStates(clusterId));
+        } catch (Exception e) {
+            log.error("Failed to check if index {} is ready: {}", indexName, e.getMessage(), e);
+            throw new Exception("Failed to check index readiness", e);
+        }
+    }
+
+    /**
+     * Re-checks readiness on every local change to the cluster's actual states or index configs.
+     */
+    @Override
+    public CompletableFuture<Boolean> waitForIndexReady(String clusterId, String indexName, long timeoutMs) {
+        CompletableFuture<Boolean> ready = new CompletableFuture<>();
+        AutoCloseable unitsWatch;
+        AutoCloseable indicesWatch;
+        try {
+            EmbeddedKvStore store = kvStore();
+            unitsWatch = store.watch(pathResolver.getSearchUnitsPrefix(clusterId) + PATH_DELIMITER,
+                events -> recheckReady(clusterId, indexName, ready));
+            indicesWatch = store.watch(pathResolver.getIndexPrefix(clusterId, indexName) + PATH_DELIMITER,
+                events -> recheckReady(clusterId, indexName, ready));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        ready.whenComplete((result, error) -> {
+            closeQuietly(unitsWatch);
+            closeQuietly(indicesWatch);
+        });
+        // Checked after the watches are open, so no change in between is missed
+        recheckReady(clusterId, indexName, ready);
+        ready.completeOnTimeout(false, Math.max(0, timeoutMs), TimeUnit.MILLISECONDS);
+        return ready;
+    }
+
+    private void recheckReady(String clusterId, String indexName, CompletableFuture<Boolean> ready) {
+        if (ready.isDone()) {
+            return;
+        }
+        try {
+            if (isIndexReady(clusterId, indexName)) {
+                ready.complete(true);
+            }
+        } catch (Exception e) {
+            ready.completeExceptionally(e);
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            log.debug("Failed to close embedded store watch: {}", e.getMessage());
+        }
+    }
+
+    // =================================================================
+    // CLUSTER OPERATIONS
+    // =================================================================
+
+    @Override
+    public synchronized void initialize() throws Exception {
+        if (kvStore != null) {
+            return;
+        }
+        try {
+            kvStore = EmbeddedKvStore.open(directory, fsync);
+            log.info("Embedded metadata store opened at {} (fsync={})", directory, fsync);
+        } catch (IOException e) {
+            log.error("Failed to open embedded metadata store at {}: {}", directory, e.getMessage(), e);
+            throw new Exception("Failed to open embedded metadata store at " + directory, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws Exception {
+        if (kvStore != null) {
+            kvStore.close();
+            kvStore = null;
+            log.info("Embedded metadata store at {} closed", directory);
+        }
+    }
+
+    @Override
+    public void releaseCluster(String clusterId) {
+        stats.releaseCluster(clusterId);
+        terminalTasks.releaseCluster(clusterId);
+    }
+
+    @Override
+    public StoreStats stats() {
+        return stats;
+    }
+
+    /**
+     * Single process per directory, so this instance is always the leader.
+     */
+    @Override
+    public boolean isLeader() {
+        return true;
+    }
+
+    @Override
+    public ClusterControllerAssignment getAssignedController(String clusterId) throws Exception {
+        try {
+            return readJson(clusterId, pathResolver.getClusterAssignedControllerPath(clusterId), ClusterControllerAssignment.class);
+        } catch (Exception e) {
+            log.error("Failed to get assigned controller for cluster '{}': {}", clusterId, e.getMessage(), e);
+            throw new Exception("Failed to get assigned controller: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void setCoordinatorGoalState(String clusterId, CoordinatorGoalState goalState) throws Exception {
+        String path = pathResolver.getCoordinatorGoalStatePath(clusterId, coordinatorGoalStateGroup, coordinatorGoalStateUnit);
+        put(clusterId, path, stateCodec.encode(goalState));
+    }
+
+    @Override
+    public CoordinatorGoalState getCoordinatorGoalState(String clusterId) throws Exception {
+        String path = pathResolver.getCoordinatorGoalStatePath(clusterId, coordinatorGoalStateGroup, coordinatorGoalStateUnit);
+        return decodeOrNull(get(clusterId, path), CoordinatorGoalState.class);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public ClusterInformation.Version getClusterVersion(String clusterId) throws Exception {
+        Entry entry = get(clusterId, pathResolver.getClusterRegistryPath(clusterId));
+        if (entry == null) {
+            return null;
+        }
+        // Registry entries hold more than the version; extract just that field
+        Map<String, Object> metadata = objectMapper.readValue(entry.value(), Map.class);
+        return metadata.containsKey("version")
+            ? objectMapper.convertValue(metadata.get("version"), ClusterInformation.Version.class)
+            : null;
+    }
+
+    // =================================================================
+    // PRIVATE HELPER METHODS
+    // =================================================================
+
+    private EmbeddedKvStore kvStore() {
+        EmbeddedKvStore store = kvStore;
+        if (store == null) {
+            throw new IllegalStateException("Embedded metadata store at " + directory + " is not initialized");
+        }
+        return store;
+    }
+
+    private Entry get(String clusterId, String key) {
+        Entry entry = kvStore().get(key);
+        stats.recordRequest(clusterId);
+        if (entry != null) {
+            stats.recordRead(clusterId, 1, entry.key().length() + entry.value().length);
+        }
+        return entry;
+    }
+
+    /**
+     * Entries below a prefix (trailing delimiter added), in key order.
+     */
+    private List<Entry> scan(String clusterId, String prefix) {
+        List<Entry> entries = kvStore().scan(prefix + PATH_DELIMITER).entries();
+        recordRead(clusterId, entries);
+        return entries;
+    }
+
+    private void recordRead(String clusterId, List<Entry> entries) {
+        long bytes = 0;
+        for (Entry entry : entries) {
+            bytes += entry.key().length() + entry.value().length;
+        }
+        stats.recordRequest(clusterId);
+        stats.recordRead(clusterId, entries.size(), bytes);
+    }
+
+    private void put(String clusterId, String key, byte[] value) throws IOException {
+        commit(clusterId, Mutation.put(key, value));
+    }
+
+    private void delete(String clusterId, String key) throws IOException {
+        commit(clusterId, Mutation.delete(key));
+    }
+
+    private void deleteByPrefix(String clusterId, String prefix) throws IOException {
+        kvStore().deletePrefix(prefix);
+        stats.recordRequest(clusterId);
+    }
+
+    private CommitResult commit(String clusterId, Mutation... mutations) throws IOException {
+        CommitResult result = kvStore().commit(List.of(mutations));
+        stats.recordRequest(clusterId);
+        long bytes = 0;
+        for (Mutation mutation : mutations) {
+            if (!mutation.isDelete() && !result.rejected().contains(mutation)) {
+                bytes += mutation.key().length() + mutation.value().length;
+            }
+        }
+        stats.recordWrite(clusterId, bytes);
+        return result;
+    }
+
+    /**
+     * Decode any stored value: the state codec reads its own formats as well as plain JSON.
+     */
+    private <T> T decode(Entry entry, Class<T> clazz) throws IOException {
+        return stateCodec.decode(entry.value(), clazz);
+    }
+
+    private <T> T decodeOrNull(Entry entry, Class<T> clazz) throws IOException {
+        return entry == null ? null : decode(entry, clazz);
+    }
+
+    private <T> T readJson(String clusterId, String key, Class<T> clazz) throws IOException {
+        Entry entry = get(clusterId, key);
+        return entry == null ? null : objectMapper.readValue(entry.value(), clazz);
+    }
+
+    private void writeJson(String clusterId, String key, Object value) throws IOException {
+        put(clusterId, key, objectMapper.writeValueAsBytes(value));
+    }
+
+    /**
+     * Every value below a prefix; unlike the conf-only listings, a value that does not parse fails the read.
+     */
+    private <T> List<T> readAll(String clusterId, String prefix, Class<T> clazz) throws IOException {
+        List<T> items = new ArrayList<>();
+        for (Entry entry : scan(clusterId, prefix)) {
+            items.add(objectMapper.readValue(entry.value(), clazz));
+        }
+        return items;
+    }
+
+    /**
+     * Values of the keys ending in /conf below a prefix; values that do not parse are skipped.
+     */
+    private <T> List<T> readAllConf(String clusterId, String prefix, Class<T> clazz) {
+        List<T> items = new ArrayList<>();
+        for (Entry entry : scan(clusterId, prefix)) {
+            if (!entry.key().endsWith(PATH_DELIMITER + Constants.SUFFIX_CONF)) {
+                continue;
+            }
+            try {
+                items.add(objectMapper.readValue(entry.value(), clazz));
+            } catch (Exception e) {
+                log.warn("Failed to parse config at key {}: {}", entry.key(), e.getMessage());
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Distinct names of the direct children of a prefix that have a key ending in the given suffix.
+     */
+    private List<String> listChildNames(String clusterId, String prefix, String suffix) {
+        String prefixWithSlash = prefix + PATH_DELIMITER;
+        String keySuffix = PATH_DELIMITER + suffix;
+        Set<String> childNames = new LinkedHashSet<>();
+        for (Entry entry : scan(clusterId, prefix)) {
+            String key = entry.key();
+            int end = key.indexOf(PATH_DELIMITER, prefixWithSlash.length());
+            if (end > 0 && key.endsWith(keySuffix)) {
+                childNames.add(key.substring(prefixWithSlash.length(), end));
+            }
+        }
+        return new ArrayList<>(childNames);
+    }
+}
@@ -0,0 +1,1884 @@
+package io.clustercontroller.store;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.clustercontroller.config.Constants;
+import io.clustercontroller.enums.HealthState;
+import io.clustercontroller.models.Alias;
+import io.clustercontroller.models.ClusterControllerAssignment;
+import io.clustercontroller.models.ClusterInformation;
+import io.clustercontroller.models.CoordinatorGoalState;
+import io.clustercontroller.models.Index;
+import io.clustercontroller.models.IndexSettings;
+import io.clustercontroller.models.SearchUnit;
+import io.clustercontroller.models.SearchUnitActualState;
+import io.clustercontroller.models.SearchUnitGoalState;
+import io.clustercontroller.models.ShardAllocation;
+import io.clustercontroller.models.TaskMetadata;
+import io.clustercontroller.models.Template;
+import io.clustercontroller.models.TypeMapping;
+import io.clustercontroller.store.EtcdTimeouts.OperationClass;
+import io.etcd.jetcd.ByteSequence;
+import io.etcd.jetcd.KV;
+import io.etcd.jetcd.KeyValue;
+import io.etcd.jetcd.common.exception.ErrorCode;
+import io.etcd.jetcd.common.exception.EtcdException;
+import io.etcd.jetcd.kv.GetResponse;
+import io.etcd.jetcd.kv.TxnResponse;
+import io.etcd.jetcd.op.Cmp;
+import io.etcd.jetcd.op.CmpTarget;
+import io.etcd.jetcd.op.Op;
+import io.etcd.jetcd.options.DeleteOption;
+import io.etcd.jetcd.options.GetOption;
+import io.etcd.jetcd.options.PutOption;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static io.clustercontroller.config.Constants.PATH_DELIMITER;
+import static io.clustercontroller.config.Constants.SUFFIX_ACTUAL_ALLOCATION;
+import static io.clustercontroller.config.Constants.SUFFIX_ACTUAL_STATE;
+import static io.clustercontroller.config.Constants.SUFFIX_GOAL_STATE;
+import static io.clustercontroller.config.Constants.SUFFIX_PLANNED_ALLOCATION;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * etcd implementation of AsyncMetadataStore, built directly on jetcd's futures so no thread waits on a round trip.
+ * Every etcd request goes through a per-cluster in-flight limit and carries the timeout of its operation class,
+ * capped by the {@link PassDeadline} the calling pass has open for the cluster; idempotent reads are retried a bounded number of times.
+ * {@link EtcdMetadataStore} is the blocking adapter over this class.
+ */
+@Slf4j
+class EtcdAsyncMetadataStore implements AsyncMetadataStore {
+
+    private static final GetOption SERIALIZABLE_GET = GetOption.newBuilder().withSerializable(true).build();
+
+    private final KV kvClient;
+    private final EtcdPathResolver pathResolver;
+    private final ObjectMapper objectMapper;
+    private final ClusterInFlightLimiter inFlightLimiter;
+    // Requests, keys and bytes per cluster; shared with the serializable-read view
+    private final StoreStats stats;
+    // Deadlines of running reconcile passes per cluster; shared with the serializable-read view
+    private final PassDeadline.Registry passDeadlines;
+    // Reads may be answered by any member from its local state rather than through the leader
+    private final boolean serializableReads;
+    // Serializable-read view sharing this store's limiter and settings; created on first use, null on the view itself
+    private EtcdAsyncMetadataStore serializableView;
+    // Encoding of actual and goal states; decodes every format, so it can change while old values remain
+    private volatile ValueCodec stateCodec;
+    // Decoded actual and goal states by (key, modRevision); replaced as a whole when resized or the codec changes
+    private volatile DecodeCache decodeCache;
+    private volatile long decodeCacheMaxBytes = Constants.DEFAULT_ETCD_DECODE_CACHE_MAX_MB * 1024L * 1024L;
+    // Prefixes with more keys than this are read in several range requests
+    private volatile int prefixScanPageSize = Constants.DEFAULT_ETCD_PREFIX_SCAN_PAGE_SIZE;
+    // Upper bound on operations per transaction of a task compaction
+    private volatile int maxTxnOps = Constants.DEFAULT_ETCD_MAX_TXN_OPS;
+    // Completed and failed tasks by modRevision, skipped without decoding; shared with the serializable-read view
+    private final TerminalTasks terminalTasks;
+    // Request timeouts by operation class, read retries and pass budget
+    private volatile EtcdTimeouts timeouts = EtcdTimeouts.DEFAULT;
+    // Configurable coordinator goal state location
+    private volatile String coordinatorGoalStateGroup = Constants.PATH_COORDINATORS;
+    private volatile String coordinatorGoalStateUnit = "default-coordinator";
+
+    EtcdAsyncMetadataStore(KV kvClient, EtcdPathResolver pathResolver, ObjectMapper objectMapper, int maxInFlightPerCluster) {
+        this.kvClient = kvClient;
+        this.pathResolver = pathResolver;
+        this.objectMapper = objectMapper;
+        this.inFlightLimiter = new ClusterInFlightLimiter(maxInFlightPerCluster);
+        this.stats = new StoreStats();
+        this.passDeadlines = new PassDeadline.Registry();
+        this.terminalTasks = new TerminalTasks();
+        this.serializableReads = false;
+        this.stateCodec = JacksonValueCodec.json(objectMapper);
+        this.decodeCache = new DecodeCache(stateCodec, decodeCacheMaxBytes);
+    }
+
+    /**
+     * Serializable-read view of a store; shares its etcd client, in-flight limit and decode cache.
+     */
+    private EtcdAsyncMetadataStore(EtcdAsyncMetadataStore base) {
+        this.kvClient = base.kvClient;
+        this.pathResolver = base.pathResolver;
+        this.objectMapper = base.objectMapper;
+        this.inFlightLimiter = base.inFlightLimiter;
+        this.stats = base.stats;
+        this.passDeadlines = base.passDeadlines;
+        this.terminalTasks = base.terminalTasks;
+        this.serializableReads = true;
+        this.stateCodec = base.stateCodec;
+        this.decodeCache = base.decodeCache;
+        this.decodeCacheMaxBytes = base.decodeCacheMaxBytes;
+        this.prefixScanPageSize = base.prefixScanPageSize;
+        this.maxTxnOps = base.maxTxnOps;
+        this.timeouts = base.timeouts;
+        this.coordinatorGoalStateGroup = base.coordinatorGoalStateGroup;
+        this.coordinatorGoalStateUnit = base.coordinatorGoalStateUnit;
+    }
+
+    /**
+     * View of this store whose reads use etcd's serializable mode, for read-only paths only.
+     */
+    synchronized EtcdAsyncMetadataStore serializableReads() {
+        if (serializableReads) {
+            return this;
+        }
+        if (serializableView == null) {
+            serializableView = new EtcdAsyncMetadataStore(this);
+        }
+        return serializableView;
+    }
+
+    boolean isSerializableReads() {
+        return serializableReads;
+    }
+
+    /**
+     * Apply a setting to this store and its serializable-read view, so both always behave the same
+     */
+    private synchronized void configure(Consumer<EtcdAsyncMetadataStore> setting) {
+        setting.accept(this);
+        if (serializableView != null) {
+            setting.accept(serializableView);
+        }
+    }
+
+    void setCoordinatorGoalStateLocation(String searchUnitGroup, String searchUnit) {
+        configure(store -> {
+            if (searchUnitGroup != null && !searchUnitGroup.isBlank()) {
+                store.coordinatorGoalStateGroup = searchUnitGroup;
+            }
+            if (searchUnit != null && !searchUnit.isBlank()) {
+                store.coordinatorGoalStateUnit = searchUnit;
+            }
+        });
+    }
+
+    String getCoordinatorGoalStateGroup() {
+        return coordinatorGoalStateGroup;
+    }
+
+    String getCoordinatorGoalStateUnit() {
+        return coordinatorGoalStateUnit;
+    }
+
+    ClusterInFlightLimiter getInFlightLimiter() {
+        return inFlightLimiter;
+    }
+
+    void setPrefixScanPageSize(int prefixScanPageSize) {
+        configure(store -> store.prefixScanPageSize = prefixScanPageSize);
+    }
+
+    int getPrefixScanPageSize() {
+        return prefixScanPageSize;
+    }
+
+    void setMaxTxnOps(int maxTxnOps) {
+        configure(store -> store.maxTxnOps = Math.max(1, maxTxnOps));
+    }
+
+    int getMaxTxnOps() {
+        return maxTxnOps;
+    }
+
+    TerminalTasks getTerminalTasks() {
+        return terminalTasks;
+    }
+
+    void setTimeouts(EtcdTimeouts timeouts) {
+        configure(store -> store.timeouts = timeouts);
+    }
+
+    EtcdTimeouts getTimeouts() {
+        return timeouts;
+    }
+
+    /**
+     * Open the deadline of a reconcile pass over the cluster with the configured budget; null if it has none.
+     */
+    PassDeadline startPassDeadline(String clusterId) {
+        return passDeadlines.start(clusterId, timeouts.passDeadlineMs());
+    }
+
+    PassDeadline.Registry getPassDeadlines() {
+        return passDeadlines;
+    }
+
+    void setDecodeCacheMaxBytes(long maxBytes) {
+        DecodeCache cache = new DecodeCache(stateCodec, maxBytes);
+        configure(store -> {
+            store.decodeCacheMaxBytes = maxBytes;
+            store.decodeCache = cache;
+        });
+    }
+
+    void setStateCodec(ValueCodec stateCodec) {
+        DecodeCache cache = new DecodeCache(stateCodec, decodeCacheMaxBytes);
+        configure(store -> {
+            store.stateCodec = stateCodec;
+            store.decodeCache = cache;
+        });
+    }
+
+    ValueCodec getStateCodec() {
+        return stateCodec;
+    }
+
+    DecodeCache getDecodeCache() {
+        return decodeCache;
+    }
+
+    StoreStats getStats() {
+        return stats;
+    }
+
+    // =================================================================
+    // CONTROLLER TASKS OPERATIONS
+    // =================================================================
+
+    @Override
+    public CompletableFuture<List<TaskMetadata>> getAllTasks(String clusterId) {
+        log.debug("Getting all tasks from etcd");
+
+        String tasksPrefix = pathResolver.getControllerTasksPrefix(clusterId);
+        List<TaskMetadata> tasks = new ArrayList<>();
+        Set<String> terminalKeys = new HashSet<>();
+        return onError(scanPrefix(clusterId, tasksPrefix, page -> {
+            for (KeyValue kv : page) {
+                TaskMetadata task = decodeActiveTask(clusterId, kv, terminalKeys);
+                if (task != null) {
+                    tasks.add(task);
+                }
+            }
+        }).thenApply(revision -> {
+            // Forget tasks deleted since, e.g. by the controller that managed the cluster before
+            terminalTasks.retain(clusterId, terminalKeys);
+            // Sort by priority (0 = highest priority)
+            tasks.sort((t1, t2) -> Integer.compare(t1.getPriority(), t2.getPriority()));
+            log.debug("Retrieved {} tasks from etcd", tasks.size());
+            return tasks;
+        }), e -> {
+            log.error("Failed to get all tasks from etcd: {}", e.getMessage(), e);
+            return new Exception("Failed to retrieve tasks from etcd", e);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Optional<TaskMetadata>> getTask(String clusterId, String taskName) {
+        log.debug("Getting task {} from etcd", taskName);
+
+        String taskPath = pathResolver.getControllerTaskPath(clusterId, taskName);
+        return onError(getObjectByPath(clusterId, taskPath, TaskMetadata.class).thenApply(result -> {
+            if (result.isPresent()) {
+                log.debug("Retrieved task {} from etcd", taskName);
+            } else {
+                log.debug("Task {} not found in etcd", taskName);
+            }
+            return result;
+        }), e -> {
+            log.error("Failed to get task {} from etcd: {}", taskName, e.getMessage(), e);
+            return new Exception("Failed to retrieve task from etcd", e);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Versioned<TaskMetadata>> getTaskVersioned(String clusterId, String taskName) {
+        String taskPath = pathResolver.getControllerTaskPath(clusterId, taskName);
+        return onError(map(get(clusterId, taskPath), this::decodeTaskVersioned), e -> {
+            log.error("Failed to get task {} from etcd: {}", taskName, e.getMessage(), e);
+            return new Exception("Failed to retrieve task from etcd", e);
+        });
+    }
+
+    @Override
+    public CompletableFuture<String> createTask(String clusterId, TaskMetadata task) {
+        log.info("Creating task {} in etcd", task.getName());
+
+        String taskPath = pathResolver.getControllerTaskPath(clusterId, task.getName());
+        return onError(storeObjectAsJson(clusterId, taskPath, task).thenApply(ignored -> {
+            log.info("Successfully created task {} in etcd", task.getName());
+            return task.getName();
+        }), e -> {
+            log.error("Failed to create task {} in etcd: {}", task.getName(), e.getMessage(), e);
+            return new Exception("Failed to create task in etcd", e);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> updateTask(String clusterId, TaskMetadata task) {
+        log.debug("Updating task {} in etcd", task.getName());
+
+        String taskPath = pathResolver.getControllerTaskPath(clusterId, task.getName());
+        return onError(storeObjectAsJson(clusterId, taskPath, task).thenRun(() ->
+            log.debug("Successfully updated task {} in etcd", task.getName())
+        ), e -> {
+            log.error("Failed to update task {} in etcd: {}", task.getName(), e.getMessage(), e);
+            return new Exception("Failed to update task in etcd", e);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Versioned<TaskMetadata>> updateTask(String clusterId, TaskMetadata task, long expectedRevision) {
+        String key = pathResolver.getControllerTaskPath(clusterId, task.getName());
+        CompletableFuture<TxnResponse> txn = attempt(() -> {
+            ByteSequence keyBytes = ByteSequence.from(key, UTF_8);
+            ByteSequence valueBytes = ByteSequence.from(objectMapper.writeValueAsBytes(task));
+
+            // Same single round trip as the conditional goal-state write
+            return limited(clusterId, OperationClass.TXN, () -> kvClient.txn()
+                .If(new Cmp(keyBytes, Cmp.Op.EQUAL, CmpTarget.modRevision(expectedRevision)))
+                .Then(Op.put(keyBytes, valueBytes, PutOption.DEFAULT))
+                .Else(Op.get(keyBytes, GetOption.DEFAULT))
+                .commit()).thenApply(txnResponse -> {
+                    if (txnResponse.isSucceeded()) {
+                        stats.recordWrite(clusterId, keyBytes.size() + valueBytes.size());
+                    } else {
+                        stats.recordCasConflict(clusterId);
+                    }
+                    return txnResponse;
+                });
+        });
+
+        return map(txn, txnResponse -> {
+            if (!txnResponse.isSucceeded()) {
+                Versioned<TaskMetadata> current = txnResponse.getGetResponses().isEmpty()
+                    ? Versioned.absent()
+                    : decodeTaskVersioned(txnResponse.getGetResponses().get(0));
+                log.debug("Task {} changed after revision {}, now at {}", task.getName(), expectedRevision,
+                    current.getModRevision());
+                throw new VersionConflictException(key, expectedRevision, current);
+            }
+            log.debug("Successfully updated task {} at expected revision {}", task.getName(), expectedRevision);
+            return Versioned.of(task, txnResponse.getHeader().getRevision());
+        });
+    }
+
+    /**
+     * Tasks are modified by their readers, so they are decoded afresh rather than through the decode cache.
+     */
+    private Versioned<TaskMetadata> decodeTaskVersioned(GetResponse response) throws Exception {
+        if (response.getKvs().isEmpty()) {
+            return Versioned.absent();
+        }
+        KeyValue kv = response.getKvs().get(0);
+        TaskMetadata task = objectMapper.readValue(kv.getValue().getBytes(), TaskMetadata.class);
+        task.setCreateRevision(kv.getCreateRevision());
+        return Versioned.of(task, kv.getModRevision());
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteTask(String clusterId, String taskName) {
+        log.info("Deleting task {} from etcd", taskName);
+
+        String taskPath = pathResolver.getControllerTaskPath(clusterId, taskName);
+        return onError(delete(clusterId, taskPath).thenRun(() -> {
+            terminalTasks.forget(clusterId, taskPath);
+            log.info("Successfully deleted task {} from etcd", taskName);
+        }), e -> {
+            log.error("Failed to delete task {} from etcd: {}", taskName, e.getMessage(), e);
+            return new Exception("Failed to delete task from etcd", e);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Integer> deleteOldTasks(String clusterId, long olderThanTimestamp, boolean archive) {
+        log.debug("Deleting old tasks of cluster '{}' from etcd older than {}", clusterId, olderThanTimestamp);
+
+        String tasksPrefix = pathResolver.getControllerTasksPrefix(clusterId);
+        List<KeyValue> expiredKvs = new ArrayList<>();
+        List<TaskMetadata> expiredTasks = new ArrayList<>();
+        CompletableFuture<Integer> deleted = scanPrefix(clusterId, tasksPrefix, page -> {
+            for (KeyValue kv : page) {
+                TaskMetadata task;
+                try {
+                    task = objectMapper.readValue(kv.getValue().getBytes(), TaskMetadata.class);
+                } catch (Exception e) {
+                    log.warn("Skipping unreadable task at key {}: {}", kv.getKey().toString(UTF_8), e.getMessage());
+                    continue;
+                }
+                if (TerminalTasks.isExpired(task, olderThanTimestamp)) {
+                    expiredKvs.add(kv);
+                    expiredTasks.add(task);
+                }
+            }
+        }).thenCompose(revision -> deleteTaskBatches(clusterId, expiredKvs, expiredTasks, archive,
+            System.currentTimeMillis(), 0, 0));
+
+        return onError(deleted.thenApply(count -> {
+            if (count > 0) {
+                log.info("Deleted {} old tasks of cluster '{}' from etcd{}", count, clusterId, archive ? " after archiving them" : "");
+            }
+            return count;
+        }), e -> {
+            log.error("Failed to delete old tasks of cluster '{}' from etcd: {}", clusterId, e.getMessage(), e);
+            return new Exception("Failed to delete old tasks from etcd", e);
+        });
+    }
+
+    /**
+     * Decodes a task unless it is completed or failed. Those keys are remembered with their modRevision and
+     * skipped without decoding on later reads, until the task is rewritten; they are added to terminalKeys.
+     */
+    private TaskMetadata decodeActiveTask(String clusterId, KeyValue kv, Set<String> terminalKeys) throws Exception {
+        // Keys are only materialized once some task of the cluster has finished
+        String key = terminalTasks.count(clusterId) > 0 ? kv.getKey().toString(UTF_8) : null;
+        if (key != null && terminalTasks.isKnownTerminal(clusterId, key, kv.getModRevision())) {
+            terminalKeys.add(key);
+            return null;
+        }
+        TaskMetadata task = objectMapper.readValue(kv.getValue().getBytes(), TaskMetadata.class);
+        if (TerminalTasks.isTerminal(task)) {
+            String terminalKey = key != null ? key : kv.getKey().toString(UTF_8);
+            terminalTasks.remember(clusterId, terminalKey, kv.getModRevision());
+            terminalKeys.add(terminalKey);
+            return null;
+        }
+        if (key != null) {
+            // Rewritten as active again, e.g. a task that is retried
+            terminalTasks.forget(clusterId, key);
+        }
+        task.setCreateRevision(kv.getCreateRevision());
+        return task;
+    }
+
+    /**
+     * Deletes expired tasks in transactions of at most maxTxnOps operations, one batch after another. With archive,
+     * the batch's tasks are put to a history key in the same transaction. Completes with the number of tasks deleted.
+     */
+    private CompletableFuture<Integer> deleteTaskBatches(String clusterId, List<KeyValue> kvs, List<TaskMetadata> tasks,
+                                                         boolean archive, long startedAt, int from, int deleted) {
+        if (from >= kvs.size()) {
+            return CompletableFuture.completedFuture(deleted);
+        }
+        // The archive put takes one operation of the transaction
+        int batchSize = Math.max(1, archive ? maxTxnOps - 1 : maxTxnOps);
+        int to = Math.min(kvs.size(), from + batchSize);
+        ByteSequence archiveKey = archive
+            ? ByteSequence.from(pathResolver.getControllerTaskHistoryPath(clusterId, startedAt + "-" + from), UTF_8)
+            : null;
+
+        return deleteTaskBatch(clusterId, kvs.subList(from, to), tasks.subList(from, to), archiveKey)
+            .thenCompose(count -> deleteTaskBatches(clusterId, kvs, tasks, archive, startedAt, to, deleted + count));
+    }
+
+    /**
+     * Deletes one batch of expired tasks, each guarded by the modRevision it was read at. Tasks rewritten since are
+     * found from the Else reads and left for the next compaction; the rest of the batch is retried without them.
+     */
+    private CompletableFuture<Integer> deleteTaskBatch(String clusterId, List<KeyValue> kvs, List<TaskMetadata> tasks,
+                                                       ByteSequence archiveKey) {
+        if (kvs.isEmpty()) {
+            return CompletableFuture.completedFuture(0);
+        }
+        return attempt(() -> {
+            List<Cmp> guards = new ArrayList<>();
+            List<Op> ops = new ArrayList<>();
+            List<Op> reads = new ArrayList<>();
+            for (KeyValue kv : kvs) {
+                guards.add(new Cmp(kv.getKey(), Cmp.Op.EQUAL, CmpTarget.modRevision(kv.getModRevision())));
+                ops.add(Op.delete(kv.getKey(), DeleteOption.DEFAULT));
+                reads.add(Op.get(kv.getKey(), GetOption.DEFAULT));
+            }
+            long archiveBytes = 0;
+            if (archiveKey != null) {
+                ByteSequence archiveValue = ByteSequence.from(TerminalTasks.encodeArchive(objectMapper, tasks));
+                ops.add(Op.put(archiveKey, archiveValue, PutOption.DEFAULT));
+                archiveBytes = archiveKey.size() + archiveValue.size();
+            }
+            long writtenBytes = archiveBytes;
+            return limited(clusterId, OperationClass.TXN, () -> kvClient.txn()
+                .If(guards.toArray(new Cmp[0]))
+                .Then(ops.toArray(new Op[0]))
+                .Else(reads.toArray(new Op[0]))
+                .commit()).thenApply(response -> {
+                    if (response.isSucceeded()) {
+                        stats.recordWrite(clusterId, writtenBytes);
+                        for (KeyValue kv : kvs) {
+                            terminalTasks.forget(clusterId, kv.getKey().toString(UTF_8));
+                        }
+                    }
+                    return response;
+                });
+        }).thenCompose(response -> {
+            if (response.isSucceeded()) {
+                return CompletableFuture.completedFuture(kvs.size());
+            }
+            List<GetResponse> reads = response.getGetResponses();
+            List<KeyValue> unchangedKvs = new ArrayList<>();
+            List<TaskMetadata> unchangedTasks = new ArrayList<>();
+            for (int i = 0; i < kvs.size() && i < reads.size(); i++) {
+                List<KeyValue> current = reads.get(i).getKvs();
+                if (!current.isEmpty() && current.get(0).getModRevision() == kvs.get(i).getModRevision()) {
+                    unchangedKvs.add(kvs.get(i));
+                    unchangedTasks.add(tasks.get(i));
+                } else {
+                    stats.recordCasConflict(clusterId);
+                }
+            }
+            int changed = kvs.size() - unchangedKvs.size();
+            if (changed == 0) {
+                // No changed task found in the reads; rather than retry the same batch, leave it to the next run
+                log.info("Tasks of cluster '{}' could not be compacted; {} kept until the next run", clusterId, kvs.size());
+                return CompletableFuture.completedFuture(0);
+            }
+            log.info("{} tasks of cluster '{}' changed while being compacted and are kept; retrying the other {}",
+                changed, clusterId, unchangedKvs.size());
+            return deleteTaskBatch(clusterId, unchangedKvs, unchangedTasks, archiveKey);
+        });
+    }
+
+    /**
+     * Puts the claim key bound to the lease unless it exists, in one transaction. Completes with false if
+     * another controller holds the claim.
+     */
+    public CompletableFuture<Boolean> claimTask(String clusterId, String taskName, String owner, long leaseId) {
+        log.debug("Claiming task {} of cluster '{}' for '{}'", taskName, clusterId, owner);
+
+        ByteSequence keyBytes = ByteSequence.from(pathResolver.getControllerTaskClaimPath(clusterId, taskName), UTF_8);
+        ByteSequence valueBytes = ByteSequence.from(owner, UTF_8);
+        return onError(limited(clusterId, OperationClass.TXN, () -> kvClient.txn()
+            .If(new Cmp(keyBytes, Cmp.Op.EQUAL, CmpTarget.createRevision(0)))
+            .Then(Op.put(keyBytes, valueBytes, PutOption.newBuilder().withLeaseId(leaseId).build()))
+            .commit()).thenApply(response -> {
+                if (!response.isSucceeded()) {
+                    log.debug("Task {} of cluster '{}' is claimed already", taskName, clusterId);
+                    return false;
+                }
+                stats.recordWrite(clusterId, keyBytes.size() + valueBytes.size());
+                return true;
+            }), e -> {
+            log.error("Failed to claim task {} of cluster '{}': {}", taskName, clusterId, e.getMessage(), e);
+            return new Exception("Failed to claim task in etcd", e);
+        });
+    }
+
+    public CompletableFuture<Void> releaseTaskClaim(String clusterId, String taskName) {
+        log.debug("Releasing claim on task {} of cluster '{}'", taskName, clusterId);
+
+        return onError(delete(clusterId, pathResolver.getControllerTaskClaimPath(clusterId, taskName)), e -> {
+            log.error("Failed to release claim on task {} of cluster '{}': {}", taskName, clusterId, e.getMessage(), e);
+            return new Exception("Failed to release task claim in etcd", e);
+        });
+    }
+
+    public CompletableFuture<Boolean> isTaskClaimed(String clusterId, String taskName) {
+        return onError(map(get(clusterId, pathResolver.getControllerTaskClaimPath(clusterId, taskName)),
+            response -> response.getCount() > 0), e -> {
+            log.error("Failed to check claim on task {} of cluster '{}': {}", taskName, clusterId, e.getMessage(), e);
+            return new Exception("Failed to check task claim in etcd", e);
+        });
+    }
+
+    // =================================================================
+    // SEARCH UNITS OPERATIONS
+    // =================================================================
+
+    @Override
+    public CompletableFuture<List<SearchUnit>> getAllSearchUnits(String clusterId) {
+        log.debug("Getting all search units from etcd");
+
+        String unitsPrefix = pathResolver.getSearchUnitsPrefix(clusterId);
+        List<SearchUnit> searchUnits = new ArrayList<>();
+        return onError(scanPrefix(clusterId, unitsPrefix, page -> {
+            for (var kv : page) {
+                String key = kv.getKey().toString(StandardCharsets.UTF_8);
+                // Only process keys that end with /conf (search unit configuration files)
+                // This filters out /actual-state and other non-config paths
+                if (key.endsWith("/conf")) {
+                    String json = kv.getValue().toString(StandardCharsets.UTF_8);
+                    try {
+                        SearchUnit searchUnit = objectMapper.readValue(json, SearchUnit.class);
+                        searchUnits.add(searchUnit);
+                    } catch (Exception parseException) {
+                        log.warn("Failed to parse search unit config at key {}: {}", key, parseException.getMessage());
+                    }
+                }
+            }
+        }).thenApply(revision -> {
+            log.debug("Retrieved {} search units from etcd", searchUnits.size());
+            return searchUnits;
+        }), e -> {
+            log.error("Failed to get all search units from etcd: {}", e.getMessage(), e);
+            return new Exception("Failed to retrieve search units from etcd", e);
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<SearchUnit>> getAllCoordinators(String clusterId) {
+        log.debug("Getting all coordinators from etcd for cluster: {}", clusterId);
+
+        String coordinatorsPrefix = pathResolver.getCoordinatorsPrefix(clusterId);
+        List<SearchUnit> coordinators = new ArrayList<>();
+        return onError(scanPrefix(clusterId, coordinatorsPrefix, page -> {
+            // Parse each coordinator actual-state entry
+            for (KeyValue kv : page) {
+                String key = kv.getKey().toString(StandardCharsets.UTF_8);
+
+                if (!key.endsWith("/actual-state")) {
+                    continue;
+                }
+
+                // Read-only use: an actual-state unchanged since the last pass is not parsed again
+                SearchUnitActualState actualState = decodeCache.decodeShared(kv, SearchUnitActualState.class);
+
+                // Verify it's a coordinator by checking clusterlessRole
+                if (!"coordinator".equals(actualState.getRole())) {
+                    continue;
+                }
+
+                SearchUnit coordinator = toCoordinator(clusterId, actualState);
+                if (coordinator != null) {
+                    coordinators.add(coordinator);
+                }
+            }
+        }).thenApply(revision -> {
+            log.debug("Retrieved {} coordinators from etcd for cluster '{}'", coordinators.size(), clusterId);
+            return coordinators;
+        }), e -> {
+            log.error("Failed to get coordinators from etcd: {}", e.getMessage(), e);
+            return new Exception("Failed to retrieve coordinators from etcd", e);
+        });
+    }
+
+    /**
+     * Coordinator entry for a coordinator's actual state, or null if it is RED or has no address.
+     */
+    static SearchUnit toCoordinator(String clusterId, SearchUnitActualState actualState) {
+        String nodeName = actualState.getNodeName() != null ? actualState.getNodeName() : "unknown";
+
+        // Check health from the actual-state
+        HealthState healthState = actualState.deriveNodeState();
+
+        // Filter out RED (unhealthy) coordinators
+        if (healthState == HealthState.RED) {
+            log.debug("Skipping unhealthy coordinator '{}': state=RED", actualState.getNodeName());
+            return null;
+        }
+
+        // Convert actual-state to SearchUnit
+        String address = actualState.getAddress() != null ? actualState.getAddress() : "";
+        int httpPort = actualState.getHttpPort();
+
+        SearchUnit coordinator = new SearchUnit();
+        coordinator.setName(nodeName);
+        coordinator.setHost(address);
+        coordinator.setPortHttp(httpPort);
+        int transportPort = actualState.getTransportPort() != 0 ? actualState.getTransportPort() : 9300;
+        coordinator.setPortTransport(transportPort);
+        coordinator.setRole("COORDINATOR");
+        coordinator.setClusterName(clusterId);
+
+        // Validate before adding
+        if (address == null || address.trim().isEmpty()) {
+            log.warn("Coordinator '{}' has invalid/empty address, skipping", nodeName);
+            return null;
+        }
+
+        log.debug("Found healthy coordinator: {} at {}:{} (state={})",
+                coordinator.getName(), coordinator.getHost(), coordinator.getPortHttp(), healthState);
+        return coordinator;
+    }
+
+    @Override
+    public CompletableFuture<Optional<SearchUnit>> getSearchUnit(String clusterId, String unitName) {
+        log.debug("Getting search unit {} from etcd", unitName);
+
+        String unitPath = pathResolver.getSearchUnitConfPath(clusterId, unitName);
+        return onError(getObjectByPath(clusterId, unitPath, SearchUnit.class).thenApply(result -> {
+            if (result.isPresent()) {
+                log.debug("Retrieved search unit {} from etcd", unitName);
+            } else {
+                log.debug("Search unit {} not found in etcd", unitName);
+            }
+            return result;
+        }), e -> {
+            log.error("Failed to get search unit {} from etcd: {}", unitName, e.getMessage(), e);
+            return new Exception("Failed to retrieve search unit from etcd", e);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> upsertSearchUnit(String clusterId, String unitName, SearchUnit searchUnit) {
+        log.info("Upserting search unit {} in etcd", unitName);
+
+        String unitPath = pathResolver.getSearchUnitConfPath(clusterId, unitName);
+        return onError(storeObjectAsJson(clusterId, unitPath, searchUnit).thenRun(() ->
+            log.info("Successfully upserted search unit {} in etcd", unitName)
+        ), e -> {
+            log.error("Failed to upsert search unit {} in etcd: {}", unitName, e.getMessage(), e);
+            return new Exception("Failed to upsert search unit in etcd", e);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> updateSearchUnit(String clusterId, SearchUnit searchUnit) {
+        log.debug("Updating search unit {} in etcd", searchUnit.getName());
+
+        String unitPath = pathResolver.getSearchUnitConfPath(clusterId, searchUnit.getName());
+        return onError(storeObjectAsJson(clusterId, unitPath, searchUnit).thenRun(() ->
+            log.debug("Successfully updated search unit {} in etcd", searchUnit.getName())
+        ), e -> {
+            log.error("Failed to update search unit {} in etcd: {}", searchUnit.getName(), e.getMessage(), e);
+            return new Exception("Failed to update search unit in etcd", e);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteSearchUnit(String clusterId, String unitName) {
+        log.info("Deleting search unit {} (all state: conf, goal-state, actual-state) from etcd", unitName);
+
+        // Delete the entire search unit node prefix to remove conf, goal-state, and actual-state
+        String unitPrefix = pathResolver.getSearchUnitsPrefix(clusterId) + PATH_DELIMITER + unitName;
+        return onError(deleteByPrefix(clusterId, unitPrefix + PATH_DELIMITER).thenRun(() ->
+            log.info("Successfully deleted search unit {} and all its state from etcd", unitName)
+        ), e -> {
+            log.error("Failed to delete search unit {} from etcd: {}", unitName, e.getMessage(), e);
+            return new Exception("Failed to delete search unit from etcd", e);
+        });
+    }
+
+    // =================================================================
+    // SEARCH UNIT STATE OPERATIONS (for discovery)
+    // =================================================================
+
+    @Override
+    public CompletableFuture<Map<String, SearchUnitActualState>> getAllSearchUnitActualStates(String clusterId) {
+        log.info("Getting all search unit actual states from etcd for cluster '{}' in getAllSearchUnitActualStates", clusterId);
+
+        String prefix = pathResolver.getSearchUnitsPrefix(clusterId);
+        log.info("Querying etcd for actual-states with clusterId: '{}', prefix: '{}'", clusterId, prefix);
+
+        Map<String, SearchUnitActualState> actualStates = new HashMap<>();
+        return scanPrefix(clusterId, prefix, page -> {
+            log.info("Etcd returned {} keys for prefix '{}'", page.size(), prefix);
+
+            for (KeyValue kv : page) {
+                String key = kv.getKey().toString(UTF_8);
+                log.info("Processing etcd key: {}", key);
+
+                // Key below the prefix: <unit-name>/actual-state
+                EtcdKeyBuilder.KeySegments parts = EtcdKeyBuilder.segments(key, prefix);
+                if (parts.size() >= 2 && parts.is(1, SUFFIX_ACTUAL_STATE)) {
+                    String unitName = parts.get(0);
+                    log.info("Found actual-state for unit: {} (key: {})", unitName, key);
+                    try {
+                        SearchUnitActualState actualState = decodeCache.decode(kv, SearchUnitActualState.class);
+                        actualStates.put(unitName, actualState);
+                        log.info("Successfully parsed actual-state for unit: {}", unitName);
+                    } catch (Exception e) {
+                        log.warn("Failed to parse actual state for unit {}: {}", unitName, e.getMessage(), e);
+                    }
+                }
+            }
+        }).thenApply(revision -> actualStates);
+    }
+
+    @Override
+    public CompletableFuture<SearchUnitGoalState> getSearchUnitGoalState(String clusterId, String unitName) {
+        ByteSequence key = pathResolver.getSearchUnitKey(clusterId, unitName, SUFFIX_GOAL_STATE);
+        return map(get(clusterId, key), response -> decodeFirst(response, SearchUnitGoalState.class));
+    }
+
+    @Override
+    public CompletableFuture<Versioned<SearchUnitGoalState>> getSearchUnitGoalStateVersioned(String clusterId, String unitName) {
+        ByteSequence key = pathResolver.getSearchUnitKey(clusterId, unitName, SUFFIX_GOAL_STATE);
+        return map(get(clusterId, key), response -> decodeVersioned(response, SearchUnitGoalState.class));
+    }
+
+    @Override
+    public CompletableFuture<SearchUnitActualState> getSearchUnitActualState(String clusterId, String unitName) {
+        ByteSequence key = pathResolver.getSearchUnitKey(clusterId, unitName, SUFFIX_ACTUAL_STATE);
+        return map(get(clusterId, key), response -> decodeFirst(response, SearchUnitActualState.class));
+    }
+
+    @Override
+    public CompletableFuture<Void> setSearchUnitGoalState(String clusterId, String unitName, SearchUnitGoalState goalState) {
+        return attempt(() -> {
+            String key = pathResolver.getSearchUnitGoalStatePath(clusterId, unitName);
+
+            // Use Compare-And-Swap (CAS) pattern with mod_revision for thread-safe updates
+            ByteSequence keyBytes = ByteSequence.from(key, UTF_8);
+            ByteSequence valueBytes = ByteSequence.from(stateCodec.encode(goalState));
+
+            // Get current revision to use in CAS operation
+            return get(clusterId, key).thenCompose(getResponse -> {
+                long currentRevision = 0;
+                if (getResponse.getCount() > 0) {
+                    currentRevision = getResponse.getKvs().get(0).getModRevision();
+                }
+                long expectedRevision = currentRevision;
+
+                // Perform atomic CAS operation
+                return limited(clusterId, OperationClass.TXN, () -> kvClient.txn()
+                    .If(new Cmp(keyBytes, Cmp.Op.EQUAL, CmpTarget.modRevision(expectedRevision)))
+                    .Then(Op.put(keyBytes, valueBytes, PutOption.DEFAULT))
+                    .Else(Op.get(keyBytes, GetOption.DEFAULT))
+                    .commit());
+            }).thenAccept(txnResponse -> {
+                if (!txnResponse.isSucceeded()) {
+                    stats.recordCasConflict(clusterId);
+                    throw new RuntimeException("Failed to update goal state for " + unitName + " due to concurrent modification. Please retry.");
+                }
+                stats.recordWrite(clusterId, keyBytes.size() + valueBytes.size());
+                log.debug("Successfully set goal state for search unit {} using CAS", unitName);
+            });
+        });
+    }
+
+    @Override
+    public CompletableFuture<Versioned<SearchUnitGoalState>> setSearchUnitGoalState(String clusterId, String unitName,
+                                                                                    SearchUnitGoalState goalState, long expectedRevision) {
+        String key = pathResolver.getSearchUnitGoalStatePath(clusterId, unitName);
+        CompletableFuture<TxnResponse> txn = attempt(() -> {
+            ByteSequence keyBytes = ByteSequence.from(key, UTF_8);
+            ByteSequence valueBytes = ByteSequence.from(stateCodec.encode(goalState));
+
+            // Compare against the revision the caller read; on failure read the current value in the same round trip
+            return limited(clusterId, OperationClass.TXN, () -> kvClient.txn()
+                .If(new Cmp(keyBytes, Cmp.Op.EQUAL, CmpTarget.modRevision(expectedRevision)))
+                .Then(Op.put(keyBytes, valueBytes, PutOption.DEFAULT))
+                .Else(Op.get(keyBytes, GetOption.DEFAULT))
+                .commit()).thenApply(txnResponse -> {
+                    if (txnResponse.isSucceeded()) {
+                        stats.recordWrite(clusterId, keyBytes.size() + valueBytes.size());
+                    } else {
+                        stats.recordCasConflict(clusterId);
+                    }
+                    return txnResponse;
+                });
+        });
+
+        return map(txn, txnResponse -> {
+            if (!txnResponse.isSucceeded()) {
+                Versioned<SearchUnitGoalState> current = txnResponse.getGetResponses().isEmpty()
+                    ? Versioned.absent()
+                    : decodeVersioned(txnResponse.getGetResponses().get(0), SearchUnitGoalState.class);
+                log.debug("Goal state for search unit {} changed after revision {}, now at {}",
+                    unitName, expectedRevision, current.getModRevision());
+                throw new VersionConflictException(key, expectedRevision, current);
+            }
+            log.debug("Successfully set goal state for search unit {} at expected revision {}", unitName, expectedRevision);
+            return Versioned.of(goalState, txnResponse.getHeader().getRevision());
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> setSearchUnitActualState(String clusterId, String unitName, SearchUnitActualState actualState) {
+        return attempt(() -> {
+            ByteSequence key = pathResolver.getSearchUnitKey(clusterId, unitName, SUFFIX_ACTUAL_STATE);
+
+            return put(clusterId, key, stateCodec.encode(actualState)).thenRun(() ->
+                log.debug("Successfully set actual state for search unit {}", unitName));
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<String>> getAllNodesWithGoalStates(String clusterId) {
+        log.debug("Getting all nodes with goal states from etcd");
+
+        // Only the key paths are needed, so skip transferring the goal-state values
+        return listChildNames(clusterId, pathResolver.getSearchUnitsPrefix(clusterId), Constants.SUFFIX_GOAL_STATE)
+            .thenApply(nodeNames -> {
+                log.debug("Retrieved {} nodes with goal states from etcd", nodeNames.size());
+                return nodeNames;
+            });
+    }
+
+    // =================================================================
+    // INDEX CONFIGURATIONS OPERATIONS
+    // =================================================================
+
+    @Override
+    public CompletableFuture<List<Index>> getAllIndexConfigs(String clusterId) {
+        log.debug("Getting all index configs from etcd");
+
+        String indicesPrefix = pathResolver.getIndicesPrefix(clusterId);
+        List<Index> indexConfigs = new ArrayList<>();
+        return onError(scanPrefix(clusterId, indicesPrefix, page -> {
+            for (var kv : page) {
+                String key = kv.getKey().toString(StandardCharsets.UTF_8);
+                // Only process keys that end with /conf (index configuration files)
+                if (key.endsWith("/conf")) {
+                    String indexConfigJson = kv.getValue().toString(StandardCharsets.UTF_8);
+                    try {
+                        Index indexConfig = objectMapper.readValue(indexConfigJson, Index.class);
+                        indexConfigs.add(indexConfig);
+                    } catch (Exception parseException) {
+                        log.warn("Failed to parse index config JSON: {}, error: {}, skipping", indexConfigJson, parseException.getMessage(), parseException);
+                    }
+                }
+            }
+        }).thenApply(revision -> {
+            log.debug("Retrieved {} index configs from etcd", indexConfigs.size());
+            return indexConfigs;
+        }), e -> {
+            log.error("Failed to get all index configs from etcd: {}", e.getMessage(), e);
+            return new Exception("Failed to retrieve index configs from etcd", e);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Optional<String>> getIndexConfig(String clusterId, String indexName) {
+        log.debug("Getting index config {} from etcd", indexName);
+
+        String indexPath = pathResolver.getIndexConfPath(clusterId, indexName);
+        return onError(get(clusterId, indexPath).thenApply(response -> {
+            if (response.getCount() == 0) {
+                log.debug("Index config {} not found in etcd", indexName);
+                return Optional.<String>empty();
+            }
+
+            String indexConfigJson = response.getKvs().get(0).getValue().toString(StandardCharsets.UTF_8);
+
+            log.debug("Retrieved index config {} from etcd", indexName);
+            return Optional.of(indexConfigJson);
+        }), e -> {
+            log.error("Failed to get index config {} from etcd: {}", indexName, e.getMessage(), e);
+            return new Exception("Failed to retrieve index config from etcd", e);
+        });
+    }
+
+    @Override
+    public CompletableFuture<String> createIndexConfig(String clusterId, String indexName, String indexConfig) {
+        log.info("Creating index config {} in etcd", indexName);
+
+        String indexPath = pathResolver.getIndexConfPath(clusterId, indexName);
+        return onError(put(clusterId, indexPath, indexConfig).thenApply(ignored -> {
+            log.info("Successfully created index config {} in etcd", indexName);
+            return indexName;
+        }), e -> {
+            log.error("Failed to create index config {} in etcd: {}", indexName, e.getMessage(), e);
+            return new Exception("Failed to create index config in etcd", e);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> updateIndexConfig(String clusterId, String indexName, String indexConfig) {
+        log.debug("Updating index config {} in etcd", indexName);
+
+        String indexPath = pathResolver.getIndexConfPath(clusterId, indexName);
+        return onError(put(clusterId, indexPath, indexConfig).thenRun(() ->
+            log.debug("Successfully updated index config {} in etcd", indexName)
+        ), e -> {
+            log.error("Failed to update index config {} in etcd: {}", indexName, e.getMessage(), e);
+            return new Exception("Failed to update index config in etcd", e);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteIndexConfig(String clusterId, String indexName) {
+        log.info("Deleting index config {} from etcd", indexName);
+
+        String indexPath = pathResolver.getIndexConfPath(clusterId, indexName);
+        return onError(delete(clusterId, indexPath).thenRun(() ->
+            log.info("Successfully deleted index config {} from etcd", indexName)
+        ), e -> {
+            log.error("Failed to delete index config {} from etcd: {}", indexName, e.getMessage(), e);
+            return new Exception("Failed to delete index config from etcd", e);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> setIndexMappings(String clusterId, String indexName, String mappings) {
+        log.debug("Setting index mappings for {} in etcd", indexName);
+
+        String mappingsPath = pathResolver.getIndexMappingsPath(clusterId, indexName);
+        return onError(put(clusterId, mappingsPath, mappings).thenRun(() ->
+            log.debug("Successfully set index mappings for {} in etcd", indexName)
+        ), e -> {
+            log.error("Failed to set index mappings for {} in etcd: {}", indexName, e.getMessage(), e);
+            return new Exception("Failed to set index mappings in etcd", e);
+        });
+    }
+
+    @Override
+    public CompletableFuture<TypeMapping> getIndexMappings(String clusterId, String indexName) {
+        log.debug("Getting index mappings for {} from etcd", indexName);
+
+        String mappingsPath = pathResolver.getIndexMappingsPath(clusterId, indexName);
+        return onError(map(get(clusterId, mappingsPath), response -> {
+            if (response.getKvs().isEmpty()) {
+                log.debug("No mappings found for index {} in cluster {}", indexName, clusterId);
+                return null;
+            }
+
+            String mappingsJson = response.getKvs().get(0).getValue().toString(StandardCharsets.UTF_8);
+            log.debug("Retrieved mappings for index {}: {}", indexName, mappingsJson);
+
+            // Parse JSON to TypeMapping object
+            return objectMapper.readValue(mappingsJson, TypeMapping.class);
+        }), e -> {
+            log.error("Failed to get index mappings for {} from etcd: {}", indexName, e.getMessage(), e);
+            return e;
+        });
+    }
+
+    @Override
+    public CompletableFuture<IndexSettings> getIndexSettings(String clusterId, String indexName) {
+        log.debug("Getting index settings for {} from etcd", indexName);
+
+        String settingsPath = pathResolver.getIndexSettingsPath(clusterId, indexName);
+        return onError(map(get(clusterId, settingsPath), response -> {
+            if (response.getCount() == 0) {
+                log.debug("Index settings {} not found in etcd", indexName);
+                return null;
+            }
+
+            String settingsJson = response.getKvs().get(0).getValue().toString(StandardCharsets.UTF_8);
+            log.debug("Retrieved index settings JSON for {}: {}", indexName, settingsJson);
+
+            // Parse the JSON to check if it has a "settings" wrapper
+            JsonNode rootNode = objectMapper.readTree(settingsJson);
+
+            IndexSettings settings;
+            if (rootNode.has("index")) {
+                // Extract the inner "settings" object
+                JsonNode settingsNode = rootNode.get("index");
+                settings = objectMapper.treeToValue(settingsNode, IndexSettings.class);
+                log.debug("Extracted settings from nested 'settings' field for {}", indexName);
+            } else {
+                // Direct deserialization if no wrapper
+                settings = objectMapper.treeToValue(rootNode, IndexSettings.class);
+                log.debug("Parsed settings directly for {}", indexName);
+            }
+
+            log.debug("Successfully parsed index settings for {}: {}", indexName, settings);
+            return settings;
+        }), e -> {
+            if (e instanceof JsonProcessingException) {
+                log.error("Failed to parse index settings JSON for {} from etcd: {}", indexName, e.getMessage(), e);
+                return new Exception("Failed to parse index settings JSON from etcd", e);
+            }
+            log.error("Failed to get index settings {} from etcd: {}", indexName, e.getMessage(), e);
+            return new Exception("Failed to retrieve index settings from etcd", e);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> setIndexSettings(String clusterId, String indexName, String settings) {
+        log.debug("Setting index settings for {} in etcd", indexName);
+
+        return onError(attempt(() -> {
+            // Wrap settings in "index" key to match Elasticsearch convention
+            // Parse the incoming settings JSON and wrap it
+            JsonNode settingsNode = objectMapper.readTree(settings);
+            Map<String, JsonNode> wrappedSettings = new HashMap<>();
+            wrappedSettings.put("index", settingsNode);
+            String wrappedSettingsJson = objectMapper.writeValueAsString(wrappedSettings);
+
+            String settingsPath = pathResolver.getIndexSettingsPath(clusterId, indexName);
+            return put(clusterId, settingsPath, wrappedSettingsJson).thenRun(() ->
+                log.debug("Successfully set index settings for {} in etcd (wrapped in 'index' key)", indexName));
+        }), e -> {
+            log.error("Failed to set index settings for {} in etcd: {}", indexName, e.getMessage(), e);
+            return new Exception("Failed to set index settings in etcd", e);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> deletePrefix(String clusterId, String prefix) {
+        log.debug("Deleting all keys with prefix {} in etcd", prefix);
+
+        // Add trailing slash for etcd prefix queries to ensure precise matching
+        return onError(deleteByPrefix(clusterId, prefix + PATH_DELIMITER).thenRun(() ->
+            log.debug("Successfully deleted all keys with prefix {} in etcd", prefix)
+        ), e -> {
+            log.error("Failed to delete keys with prefix {} in etcd: {}", prefix, e.getMessage(), e);
+            return new Exception("Failed to delete keys with prefix in etcd", e);
+        });
+    }
+
+    // =================================================================
+    // TEMPLATE OPERATIONS
+    // =================================================================
+
+    @Override
+    public CompletableFuture<Template> getTemplate(String clusterId, String templateName) {
+        log.debug("Getting template {} from etcd", templateName);
+
+        String templatePath = pathResolver.getTemplateConfPath(clusterId, templateName);
+        return onError(map(get(clusterId, templatePath), response -> {
+            if (response.getCount() == 0) {
+                log.debug("Template {} not found in etcd", templateName);
+                throw new IllegalArgumentException("Template '" + templateName + "' not found");
+            }
+
+            String templateConfigJson = response.getKvs().get(0).getValue().toString(StandardCharsets.UTF_8);
+            Template template = objectMapper.readValue(templateConfigJson, Template.class);
+
+            log.debug("Retrieved template {} from etcd", templateName);
+            return template;
+        }), e -> {
+            if (e instanceof IllegalArgumentException) {
+                return e;
+            }
+            log.error("Failed to get template {} from etcd: {}", templateName, e.getMessage(), e);
+            return new Exception("Failed to retrieve template from etcd", e);
+        });
+    }
+
+    @Override
+    public CompletableFuture<String> createTemplate(String clusterId, String templateName, String templateConfig) {
+        log.info("Creating template {} in etcd", templateName);
+
+        String templatePath = pathResolver.getTemplateConfPath(clusterId, templateName);
+        return onError(put(clusterId, templatePath, templateConfig).thenApply(ignored -> {
+            log.info("Successfully created template {} in etcd", templateName);
+            return templateName;
+        }), e -> {
+            log.error("Failed to create template {} in etcd: {}", templateName, e.getMessage(), e);
+            return new Exception("Failed to create template in etcd", e);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> updateTemplate(String clusterId, String templateName, String templateConfig) {
+        log.debug("Updating template {} in etcd", templateName);
+
+        String templatePath = pathResolver.getTemplateConfPath(clusterId, templateName);
+        return onError(put(clusterId, templatePath, templateConfig).thenRun(() ->
+            log.debug("Successfully updated template {} in etcd", templateName)
+        ), e -> {
+            log.error("Failed to update template {} in etcd: {}", templateName, e.getMessage(), e);
+            return new Exception("Failed to update template in etcd", e);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteTemplate(String clusterId, String templateName) {
+        log.info("Deleting template {} from etcd", templateName);
+
+        String templatePath = pathResolver.getTemplateConfPath(clusterId, templateName);
+        return onError(delete(clusterId, templatePath).thenRun(() ->
+            log.info("Successfully deleted template {} from etcd", templateName)
+        ), e -> {
+            log.error("Failed to delete template {} from etcd: {}", templateName, e.getMessage(), e);
+            return new Exception("Failed to delete template from etcd", e);
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<Template>> getAllTemplates(String clusterId) {
+        log.debug("Getting all templates from etcd for cluster {}", clusterId);
+
+        String templatesPrefix = pathResolver.getTemplatesPrefix(clusterId);
+        List<Template> templates = new ArrayList<>();
+        return onError(scanPrefix(clusterId, templatesPrefix, page -> {
+            for (KeyValue kv : page) {
+                String key = kv.getKey().toString(StandardCharsets.UTF_8);
+
+                if (key.endsWith("/conf")) {
+                    String templateJson = kv.getValue().toString(StandardCharsets.UTF_8);
+                    try {
+                        Template template = objectMapper.readValue(templateJson, Template.class);
+                        templates.add(template);
+                    } catch (Exception parseException) {
+                        log.warn("Failed to parse template JSON: {}, skipping", templateJson);
+                    }
+                }
+            }
+        }).thenApply(revision -> {
+            log.debug("Retrieved {} templates from etcd for cluster {}", templates.size(), clusterId);
+            return templates;
+        }), e -> {
+            log.error("Failed to get all templates from etcd for cluster {}: {}", clusterId, e.getMessage(), e);
+            return new Exception("Failed to retrieve templates from etcd", e);
+        });
+    }
+
+    // =================================================================
+    // SHARD ALLOCATION OPERATIONS
+    // =================================================================
+
+    @Override
+    public CompletableFuture<ShardAllocation> getPlannedAllocation(String clusterId, String indexName, String shardId) {
+        ByteSequence path = pathResolver.getShardKey(clusterId, indexName, shardId, SUFFIX_PLANNED_ALLOCATION);
+        return onError(map(get(clusterId, path), response -> decodeFirst(response, ShardAllocation.class)), e -> {
+            log.error("Failed to get planned allocation for shard {}/{}: {}", indexName, shardId, e.getMessage(), e);
+            return e;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> setPlannedAllocation(String clusterId, String indexName, String shardId, ShardAllocation allocation) {
+        ByteSequence path = pathResolver.getShardKey(clusterId, indexName, shardId, SUFFIX_PLANNED_ALLOCATION);
+        return onError(storeObjectAsJson(clusterId, path, allocation).thenRun(() ->
+            log.debug("Set planned allocation for shard {}/{}: {}", indexName, shardId, allocation)
+        ), e -> {
+            log.error("Failed to set planned allocation for shard {}/{}: {}", indexName, shardId, e.getMessage(), e);
+            return e;
+        });
+    }
+
+    @Override
+    public CompletableFuture<ShardAllocation> getActualAllocation(String clusterId, String indexName, String shardId) {
+        ByteSequence path = pathResolver.getShardKey(clusterId, indexName, shardId, SUFFIX_ACTUAL_ALLOCATION);
+        return onError(map(get(clusterId, path), response -> decodeFirst(response, ShardAllocation.class)), e -> {
+            log.error("Failed to get actual allocation for shard {}/{}: {}", indexName, shardId, e.getMessage(), e);
+            return e;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> setActualAllocation(String clusterId, String indexName, String shardId, ShardAllocation allocation) {
+        ByteSequence path = pathResolver.getShardKey(clusterId, indexName, shardId, SUFFIX_ACTUAL_ALLOCATION);
+        return onError(storeObjectAsJson(clusterId, path, allocation).thenRun(() ->
+            log.debug("Set actual allocation for shard {}/{}: {}", indexName, shardId, allocation)
+        ), e -> {
+            log.error("Failed to set actual allocation for shard {}/{}: {}", indexName, shardId, e.getMessage(), e);
+            return e;
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<ShardAllocation>> getAllActualAllocations(String clusterId, String indexName) {
+        String indexPrefix = pathResolver.getIndicesPrefix(clusterId) + PATH_DELIMITER + indexName;
+
+        List<ShardAllocation> allocations = new ArrayList<>();
+        return onError(scanPrefix(clusterId, indexPrefix, page -> {
+            for (KeyValue kv : page) {
+                String key = kv.getKey().toString(UTF_8);
+                // Only include keys that end with "/actual-allocation"
+                if (key.endsWith("/" + Constants.SUFFIX_ACTUAL_ALLOCATION)) {
+                    String json = kv.getValue().toString(UTF_8);
+                    ShardAllocation allocation = objectMapper.readValue(json, ShardAllocation.class);
+                    allocations.add(allocation);
+                }
+            }
+        }).thenApply(revision -> {
+            log.debug("Retrieved {} actual allocations for index {}", allocations.size(), indexName);
+            return allocations;
+        }), e -> {
+            log.error("Failed to get actual allocations for index {}: {}", indexName, e.getMessage(), e);
+            return e;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteActualAllocation(String clusterId, String indexName, String shardId) {
+        log.info("Deleting actual allocation for {}/{} from etcd", indexName, shardId);
+
+        String actualAllocationPath = pathResolver.getShardActualAllocationPath(clusterId, indexName, shardId);
+        return onError(delete(clusterId, actualAllocationPath).thenRun(() ->
+            log.info("Successfully deleted actual allocation for {}/{} from etcd", indexName, shardId)
+        ), e -> {
+            log.error("Failed to delete actual allocation for {}/{} from etcd: {}", indexName, shardId, e.getMessage(), e);
+            return new Exception("Failed to delete actual allocation from etcd", e);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> getAllIndicesWithActualAllocations(String clusterId) {
+        log.debug("Getting all indices with actual-allocation entries from etcd");
+
+        // Only the key paths are needed, so skip transferring the allocation values
+        return onError(listChildNames(clusterId, pathResolver.getIndicesPrefix(clusterId), Constants.SUFFIX_ACTUAL_ALLOCATION)
+            .thenApply(indexNames -> {
+                Set<String> indicesWithAllocations = new HashSet<>(indexNames);
+                log.debug("Found {} indices with actual-allocation entries in etcd", indicesWithAllocations.size());
+                return indicesWithAllocations;
+            }), e -> {
+            log.error("Failed to get indices with actual allocations from etcd: {}", e.getMessage(), e);
+            return e;
+        });
+    }
+
+    // =================================================================
+    // ALIAS CONFIGURATION OPERATIONS
+    // =================================================================
+
+    @Override
+    public CompletableFuture<Alias> getAlias(String clusterId, String aliasName) {
+        String path = pathResolver.getAliasConfPath(clusterId, aliasName);
+        return onError(map(get(clusterId, path), response -> decodeFirst(response, Alias.class)), e -> {
+            log.error("Failed to get alias for '{}': {}", aliasName, e.getMessage(), e);
+            return e;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> setAlias(String clusterId, String aliasName, Alias alias) {
+        String path = pathResolver.getAliasConfPath(clusterId, aliasName);
+        return onError(storeObjectAsJson(clusterId, path, alias).thenRun(() ->
+            log.debug("Set alias for '{}': {}", aliasName, alias)
+        ), e -> {
+            log.error("Failed to set alias for '{}': {}", aliasName, e.getMessage(), e);
+            return e;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAlias(String clusterId, String aliasName) {
+        String path = pathResolver.getAliasConfPath(clusterId, aliasName);
+        return onError(delete(clusterId, path).thenRun(() ->
+            log.info("Deleted alias for '{}'", aliasName)
+        ), e -> {
+            log.error("Failed to delete alias for '{}': {}", aliasName, e.getMessage(), e);
+            return e;
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<Alias>> getAllAliases(String clusterId) {
+        String prefix = pathResolver.getAliasesPrefix(clusterId);
+
+        List<Alias> aliases = new ArrayList<>();
+        return onError(scanPrefix(clusterId, prefix, page -> {
+            for (KeyValue kv : page) {
+                String json = kv.getValue().toString(UTF_8);
+                Alias alias = objectMapper.readValue(json, Alias.class);
+                aliases.add(alias);
+            }
+        }).thenApply(revision -> {
+            log.debug("Retrieved {} aliases for cluster '{}'", aliases.size(), clusterId);
+            return aliases;
+        }), e -> {
+            log.error("Failed to get all aliases: {}", e.getMessage(), e);
+            return e;
+        });
+    }
+
+    // =================================================================
+    // KEY LISTING OPERATIONS
+    // =================================================================
+
+    /**
+     * Distinct names of the direct children of a prefix that have a key ending in the given suffix,
+     * e.g. listChildNames(searchUnitsPrefix, "goal-state") returns every unit with a goal state.
+     * Uses a keys-only range read, so no values are transferred.
+     *
+     * @param suffixFilter last path segment a key must have to count, or null to accept any key
+     * @return child names in key order
+     */
+    CompletableFuture<List<String>> listChildNames(String clusterId, String prefix, String suffixFilter) {
+        String prefixWithSlash = prefix + PATH_DELIMITER;
+        String keySuffix = suffixFilter == null ? null : PATH_DELIMITER + suffixFilter;
+        ByteSequence prefixBytes = ByteSequence.from(prefixWithSlash, UTF_8);
+        GetOption option = GetOption.newBuilder().withPrefix(prefixBytes).withKeysOnly(true)
+            .withSerializable(serializableReads).build();
+
+        return read(clusterId, OperationClass.SCAN, () -> kvClient.get(prefixBytes, option)).thenApply(response -> {
+            Set<String> childNames = new LinkedHashSet<>();
+            for (KeyValue kv : response.getKvs()) {
+                String key = kv.getKey().toString(UTF_8);
+                if (keySuffix != null && !key.endsWith(keySuffix)) {
+                    continue;
+                }
+                int end = key.indexOf(PATH_DELIMITER, prefixWithSlash.length());
+                // Keys directly under the prefix (no child segment) only qualify when unfiltered
+                if (end < 0 && keySuffix != null) {
+                    continue;
+                }
+                childNames.add(end < 0 ? key.substring(prefixWithSlash.length()) : key.substring(prefixWithSlash.length(), end));
+            }
+            return new ArrayList<>(childNames);
+        });
+    }
+
+    /**
+     * Number of keys under a prefix, using a count-only range read; for existence checks that need no keys or values.
+     */
+    CompletableFuture<Long> countKeys(String clusterId, String prefix) {
+        ByteSequence prefixBytes = ByteSequence.from(prefix + PATH_DELIMITER, UTF_8);
+        GetOption option = GetOption.newBuilder().withPrefix(prefixBytes).withCountOnly(true)
+            .withSerializable(serializableReads).build();
+        return read(clusterId, OperationClass.SCAN, () -> kvClient.get(prefixBytes, option)).thenApply(GetResponse::getCount);
+    }
+
+    // =================================================================
+    // CLUSTER SNAPSHOT OPERATIONS
+    // =================================================================
+
+    /**
+     * Three paged prefix scans; the first fixes the revision and the other two are pinned to it and
+     * issued together, so the snapshot reflects exactly one point in etcd history.
+     */
+    @Override
+    public CompletableFuture<ClusterSnapshot> loadClusterSnapshot(String clusterId) {
+        log.debug("Loading cluster snapshot for cluster '{}' from etcd", clusterId);
+
+        List<KeyValue> unitKvs = new ArrayList<>();
+        List<KeyValue> indexKvs = new ArrayList<>();
+        List<KeyValue> aliasKvs = new ArrayList<>();
+        return onError(scanPrefix(clusterId, pathResolver.getSearchUnitsPrefix(clusterId), 0, unitKvs::addAll).thenCompose(revision -> {
+            CompletableFuture<Long> indices = scanPrefix(clusterId, pathResolver.getIndicesPrefix(clusterId), revision, indexKvs::addAll);
+            CompletableFuture<Long> aliases = scanPrefix(clusterId, pathResolver.getAliasesPrefix(clusterId), revision, aliasKvs::addAll);
+
+            return indices.thenCombine(aliases, (indicesRevision, aliasesRevision) -> {
+                List<KeyValue> kvs = new ArrayList<>(unitKvs);
+                kvs.addAll(indexKvs);
+                kvs.addAll(aliasKvs);
+
+                ClusterSnapshot snapshot = ClusterSnapshot.fromKeyValues(clusterId, revision, kvs, pathResolver, decodeCache);
+                log.debug("Loaded cluster snapshot for cluster '{}' with {} keys at revision {}", clusterId, kvs.size(), revision);
+                return snapshot;
+            });
+        }), e -> {
+            log.error("Failed to load cluster snapshot for cluster '{}': {}", clusterId, e.getMessage(), e);
+            return new Exception("Failed to load cluster snapshot from etcd", e);
+        });
+    }
+
+    // =================================================================
+    // INDEX READINESS OPERATIONS
+    // =================================================================
+
+    @Override
+    public CompletableFuture<Boolean> isIndexReady(String clusterId, String indexName) {
+        log.debug("Checking if index {} is ready in cluster {}", indexName, clusterId);
+
+        return onError(getAllIndexConfigs(clusterId).thenCompose(indexConfigs -> {
+            // 1. Get expected shard count from index config
+            Index indexConfig = indexConfigs.stream()
+                .filter(i -> indexName.equals(i.getIndexName()))
+                .findFirst()
+                .orElse(null);
+
+            if (indexConfig == null) {
+                log.debug("Index {} not found in cluster {}, not ready", indexName, clusterId);
+                return CompletableFuture.completedFuture(false);
+            }
+
+            int expectedShardCount = indexConfig.getSettings().getNumberOfShards();
+            log.debug("Index {} expects {} shards", indexName, expectedShardCount);
+
+            // 2. Get all actual states from all nodes
+            return getAllSearchUnitActualStates(clusterId).thenApply(allActualStates ->
+                areAllShardsReady(clusterId, indexName, expectedShardCount, allActualStates));
+        }), e -> {
+            log.error("Failed to check if index {} is ready: {}", indexName, e.getMessage(), e);
+            return new Exception("Failed to check index readiness", e);
+        });
+    }
+
+    static boolean areAllShardsReady(String clusterId, String indexName, int expectedShardCount,
+                                     Map<String, SearchUnitActualState> allActualStates) {
+        if (allActualStates.isEmpty()) {
+            log.debug("No search units found for cluster {}, index {} is not ready", clusterId, indexName);
+            return false;
+        }
+
+        // 3. Track shard readiness: need docs > 0 + replicated
+        // (STARTED is implied if docs are ingested and replicated)
+        Set<Integer> readyShardIds = new HashSet<>();
+
+        for (Map.Entry<String, SearchUnitActualState> entry : allActualStates.entrySet()) {
+            String unitName = entry.getKey();
+            SearchUnitActualState actualState = entry.getValue();
+
+            // Check each shard in the stats
+            for (int shardId = 0; shardId < expectedShardCount; shardId++) {
+                // Already found a ready copy of this shard on another node
+                if (readyShardIds.contains(shardId)) {
+                    continue;
+                }
+
+                // Check 1: Docs are ingested (docCount > 0)
+                long docCount = actualState.getShardDocCount(indexName, shardId);
+                if (docCount <= 0) {
+                    continue;
+                }
+
+                // Check 2: Data is replicated (global_checkpoint == local_checkpoint)
+                boolean isReplicated = actualState.isShardReplicated(indexName, shardId);
+                if (!isReplicated) {
+                    log.debug("Index {} shard {} on node {} has docs but not fully replicated",
+                        indexName, shardId, unitName);
+                    continue;
+                }
+
+                // Shard passes all checks
+                readyShardIds.add(shardId);
+                log.debug("Index {} shard {} is ready on node {} (docs={}, replicated)",
+                    indexName, shardId, unitName, docCount);
+            }
+        }
+
+        // 4. Check all expected shards are ready
+        if (readyShardIds.size() < expectedShardCount) {
+            Set<Integer> notReadyShards = new HashSet<>();
+            for (int i = 0; i < expectedShardCount; i++) {
+                if (!readyShardIds.contains(i)) {
+                    notReadyShards.add(i);
+                }
+            }
+            log.debug("Index {} is not ready - shards not ready: {}", indexName, notReadyShards);
+            return false;
+        }
+
+        log.info("Index {} is ready - all {} shards have docs ingested and are replicated",
+            indexName, expectedShardCount);
+        return true;
+    }
+
+    // =================================================================
+    // CLUSTER OPERATIONS
+    // =================================================================
+
+    @Override
+    public CompletableFuture<ClusterControllerAssignment> getAssignedController(String clusterId) {
+        String assignmentPath = pathResolver.getClusterAssignedControllerPath(clusterId);
+        return onError(map(get(clusterId, assignmentPath), getResponse -> {
+            if (getResponse.getKvs().isEmpty()) {
+                log.debug("No controller assigned to cluster '{}'", clusterId);
+                return null;
+            }
+
+            String json = getResponse.getKvs().get(0).getValue().toString(UTF_8);
+            ClusterControllerAssignment clusterControllerAssignment = objectMapper.readValue(json, ClusterControllerAssignment.class);
+            log.debug("Cluster '{}' is assigned to controller '{}'", clusterId, clusterControllerAssignment.getController());
+            return clusterControllerAssignment;
+        }), e -> {
+            log.error("Failed to get assigned controller for cluster '{}': {}", clusterId, e.getMessage(), e);
+            return new Exception("Failed to get assigned controller: " + e.getMessage(), e);
+        });
+    }
+
+    @Override
+    public CompletableFuture<CoordinatorGoalState> getCoordinatorGoalState(String clusterId) {
+        String path = pathResolver.getCoordinatorGoalStatePath(clusterId, coordinatorGoalStateGroup, coordinatorGoalStateUnit);
+        return onError(map(get(clusterId, path), response -> decodeFirst(response, CoordinatorGoalState.class)), e -> {
+            log.error("Failed to get coordinator goal state: {}", e.getMessage(), e);
+            return e;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> setCoordinatorGoalState(String clusterId, CoordinatorGoalState goalState) {
+        String path = pathResolver.getCoordinatorGoalStatePath(clusterId, coordinatorGoalStateGroup, coordinatorGoalStateUnit);
+        return onError(attempt(() -> put(clusterId, path, stateCodec.encode(goalState))).thenRun(() ->
+            log.debug("Set coordinator goal state: {}", goalState)
+        ), e -> {
+            log.error("Failed to set coordinator goal state: {}", e.getMessage(), e);
+            return e;
+        });
+    }
+
+    @Override
+    public CompletableFuture<ClusterInformation.Version> getClusterVersion(String clusterId) {
+        log.debug("Getting cluster version from registry for cluster '{}'", clusterId);
+
+        String clusterRegistryPath = pathResolver.getClusterRegistryPath(clusterId);
+        return onError(map(get(clusterId, clusterRegistryPath), response -> {
+            if (response.getKvs().isEmpty()) {
+                log.debug("No cluster version found in registry for cluster '{}'", clusterId);
+                return null;
+            }
+
+            String json = response.getKvs().get(0).getValue().toString(StandardCharsets.UTF_8);
+            log.debug("Retrieved cluster metadata from registry for cluster '{}': {}", clusterId, json);
+
+            // Parse as generic Map to extract version field
+            Map<String, Object> metadata = objectMapper.readValue(json, Map.class);
+
+            // Extract and deserialize the version field
+            if (metadata.containsKey("version")) {
+                Object versionObj = metadata.get("version");
+                return objectMapper.convertValue(versionObj, ClusterInformation.Version.class);
+            }
+
+            return null;
+        }), e -> {
+            log.error("Failed to get cluster version from registry for '{}': {}", clusterId, e.getMessage(), e);
+            return e;
+        });
+    }
+
+    // =================================================================
+    // PRIVATE HELPER METHODS FOR ETCD OPERATIONS
+    // =================================================================
+
+    @FunctionalInterface
+    private interface EtcdFunction<T, R> {
+        R apply(T value) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface EtcdSupplier<T> {
+        CompletableFuture<T> get() throws Exception;
+    }
+
+    /**
+     * Issues an etcd request under the cluster's in-flight limit, with the timeout of its operation class capped
+     * by the cluster's pass deadline. Fails fast without sending once the deadline has passed, including while
+     * the request waited for a slot. The deadline is the one the calling thread has open for the cluster.
+     */
+    private <T> CompletableFuture<T> limited(String clusterId, OperationClass operationClass,
+                                             Supplier<CompletableFuture<T>> request) {
+        return limited(clusterId, operationClass, request, passDeadlines.get(clusterId));
+    }
+
+    private <T> CompletableFuture<T> limited(String clusterId, OperationClass operationClass,
+                                             Supplier<CompletableFuture<T>> request, PassDeadline deadline) {
+        if (deadline != null && deadline.isExpired()) {
+            return CompletableFuture.failedFuture(new DeadlineExceededException(clusterId));
+        }
+        long timeoutMs = timeouts.timeoutMs(operationClass);
+        return inFlightLimiter.submit(clusterId, () -> {
+            if (deadline == null) {
+                return request.get().orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+            }
+            long remainingMs = deadline.remainingMs();
+            if (remainingMs <= 0) {
+                return CompletableFuture.<T>failedFuture(new DeadlineExceededException(clusterId));
+            }
+            return request.get().orTimeout(Math.min(timeoutMs, remainingMs), TimeUnit.MILLISECONDS);
+        }).whenComplete((response, error) -> recordRequest(clusterId, response, error));
+    }
+
+    /**
+     * Issues an idempotent read, retrying timeouts and unavailable members after a jittered backoff up to the
+     * configured number of attempts. Gives up early when the pass deadline leaves no time for another attempt.
+     */
+    private <T> CompletableFuture<T> read(String clusterId, OperationClass operationClass,
+                                          Supplier<CompletableFuture<T>> request) {
+        // Retries run on a timer thread, so they carry the caller's deadline along
+        return read(clusterId, operationClass, request, passDeadlines.get(clusterId), 1);
+    }
+
+    private <T> CompletableFuture<T> read(String clusterId, OperationClass operationClass,
+                                          Supplier<CompletableFuture<T>> request, PassDeadline deadline, int attempt) {
+        return limited(clusterId, operationClass, request, deadline).exceptionallyCompose(error -> {
+            EtcdTimeouts policy = timeouts;
+            if (attempt >= policy.readMaxAttempts() || !isRetryable(AsyncMetadataStore.unwrap(error))) {
+                return CompletableFuture.failedFuture(error);
+            }
+            long delayMs = policy.retryDelayMs(attempt);
+            if (deadline != null && deadline.remainingMs() <= delayMs) {
+                return CompletableFuture.failedFuture(error);
+            }
+            log.debug("Retrying etcd read for cluster '{}' in {} ms (attempt {}/{}): {}", clusterId, delayMs,
+                attempt + 1, policy.readMaxAttempts(), AsyncMetadataStore.unwrap(error).getMessage());
+            Executor delayed = CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS);
+            return CompletableFuture.runAsync(() -> { }, delayed)
+                .thenCompose(ignored -> read(clusterId, operationClass, request, deadline, attempt + 1));
+        });
+    }
+
+    /**
+     * Failures worth another attempt: the request timed out (but not the pass) or the member was unavailable
+     */
+    static boolean isRetryable(Throwable error) {
+        if (error instanceof DeadlineExceededException) {
+            return false;
+        }
+        if (error instanceof TimeoutException) {
+            return true;
+        }
+        if (error instanceof EtcdException etcdException) {
+            return etcdException.getErrorCode() == ErrorCode.UNAVAILABLE
+                || etcdException.getErrorCode() == ErrorCode.DEADLINE_EXCEEDED;
+        }
+        if (error instanceof StatusRuntimeException statusException) {
+            Status.Code code = statusException.getStatus().getCode();
+            return code == Status.Code.UNAVAILABLE || code == Status.Code.DEADLINE_EXCEEDED;
+        }
+        return false;
+    }
+
+    /**
+     * Counts a finished request, the keys and bytes it read and whether it timed out
+     */
+    private void recordRequest(String clusterId, Object response, Throwable error) {
+        try {
+            if (AsyncMetadataStore.unwrap(error) instanceof DeadlineExceededException) {
+                // Never sent
+                return;
+            }
+            stats.recordRequest(clusterId);
+            if (error != null) {
+                if (AsyncMetadataStore.unwrap(error) instanceof TimeoutException) {
+                    stats.recordTimeout(clusterId);
+                }
+            } else if (response instanceof GetResponse getResponse) {
+                stats.recordRead(clusterId, getResponse);
+            } else if (response instanceof TxnResponse txnResponse && txnResponse.getGetResponses() != null) {
+                txnResponse.getGetResponses().forEach(getResponse -> stats.recordRead(clusterId, getResponse));
+            }
+        } catch (RuntimeException e) {
+            // Accounting never fails a request
+            log.debug("Failed to record etcd request stats: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Runs code that may throw before the first request is issued, turning the exception into a failed future
+     */
+    private static <T> CompletableFuture<T> attempt(EtcdSupplier<T> supplier) {
+        try {
+            return supplier.get();
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * thenApply for decoding steps that throw checked exceptions
+     */
+    private static <T, R> CompletableFuture<R> map(CompletableFuture<T> future, EtcdFunction<T, R> function) {
+        return future.thenCompose(value -> attempt(() -> CompletableFuture.completedFuture(function.apply(value))));
+    }
+
+    /**
+     * Replaces a failure with the exception chosen by the handler, applied to the unwrapped cause
+     */
+    private static <T> CompletableFuture<T> onError(CompletableFuture<T> future, Function<Throwable, Throwable> handler) {
+        return future.exceptionallyCompose(error ->
+            CompletableFuture.failedFuture(handler.apply(AsyncMetadataStore.unwrap(error))));
+    }
+
+    /**
+     * Scans every key under the given prefix (plus a trailing slash) in pages, handing each page to the consumer
+     */
+    private CompletableFuture<Long> scanPrefix(String clusterId, String prefix, PrefixScanner.PageConsumer consumer) {
+        return scanPrefix(clusterId, prefix, 0, consumer);
+    }
+
+    /**
+     * Scans a prefix pinned to a revision (0 for latest), so several scans observe the same point in time.
+     * Completes with the revision read at.
+     */
+    private CompletableFuture<Long> scanPrefix(String clusterId, String prefix, long revision, PrefixScanner.PageConsumer consumer) {
+        // Add trailing slash for etcd prefix queries to ensure precise matching
+        ByteSequence prefixBytes = ByteSequence.from(prefix + PATH_DELIMITER, StandardCharsets.UTF_8);
+        PrefixScanner scanner = new PrefixScanner(
+            (startKey, option) -> read(clusterId, OperationClass.SCAN, () -> kvClient.get(startKey, option)),
+            prefixBytes, prefixScanPageSize, revision, serializableReads);
+        return scanner.forEachPage(consumer);
+    }
+
+    /**
+     * Executes etcd get operation for a single key
+     */
+    private CompletableFuture<GetResponse> get(String clusterId, String key) {
+        return get(clusterId, ByteSequence.from(key, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Executes etcd get operation for a key already built as bytes
+     */
+    private CompletableFuture<GetResponse> get(String clusterId, ByteSequence keyBytes) {
+        if (serializableReads) {
+            return read(clusterId, OperationClass.READ, () -> kvClient.get(keyBytes, SERIALIZABLE_GET));
+        }
+        return read(clusterId, OperationClass.READ, () -> kvClient.get(keyBytes));
+    }
+
+    /**
+     * Executes etcd put operation for a key-value pair
+     */
+    private CompletableFuture<Void> put(String clusterId, String key, String value) {
+        ByteSequence keyBytes = ByteSequence.from(key, StandardCharsets.UTF_8);
+        ByteSequence valueBytes = ByteSequence.from(value, StandardCharsets.UTF_8);
+        return limited(clusterId, OperationClass.WRITE, () -> kvClient.put(keyBytes, valueBytes)).thenApply(response -> {
+            stats.recordWrite(clusterId, keyBytes.size() + valueBytes.size());
+            return null;
+        });
+    }
+
+    /**
+     * Executes etcd put operation for an already encoded value
+     */
+    private CompletableFuture<Void> put(String clusterId, String key, byte[] value) {
+        return put(clusterId, ByteSequence.from(key, StandardCharsets.UTF_8), value);
+    }
+
+    /**
+     * Executes etcd put operation for a key already built as bytes
+     */
+    private CompletableFuture<Void> put(String clusterId, ByteSequence keyBytes, byte[] value) {
+        ByteSequence valueBytes = ByteSequence.from(value);
+        return limited(clusterId, OperationClass.WRITE, () -> kvClient.put(keyBytes, valueBytes)).thenApply(response -> {
+            stats.recordWrite(clusterId, keyBytes.size() + valueBytes.size());
+            return null;
+        });
+    }
+
+    /**
+     * Executes etcd delete operation for a key
+     */
+    private CompletableFuture<Void> delete(String clusterId, String key) {
+        ByteSequence keyBytes = ByteSequence.from(key, StandardCharsets.UTF_8);
+        return limited(clusterId, OperationClass.WRITE, () -> kvClient.delete(keyBytes)).thenApply(response -> null);
+    }
+
+    /**
+     * Executes etcd delete of every key under the prefix
+     */
+    private CompletableFuture<Void> deleteByPrefix(String clusterId, String prefix) {
+        ByteSequence prefixBytes = ByteSequence.from(prefix, StandardCharsets.UTF_8);
+        return limited(clusterId, OperationClass.WRITE, () -> kvClient.delete(
+            prefixBytes,
+            DeleteOption.newBuilder().withPrefix(prefixBytes).build()
+        )).thenApply(response -> null);
+    }
+
+    /**
+     * Deserializes the first value of a GetResponse, or null if the key does not exist.
+     * Goes through the decode cache, so an unchanged actual or goal state is copied rather than parsed.
+     */
+    private <T> T decodeFirst(GetResponse response, Class<T> clazz) throws Exception {
+        if (response.getKvs().isEmpty()) {
+            return null;
+        }
+        return decodeCache.decode(response.getKvs().get(0), clazz);
+    }
+
+    /**
+     * Decodes the first key-value of a response with its modRevision, absent if the key does not exist
+     */
+    private <T> Versioned<T> decodeVersioned(GetResponse response, Class<T> clazz) throws Exception {
+        if (response.getKvs().isEmpty()) {
+            return Versioned.absent();
+        }
+        KeyValue kv = response.getKvs().get(0);
+        return Versioned.of(decodeCache.decode(kv, clazz), kv.getModRevision());
+    }
+
+    /**
+     * Retrieves single object by etcd path
+     */
+    private <T> CompletableFuture<Optional<T>> getObjectByPath(String clusterId, String path, Class<T> clazz) {
+        return map(get(clusterId, path), response -> {
+            if (response.getCount() == 0) {
+                return Optional.<T>empty();
+            }
+            String json = response.getKvs().get(0).getValue().toString(StandardCharsets.UTF_8);
+            return Optional.of(objectMapper.readValue(json, clazz));
+        });
+    }
+
+    /**
+     * Stores object as JSON at the specified etcd path
+     */
+    private CompletableFuture<Void> storeObjectAsJson(String clusterId, String path, Object object) {
+        return attempt(() -> put(clusterId, path, objectMapper.writeValueAsString(object)));
+    }
+
+    /**
+     * Stores object as JSON at a key already built as bytes
+     */
+    private CompletableFuture<Void> storeObjectAsJson(String clusterId, ByteSequence key, Object object) {
+        return attempt(() -> put(clusterId, key, objectMapper.writeValueAsBytes(object)));
+    }
+}
@@ -0,0 +1,335 @@
+package io.clustercontroller.store;
+
+import io.etcd.jetcd.ByteSequence;
+
+import static io.clustercontroller.config.Constants.PATH_ALIASES;
+import static io.clustercontroller.config.Constants.PATH_COORDINATORS;
+import static io.clustercontroller.config.Constants.PATH_CTL_TASKS;
+import static io.clustercontroller.config.Constants.PATH_CTL_TASK_CLAIMS;
+import static io.clustercontroller.config.Constants.PATH_CTL_TASK_HISTORY;
+import static io.clustercontroller.config.Constants.PATH_INDICES;
+import static io.clustercontroller.config.Constants.PATH_LEADER_ELECTION;
+import static io.clustercontroller.config.Constants.PATH_SEARCH_UNITS;
+import static io.clustercontroller.config.Constants.PATH_TEMPLATES;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Builds and parses etcd keys with plain string and byte operations.
+ * <p>
+ * Keys are absolute, '/'-separated paths. Joining drops empty segments and repeated or trailing delimiters,
+ * the same normalization {@code Paths.get(...)} applied on Unix, without creating Path objects and
+ * independently of the platform. Per-cluster prefixes are computed once ({@link ClusterPrefixes}) so the
+ * keys read on every reconcile pass are one copy of the prefix bytes plus the segment characters.
+ */
+public final class EtcdKeyBuilder {
+
+    private static final char DELIMITER = '/';
+
+    private EtcdKeyBuilder() {
+    }
+
+    // =================================================================
+    // STRING KEYS
+    // =================================================================
+
+    /**
+     * Join segments into an absolute key, e.g. ("multi-cluster", "staging") -> "/multi-cluster/staging".
+     */
+    public static String join(String... segments) {
+        StringBuilder key = new StringBuilder(64);
+        for (String segment : segments) {
+            appendSegment(key, segment);
+        }
+        return key.length() == 0 ? String.valueOf(DELIMITER) : key.toString();
+    }
+
+    /**
+     * Append one segment to an already normalized key.
+     */
+    public static String append(String base, String segment) {
+        StringBuilder key = new StringBuilder(base.length() + segment.length() + 1).append(base);
+        appendSegment(key, segment);
+        return key.toString();
+    }
+
+    public static String append(String base, String segment1, String segment2) {
+        StringBuilder key = new StringBuilder(base.length() + segment1.length() + segment2.length() + 2).append(base);
+        appendSegment(key, segment1);
+        appendSegment(key, segment2);
+        return key.toString();
+    }
+
+    public static String append(String base, String segment1, String segment2, String segment3) {
+        StringBuilder key = new StringBuilder(base.length() + segment1.length() + segment2.length() + segment3.length() + 3)
+                .append(base);
+        appendSegment(key, segment1);
+        appendSegment(key, segment2);
+        appendSegment(key, segment3);
+        return key.toString();
+    }
+
+    private static void appendSegment(StringBuilder key, String segment) {
+        if (isPlain(segment)) {
+            key.append(DELIMITER).append(segment);
+            return;
+        }
+        // Segment contains delimiters: split it into its non-empty parts
+        int length = segment.length();
+        int start = 0;
+        while (start < length) {
+            int end = segment.indexOf(DELIMITER, start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end > start) {
+                key.append(DELIMITER).append(segment, start, end);
+            }
+            start = end + 1;
+        }
+    }
+
+    /**
+     * Whether a segment is non-empty and contains no delimiter, so it is appended unchanged.
+     */
+    private static boolean isPlain(String segment) {
+        return !segment.isEmpty() && segment.indexOf(DELIMITER) < 0;
+    }
+
+    // =================================================================
+    // KEY PARSING
+    // =================================================================
+
+    /**
+     * Locate the segments of a key below a prefix, e.g. "unit-1" and "actual-state" in
+     * "/c/search-unit/unit-1/actual-state" below "/c/search-unit". A delimiter right after the prefix is skipped.
+     * Segment strings are only created when asked for.
+     */
+    public static KeySegments segments(String key, String prefix) {
+        return new KeySegments(key, prefix.length());
+    }
+
+    /**
+     * Segments of a key from an offset, with the start and end of the first three recorded.
+     * Trailing empty segments are not counted, as with {@code String.split}.
+     */
+    public static final class KeySegments {
+
+        private static final int TRACKED = 3;
+
+        private final String key;
+        private final int start;
+        private int end0;
+        private int end1;
+        private int end2;
+        private int count;
+
+        KeySegments(String key, int offset) {
+            this.key = key;
+            int length = key.length();
+            this.start = offset < length && key.charAt(offset) == DELIMITER ? offset + 1 : Math.min(offset, length);
+
+            int position = start;
+            while (position < length) {
+                int end = key.indexOf(DELIMITER, position);
+                if (end < 0) {
+                    end = length;
+                }
+                record(end);
+                position = end + 1;
+            }
+            // Drop trailing empty segments ("a/b/" has two segments)
+            while (count > 0 && count <= TRACKED && startOf(count - 1) == endOf(count - 1)) {
+                count--;
+            }
+        }
+
+        private void record(int end) {
+            switch (count) {
+                case 0 -> end0 = end;
+                case 1 -> end1 = end;
+                case 2 -> end2 = end;
+                default -> { }
+            }
+            count++;
+        }
+
+        private int startOf(int index) {
+            return index == 0 ? start : endOf(index - 1) + 1;
+        }
+
+        private int endOf(int index) {
+            return switch (index) {
+                case 0 -> end0;
+                case 1 -> end1;
+                case 2 -> end2;
+                default -> throw new IndexOutOfBoundsException("Only the first " + TRACKED + " segments are tracked");
+            };
+        }
+
+        /**
+         * Number of segments below the prefix.
+         */
+        public int size() {
+            return count;
+        }
+
+        /**
+         * The segment at an index (0 to 2), or null if the key has fewer segments.
+         */
+        public String get(int index) {
+            if (index >= count) {
+                return null;
+            }
+            return key.substring(startOf(index), endOf(index));
+        }
+
+        /**
+         * Whether the segment at an index (0 to 2) equals the given value, compared in place.
+         */
+        public boolean is(int index, String expected) {
+            if (index >= count) {
+                return false;
+            }
+            int segmentStart = startOf(index);
+            int segmentLength = endOf(index) - segmentStart;
+            return segmentLength == expected.length() && key.regionMatches(segmentStart, expected, 0, segmentLength);
+        }
+    }
+
+    // =================================================================
+    // PER-CLUSTER PREFIXES
+    // =================================================================
+
+    /**
+     * Prefixes of one cluster's keyspace, as strings and, for the search-unit and indices keys read on every
+     * pass, as bytes with a trailing delimiter ready to have segments appended.
+     */
+    public static final class ClusterPrefixes {
+
+        private final String root;
+        private final String controllerTasks;
+        private final String controllerTaskHistory;
+        private final String controllerTaskClaims;
+        private final String searchUnits;
+        private final String indices;
+        private final String aliases;
+        private final String templates;
+        private final String coordinators;
+        private final String leaderElection;
+        private final byte[] searchUnitsBytes;
+        private final byte[] indicesBytes;
+
+        public ClusterPrefixes(String clusterName) {
+            this.root = join(clusterName);
+            this.controllerTasks = append(root, PATH_CTL_TASKS);
+            this.controllerTaskHistory = append(root, PATH_CTL_TASK_HISTORY);
+            this.controllerTaskClaims = append(root, PATH_CTL_TASK_CLAIMS);
+            this.searchUnits = append(root, PATH_SEARCH_UNITS);
+            this.indices = append(root, PATH_INDICES);
+            this.aliases = append(root, PATH_ALIASES);
+            this.templates = append(root, PATH_TEMPLATES);
+            this.coordinators = append(root, PATH_COORDINATORS);
+            this.leaderElection = append(root, PATH_LEADER_ELECTION);
+            this.searchUnitsBytes = (searchUnits + DELIMITER).getBytes(UTF_8);
+            this.indicesBytes = (indices + DELIMITER).getBytes(UTF_8);
+        }
+
+        public String getRoot() {
+            return root;
+        }
+
+        public String getControllerTasks() {
+            return controllerTasks;
+        }
+
+        public String getControllerTaskHistory() {
+            return controllerTaskHistory;
+        }
+
+        public String getControllerTaskClaims() {
+            return controllerTaskClaims;
+        }
+
+        public String getSearchUnits() {
+            return searchUnits;
+        }
+
+        public String getIndices() {
+            return indices;
+        }
+
+        public String getAliases() {
+            return aliases;
+        }
+
+        public String getTemplates() {
+            return templates;
+        }
+
+        public String getCoordinators() {
+            return coordinators;
+        }
+
+        public String getLeaderElection() {
+            return leaderElection;
+        }
+
+        /**
+         * Key of a search unit entry, e.g. /<cluster>/search-unit/<unit>/goal-state
+         */
+        public ByteSequence searchUnitKey(String unitName, String suffix) {
+            if (!isAscii(unitName) || !isAscii(suffix)) {
+                return ByteSequence.from(append(searchUnits, unitName, suffix), UTF_8);
+            }
+            return ByteSequence.from(concat(searchUnitsBytes, unitName, suffix, null));
+        }
+
+        /**
+         * Key of a shard entry, e.g. /<cluster>/indices/<index>/<shard>/actual-allocation
+         */
+        public ByteSequence shardKey(String indexName, String shardId, String suffix) {
+            if (!isAscii(indexName) || !isAscii(shardId) || !isAscii(suffix)) {
+                return ByteSequence.from(append(indices, indexName, shardId, suffix), UTF_8);
+            }
+            return ByteSequence.from(concat(indicesBytes, indexName, shardId, suffix));
+        }
+
+        /**
+         * Plain segments of single-byte characters are copied directly; anything else goes through
+         * {@link #append} so it is normalized and UTF-8 encoded exactly like the string keys.
+         */
+        private static boolean isAscii(String segment) {
+            if (!isPlain(segment)) {
+                return false;
+            }
+            for (int i = 0; i < segment.length(); i++) {
+                if (segment.charAt(i) >= 0x80) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static byte[] concat(byte[] prefix, String segment1, String segment2, String segment3) {
+            int length = prefix.length + segment1.length() + 1 + segment2.length()
+                    + (segment3 != null ? segment3.length() + 1 : 0);
+            byte[] key = new byte[length];
+            System.arraycopy(prefix, 0, key, 0, prefix.length);
+            int position = copy(segment1, key, prefix.length);
+            key[position++] = DELIMITER;
+            position = copy(segment2, key, position);
+            if (segment3 != null) {
+                key[position++] = DELIMITER;
+                copy(segment3, key, position);
+            }
+            return key;
+        }
+
+        private static int copy(String segment, byte[] target, int position) {
+            for (int i = 0; i < segment.length(); i++) {
+                target[position++] = (byte) segment.charAt(i);
+            }
+            return position;
+        }
+    }
+}
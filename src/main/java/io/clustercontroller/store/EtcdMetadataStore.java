@@ -10,95 +10,88 @@ import io.clustercontroller.models.CoordinatorGoalState;
 import io.clustercontroller.models.ClusterInformation;
 import io.clustercontroller.models.Alias;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import io.clustercontroller.models.SearchUnit;
 import io.clustercontroller.models.SearchUnitActualState;
 import io.clustercontroller.models.SearchUnitGoalState;
-import io.clustercontroller.enums.HealthState;
 import io.clustercontroller.models.TaskMetadata;
 import io.clustercontroller.models.ClusterControllerAssignment;
 import io.clustercontroller.util.EnvironmentUtils;
 import io.etcd.jetcd.*;
-import io.etcd.jetcd.KeyValue;
-import io.etcd.jetcd.kv.GetResponse;
-import io.etcd.jetcd.kv.TxnResponse;
-import io.etcd.jetcd.op.Cmp;
-import io.etcd.jetcd.op.CmpTarget;
-import io.etcd.jetcd.op.Op;
-import io.etcd.jetcd.options.DeleteOption;
-import io.etcd.jetcd.options.GetOption;
-import io.etcd.jetcd.options.PutOption;
 import lombok.extern.slf4j.Slf4j;
 
 import jakarta.annotation.PreDestroy;
-import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
 
 import io.clustercontroller.config.Constants;
-import static io.clustercontroller.config.Constants.PATH_DELIMITER;
-import static java.nio.charset.StandardCharsets.UTF_8;
+
+import static io.clustercontroller.store.AsyncMetadataStore.await;
 
 /**
  * etcd-based implementation of MetadataStore.
  * Singleton to ensure single etcd client connection.
+ * Data operations are blocking adapters over {@link EtcdAsyncMetadataStore}, available through {@link #async()}.
  */
 @Slf4j
 public class EtcdMetadataStore implements MetadataStore {
-    
-    // TODO: Make etcd timeout configurable via environment variable or config
-    private static final long ETCD_OPERATION_TIMEOUT_SECONDS = 5;
-    
+
     private static EtcdMetadataStore instance;
-    
+
     private final String[] etcdEndpoints;
     private final Client etcdClient;
     private final KV kvClient;
     private final EtcdPathResolver pathResolver;
     private final ObjectMapper objectMapper;
-    // Configurable coordinator goal state location
-    private volatile String coordinatorGoalStateGroup = Constants.PATH_COORDINATORS;
-    private volatile String coordinatorGoalStateUnit = "default-coordinator";
-    
+    // Non-blocking implementation of every data operation
+    private final EtcdAsyncMetadataStore asyncStore;
+    // Incremental index readiness from watches, shared with the serializable view
+    private final ReadinessTracker readinessTracker;
+    // Upper bound on operations per transaction, must not exceed the server's --max-txn-ops
+    private volatile int maxTxnOps = Constants.DEFAULT_ETCD_MAX_TXN_OPS;
+    // Serializable-read view over the same client; created on first use, the view returns itself
+    private EtcdMetadataStore serializableView;
+
     // Leader election fields
     private final String nodeId;
     private final LeaderElection leaderElection;
-    
+
     /**
      * Private constructor for singleton pattern
      */
     private EtcdMetadataStore(String[] etcdEndpoints) throws Exception {
         this.etcdEndpoints = etcdEndpoints;
         this.nodeId = EnvironmentUtils.get("controller.id");
-        
+
         // Initialize Jackson ObjectMapper
         this.objectMapper = new ObjectMapper()
                 .registerModule(new JavaTimeModule())
                 .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-        
+
         // Initialize etcd client
         this.etcdClient = Client.builder().endpoints(etcdEndpoints).build();
         this.kvClient = etcdClient.getKVClient();
-        
+
         // Initialize path resolver
         this.pathResolver = EtcdPathResolver.getInstance();
-        
+
+        this.asyncStore = new EtcdAsyncMetadataStore(kvClient, pathResolver, objectMapper,
+                Constants.DEFAULT_ETCD_MAX_IN_FLIGHT_PER_CLUSTER);
+        this.readinessTracker = newReadinessTracker(pathResolver, asyncStore);
+
         // Initialize leader election (controller-level, not cluster-specific)
         this.leaderElection = new LeaderElection(etcdClient, nodeId);
-        
-        log.info("EtcdMetadataStore initialized with endpoints: {} and nodeId: {}", 
+
+        log.info("EtcdMetadataStore initialized with endpoints: {} and nodeId: {}",
             String.join(",", etcdEndpoints), nodeId);
     }
-    
+
     // =================================================================
     // SINGLETON MANAGEMENT
     // =================================================================
-    
+
     /**
      * Test constructor with injected dependencies
      */
@@ -107,20 +100,48 @@ public class EtcdMetadataStore implements MetadataStore {
         this.nodeId = nodeId;
         this.etcdClient = etcdClient;
         this.kvClient = kvClient;
-        
+
         // Initialize Jackson ObjectMapper
         this.objectMapper = new ObjectMapper()
                 .registerModule(new JavaTimeModule())
                 .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-        
+
         // Initialize path resolver
         this.pathResolver = EtcdPathResolver.getInstance();
-        
+
+        this.asyncStore = new EtcdAsyncMetadataStore(kvClient, pathResolver, objectMapper,
+                Constants.DEFAULT_ETCD_MAX_IN_FLIGHT_PER_CLUSTER);
+        this.readinessTracker = newReadinessTracker(pathResolver, asyncStore);
+
         // Initialize leader election for testing (controller-level, not cluster-specific)
         this.leaderElection = new LeaderElection(etcdClient, nodeId);
-        
+
         log.info("EtcdMetadataStore initialized for testing with nodeId: {}", nodeId);
     }
+
+    /**
+     * Serializable-read view constructor; shares the base store's client and leader election
+     */
+    private EtcdMetadataStore(EtcdMetadataStore base) {
+        this.etcdEndpoints = base.etcdEndpoints;
+        this.nodeId = base.nodeId;
+        this.etcdClient = base.etcdClient;
+        this.kvClient = base.kvClient;
+        this.objectMapper = base.objectMapper;
+        this.pathResolver = base.pathResolver;
+        this.asyncStore = base.asyncStore.serializableReads();
+        this.readinessTracker = base.readinessTracker;
+        this.leaderElection = base.leaderElection;
+        this.maxTxnOps = base.maxTxnOps;
+        this.serializableView = this;
+    }
+
+    private static ReadinessTracker newReadinessTracker(EtcdPathResolver pathResolver,
+                                                       EtcdAsyncMetadataStore asyncStore) {
+        // Snapshots are loaded through the linearizable store so they are at least as new as the watches
+        return new ReadinessTracker(pathResolver, asyncStore::getDecodeCache, asyncStore::loadClusterSnapshot);
+    }
+
     /**
      * Get singleton instance
      */
@@ -130,7 +151,7 @@ public class EtcdMetadataStore implements MetadataStore {
         }
         return instance;
     }
-    
+
     /**
      * Get existing instance (throws if not initialized)
      */
@@ -140,14 +161,14 @@ public class EtcdMetadataStore implements MetadataStore {
         }
         return instance;
     }
-    
+
     /**
      * Reset singleton instance (for testing only)
      */
     public static synchronized void resetInstance() {
         instance = null;
     }
-    
+
     /**
      * Create test instance with mocked dependencies (for testing only)
      */
@@ -156,7 +177,7 @@ public class EtcdMetadataStore implements MetadataStore {
         instance = new EtcdMetadataStore(etcdEndpoints, nodeId, etcdClient, kvClient);
         return instance;
     }
-    
+
     /**
      * Get the etcd client for use by other components (e.g., MultiClusterManager)
      * @return the etcd Client instance
@@ -165,839 +186,334 @@ public class EtcdMetadataStore implements MetadataStore {
         return etcdClient;
     }
 
-    
+    // =================================================================
+    // ASYNC OPERATIONS
+    // =================================================================
+
+    /**
+     * Non-blocking view of this store, issuing requests directly on jetcd futures.
+     */
+    @Override
+    public AsyncMetadataStore async() {
+        return asyncStore;
+    }
+
+    /**
+     * Set the maximum number of concurrent etcd requests per cluster; further requests queue without blocking.
+     */
+    public void setMaxInFlightPerCluster(int maxInFlightPerCluster) {
+        asyncStore.getInFlightLimiter().setMaxInFlight(maxInFlightPerCluster);
+        log.info("Etcd requests limited to {} in flight per cluster", asyncStore.getInFlightLimiter().getMaxInFlight());
+    }
+
+    /**
+     * Set the page size for prefix reads; prefixes with more keys are read in several requests at one revision.
+     */
+    public void setPrefixScanPageSize(int prefixScanPageSize) {
+        asyncStore.setPrefixScanPageSize(prefixScanPageSize);
+        log.info("Etcd prefix reads paged at {} keys per request", prefixScanPageSize);
+    }
+
+    /**
+     * Set the size of the cache of decoded actual and goal states, in MB of encoded value; 0 disables it.
+     */
+    public void setDecodeCacheMaxMb(int decodeCacheMaxMb) {
+        asyncStore.setDecodeCacheMaxBytes(decodeCacheMaxMb * 1024L * 1024L);
+        log.info("Etcd decode cache limited to {} MB", decodeCacheMaxMb);
+    }
+
+    /**
+     * Set request timeouts by operation class, read retries and the budget of a reconcile pass.
+     */
+    public void setTimeouts(EtcdTimeouts timeouts) {
+        asyncStore.setTimeouts(timeouts);
+        log.info("Etcd timeouts: {}", timeouts);
+    }
+
+    /**
+     * Set how search unit actual and goal states and the coordinator goal state are encoded on write.
+     * Reads accept every format regardless; search unit workers do not, see {@link ValueCodec}.
+     */
+    public void setStateValueFormat(String format, boolean compressed) {
+        ValueCodec.Format valueFormat = ValueCodec.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        asyncStore.setStateCodec(new JacksonValueCodec(objectMapper, valueFormat, compressed));
+        log.info("Etcd state values written as {}{}", valueFormat, compressed ? " (deflated)" : "");
+        if (valueFormat != ValueCodec.Format.JSON || compressed) {
+            log.warn("Goal states are no longer plain JSON; search unit workers must be able to decode {}{}",
+                valueFormat, compressed ? " (deflated)" : "");
+        }
+    }
+
+    public ValueCodec getStateValueCodec() {
+        return asyncStore.getStateCodec();
+    }
+
+    /**
+     * View of this store whose reads may be served by any etcd member from its local state, without a round
+     * trip through the leader. Reads can be slightly stale, so only read-only paths such as health, readiness
+     * and metrics should use it; allocation decisions keep using this store.
+     */
+    @Override
+    public synchronized MetadataStore serializableView() {
+        if (serializableView == null) {
+            serializableView = new EtcdMetadataStore(this);
+        }
+        return serializableView;
+    }
+
+    /**
+     * Share the controller's watches for incremental index readiness; until set, readiness is answered by scans.
+     */
+    public void setWatchHub(WatchHub watchHub) {
+        readinessTracker.setWatchHub(watchHub);
+    }
+
+    @Override
+    public void manageCluster(String clusterId) {
+        readinessTracker.trackCluster(clusterId);
+    }
+
+    @Override
+    public void releaseCluster(String clusterId) {
+        asyncStore.getInFlightLimiter().releaseCluster(clusterId);
+        asyncStore.getStats().releaseCluster(clusterId);
+        asyncStore.getTerminalTasks().releaseCluster(clusterId);
+        readinessTracker.releaseCluster(clusterId);
+    }
+
+    @Override
+    public PassDeadline startPassDeadline(String clusterId) {
+        return asyncStore.startPassDeadline(clusterId);
+    }
+
+    @Override
+    public StoreStats stats() {
+        return asyncStore.getStats();
+    }
+
     // =================================================================
     // CONTROLLER TASKS OPERATIONS
     // =================================================================
-    
+
     public List<TaskMetadata> getAllTasks(String clusterId) throws Exception {
-        log.debug("Getting all tasks from etcd");
-        
-        try {
-            String tasksPrefix = pathResolver.getControllerTasksPrefix(clusterId);
-            List<TaskMetadata> tasks = getAllObjectsByPrefix(tasksPrefix, TaskMetadata.class);
-            
-            // Sort by priority (0 = highest priority)
-            tasks.sort((t1, t2) -> Integer.compare(t1.getPriority(), t2.getPriority()));
-            
-            log.debug("Retrieved {} tasks from etcd", tasks.size());
-            return tasks;
-            
-        } catch (Exception e) {
-            log.error("Failed to get all tasks from etcd: {}", e.getMessage(), e);
-            throw new Exception("Failed to retrieve tasks from etcd", e);
-        }
+        return await(asyncStore.getAllTasks(clusterId));
     }
-    
+
     public Optional<TaskMetadata> getTask(String clusterId, String taskName) throws Exception {
-        log.debug("Getting task {} from etcd", taskName);
-        
-        try {
-            String taskPath = pathResolver.getControllerTaskPath(clusterId, taskName);
-            Optional<TaskMetadata> result = getObjectByPath(taskPath, TaskMetadata.class);
-            
-            if (result.isPresent()) {
-                log.debug("Retrieved task {} from etcd", taskName);
-            } else {
-                log.debug("Task {} not found in etcd", taskName);
-            }
-            
-            return result;
-            
-        } catch (Exception e) {
-            log.error("Failed to get task {} from etcd: {}", taskName, e.getMessage(), e);
-            throw new Exception("Failed to retrieve task from etcd", e);
-        }
+        return await(asyncStore.getTask(clusterId, taskName));
+    }
+
+    public Versioned<TaskMetadata> getTaskVersioned(String clusterId, String taskName) throws Exception {
+        return await(asyncStore.getTaskVersioned(clusterId, taskName));
     }
-    
+
     public String createTask(String clusterId, TaskMetadata task) throws Exception {
-        log.info("Creating task {} in etcd", task.getName());
-        
-        try {
-            String taskPath = pathResolver.getControllerTaskPath(clusterId, task.getName());
-            storeObjectAsJson(taskPath, task);
-            
-            log.info("Successfully created task {} in etcd", task.getName());
-            return task.getName();
-            
-        } catch (Exception e) {
-            log.error("Failed to create task {} in etcd: {}", task.getName(), e.getMessage(), e);
-            throw new Exception("Failed to create task in etcd", e);
-        }
+        return await(asyncStore.createTask(clusterId, task));
     }
-    
+
     public void updateTask(String clusterId, TaskMetadata task) throws Exception {
-        log.debug("Updating task {} in etcd", task.getName());
-        
-        try {
-            String taskPath = pathResolver.getControllerTaskPath(clusterId, task.getName());
-            storeObjectAsJson(taskPath, task);
-            
-            log.debug("Successfully updated task {} in etcd", task.getName());
-            
-        } catch (Exception e) {
-            log.error("Failed to update task {} in etcd: {}", task.getName(), e.getMessage(), e);
-            throw new Exception("Failed to update task in etcd", e);
-        }
+        await(asyncStore.updateTask(clusterId, task));
+    }
+
+    public Versioned<TaskMetadata> updateTask(String clusterId, TaskMetadata task, long expectedRevision) throws Exception {
+        return await(asyncStore.updateTask(clusterId, task, expectedRevision));
     }
-    
+
     public void deleteTask(String clusterId, String taskName) throws Exception {
-        log.info("Deleting task {} from etcd", taskName);
-        
-        try {
-            String taskPath = pathResolver.getControllerTaskPath(clusterId, taskName);
-            executeEtcdDelete(taskPath);
-            
-            log.info("Successfully deleted task {} from etcd", taskName);
-            
-        } catch (Exception e) {
-            log.error("Failed to delete task {} from etcd: {}", taskName, e.getMessage(), e);
-            throw new Exception("Failed to delete task from etcd", e);
-        }
+        await(asyncStore.deleteTask(clusterId, taskName));
+    }
+
+    public int deleteOldTasks(String clusterId, long olderThanTimestamp, boolean archive) throws Exception {
+        return await(asyncStore.deleteOldTasks(clusterId, olderThanTimestamp, archive));
     }
-    
-    public void deleteOldTasks(long olderThanTimestamp) throws Exception {
-        log.debug("Deleting old tasks from etcd older than {}", olderThanTimestamp);
-        // TODO: Implement etcd cleanup for old tasks
+
+    public boolean claimTask(String clusterId, String taskName, String owner, long leaseId) throws Exception {
+        return await(asyncStore.claimTask(clusterId, taskName, owner, leaseId));
+    }
+
+    public void releaseTaskClaim(String clusterId, String taskName) throws Exception {
+        await(asyncStore.releaseTaskClaim(clusterId, taskName));
     }
-    
+
+    public boolean isTaskClaimed(String clusterId, String taskName) throws Exception {
+        return await(asyncStore.isTaskClaimed(clusterId, taskName));
+    }
+
     // =================================================================
     // SEARCH UNITS OPERATIONS
     // =================================================================
-    
+
     public List<SearchUnit> getAllSearchUnits(String clusterId) throws Exception {
-        log.debug("Getting all search units from etcd");
-        
-        try {
-            String unitsPrefix = pathResolver.getSearchUnitsPrefix(clusterId);
-            GetResponse response = executeEtcdPrefixQuery(unitsPrefix);
-            
-            List<SearchUnit> searchUnits = new ArrayList<>();
-            for (var kv : response.getKvs()) {
-                String key = kv.getKey().toString(StandardCharsets.UTF_8);
-                // Only process keys that end with /conf (search unit configuration files)
-                // This filters out /actual-state and other non-config paths
-                if (key.endsWith("/conf")) {
-                    String json = kv.getValue().toString(StandardCharsets.UTF_8);
-                    try {
-                        SearchUnit searchUnit = objectMapper.readValue(json, SearchUnit.class);
-                        searchUnits.add(searchUnit);
-                    } catch (Exception parseException) {
-                        log.warn("Failed to parse search unit config at key {}: {}", key, parseException.getMessage());
-                    }
-                }
-            }
-            
-            log.debug("Retrieved {} search units from etcd", searchUnits.size());
-            return searchUnits;
-            
-        } catch (Exception e) {
-            log.error("Failed to get all search units from etcd: {}", e.getMessage(), e);
-            throw new Exception("Failed to retrieve search units from etcd", e);
-        }
+        return await(asyncStore.getAllSearchUnits(clusterId));
     }
-    
+
     @Override
     public List<SearchUnit> getAllCoordinators(String clusterId) throws Exception {
-        log.debug("Getting all coordinators from etcd for cluster: {}", clusterId);
-        List<SearchUnit> coordinators = new ArrayList<>();
-        
-        try {
-            // Query etcd for all coordinators using existing helper
-            String coordinatorsPrefix = pathResolver.getCoordinatorsPrefix(clusterId);
-            GetResponse response = executeEtcdPrefixQuery(coordinatorsPrefix);
-            
-            // Parse each coordinator actual-state entry
-            for (KeyValue kv : response.getKvs()) {
-                String key = kv.getKey().toString(StandardCharsets.UTF_8);
-                String value = kv.getValue().toString(StandardCharsets.UTF_8);
-                
-                if (!key.endsWith("/actual-state")) {
-                    continue;
-                }
-                
-                JsonNode json = objectMapper.readTree(value);
-                
-                // Verify it's a coordinator by checking clusterlessRole
-                String role = json.has("clusterlessRole") ? json.get("clusterlessRole").asText() : "";
-                if (!"coordinator".equals(role)) {
-                    continue;
-                }
-                
-                String nodeName = json.has("nodeName") ? json.get("nodeName").asText() : "unknown";
-                
-                // Parse actual-state to check health
-                SearchUnitActualState actualState = objectMapper.readValue(value, SearchUnitActualState.class);
-                HealthState healthState = actualState.deriveNodeState();
-                
-                // Filter out RED (unhealthy) coordinators
-                if (healthState == HealthState.RED) {
-                    log.debug("Skipping unhealthy coordinator '{}': state=RED", actualState.getNodeName());
-                    continue;
-                }
-                
-                // Convert actual-state to SearchUnit
-                String address = json.has("address") ? json.get("address").asText() : "";
-                int httpPort = json.get("httpPort").asInt();
-                
-                SearchUnit coordinator = new SearchUnit();
-                coordinator.setName(nodeName);
-                coordinator.setHost(address);
-                coordinator.setPortHttp(httpPort);
-                int transportPort = json.has("transportPort") ? json.get("transportPort").asInt() : 9300;
-                coordinator.setPortTransport(transportPort);
-                coordinator.setRole("COORDINATOR");
-                coordinator.setClusterName(clusterId);
-                
-                // Validate before adding
-                if (address == null || address.trim().isEmpty()) {
-                    log.warn("Coordinator '{}' has invalid/empty address, skipping", nodeName);
-                    continue;
-                }
-                
-                coordinators.add(coordinator);
-                log.debug("Found healthy coordinator: {} at {}:{} (state={})", 
-                        coordinator.getName(), coordinator.getHost(), coordinator.getPortHttp(), healthState);
-            }
-            
-            log.debug("Retrieved {} coordinators from etcd for cluster '{}'", coordinators.size(), clusterId);
-            return coordinators;
-            
-        } catch (Exception e) {
-            log.error("Failed to get coordinators from etcd: {}", e.getMessage(), e);
-            throw new Exception("Failed to retrieve coordinators from etcd", e);
-        }
+        return await(asyncStore.getAllCoordinators(clusterId));
     }
-    
+
     public Optional<SearchUnit> getSearchUnit(String clusterId, String unitName) throws Exception {
-        log.debug("Getting search unit {} from etcd", unitName);
-        
-        try {
-            String unitPath = pathResolver.getSearchUnitConfPath(clusterId, unitName);
-            Optional<SearchUnit> result = getObjectByPath(unitPath, SearchUnit.class);
-            
-            if (result.isPresent()) {
-                log.debug("Retrieved search unit {} from etcd", unitName);
-            } else {
-                log.debug("Search unit {} not found in etcd", unitName);
-            }
-            
-            return result;
-            
-        } catch (Exception e) {
-            log.error("Failed to get search unit {} from etcd: {}", unitName, e.getMessage(), e);
-            throw new Exception("Failed to retrieve search unit from etcd", e);
-        }
+        return await(asyncStore.getSearchUnit(clusterId, unitName));
     }
-    
+
     public void upsertSearchUnit(String clusterId, String unitName, SearchUnit searchUnit) throws Exception {
-        log.info("Upserting search unit {} in etcd", unitName);
-        
-        try {
-            String unitPath = pathResolver.getSearchUnitConfPath(clusterId, unitName);
-            storeObjectAsJson(unitPath, searchUnit);
-            
-            log.info("Successfully upserted search unit {} in etcd", unitName);
-            
-        } catch (Exception e) {
-            log.error("Failed to upsert search unit {} in etcd: {}", unitName, e.getMessage(), e);
-            throw new Exception("Failed to upsert search unit in etcd", e);
-        }
+        await(asyncStore.upsertSearchUnit(clusterId, unitName, searchUnit));
     }
-    
+
     public void updateSearchUnit(String clusterId, SearchUnit searchUnit) throws Exception {
-        log.debug("Updating search unit {} in etcd", searchUnit.getName());
-        
-        try {
-            String unitPath = pathResolver.getSearchUnitConfPath(clusterId, searchUnit.getName());
-            storeObjectAsJson(unitPath, searchUnit);
-            
-            log.debug("Successfully updated search unit {} in etcd", searchUnit.getName());
-            
-        } catch (Exception e) {
-            log.error("Failed to update search unit {} in etcd: {}", searchUnit.getName(), e.getMessage(), e);
-            throw new Exception("Failed to update search unit in etcd", e);
-        }
+        await(asyncStore.updateSearchUnit(clusterId, searchUnit));
     }
-    
+
     public void deleteSearchUnit(String clusterId, String unitName) throws Exception {
-        log.info("Deleting search unit {} (all state: conf, goal-state, actual-state) from etcd", unitName);
-        
-        try {
-            // Delete the entire search unit node prefix to remove conf, goal-state, and actual-state
-            String unitPrefix = pathResolver.getSearchUnitsPrefix(clusterId) + PATH_DELIMITER + unitName;
-            
-            ByteSequence prefixBytes = ByteSequence.from(unitPrefix + PATH_DELIMITER, UTF_8);
-            kvClient.delete(
-                prefixBytes,
-                DeleteOption.newBuilder().withPrefix(prefixBytes).build()
-            ).get(ETCD_OPERATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-            
-            log.info("Successfully deleted search unit {} and all its state from etcd", unitName);
-            
-        } catch (Exception e) {
-            log.error("Failed to delete search unit {} from etcd: {}", unitName, e.getMessage(), e);
-            throw new Exception("Failed to delete search unit from etcd", e);
-        }
+        await(asyncStore.deleteSearchUnit(clusterId, unitName));
     }
-    
+
     // =================================================================
     // SEARCH UNIT STATE OPERATIONS (for discovery)
     // =================================================================
-    
-    public Map<String, SearchUnitActualState> getAllSearchUnitActualStates(String clusterId) throws Exception {
-        log.info("Getting all search unit actual states from etcd for cluster '{}' in getAllSearchUnitActualStates", clusterId);
-
-        String prefix = pathResolver.getSearchUnitsPrefix(clusterId);
-        log.info("Querying etcd for actual-states with clusterId: '{}', prefix: '{}'", clusterId, prefix);
-        
-        GetOption option = GetOption.newBuilder()
-                .withPrefix(ByteSequence.from(prefix, UTF_8))
-                .build();
-        
-        CompletableFuture<GetResponse> getFuture = kvClient.get(
-                ByteSequence.from(prefix, UTF_8), option);
-        GetResponse response = getFuture.get();
-        
-        log.info("Etcd returned {} total keys for prefix '{}'", response.getKvs().size(), prefix);
-        
-        Map<String, SearchUnitActualState> actualStates = new HashMap<>();
-        
-        for (KeyValue kv : response.getKvs()) {
-            String key = kv.getKey().toString(UTF_8);
-            String json = kv.getValue().toString(UTF_8);
-            log.info("Processing etcd key: {}", key);
-            
-            // Parse key to get unit name and check if it's an actual-state key
-            // relativePath example: /unit-name/actual-state
-            String relativePath = key.substring(prefix.length());
-            if (relativePath.startsWith("/")) {
-                relativePath = relativePath.substring(1); // Remove leading slash
-            }
-            String[] parts = relativePath.split("/");
-            // After removing leading slash: parts[0] = unit-name, parts[1] = actual-state
-            if (parts.length >= 2 && "actual-state".equals(parts[1])) {
-                String unitName = parts[0];
-                log.info("Found actual-state for unit: {} (key: {})", unitName, key);
-                try {
-                    SearchUnitActualState actualState = objectMapper.readValue(json, SearchUnitActualState.class);
-                    actualStates.put(unitName, actualState);
-                    log.info("Successfully parsed actual-state for unit: {}", unitName);
-                } catch (Exception e) {
-                    log.warn("Failed to parse actual state for unit {}: {}", unitName, e.getMessage(), e);
-                }
-            }
-        }
 
-        return actualStates;
+    public Map<String, SearchUnitActualState> getAllSearchUnitActualStates(String clusterId) throws Exception {
+        return await(asyncStore.getAllSearchUnitActualStates(clusterId));
     }
-    
+
     public SearchUnitGoalState getSearchUnitGoalState(String clusterId, String unitName) throws Exception {
-        String key = pathResolver.getSearchUnitGoalStatePath(clusterId, unitName);
-        CompletableFuture<GetResponse> getFuture = kvClient.get(ByteSequence.from(key, UTF_8));
-        GetResponse response = getFuture.get();
-        
-        if (response.getKvs().isEmpty()) {
-            return null;
-        }
-        
-        String json = response.getKvs().get(0).getValue().toString(UTF_8);
-        SearchUnitGoalState goalState = objectMapper.readValue(json, SearchUnitGoalState.class);
-        
-        return goalState;
+        return await(asyncStore.getSearchUnitGoalState(clusterId, unitName));
+    }
+
+    public Versioned<SearchUnitGoalState> getSearchUnitGoalStateVersioned(String clusterId, String unitName) throws Exception {
+        return await(asyncStore.getSearchUnitGoalStateVersioned(clusterId, unitName));
     }
-    
+
     public SearchUnitActualState getSearchUnitActualState(String clusterId, String unitName) throws Exception {
-        String key = pathResolver.getSearchUnitActualStatePath(clusterId, unitName);
-        CompletableFuture<GetResponse> getFuture = kvClient.get(ByteSequence.from(key, UTF_8));
-        GetResponse response = getFuture.get();
-        
-        if (response.getKvs().isEmpty()) {
-            return null;
-        }
-        
-        String json = response.getKvs().get(0).getValue().toString(UTF_8);
-        SearchUnitActualState actualState = objectMapper.readValue(json, SearchUnitActualState.class);
-        
-        return actualState;
+        return await(asyncStore.getSearchUnitActualState(clusterId, unitName));
     }
-    
+
     public void setSearchUnitGoalState(String clusterId, String unitName, SearchUnitGoalState goalState) throws Exception {
-        String key = pathResolver.getSearchUnitGoalStatePath(clusterId, unitName);
-        String json = objectMapper.writeValueAsString(goalState);
-        
-        // Use Compare-And-Swap (CAS) pattern with mod_revision for thread-safe updates
-        ByteSequence keyBytes = ByteSequence.from(key, UTF_8);
-        ByteSequence valueBytes = ByteSequence.from(json, UTF_8);
-        
-        // Get current revision to use in CAS operation
-        GetResponse getResponse = kvClient.get(keyBytes).get();
-        long currentRevision = 0;
-        if (getResponse.getCount() > 0) {
-            currentRevision = getResponse.getKvs().get(0).getModRevision();
-        }
-        
-        // Perform atomic CAS operation
-        TxnResponse txnResponse = kvClient.txn()
-            .If(new Cmp(keyBytes, Cmp.Op.EQUAL, CmpTarget.modRevision(currentRevision)))
-            .Then(Op.put(keyBytes, valueBytes, PutOption.DEFAULT))
-            .Else(Op.get(keyBytes, GetOption.DEFAULT))
-            .commit()
-            .get();
-            
-        if (!txnResponse.isSucceeded()) {
-            throw new RuntimeException("Failed to update goal state for " + unitName + " due to concurrent modification. Please retry.");
-        }
-        
-        log.debug("Successfully set goal state for search unit {} using CAS", unitName);
+        await(asyncStore.setSearchUnitGoalState(clusterId, unitName, goalState));
+    }
+
+    public Versioned<SearchUnitGoalState> setSearchUnitGoalState(String clusterId, String unitName, SearchUnitGoalState goalState,
+                                                                 long expectedRevision) throws Exception {
+        return await(asyncStore.setSearchUnitGoalState(clusterId, unitName, goalState, expectedRevision));
     }
-    
+
     public void setSearchUnitActualState(String clusterId, String unitName, SearchUnitActualState actualState) throws Exception {
-        String key = pathResolver.getSearchUnitActualStatePath(clusterId, unitName);
-        String json = objectMapper.writeValueAsString(actualState);
-        
-        var putFuture = kvClient.put(ByteSequence.from(key, UTF_8), ByteSequence.from(json, UTF_8));
-        putFuture.get();
-        
-        log.debug("Successfully set actual state for search unit {}", unitName);
+        await(asyncStore.setSearchUnitActualState(clusterId, unitName, actualState));
     }
 
     public List<String> getAllNodesWithGoalStates(String clusterId) throws Exception {
-        log.debug("Getting all nodes with goal states from etcd");
-        
-        String prefix = pathResolver.getSearchUnitsPrefix(clusterId);
-        GetOption option = GetOption.newBuilder().withPrefix(ByteSequence.from(prefix, UTF_8)).build();
-        CompletableFuture<GetResponse> getFuture = kvClient.get(ByteSequence.from(prefix, UTF_8), option);
-        GetResponse response = getFuture.get();
-        
-        List<String> nodeNames = new ArrayList<>();
-        
-        for (KeyValue kv : response.getKvs()) {
-            String key = kv.getKey().toString(UTF_8);
-            
-            String relativePath = key.substring(prefix.length());
-            if (relativePath.startsWith("/")) {
-                relativePath = relativePath.substring(1);
-            }
-            String[] parts = relativePath.split("/");
-            if (parts.length >= 2 && "goal-state".equals(parts[1])) {
-                String unitName = parts[0];
-                nodeNames.add(unitName);
-                log.debug("Found goal-state for node: {} (key: {})", unitName, key);
-            }
-        }
-        
-        log.debug("Retrieved {} nodes with goal states from etcd", nodeNames.size());
-        return nodeNames;
+        return await(asyncStore.getAllNodesWithGoalStates(clusterId));
     }
-    
+
     public void deleteActualAllocation(String clusterId, String indexName, String shardId) throws Exception {
-        log.info("Deleting actual allocation for {}/{} from etcd", indexName, shardId);
-        
-        try {
-            String actualAllocationPath = pathResolver.getShardActualAllocationPath(clusterId, indexName, shardId);
-            executeEtcdDelete(actualAllocationPath);
-            
-            log.info("Successfully deleted actual allocation for {}/{} from etcd", indexName, shardId);
-            
-        } catch (Exception e) {
-            log.error("Failed to delete actual allocation for {}/{} from etcd: {}", indexName, shardId, e.getMessage(), e);
-            throw new Exception("Failed to delete actual allocation from etcd", e);
-        }
+        await(asyncStore.deleteActualAllocation(clusterId, indexName, shardId));
     }
-    
+
     @Override
     public Set<String> getAllIndicesWithActualAllocations(String clusterId) throws Exception {
-        log.debug("Getting all indices with actual-allocation entries from etcd");
-        
-        Set<String> indicesWithAllocations = new HashSet<>();
-        
-        try {
-            String indicesPrefix = pathResolver.getIndicesPrefix(clusterId);
-            ByteSequence prefixBytes = ByteSequence.from(indicesPrefix, UTF_8);
-            GetOption getOption = GetOption.newBuilder()
-                    .withPrefix(prefixBytes)
-                    .build();
-            
-            GetResponse response = kvClient.get(prefixBytes, getOption)
-                    .get(ETCD_OPERATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-            
-            for (KeyValue kv : response.getKvs()) {
-                String key = kv.getKey().toString(UTF_8);
-                
-                // Look for keys ending with "/actual-allocation"
-                if (key.endsWith("/" + Constants.SUFFIX_ACTUAL_ALLOCATION)) {
-                    // Extract index name from key pattern: /cluster/indices/INDEX_NAME/SHARD_ID/actual-allocation
-                    String relativePath = key.substring(indicesPrefix.length());
-                    if (relativePath.startsWith("/")) {
-                        relativePath = relativePath.substring(1);
-                    }
-                    
-                    String[] parts = relativePath.split("/");
-                    if (parts.length >= 3 && Constants.SUFFIX_ACTUAL_ALLOCATION.equals(parts[2])) {
-                        String indexName = parts[0];
-                        indicesWithAllocations.add(indexName);
-                        log.debug("Found actual-allocation for index: {} (key: {})", indexName, key);
-                    }
-                }
-            }
-            
-            log.debug("Found {} indices with actual-allocation entries in etcd", indicesWithAllocations.size());
-            return indicesWithAllocations;
-            
-        } catch (Exception e) {
-            log.error("Failed to get indices with actual allocations from etcd: {}", e.getMessage(), e);
-            throw e;
-        }
+        return await(asyncStore.getAllIndicesWithActualAllocations(clusterId));
     }
+
     // =================================================================
     // INDEX CONFIGURATIONS OPERATIONS
     // =================================================================
-    
-    public List<Index> getAllIndexConfigs(String clusterId) throws Exception {
-        log.debug("Getting all index configs from etcd");
 
-        try {
-            String indicesPrefix = pathResolver.getIndicesPrefix(clusterId);
-            GetResponse response = executeEtcdPrefixQuery(indicesPrefix);
-
-            List<Index> indexConfigs = new ArrayList<>();
-            for (var kv : response.getKvs()) {
-                String key = kv.getKey().toString(StandardCharsets.UTF_8);
-                // Only process keys that end with /conf (index configuration files)
-                if (key.endsWith("/conf")) {
-                    String indexConfigJson = kv.getValue().toString(StandardCharsets.UTF_8);
-                    try {
-                        Index indexConfig = objectMapper.readValue(indexConfigJson, Index.class);
-                        indexConfigs.add(indexConfig);
-                    } catch (Exception parseException) {
-                        log.warn("Failed to parse index config JSON: {}, error: {}, skipping", indexConfigJson, parseException.getMessage(), parseException);
-                    }
-                }
-            }
-
-            log.debug("Retrieved {} index configs from etcd", indexConfigs.size());
-            return indexConfigs;
-
-        } catch (Exception e) {
-            log.error("Failed to get all index configs from etcd: {}", e.getMessage(), e);
-            throw new Exception("Failed to retrieve index configs from etcd", e);
-        }
+    public List<Index> getAllIndexConfigs(String clusterId) throws Exception {
+        return await(asyncStore.getAllIndexConfigs(clusterId));
     }
-    
+
     public Optional<String> getIndexConfig(String clusterId, String indexName) throws Exception {
-        log.debug("Getting index config {} from etcd", indexName);
-        
-        try {
-            String indexPath = pathResolver.getIndexConfPath(clusterId, indexName);
-            GetResponse response = executeEtcdGet(indexPath);
-            
-            if (response.getCount() == 0) {
-                log.debug("Index config {} not found in etcd", indexName);
-                return Optional.empty();
-            }
-            
-            String indexConfigJson = response.getKvs().get(0).getValue().toString(StandardCharsets.UTF_8);
-            
-            log.debug("Retrieved index config {} from etcd", indexName);
-            return Optional.of(indexConfigJson);
-            
-        } catch (Exception e) {
-            log.error("Failed to get index config {} from etcd: {}", indexName, e.getMessage(), e);
-            throw new Exception("Failed to retrieve index config from etcd", e);
-        }
+        return await(asyncStore.getIndexConfig(clusterId, indexName));
     }
-    
+
     public String createIndexConfig(String clusterId, String indexName, String indexConfig) throws Exception {
-        log.info("Creating index config {} in etcd", indexName);
-        
-        try {
-            String indexPath = pathResolver.getIndexConfPath(clusterId, indexName);
-            executeEtcdPut(indexPath, indexConfig);
-            
-            log.info("Successfully created index config {} in etcd", indexName);
-            return indexName;
-            
-        } catch (Exception e) {
-            log.error("Failed to create index config {} in etcd: {}", indexName, e.getMessage(), e);
-            throw new Exception("Failed to create index config in etcd", e);
-        }
+        return await(asyncStore.createIndexConfig(clusterId, indexName, indexConfig));
     }
-    
+
     public void updateIndexConfig(String clusterId, String indexName, String indexConfig) throws Exception {
-        log.debug("Updating index config {} in etcd", indexName);
-        
-        try {
-            String indexPath = pathResolver.getIndexConfPath(clusterId, indexName);
-            executeEtcdPut(indexPath, indexConfig);
-            
-            log.debug("Successfully updated index config {} in etcd", indexName);
-            
-        } catch (Exception e) {
-            log.error("Failed to update index config {} in etcd: {}", indexName, e.getMessage(), e);
-            throw new Exception("Failed to update index config in etcd", e);
-        }
+        await(asyncStore.updateIndexConfig(clusterId, indexName, indexConfig));
     }
 
     public void deleteIndexConfig(String clusterId, String indexName) throws Exception {
-        log.info("Deleting index config {} from etcd", indexName);
-        
-        try {
-            String indexPath = pathResolver.getIndexConfPath(clusterId, indexName);
-            executeEtcdDelete(indexPath);
-            
-            log.info("Successfully deleted index config {} from etcd", indexName);
-            
-        } catch (Exception e) {
-            log.error("Failed to delete index config {} from etcd: {}", indexName, e.getMessage(), e);
-            throw new Exception("Failed to delete index config from etcd", e);
-        }
+        await(asyncStore.deleteIndexConfig(clusterId, indexName));
     }
-    
+
     @Override
     public void setIndexMappings(String clusterId, String indexName, String mappings) throws Exception {
-        log.debug("Setting index mappings for {} in etcd", indexName);
-        
-        try {
-            String mappingsPath = pathResolver.getIndexMappingsPath(clusterId, indexName);
-            executeEtcdPut(mappingsPath, mappings);
-            
-            log.debug("Successfully set index mappings for {} in etcd", indexName);
-            
-        } catch (Exception e) {
-            log.error("Failed to set index mappings for {} in etcd: {}", indexName, e.getMessage(), e);
-            throw new Exception("Failed to set index mappings in etcd", e);
-        }
+        await(asyncStore.setIndexMappings(clusterId, indexName, mappings));
     }
-    
+
     @Override
     public TypeMapping getIndexMappings(String clusterId, String indexName) throws Exception {
-        log.debug("Getting index mappings for {} from etcd", indexName);
-        
-        try {
-            String mappingsPath = pathResolver.getIndexMappingsPath(clusterId, indexName);
-            GetResponse response = executeEtcdGet(mappingsPath);
-            
-            if (response.getKvs().isEmpty()) {
-                log.debug("No mappings found for index {} in cluster {}", indexName, clusterId);
-                return null;
-            }
-            
-            String mappingsJson = response.getKvs().get(0).getValue().toString(StandardCharsets.UTF_8);
-            log.debug("Retrieved mappings for index {}: {}", indexName, mappingsJson);
-            
-            // Parse JSON to TypeMapping object
-            return objectMapper.readValue(mappingsJson, TypeMapping.class);
-            
-        } catch (Exception e) {
-            log.error("Failed to get index mappings for {} from etcd: {}", indexName, e.getMessage(), e);
-            throw e;
-        }
+        return await(asyncStore.getIndexMappings(clusterId, indexName));
     }
-    
+
     @Override
     public IndexSettings getIndexSettings(String clusterId, String indexName) throws Exception {
-        log.debug("Getting index settings for {} from etcd", indexName);
-        
-        try {
-            String settingsPath = pathResolver.getIndexSettingsPath(clusterId, indexName);
-            GetResponse response = executeEtcdGet(settingsPath);
-            
-            if (response.getCount() == 0) {
-                log.debug("Index settings {} not found in etcd", indexName);
-                return null;
-            }
-            
-            String settingsJson = response.getKvs().get(0).getValue().toString(StandardCharsets.UTF_8);
-            log.debug("Retrieved index settings JSON for {}: {}", indexName, settingsJson);
-            
-            // Parse the JSON to check if it has a "settings" wrapper
-            com.fasterxml.jackson.databind.JsonNode rootNode = objectMapper.readTree(settingsJson);
-            
-            IndexSettings settings;
-            if (rootNode.has("index")) {
-                // Extract the inner "settings" object
-                com.fasterxml.jackson.databind.JsonNode settingsNode = rootNode.get("index");
-                settings = objectMapper.treeToValue(settingsNode, IndexSettings.class);
-                log.debug("Extracted settings from nested 'settings' field for {}", indexName);
-            } else {
-                // Direct deserialization if no wrapper
-                settings = objectMapper.treeToValue(rootNode, IndexSettings.class);
-                log.debug("Parsed settings directly for {}", indexName);
-            }
-            
-            log.debug("Successfully parsed index settings for {}: {}", indexName, settings);
-            return settings;
-            
-        } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
-            log.error("Failed to parse index settings JSON for {} from etcd: {}", indexName, e.getMessage(), e);
-            throw new Exception("Failed to parse index settings JSON from etcd", e);
-        } catch (Exception e) {
-            log.error("Failed to get index settings {} from etcd: {}", indexName, e.getMessage(), e);
-            throw new Exception("Failed to retrieve index settings from etcd", e);
-        }
+        return await(asyncStore.getIndexSettings(clusterId, indexName));
     }
-    
+
     @Override
     public void setIndexSettings(String clusterId, String indexName, String settings) throws Exception {
-        log.debug("Setting index settings for {} in etcd", indexName);
-        
-        try {
-            // Wrap settings in "index" key to match Elasticsearch convention
-            // Parse the incoming settings JSON and wrap it
-            com.fasterxml.jackson.databind.JsonNode settingsNode = objectMapper.readTree(settings);
-            java.util.Map<String, com.fasterxml.jackson.databind.JsonNode> wrappedSettings = new java.util.HashMap<>();
-            wrappedSettings.put("index", settingsNode);
-            String wrappedSettingsJson = objectMapper.writeValueAsString(wrappedSettings);
-            
-            String settingsPath = pathResolver.getIndexSettingsPath(clusterId, indexName);
-            executeEtcdPut(settingsPath, wrappedSettingsJson);
-            
-            log.debug("Successfully set index settings for {} in etcd (wrapped in 'index' key)", indexName);
-            
-        } catch (Exception e) {
-            log.error("Failed to set index settings for {} in etcd: {}", indexName, e.getMessage(), e);
-            throw new Exception("Failed to set index settings in etcd", e);
-        }
+        await(asyncStore.setIndexSettings(clusterId, indexName, settings));
     }
-    
+
     // =================================================================
     // TEMPLATE OPERATIONS
     // =================================================================
-    
+
     @Override
     public Template getTemplate(String clusterId, String templateName) throws Exception {
-        log.debug("Getting template {} from etcd", templateName);
-        
-        try {
-            String templatePath = pathResolver.getTemplateConfPath(clusterId, templateName);
-            GetResponse response = executeEtcdGet(templatePath);
-            
-            if (response.getCount() == 0) {
-                log.debug("Template {} not found in etcd", templateName);
-                throw new IllegalArgumentException("Template '" + templateName + "' not found");
-            }
-            
-            String templateConfigJson = response.getKvs().get(0).getValue().toString(StandardCharsets.UTF_8);
-            Template template = objectMapper.readValue(templateConfigJson, Template.class);
-            
-            log.debug("Retrieved template {} from etcd", templateName);
-            return template;
-            
-        } catch (IllegalArgumentException e) {
-            throw e;
-        } catch (Exception e) {
-            log.error("Failed to get template {} from etcd: {}", templateName, e.getMessage(), e);
-            throw new Exception("Failed to retrieve template from etcd", e);
-        }
+        return await(asyncStore.getTemplate(clusterId, templateName));
     }
-    
+
     @Override
     public String createTemplate(String clusterId, String templateName, String templateConfig) throws Exception {
-        log.info("Creating template {} in etcd", templateName);
-        
-        try {
-            String templatePath = pathResolver.getTemplateConfPath(clusterId, templateName);
-            executeEtcdPut(templatePath, templateConfig);
-            
-            log.info("Successfully created template {} in etcd", templateName);
-            return templateName;
-            
-        } catch (Exception e) {
-            log.error("Failed to create template {} in etcd: {}", templateName, e.getMessage(), e);
-            throw new Exception("Failed to create template in etcd", e);
-        }
+        return await(asyncStore.createTemplate(clusterId, templateName, templateConfig));
     }
-    
+
     @Override
     public void updateTemplate(String clusterId, String templateName, String templateConfig) throws Exception {
-        log.debug("Updating template {} in etcd", templateName);
-        
-        try {
-            String templatePath = pathResolver.getTemplateConfPath(clusterId, templateName);
-            executeEtcdPut(templatePath, templateConfig);
-            
-            log.debug("Successfully updated template {} in etcd", templateName);
-            
-        } catch (Exception e) {
-            log.error("Failed to update template {} in etcd: {}", templateName, e.getMessage(), e);
-            throw new Exception("Failed to update template in etcd", e);
-        }
+        await(asyncStore.updateTemplate(clusterId, templateName, templateConfig));
     }
-    
+
     @Override
     public void deleteTemplate(String clusterId, String templateName) throws Exception {
-        log.info("Deleting template {} from etcd", templateName);
-        
-        try {
-            String templatePath = pathResolver.getTemplateConfPath(clusterId, templateName);
-            executeEtcdDelete(templatePath);
-            
-            log.info("Successfully deleted template {} from etcd", templateName);
-            
-        } catch (Exception e) {
-            log.error("Failed to delete template {} from etcd: {}", templateName, e.getMessage(), e);
-            throw new Exception("Failed to delete template from etcd", e);
-        }
+        await(asyncStore.deleteTemplate(clusterId, templateName));
     }
-    
+
     @Override
     public List<Template> getAllTemplates(String clusterId) throws Exception {
-        log.debug("Getting all templates from etcd for cluster {}", clusterId);
-        
-        try {
-            String templatesPrefix = pathResolver.getTemplatesPrefix(clusterId);
-            GetResponse response = executeEtcdPrefixQuery(templatesPrefix);
-            
-            List<Template> templates = new ArrayList<>();
-            for (KeyValue kv : response.getKvs()) {
-                String key = kv.getKey().toString(StandardCharsets.UTF_8);
-
-                if (key.endsWith("/conf")) {
-                    String templateJson = kv.getValue().toString(StandardCharsets.UTF_8);
-                    try {
-                        Template template = objectMapper.readValue(templateJson, Template.class);
-                        templates.add(template);
-                    } catch (Exception parseException) {
-                        log.warn("Failed to parse template JSON: {}, skipping", templateJson);
-                    }
-                }
-            }
-            
-            log.debug("Retrieved {} templates from etcd for cluster {}", templates.size(), clusterId);
-            return templates;
-            
-        } catch (Exception e) {
-            log.error("Failed to get all templates from etcd for cluster {}: {}", clusterId, e.getMessage(), e);
-            throw new Exception("Failed to retrieve templates from etcd", e);
-        }
+        return await(asyncStore.getAllTemplates(clusterId));
     }
-    
+
     // =================================================================
     // CLUSTER OPERATIONS
     // =================================================================
-    
+
     public void initialize() throws Exception {
         log.info("Initialize called - already done in constructor");
-        
+
         // TODO: Single-cluster leader election temporarily disabled
         // Multi-cluster coordination is now handled by MultiClusterManager using distributed locks
         // Each cluster is locked by exactly one controller via etcd's Lock API
         // leaderElection.startElection();
-        
+
         log.info("Skipping single-cluster leader election - using MultiClusterManager for distributed coordination");
     }
-    
+
     @PreDestroy
     public void close() throws Exception {
         log.info("Closing etcd metadata store");
-        
+
         try {
             // Shutdown leader election first to avoid errors during etcd client closure
             if (leaderElection != null) {
                 leaderElection.shutdown();
             }
-            
+
+            readinessTracker.close();
+
             if (etcdClient != null) {
                 etcdClient.close();
                 log.info("etcd client closed successfully");
@@ -1007,542 +523,213 @@ public class EtcdMetadataStore implements MetadataStore {
             throw new Exception("Failed to close etcd client", e);
         }
     }
-    
-    
+
+
     /**
      * Get the path resolver for external use
      */
     public EtcdPathResolver getPathResolver() {
         return pathResolver;
     }
-    
-    // =================================================================
-    // PRIVATE HELPER METHODS FOR ETCD OPERATIONS
-    // =================================================================
-    
-    /**
-     * Executes etcd prefix query to retrieve all keys matching the given prefix
-     */
-    private GetResponse executeEtcdPrefixQuery(String prefix) throws Exception {
-        // Add trailing slash for etcd prefix queries to ensure precise matching
-        String prefixWithSlash = prefix + PATH_DELIMITER;
-        ByteSequence prefixBytes = ByteSequence.from(prefixWithSlash, StandardCharsets.UTF_8);
-        return kvClient.get(
-            prefixBytes,
-            GetOption.newBuilder().withPrefix(prefixBytes).build()
-        ).get(ETCD_OPERATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-    }
-    
-    /**
-     * Executes etcd get operation for a single key
-     */
-    private GetResponse executeEtcdGet(String key) throws Exception {
-        ByteSequence keyBytes = ByteSequence.from(key, StandardCharsets.UTF_8);
-        return kvClient.get(keyBytes).get(ETCD_OPERATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-    }
-    
-    /**
-     * Executes etcd put operation for a key-value pair
-     */
-    private void executeEtcdPut(String key, String value) throws Exception {
-        ByteSequence keyBytes = ByteSequence.from(key, StandardCharsets.UTF_8);
-        ByteSequence valueBytes = ByteSequence.from(value, StandardCharsets.UTF_8);
-        kvClient.put(keyBytes, valueBytes).get(ETCD_OPERATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-    }
-    
-    /**
-     * Executes etcd delete operation for a key
-     */
-    private void executeEtcdDelete(String key) throws Exception {
-        ByteSequence keyBytes = ByteSequence.from(key, StandardCharsets.UTF_8);
-        kvClient.delete(keyBytes).get(ETCD_OPERATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-    }
-    
-    /**
-     * Deserializes list of objects from etcd GetResponse
-     */
-    private <T> List<T> deserializeObjectList(GetResponse response, Class<T> clazz) throws Exception {
-        List<T> items = new ArrayList<>();
-        for (var kv : response.getKvs()) {
-            String json = kv.getValue().toString(StandardCharsets.UTF_8);
-            T item = objectMapper.readValue(json, clazz);
-            items.add(item);
-        }
-        return items;
-    }
-    
-    /**
-     * Deserializes single object from etcd GetResponse
-     */
-    private <T> Optional<T> deserializeObject(GetResponse response, Class<T> clazz) throws Exception {
-        if (response.getCount() == 0) {
-            return Optional.empty();
-        }
-        String json = response.getKvs().get(0).getValue().toString(StandardCharsets.UTF_8);
-        T item = objectMapper.readValue(json, clazz);
-        return Optional.of(item);
-    }
-    
-    /**
-     * Retrieves all objects of a specific type using etcd prefix query
-     */
-    private <T> List<T> getAllObjectsByPrefix(String prefix, Class<T> clazz) throws Exception {
-        GetResponse response = executeEtcdPrefixQuery(prefix);
-        return deserializeObjectList(response, clazz);
-    }
-    
-    /**
-     * Retrieves single object by etcd path
-     */
-    private <T> Optional<T> getObjectByPath(String path, Class<T> clazz) throws Exception {
-        GetResponse response = executeEtcdGet(path);
-        return deserializeObject(response, clazz);
-    }
-    
-    /**
-     * Stores object as JSON at the specified etcd path
-     */
-    private void storeObjectAsJson(String path, Object object) throws Exception {
-        String json = objectMapper.writeValueAsString(object);
-        executeEtcdPut(path, json);
-    }
 
      // =================================================================
     // LEADER ELECTION OPERATIONS
     // =================================================================
-    
+
     /**
      * Get the leader election instance for direct access.
-     * 
+     *
      * @return the LeaderElection instance
      */
     public LeaderElection getLeaderElection() {
         return leaderElection;
     }
-    
+
     /**
      * Check if this node is currently the leader.
-     * 
+     *
      * @return true if this node is the leader, false otherwise
      */
     public boolean isLeader() {
         return leaderElection.isLeader();
     }
-    
+
     // =================================================================
     // SHARD ALLOCATION OPERATIONS
     // =================================================================
-    
+
     @Override
     public ShardAllocation getPlannedAllocation(String clusterId, String indexName, String shardId) throws Exception {
-        String path = pathResolver.getShardPlannedAllocationPath(clusterId, indexName, shardId);
-        
-        try {
-            ByteSequence key = ByteSequence.from(path, UTF_8);
-            GetResponse response = kvClient.get(key).get(ETCD_OPERATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-            
-            if (response.getKvs().isEmpty()) {
-                return null; // No planned allocation exists
-            }
-            
-            String json = response.getKvs().get(0).getValue().toString(UTF_8);
-            return objectMapper.readValue(json, ShardAllocation.class);
-            
-        } catch (Exception e) {
-            log.error("Failed to get planned allocation for shard {}/{}: {}", indexName, shardId, e.getMessage(), e);
-            throw e;
-        }
+        return await(asyncStore.getPlannedAllocation(clusterId, indexName, shardId));
     }
-    
+
     @Override
     public void setPlannedAllocation(String clusterId, String indexName, String shardId, ShardAllocation allocation) throws Exception {
-        String path = pathResolver.getShardPlannedAllocationPath(clusterId, indexName, shardId);
-        
-        try {
-            String json = objectMapper.writeValueAsString(allocation);
-            executeEtcdPut(path, json);
-            log.debug("Set planned allocation for shard {}/{}: {}", indexName, shardId, allocation);
-            
-        } catch (Exception e) {
-            log.error("Failed to set planned allocation for shard {}/{}: {}", indexName, shardId, e.getMessage(), e);
-            throw e;
-        }
+        await(asyncStore.setPlannedAllocation(clusterId, indexName, shardId, allocation));
     }
-    
+
     @Override
     public ShardAllocation getActualAllocation(String clusterId, String indexName, String shardId) throws Exception {
-        String path = pathResolver.getShardActualAllocationPath(clusterId, indexName, shardId);
-        
-        try {
-            ByteSequence key = ByteSequence.from(path, UTF_8);
-            GetResponse response = kvClient.get(key).get(ETCD_OPERATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-            
-            if (response.getKvs().isEmpty()) {
-                return null; // No actual allocation exists
-            }
-            
-            String json = response.getKvs().get(0).getValue().toString(UTF_8);
-            return objectMapper.readValue(json, ShardAllocation.class);
-            
-        } catch (Exception e) {
-            log.error("Failed to get actual allocation for shard {}/{}: {}", indexName, shardId, e.getMessage(), e);
-            throw e;
-        }
+        return await(asyncStore.getActualAllocation(clusterId, indexName, shardId));
     }
-    
+
     @Override
     public void setActualAllocation(String clusterId, String indexName, String shardId, ShardAllocation allocation) throws Exception {
-        String path = pathResolver.getShardActualAllocationPath(clusterId, indexName, shardId);
-        
-        try {
-            String json = objectMapper.writeValueAsString(allocation);
-            executeEtcdPut(path, json);
-            log.debug("Set actual allocation for shard {}/{}: {}", indexName, shardId, allocation);
-            
-        } catch (Exception e) {
-            log.error("Failed to set actual allocation for shard {}/{}: {}", indexName, shardId, e.getMessage(), e);
-            throw e;
-        }
+        await(asyncStore.setActualAllocation(clusterId, indexName, shardId, allocation));
     }
-    
+
     @Override
     public List<ShardAllocation> getAllActualAllocations(String clusterId, String indexName) throws Exception {
-        String indexPrefix = pathResolver.getIndicesPrefix(clusterId) + PATH_DELIMITER + indexName;
-        
-        try {
-            List<ShardAllocation> allocations = new ArrayList<>();
-            ByteSequence prefixBytes = ByteSequence.from(indexPrefix, UTF_8);
-            GetOption getOption = GetOption.newBuilder()
-                    .withPrefix(prefixBytes)
-                    .build();
-            
-            GetResponse response = kvClient.get(prefixBytes, getOption)
-                    .get(ETCD_OPERATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-            
-            for (KeyValue kv : response.getKvs()) {
-                String key = kv.getKey().toString(UTF_8);
-                // Only include keys that end with "/actual-allocation"
-                if (key.endsWith("/" + Constants.SUFFIX_ACTUAL_ALLOCATION)) {
-                    String json = kv.getValue().toString(UTF_8);
-                    ShardAllocation allocation = objectMapper.readValue(json, ShardAllocation.class);
-                    allocations.add(allocation);
-                }
-            }
-            
-            log.debug("Retrieved {} actual allocations for index {}", allocations.size(), indexName);
-            return allocations;
-            
-        } catch (Exception e) {
-            log.error("Failed to get actual allocations for index {}: {}", indexName, e.getMessage(), e);
-            throw e;
-        }
+        return await(asyncStore.getAllActualAllocations(clusterId, indexName));
     }
-    
+
     // =================================================================
     // COORDINATOR GOAL STATE OPERATIONS
     // =================================================================
-    
+
     @Override
     public CoordinatorGoalState getCoordinatorGoalState(String clusterId) throws Exception {
-        String path = pathResolver.getCoordinatorGoalStatePath(clusterId, coordinatorGoalStateGroup, coordinatorGoalStateUnit);
-        
-        try {
-            ByteSequence key = ByteSequence.from(path, UTF_8);
-            GetResponse response = kvClient.get(key).get(ETCD_OPERATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-            
-            if (response.getKvs().isEmpty()) {
-                return null; // No coordinator goal state exists
-            }
-            
-            String json = response.getKvs().get(0).getValue().toString(UTF_8);
-            return objectMapper.readValue(json, CoordinatorGoalState.class);
-            
-        } catch (Exception e) {
-            log.error("Failed to get coordinator goal state: {}", e.getMessage(), e);
-            throw e;
-        }
+        return await(asyncStore.getCoordinatorGoalState(clusterId));
     }
-    
+
     @Override
     public void setCoordinatorGoalState(String clusterId, CoordinatorGoalState goalState) throws Exception {
-        String path = pathResolver.getCoordinatorGoalStatePath(clusterId, coordinatorGoalStateGroup, coordinatorGoalStateUnit);
-        
-        try {
-            String json = objectMapper.writeValueAsString(goalState);
-            executeEtcdPut(path, json);
-            log.debug("Set coordinator goal state: {}", goalState);
-            
-        } catch (Exception e) {
-            log.error("Failed to set coordinator goal state: {}", e.getMessage(), e);
-            throw e;
-        }
+        await(asyncStore.setCoordinatorGoalState(clusterId, goalState));
     }
 
     /**
      * Configure coordinator goal state location from application config
      */
     public void setCoordinatorGoalStateLocation(String searchUnitGroup, String searchUnit) {
-        if (searchUnitGroup != null && !searchUnitGroup.isBlank()) {
-            this.coordinatorGoalStateGroup = searchUnitGroup;
-        }
-        if (searchUnit != null && !searchUnit.isBlank()) {
-            this.coordinatorGoalStateUnit = searchUnit;
-        }
-        log.info("Coordinator goal state path configured to group='{}', unit='{}'", this.coordinatorGoalStateGroup, this.coordinatorGoalStateUnit);
+        asyncStore.setCoordinatorGoalStateLocation(searchUnitGroup, searchUnit);
+        log.info("Coordinator goal state path configured to group='{}', unit='{}'",
+            asyncStore.getCoordinatorGoalStateGroup(), asyncStore.getCoordinatorGoalStateUnit());
     }
-    
+
     // =================================================================
     // ALIAS CONFIGURATION OPERATIONS
     // =================================================================
-    
+
     @Override
     public Alias getAlias(String clusterId, String aliasName) throws Exception {
-        String path = pathResolver.getAliasConfPath(clusterId, aliasName);
-        
-        try {
-            ByteSequence key = ByteSequence.from(path, UTF_8);
-            GetResponse response = kvClient.get(key).get(ETCD_OPERATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-            
-            if (response.getKvs().isEmpty()) {
-                return null;
-            }
-            
-            String json = response.getKvs().get(0).getValue().toString(UTF_8);
-            return objectMapper.readValue(json, Alias.class);
-            
-        } catch (Exception e) {
-            log.error("Failed to get alias for '{}': {}", aliasName, e.getMessage(), e);
-            throw e;
-        }
+        return await(asyncStore.getAlias(clusterId, aliasName));
     }
-    
+
     @Override
     public void setAlias(String clusterId, String aliasName, Alias alias) throws Exception {
-        String path = pathResolver.getAliasConfPath(clusterId, aliasName);
-        
-        try {
-            String json = objectMapper.writeValueAsString(alias);
-            executeEtcdPut(path, json);
-            log.debug("Set alias for '{}': {}", aliasName, alias);
-            
-        } catch (Exception e) {
-            log.error("Failed to set alias for '{}': {}", aliasName, e.getMessage(), e);
-            throw e;
-        }
+        await(asyncStore.setAlias(clusterId, aliasName, alias));
     }
-    
+
     @Override
     public void deleteAlias(String clusterId, String aliasName) throws Exception {
-        String path = pathResolver.getAliasConfPath(clusterId, aliasName);
-        
-        try {
-            ByteSequence key = ByteSequence.from(path, UTF_8);
-            kvClient.delete(key).get(ETCD_OPERATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-            log.info("Deleted alias for '{}'", aliasName);
-            
-        } catch (Exception e) {
-            log.error("Failed to delete alias for '{}': {}", aliasName, e.getMessage(), e);
-            throw e;
-        }
+        await(asyncStore.deleteAlias(clusterId, aliasName));
     }
-    
+
     @Override
     public List<Alias> getAllAliases(String clusterId) throws Exception {
-        String prefix = pathResolver.getAliasesPrefix(clusterId);
-        
-        try {
-            ByteSequence prefixKey = ByteSequence.from(prefix + "/", UTF_8);
-            GetOption option = GetOption.newBuilder()
-                .withPrefix(prefixKey)
-                .build();
-            
-            GetResponse response = kvClient.get(prefixKey, option)
-                .get(ETCD_OPERATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-            
-            List<Alias> aliases = new ArrayList<>();
-            for (KeyValue kv : response.getKvs()) {
-                String json = kv.getValue().toString(UTF_8);
-                Alias alias = objectMapper.readValue(json, Alias.class);
-                aliases.add(alias);
+        return await(asyncStore.getAllAliases(clusterId));
+    }
+
+    // =================================================================
+    // KEY LISTING OPERATIONS
+    // =================================================================
+
+    /**
+     * Distinct direct child names under a prefix that have a key ending in suffixFilter (any key if null),
+     * read with a keys-only range scan so values are never transferred.
+     */
+    public List<String> listChildNames(String clusterId, String prefix, String suffixFilter) throws Exception {
+        return await(asyncStore.listChildNames(clusterId, prefix, suffixFilter));
+    }
+
+    /**
+     * Number of keys under a prefix, read with a count-only range scan.
+     */
+    public long countKeys(String clusterId, String prefix) throws Exception {
+        return await(asyncStore.countKeys(clusterId, prefix));
+    }
+
+    // =================================================================
+    // CLUSTER SNAPSHOT OPERATIONS
+    // =================================================================
+
+    /**
+     * Three prefix range reads; the first fixes the revision and the other two are pinned to it,
+     * so the snapshot reflects exactly one point in etcd history.
+     */
+    @Override
+    public ClusterSnapshot loadClusterSnapshot(String clusterId) throws Exception {
+        return await(asyncStore.loadClusterSnapshot(clusterId));
+    }
+
+    // =================================================================
+    // BATCH WRITE OPERATIONS
+    // =================================================================
+
+    /**
+     * Batch committed as chunked etcd transactions of at most {@link #setMaxTxnOps max-txn-ops} operations each.
+     */
+    @Override
+    public WriteBatch newWriteBatch() {
+        return new EtcdWriteBatch(kvClient, pathResolver, objectMapper, asyncStore.getStateCodec(), maxTxnOps, asyncStore.getStats(),
+            asyncStore.getTimeouts(), asyncStore.getPassDeadlines());
+    }
+
+    /**
+     * Set the maximum number of operations per transaction used by write batches.
+     */
+    public void setMaxTxnOps(int maxTxnOps) {
+        this.maxTxnOps = maxTxnOps;
+        asyncStore.setMaxTxnOps(maxTxnOps);
+        synchronized (this) {
+            if (serializableView != null) {
+                serializableView.maxTxnOps = maxTxnOps;
             }
-            
-            log.debug("Retrieved {} aliases for cluster '{}'", aliases.size(), clusterId);
-            return aliases;
-            
-        } catch (Exception e) {
-            log.error("Failed to get all aliases: {}", e.getMessage(), e);
-            throw e;
         }
+        log.info("Etcd write batches limited to {} operations per transaction", maxTxnOps);
     }
 
     @Override
     public void deletePrefix(String clusterId, String prefix) throws Exception {
-        log.debug("Deleting all keys with prefix {} in etcd", prefix);
-
-        try {
-            // Add trailing slash for etcd prefix queries to ensure precise matching
-            String prefixWithSlash = prefix + PATH_DELIMITER;
-            ByteSequence prefixBytes = ByteSequence.from(prefixWithSlash, StandardCharsets.UTF_8);
-            
-            // Use etcd delete with prefix option
-            kvClient.delete(
-                prefixBytes,
-                DeleteOption.newBuilder().withPrefix(prefixBytes).build()
-            ).get(ETCD_OPERATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-            
-            log.debug("Successfully deleted all keys with prefix {} in etcd", prefix);
-        } catch (Exception e) {
-            log.error("Failed to delete keys with prefix {} in etcd: {}", prefix, e.getMessage(), e);
-            throw new Exception("Failed to delete keys with prefix in etcd", e);
-        }
+        await(asyncStore.deletePrefix(clusterId, prefix));
     }
-    
-/**
+
+    /**
      * Get the controller ID assigned to a cluster.
      */
     @Override
     public ClusterControllerAssignment getAssignedController(String clusterId) throws Exception {
-        try {
-            String assignmentPath = pathResolver.getClusterAssignedControllerPath(clusterId);
-            GetResponse getResponse = kvClient.get(
-                ByteSequence.from(assignmentPath, UTF_8)
-            ).get(ETCD_OPERATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-            
-            if (getResponse.getKvs().isEmpty()) {
-                log.debug("No controller assigned to cluster '{}'", clusterId);
-                return null;
-            }
-            
-            String json = getResponse.getKvs().get(0).getValue().toString(UTF_8);
-            ClusterControllerAssignment clusterControllerAssignment = objectMapper.readValue(json, ClusterControllerAssignment.class);
-            log.debug("Cluster '{}' is assigned to controller '{}'", clusterId, clusterControllerAssignment.getController());
-            return clusterControllerAssignment;
-        } catch (Exception e) {
-            log.error("Failed to get assigned controller for cluster '{}': {}", clusterId, e.getMessage(), e);
-            throw new Exception("Failed to get assigned controller: " + e.getMessage(), e);
-        }
+        return await(asyncStore.getAssignedController(clusterId));
     }
-    
+
     @Override
     public ClusterInformation.Version getClusterVersion(String clusterId) throws Exception {
-        log.debug("Getting cluster version from registry for cluster '{}'", clusterId);
-        
-        try {
-            String clusterRegistryPath = pathResolver.getClusterRegistryPath(clusterId);
-            GetResponse response = executeEtcdGet(clusterRegistryPath);
-            
-            if (response.getKvs().isEmpty()) {
-                log.debug("No cluster version found in registry for cluster '{}'", clusterId);
-                return null;
-            }
-            
-            String json = response.getKvs().get(0).getValue().toString(StandardCharsets.UTF_8);
-            log.debug("Retrieved cluster metadata from registry for cluster '{}': {}", clusterId, json);
-            
-            // Parse as generic Map to extract version field
-            Map<String, Object> metadata = objectMapper.readValue(json, Map.class);
-            
-            // Extract and deserialize the version field
-            if (metadata.containsKey("version")) {
-                Object versionObj = metadata.get("version");
-                ClusterInformation.Version version = objectMapper.convertValue(versionObj, ClusterInformation.Version.class);
-                return version;
-            }
-            
-            return null;
-            
-        } catch (Exception e) {
-            log.error("Failed to get cluster version from registry for '{}': {}", clusterId, e.getMessage(), e);
-            throw e;
-        }
+        return await(asyncStore.getClusterVersion(clusterId));
     }
-    
+
     // =================================================================
     // INDEX READINESS OPERATIONS
     // =================================================================
-    
+
+    /**
+     * Answered from the readiness tracker once it has loaded the cluster, for clusters this controller manages;
+     * scans index configs and actual states until then, and for any other cluster.
+     */
     @Override
     public boolean isIndexReady(String clusterId, String indexName) throws Exception {
-        log.debug("Checking if index {} is ready in cluster {}", indexName, clusterId);
-        
-        try {
-            // 1. Get expected shard count from index config
-            Index indexConfig = getAllIndexConfigs(clusterId).stream()
-                .filter(i -> indexName.equals(i.getIndexName()))
-                .findFirst()
-                .orElse(null);
-            
-            if (indexConfig == null) {
-                log.debug("Index {} not found in cluster {}, not ready", indexName, clusterId);
-                return false;
-            }
-            
-            int expectedShardCount = indexConfig.getSettings().getNumberOfShards();
-            log.debug("Index {} expects {} shards", indexName, expectedShardCount);
-            
-            // 2. Get all actual states from all nodes
-            Map<String, SearchUnitActualState> allActualStates = getAllSearchUnitActualStates(clusterId);
-            
-            if (allActualStates.isEmpty()) {
-                log.debug("No search units found for cluster {}, index {} is not ready", clusterId, indexName);
-                return false;
-            }
-            
-            // 3. Track shard readiness: need docs > 0 + replicated
-            // (STARTED is implied if docs are ingested and replicated)
-            Set<Integer> readyShardIds = new HashSet<>();
-            
-            for (Map.Entry<String, SearchUnitActualState> entry : allActualStates.entrySet()) {
-                String unitName = entry.getKey();
-                SearchUnitActualState actualState = entry.getValue();
-                
-                // Check each shard in the stats
-                for (int shardId = 0; shardId < expectedShardCount; shardId++) {
-                    // Already found a ready copy of this shard on another node
-                    if (readyShardIds.contains(shardId)) {
-                        continue;
-                    }
-                    
-                    // Check 1: Docs are ingested (docCount > 0)
-                    long docCount = actualState.getShardDocCount(indexName, shardId);
-                    if (docCount <= 0) {
-                        continue;
-                    }
-                    
-                    // Check 2: Data is replicated (global_checkpoint == local_checkpoint)
-                    boolean isReplicated = actualState.isShardReplicated(indexName, shardId);
-                    if (!isReplicated) {
-                        log.debug("Index {} shard {} on node {} has docs but not fully replicated", 
-                            indexName, shardId, unitName);
-                        continue;
-                    }
-                    
-                    // Shard passes all checks
-                    readyShardIds.add(shardId);
-                    log.debug("Index {} shard {} is ready on node {} (docs={}, replicated)", 
-                        indexName, shardId, unitName, docCount);
-                }
-            }
-            
-            // 4. Check all expected shards are ready
-            if (readyShardIds.size() < expectedShardCount) {
-                Set<Integer> notReadyShards = new HashSet<>();
-                for (int i = 0; i < expectedShardCount; i++) {
-                    if (!readyShardIds.contains(i)) {
-                        notReadyShards.add(i);
-                    }
-                }
-                log.debug("Index {} is not ready - shards not ready: {}", indexName, notReadyShards);
-                return false;
-            }
-            
-            log.info("Index {} is ready - all {} shards have docs ingested and are replicated", 
-                indexName, expectedShardCount);
-            return true;
-            
-        } catch (Exception e) {
-            log.error("Failed to check if index {} is ready: {}", indexName, e.getMessage(), e);
-            throw new Exception("Failed to check index readiness", e);
+        Boolean ready = readinessTracker.isIndexReady(clusterId, indexName);
+        if (ready != null) {
+            return ready;
         }
+        return await(asyncStore.isIndexReady(clusterId, indexName));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> waitForIndexReady(String clusterId, String indexName, long timeoutMs) {
+        return readinessTracker.waitForIndexReady(clusterId, indexName, timeoutMs)
+            .exceptionallyCompose(e -> {
+                log.debug("Readiness of index {} not tracked, checking once: {}", indexName, e.getMessage());
+                return asyncStore.isIndexReady(clusterId, indexName);
+            });
     }
 }
@@ -1,6 +1,9 @@
 package io.clustercontroller.store;
 
-import java.nio.file.Paths;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import io.etcd.jetcd.ByteSequence;
 import org.springframework.context.annotation.DependsOn;
 import org.springframework.stereotype.Component;
 import lombok.extern.slf4j.Slf4j;
@@ -16,17 +19,20 @@ import static io.clustercontroller.config.Constants.*;
  * 
  * Multi-cluster coordination paths are isolated by runtime environment (staging, production, etc.)
  * to prevent controllers from different environments from interfering with each other.
+ * 
+ * Keys are built by {@link EtcdKeyBuilder}; per-cluster prefixes are computed once and reused.
  */
 @Slf4j
 @Component
 @DependsOn("environmentUtils")
 public class EtcdPathResolver {
     
-    private static final String PATH_DELIMITER = "/";
-    
     // Singleton instance
     private static EtcdPathResolver INSTANCE;
     
+    // One entry per cluster this controller has touched
+    private final ConcurrentMap<String, EtcdKeyBuilder.ClusterPrefixes> clusterPrefixes = new ConcurrentHashMap<>();
+    
     public EtcdPathResolver() {
         INSTANCE = this;
         log.info("EtcdPathResolver initialized");
@@ -47,6 +53,13 @@ public class EtcdPathResolver {
         return EnvironmentUtils.get("controller.runtime_env");
     }
     
+    /**
+     * Precomputed prefixes of a cluster's keyspace.
+     */
+    public EtcdKeyBuilder.ClusterPrefixes prefixes(String clusterName) {
+        return clusterPrefixes.computeIfAbsent(clusterName, EtcdKeyBuilder.ClusterPrefixes::new);
+    }
+    
     // =================================================================
     // CONTROLLER TASKS PATHS
     // =================================================================
@@ -56,7 +69,7 @@ public class EtcdPathResolver {
      * Pattern: /<cluster-name>/ctl-tasks
      */
     public String getControllerTasksPrefix(String clusterName) {
-        return Paths.get(PATH_DELIMITER, clusterName, PATH_CTL_TASKS).toString();
+        return prefixes(clusterName).getControllerTasks();
     }
     
     /**
@@ -64,7 +77,31 @@ public class EtcdPathResolver {
      * Pattern: /<cluster-name>/ctl-tasks/<task-name>
      */
     public String getControllerTaskPath(String clusterName, String taskName) {
-        return Paths.get(getControllerTasksPrefix(clusterName), taskName).toString();
+        return EtcdKeyBuilder.append(getControllerTasksPrefix(clusterName), taskName);
+    }
+    
+    /**
+     * Get prefix for archived (compacted) controller tasks
+     * Pattern: /<cluster-name>/ctl-task-history
+     */
+    public String getControllerTaskHistoryPrefix(String clusterName) {
+        return prefixes(clusterName).getControllerTaskHistory();
+    }
+    
+    /**
+     * Get path for one archive of compacted tasks
+     * Pattern: /<cluster-name>/ctl-task-history/<archive-name>
+     */
+    public String getControllerTaskHistoryPath(String clusterName, String archiveName) {
+        return EtcdKeyBuilder.append(getControllerTaskHistoryPrefix(clusterName), archiveName);
+    }
+    
+    /**
+     * Get path of the claim on a one-shot task by the controller running it
+     * Pattern: /<cluster-name>/ctl-task-claims/<task-name>
+     */
+    public String getControllerTaskClaimPath(String clusterName, String taskName) {
+        return EtcdKeyBuilder.append(prefixes(clusterName).getControllerTaskClaims(), taskName);
     }
     
     // =================================================================
@@ -76,7 +113,7 @@ public class EtcdPathResolver {
      * Pattern: /<cluster-name>/search-unit
      */
     public String getSearchUnitsPrefix(String clusterName) {
-        return Paths.get(PATH_DELIMITER, clusterName, PATH_SEARCH_UNITS).toString();
+        return prefixes(clusterName).getSearchUnits();
     }
     
     /**
@@ -84,7 +121,7 @@ public class EtcdPathResolver {
      * Pattern: /<cluster-name>/search-unit/<unit-name>/conf
      */
     public String getSearchUnitConfPath(String clusterName, String unitName) {
-        return Paths.get(getSearchUnitsPrefix(clusterName), unitName, SUFFIX_CONF).toString();
+        return EtcdKeyBuilder.append(getSearchUnitsPrefix(clusterName), unitName, SUFFIX_CONF);
     }
     
     /**
@@ -92,7 +129,7 @@ public class EtcdPathResolver {
      * Pattern: /<cluster-name>/search-unit/<unit-name>/goal-state
      */
     public String getSearchUnitGoalStatePath(String clusterName, String unitName) {
-        return Paths.get(getSearchUnitsPrefix(clusterName), unitName, SUFFIX_GOAL_STATE).toString();
+        return EtcdKeyBuilder.append(getSearchUnitsPrefix(clusterName), unitName, SUFFIX_GOAL_STATE);
     }
     
     /**
@@ -100,7 +137,15 @@ public class EtcdPathResolver {
      * Pattern: /<cluster-name>/search-unit/<unit-name>/actual-state
      */
     public String getSearchUnitActualStatePath(String clusterName, String unitName) {
-        return Paths.get(getSearchUnitsPrefix(clusterName), unitName, SUFFIX_ACTUAL_STATE).toString();
+        return EtcdKeyBuilder.append(getSearchUnitsPrefix(clusterName), unitName, SUFFIX_ACTUAL_STATE);
+    }
+    
+    /**
+     * Get search unit key as bytes, without building the path string
+     * Pattern: /<cluster-name>/search-unit/<unit-name>/<suffix>
+     */
+    public ByteSequence getSearchUnitKey(String clusterName, String unitName, String suffix) {
+        return prefixes(clusterName).searchUnitKey(unitName, suffix);
     }
     
     // =================================================================
@@ -112,7 +157,7 @@ public class EtcdPathResolver {
      * Pattern: /<cluster-name>/indices
      */
     public String getIndicesPrefix(String clusterName) {
-        return Paths.get(PATH_DELIMITER, clusterName, PATH_INDICES).toString();
+        return prefixes(clusterName).getIndices();
     }
     
     /**
@@ -120,7 +165,7 @@ public class EtcdPathResolver {
      * Pattern: /<cluster-name>/indices/<index-name>
      */
     public String getIndexPrefix(String clusterName, String indexName) {
-        return Paths.get(getIndicesPrefix(clusterName), indexName).toString();
+        return EtcdKeyBuilder.append(getIndicesPrefix(clusterName), indexName);
     }
     
     /**
@@ -128,7 +173,7 @@ public class EtcdPathResolver {
      * Pattern: /<cluster-name>/indices/<index-name>/conf
      */
     public String getIndexConfPath(String clusterName, String indexName) {
-        return Paths.get(getIndicesPrefix(clusterName), indexName, SUFFIX_CONF).toString();
+        return EtcdKeyBuilder.append(getIndicesPrefix(clusterName), indexName, SUFFIX_CONF);
     }
     
     /**
@@ -136,7 +181,7 @@ public class EtcdPathResolver {
      * Pattern: /<cluster-name>/indices/<index-name>/mappings
      */
     public String getIndexMappingsPath(String clusterName, String indexName) {
-        return Paths.get(getIndicesPrefix(clusterName), indexName, SUFFIX_MAPPINGS).toString();
+        return EtcdKeyBuilder.append(getIndicesPrefix(clusterName), indexName, SUFFIX_MAPPINGS);
     }
     
     /**
@@ -144,7 +189,7 @@ public class EtcdPathResolver {
      * Pattern: /<cluster-name>/indices/<index-name>/settings
      */
     public String getIndexSettingsPath(String clusterName, String indexName) {
-        return Paths.get(getIndicesPrefix(clusterName), indexName, SUFFIX_SETTINGS).toString();
+        return EtcdKeyBuilder.append(getIndicesPrefix(clusterName), indexName, SUFFIX_SETTINGS);
     }
     
     // =================================================================
@@ -156,7 +201,7 @@ public class EtcdPathResolver {
      * Pattern: /<cluster-name>/aliases
      */
     public String getAliasesPrefix(String clusterName) {
-        return Paths.get(PATH_DELIMITER, clusterName, "aliases").toString();
+        return prefixes(clusterName).getAliases();
     }
     
     /**
@@ -164,7 +209,7 @@ public class EtcdPathResolver {
      * Pattern: /<cluster-name>/aliases/<alias-name>/conf
      */
     public String getAliasConfPath(String clusterName, String aliasName) {
-        return Paths.get(getAliasesPrefix(clusterName), aliasName, SUFFIX_CONF).toString();
+        return EtcdKeyBuilder.append(getAliasesPrefix(clusterName), aliasName, SUFFIX_CONF);
     }
     
     // =================================================================
@@ -176,7 +221,7 @@ public class EtcdPathResolver {
      * Pattern: /<cluster-name>/templates
      */
     public String getTemplatesPrefix(String clusterName) {
-        return Paths.get(PATH_DELIMITER, clusterName, PATH_TEMPLATES).toString();
+        return prefixes(clusterName).getTemplates();
     }
     
     /**
@@ -184,7 +229,7 @@ public class EtcdPathResolver {
      * Pattern: /<cluster-name>/templates/<template-name>/conf
      */
     public String getTemplateConfPath(String clusterName, String templateName) {
-        return Paths.get(getTemplatesPrefix(clusterName), templateName, SUFFIX_CONF).toString();
+        return EtcdKeyBuilder.append(getTemplatesPrefix(clusterName), templateName, SUFFIX_CONF);
     }
     
     // =================================================================
@@ -196,7 +241,7 @@ public class EtcdPathResolver {
      * Pattern: /<cluster-name>/indices/<index-name>/<shard-id>/planned-allocation
      */
     public String getShardPlannedAllocationPath(String clusterName, String indexName, String shardId) {
-        return Paths.get(getIndicesPrefix(clusterName), indexName, shardId, SUFFIX_PLANNED_ALLOCATION).toString();
+        return EtcdKeyBuilder.append(getIndicesPrefix(clusterName), indexName, shardId, SUFFIX_PLANNED_ALLOCATION);
     }
     
     /**
@@ -204,7 +249,15 @@ public class EtcdPathResolver {
      * Pattern: /<cluster-name>/indices/<index-name>/<shard-id>/actual-allocation
      */
     public String getShardActualAllocationPath(String clusterName, String indexName, String shardId) {
-        return Paths.get(getIndicesPrefix(clusterName), indexName, shardId, SUFFIX_ACTUAL_ALLOCATION).toString();
+        return EtcdKeyBuilder.append(getIndicesPrefix(clusterName), indexName, shardId, SUFFIX_ACTUAL_ALLOCATION);
+    }
+    
+    /**
+     * Get shard key as bytes, without building the path string
+     * Pattern: /<cluster-name>/indices/<index-name>/<shard-id>/<suffix>
+     */
+    public ByteSequence getShardKey(String clusterName, String indexName, String shardId, String suffix) {
+        return prefixes(clusterName).shardKey(indexName, shardId, suffix);
     }
     
     // =================================================================
@@ -216,7 +269,7 @@ public class EtcdPathResolver {
      * Pattern: /<cluster-name>/coordinators
      */
     public String getCoordinatorsPrefix(String clusterName) {
-        return Paths.get(PATH_DELIMITER, clusterName, PATH_COORDINATORS).toString();
+        return prefixes(clusterName).getCoordinators();
     }
     
     
@@ -226,7 +279,7 @@ public class EtcdPathResolver {
      * Pattern: /<cluster-name>/<search_unit_group>/<search_unit>/goal-state
      */
     public String getCoordinatorGoalStatePath(String clusterName, String searchUnitGroup, String searchUnit) {
-        return Paths.get(PATH_DELIMITER, clusterName, searchUnitGroup, searchUnit, SUFFIX_GOAL_STATE).toString();
+        return EtcdKeyBuilder.append(getClusterRoot(clusterName), searchUnitGroup, searchUnit, SUFFIX_GOAL_STATE);
     }
     
     /**
@@ -234,7 +287,7 @@ public class EtcdPathResolver {
      * Pattern: /<cluster-name>/coordinators/<coordinator-name>/actual-state
      */
     public String getCoordinatorActualStatePath(String clusterName, String coordinatorName) {
-        return Paths.get(getCoordinatorsPrefix(clusterName), coordinatorName, SUFFIX_ACTUAL_STATE).toString();
+        return EtcdKeyBuilder.append(getCoordinatorsPrefix(clusterName), coordinatorName, SUFFIX_ACTUAL_STATE);
     }
     
     // =================================================================
@@ -246,7 +299,7 @@ public class EtcdPathResolver {
      * Pattern: /<cluster-name>/leader-election
      */
     public String getLeaderElectionPath(String clusterName) {
-        return Paths.get(PATH_DELIMITER, clusterName, PATH_LEADER_ELECTION).toString();
+        return prefixes(clusterName).getLeaderElection();
     }
     
     // =================================================================
@@ -258,7 +311,7 @@ public class EtcdPathResolver {
      * Pattern: /<cluster-name>
      */
     public String getClusterRoot(String clusterName) {
-        return Paths.get(PATH_DELIMITER, clusterName).toString();
+        return prefixes(clusterName).getRoot();
     }
     
     // =================================================================
@@ -271,7 +324,7 @@ public class EtcdPathResolver {
      * Pattern: /multi-cluster/<runtime_env>
      */
     public String getMultiClusterRoot() {
-        return Paths.get(PATH_DELIMITER, PATH_MULTI_CLUSTER, getRuntimeEnv()).toString();
+        return EtcdKeyBuilder.join(PATH_MULTI_CLUSTER, getRuntimeEnv());
     }
     
     /**
@@ -279,7 +332,7 @@ public class EtcdPathResolver {
      * Pattern: /multi-cluster/<runtime_env>/controllers/<controller-id>/heartbeat
      */
     public String getControllerHeartbeatPath(String controllerId) {
-        return Paths.get(PATH_DELIMITER, PATH_MULTI_CLUSTER, getRuntimeEnv(), PATH_CONTROLLERS, controllerId, PATH_HEARTBEAT).toString();
+        return EtcdKeyBuilder.join(PATH_MULTI_CLUSTER, getRuntimeEnv(), PATH_CONTROLLERS, controllerId, PATH_HEARTBEAT);
     }
     
     /**
@@ -287,7 +340,7 @@ public class EtcdPathResolver {
      * Pattern: /multi-cluster/<runtime_env>/controllers/<controller-id>/assigned/<cluster-id>
      */
     public String getControllerAssignmentPath(String controllerId, String clusterId) {
-        return Paths.get(PATH_DELIMITER, PATH_MULTI_CLUSTER, getRuntimeEnv(), PATH_CONTROLLERS, controllerId, PATH_ASSIGNED, clusterId).toString();
+        return EtcdKeyBuilder.join(PATH_MULTI_CLUSTER, getRuntimeEnv(), PATH_CONTROLLERS, controllerId, PATH_ASSIGNED, clusterId);
     }
     
     /**
@@ -295,7 +348,7 @@ public class EtcdPathResolver {
      * Pattern: /multi-cluster/<runtime_env>/locks/clusters/<cluster-id>
      */
     public String getClusterLockPath(String clusterId) {
-        return Paths.get(PATH_DELIMITER, PATH_MULTI_CLUSTER, getRuntimeEnv(), PATH_LOCKS, PATH_CLUSTERS, clusterId).toString();
+        return EtcdKeyBuilder.join(PATH_MULTI_CLUSTER, getRuntimeEnv(), PATH_LOCKS, PATH_CLUSTERS, clusterId);
     }
     
     /**
@@ -303,7 +356,7 @@ public class EtcdPathResolver {
      * Pattern: /multi-cluster/<runtime_env>/clusters/<cluster-id>/metadata
      */
     public String getClusterRegistryPath(String clusterId) {
-        return Paths.get(PATH_DELIMITER, PATH_MULTI_CLUSTER, getRuntimeEnv(), PATH_CLUSTERS, clusterId, PATH_METADATA).toString();
+        return EtcdKeyBuilder.join(PATH_MULTI_CLUSTER, getRuntimeEnv(), PATH_CLUSTERS, clusterId, PATH_METADATA);
     }
 
     /**
@@ -311,7 +364,7 @@ public class EtcdPathResolver {
      * Pattern: /multi-cluster/<runtime_env>/clusters/<cluster-id>/assigned-to
      */
     public String getClusterAssignedControllerPath(String clusterId) {
-        return Paths.get(PATH_DELIMITER, PATH_MULTI_CLUSTER, getRuntimeEnv(), PATH_CLUSTERS, clusterId, "assigned-to").toString();
+        return EtcdKeyBuilder.join(PATH_MULTI_CLUSTER, getRuntimeEnv(), PATH_CLUSTERS, clusterId, "assigned-to");
     }
     
     /**
@@ -319,7 +372,7 @@ public class EtcdPathResolver {
      * Pattern: /multi-cluster/<runtime_env>/controllers/
      */
     public String getControllersPrefix() {
-        return Paths.get(PATH_DELIMITER, PATH_MULTI_CLUSTER, getRuntimeEnv(), PATH_CONTROLLERS, "").toString();
+        return EtcdKeyBuilder.join(PATH_MULTI_CLUSTER, getRuntimeEnv(), PATH_CONTROLLERS);
     }
     
     /**
@@ -327,6 +380,6 @@ public class EtcdPathResolver {
      * Pattern: /multi-cluster/<runtime_env>/clusters/
      */
     public String getClustersPrefix() {
-        return Paths.get(PATH_DELIMITER, PATH_MULTI_CLUSTER, getRuntimeEnv(), PATH_CLUSTERS, "").toString();
+        return EtcdKeyBuilder.join(PATH_MULTI_CLUSTER, getRuntimeEnv(), PATH_CLUSTERS);
     }
 }
\ No newline at end of file
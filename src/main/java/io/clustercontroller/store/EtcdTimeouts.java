@@ -0,0 +1,73 @@
+package io.clustercontroller.store;
+
+import io.clustercontroller.config.Constants;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Timeouts of single etcd requests by operation class, the retry policy of idempotent reads, and the overall
+ * budget of a reconcile pass ({@link PassDeadline}); the timeout of every request a pass makes is capped by what
+ * is left of it.
+ *
+ * @param passDeadlineMs budget of a pass's etcd requests, 0 for none
+ */
+public record EtcdTimeouts(long readTimeoutMs, long scanTimeoutMs, long writeTimeoutMs, long txnTimeoutMs,
+                           int readMaxAttempts, long readRetryBackoffMs, long passDeadlineMs) {
+
+    public static final EtcdTimeouts DEFAULT = new EtcdTimeouts(
+        Constants.DEFAULT_ETCD_READ_TIMEOUT_MS,
+        Constants.DEFAULT_ETCD_SCAN_TIMEOUT_MS,
+        Constants.DEFAULT_ETCD_WRITE_TIMEOUT_MS,
+        Constants.DEFAULT_ETCD_TXN_TIMEOUT_MS,
+        Constants.DEFAULT_ETCD_READ_MAX_ATTEMPTS,
+        Constants.DEFAULT_ETCD_READ_RETRY_BACKOFF_MS,
+        Constants.DEFAULT_ETCD_PASS_DEADLINE_MS);
+
+    // Retry delays stop growing after this many doublings
+    private static final int MAX_BACKOFF_SHIFT = 6;
+
+    /**
+     * Kinds of etcd requests, each with its own timeout.
+     */
+    public enum OperationClass {
+        /** Single-key get */
+        READ,
+        /** One page of a prefix read, or a keys-only / count-only range */
+        SCAN,
+        /** Single put or delete */
+        WRITE,
+        /** Transaction (compare-and-set, write batch chunk) */
+        TXN
+    }
+
+    public EtcdTimeouts {
+        readTimeoutMs = Math.max(1, readTimeoutMs);
+        scanTimeoutMs = Math.max(1, scanTimeoutMs);
+        writeTimeoutMs = Math.max(1, writeTimeoutMs);
+        txnTimeoutMs = Math.max(1, txnTimeoutMs);
+        readMaxAttempts = Math.max(1, readMaxAttempts);
+        readRetryBackoffMs = Math.max(0, readRetryBackoffMs);
+        passDeadlineMs = Math.max(0, passDeadlineMs);
+    }
+
+    public long timeoutMs(OperationClass operationClass) {
+        return switch (operationClass) {
+            case READ -> readTimeoutMs;
+            case SCAN -> scanTimeoutMs;
+            case WRITE -> writeTimeoutMs;
+            case TXN -> txnTimeoutMs;
+        };
+    }
+
+    /**
+     * Delay before retrying after the given failed attempt (1-based): exponential in the attempt, jittered
+     * between half and the full value so readers that failed together do not retry together.
+     */
+    public long retryDelayMs(int failedAttempt) {
+        long bound = readRetryBackoffMs << Math.min(Math.max(0, failedAttempt - 1), MAX_BACKOFF_SHIFT);
+        if (bound <= 1) {
+            return bound;
+        }
+        return ThreadLocalRandom.current().nextLong(bound / 2, bound + 1);
+    }
+}
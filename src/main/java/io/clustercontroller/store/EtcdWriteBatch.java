@@ -0,0 +1,249 @@
+package io.clustercontroller.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.etcd.jetcd.ByteSequence;
+import io.etcd.jetcd.KV;
+import io.etcd.jetcd.kv.GetResponse;
+import io.etcd.jetcd.kv.TxnResponse;
+import io.etcd.jetcd.op.Cmp;
+import io.etcd.jetcd.op.CmpTarget;
+import io.etcd.jetcd.op.Op;
+import io.etcd.jetcd.options.DeleteOption;
+import io.etcd.jetcd.options.GetOption;
+import io.etcd.jetcd.options.PutOption;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * WriteBatch committed as etcd transactions. Operations are split into chunks that stay within the
+ * server's max-txn-ops and request size limits; each chunk is one Txn whose If-clause holds the chunk's guards.
+ * <p>
+ * When a chunk's guards fail, the Else branch reads the guarded keys so the conflicting operations can be
+ * identified; they are reported as CONFLICT and the rest of the chunk is retried. Chunks that fail outright
+ * (timeout, connection loss) are retried with jittered backoff and reported as FAILED once attempts run out,
+ * or as soon as the committing pass's {@link PassDeadline} leaves no time for another transaction.
+ */
+@Slf4j
+class EtcdWriteBatch extends WriteBatch {
+
+    private static final int MAX_COMMIT_ATTEMPTS = 3;
+    private static final long RETRY_BACKOFF_MS = 100;
+    // Stay well below etcd's default 1.5 MiB request limit
+    private static final long MAX_TXN_BYTES = 1024 * 1024;
+
+    private final KV kvClient;
+    private final EtcdPathResolver pathResolver;
+    private final ObjectMapper objectMapper;
+    private final ValueCodec stateCodec;
+    private final int maxTxnOps;
+    private final StoreStats stats;
+    private final EtcdTimeouts timeouts;
+    private final PassDeadline.Registry passDeadlines;
+
+    EtcdWriteBatch(KV kvClient, EtcdPathResolver pathResolver, ObjectMapper objectMapper, int maxTxnOps) {
+        this(kvClient, pathResolver, objectMapper, JacksonValueCodec.json(objectMapper), maxTxnOps);
+    }
+
+    EtcdWriteBatch(KV kvClient, EtcdPathResolver pathResolver, ObjectMapper objectMapper, ValueCodec stateCodec, int maxTxnOps) {
+        this(kvClient, pathResolver, objectMapper, stateCodec, maxTxnOps, new StoreStats());
+    }
+
+    EtcdWriteBatch(KV kvClient, EtcdPathResolver pathResolver, ObjectMapper objectMapper, ValueCodec stateCodec, int maxTxnOps,
+                   StoreStats stats) {
+        this(kvClient, pathResolver, objectMapper, stateCodec, maxTxnOps, stats, EtcdTimeouts.DEFAULT, new PassDeadline.Registry());
+    }
+
+    EtcdWriteBatch(KV kvClient, EtcdPathResolver pathResolver, ObjectMapper objectMapper, ValueCodec stateCodec, int maxTxnOps,
+                   StoreStats stats, EtcdTimeouts timeouts, PassDeadline.Registry passDeadlines) {
+        this.kvClient = kvClient;
+        this.pathResolver = pathResolver;
+        this.objectMapper = objectMapper;
+        this.stateCodec = stateCodec;
+        this.maxTxnOps = Math.max(1, maxTxnOps);
+        this.stats = stats;
+        this.timeouts = timeouts;
+        this.passDeadlines = passDeadlines;
+    }
+
+    /**
+     * Resolve the etcd key an operation writes.
+     */
+    static String keyOf(WriteOperation op, EtcdPathResolver pathResolver) {
+        return switch (op.getType()) {
+            case PUT_SEARCH_UNIT_GOAL_STATE -> pathResolver.getSearchUnitGoalStatePath(op.getClusterId(), op.getName());
+            case PUT_SEARCH_UNIT_ACTUAL_STATE -> pathResolver.getSearchUnitActualStatePath(op.getClusterId(), op.getName());
+            case PUT_PLANNED_ALLOCATION -> pathResolver.getShardPlannedAllocationPath(op.getClusterId(), op.getName(), op.getShardId());
+            case PUT_ACTUAL_ALLOCATION, DELETE_ACTUAL_ALLOCATION ->
+                pathResolver.getShardActualAllocationPath(op.getClusterId(), op.getName(), op.getShardId());
+        };
+    }
+
+    /**
+     * Encode the value an operation writes: actual and goal states with the state codec, everything else as JSON.
+     */
+    static byte[] valueOf(WriteOperation op, ObjectMapper objectMapper, ValueCodec stateCodec) throws Exception {
+        return switch (op.getType()) {
+            case PUT_SEARCH_UNIT_GOAL_STATE, PUT_SEARCH_UNIT_ACTUAL_STATE -> stateCodec.encode(op.getValue());
+            default -> objectMapper.writeValueAsBytes(op.getValue());
+        };
+    }
+
+    @Override
+    protected WriteBatchResult commit(List<WriteOperation> operations) throws Exception {
+        WriteBatchResult result = new WriteBatchResult();
+
+        List<PreparedOp> pending = new ArrayList<>();
+        for (WriteOperation operation : operations) {
+            String key = keyOf(operation, pathResolver);
+            byte[] value = operation.isDelete() ? null : valueOf(operation, objectMapper, stateCodec);
+            pending.add(new PreparedOp(operation, ByteSequence.from(key, UTF_8), value));
+        }
+
+        // Batches are bound by the deadline of the cluster of their first operation; they rarely span clusters
+        PassDeadline deadline = passDeadlines.get(operations.get(0).getClusterId());
+        for (int attempt = 1; attempt <= MAX_COMMIT_ATTEMPTS && !pending.isEmpty(); attempt++) {
+            if (attempt > 1) {
+                long backoffMs = RETRY_BACKOFF_MS * (attempt - 1);
+                backoffMs = ThreadLocalRandom.current().nextLong(backoffMs / 2, backoffMs + 1);
+                if (deadline != null && deadline.remainingMs() <= backoffMs) {
+                    log.warn("Pass deadline leaves no time to retry {} write batch operations", pending.size());
+                    break;
+                }
+                log.debug("Retrying {} write batch operations (attempt {}/{})", pending.size(), attempt, MAX_COMMIT_ATTEMPTS);
+                Thread.sleep(backoffMs);
+            }
+            List<PreparedOp> retry = new ArrayList<>();
+            for (List<PreparedOp> chunk : chunk(pending)) {
+                retry.addAll(commitChunk(chunk, result, deadline));
+            }
+            pending = retry;
+        }
+
+        for (PreparedOp op : pending) {
+            result.record(op.operation, WriteBatchResult.Status.FAILED);
+        }
+        if (!result.isAllApplied()) {
+            log.warn("Write batch of {} operations committed partially: {}", operations.size(), result);
+        } else {
+            log.debug("Write batch of {} operations committed", operations.size());
+        }
+        return result;
+    }
+
+    /**
+     * Commit one chunk as a single Txn. Records applied and conflicting operations and returns those to retry.
+     */
+    private List<PreparedOp> commitChunk(List<PreparedOp> chunk, WriteBatchResult result, PassDeadline deadline) {
+        List<Cmp> guards = new ArrayList<>();
+        List<Op> thenOps = new ArrayList<>();
+        List<Op> elseOps = new ArrayList<>();
+        List<PreparedOp> guarded = new ArrayList<>();
+        for (PreparedOp op : chunk) {
+            if (op.operation.isGuarded()) {
+                // Applies only if the key was last modified at or before the guard revision
+                guards.add(new Cmp(op.key, Cmp.Op.LESS, CmpTarget.modRevision(op.operation.getUnchangedSinceRevision() + 1)));
+                elseOps.add(Op.get(op.key, GetOption.DEFAULT));
+                guarded.add(op);
+            }
+            thenOps.add(op.value == null
+                    ? Op.delete(op.key, DeleteOption.DEFAULT)
+                    : Op.put(op.key, ByteSequence.from(op.value), PutOption.DEFAULT));
+        }
+
+        // Chunks are accounted to the cluster of their first operation; batches rarely span clusters
+        String clusterId = chunk.get(0).operation.getClusterId();
+        long timeoutMs = timeouts.timeoutMs(EtcdTimeouts.OperationClass.TXN);
+        if (deadline != null) {
+            if (deadline.isExpired()) {
+                // Not sent; reported as FAILED with the rest of the pending operations
+                return chunk;
+            }
+            timeoutMs = Math.min(timeoutMs, deadline.remainingMs());
+        }
+        TxnResponse response;
+        try {
+            response = kvClient.txn()
+                    .If(guards.toArray(new Cmp[0]))
+                    .Then(thenOps.toArray(new Op[0]))
+                    .Else(elseOps.toArray(new Op[0]))
+                    .commit()
+                    .get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            stats.recordRequest(clusterId);
+            if (e instanceof TimeoutException) {
+                stats.recordTimeout(clusterId);
+            }
+            log.warn("Write batch transaction of {} operations failed: {}", chunk.size(), e.getMessage());
+            return chunk;
+        }
+
+        stats.recordRequest(clusterId);
+        if (response.isSucceeded()) {
+            for (PreparedOp op : chunk) {
+                result.record(op.operation, WriteBatchResult.Status.APPLIED);
+                stats.recordWrite(op.operation.getClusterId(), op.key.size() + (op.value == null ? 0 : op.value.length));
+            }
+            return List.of();
+        }
+
+        // Some guard failed; find which from the Else reads and retry everything else in the chunk
+        List<GetResponse> reads = response.getGetResponses();
+        reads.forEach(read -> stats.recordRead(clusterId, read));
+        List<PreparedOp> conflicts = new ArrayList<>();
+        for (int i = 0; i < guarded.size() && i < reads.size(); i++) {
+            PreparedOp op = guarded.get(i);
+            GetResponse read = reads.get(i);
+            long modRevision = read.getKvs().isEmpty() ? 0 : read.getKvs().get(0).getModRevision();
+            if (modRevision > op.operation.getUnchangedSinceRevision()) {
+                conflicts.add(op);
+                result.record(op.operation, WriteBatchResult.Status.CONFLICT);
+                stats.recordCasConflict(op.operation.getClusterId());
+            }
+        }
+        List<PreparedOp> retry = new ArrayList<>(chunk);
+        retry.removeAll(conflicts);
+        return retry;
+    }
+
+    private List<List<PreparedOp>> chunk(List<PreparedOp> ops) {
+        List<List<PreparedOp>> chunks = new ArrayList<>();
+        List<PreparedOp> current = new ArrayList<>();
+        long currentBytes = 0;
+        for (PreparedOp op : ops) {
+            long size = op.key.size() + (op.value == null ? 0 : op.value.length);
+            if (!current.isEmpty() && (current.size() >= maxTxnOps || currentBytes + size > MAX_TXN_BYTES)) {
+                chunks.add(current);
+                current = new ArrayList<>();
+                currentBytes = 0;
+            }
+            current.add(op);
+            currentBytes += size;
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+
+    private static class PreparedOp {
+        private final WriteOperation operation;
+        private final ByteSequence key;
+        private final byte[] value;
+
+        private PreparedOp(WriteOperation operation, ByteSequence key, byte[] value) {
+            this.operation = operation;
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,679 @@
+package io.clustercontroller.store;
+
+import io.clustercontroller.metrics.MetricsProvider;
+import io.clustercontroller.metrics.MetricsUtils;
+import io.clustercontroller.models.Alias;
+import io.clustercontroller.models.ClusterControllerAssignment;
+import io.clustercontroller.models.ClusterInformation;
+import io.clustercontroller.models.CoordinatorGoalState;
+import io.clustercontroller.models.Index;
+import io.clustercontroller.models.IndexSettings;
+import io.clustercontroller.models.SearchUnit;
+import io.clustercontroller.models.SearchUnitActualState;
+import io.clustercontroller.models.SearchUnitGoalState;
+import io.clustercontroller.models.ShardAllocation;
+import io.clustercontroller.models.TaskMetadata;
+import io.clustercontroller.models.Template;
+import io.clustercontroller.models.TypeMapping;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.clustercontroller.metrics.MetricsConstants.METADATA_STORE_BYTES_READ_METRIC_NAME;
+import static io.clustercontroller.metrics.MetricsConstants.METADATA_STORE_BYTES_WRITTEN_METRIC_NAME;
+import static io.clustercontroller.metrics.MetricsConstants.METADATA_STORE_CAS_CONFLICTS_METRIC_NAME;
+import static io.clustercontroller.metrics.MetricsConstants.METADATA_STORE_ETCD_REQUESTS_METRIC_NAME;
+import static io.clustercontroller.metrics.MetricsConstants.METADATA_STORE_KEYS_READ_METRIC_NAME;
+import static io.clustercontroller.metrics.MetricsConstants.METADATA_STORE_OP_LATENCY_METRIC_NAME;
+import static io.clustercontroller.metrics.MetricsConstants.METADATA_STORE_PASS_BYTES_METRIC_NAME;
+import static io.clustercontroller.metrics.MetricsConstants.METADATA_STORE_PASS_ETCD_REQUESTS_METRIC_NAME;
+import static io.clustercontroller.metrics.MetricsConstants.METADATA_STORE_TIMEOUTS_METRIC_NAME;
+import static io.clustercontroller.metrics.MetricsConstants.OPERATION_TAG;
+
+/**
+ * MetadataStore decorator that times every operation per operation and cluster, and publishes the backend's
+ * etcd traffic ({@link StoreStats}: requests, keys and bytes read, bytes written, CAS conflicts, timeouts)
+ * as counters.
+ * <p>
+ * A reconcile pass is bracketed with {@link #startPass(MetadataStore, String)}; closing it logs and keeps a
+ * {@link PassSummary} of the etcd requests and bytes the cluster used meanwhile. Traffic is attributed by
+ * cluster, so requests made for the same cluster outside the pass (e.g. API calls) count towards it.
+ * Non-blocking callers using {@link #async()} reach the backend directly: they are counted in the etcd
+ * traffic but not timed.
+ */
+@Slf4j
+public class InstrumentedMetadataStore implements MetadataStore {
+
+    // Tag value for operations that are not about one cluster
+    static final String ALL_CLUSTERS = "all";
+
+    private final MetadataStore delegate;
+    private final MetricsProvider metricsProvider;
+    private final StoreStats stats;
+    // Shared with the serializable-read view so both report into the same meters
+    private final ConcurrentMap<TimerKey, Timer> timers;
+    private final ConcurrentMap<String, ClusterMeters> clusters;
+    private InstrumentedMetadataStore serializableView;
+
+    private record TimerKey(String operation, String clusterId) {
+    }
+
+    /**
+     * Summary of the metadata store usage of one reconcile pass over a cluster.
+     */
+    public record PassSummary(String clusterId, long durationMs, long operations, StoreStats.Totals etcd) {
+    }
+
+    /**
+     * @param metricsProvider may be null, in which case passes are still summarized but nothing is published
+     */
+    public InstrumentedMetadataStore(MetadataStore delegate, MetricsProvider metricsProvider) {
+        this.delegate = delegate;
+        this.metricsProvider = metricsProvider;
+        StoreStats delegateStats = delegate.stats();
+        this.stats = delegateStats != null ? delegateStats : new StoreStats();
+        this.timers = new ConcurrentHashMap<>();
+        this.clusters = new ConcurrentHashMap<>();
+    }
+
+    private InstrumentedMetadataStore(InstrumentedMetadataStore base, MetadataStore delegateView) {
+        this.delegate = delegateView;
+        this.metricsProvider = base.metricsProvider;
+        this.stats = base.stats;
+        this.timers = base.timers;
+        this.clusters = base.clusters;
+    }
+
+    // =================================================================
+    // PASSES
+    // =================================================================
+
+    /**
+     * A reconcile pass over one cluster; closing it logs and publishes the pass summary.
+     */
+    public final class Pass implements AutoCloseable {
+        private final String clusterId;
+        private final long startNanos = System.nanoTime();
+        private final StoreStats.Totals startTotals;
+        private final long startOperations;
+
+        private Pass(String clusterId) {
+            this.clusterId = clusterId;
+            this.startTotals = stats.totals(clusterId);
+            this.startOperations = meters(clusterId).operations.sum();
+        }
+
+        @Override
+        public void close() {
+            finishPass(this);
+        }
+    }
+
+    /**
+     * Start a pass over a cluster if the store is instrumented, otherwise return null (a no-op resource
+     * in try-with-resources).
+     */
+    public static Pass startPass(MetadataStore store, String clusterId) {
+        return store instanceof InstrumentedMetadataStore instrumented ? instrumented.startPass(clusterId) : null;
+    }
+
+    public Pass startPass(String clusterId) {
+        return new Pass(clusterId);
+    }
+
+    private void finishPass(Pass pass) {
+        ClusterMeters meters = meters(pass.clusterId);
+        PassSummary summary = new PassSummary(pass.clusterId,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pass.startNanos),
+            meters.operations.sum() - pass.startOperations,
+            stats.totals(pass.clusterId).minus(pass.startTotals));
+        meters.lastPass = summary;
+
+        StoreStats.Totals etcd = summary.etcd();
+        log.info("[Cluster: {}] Metadata store pass: {} operations, {} etcd requests, {} keys / {} bytes read, "
+                + "{} bytes written, {} CAS conflicts, {} timeouts in {} ms", pass.clusterId, summary.operations(),
+            etcd.requests(), etcd.keysRead(), etcd.bytesRead(), etcd.bytesWritten(), etcd.casConflicts(),
+            etcd.timeouts(), summary.durationMs());
+
+        publish(pass.clusterId);
+        if (metricsProvider != null) {
+            metricsProvider.gauge(METADATA_STORE_PASS_ETCD_REQUESTS_METRIC_NAME, etcd.requests(),
+                MetricsUtils.buildClusterMetricsTags(pass.clusterId));
+            metricsProvider.gauge(METADATA_STORE_PASS_BYTES_METRIC_NAME, etcd.bytesRead() + etcd.bytesWritten(),
+                MetricsUtils.buildClusterMetricsTags(pass.clusterId));
+        }
+    }
+
+    /**
+     * Summary of the last finished pass over a cluster, or null if none finished yet.
+     */
+    public PassSummary getLastPassSummary(String clusterId) {
+        ClusterMeters meters = clusters.get(clusterId);
+        return meters == null ? null : meters.lastPass;
+    }
+
+    // =================================================================
+    // METERS
+    // =================================================================
+
+    /**
+     * Per-cluster operation count, last pass, and the etcd counters with the totals already published to them.
+     */
+    private static class ClusterMeters {
+        private final LongAdder operations = new LongAdder();
+        private volatile PassSummary lastPass;
+        private StoreStats.Totals published = StoreStats.Totals.ZERO;
+        private Counter requests;
+        private Counter keysRead;
+        private Counter bytesRead;
+        private Counter bytesWritten;
+        private Counter casConflicts;
+        private Counter timeouts;
+    }
+
+    private ClusterMeters meters(String clusterId) {
+        return clusters.computeIfAbsent(clusterId, k -> new ClusterMeters());
+    }
+
+    /**
+     * Add the cluster's etcd traffic since the last publish to its counters.
+     */
+    void publish(String clusterId) {
+        if (metricsProvider == null) {
+            return;
+        }
+        ClusterMeters meters = meters(clusterId);
+        synchronized (meters) {
+            StoreStats.Totals current = stats.totals(clusterId);
+            StoreStats.Totals delta = current.minus(meters.published);
+            meters.published = current;
+            if (delta.requests() < 0) {
+                // The backend released and restarted the cluster's stats; start over from the current totals
+                return;
+            }
+            if (meters.requests == null) {
+                meters.requests = counter(METADATA_STORE_ETCD_REQUESTS_METRIC_NAME, clusterId);
+                meters.keysRead = counter(METADATA_STORE_KEYS_READ_METRIC_NAME, clusterId);
+                meters.bytesRead = counter(METADATA_STORE_BYTES_READ_METRIC_NAME, clusterId);
+                meters.bytesWritten = counter(METADATA_STORE_BYTES_WRITTEN_METRIC_NAME, clusterId);
+                meters.casConflicts = counter(METADATA_STORE_CAS_CONFLICTS_METRIC_NAME, clusterId);
+                meters.timeouts = counter(METADATA_STORE_TIMEOUTS_METRIC_NAME, clusterId);
+            }
+            increment(meters.requests, delta.requests());
+            increment(meters.keysRead, delta.keysRead());
+            increment(meters.bytesRead, delta.bytesRead());
+            increment(meters.bytesWritten, delta.bytesWritten());
+            increment(meters.casConflicts, delta.casConflicts());
+            increment(meters.timeouts, delta.timeouts());
+        }
+    }
+
+    private Counter counter(String name, String clusterId) {
+        return metricsProvider.counter(name, MetricsUtils.buildClusterMetricsTags(clusterId));
+    }
+
+    private static void increment(Counter counter, long amount) {
+        if (counter != null && amount > 0) {
+            counter.increment(amount);
+        }
+    }
+
+    @FunctionalInterface
+    private interface BlockingCall {
+        void run() throws Exception;
+    }
+
+    private <T> T call(String operation, String clusterId, Callable<T> call) throws Exception {
+        long start = System.nanoTime();
+        try {
+            return call.call();
+        } finally {
+            record(operation, clusterId, System.nanoTime() - start);
+        }
+    }
+
+    private void run(String operation, String clusterId, BlockingCall call) throws Exception {
+        call(operation, clusterId, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    private void record(String operation, String clusterId, long nanos) {
+        String cluster = clusterId != null ? clusterId : ALL_CLUSTERS;
+        meters(cluster).operations.increment();
+        if (metricsProvider == null) {
+            return;
+        }
+        Timer timer = timers.computeIfAbsent(new TimerKey(operation, cluster), key -> {
+            Map<String, String> tags = MetricsUtils.buildClusterMetricsTags(key.clusterId());
+            tags.put(OPERATION_TAG, key.operation());
+            return metricsProvider.timer(METADATA_STORE_OP_LATENCY_METRIC_NAME, tags);
+        });
+        if (timer != null) {
+            timer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // =================================================================
+    // CONTROLLER TASKS OPERATIONS
+    // =================================================================
+
+    @Override
+    public List<TaskMetadata> getAllTasks(String clusterId) throws Exception {
+        return call("get_all_tasks", clusterId, () -> delegate.getAllTasks(clusterId));
+    }
+
+    @Override
+    public Optional<TaskMetadata> getTask(String clusterId, String taskName) throws Exception {
+        return call("get_task", clusterId, () -> delegate.getTask(clusterId, taskName));
+    }
+
+    @Override
+    public Versioned<TaskMetadata> getTaskVersioned(String clusterId, String taskName) throws Exception {
+        return call("get_task_versioned", clusterId, () -> delegate.getTaskVersioned(clusterId, taskName));
+    }
+
+    @Override
+    public String createTask(String clusterId, TaskMetadata task) throws Exception {
+        return call("create_task", clusterId, () -> delegate.createTask(clusterId, task));
+    }
+
+    @Override
+    public void updateTask(String clusterId, TaskMetadata task) throws Exception {
+        run("update_task", clusterId, () -> delegate.updateTask(clusterId, task));
+    }
+
+    @Override
+    public Versioned<TaskMetadata> updateTask(String clusterId, TaskMetadata task, long expectedRevision) throws Exception {
+        return call("update_task_versioned", clusterId, () -> delegate.updateTask(clusterId, task, expectedRevision));
+    }
+
+    @Override
+    public void deleteTask(String clusterId, String taskName) throws Exception {
+        run("delete_task", clusterId, () -> delegate.deleteTask(clusterId, taskName));
+    }
+
+    @Override
+    public int deleteOldTasks(String clusterId, long olderThanTimestamp, boolean archive) throws Exception {
+        return call("delete_old_tasks", clusterId, () -> delegate.deleteOldTasks(clusterId, olderThanTimestamp, archive));
+    }
+
+    @Override
+    public boolean claimTask(String clusterId, String taskName, String owner, long leaseId) throws Exception {
+        return call("claim_task", clusterId, () -> delegate.claimTask(clusterId, taskName, owner, leaseId));
+    }
+
+    @Override
+    public void releaseTaskClaim(String clusterId, String taskName) throws Exception {
+        run("release_task_claim", clusterId, () -> delegate.releaseTaskClaim(clusterId, taskName));
+    }
+
+    @Override
+    public boolean isTaskClaimed(String clusterId, String taskName) throws Exception {
+        return call("is_task_claimed", clusterId, () -> delegate.isTaskClaimed(clusterId, taskName));
+    }
+
+    // =================================================================
+    // SEARCH UNITS OPERATIONS
+    // =================================================================
+
+    @Override
+    public List<SearchUnit> getAllSearchUnits(String clusterId) throws Exception {
+        return call("get_all_search_units", clusterId, () -> delegate.getAllSearchUnits(clusterId));
+    }
+
+    @Override
+    public Optional<SearchUnit> getSearchUnit(String clusterId, String unitName) throws Exception {
+        return call("get_search_unit", clusterId, () -> delegate.getSearchUnit(clusterId, unitName));
+    }
+
+    @Override
+    public void upsertSearchUnit(String clusterId, String unitName, SearchUnit searchUnit) throws Exception {
+        run("upsert_search_unit", clusterId, () -> delegate.upsertSearchUnit(clusterId, unitName, searchUnit));
+    }
+
+    @Override
+    public void updateSearchUnit(String clusterId, SearchUnit searchUnit) throws Exception {
+        run("update_search_unit", clusterId, () -> delegate.updateSearchUnit(clusterId, searchUnit));
+    }
+
+    @Override
+    public void deleteSearchUnit(String clusterId, String unitName) throws Exception {
+        run("delete_search_unit", clusterId, () -> delegate.deleteSearchUnit(clusterId, unitName));
+    }
+
+    // =================================================================
+    // SEARCH UNIT STATE OPERATIONS
+    // =================================================================
+
+    @Override
+    public Map<String, SearchUnitActualState> getAllSearchUnitActualStates(String clusterId) throws Exception {
+        return call("get_all_search_unit_actual_states", clusterId, () -> delegate.getAllSearchUnitActualStates(clusterId));
+    }
+
+    @Override
+    public SearchUnitGoalState getSearchUnitGoalState(String clusterId, String unitName) throws Exception {
+        return call("get_search_unit_goal_state", clusterId, () -> delegate.getSearchUnitGoalState(clusterId, unitName));
+    }
+
+    @Override
+    public Versioned<SearchUnitGoalState> getSearchUnitGoalStateVersioned(String clusterId, String unitName) throws Exception {
+        return call("get_search_unit_goal_state_versioned", clusterId,
+            () -> delegate.getSearchUnitGoalStateVersioned(clusterId, unitName));
+    }
+
+    @Override
+    public List<String> getAllNodesWithGoalStates(String clusterId) throws Exception {
+        return call("get_all_nodes_with_goal_states", clusterId, () -> delegate.getAllNodesWithGoalStates(clusterId));
+    }
+
+    @Override
+    public SearchUnitActualState getSearchUnitActualState(String clusterId, String unitName) throws Exception {
+        return call("get_search_unit_actual_state", clusterId, () -> delegate.getSearchUnitActualState(clusterId, unitName));
+    }
+
+    @Override
+    public void setSearchUnitGoalState(String clusterId, String unitName, SearchUnitGoalState goalState) throws Exception {
+        run("set_search_unit_goal_state", clusterId, () -> delegate.setSearchUnitGoalState(clusterId, unitName, goalState));
+    }
+
+    @Override
+    public Versioned<SearchUnitGoalState> setSearchUnitGoalState(String clusterId, String unitName, SearchUnitGoalState goalState,
+                                                                 long expectedRevision) throws Exception {
+        return call("set_search_unit_goal_state_versioned", clusterId,
+            () -> delegate.setSearchUnitGoalState(clusterId, unitName, goalState, expectedRevision));
+    }
+
+    @Override
+    public void setSearchUnitActualState(String clusterId, String unitName, SearchUnitActualState actualState) throws Exception {
+        run("set_search_unit_actual_state", clusterId, () -> delegate.setSearchUnitActualState(clusterId, unitName, actualState));
+    }
+
+    @Override
+    public List<SearchUnit> getAllCoordinators(String clusterId) throws Exception {
+        return call("get_all_coordinators", clusterId, () -> delegate.getAllCoordinators(clusterId));
+    }
+
+    // =================================================================
+    // INDEX CONFIGURATIONS OPERATIONS
+    // =================================================================
+
+    @Override
+    public List<Index> getAllIndexConfigs(String clusterId) throws Exception {
+        return call("get_all_index_configs", clusterId, () -> delegate.getAllIndexConfigs(clusterId));
+    }
+
+    @Override
+    public Optional<String> getIndexConfig(String clusterId, String indexName) throws Exception {
+        return call("get_index_config", clusterId, () -> delegate.getIndexConfig(clusterId, indexName));
+    }
+
+    @Override
+    public String createIndexConfig(String clusterId, String indexName, String indexConfig) throws Exception {
+        return call("create_index_config", clusterId, () -> delegate.createIndexConfig(clusterId, indexName, indexConfig));
+    }
+
+    @Override
+    public void updateIndexConfig(String clusterId, String indexName, String indexConfig) throws Exception {
+        run("update_index_config", clusterId, () -> delegate.updateIndexConfig(clusterId, indexName, indexConfig));
+    }
+
+    @Override
+    public void deleteIndexConfig(String clusterId, String indexName) throws Exception {
+        run("delete_index_config", clusterId, () -> delegate.deleteIndexConfig(clusterId, indexName));
+    }
+
+    @Override
+    public void setIndexMappings(String clusterId, String indexName, String mappings) throws Exception {
+        run("set_index_mappings", clusterId, () -> delegate.setIndexMappings(clusterId, indexName, mappings));
+    }
+
+    @Override
+    public IndexSettings getIndexSettings(String clusterId, String indexName) throws Exception {
+        return call("get_index_settings", clusterId, () -> delegate.getIndexSettings(clusterId, indexName));
+    }
+
+    @Override
+    public void setIndexSettings(String clusterId, String indexName, String settings) throws Exception {
+        run("set_index_settings", clusterId, () -> delegate.setIndexSettings(clusterId, indexName, settings));
+    }
+
+    @Override
+    public TypeMapping getIndexMappings(String clusterId, String indexName) throws Exception {
+        return call("get_index_mappings", clusterId, () -> delegate.getIndexMappings(clusterId, indexName));
+    }
+
+    @Override
+    public void deletePrefix(String clusterId, String prefix) throws Exception {
+        run("delete_prefix", clusterId, () -> delegate.deletePrefix(clusterId, prefix));
+    }
+
+    // =================================================================
+    // TEMPLATE OPERATIONS
+    // =================================================================
+
+    @Override
+    public Template getTemplate(String clusterId, String templateName) throws Exception {
+        return call("get_template", clusterId, () -> delegate.getTemplate(clusterId, templateName));
+    }
+
+    @Override
+    public String createTemplate(String clusterId, String templateName, String templateConfig) throws Exception {
+        return call("create_template", clusterId, () -> delegate.createTemplate(clusterId, templateName, templateConfig));
+    }
+
+    @Override
+    public void updateTemplate(String clusterId, String templateName, String templateConfig) throws Exception {
+        run("update_template", clusterId, () -> delegate.updateTemplate(clusterId, templateName, templateConfig));
+    }
+
+    @Override
+    public void deleteTemplate(String clusterId, String templateName) throws Exception {
+        run("delete_template", clusterId, () -> delegate.deleteTemplate(clusterId, templateName));
+    }
+
+    @Override
+    public List<Template> getAllTemplates(String clusterId) throws Exception {
+        return call("get_all_templates", clusterId, () -> delegate.getAllTemplates(clusterId));
+    }
+
+    // =================================================================
+    // SHARD ALLOCATION OPERATIONS
+    // =================================================================
+
+    @Override
+    public ShardAllocation getPlannedAllocation(String clusterId, String indexName, String shardId) throws Exception {
+        return call("get_planned_allocation", clusterId, () -> delegate.getPlannedAllocation(clusterId, indexName, shardId));
+    }
+
+    @Override
+    public void setPlannedAllocation(String clusterId, String indexName, String shardId, ShardAllocation allocation) throws Exception {
+        run("set_planned_allocation", clusterId, () -> delegate.setPlannedAllocation(clusterId, indexName, shardId, allocation));
+    }
+
+    @Override
+    public ShardAllocation getActualAllocation(String clusterId, String indexName, String shardId) throws Exception {
+        return call("get_actual_allocation", clusterId, () -> delegate.getActualAllocation(clusterId, indexName, shardId));
+    }
+
+    @Override
+    public void setActualAllocation(String clusterId, String indexName, String shardId, ShardAllocation allocation) throws Exception {
+        run("set_actual_allocation", clusterId, () -> delegate.setActualAllocation(clusterId, indexName, shardId, allocation));
+    }
+
+    @Override
+    public List<ShardAllocation> getAllActualAllocations(String clusterId, String indexName) throws Exception {
+        return call("get_all_actual_allocations", clusterId, () -> delegate.getAllActualAllocations(clusterId, indexName));
+    }
+
+    @Override
+    public void deleteActualAllocation(String clusterId, String indexName, String shardId) throws Exception {
+        run("delete_actual_allocation", clusterId, () -> delegate.deleteActualAllocation(clusterId, indexName, shardId));
+    }
+
+    @Override
+    public Set<String> getAllIndicesWithActualAllocations(String clusterId) throws Exception {
+        return call("get_all_indices_with_actual_allocations", clusterId,
+            () -> delegate.getAllIndicesWithActualAllocations(clusterId));
+    }
+
+    // =================================================================
+    // ALIAS OPERATIONS
+    // =================================================================
+
+    @Override
+    public Alias getAlias(String clusterId, String aliasName) throws Exception {
+        return call("get_alias", clusterId, () -> delegate.getAlias(clusterId, aliasName));
+    }
+
+    @Override
+    public void setAlias(String clusterId, String aliasName, Alias alias) throws Exception {
+        run("set_alias", clusterId, () -> delegate.setAlias(clusterId, aliasName, alias));
+    }
+
+    @Override
+    public void deleteAlias(String clusterId, String aliasName) throws Exception {
+        run("delete_alias", clusterId, () -> delegate.deleteAlias(clusterId, aliasName));
+    }
+
+    @Override
+    public List<Alias> getAllAliases(String clusterId) throws Exception {
+        return call("get_all_aliases", clusterId, () -> delegate.getAllAliases(clusterId));
+    }
+
+    // =================================================================
+    // CLUSTER SNAPSHOT OPERATIONS
+    // =================================================================
+
+    @Override
+    public ClusterSnapshot loadClusterSnapshot(String clusterId) throws Exception {
+        return call("load_cluster_snapshot", clusterId, () -> delegate.loadClusterSnapshot(clusterId));
+    }
+
+    // =================================================================
+    // BATCH WRITE OPERATIONS
+    // =================================================================
+
+    /**
+     * Batch whose commit is timed as one operation of the cluster of its first write.
+     */
+    @Override
+    public WriteBatch newWriteBatch() {
+        return new WriteBatch() {
+            @Override
+            protected WriteBatchResult commit(List<WriteOperation> operations) throws Exception {
+                WriteBatch batch = delegate.newWriteBatch();
+                for (WriteOperation operation : operations) {
+                    batch.add(operation);
+                }
+                return call("commit_write_batch", operations.get(0).getClusterId(), batch::commit);
+            }
+        };
+    }
+
+    // =================================================================
+    // INDEX READINESS OPERATIONS
+    // =================================================================
+
+    @Override
+    public boolean isIndexReady(String clusterId, String indexName) throws Exception {
+        return call("is_index_ready", clusterId, () -> delegate.isIndexReady(clusterId, indexName));
+    }
+
+    /**
+     * Not timed: the wait is bounded by the caller's timeout rather than by the store.
+     */
+    @Override
+    public CompletableFuture<Boolean> waitForIndexReady(String clusterId, String indexName, long timeoutMs) {
+        return delegate.waitForIndexReady(clusterId, indexName, timeoutMs);
+    }
+
+    // =================================================================
+    // CLUSTER OPERATIONS
+    // =================================================================
+
+    @Override
+    public void initialize() throws Exception {
+        delegate.initialize();
+    }
+
+    @Override
+    public void close() throws Exception {
+        delegate.close();
+    }
+
+    @Override
+    public void manageCluster(String clusterId) {
+        delegate.manageCluster(clusterId);
+    }
+
+    @Override
+    public void releaseCluster(String clusterId) {
+        delegate.releaseCluster(clusterId);
+        clusters.remove(clusterId);
+    }
+
+    @Override
+    public AsyncMetadataStore async() {
+        return delegate.async();
+    }
+
+    @Override
+    public synchronized MetadataStore serializableView() {
+        if (serializableView == null) {
+            MetadataStore delegateView = delegate.serializableView();
+            if (delegateView == null) {
+                return null;
+            }
+            serializableView = new InstrumentedMetadataStore(this, delegateView);
+        }
+        return serializableView;
+    }
+
+    @Override
+    public StoreStats stats() {
+        return stats;
+    }
+
+    @Override
+    public PassDeadline startPassDeadline(String clusterId) {
+        return delegate.startPassDeadline(clusterId);
+    }
+
+    @Override
+    public boolean isLeader() {
+        return delegate.isLeader();
+    }
+
+    @Override
+    public ClusterControllerAssignment getAssignedController(String clusterId) throws Exception {
+        return call("get_assigned_controller", clusterId, () -> delegate.getAssignedController(clusterId));
+    }
+
+    @Override
+    public void setCoordinatorGoalState(String clusterId, CoordinatorGoalState goalState) throws Exception {
+        run("set_coordinator_goal_state", clusterId, () -> delegate.setCoordinatorGoalState(clusterId, goalState));
+    }
+
+    @Override
+    public CoordinatorGoalState getCoordinatorGoalState(String clusterId) throws Exception {
+        return call("get_coordinator_goal_state", clusterId, () -> delegate.getCoordinatorGoalState(clusterId));
+    }
+
+    @Override
+    public ClusterInformation.Version getClusterVersion(String clusterId) throws Exception {
+        return call("get_cluster_version", clusterId, () -> delegate.getClusterVersion(clusterId));
+    }
+}
@@ -0,0 +1,117 @@
+package io.clustercontroller.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * ValueCodec over Jackson's JSON, Smile and CBOR mappers, with optional deflate compression.
+ * <p>
+ * Uncompressed JSON is written as-is, so the default configuration stores exactly what it always did.
+ * Anything else is prefixed with a three-byte header: a zero magic byte (never the first byte of a JSON
+ * document), the format and the compression. Decoding reads the header when present and falls back to JSON,
+ * so every configuration can read values written by every other.
+ */
+public class JacksonValueCodec implements ValueCodec {
+
+    static final byte MAGIC = 0x00;
+    static final int HEADER_LENGTH = 3;
+
+    private static final byte COMPRESSION_NONE = 0;
+    private static final byte COMPRESSION_DEFLATE = 1;
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper smileMapper;
+    private final ObjectMapper cborMapper;
+    private final Format format;
+    private final boolean compressed;
+
+    /**
+     * @param jsonMapper configured JSON mapper; the binary mappers copy its modules and features
+     */
+    public JacksonValueCodec(ObjectMapper jsonMapper, Format format, boolean compressed) {
+        this.jsonMapper = jsonMapper;
+        this.smileMapper = jsonMapper.copyWith(new SmileFactory());
+        this.cborMapper = jsonMapper.copyWith(new CBORFactory());
+        this.format = format;
+        this.compressed = compressed;
+    }
+
+    /**
+     * Codec that writes plain JSON and reads any format.
+     */
+    public static JacksonValueCodec json(ObjectMapper jsonMapper) {
+        return new JacksonValueCodec(jsonMapper, Format.JSON, false);
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    @Override
+    public byte[] encode(Object value) throws IOException {
+        ObjectMapper mapper = mapperFor(format);
+        if (format == Format.JSON && !compressed) {
+            return mapper.writeValueAsBytes(value);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        out.write(MAGIC);
+        // Format ids are the enum ordinals and are persisted: only ever append to ValueCodec.Format
+        out.write(format.ordinal());
+        out.write(compressed ? COMPRESSION_DEFLATE : COMPRESSION_NONE);
+        if (compressed) {
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try (DeflaterOutputStream compressing = new DeflaterOutputStream(out, deflater)) {
+                mapper.writeValue(compressing, value);
+            } finally {
+                deflater.end();
+            }
+        } else {
+            mapper.writeValue(out, value);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public <T> T decode(byte[] bytes, Class<T> clazz) throws IOException {
+        if (bytes.length == 0 || bytes[0] != MAGIC) {
+            return jsonMapper.readValue(bytes, clazz);
+        }
+        if (bytes.length < HEADER_LENGTH || bytes[1] < 0 || bytes[1] >= Format.values().length) {
+            throw new IOException("Unrecognized value header in stored value");
+        }
+
+        ObjectMapper mapper = mapperFor(Format.values()[bytes[1]]);
+        return switch (bytes[2]) {
+            case COMPRESSION_NONE -> mapper.readValue(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH, clazz);
+            case COMPRESSION_DEFLATE -> {
+                try (InputStream in = new InflaterInputStream(
+                        new ByteArrayInputStream(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH))) {
+                    yield mapper.readValue(in, clazz);
+                }
+            }
+            default -> throw new IOException("Unrecognized value compression " + bytes[2] + " in stored value");
+        };
+    }
+
+    private ObjectMapper mapperFor(Format valueFormat) {
+        return switch (valueFormat) {
+            case JSON -> jsonMapper;
+            case SMILE -> smileMapper;
+            case CBOR -> cborMapper;
+        };
+    }
+}
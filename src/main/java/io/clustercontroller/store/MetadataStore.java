@@ -17,6 +17,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Abstraction layer for metadata storage supporting different backends (etcd, redis, etc.)
@@ -29,7 +30,8 @@ public interface MetadataStore {
     // =================================================================
     
     /**
-     * Get all controller tasks sorted by priority
+     * Get the active controller tasks sorted by priority. Completed and failed one-shot tasks are left out;
+     * {@link #getTask} still returns them until {@link #deleteOldTasks} removes them.
      */
     List<TaskMetadata> getAllTasks(String clusterId) throws Exception;
     
@@ -37,6 +39,12 @@ public interface MetadataStore {
      * Get task by name
      */
     Optional<TaskMetadata> getTask(String clusterId, String taskName) throws Exception;
+
+    /**
+     * Get task with the revision it was last modified at, for a later
+     * {@link #updateTask(String, TaskMetadata, long)}; absent with revision 0 if none
+     */
+    Versioned<TaskMetadata> getTaskVersioned(String clusterId, String taskName) throws Exception;
     
     /**
      * Create new task
@@ -47,6 +55,14 @@ public interface MetadataStore {
      * Update existing task
      */
     void updateTask(String clusterId, TaskMetadata task) throws Exception;
+
+    /**
+     * Update task only if it was not modified after expectedRevision, in a single round trip, so a write based on
+     * a stale read (e.g. a cancel racing the task's completion) cannot overwrite it. Returns the written task at
+     * its new revision.
+     * @throws VersionConflictException if the task changed; it carries the current task and revision
+     */
+    Versioned<TaskMetadata> updateTask(String clusterId, TaskMetadata task, long expectedRevision) throws Exception;
     
     /**
      * Delete task
@@ -54,9 +70,34 @@ public interface MetadataStore {
     void deleteTask(String clusterId, String taskName) throws Exception;
     
     /**
-     * Delete old completed tasks (cleanup)
+     * Delete completed and failed one-shot tasks last updated before the timestamp (epoch millis), in batches.
+     * With archive, each batch is first written under the cluster's task history prefix as a compressed JSON array.
+     * Returns the number of tasks deleted.
+     */
+    int deleteOldTasks(String clusterId, long olderThanTimestamp, boolean archive) throws Exception;
+    
+    /**
+     * Claim a one-shot task for the owner with a key bound to the lease, so only one controller runs it and the
+     * claim goes away with the owner's lease. Returns false if the task is claimed already.
+     * Backends without leases have no other controller to claim it and always grant the claim.
+     */
+    default boolean claimTask(String clusterId, String taskName, String owner, long leaseId) throws Exception {
+        return true;
+    }
+    
+    /**
+     * Release the claim on a task once its run is over.
+     */
+    default void releaseTaskClaim(String clusterId, String taskName) throws Exception {
+    }
+    
+    /**
+     * Whether a controller holds a claim on the task. Always false on backends without leases, where only the
+     * process running a task knows it does.
      */
-    void deleteOldTasks(long olderThanTimestamp) throws Exception;
+    default boolean isTaskClaimed(String clusterId, String taskName) throws Exception {
+        return false;
+    }
     
     // =================================================================
     // SEARCH UNITS OPERATIONS
@@ -100,6 +141,12 @@ public interface MetadataStore {
      * Get search unit goal state
      */
     SearchUnitGoalState getSearchUnitGoalState(String clusterId, String unitName) throws Exception;
+
+    /**
+     * Get search unit goal state with the revision it was last modified at, for a later
+     * {@link #setSearchUnitGoalState(String, String, SearchUnitGoalState, long)}; absent with revision 0 if none
+     */
+    Versioned<SearchUnitGoalState> getSearchUnitGoalStateVersioned(String clusterId, String unitName) throws Exception;
     
     /**
      * Get all node names that have goal states (includes nodes without conf files)
@@ -117,6 +164,14 @@ public interface MetadataStore {
      * Set search unit goal state
      */
     void setSearchUnitGoalState(String clusterId, String unitName, SearchUnitGoalState goalState) throws Exception;
+
+    /**
+     * Set search unit goal state only if it was not modified after expectedRevision (0: only if it does not exist),
+     * in a single round trip. Returns the written state at its new revision.
+     * @throws VersionConflictException if the goal state changed; it carries the current goal state and revision
+     */
+    Versioned<SearchUnitGoalState> setSearchUnitGoalState(String clusterId, String unitName, SearchUnitGoalState goalState,
+                                                          long expectedRevision) throws Exception;
     
     /**
      * Set search unit actual state
@@ -275,7 +330,29 @@ public interface MetadataStore {
      * Get all alias configurations for a cluster
      */
     List<Alias> getAllAliases(String clusterId) throws Exception;
-    
+
+    // =================================================================
+    // CLUSTER SNAPSHOT OPERATIONS
+    // =================================================================
+
+    /**
+     * Load search units (conf, goal and actual states), index configs, planned and actual allocations
+     * and aliases of a cluster, all read at a single revision.
+     *
+     * @return the snapshot, or null if this backend cannot provide one (callers then read directly)
+     */
+    ClusterSnapshot loadClusterSnapshot(String clusterId) throws Exception;
+
+    // =================================================================
+    // BATCH WRITE OPERATIONS
+    // =================================================================
+
+    /**
+     * Start a batch of goal state, actual state and allocation writes that is committed together,
+     * in as few round trips as the backend allows.
+     */
+    WriteBatch newWriteBatch();
+
     // =================================================================
     // INDEX READINESS OPERATIONS
     // =================================================================
@@ -288,6 +365,18 @@ public interface MetadataStore {
      * @return true if shards have docs > 0 and global_checkpoint == local_checkpoint
      */
     boolean isIndexReady(String clusterId, String indexName) throws Exception;
+
+    /**
+     * Completes with true once the index is ready, or with false if it is not within the timeout.
+     * Stores that cannot follow readiness changes answer with a single {@link #isIndexReady} check.
+     */
+    default CompletableFuture<Boolean> waitForIndexReady(String clusterId, String indexName, long timeoutMs) {
+        try {
+            return CompletableFuture.completedFuture(isIndexReady(clusterId, indexName));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
     
     // =================================================================
     // CLUSTER OPERATIONS
@@ -303,6 +392,62 @@ public interface MetadataStore {
      */
     void close() throws Exception;
     
+    /**
+     * Set up the per-cluster state kept only for clusters this controller manages (e.g. index readiness
+     * watches), once it starts managing the cluster; released by {@link #releaseCluster}.
+     */
+    default void manageCluster(String clusterId) {
+    }
+
+    /**
+     * Release any per-cluster resources (caches, watches) once this controller stops managing the cluster.
+     */
+    default void releaseCluster(String clusterId) {
+    }
+
+    /**
+     * Native non-blocking view of this store, or null if the backend has none.
+     * Use {@link AsyncMetadataStore#of(MetadataStore)} to get a non-blocking view of any store.
+     */
+    default AsyncMetadataStore async() {
+        return null;
+    }
+
+    /**
+     * View of this store whose reads may be answered by any etcd member from its local state instead of
+     * going through the leader, or null if the backend has no such mode. Reads can be slightly stale, so it is
+     * only for read-only paths (health, readiness, coordinator lookup); reads that feed writes must not use it.
+     * Use {@link #serializableReads(MetadataStore)} to get the view of any store.
+     */
+    default MetadataStore serializableView() {
+        return null;
+    }
+
+    /**
+     * Serializable-read view of a store, or the store itself if it only serves linearizable reads.
+     */
+    static MetadataStore serializableReads(MetadataStore store) {
+        MetadataStore view = store.serializableView();
+        return view != null ? view : store;
+    }
+
+    /**
+     * Per-cluster request, key and byte counts of the backend, or null if it does not keep any.
+     */
+    default StoreStats stats() {
+        return null;
+    }
+
+    /**
+     * Open the overall deadline of a reconcile pass over a cluster: until it is closed, the etcd requests the
+     * calling thread makes for the cluster are bounded by what is left of the configured budget and fail fast
+     * once it is spent.
+     * Returns null if the backend has no pass budget.
+     */
+    default PassDeadline startPassDeadline(String clusterId) {
+        return null;
+    }
+
     /**
      * Check if this controller instance is the leader.
      * Only the leader should perform active management operations.
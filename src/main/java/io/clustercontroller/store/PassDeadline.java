@@ -0,0 +1,83 @@
+package io.clustercontroller.store;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overall deadline of a reconcile pass over a cluster. While it is open, every etcd request the pass makes for
+ * the cluster inherits it: request timeouts are capped by the time left, and once it has passed, requests fail
+ * fast with {@link DeadlineExceededException} instead of being sent.
+ * <p>
+ * A deadline is bound to the thread that opened it, so requests made for the same cluster by other callers
+ * (API calls, the task queue, readiness loads) keep their own timeouts. Requests issued from completion
+ * callbacks rather than the pass thread are not bound by it either.
+ */
+public final class PassDeadline implements AutoCloseable {
+
+    private final String clusterId;
+    private final long deadlineNanos;
+    private final Registry registry;
+    // Deadline this one replaced on its thread, restored on close
+    private final PassDeadline previous;
+
+    private PassDeadline(String clusterId, long budgetMs, Registry registry, PassDeadline previous) {
+        this.clusterId = clusterId;
+        this.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMs);
+        this.registry = registry;
+        this.previous = previous;
+    }
+
+    public String getClusterId() {
+        return clusterId;
+    }
+
+    /**
+     * Milliseconds left before the deadline, 0 or less once it has passed.
+     */
+    public long remainingMs() {
+        return TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+    }
+
+    public boolean isExpired() {
+        return deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    @Override
+    public void close() {
+        if (registry.current.get() != this) {
+            return;
+        }
+        if (previous != null) {
+            registry.current.set(previous);
+        } else {
+            registry.current.remove();
+        }
+    }
+
+    /**
+     * Deadlines open on each thread, shared by a store and its views.
+     */
+    static class Registry {
+        private final ThreadLocal<PassDeadline> current = new ThreadLocal<>();
+
+        /**
+         * Open a deadline for the cluster on the calling thread, until closed on it; null if the budget is 0
+         * (no deadline).
+         */
+        PassDeadline start(String clusterId, long budgetMs) {
+            if (budgetMs <= 0) {
+                return null;
+            }
+            PassDeadline deadline = new PassDeadline(clusterId, budgetMs, this, current.get());
+            current.set(deadline);
+            return deadline;
+        }
+
+        /**
+         * The deadline the calling thread has open for the cluster, or null if it is not running a pass over it.
+         */
+        PassDeadline get(String clusterId) {
+            PassDeadline deadline = current.get();
+            return deadline != null && deadline.clusterId.equals(clusterId) ? deadline : null;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package io.clustercontroller.store;
+
+import io.etcd.jetcd.ByteSequence;
+import io.etcd.jetcd.KeyValue;
+import io.etcd.jetcd.kv.GetResponse;
+import io.etcd.jetcd.options.GetOption;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads an etcd prefix in pages of at most pageSize keys, continuing from the last key of each page,
+ * with every page pinned to the revision of the first so the result is one consistent point in time.
+ * A prefix with no more than pageSize keys costs exactly one range request, as a plain prefix get would;
+ * larger prefixes never arrive as one response, keeping them under the gRPC message limit and off the heap all at once.
+ */
+class PrefixScanner {
+
+    /**
+     * Issues one range request; lets callers route pages through their own limits and timeouts.
+     */
+    @FunctionalInterface
+    interface PageFetcher {
+        CompletableFuture<GetResponse> fetch(ByteSequence startKey, GetOption option);
+    }
+
+    /**
+     * Receives the key-values of one page, in key order.
+     */
+    @FunctionalInterface
+    interface PageConsumer {
+        void accept(List<KeyValue> page) throws Exception;
+    }
+
+    private final PageFetcher fetcher;
+    private final ByteSequence prefix;
+    private final ByteSequence rangeEnd;
+    private final int pageSize;
+    private final long revision;
+    private final boolean serializable;
+
+    /**
+     * @param pageSize maximum keys per request; 0 or less reads the whole prefix in one request
+     * @param revision revision to read at, or 0 for the latest (then fixed by the first page)
+     */
+    PrefixScanner(PageFetcher fetcher, ByteSequence prefix, int pageSize, long revision) {
+        this(fetcher, prefix, pageSize, revision, false);
+    }
+
+    /**
+     * @param serializable whether pages may be served by any member rather than through the leader. Such scans
+     *                     are only pinned to an explicit revision: a lagging member rejects revisions it has not
+     *                     applied yet, so later pages are read at whatever revision the serving member has.
+     */
+    PrefixScanner(PageFetcher fetcher, ByteSequence prefix, int pageSize, long revision, boolean serializable) {
+        this.fetcher = fetcher;
+        this.prefix = prefix;
+        this.rangeEnd = prefixEnd(prefix);
+        this.pageSize = Math.max(0, pageSize);
+        this.revision = revision;
+        this.serializable = serializable;
+    }
+
+    /**
+     * Fetch pages one after another, handing each to the consumer before the next is requested.
+     * Completes with the revision the scan was read at, or exceptionally if a request or the consumer fails.
+     */
+    CompletableFuture<Long> forEachPage(PageConsumer consumer) {
+        return fetchFrom(prefix, true, revision, consumer);
+    }
+
+    private CompletableFuture<Long> fetchFrom(ByteSequence startKey, boolean firstPage, long atRevision, PageConsumer consumer) {
+        return fetcher.fetch(startKey, pageOption(firstPage, atRevision)).thenCompose(response -> {
+            long scanRevision = atRevision > 0 ? atRevision : revisionOf(response);
+            List<KeyValue> page = response.getKvs();
+            try {
+                consumer.accept(page);
+            } catch (Exception e) {
+                return CompletableFuture.failedFuture(e);
+            }
+            if (!response.isMore() || page.isEmpty()) {
+                return CompletableFuture.completedFuture(scanRevision);
+            }
+            return fetchFrom(keyAfter(page.get(page.size() - 1).getKey()), false, pinFor(scanRevision), consumer);
+        });
+    }
+
+    /**
+     * Lazily fetched key-values: each page is requested when the previous one has been consumed.
+     * Request failures surface as IllegalStateException from hasNext().
+     */
+    PageIterator iterator(long timeoutSeconds) {
+        return iterator(timeoutSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Lazily fetched key-values, each page request bounded by the given timeout.
+     */
+    PageIterator iterator(long timeout, TimeUnit unit) {
+        return new PageIterator(unit.toMillis(timeout));
+    }
+
+    /**
+     * Stream over {@link #iterator(long)}; map it to decode entries as they are read.
+     */
+    Stream<KeyValue> stream(long timeoutSeconds) {
+        return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(iterator(timeoutSeconds), Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    private GetOption pageOption(boolean firstPage, long atRevision) {
+        GetOption.Builder builder = GetOption.newBuilder();
+        if (firstPage) {
+            builder.withPrefix(prefix);
+        } else {
+            builder.withRange(rangeEnd);
+        }
+        if (pageSize > 0) {
+            builder.withLimit(pageSize);
+        }
+        if (atRevision > 0) {
+            builder.withRevision(atRevision);
+        }
+        if (serializable) {
+            builder.withSerializable(true);
+        }
+        return builder.build();
+    }
+
+    private long pinFor(long scanRevision) {
+        return serializable ? revision : scanRevision;
+    }
+
+    private static long revisionOf(GetResponse response) {
+        return response.getHeader() != null ? response.getHeader().getRevision() : 0;
+    }
+
+    /**
+     * Smallest key greater than the given one: the key followed by a zero byte.
+     */
+    static ByteSequence keyAfter(ByteSequence key) {
+        byte[] bytes = key.getBytes();
+        return ByteSequence.from(Arrays.copyOf(bytes, bytes.length + 1));
+    }
+
+    /**
+     * Range end covering every key with the given prefix: the prefix with its last byte below 0xff incremented.
+     */
+    static ByteSequence prefixEnd(ByteSequence prefix) {
+        byte[] end = prefix.getBytes();
+        for (int i = end.length - 1; i >= 0; i--) {
+            if (end[i] != (byte) 0xff) {
+                end[i]++;
+                return ByteSequence.from(Arrays.copyOf(end, i + 1));
+            }
+        }
+        // All 0xff: range to the end of the keyspace
+        return ByteSequence.from(new byte[]{0});
+    }
+
+    class PageIterator implements Iterator<KeyValue> {
+        private final long timeoutMs;
+        private Iterator<KeyValue> page = Collections.emptyIterator();
+        private ByteSequence nextStart = prefix;
+        private boolean firstPage = true;
+        private long scanRevision = revision;
+        private boolean more = true;
+
+        PageIterator(long timeoutMs) {
+            this.timeoutMs = timeoutMs;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!page.hasNext() && more) {
+                fetchNextPage();
+            }
+            return page.hasNext();
+        }
+
+        @Override
+        public KeyValue next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.next();
+        }
+
+        private void fetchNextPage() {
+            GetResponse response;
+            try {
+                response = fetcher.fetch(nextStart, pageOption(firstPage, pinFor(scanRevision)))
+                    .get(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while reading prefix from etcd", e);
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to read prefix page from etcd", AsyncMetadataStore.unwrap(e));
+            }
+            firstPage = false;
+            if (scanRevision <= 0) {
+                scanRevision = revisionOf(response);
+            }
+            List<KeyValue> kvs = response.getKvs();
+            more = response.isMore() && !kvs.isEmpty();
+            if (more) {
+                nextStart = keyAfter(kvs.get(kvs.size() - 1).getKey());
+            }
+            page = kvs.iterator();
+        }
+
+        /**
+         * Revision the pages were read at; known once the first page has been fetched.
+         */
+        long getRevision() {
+            return scanRevision;
+        }
+    }
+}
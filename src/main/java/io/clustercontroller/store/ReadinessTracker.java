@@ -0,0 +1,432 @@
+package io.clustercontroller.store;
+
+import io.clustercontroller.models.Index;
+import io.clustercontroller.models.SearchUnitActualState;
+import io.etcd.jetcd.KeyValue;
+import io.etcd.jetcd.watch.WatchEvent;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static io.clustercontroller.config.Constants.PATH_DELIMITER;
+import static io.clustercontroller.config.Constants.SUFFIX_ACTUAL_STATE;
+import static io.clustercontroller.config.Constants.SUFFIX_CONF;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Per-index, per-shard readiness of each cluster, kept up to date from watches on the cluster's actual states
+ * and index configs so readiness is answered in O(1) instead of scanning every actual state.
+ * A shard is ready once some copy has docs ingested and is replicated (global checkpoint == local checkpoint);
+ * an index is ready once all shards of its config are.
+ * <p>
+ * Only clusters this controller manages are tracked ({@link #trackCluster}), through the shared watches of
+ * the {@link WatchHub}; queries about any other cluster fall back to scanning, so API input never opens watches.
+ * A tracked cluster is loaded from one snapshot on first use; events seen while it loads are kept and replayed
+ * if newer than the snapshot. Until it is loaded, or after the hub asked for a resync, {@link #isIndexReady}
+ * returns null and callers fall back to scanning. Answers trail etcd by the watch delay, like serializable reads.
+ */
+@Slf4j
+class ReadinessTracker {
+
+    private static final long RELOAD_BACKOFF_MS = 1000;
+
+    private final EtcdPathResolver pathResolver;
+    private final Supplier<DecodeCache> decodeCache;
+    private final Function<String, CompletableFuture<ClusterSnapshot>> snapshotLoader;
+    private final ConcurrentMap<String, ClusterReadiness> clusters = new ConcurrentHashMap<>();
+    // Null until set, in which case nothing is tracked and every query falls back
+    private volatile WatchHub watchHub;
+
+    ReadinessTracker(EtcdPathResolver pathResolver, Supplier<DecodeCache> decodeCache,
+                     Function<String, CompletableFuture<ClusterSnapshot>> snapshotLoader) {
+        this.pathResolver = pathResolver;
+        this.decodeCache = decodeCache;
+        this.snapshotLoader = snapshotLoader;
+    }
+
+    void setWatchHub(WatchHub watchHub) {
+        this.watchHub = watchHub;
+    }
+
+    /**
+     * Track the readiness of a cluster this controller manages, until {@link #releaseCluster}.
+     */
+    void trackCluster(String clusterId) {
+        clusters.computeIfAbsent(clusterId, ClusterReadiness::new);
+    }
+
+    // =================================================================
+    // QUERIES
+    // =================================================================
+
+    /**
+     * Whether the index is ready, or null if the cluster is not tracked yet (loading starts in the background).
+     */
+    Boolean isIndexReady(String clusterId, String indexName) {
+        ClusterReadiness cluster = tracked(clusterId);
+        if (cluster == null) {
+            return null;
+        }
+        cluster.ensureLoaded();
+        return cluster.isReady(indexName);
+    }
+
+    /**
+     * Completes with true as soon as the index is ready, or with false if it is not within the timeout.
+     * Fails if the cluster cannot be tracked, so callers can fall back to a one-off check.
+     */
+    CompletableFuture<Boolean> waitForIndexReady(String clusterId, String indexName, long timeoutMs) {
+        ClusterReadiness cluster = tracked(clusterId);
+        if (cluster == null) {
+            return CompletableFuture.failedFuture(
+                new IllegalStateException("Index readiness of cluster " + clusterId + " is not tracked"));
+        }
+        return cluster.ensureLoaded()
+            .thenCompose(ignored -> cluster.await(indexName, timeoutMs))
+            .completeOnTimeout(false, timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    void releaseCluster(String clusterId) {
+        ClusterReadiness cluster = clusters.remove(clusterId);
+        if (cluster != null) {
+            cluster.close();
+        }
+    }
+
+    void close() {
+        clusters.keySet().forEach(this::releaseCluster);
+    }
+
+    private ClusterReadiness tracked(String clusterId) {
+        return watchHub == null ? null : clusters.get(clusterId);
+    }
+
+    // =================================================================
+    // PER-CLUSTER STATE
+    // =================================================================
+
+    private record ShardRef(String indexName, int shardId) {
+    }
+
+    /**
+     * Ready copies per shard of one index, and how many of the config's shards have at least one.
+     */
+    private static class IndexReadiness {
+        // 0 while the index has no config
+        private int expectedShards;
+        private final Map<Integer, Integer> readyCopies = new HashMap<>();
+        // Shards below expectedShards with at least one ready copy
+        private int readyShards;
+
+        private boolean isReady() {
+            return expectedShards > 0 && readyShards == expectedShards;
+        }
+
+        private void setExpectedShards(int shards) {
+            expectedShards = Math.max(0, shards);
+            readyShards = (int) readyCopies.keySet().stream().filter(shardId -> shardId < expectedShards).count();
+        }
+
+        private void addCopy(int shardId) {
+            if (readyCopies.merge(shardId, 1, Integer::sum) == 1 && shardId < expectedShards) {
+                readyShards++;
+            }
+        }
+
+        private void removeCopy(int shardId) {
+            Integer copies = readyCopies.get(shardId);
+            if (copies == null) {
+                return;
+            }
+            if (copies > 1) {
+                readyCopies.put(shardId, copies - 1);
+                return;
+            }
+            readyCopies.remove(shardId);
+            if (shardId < expectedShards) {
+                readyShards--;
+            }
+        }
+    }
+
+    private class ClusterReadiness {
+        private final String clusterId;
+        private final String unitsPrefix;
+        private final String indicesPrefix;
+        private final Map<String, IndexReadiness> indices = new HashMap<>();
+        // unit name -> shards it holds a ready copy of
+        private final Map<String, Set<ShardRef>> readyByUnit = new HashMap<>();
+        // index name -> callers waiting for it to become ready; kept across reloads
+        private final Map<String, List<CompletableFuture<Boolean>>> waiters = new HashMap<>();
+        private final List<WatchHub.Subscription> subscriptions = new ArrayList<>();
+        // Events delivered while a load is in progress, replayed once it lands if newer than its snapshot
+        private final List<WatchEvent> eventsDuringLoad = new ArrayList<>();
+        private CompletableFuture<Void> loading;
+        private boolean loaded;
+        private boolean closed;
+        // Revision of the snapshot loaded last; events up to it are already part of the state
+        private long snapshotRevision;
+        private long revision;
+        private long lastLoadAttemptMs;
+
+        private ClusterReadiness(String clusterId) {
+            this.clusterId = clusterId;
+            this.unitsPrefix = pathResolver.getSearchUnitsPrefix(clusterId) + PATH_DELIMITER;
+            this.indicesPrefix = pathResolver.getIndicesPrefix(clusterId) + PATH_DELIMITER;
+        }
+
+        /**
+         * Start loading the cluster unless it is loaded or loading; failed loads are retried after a backoff.
+         * The watches are subscribed first, so changes made while the snapshot is read are not missed.
+         */
+        private synchronized CompletableFuture<Void> ensureLoaded() {
+            if (closed) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Cluster " + clusterId + " released"));
+            }
+            if (loaded || (loading != null && !loading.isDone())) {
+                return loading;
+            }
+            long now = System.currentTimeMillis();
+            if (loading != null && now - lastLoadAttemptMs < RELOAD_BACKOFF_MS) {
+                return loading;
+            }
+            lastLoadAttemptMs = now;
+            eventsDuringLoad.clear();
+            try {
+                if (subscriptions.isEmpty()) {
+                    subscribe();
+                }
+                loading = snapshotLoader.apply(clusterId).thenAccept(this::load);
+            } catch (Exception e) {
+                loading = CompletableFuture.failedFuture(e);
+            }
+            loading.exceptionally(error -> {
+                log.warn("Failed to load index readiness for cluster '{}': {}", clusterId, error.getMessage());
+                return null;
+            });
+            return loading;
+        }
+
+        private synchronized void load(ClusterSnapshot snapshot) {
+            if (closed) {
+                return;
+            }
+            indices.clear();
+            readyByUnit.clear();
+            snapshot.getIndexConfigs().forEach(this::applyIndexConfig);
+            snapshot.getActualStates().forEach(this::applyActualState);
+            snapshotRevision = snapshot.getRevision();
+            revision = snapshotRevision;
+            eventsDuringLoad.forEach(this::applyIfNewer);
+            eventsDuringLoad.clear();
+            loaded = true;
+            log.info("Tracking readiness of {} indices in cluster '{}' from revision {}", indices.size(), clusterId, revision);
+            completeReadyWaiters();
+        }
+
+        private synchronized Boolean isReady(String indexName) {
+            if (!loaded) {
+                return null;
+            }
+            IndexReadiness index = indices.get(indexName);
+            return index != null && index.isReady();
+        }
+
+        private synchronized CompletableFuture<Boolean> await(String indexName, long timeoutMs) {
+            if (Boolean.TRUE.equals(isReady(indexName))) {
+                return CompletableFuture.completedFuture(true);
+            }
+            CompletableFuture<Boolean> waiter = new CompletableFuture<Boolean>()
+                .completeOnTimeout(false, timeoutMs, TimeUnit.MILLISECONDS);
+            waiters.computeIfAbsent(indexName, k -> new ArrayList<>()).add(waiter);
+            waiter.whenComplete((ready, error) -> removeWaiter(indexName, waiter));
+            return waiter;
+        }
+
+        private synchronized void removeWaiter(String indexName, CompletableFuture<Boolean> waiter) {
+            List<CompletableFuture<Boolean>> indexWaiters = waiters.get(indexName);
+            if (indexWaiters != null && indexWaiters.remove(waiter) && indexWaiters.isEmpty()) {
+                waiters.remove(indexName);
+            }
+        }
+
+        private void completeReadyWaiters() {
+            List<CompletableFuture<Boolean>> ready = new ArrayList<>();
+            waiters.forEach((indexName, indexWaiters) -> {
+                IndexReadiness index = indices.get(indexName);
+                if (index != null && index.isReady()) {
+                    ready.addAll(indexWaiters);
+                }
+            });
+            // Completing removes the waiter from the map, so complete outside the iteration
+            ready.forEach(waiter -> waiter.complete(true));
+        }
+
+        // =================================================================
+        // UPDATES
+        // =================================================================
+
+        private void applyIndexConfig(String indexName, Index config) {
+            int shards = config != null && config.getSettings() != null && config.getSettings().getNumberOfShards() != null
+                ? config.getSettings().getNumberOfShards() : 0;
+            indices.computeIfAbsent(indexName, k -> new IndexReadiness()).setExpectedShards(shards);
+        }
+
+        /**
+         * Replace the ready copies a unit contributes with those of its new actual state (null: unit gone).
+         */
+        private void applyActualState(String unitName, SearchUnitActualState actualState) {
+            Set<ShardRef> now = readyShards(actualState);
+            Set<ShardRef> before = readyByUnit.getOrDefault(unitName, Set.of());
+            for (ShardRef shard : before) {
+                if (!now.contains(shard)) {
+                    indices.get(shard.indexName()).removeCopy(shard.shardId());
+                }
+            }
+            for (ShardRef shard : now) {
+                if (!before.contains(shard)) {
+                    indices.computeIfAbsent(shard.indexName(), k -> new IndexReadiness()).addCopy(shard.shardId());
+                }
+            }
+            if (now.isEmpty()) {
+                readyByUnit.remove(unitName);
+            } else {
+                readyByUnit.put(unitName, now);
+            }
+        }
+
+        private void subscribe() {
+            WatchHub.Listener listener = new WatchHub.Listener() {
+                @Override
+                public void onEvents(List<WatchEvent> events) {
+                    apply(events);
+                }
+
+                @Override
+                public void onResync() {
+                    resync();
+                }
+            };
+            WatchHub.Subscription units = watchHub.subscribePrefix("readiness-units-" + clusterId, unitsPrefix, listener);
+            try {
+                subscriptions.add(watchHub.subscribePrefix("readiness-indices-" + clusterId, indicesPrefix, listener));
+            } catch (RuntimeException e) {
+                units.close();
+                throw e;
+            }
+            subscriptions.add(units);
+        }
+
+        private synchronized void apply(List<WatchEvent> events) {
+            if (closed) {
+                return;
+            }
+            if (!loaded) {
+                if (loading != null && !loading.isDone()) {
+                    eventsDuringLoad.addAll(events);
+                }
+                return;
+            }
+            events.forEach(this::applyIfNewer);
+            completeReadyWaiters();
+        }
+
+        private void applyIfNewer(WatchEvent event) {
+            KeyValue kv = event.getKeyValue();
+            // Each key is under one watch, so events of a key arrive in order; across watches they need not
+            if (kv.getModRevision() <= snapshotRevision) {
+                return;
+            }
+            String key = kv.getKey().toString(UTF_8);
+            boolean deleted = event.getEventType() == WatchEvent.EventType.DELETE;
+            try {
+                if (key.startsWith(unitsPrefix)) {
+                    // <unit>/actual-state
+                    EtcdKeyBuilder.KeySegments parts = EtcdKeyBuilder.segments(key, unitsPrefix);
+                    if (parts.size() == 2 && parts.is(1, SUFFIX_ACTUAL_STATE)) {
+                        applyActualState(parts.get(0),
+                            deleted ? null : decodeCache.get().decode(kv, SearchUnitActualState.class));
+                    }
+                } else if (key.startsWith(indicesPrefix)) {
+                    // <index>/conf
+                    EtcdKeyBuilder.KeySegments parts = EtcdKeyBuilder.segments(key, indicesPrefix);
+                    if (parts.size() == 2 && parts.is(1, SUFFIX_CONF)) {
+                        applyIndexConfig(parts.get(0), deleted ? null : decodeCache.get().decode(kv, Index.class));
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("Failed to apply readiness update for key {}: {}", key, e.getMessage());
+            }
+            revision = Math.max(revision, kv.getModRevision());
+        }
+
+        /**
+         * Events may have been missed (e.g. the watch was compacted away); only a full reload restores consistency.
+         */
+        private synchronized void resync() {
+            if (closed) {
+                return;
+            }
+            log.info("Reloading index readiness of cluster '{}' after a watch resync", clusterId);
+            loaded = false;
+            lastLoadAttemptMs = 0;
+            ensureLoaded();
+        }
+
+        private synchronized void close() {
+            closed = true;
+            loaded = false;
+            eventsDuringLoad.clear();
+            subscriptions.forEach(WatchHub.Subscription::close);
+            subscriptions.clear();
+            List<CompletableFuture<Boolean>> pending = new ArrayList<>();
+            waiters.values().forEach(pending::addAll);
+            pending.forEach(waiter -> waiter.complete(false));
+        }
+    }
+
+    /**
+     * Shards the actual state holds a ready copy of: docs ingested and replicated.
+     */
+    private static Set<ShardRef> readyShards(SearchUnitActualState actualState) {
+        if (actualState == null || actualState.getStats() == null || actualState.getStats().getIndices() == null
+                || actualState.getStats().getIndices().getShards() == null) {
+            return Set.of();
+        }
+        Set<ShardRef> ready = new HashSet<>();
+        actualState.getStats().getIndices().getShards().forEach((indexName, shardMaps) -> {
+            if (shardMaps == null) {
+                return;
+            }
+            for (Map<String, SearchUnitActualState.ShardLevelStats> shardMap : shardMaps) {
+                if (shardMap == null) {
+                    continue;
+                }
+                for (String shardIdStr : shardMap.keySet()) {
+                    int shardId;
+                    try {
+                        shardId = Integer.parseInt(shardIdStr);
+                    } catch (NumberFormatException e) {
+                        continue;
+                    }
+                    if (actualState.getShardDocCount(indexName, shardId) > 0
+                            && actualState.isShardReplicated(indexName, shardId)) {
+                        ready.add(new ShardRef(indexName, shardId));
+                    }
+                }
+            }
+        });
+        return ready;
+    }
+}
@@ -0,0 +1,52 @@
+package io.clustercontroller.store;
+
+import io.clustercontroller.models.SearchUnitActualState;
+import io.clustercontroller.models.SearchUnitGoalState;
+import io.clustercontroller.models.ShardAllocation;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+/**
+ * WriteBatch for stores without multi-key transactions: applies each operation through the store's
+ * single-key methods, one at a time. Revision guards cannot be checked and are not enforced.
+ */
+@Slf4j
+public class SequentialWriteBatch extends WriteBatch {
+
+    private final MetadataStore store;
+
+    public SequentialWriteBatch(MetadataStore store) {
+        this.store = store;
+    }
+
+    @Override
+    protected WriteBatchResult commit(List<WriteOperation> operations) {
+        WriteBatchResult result = new WriteBatchResult();
+        for (WriteOperation operation : operations) {
+            try {
+                apply(operation);
+                result.record(operation, WriteBatchResult.Status.APPLIED);
+            } catch (Exception e) {
+                log.warn("Failed to apply {}: {}", operation, e.getMessage());
+                result.record(operation, WriteBatchResult.Status.FAILED);
+            }
+        }
+        return result;
+    }
+
+    private void apply(WriteOperation op) throws Exception {
+        switch (op.getType()) {
+            case PUT_SEARCH_UNIT_GOAL_STATE ->
+                store.setSearchUnitGoalState(op.getClusterId(), op.getName(), (SearchUnitGoalState) op.getValue());
+            case PUT_SEARCH_UNIT_ACTUAL_STATE ->
+                store.setSearchUnitActualState(op.getClusterId(), op.getName(), (SearchUnitActualState) op.getValue());
+            case PUT_PLANNED_ALLOCATION ->
+                store.setPlannedAllocation(op.getClusterId(), op.getName(), op.getShardId(), (ShardAllocation) op.getValue());
+            case PUT_ACTUAL_ALLOCATION ->
+                store.setActualAllocation(op.getClusterId(), op.getName(), op.getShardId(), (ShardAllocation) op.getValue());
+            case DELETE_ACTUAL_ALLOCATION ->
+                store.deleteActualAllocation(op.getClusterId(), op.getName(), op.getShardId());
+        }
+    }
+}
@@ -0,0 +1,897 @@
+package io.clustercontroller.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.clustercontroller.enums.ShardState;
+import io.clustercontroller.models.Alias;
+import io.clustercontroller.models.ClusterControllerAssignment;
+import io.clustercontroller.models.ClusterInformation;
+import io.clustercontroller.models.CoordinatorGoalState;
+import io.clustercontroller.models.Index;
+import io.clustercontroller.models.IndexSettings;
+import io.clustercontroller.models.SearchUnit;
+import io.clustercontroller.models.SearchUnitActualState;
+import io.clustercontroller.models.SearchUnitGoalState;
+import io.clustercontroller.models.ShardAllocation;
+import io.clustercontroller.models.TaskMetadata;
+import io.clustercontroller.models.Template;
+import io.clustercontroller.models.TypeMapping;
+import io.clustercontroller.tracing.PassTracer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.UnaryOperator;
+
+import static io.clustercontroller.config.Constants.STALE_HEARTBEAT_TIMEOUT_MS;
+
+/**
+ * Pass-scoped MetadataStore view that serves one cluster's reads from a {@link ClusterSnapshot}
+ * overlaid with the writes made through this view, so a reconcile pass sees one consistent revision
+ * plus its own changes. Writes always go to the delegate first; every other operation delegates.
+ * <p>
+ * Reads return copies so callers can mutate results freely, exactly as with objects freshly read from etcd.
+ * Writes the snapshot cannot track (index config changes, prefix deletes) make the view fall back to the delegate.
+ * Not thread-safe: create one per pass with {@link #forPass(MetadataStore, String)}, or one per reconcile cycle
+ * with {@link #share(MetadataStore, String)}.
+ */
+@Slf4j
+public class SnapshotMetadataStore implements MetadataStore {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    // Hand-written deep copies for the values every pass reads; other types take a Jackson round trip
+    private static final Map<Class<?>, UnaryOperator<?>> COPIERS = Map.of(
+        SearchUnitActualState.class, (UnaryOperator<SearchUnitActualState>) DecodeCache::copyActualState,
+        SearchUnitGoalState.class, (UnaryOperator<SearchUnitGoalState>) DecodeCache::copyGoalState,
+        ShardAllocation.class, (UnaryOperator<ShardAllocation>) SnapshotMetadataStore::copyAllocation
+    );
+
+    // Open shared passes by cluster; passes over a cluster never overlap
+    private static final ConcurrentMap<String, SharedPass> SHARED_PASSES = new ConcurrentHashMap<>();
+
+    private final MetadataStore delegate;
+    private final String clusterId;
+    private final long revision;
+    private final ClusterSnapshot snapshot;
+
+    // Snapshot contents plus writes made through this view during the pass
+    private final Map<String, SearchUnit> searchUnits;
+    private final Map<String, SearchUnitActualState> actualStates;
+    private final Map<String, SearchUnitGoalState> goalStates;
+    // Goal-state revisions known to match goalStates; a unit with a goal state but no entry reads through
+    private final Map<String, Long> goalStateRevisions;
+    private final Map<String, Index> indexConfigs;
+    private final Map<String, Map<String, ShardAllocation>> plannedAllocations;
+    private final Map<String, Map<String, ShardAllocation>> actualAllocations;
+    private final Map<String, Alias> aliases;
+    private boolean invalidated = false;
+
+    public SnapshotMetadataStore(MetadataStore delegate, ClusterSnapshot snapshot) {
+        this.delegate = delegate;
+        this.clusterId = snapshot.getClusterId();
+        this.revision = snapshot.getRevision();
+        this.snapshot = snapshot;
+        this.searchUnits = new LinkedHashMap<>(snapshot.getSearchUnits());
+        this.actualStates = new LinkedHashMap<>(snapshot.getActualStates());
+        this.goalStates = new LinkedHashMap<>(snapshot.getGoalStates());
+        this.goalStateRevisions = new HashMap<>(snapshot.getGoalStateRevisions());
+        this.indexConfigs = new LinkedHashMap<>(snapshot.getIndexConfigs());
+        this.plannedAllocations = mutableNested(snapshot.getPlannedAllocations());
+        this.actualAllocations = mutableNested(snapshot.getActualAllocations());
+        this.aliases = new LinkedHashMap<>(snapshot.getAliases());
+    }
+
+    /**
+     * Get a store for one reconcile pass over a cluster: the cycle's shared store if one is open on this thread,
+     * else a snapshot-backed view when the store can load a snapshot, otherwise the store itself so the pass
+     * reads directly as before.
+     */
+    public static MetadataStore forPass(MetadataStore store, String clusterId) {
+        SharedPass shared = SHARED_PASSES.get(clusterId);
+        if (shared != null && shared.delegate == store && shared.owner == Thread.currentThread()) {
+            return shared.store;
+        }
+        return load(store, clusterId);
+    }
+
+    private static MetadataStore load(MetadataStore store, String clusterId) {
+        try (PassTracer.Span span = PassTracer.span(PassTracer.KIND_PHASE, "load-snapshot")) {
+            ClusterSnapshot snapshot = store.loadClusterSnapshot(clusterId);
+            if (snapshot == null) {
+                return store;
+            }
+            PassTracer.tag("revision", snapshot.getRevision());
+            log.debug("Loaded snapshot for cluster '{}' at revision {}", clusterId, snapshot.getRevision());
+            return new SnapshotMetadataStore(store, snapshot);
+        } catch (Exception e) {
+            log.warn("Failed to load snapshot for cluster '{}', reading metadata directly: {}", clusterId, e.getMessage());
+            return store;
+        }
+    }
+
+    /**
+     * Open one pass-scoped store that every {@link #forPass(MetadataStore, String)} for the cluster on this thread
+     * returns until it is closed, so the stages of a reconcile cycle share one snapshot and see each other's writes.
+     * Opened again while open on this thread, it returns the open store and closing the inner handle keeps it open.
+     */
+    public static SharedPass share(MetadataStore store, String clusterId) {
+        SharedPass current = SHARED_PASSES.get(clusterId);
+        if (current != null && current.delegate == store && current.owner == Thread.currentThread()) {
+            return new SharedPass(store, clusterId, current.store, current.owner, false);
+        }
+        SharedPass shared = new SharedPass(store, clusterId, load(store, clusterId), Thread.currentThread(), true);
+        SHARED_PASSES.put(clusterId, shared);
+        return shared;
+    }
+
+    /**
+     * Revision of the snapshot backing this view.
+     */
+    public long getRevision() {
+        return revision;
+    }
+
+    /**
+     * Exact state of the given parts of the view, including the writes made through it; equal fingerprints mean
+     * the parts are unchanged. Empty once the view reads through, as its contents are no longer complete.
+     */
+    public Optional<Fingerprint> fingerprint(Set<Section> sections) {
+        if (invalidated) {
+            return Optional.empty();
+        }
+        Map<Section, Map<String, Object>> tokens = new EnumMap<>(Section.class);
+        for (Section section : sections) {
+            tokens.put(section, sectionTokens(section));
+        }
+        return Optional.of(new Fingerprint(tokens));
+    }
+
+    private Map<String, Object> sectionTokens(Section section) {
+        Map<String, Object> tokens = new HashMap<>();
+        switch (section) {
+            case SEARCH_UNITS -> searchUnits.forEach((unitName, unit) ->
+                putToken(tokens, section, unitName, unit, snapshot.getSearchUnits().get(unitName)));
+            case SHARD_ROUTING -> {
+                // Heartbeats rewrite the key every report, so its revision says nothing; compare the routing itself
+                // and whether the unit is live
+                long now = System.currentTimeMillis();
+                actualStates.forEach((unitName, state) -> tokens.put(unitName, new RoutingToken(state.getNodeRouting(),
+                    now - state.getTimestamp() <= STALE_HEARTBEAT_TIMEOUT_MS)));
+            }
+            case GOAL_STATES -> goalStates.forEach((unitName, goalState) -> {
+                Long modRevision = goalStateRevisions.get(unitName);
+                tokens.put(unitName, modRevision != null ? modRevision : goalState.getLocalShards());
+            });
+            case INDEX_CONFIGS -> indexConfigs.forEach((indexName, index) ->
+                putToken(tokens, section, indexName, index, snapshot.getIndexConfigs().get(indexName)));
+            case PLANNED_ALLOCATIONS -> plannedAllocations.forEach((indexName, byShard) -> byShard.forEach((shardId, allocation) ->
+                putToken(tokens, section, ClusterSnapshot.shardName(indexName, shardId), allocation,
+                    snapshot.getPlannedAllocation(indexName, shardId))));
+            case ACTUAL_ALLOCATIONS -> actualAllocations.forEach((indexName, byShard) -> byShard.forEach((shardId, allocation) ->
+                putToken(tokens, section, ClusterSnapshot.shardName(indexName, shardId), allocation,
+                    snapshot.getActualAllocation(indexName, shardId))));
+        }
+        return tokens;
+    }
+
+    // The revision an entry was loaded at while the view still holds the loaded value, otherwise the value itself:
+    // writes through the view replace values with copies, so a written entry is compared by content
+    private void putToken(Map<String, Object> tokens, Section section, String name, Object value, Object loaded) {
+        Long modRevision = value == loaded ? snapshot.getModRevision(section, name) : null;
+        tokens.put(name, modRevision != null ? modRevision : value);
+    }
+
+    /**
+     * How far the cluster is from its plan: shards whose actual allocation has other nodes than the planned one, and
+     * shards in a live unit's goal state that its actual state does not report STARTED yet (a rollout in flight).
+     * Empty once the view reads through, as its contents are no longer complete.
+     */
+    public Optional<Convergence> convergence() {
+        if (invalidated) {
+            return Optional.empty();
+        }
+        int divergentShards = 0;
+        for (Map.Entry<String, Map<String, ShardAllocation>> index : plannedAllocations.entrySet()) {
+            Map<String, ShardAllocation> actualByShard = actualAllocations.getOrDefault(index.getKey(), Map.of());
+            for (Map.Entry<String, ShardAllocation> shard : index.getValue().entrySet()) {
+                if (!sameNodes(shard.getValue(), actualByShard.get(shard.getKey()))) {
+                    divergentShards++;
+                }
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        int shardsInFlight = 0;
+        for (Map.Entry<String, SearchUnitGoalState> entry : goalStates.entrySet()) {
+            SearchUnitActualState actual = actualStates.get(entry.getKey());
+            if (actual == null || now - actual.getTimestamp() > STALE_HEARTBEAT_TIMEOUT_MS) {
+                // Not converging until it heartbeats again; the allocator moves its shards away meanwhile
+                continue;
+            }
+            Map<String, List<SearchUnitActualState.ShardRoutingInfo>> routing =
+                actual.getNodeRouting() != null ? actual.getNodeRouting() : Map.of();
+            for (Map.Entry<String, Map<String, String>> index : entry.getValue().getLocalShards().entrySet()) {
+                List<SearchUnitActualState.ShardRoutingInfo> started = routing.getOrDefault(index.getKey(), List.of());
+                for (String shardId : index.getValue().keySet()) {
+                    boolean isStarted = started.stream().anyMatch(info ->
+                        String.valueOf(info.getShardId()).equals(shardId) && ShardState.STARTED.equals(info.getState()));
+                    if (!isStarted) {
+                        shardsInFlight++;
+                    }
+                }
+            }
+        }
+        return Optional.of(new Convergence(divergentShards, shardsInFlight));
+    }
+
+    private static boolean sameNodes(ShardAllocation planned, ShardAllocation actual) {
+        if (actual == null) {
+            return nodes(planned.getIngestSUs()).isEmpty() && nodes(planned.getSearchSUs()).isEmpty();
+        }
+        return nodes(planned.getIngestSUs()).equals(nodes(actual.getIngestSUs()))
+            && nodes(planned.getSearchSUs()).equals(nodes(actual.getSearchSUs()));
+    }
+
+    private static Set<String> nodes(List<String> units) {
+        return units != null ? new HashSet<>(units) : Set.of();
+    }
+
+    /**
+     * See {@link #convergence()}.
+     */
+    public record Convergence(int divergentShards, int shardsInFlight) {
+        public boolean converged() {
+            return divergentShards == 0 && shardsInFlight == 0;
+        }
+    }
+
+    /**
+     * Exact state of some parts of a view, see {@link #fingerprint(Set)}: per section, each entry's revision, or
+     * its value where the revision is not known or the entry was written through the view.
+     */
+    public record Fingerprint(Map<Section, Map<String, Object>> sections) {
+    }
+
+    private record RoutingToken(Map<String, List<SearchUnitActualState.ShardRoutingInfo>> routing, boolean live) {
+    }
+
+    /**
+     * Parts of a cluster's state a reconcile stage can depend on, see {@link #fingerprint(Set)}.
+     */
+    public enum Section {
+        SEARCH_UNITS,
+        /** actual states' shard routing and heartbeat liveness */
+        SHARD_ROUTING,
+        GOAL_STATES,
+        INDEX_CONFIGS,
+        PLANNED_ALLOCATIONS,
+        ACTUAL_ALLOCATIONS
+    }
+
+    /**
+     * Store shared by the passes over a cluster made on the opening thread, see {@link #share(MetadataStore, String)}.
+     */
+    public static final class SharedPass implements AutoCloseable {
+        private final MetadataStore delegate;
+        private final String clusterId;
+        private final MetadataStore store;
+        private final Thread owner;
+        // Whether closing this handle ends the sharing; false for a handle on an already open pass
+        private final boolean outermost;
+
+        private SharedPass(MetadataStore delegate, String clusterId, MetadataStore store, Thread owner, boolean outermost) {
+            this.delegate = delegate;
+            this.clusterId = clusterId;
+            this.store = store;
+            this.owner = owner;
+            this.outermost = outermost;
+        }
+
+        /**
+         * The shared store: a snapshot view, or the store itself when no snapshot could be loaded.
+         */
+        public MetadataStore getStore() {
+            return store;
+        }
+
+        /**
+         * The shared snapshot view, if a snapshot could be loaded.
+         */
+        public Optional<SnapshotMetadataStore> getSnapshot() {
+            return store instanceof SnapshotMetadataStore snapshot ? Optional.of(snapshot) : Optional.empty();
+        }
+
+        @Override
+        public void close() {
+            if (outermost) {
+                SHARED_PASSES.remove(clusterId, this);
+            }
+        }
+    }
+
+    private static Map<String, Map<String, ShardAllocation>> mutableNested(Map<String, Map<String, ShardAllocation>> byIndex) {
+        Map<String, Map<String, ShardAllocation>> result = new LinkedHashMap<>();
+        byIndex.forEach((indexName, byShard) -> result.put(indexName, new LinkedHashMap<>(byShard)));
+        return result;
+    }
+
+    private boolean serves(String clusterId) {
+        return !invalidated && this.clusterId.equals(clusterId);
+    }
+
+    private void invalidate(String clusterId) {
+        if (this.clusterId.equals(clusterId) && !invalidated) {
+            log.debug("Snapshot view for cluster '{}' invalidated by an untracked write, reading through", clusterId);
+            invalidated = true;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T copy(T value, Class<T> clazz) {
+        if (value == null) {
+            return null;
+        }
+        UnaryOperator<T> copier = (UnaryOperator<T>) COPIERS.get(clazz);
+        return copier != null ? copier.apply(value) : OBJECT_MAPPER.convertValue(value, clazz);
+    }
+
+    private static ShardAllocation copyAllocation(ShardAllocation source) {
+        ShardAllocation copy = new ShardAllocation();
+        copy.setShardId(source.getShardId());
+        copy.setIndexName(source.getIndexName());
+        copy.setIngestSUs(new ArrayList<>(source.getIngestSUs()));
+        copy.setSearchSUs(new ArrayList<>(source.getSearchSUs()));
+        copy.setAllocationTimestamp(source.getAllocationTimestamp());
+        return copy;
+    }
+
+    private static <T> List<T> copyAll(Iterable<T> values, Class<T> clazz) {
+        List<T> copies = new ArrayList<>();
+        for (T value : values) {
+            copies.add(copy(value, clazz));
+        }
+        return copies;
+    }
+
+    // =================================================================
+    // SNAPSHOT OPERATIONS
+    // =================================================================
+
+    @Override
+    public ClusterSnapshot loadClusterSnapshot(String clusterId) throws Exception {
+        return delegate.loadClusterSnapshot(clusterId);
+    }
+
+    /**
+     * Commits through the delegate's batch, then applies the operations that were written to this view.
+     */
+    @Override
+    public WriteBatch newWriteBatch() {
+        return new WriteBatch() {
+            @Override
+            protected WriteBatchResult commit(List<WriteOperation> operations) throws Exception {
+                WriteBatch batch = delegate.newWriteBatch();
+                operations.forEach(batch::add);
+                WriteBatchResult result = batch.commit();
+                for (WriteOperation operation : result.getOperations(WriteBatchResult.Status.APPLIED)) {
+                    if (serves(operation.getClusterId())) {
+                        applyWritten(operation);
+                    }
+                }
+                return result;
+            }
+        };
+    }
+
+    private void applyWritten(WriteOperation op) {
+        switch (op.getType()) {
+            case PUT_SEARCH_UNIT_GOAL_STATE -> {
+                goalStates.put(op.getName(), copy((SearchUnitGoalState) op.getValue(), SearchUnitGoalState.class));
+                goalStateRevisions.remove(op.getName());
+            }
+            case PUT_SEARCH_UNIT_ACTUAL_STATE ->
+                actualStates.put(op.getName(), copy((SearchUnitActualState) op.getValue(), SearchUnitActualState.class));
+            case PUT_PLANNED_ALLOCATION -> plannedAllocations.computeIfAbsent(op.getName(), k -> new LinkedHashMap<>())
+                    .put(op.getShardId(), copy((ShardAllocation) op.getValue(), ShardAllocation.class));
+            case PUT_ACTUAL_ALLOCATION -> actualAllocations.computeIfAbsent(op.getName(), k -> new LinkedHashMap<>())
+                    .put(op.getShardId(), copy((ShardAllocation) op.getValue(), ShardAllocation.class));
+            case DELETE_ACTUAL_ALLOCATION -> removeActualAllocation(op.getName(), op.getShardId());
+        }
+    }
+
+    private void removeActualAllocation(String indexName, String shardId) {
+        Map<String, ShardAllocation> byShard = actualAllocations.get(indexName);
+        if (byShard != null) {
+            byShard.remove(shardId);
+            if (byShard.isEmpty()) {
+                actualAllocations.remove(indexName);
+            }
+        }
+    }
+
+    // =================================================================
+    // CONTROLLER TASKS OPERATIONS
+    // =================================================================
+
+    @Override
+    public List<TaskMetadata> getAllTasks(String clusterId) throws Exception {
+        return delegate.getAllTasks(clusterId);
+    }
+
+    @Override
+    public Optional<TaskMetadata> getTask(String clusterId, String taskName) throws Exception {
+        return delegate.getTask(clusterId, taskName);
+    }
+
+    @Override
+    public Versioned<TaskMetadata> getTaskVersioned(String clusterId, String taskName) throws Exception {
+        return delegate.getTaskVersioned(clusterId, taskName);
+    }
+
+    @Override
+    public String createTask(String clusterId, TaskMetadata task) throws Exception {
+        return delegate.createTask(clusterId, task);
+    }
+
+    @Override
+    public void updateTask(String clusterId, TaskMetadata task) throws Exception {
+        delegate.updateTask(clusterId, task);
+    }
+
+    @Override
+    public Versioned<TaskMetadata> updateTask(String clusterId, TaskMetadata task, long expectedRevision) throws Exception {
+        return delegate.updateTask(clusterId, task, expectedRevision);
+    }
+
+    @Override
+    public void deleteTask(String clusterId, String taskName) throws Exception {
+        delegate.deleteTask(clusterId, taskName);
+    }
+
+    @Override
+    public int deleteOldTasks(String clusterId, long olderThanTimestamp, boolean archive) throws Exception {
+        return delegate.deleteOldTasks(clusterId, olderThanTimestamp, archive);
+    }
+
+    @Override
+    public boolean claimTask(String clusterId, String taskName, String owner, long leaseId) throws Exception {
+        return delegate.claimTask(clusterId, taskName, owner, leaseId);
+    }
+
+    @Override
+    public void releaseTaskClaim(String clusterId, String taskName) throws Exception {
+        delegate.releaseTaskClaim(clusterId, taskName);
+    }
+
+    @Override
+    public boolean isTaskClaimed(String clusterId, String taskName) throws Exception {
+        return delegate.isTaskClaimed(clusterId, taskName);
+    }
+
+    // =================================================================
+    // SEARCH UNITS OPERATIONS
+    // =================================================================
+
+    @Override
+    public List<SearchUnit> getAllSearchUnits(String clusterId) throws Exception {
+        if (!serves(clusterId)) {
+            return delegate.getAllSearchUnits(clusterId);
+        }
+        return copyAll(searchUnits.values(), SearchUnit.class);
+    }
+
+    @Override
+    public Optional<SearchUnit> getSearchUnit(String clusterId, String unitName) throws Exception {
+        if (!serves(clusterId)) {
+            return delegate.getSearchUnit(clusterId, unitName);
+        }
+        return Optional.ofNullable(copy(searchUnits.get(unitName), SearchUnit.class));
+    }
+
+    @Override
+    public void upsertSearchUnit(String clusterId, String unitName, SearchUnit searchUnit) throws Exception {
+        delegate.upsertSearchUnit(clusterId, unitName, searchUnit);
+        if (serves(clusterId)) {
+            searchUnits.put(unitName, copy(searchUnit, SearchUnit.class));
+        }
+    }
+
+    @Override
+    public void updateSearchUnit(String clusterId, SearchUnit searchUnit) throws Exception {
+        delegate.updateSearchUnit(clusterId, searchUnit);
+        if (serves(clusterId)) {
+            searchUnits.put(searchUnit.getName(), copy(searchUnit, SearchUnit.class));
+        }
+    }
+
+    @Override
+    public void deleteSearchUnit(String clusterId, String unitName) throws Exception {
+        delegate.deleteSearchUnit(clusterId, unitName);
+        if (serves(clusterId)) {
+            searchUnits.remove(unitName);
+            actualStates.remove(unitName);
+            goalStates.remove(unitName);
+            goalStateRevisions.remove(unitName);
+        }
+    }
+
+    // =================================================================
+    // SEARCH UNIT STATE OPERATIONS
+    // =================================================================
+
+    @Override
+    public Map<String, SearchUnitActualState> getAllSearchUnitActualStates(String clusterId) throws Exception {
+        if (!serves(clusterId)) {
+            return delegate.getAllSearchUnitActualStates(clusterId);
+        }
+        Map<String, SearchUnitActualState> result = new HashMap<>();
+        actualStates.forEach((unitName, state) -> result.put(unitName, copy(state, SearchUnitActualState.class)));
+        return result;
+    }
+
+    @Override
+    public SearchUnitGoalState getSearchUnitGoalState(String clusterId, String unitName) throws Exception {
+        if (!serves(clusterId)) {
+            return delegate.getSearchUnitGoalState(clusterId, unitName);
+        }
+        return copy(goalStates.get(unitName), SearchUnitGoalState.class);
+    }
+
+    @Override
+    public Versioned<SearchUnitGoalState> getSearchUnitGoalStateVersioned(String clusterId, String unitName) throws Exception {
+        if (!serves(clusterId)) {
+            return delegate.getSearchUnitGoalStateVersioned(clusterId, unitName);
+        }
+        SearchUnitGoalState goalState = goalStates.get(unitName);
+        if (goalState == null) {
+            return Versioned.absent();
+        }
+        Long modRevision = goalStateRevisions.get(unitName);
+        if (modRevision == null) {
+            return delegate.getSearchUnitGoalStateVersioned(clusterId, unitName);
+        }
+        return Versioned.of(copy(goalState, SearchUnitGoalState.class), modRevision);
+    }
+
+    @Override
+    public List<String> getAllNodesWithGoalStates(String clusterId) throws Exception {
+        if (!serves(clusterId)) {
+            return delegate.getAllNodesWithGoalStates(clusterId);
+        }
+        return new ArrayList<>(goalStates.keySet());
+    }
+
+    @Override
+    public SearchUnitActualState getSearchUnitActualState(String clusterId, String unitName) throws Exception {
+        if (!serves(clusterId)) {
+            return delegate.getSearchUnitActualState(clusterId, unitName);
+        }
+        return copy(actualStates.get(unitName), SearchUnitActualState.class);
+    }
+
+    @Override
+    public void setSearchUnitGoalState(String clusterId, String unitName, SearchUnitGoalState goalState) throws Exception {
+        delegate.setSearchUnitGoalState(clusterId, unitName, goalState);
+        if (serves(clusterId)) {
+            goalStates.put(unitName, copy(goalState, SearchUnitGoalState.class));
+            goalStateRevisions.remove(unitName);
+        }
+    }
+
+    @Override
+    public Versioned<SearchUnitGoalState> setSearchUnitGoalState(String clusterId, String unitName, SearchUnitGoalState goalState,
+                                                                 long expectedRevision) throws Exception {
+        try {
+            Versioned<SearchUnitGoalState> written = delegate.setSearchUnitGoalState(clusterId, unitName, goalState, expectedRevision);
+            trackGoalState(clusterId, unitName, written);
+            return written;
+        } catch (VersionConflictException e) {
+            // The conflict carries the current goal state, so the next read in this pass need not go to the store
+            trackGoalState(clusterId, unitName, e.getCurrent());
+            throw e;
+        }
+    }
+
+    private void trackGoalState(String clusterId, String unitName, Versioned<SearchUnitGoalState> versioned) {
+        if (!serves(clusterId) || versioned == null) {
+            return;
+        }
+        if (versioned.isPresent()) {
+            goalStates.put(unitName, copy(versioned.getValue(), SearchUnitGoalState.class));
+            goalStateRevisions.put(unitName, versioned.getModRevision());
+        } else {
+            goalStates.remove(unitName);
+            goalStateRevisions.remove(unitName);
+        }
+    }
+
+    @Override
+    public void setSearchUnitActualState(String clusterId, String unitName, SearchUnitActualState actualState) throws Exception {
+        delegate.setSearchUnitActualState(clusterId, unitName, actualState);
+        if (serves(clusterId)) {
+            actualStates.put(unitName, copy(actualState, SearchUnitActualState.class));
+        }
+    }
+
+    @Override
+    public List<SearchUnit> getAllCoordinators(String clusterId) throws Exception {
+        return delegate.getAllCoordinators(clusterId);
+    }
+
+    // =================================================================
+    // INDEX CONFIGURATIONS OPERATIONS
+    // =================================================================
+
+    @Override
+    public List<Index> getAllIndexConfigs(String clusterId) throws Exception {
+        if (!serves(clusterId)) {
+            return delegate.getAllIndexConfigs(clusterId);
+        }
+        return copyAll(indexConfigs.values(), Index.class);
+    }
+
+    @Override
+    public Optional<String> getIndexConfig(String clusterId, String indexName) throws Exception {
+        return delegate.getIndexConfig(clusterId, indexName);
+    }
+
+    @Override
+    public String createIndexConfig(String clusterId, String indexName, String indexConfig) throws Exception {
+        invalidate(clusterId);
+        return delegate.createIndexConfig(clusterId, indexName, indexConfig);
+    }
+
+    @Override
+    public void updateIndexConfig(String clusterId, String indexName, String indexConfig) throws Exception {
+        invalidate(clusterId);
+        delegate.updateIndexConfig(clusterId, indexName, indexConfig);
+    }
+
+    @Override
+    public void deleteIndexConfig(String clusterId, String indexName) throws Exception {
+        invalidate(clusterId);
+        delegate.deleteIndexConfig(clusterId, indexName);
+    }
+
+    @Override
+    public void setIndexMappings(String clusterId, String indexName, String mappings) throws Exception {
+        delegate.setIndexMappings(clusterId, indexName, mappings);
+    }
+
+    @Override
+    public IndexSettings getIndexSettings(String clusterId, String indexName) throws Exception {
+        return delegate.getIndexSettings(clusterId, indexName);
+    }
+
+    @Override
+    public void setIndexSettings(String clusterId, String indexName, String settings) throws Exception {
+        delegate.setIndexSettings(clusterId, indexName, settings);
+    }
+
+    @Override
+    public TypeMapping getIndexMappings(String clusterId, String indexName) throws Exception {
+        return delegate.getIndexMappings(clusterId, indexName);
+    }
+
+    @Override
+    public void deletePrefix(String clusterId, String prefix) throws Exception {
+        invalidate(clusterId);
+        delegate.deletePrefix(clusterId, prefix);
+    }
+
+    // =================================================================
+    // TEMPLATE OPERATIONS
+    // =================================================================
+
+    @Override
+    public Template getTemplate(String clusterId, String templateName) throws Exception {
+        return delegate.getTemplate(clusterId, templateName);
+    }
+
+    @Override
+    public String createTemplate(String clusterId, String templateName, String templateConfig) throws Exception {
+        return delegate.createTemplate(clusterId, templateName, templateConfig);
+    }
+
+    @Override
+    public void updateTemplate(String clusterId, String templateName, String templateConfig) throws Exception {
+        delegate.updateTemplate(clusterId, templateName, templateConfig);
+    }
+
+    @Override
+    public void deleteTemplate(String clusterId, String templateName) throws Exception {
+        delegate.deleteTemplate(clusterId, templateName);
+    }
+
+    @Override
+    public List<Template> getAllTemplates(String clusterId) throws Exception {
+        return delegate.getAllTemplates(clusterId);
+    }
+
+    // =================================================================
+    // SHARD ALLOCATION OPERATIONS
+    // =================================================================
+
+    @Override
+    public ShardAllocation getPlannedAllocation(String clusterId, String indexName, String shardId) throws Exception {
+        if (!serves(clusterId)) {
+            return delegate.getPlannedAllocation(clusterId, indexName, shardId);
+        }
+        return copy(plannedAllocations.getOrDefault(indexName, Map.of()).get(shardId), ShardAllocation.class);
+    }
+
+    @Override
+    public void setPlannedAllocation(String clusterId, String indexName, String shardId, ShardAllocation allocation) throws Exception {
+        delegate.setPlannedAllocation(clusterId, indexName, shardId, allocation);
+        if (serves(clusterId)) {
+            plannedAllocations.computeIfAbsent(indexName, k -> new LinkedHashMap<>())
+                    .put(shardId, copy(allocation, ShardAllocation.class));
+        }
+    }
+
+    @Override
+    public ShardAllocation getActualAllocation(String clusterId, String indexName, String shardId) throws Exception {
+        if (!serves(clusterId)) {
+            return delegate.getActualAllocation(clusterId, indexName, shardId);
+        }
+        return copy(actualAllocations.getOrDefault(indexName, Map.of()).get(shardId), ShardAllocation.class);
+    }
+
+    @Override
+    public void setActualAllocation(String clusterId, String indexName, String shardId, ShardAllocation allocation) throws Exception {
+        delegate.setActualAllocation(clusterId, indexName, shardId, allocation);
+        if (serves(clusterId)) {
+            actualAllocations.computeIfAbsent(indexName, k -> new LinkedHashMap<>())
+                    .put(shardId, copy(allocation, ShardAllocation.class));
+        }
+    }
+
+    @Override
+    public List<ShardAllocation> getAllActualAllocations(String clusterId, String indexName) throws Exception {
+        if (!serves(clusterId)) {
+            return delegate.getAllActualAllocations(clusterId, indexName);
+        }
+        return copyAll(actualAllocations.getOrDefault(indexName, Map.of()).values(), ShardAllocation.class);
+    }
+
+    @Override
+    public void deleteActualAllocation(String clusterId, String indexName, String shardId) throws Exception {
+        delegate.deleteActualAllocation(clusterId, indexName, shardId);
+        if (serves(clusterId)) {
+            removeActualAllocation(indexName, shardId);
+        }
+    }
+
+    @Override
+    public Set<String> getAllIndicesWithActualAllocations(String clusterId) throws Exception {
+        if (!serves(clusterId)) {
+            return delegate.getAllIndicesWithActualAllocations(clusterId);
+        }
+        return new HashSet<>(actualAllocations.keySet());
+    }
+
+    // =================================================================
+    // ALIAS CONFIGURATION OPERATIONS
+    // =================================================================
+
+    @Override
+    public Alias getAlias(String clusterId, String aliasName) throws Exception {
+        if (!serves(clusterId)) {
+            return delegate.getAlias(clusterId, aliasName);
+        }
+        return copy(aliases.get(aliasName), Alias.class);
+    }
+
+    @Override
+    public void setAlias(String clusterId, String aliasName, Alias alias) throws Exception {
+        delegate.setAlias(clusterId, aliasName, alias);
+        if (serves(clusterId)) {
+            aliases.put(aliasName, copy(alias, Alias.class));
+        }
+    }
+
+    @Override
+    public void deleteAlias(String clusterId, String aliasName) throws Exception {
+        delegate.deleteAlias(clusterId, aliasName);
+        if (serves(clusterId)) {
+            aliases.remove(aliasName);
+        }
+    }
+
+    @Override
+    public List<Alias> getAllAliases(String clusterId) throws Exception {
+        if (!serves(clusterId)) {
+            return delegate.getAllAliases(clusterId);
+        }
+        return copyAll(aliases.values(), Alias.class);
+    }
+
+    // =================================================================
+    // INDEX READINESS OPERATIONS
+    // =================================================================
+
+    @Override
+    public boolean isIndexReady(String clusterId, String indexName) throws Exception {
+        return delegate.isIndexReady(clusterId, indexName);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> waitForIndexReady(String clusterId, String indexName, long timeoutMs) {
+        return delegate.waitForIndexReady(clusterId, indexName, timeoutMs);
+    }
+
+    // =================================================================
+    // CLUSTER OPERATIONS
+    // =================================================================
+
+    @Override
+    public void initialize() throws Exception {
+        delegate.initialize();
+    }
+
+    /**
+     * No-op: the view only lives for one pass and does not own the delegate.
+     */
+    @Override
+    public void close() throws Exception {
+    }
+
+    @Override
+    public void manageCluster(String clusterId) {
+        delegate.manageCluster(clusterId);
+    }
+
+    @Override
+    public void releaseCluster(String clusterId) {
+        delegate.releaseCluster(clusterId);
+    }
+
+    @Override
+    public StoreStats stats() {
+        return delegate.stats();
+    }
+
+    @Override
+    public PassDeadline startPassDeadline(String clusterId) {
+        return delegate.startPassDeadline(clusterId);
+    }
+
+    @Override
+    public boolean isLeader() {
+        return delegate.isLeader();
+    }
+
+    @Override
+    public ClusterControllerAssignment getAssignedController(String clusterId) throws Exception {
+        return delegate.getAssignedController(clusterId);
+    }
+
+    @Override
+    public void setCoordinatorGoalState(String clusterId, CoordinatorGoalState goalState) throws Exception {
+        delegate.setCoordinatorGoalState(clusterId, goalState);
+    }
+
+    @Override
+    public CoordinatorGoalState getCoordinatorGoalState(String clusterId) throws Exception {
+        return delegate.getCoordinatorGoalState(clusterId);
+    }
+
+    @Override
+    public ClusterInformation.Version getClusterVersion(String clusterId) throws Exception {
+        return delegate.getClusterVersion(clusterId);
+    }
+}
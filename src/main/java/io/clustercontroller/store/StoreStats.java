@@ -0,0 +1,112 @@
+package io.clustercontroller.store;
+
+import io.etcd.jetcd.ByteSequence;
+import io.etcd.jetcd.KeyValue;
+import io.etcd.jetcd.kv.GetResponse;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cumulative etcd traffic per cluster: requests, keys and bytes read, bytes written, CAS conflicts and timeouts.
+ * Recorded by the etcd store where requests are issued; {@link InstrumentedMetadataStore} turns it into
+ * metrics and per-pass summaries.
+ */
+public class StoreStats {
+
+    private final ConcurrentMap<String, Counters> clusters = new ConcurrentHashMap<>();
+
+    /**
+     * Totals of one cluster at a point in time.
+     */
+    public record Totals(long requests, long keysRead, long bytesRead, long bytesWritten, long casConflicts, long timeouts) {
+
+        public static final Totals ZERO = new Totals(0, 0, 0, 0, 0, 0);
+
+        public Totals minus(Totals earlier) {
+            return new Totals(requests - earlier.requests, keysRead - earlier.keysRead, bytesRead - earlier.bytesRead,
+                    bytesWritten - earlier.bytesWritten, casConflicts - earlier.casConflicts, timeouts - earlier.timeouts);
+        }
+    }
+
+    private static class Counters {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder keysRead = new LongAdder();
+        private final LongAdder bytesRead = new LongAdder();
+        private final LongAdder bytesWritten = new LongAdder();
+        private final LongAdder casConflicts = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+
+        private Totals totals() {
+            return new Totals(requests.sum(), keysRead.sum(), bytesRead.sum(), bytesWritten.sum(),
+                    casConflicts.sum(), timeouts.sum());
+        }
+    }
+
+    private Counters counters(String clusterId) {
+        return clusters.computeIfAbsent(clusterId, k -> new Counters());
+    }
+
+    // =================================================================
+    // RECORDING
+    // =================================================================
+
+    void recordRequest(String clusterId) {
+        counters(clusterId).requests.increment();
+    }
+
+    /**
+     * Record the keys and bytes (keys plus values) returned by a range read.
+     */
+    void recordRead(String clusterId, GetResponse response) {
+        if (response == null || response.getKvs() == null) {
+            return;
+        }
+        long bytes = 0;
+        for (KeyValue kv : response.getKvs()) {
+            bytes += size(kv.getKey()) + size(kv.getValue());
+        }
+        recordRead(clusterId, response.getKvs().size(), bytes);
+    }
+
+    void recordRead(String clusterId, long keys, long bytes) {
+        Counters counters = counters(clusterId);
+        counters.keysRead.add(keys);
+        counters.bytesRead.add(bytes);
+    }
+
+    void recordWrite(String clusterId, long bytes) {
+        counters(clusterId).bytesWritten.add(bytes);
+    }
+
+    void recordCasConflict(String clusterId) {
+        counters(clusterId).casConflicts.increment();
+    }
+
+    void recordTimeout(String clusterId) {
+        counters(clusterId).timeouts.increment();
+    }
+
+    private static long size(ByteSequence bytes) {
+        return bytes == null ? 0 : bytes.size();
+    }
+
+    // =================================================================
+    // READING
+    // =================================================================
+
+    public Totals totals(String clusterId) {
+        Counters counters = clusters.get(clusterId);
+        return counters == null ? Totals.ZERO : counters.totals();
+    }
+
+    public Set<String> clusterIds() {
+        return Set.copyOf(clusters.keySet());
+    }
+
+    void releaseCluster(String clusterId) {
+        clusters.remove(clusterId);
+    }
+}
@@ -0,0 +1,122 @@
+package io.clustercontroller.store;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.clustercontroller.models.TaskMetadata;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static io.clustercontroller.config.Constants.TASK_STATUS_CANCELLED;
+import static io.clustercontroller.config.Constants.TASK_STATUS_COMPLETED;
+import static io.clustercontroller.config.Constants.TASK_STATUS_FAILED;
+
+/**
+ * Task keys known to hold a completed or failed one-shot task, by modRevision, so listing the active tasks does
+ * not decode the finished ones again on every pass. A task that is rewritten gets a new modRevision and is decoded
+ * once more. Also holds the rules and archive format shared by the stores' task compaction.
+ */
+final class TerminalTasks {
+
+    private static final TypeReference<List<TaskMetadata>> TASK_LIST = new TypeReference<>() { };
+
+    // Per cluster: task key -> modRevision of the terminal value
+    private final ConcurrentMap<String, Map<String, Long>> clusters = new ConcurrentHashMap<>();
+
+    /**
+     * Whether the key still holds the terminal value seen at this modRevision
+     */
+    boolean isKnownTerminal(String clusterId, String key, long modRevision) {
+        Map<String, Long> keys = clusters.get(clusterId);
+        if (keys == null) {
+            return false;
+        }
+        Long known = keys.get(key);
+        return known != null && known == modRevision;
+    }
+
+    void remember(String clusterId, String key, long modRevision) {
+        clusters.computeIfAbsent(clusterId, k -> new ConcurrentHashMap<>()).put(key, modRevision);
+    }
+
+    void forget(String clusterId, String key) {
+        Map<String, Long> keys = clusters.get(clusterId);
+        if (keys != null) {
+            keys.remove(key);
+        }
+    }
+
+    /**
+     * Drop the keys of the cluster not in the given set, i.e. tasks deleted since they were remembered
+     */
+    void retain(String clusterId, Set<String> terminalKeys) {
+        Map<String, Long> keys = clusters.get(clusterId);
+        if (keys != null) {
+            keys.keySet().retainAll(terminalKeys);
+        }
+    }
+
+    int count(String clusterId) {
+        Map<String, Long> keys = clusters.get(clusterId);
+        return keys == null ? 0 : keys.size();
+    }
+
+    void releaseCluster(String clusterId) {
+        clusters.remove(clusterId);
+    }
+
+    // =================================================================
+    // COMPACTION RULES
+    // =================================================================
+
+    /**
+     * Completed, failed or cancelled, and not a recurring task (those are reset to pending after each run)
+     */
+    static boolean isTerminal(TaskMetadata task) {
+        if (task.isRecurring()) {
+            return false;
+        }
+        return TASK_STATUS_COMPLETED.equalsIgnoreCase(task.getStatus())
+            || TASK_STATUS_FAILED.equalsIgnoreCase(task.getStatus())
+            || TASK_STATUS_CANCELLED.equalsIgnoreCase(task.getStatus());
+    }
+
+    /**
+     * Terminal and last updated (or created, if never updated) before the cutoff in epoch milliseconds
+     */
+    static boolean isExpired(TaskMetadata task, long olderThanTimestamp) {
+        if (!isTerminal(task)) {
+            return false;
+        }
+        OffsetDateTime updated = task.getLastUpdated() != null ? task.getLastUpdated() : task.getCreatedAt();
+        return updated != null && updated.toInstant().toEpochMilli() < olderThanTimestamp;
+    }
+
+    /**
+     * Archive value: the tasks as one gzip-compressed JSON array
+     */
+    static byte[] encodeArchive(ObjectMapper objectMapper, List<TaskMetadata> tasks) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(gzip, tasks);
+        }
+        return bytes.toByteArray();
+    }
+
+    static List<TaskMetadata> decodeArchive(ObjectMapper objectMapper, byte[] archive) throws IOException {
+        try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(archive))) {
+            return objectMapper.readValue(gzip, TASK_LIST);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package io.clustercontroller.store;
+
+import java.io.IOException;
+
+/**
+ * Encodes model objects to the bytes stored in etcd and back.
+ * <p>
+ * Implementations must decode plain JSON as well as their own output, so a store can switch codecs
+ * while values written by the previous one (or by workers that only speak JSON) are still being read.
+ * The reverse does not hold: workers read the goal states the controller writes and only decode plain JSON,
+ * so a binary or compressed codec may only be used once every worker has been upgraded to decode it.
+ */
+public interface ValueCodec {
+
+    /**
+     * Serialization formats a value can be stored in.
+     */
+    enum Format {
+        JSON,
+        SMILE,
+        CBOR
+    }
+
+    byte[] encode(Object value) throws IOException;
+
+    <T> T decode(byte[] bytes, Class<T> clazz) throws IOException;
+}
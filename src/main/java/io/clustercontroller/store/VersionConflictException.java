@@ -0,0 +1,37 @@
+package io.clustercontroller.store;
+
+/**
+ * Thrown when a conditional write is rejected because the entry was modified after the expected revision.
+ * Carries the entry's current value and revision, read in the same round trip as the failed write, so the
+ * caller can merge its change into it and retry without reading again.
+ */
+public class VersionConflictException extends Exception {
+
+    private final String key;
+    private final long expectedRevision;
+    private final Versioned<?> current;
+
+    public VersionConflictException(String key, long expectedRevision, Versioned<?> current) {
+        super("Entry " + key + " was modified after revision " + expectedRevision
+                + " (now at revision " + current.getModRevision() + ")");
+        this.key = key;
+        this.expectedRevision = expectedRevision;
+        this.current = current;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getExpectedRevision() {
+        return expectedRevision;
+    }
+
+    /**
+     * The entry's current value and revision; absent if it was deleted.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Versioned<T> getCurrent() {
+        return (Versioned<T>) current;
+    }
+}
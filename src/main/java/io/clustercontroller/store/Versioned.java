@@ -0,0 +1,70 @@
+package io.clustercontroller.store;
+
+import java.util.Objects;
+
+/**
+ * A value read from the store together with the revision it was last modified at, so a later write can be made
+ * conditional on the value being unchanged since it was read.
+ * <p>
+ * An absent value has modRevision 0; a conditional write at revision 0 only succeeds if the entry still does not exist.
+ */
+public final class Versioned<T> {
+
+    private static final Versioned<?> ABSENT = new Versioned<>(null, 0);
+
+    private final T value;
+    private final long modRevision;
+
+    private Versioned(T value, long modRevision) {
+        this.value = value;
+        this.modRevision = modRevision;
+    }
+
+    public static <T> Versioned<T> of(T value, long modRevision) {
+        return value == null ? absent() : new Versioned<>(value, modRevision);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> Versioned<T> absent() {
+        return (Versioned<T>) ABSENT;
+    }
+
+    /**
+     * The value, or null if the entry does not exist.
+     */
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * Revision at which the entry was last modified, or 0 if it does not exist.
+     */
+    public long getModRevision() {
+        return modRevision;
+    }
+
+    public boolean isPresent() {
+        return value != null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Versioned<?> other)) {
+            return false;
+        }
+        return modRevision == other.modRevision && Objects.equals(value, other.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(value, modRevision);
+    }
+
+    @Override
+    public String toString() {
+        return "Versioned{modRevision=" + modRevision + ", value=" + value + "}";
+    }
+}
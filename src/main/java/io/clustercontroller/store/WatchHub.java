@@ -0,0 +1,468 @@
+package io.clustercontroller.store;
+
+import io.clustercontroller.metrics.MetricsProvider;
+import io.etcd.jetcd.ByteSequence;
+import io.etcd.jetcd.Watch;
+import io.etcd.jetcd.common.exception.CompactedException;
+import io.etcd.jetcd.options.WatchOption;
+import io.etcd.jetcd.watch.WatchEvent;
+import io.etcd.jetcd.watch.WatchResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static io.clustercontroller.metrics.MetricsConstants.LISTENER_TAG;
+import static io.clustercontroller.metrics.MetricsConstants.WATCH_HUB_COALESCED_EVENTS_METRIC_NAME;
+import static io.clustercontroller.metrics.MetricsConstants.WATCH_HUB_LISTENER_LAG_MS_METRIC_NAME;
+import static io.clustercontroller.metrics.MetricsConstants.WATCH_HUB_LISTENER_REVISION_LAG_METRIC_NAME;
+import static io.clustercontroller.metrics.MetricsConstants.WATCH_HUB_OPEN_WATCHES_METRIC_NAME;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Shares one etcd watch per key or prefix between every component that subscribes to it,
+ * so watch streams do not grow with the number of listeners.
+ * <p>
+ * Events are handed to listeners on a fixed pool of dispatch threads, never on the gRPC thread. Each listener
+ * has at most one dispatch queued or running; events arriving meanwhile are coalesced per key (the latest
+ * event wins), so a burst of changes reaches a slow listener as one batch and its backlog is bounded
+ * by the number of keys it watches.
+ * <p>
+ * A watch that fails is reopened from the revision after the last one seen. If that revision was compacted
+ * away, or no revision was seen yet, events may have been missed and listeners are told to resync.
+ */
+@Slf4j
+public class WatchHub implements AutoCloseable {
+
+    private static final long REOPEN_BACKOFF_MS = 1000;
+
+    /**
+     * Receives the events of one subscription, on a dispatch thread, one batch at a time.
+     */
+    public interface Listener {
+
+        void onEvents(List<WatchEvent> events);
+
+        /**
+         * Events may have been missed; re-read the watched keys. Defaults to doing nothing.
+         */
+        default void onResync() {
+        }
+    }
+
+    /**
+     * Handle of a subscription; closing it stops delivery and closes the etcd watch once nobody else uses it.
+     */
+    public interface Subscription extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+
+    /**
+     * Delivery state of one listener, as exposed by {@link #listenerStats()}.
+     *
+     * @param revisionLag revisions the watch has seen that the listener has not been handed yet
+     * @param lagMs       age of the oldest event waiting for the listener, 0 if none
+     */
+    public record ListenerStats(String name, String key, long deliveredRevision, long revisionLag, long lagMs,
+                                int pendingEvents, long coalescedEvents) {
+    }
+
+    private final Watch watchClient;
+    private final Executor dispatcher;
+    private final ExecutorService ownedDispatcher;
+    private final ScheduledExecutorService reopener;
+    private final MetricsProvider metricsProvider;
+    // (key, prefix) -> shared watch
+    private final Map<String, SharedWatch> watches = new HashMap<>();
+    private boolean closed;
+
+    /**
+     * @param metricsProvider may be null, in which case lag is only available from {@link #listenerStats()}
+     */
+    public WatchHub(Watch watchClient, int dispatchThreads, MetricsProvider metricsProvider) {
+        this(watchClient, newDispatcher(dispatchThreads), metricsProvider, true);
+    }
+
+    /**
+     * Dispatch on the given executor, e.g. a direct one in tests.
+     */
+    public WatchHub(Watch watchClient, Executor dispatcher) {
+        this(watchClient, dispatcher, null, false);
+    }
+
+    private WatchHub(Watch watchClient, Executor dispatcher, MetricsProvider metricsProvider, boolean ownsDispatcher) {
+        this.watchClient = watchClient;
+        this.dispatcher = dispatcher;
+        this.ownedDispatcher = ownsDispatcher ? (ExecutorService) dispatcher : null;
+        this.metricsProvider = metricsProvider;
+        this.reopener = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r);
+            t.setName("watch-hub-reopen-" + t.threadId());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    private static ExecutorService newDispatcher(int threads) {
+        return Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r);
+            t.setName("watch-hub-dispatch-" + t.threadId());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // =================================================================
+    // SUBSCRIPTIONS
+    // =================================================================
+
+    /**
+     * Subscribe to every key under a prefix.
+     *
+     * @param name identifies the listener in logs and lag metrics
+     */
+    public Subscription subscribePrefix(String name, String prefix, Listener listener) {
+        return subscribe(name, ByteSequence.from(prefix, UTF_8), true, listener);
+    }
+
+    /**
+     * Subscribe to a single key.
+     */
+    public Subscription subscribeKey(String name, ByteSequence key, Listener listener) {
+        return subscribe(name, key, false, listener);
+    }
+
+    /**
+     * Subscribe to a prefix, only caring that something under it changed (or may have, after a resync).
+     */
+    public Subscription onChange(String name, String prefix, Runnable onChange) {
+        return subscribePrefix(name, prefix, new Listener() {
+            @Override
+            public void onEvents(List<WatchEvent> events) {
+                onChange.run();
+            }
+
+            @Override
+            public void onResync() {
+                onChange.run();
+            }
+        });
+    }
+
+    private synchronized Subscription subscribe(String name, ByteSequence key, boolean prefix, Listener listener) {
+        if (closed) {
+            throw new IllegalStateException("Watch hub is closed");
+        }
+        String id = (prefix ? "prefix:" : "key:") + key.toString(UTF_8);
+        SharedWatch watch = watches.get(id);
+        if (watch == null) {
+            watch = new SharedWatch(id, key, prefix);
+            watches.put(id, watch);
+            watch.open(0);
+            publishOpenWatches();
+        }
+        ListenerSubscription subscription = new ListenerSubscription(name, watch, listener);
+        watch.subscriptions.add(subscription);
+        log.debug("Listener '{}' subscribed to {} ({} listeners)", name, id, watch.subscriptions.size());
+        return subscription;
+    }
+
+    private synchronized void unsubscribe(ListenerSubscription subscription) {
+        SharedWatch watch = subscription.watch;
+        watch.subscriptions.remove(subscription);
+        if (watch.subscriptions.isEmpty() && watches.remove(watch.id) == watch) {
+            watch.close();
+            publishOpenWatches();
+        }
+    }
+
+    /**
+     * Number of etcd watches currently open.
+     */
+    public synchronized int openWatchCount() {
+        return watches.size();
+    }
+
+    public synchronized List<ListenerStats> listenerStats() {
+        List<ListenerStats> stats = new ArrayList<>();
+        for (SharedWatch watch : watches.values()) {
+            for (ListenerSubscription subscription : watch.subscriptions) {
+                stats.add(subscription.stats());
+            }
+        }
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        List<SharedWatch> open;
+        synchronized (this) {
+            closed = true;
+            open = new ArrayList<>(watches.values());
+            watches.clear();
+        }
+        open.forEach(SharedWatch::close);
+        reopener.shutdownNow();
+        if (ownedDispatcher != null) {
+            ownedDispatcher.shutdownNow();
+        }
+    }
+
+    // =================================================================
+    // SHARED WATCHES
+    // =================================================================
+
+    private class SharedWatch {
+        private final String id;
+        private final ByteSequence key;
+        private final boolean prefix;
+        private final List<ListenerSubscription> subscriptions = new CopyOnWriteArrayList<>();
+        // Highest revision delivered by this watch; the resume point after a failure
+        private volatile long revision = 0;
+        private volatile boolean closed;
+        private Watch.Watcher watcher;
+
+        SharedWatch(String id, ByteSequence key, boolean prefix) {
+            this.id = id;
+            this.key = key;
+            this.prefix = prefix;
+        }
+
+        synchronized void open(long fromRevision) {
+            if (closed) {
+                return;
+            }
+            WatchOption.Builder option = WatchOption.newBuilder();
+            if (prefix) {
+                option.withPrefix(key);
+            }
+            if (fromRevision > 0) {
+                option.withRevision(fromRevision);
+            }
+            watcher = watchClient.watch(key, option.build(), this::onResponse, this::onError);
+        }
+
+        void onResponse(WatchResponse response) {
+            List<WatchEvent> events = response.getEvents();
+            for (WatchEvent event : events) {
+                long modRevision = event.getKeyValue().getModRevision();
+                if (modRevision > revision) {
+                    revision = modRevision;
+                }
+            }
+            if (events.isEmpty()) {
+                return;
+            }
+            long receivedAt = System.currentTimeMillis();
+            for (ListenerSubscription subscription : subscriptions) {
+                subscription.offer(events, revision, receivedAt);
+            }
+        }
+
+        void onError(Throwable error) {
+            if (closed) {
+                return;
+            }
+            long resumeFrom;
+            boolean resync;
+            if (error instanceof CompactedException compacted) {
+                // Everything between our revision and the compaction is gone; resume from what is left
+                resumeFrom = compacted.getCompactedRevision();
+                resync = true;
+            } else {
+                resumeFrom = revision > 0 ? revision + 1 : 0;
+                resync = revision == 0;
+            }
+            log.warn("Watch on {} failed at revision {}, reopening from {}: {}", id, revision, resumeFrom, error.getMessage());
+            closeWatcher();
+            try {
+                reopener.schedule(() -> reopen(resumeFrom, resync), REOPEN_BACKOFF_MS, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                log.debug("Watch hub closed, not reopening {}", id);
+            }
+        }
+
+        private void reopen(long fromRevision, boolean resync) {
+            try {
+                open(fromRevision);
+            } catch (Exception e) {
+                onError(e);
+                return;
+            }
+            if (resync) {
+                subscriptions.forEach(ListenerSubscription::requestResync);
+            }
+        }
+
+        private synchronized void closeWatcher() {
+            if (watcher != null) {
+                try {
+                    watcher.close();
+                } catch (Exception e) {
+                    log.debug("Failed to close watch on {}: {}", id, e.getMessage());
+                }
+                watcher = null;
+            }
+        }
+
+        void close() {
+            closed = true;
+            closeWatcher();
+        }
+    }
+
+    // =================================================================
+    // LISTENER DISPATCH
+    // =================================================================
+
+    private class ListenerSubscription implements Subscription {
+        private final String name;
+        private final SharedWatch watch;
+        private final Listener listener;
+        // key -> latest undelivered event of the key, in arrival order
+        private final LinkedHashMap<ByteSequence, WatchEvent> pending = new LinkedHashMap<>();
+        private boolean resyncPending;
+        private boolean dispatching;
+        private long oldestPendingAt;
+        private long pendingRevision;
+        private volatile long deliveredRevision;
+        private volatile long coalescedEvents;
+        private volatile boolean closed;
+
+        ListenerSubscription(String name, SharedWatch watch, Listener listener) {
+            this.name = name;
+            this.watch = watch;
+            this.listener = listener;
+        }
+
+        synchronized void offer(List<WatchEvent> events, long revision, long receivedAt) {
+            if (closed) {
+                return;
+            }
+            int coalesced = 0;
+            for (WatchEvent event : events) {
+                // Re-inserted so the key moves to the end, after the events it followed
+                if (pending.remove(event.getKeyValue().getKey()) != null) {
+                    coalesced++;
+                }
+                pending.put(event.getKeyValue().getKey(), event);
+            }
+            if (oldestPendingAt == 0) {
+                oldestPendingAt = receivedAt;
+            }
+            pendingRevision = revision;
+            if (coalesced > 0) {
+                coalescedEvents += coalesced;
+                if (metricsProvider != null) {
+                    metricsProvider.counter(WATCH_HUB_COALESCED_EVENTS_METRIC_NAME, tags()).increment(coalesced);
+                }
+            }
+            scheduleDispatch();
+        }
+
+        synchronized void requestResync() {
+            if (closed) {
+                return;
+            }
+            resyncPending = true;
+            scheduleDispatch();
+        }
+
+        private void scheduleDispatch() {
+            if (dispatching) {
+                return;
+            }
+            dispatching = true;
+            try {
+                dispatcher.execute(this::dispatch);
+            } catch (RejectedExecutionException e) {
+                dispatching = false;
+            }
+        }
+
+        private void dispatch() {
+            while (true) {
+                List<WatchEvent> events;
+                boolean resync;
+                long revision;
+                synchronized (this) {
+                    if (closed || (pending.isEmpty() && !resyncPending)) {
+                        dispatching = false;
+                        return;
+                    }
+                    events = new ArrayList<>(pending.values());
+                    pending.clear();
+                    resync = resyncPending;
+                    resyncPending = false;
+                    revision = pendingRevision;
+                    publishLag(revision, oldestPendingAt);
+                    oldestPendingAt = 0;
+                }
+                try {
+                    if (resync) {
+                        listener.onResync();
+                    }
+                    if (!events.isEmpty()) {
+                        listener.onEvents(events);
+                    }
+                } catch (Exception e) {
+                    log.warn("Watch listener '{}' failed on {} events: {}", name, events.size(), e.getMessage());
+                }
+                if (revision > deliveredRevision) {
+                    deliveredRevision = revision;
+                }
+            }
+        }
+
+        private void publishLag(long revision, long oldestAt) {
+            if (metricsProvider == null) {
+                return;
+            }
+            long lagMs = oldestAt == 0 ? 0 : Math.max(0, System.currentTimeMillis() - oldestAt);
+            metricsProvider.gauge(WATCH_HUB_LISTENER_LAG_MS_METRIC_NAME, lagMs, tags());
+            metricsProvider.gauge(WATCH_HUB_LISTENER_REVISION_LAG_METRIC_NAME, Math.max(0, revision - deliveredRevision), tags());
+        }
+
+        synchronized ListenerStats stats() {
+            long lagMs = oldestPendingAt == 0 ? 0 : Math.max(0, System.currentTimeMillis() - oldestPendingAt);
+            return new ListenerStats(name, watch.id, deliveredRevision, Math.max(0, watch.revision - deliveredRevision),
+                lagMs, pending.size(), coalescedEvents);
+        }
+
+        private Map<String, String> tags() {
+            Map<String, String> tags = new HashMap<>();
+            tags.put(LISTENER_TAG, name);
+            return tags;
+        }
+
+        @Override
+        public void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                pending.clear();
+            }
+            unsubscribe(this);
+        }
+    }
+
+    private void publishOpenWatches() {
+        if (metricsProvider != null) {
+            metricsProvider.gauge(WATCH_HUB_OPEN_WATCHES_METRIC_NAME, watches.size(), new HashMap<>());
+        }
+    }
+}
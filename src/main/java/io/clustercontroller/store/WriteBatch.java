@@ -0,0 +1,94 @@
+package io.clustercontroller.store;
+
+import io.clustercontroller.models.SearchUnitActualState;
+import io.clustercontroller.models.SearchUnitGoalState;
+import io.clustercontroller.models.ShardAllocation;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects puts, deletes and revision guards and commits them together, in as few round trips
+ * as the backend allows. Obtain one from {@link MetadataStore#newWriteBatch()}.
+ * <p>
+ * Writing the same entry twice keeps only the last operation. A batch is single-use and not thread-safe.
+ */
+public abstract class WriteBatch {
+
+    private final Map<String, WriteOperation> operations = new LinkedHashMap<>();
+    private long unchangedSinceRevision = 0;
+    private boolean committed = false;
+
+    /**
+     * Guard every operation added after this call: it is applied only if its target was not modified
+     * after the given revision (e.g. the revision of the snapshot the new value was computed from).
+     * Guarded operations whose target changed are reported as CONFLICT and never written.
+     */
+    public WriteBatch guardUnchangedSince(long revision) {
+        this.unchangedSinceRevision = revision;
+        return this;
+    }
+
+    public WriteBatch setSearchUnitGoalState(String clusterId, String unitName, SearchUnitGoalState goalState) {
+        return add(WriteOperation.Type.PUT_SEARCH_UNIT_GOAL_STATE, clusterId, unitName, null, goalState);
+    }
+
+    public WriteBatch setSearchUnitActualState(String clusterId, String unitName, SearchUnitActualState actualState) {
+        return add(WriteOperation.Type.PUT_SEARCH_UNIT_ACTUAL_STATE, clusterId, unitName, null, actualState);
+    }
+
+    public WriteBatch setPlannedAllocation(String clusterId, String indexName, String shardId, ShardAllocation allocation) {
+        return add(WriteOperation.Type.PUT_PLANNED_ALLOCATION, clusterId, indexName, shardId, allocation);
+    }
+
+    public WriteBatch setActualAllocation(String clusterId, String indexName, String shardId, ShardAllocation allocation) {
+        return add(WriteOperation.Type.PUT_ACTUAL_ALLOCATION, clusterId, indexName, shardId, allocation);
+    }
+
+    public WriteBatch deleteActualAllocation(String clusterId, String indexName, String shardId) {
+        return add(WriteOperation.Type.DELETE_ACTUAL_ALLOCATION, clusterId, indexName, shardId, null);
+    }
+
+    /**
+     * Add an already built operation, keeping its own guard (used when forwarding a batch to another store).
+     */
+    public WriteBatch add(WriteOperation operation) {
+        operations.remove(operation.target());
+        operations.put(operation.target(), operation);
+        return this;
+    }
+
+    private WriteBatch add(WriteOperation.Type type, String clusterId, String name, String shardId, Object value) {
+        return add(new WriteOperation(type, clusterId, name, shardId, value, unchangedSinceRevision));
+    }
+
+    public int size() {
+        return operations.size();
+    }
+
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    /**
+     * Commit all collected operations and report the outcome of each.
+     * Only a failure to reach the store at all is thrown; per-operation failures are in the result.
+     */
+    public WriteBatchResult commit() throws Exception {
+        if (committed) {
+            throw new IllegalStateException("Write batch already committed");
+        }
+        committed = true;
+        if (operations.isEmpty()) {
+            return new WriteBatchResult();
+        }
+        return commit(new ArrayList<>(operations.values()));
+    }
+
+    /**
+     * Backend-specific commit of the deduplicated operations, in insertion order.
+     */
+    protected abstract WriteBatchResult commit(List<WriteOperation> operations) throws Exception;
+}
@@ -0,0 +1,57 @@
+package io.clustercontroller.store;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-operation outcome of a committed {@link WriteBatch}, in the order the operations were added.
+ */
+public class WriteBatchResult {
+
+    public enum Status {
+        /** The write was applied */
+        APPLIED,
+        /** The operation's guard failed: its target changed after the guarded revision; nothing was written */
+        CONFLICT,
+        /** The write could not be applied within the retry budget */
+        FAILED
+    }
+
+    private final Map<WriteOperation, Status> statuses = new LinkedHashMap<>();
+
+    void record(WriteOperation operation, Status status) {
+        statuses.put(operation, status);
+    }
+
+    public Status getStatus(WriteOperation operation) {
+        return statuses.get(operation);
+    }
+
+    public Map<WriteOperation, Status> getStatuses() {
+        return Collections.unmodifiableMap(statuses);
+    }
+
+    public List<WriteOperation> getOperations(Status status) {
+        return statuses.entrySet().stream()
+                .filter(entry -> entry.getValue() == status)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    public int count(Status status) {
+        return (int) statuses.values().stream().filter(s -> s == status).count();
+    }
+
+    public boolean isAllApplied() {
+        return statuses.values().stream().allMatch(s -> s == Status.APPLIED);
+    }
+
+    @Override
+    public String toString() {
+        return "WriteBatchResult{applied=" + count(Status.APPLIED)
+                + ", conflicts=" + count(Status.CONFLICT)
+                + ", failed=" + count(Status.FAILED) + "}";
+    }
+}
@@ -0,0 +1,65 @@
+package io.clustercontroller.store;
+
+import lombok.Getter;
+
+/**
+ * A single put or delete collected by a {@link WriteBatch}.
+ * Identifies its target by cluster, unit or index name and shard id, independent of the backend's key layout.
+ */
+@Getter
+public class WriteOperation {
+
+    public enum Type {
+        PUT_SEARCH_UNIT_GOAL_STATE,
+        PUT_SEARCH_UNIT_ACTUAL_STATE,
+        PUT_PLANNED_ALLOCATION,
+        PUT_ACTUAL_ALLOCATION,
+        DELETE_ACTUAL_ALLOCATION
+    }
+
+    private final Type type;
+    private final String clusterId;
+    /** Search unit name for unit operations, index name for allocation operations */
+    private final String name;
+    /** Shard id for allocation operations, null otherwise */
+    private final String shardId;
+    /** Value to store, null for deletes */
+    private final Object value;
+    /** Apply only if the target was not modified after this revision; 0 means unguarded */
+    private final long unchangedSinceRevision;
+
+    WriteOperation(Type type, String clusterId, String name, String shardId, Object value, long unchangedSinceRevision) {
+        this.type = type;
+        this.clusterId = clusterId;
+        this.name = name;
+        this.shardId = shardId;
+        this.value = value;
+        this.unchangedSinceRevision = unchangedSinceRevision;
+    }
+
+    public boolean isDelete() {
+        return type == Type.DELETE_ACTUAL_ALLOCATION;
+    }
+
+    public boolean isGuarded() {
+        return unchangedSinceRevision > 0;
+    }
+
+    /**
+     * Identity of the stored entry this operation writes; a put and a delete of the same entry share it.
+     */
+    String target() {
+        String entry = switch (type) {
+            case PUT_SEARCH_UNIT_GOAL_STATE -> "goal-state";
+            case PUT_SEARCH_UNIT_ACTUAL_STATE -> "actual-state";
+            case PUT_PLANNED_ALLOCATION -> "planned-allocation";
+            case PUT_ACTUAL_ALLOCATION, DELETE_ACTUAL_ALLOCATION -> "actual-allocation";
+        };
+        return clusterId + "/" + name + "/" + (shardId == null ? "" : shardId) + "/" + entry;
+    }
+
+    @Override
+    public String toString() {
+        return type + "(" + clusterId + ", " + name + (shardId == null ? "" : "/" + shardId) + ")";
+    }
+}
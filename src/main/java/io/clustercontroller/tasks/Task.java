@@ -34,5 +34,20 @@ public interface Task {
      * Get task schedule type
      */
     String getSchedule();
+    
+    /**
+     * Resource the task changes, e.g. an index; queued one-shot tasks on the same resource run one at a time.
+     * Null if the task can run alongside any other.
+     */
+    default String getResource() {
+        return null;
+    }
+    
+    /**
+     * Output of the last execution, recorded on one-shot tasks; null if there is none
+     */
+    default String getOutput() {
+        return null;
+    }
 }
 
@@ -5,6 +5,7 @@ import io.clustercontroller.allocation.ShardAllocator;
 import io.clustercontroller.discovery.Discovery;
 import io.clustercontroller.indices.IndexManager;
 import io.clustercontroller.orchestration.GoalStateOrchestrator;
+import io.clustercontroller.tracing.PassTracer;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
@@ -23,6 +24,14 @@ public class TaskContext {
     private final ActualAllocationUpdater actualAllocationUpdater;
     private final GoalStateOrchestrator goalStateOrchestrator;
     private final Discovery discovery;
+    // Traces of the clusters' reconcile passes; null when tracing is not set up
+    private final PassTracer tracer;
+    
+    public TaskContext(IndexManager indexManager, ShardAllocator shardAllocator,
+                       ActualAllocationUpdater actualAllocationUpdater, GoalStateOrchestrator goalStateOrchestrator,
+                       Discovery discovery) {
+        this(indexManager, shardAllocator, actualAllocationUpdater, goalStateOrchestrator, discovery, null);
+    }
 }
 
 
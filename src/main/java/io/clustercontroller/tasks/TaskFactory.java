@@ -2,6 +2,8 @@ package io.clustercontroller.tasks;
 
 import io.clustercontroller.models.TaskMetadata;
 import io.clustercontroller.tasks.impl.ActualAllocationUpdaterTask;
+import io.clustercontroller.tasks.impl.CreateIndexTask;
+import io.clustercontroller.tasks.impl.DeleteIndexTask;
 import io.clustercontroller.tasks.impl.DiscoveryTask;
 import io.clustercontroller.tasks.impl.GoalStateOrchestratorTask;
 import io.clustercontroller.tasks.impl.ShardAllocatorTask;
@@ -17,12 +19,12 @@ import static io.clustercontroller.config.Constants.*;
 public class TaskFactory {
     
     /**
-     * Create a Task implementation from TaskMetadata
+     * Create a Task implementation from TaskMetadata, by its action or, if it has none, its name
      */
     public static Task createTask(TaskMetadata metadata) {
-        String taskName = metadata.getName();
+        String action = metadata.getAction() != null ? metadata.getAction() : metadata.getName();
         
-        return switch (taskName) {
+        return switch (action) {
             case TASK_ACTION_DISCOVERY -> new DiscoveryTask(
                 metadata.getName(),
                 metadata.getPriority(),
@@ -47,8 +49,20 @@ public class TaskFactory {
                 metadata.getInput(),
                 metadata.getSchedule()
             );
+            case TASK_ACTION_CREATE_INDEX -> new CreateIndexTask(
+                metadata.getName(),
+                metadata.getPriority(),
+                metadata.getInput(),
+                metadata.getSchedule()
+            );
+            case TASK_ACTION_DELETE_INDEX -> new DeleteIndexTask(
+                metadata.getName(),
+                metadata.getPriority(),
+                metadata.getInput(),
+                metadata.getSchedule()
+            );
             default -> {
-                log.warn("Unknown task type: {}", taskName);
+                log.warn("Unknown task type: {}", action);
                 yield new UnknownTask(metadata.getName(), metadata.getPriority(), metadata.getInput(), metadata.getSchedule());
             }
         };
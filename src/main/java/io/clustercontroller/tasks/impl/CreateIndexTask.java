@@ -0,0 +1,66 @@
+package io.clustercontroller.tasks.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.clustercontroller.tasks.Task;
+import io.clustercontroller.tasks.TaskContext;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import static io.clustercontroller.config.Constants.*;
+
+/**
+ * One-shot task creating an index, e.g. one of many submitted at once through the task queue.
+ * Input: {"index": "<name>", "config": {settings, mappings, ...}} with config as accepted by PUT /{clusterId}/{index}.
+ */
+@Slf4j
+@Getter
+public class CreateIndexTask implements Task {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final String name;
+    private final int priority;
+    private final String input;
+    private final String schedule;
+    // Null if the input names no index
+    private final String indexName;
+    private final String indexConfig;
+    private String output;
+
+    public CreateIndexTask(String name, int priority, String input, String schedule) {
+        this.name = name;
+        this.priority = priority;
+        this.input = input;
+        this.schedule = schedule;
+        JsonNode request = IndexTaskInput.parse(OBJECT_MAPPER, input);
+        this.indexName = IndexTaskInput.indexName(request);
+        JsonNode config = request != null ? request.get("config") : null;
+        this.indexConfig = config != null && config.isObject() ? config.toString() : "{}";
+    }
+
+    @Override
+    public String getResource() {
+        return indexName != null ? IndexTaskInput.resource(indexName) : null;
+    }
+
+    @Override
+    public String execute(TaskContext context, String clusterId) {
+        log.info("Executing create index task: {} for cluster: {}", name, clusterId);
+
+        if (indexName == null) {
+            output = "Input names no index";
+            log.error("Create index task {} for cluster {} has no index in its input", name, clusterId);
+            return TASK_STATUS_FAILED;
+        }
+        try {
+            context.getIndexManager().createIndex(clusterId, indexName, indexConfig);
+            log.info("Create index task created index {} in cluster: {}", indexName, clusterId);
+            return TASK_STATUS_COMPLETED;
+        } catch (Exception e) {
+            output = e.getMessage();
+            log.error("Failed to create index {} for cluster {}: {}", indexName, clusterId, e.getMessage(), e);
+            return TASK_STATUS_FAILED;
+        }
+    }
+}
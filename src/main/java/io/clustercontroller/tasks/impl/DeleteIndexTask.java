@@ -0,0 +1,60 @@
+package io.clustercontroller.tasks.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.clustercontroller.tasks.Task;
+import io.clustercontroller.tasks.TaskContext;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import static io.clustercontroller.config.Constants.*;
+
+/**
+ * One-shot task deleting an index. Input: {"index": "<name>"}. An index that does not exist is left as is.
+ */
+@Slf4j
+@Getter
+public class DeleteIndexTask implements Task {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final String name;
+    private final int priority;
+    private final String input;
+    private final String schedule;
+    // Null if the input names no index
+    private final String indexName;
+    private String output;
+
+    public DeleteIndexTask(String name, int priority, String input, String schedule) {
+        this.name = name;
+        this.priority = priority;
+        this.input = input;
+        this.schedule = schedule;
+        this.indexName = IndexTaskInput.indexName(IndexTaskInput.parse(OBJECT_MAPPER, input));
+    }
+
+    @Override
+    public String getResource() {
+        return indexName != null ? IndexTaskInput.resource(indexName) : null;
+    }
+
+    @Override
+    public String execute(TaskContext context, String clusterId) {
+        log.info("Executing delete index task: {} for cluster: {}", name, clusterId);
+
+        if (indexName == null) {
+            output = "Input names no index";
+            log.error("Delete index task {} for cluster {} has no index in its input", name, clusterId);
+            return TASK_STATUS_FAILED;
+        }
+        try {
+            context.getIndexManager().deleteIndex(clusterId, indexName);
+            log.info("Delete index task deleted index {} from cluster: {}", indexName, clusterId);
+            return TASK_STATUS_COMPLETED;
+        } catch (Exception e) {
+            output = e.getMessage();
+            log.error("Failed to delete index {} for cluster {}: {}", indexName, clusterId, e.getMessage(), e);
+            return TASK_STATUS_FAILED;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package io.clustercontroller.tasks.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Input of the index tasks: a JSON object naming the index in "index".
+ */
+@Slf4j
+final class IndexTaskInput {
+
+    private IndexTaskInput() {
+        // Utility class
+    }
+
+    /**
+     * The input as a JSON object, or null if it is missing or not one
+     */
+    static JsonNode parse(ObjectMapper objectMapper, String input) {
+        if (input == null || input.isBlank()) {
+            return null;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(input);
+            return node != null && node.isObject() ? node : null;
+        } catch (Exception e) {
+            log.warn("Unreadable index task input: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    static String indexName(JsonNode request) {
+        JsonNode index = request != null ? request.get("index") : null;
+        return index != null && index.isTextual() && !index.asText().isBlank() ? index.asText() : null;
+    }
+
+    /**
+     * Resource of the tasks changing an index, so they run one at a time
+     */
+    static String resource(String indexName) {
+        return "index/" + indexName;
+    }
+}
@@ -0,0 +1,236 @@
+package io.clustercontroller.tracing;
+
+import io.clustercontroller.store.StoreStats;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process traces of reconcile passes, kept per cluster in a ring buffer of the last passes; no collector.
+ * <p>
+ * A pass is opened with {@link #startPass(PassTracer, String)} on the thread that runs it. Until it is closed,
+ * {@link #span(String, String)} opens a nested span on that thread (a phase, an index, a shard), so components
+ * reached from the pass need no tracer of their own. Each span records its duration and the etcd requests, keys
+ * and bytes the cluster used meanwhile ({@link StoreStats}). Traffic is attributed by cluster, so requests made
+ * for it outside the pass (e.g. API calls) count towards the span open at the time. Spans beyond the per-trace
+ * limit are counted, not recorded.
+ */
+@Slf4j
+public class PassTracer {
+
+    public static final String KIND_PASS = "pass";
+    public static final String KIND_PHASE = "phase";
+    public static final String KIND_TASK = "task";
+    public static final String KIND_STAGE = "stage";
+    public static final String KIND_INDEX = "index";
+    public static final String KIND_SHARD = "shard";
+
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+
+    private final StoreStats stats;
+    private final int tracesPerCluster;
+    private final int maxSpansPerTrace;
+    // Cluster -> its last passes, oldest first; each deque guarded by itself
+    private final Map<String, Deque<PassTrace>> traces = new ConcurrentHashMap<>();
+
+    /**
+     * @param stats            etcd traffic per cluster; may be null, in which case spans only have durations
+     * @param tracesPerCluster passes kept per cluster (0 disables tracing)
+     * @param maxSpansPerTrace spans recorded per pass, the root included
+     */
+    public PassTracer(StoreStats stats, int tracesPerCluster, int maxSpansPerTrace) {
+        this.stats = stats;
+        this.tracesPerCluster = tracesPerCluster;
+        this.maxSpansPerTrace = Math.max(1, maxSpansPerTrace);
+    }
+
+    /**
+     * A span as recorded: offsets and durations in microseconds from the start of its pass, and the etcd traffic
+     * of the cluster while it was open.
+     */
+    public record SpanRecord(String kind, String name, long startMicros, long durationMicros, long etcdRequests,
+                             long keysRead, long bytesRead, long bytesWritten, Map<String, String> tags,
+                             List<SpanRecord> children) {
+    }
+
+    /**
+     * One traced pass over a cluster.
+     */
+    public record PassTrace(String clusterId, long startEpochMillis, long durationMicros, int spans,
+                            int droppedSpans, SpanRecord root) {
+    }
+
+    /**
+     * Start tracing a pass over a cluster on this thread if there is a tracer and tracing is on, otherwise return
+     * null (a no-op resource in try-with-resources).
+     */
+    public static Span startPass(PassTracer tracer, String clusterId) {
+        return tracer != null ? tracer.startPass(clusterId) : null;
+    }
+
+    public Span startPass(String clusterId) {
+        if (tracesPerCluster <= 0) {
+            return null;
+        }
+        Span current = CURRENT.get();
+        if (current != null) {
+            // Already inside a pass on this thread
+            return current.child(KIND_PASS, clusterId);
+        }
+        return new Span(new Trace(clusterId), null, KIND_PASS, clusterId);
+    }
+
+    /**
+     * Open a span nested in the one open on this thread, or return null if no pass is traced here or its span
+     * limit is reached.
+     */
+    public static Span span(String kind, String name) {
+        Span current = CURRENT.get();
+        return current != null ? current.child(kind, name) : null;
+    }
+
+    /**
+     * Tag the span open on this thread, if any.
+     */
+    public static void tag(String key, Object value) {
+        Span current = CURRENT.get();
+        if (current != null) {
+            current.tag(key, value);
+        }
+    }
+
+    /**
+     * The cluster's last traced passes, newest first.
+     */
+    public List<PassTrace> getTraces(String clusterId) {
+        Deque<PassTrace> clusterTraces = traces.get(clusterId);
+        if (clusterTraces == null) {
+            return List.of();
+        }
+        synchronized (clusterTraces) {
+            List<PassTrace> newestFirst = new ArrayList<>(clusterTraces.size());
+            clusterTraces.descendingIterator().forEachRemaining(newestFirst::add);
+            return newestFirst;
+        }
+    }
+
+    /**
+     * Drop the traces of a cluster this controller no longer manages.
+     */
+    public void releaseCluster(String clusterId) {
+        traces.remove(clusterId);
+    }
+
+    private void record(PassTrace trace) {
+        Deque<PassTrace> clusterTraces = traces.computeIfAbsent(trace.clusterId(), k -> new ArrayDeque<>());
+        synchronized (clusterTraces) {
+            clusterTraces.addLast(trace);
+            while (clusterTraces.size() > tracesPerCluster) {
+                clusterTraces.removeFirst();
+            }
+        }
+        log.debug("[Cluster: {}] Traced pass: {} spans ({} dropped) in {}us", trace.clusterId(), trace.spans(),
+            trace.droppedSpans(), trace.durationMicros());
+    }
+
+    private StoreStats.Totals totals(String clusterId) {
+        return stats != null ? stats.totals(clusterId) : StoreStats.Totals.ZERO;
+    }
+
+    /**
+     * State shared by the spans of one pass. Only the thread running the pass touches it.
+     */
+    private static final class Trace {
+        private final String clusterId;
+        private final long startEpochMillis = System.currentTimeMillis();
+        private final long startNanos = System.nanoTime();
+        private int spans;
+        private int droppedSpans;
+
+        private Trace(String clusterId) {
+            this.clusterId = clusterId;
+        }
+    }
+
+    /**
+     * An open span; closing it makes its parent the open span of the thread again, and closing the root span
+     * records the pass.
+     */
+    public final class Span implements AutoCloseable {
+        private final Trace trace;
+        private final Span parent;
+        private final String kind;
+        private final String name;
+        private final long startNanos = System.nanoTime();
+        private final StoreStats.Totals startTotals;
+        private final List<Span> children = new ArrayList<>();
+        private Map<String, String> tags;
+        private long durationNanos = -1;
+        private StoreStats.Totals etcd = StoreStats.Totals.ZERO;
+
+        private Span(Trace trace, Span parent, String kind, String name) {
+            this.trace = trace;
+            this.parent = parent;
+            this.kind = kind;
+            this.name = name;
+            this.startTotals = totals(trace.clusterId);
+            trace.spans++;
+            if (parent != null) {
+                parent.children.add(this);
+            }
+            CURRENT.set(this);
+        }
+
+        private Span child(String childKind, String childName) {
+            if (trace.spans >= maxSpansPerTrace) {
+                trace.droppedSpans++;
+                return null;
+            }
+            return new Span(trace, this, childKind, childName);
+        }
+
+        public Span tag(String key, Object value) {
+            if (tags == null) {
+                tags = new LinkedHashMap<>();
+            }
+            tags.put(key, String.valueOf(value));
+            return this;
+        }
+
+        @Override
+        public void close() {
+            if (durationNanos >= 0) {
+                return;
+            }
+            durationNanos = System.nanoTime() - startNanos;
+            etcd = totals(trace.clusterId).minus(startTotals);
+            if (parent != null) {
+                CURRENT.set(parent);
+                return;
+            }
+            CURRENT.remove();
+            SpanRecord root = toRecord();
+            record(new PassTrace(trace.clusterId, trace.startEpochMillis,
+                TimeUnit.NANOSECONDS.toMicros(durationNanos), trace.spans, trace.droppedSpans, root));
+        }
+
+        private SpanRecord toRecord() {
+            List<SpanRecord> childRecords = new ArrayList<>(children.size());
+            for (Span child : children) {
+                childRecords.add(child.toRecord());
+            }
+            // A span left open (e.g. by a task still running past the pass) is cut off at the end of the pass
+            long duration = durationNanos >= 0 ? durationNanos : System.nanoTime() - startNanos;
+            return new SpanRecord(kind, name, TimeUnit.NANOSECONDS.toMicros(startNanos - trace.startNanos),
+                TimeUnit.NANOSECONDS.toMicros(duration), etcd.requests(), etcd.keysRead(), etcd.bytesRead(),
+                etcd.bytesWritten(), tags != null ? Map.copyOf(tags) : Map.of(), List.copyOf(childRecords));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package io.clustercontroller;
+
+import io.clustercontroller.store.SnapshotMetadataStore;
+import io.clustercontroller.store.SnapshotMetadataStore.Fingerprint;
+import io.clustercontroller.store.SnapshotMetadataStore.Section;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for AdaptiveInterval.
+ */
+class AdaptiveIntervalTest {
+
+    private static final String CLUSTER = "test-cluster";
+
+    private static Optional<SnapshotMetadataStore> view(int divergentShards, int shardsInFlight, long fingerprint) {
+        SnapshotMetadataStore view = mock(SnapshotMetadataStore.class);
+        when(view.convergence()).thenReturn(Optional.of(new SnapshotMetadataStore.Convergence(divergentShards, shardsInFlight)));
+        when(view.fingerprint(any())).thenReturn(Optional.of(new Fingerprint(Map.of(Section.SEARCH_UNITS, Map.of("node1", fingerprint)))));
+        return Optional.of(view);
+    }
+
+    @Test
+    void testQuietPassesBackOffExponentiallyUpToTheMaximum() {
+        AdaptiveInterval interval = new AdaptiveInterval(CLUSTER, 2, 10, 5, null);
+        assertThat(interval.getIntervalMillis()).isEqualTo(5_000);
+
+        interval.observe(view(0, 0, 1));
+        assertThat(interval.getReason()).isEqualTo(AdaptiveInterval.Reason.CHANGED);
+        assertThat(interval.getIntervalMillis()).isEqualTo(2_000);
+
+        interval.observe(view(0, 0, 1));
+        assertThat(interval.getReason()).isEqualTo(AdaptiveInterval.Reason.IDLE);
+        assertThat(interval.getIntervalMillis()).isEqualTo(4_000);
+        interval.observe(view(0, 0, 1));
+        assertThat(interval.getIntervalMillis()).isEqualTo(8_000);
+        interval.observe(view(0, 0, 1));
+        assertThat(interval.getIntervalMillis()).isEqualTo(10_000);
+
+        // A change drops back to the minimum
+        interval.observe(view(0, 0, 2));
+        assertThat(interval.getReason()).isEqualTo(AdaptiveInterval.Reason.CHANGED);
+        assertThat(interval.getIntervalMillis()).isEqualTo(2_000);
+    }
+
+    @Test
+    void testDriftAndRolloutsKeepTheMinimumInterval() {
+        AdaptiveInterval interval = new AdaptiveInterval(CLUSTER, 2, 60, 10, null);
+        interval.observe(view(0, 0, 1));
+        interval.observe(view(0, 0, 1));
+        assertThat(interval.getIntervalMillis()).isEqualTo(4_000);
+
+        // Unchanged state still counts while it has not converged
+        interval.observe(view(3, 1, 1));
+        assertThat(interval.getReason()).isEqualTo(AdaptiveInterval.Reason.DRIFT);
+        assertThat(interval.getIntervalMillis()).isEqualTo(2_000);
+        interval.observe(view(0, 1, 1));
+        assertThat(interval.getReason()).isEqualTo(AdaptiveInterval.Reason.ROLLOUT);
+        assertThat(interval.getIntervalMillis()).isEqualTo(2_000);
+    }
+
+    @Test
+    void testWithoutSnapshotUsesDefaultWithinBounds() {
+        AdaptiveInterval interval = new AdaptiveInterval(CLUSTER, 2, 60, 300, null);
+        interval.observe(view(0, 0, 1));
+
+        interval.observe(Optional.empty());
+
+        assertThat(interval.getReason()).isEqualTo(AdaptiveInterval.Reason.UNKNOWN);
+        assertThat(interval.getIntervalMillis()).isEqualTo(60_000);
+    }
+}
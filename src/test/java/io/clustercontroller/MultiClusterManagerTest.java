@@ -8,8 +8,8 @@ import io.clustercontroller.multicluster.lock.LockException;
 import io.clustercontroller.multicluster.registry.ClusterRegistry;
 import io.clustercontroller.multicluster.registry.ControllerRegistration;
 import io.clustercontroller.multicluster.registry.ControllerRegistry;
+import io.clustercontroller.store.WatchHub;
 import io.etcd.jetcd.ByteSequence;
-import io.etcd.jetcd.Watch;
 import io.etcd.jetcd.support.CloseableClient;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -47,7 +47,7 @@ class MultiClusterManagerTest {
     private AssignmentPolicy assignmentPolicy;
 
     @Mock
-    private Watch.Watcher mockWatcher;
+    private WatchHub.Subscription mockWatcher;
 
     @Mock
     private CloseableClient mockKeepAlive;
@@ -194,7 +194,7 @@ class MultiClusterManagerTest {
         });
 
         // When
-        Watch.Watcher watcher = controllerRegistry.watchControllers(membershipCallback[0]);
+        WatchHub.Subscription watcher = controllerRegistry.watchControllers(membershipCallback[0]);
         
         // Simulate membership change
         CountDownLatch latch = new CountDownLatch(1);
@@ -226,7 +226,7 @@ class MultiClusterManagerTest {
         });
 
         // When
-        Watch.Watcher watcher = clusterRegistry.watchClusters(clusterCallback[0]);
+        WatchHub.Subscription watcher = clusterRegistry.watchClusters(clusterCallback[0]);
         
         // Simulate cluster change
         CountDownLatch latch = new CountDownLatch(1);
@@ -0,0 +1,171 @@
+package io.clustercontroller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for PassScheduler.
+ */
+class PassSchedulerTest {
+
+    private PassScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        if (scheduler != null) {
+            scheduler.close();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void testLaneRunsOnePassAtATime() throws Exception {
+        scheduler = new PassScheduler(4, null);
+        PassScheduler.Lane lane = scheduler.register("cluster-a");
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(5);
+
+        for (int i = 0; i < 5; i++) {
+            lane.schedule(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(20);
+                running.decrementAndGet();
+                done.countDown();
+            }, 0, TimeUnit.MILLISECONDS);
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(maxRunning).hasValue(1);
+    }
+
+    @Test
+    void testGlobalCapLimitsPassesAcrossClusters() throws Exception {
+        scheduler = new PassScheduler(2, null);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(2);
+        AtomicInteger runs = new AtomicInteger();
+
+        for (String cluster : List.of("a", "b", "c", "d")) {
+            scheduler.register(cluster).schedule(() -> {
+                runs.incrementAndGet();
+                started.countDown();
+                await(release);
+            }, 0, TimeUnit.MILLISECONDS);
+        }
+
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(100);
+        assertThat(runs).hasValue(2);
+        assertThat(scheduler.getRunningPasses()).isEqualTo(2);
+
+        release.countDown();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (runs.get() < 4 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(runs).hasValue(4);
+    }
+
+    @Test
+    void testClustersWithDuePassesTakeTurns() throws Exception {
+        scheduler = new PassScheduler(1, null);
+        PassScheduler.Lane blocker = scheduler.register("blocker");
+        PassScheduler.Lane busy = scheduler.register("busy");
+        PassScheduler.Lane quiet = scheduler.register("quiet");
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch blocking = new CountDownLatch(1);
+        List<String> order = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(4);
+
+        // Hold the only slot while the other clusters' passes become due
+        blocker.schedule(() -> {
+            blocking.countDown();
+            await(release);
+        }, 0, TimeUnit.MILLISECONDS);
+        assertThat(blocking.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < 3; i++) {
+            busy.schedule(() -> {
+                order.add("busy");
+                done.countDown();
+            }, 0, TimeUnit.MILLISECONDS);
+        }
+        Thread.sleep(50);
+        quiet.schedule(() -> {
+            order.add("quiet");
+            done.countDown();
+        }, 0, TimeUnit.MILLISECONDS);
+        Thread.sleep(50);
+        release.countDown();
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        // The quiet cluster does not wait behind the busy cluster's whole backlog
+        assertThat(order).containsExactly("busy", "quiet", "busy", "busy");
+    }
+
+    @Test
+    void testFixedDelayPassesStopWhenLaneIsClosed() throws Exception {
+        scheduler = new PassScheduler(1, null);
+        PassScheduler.Lane lane = scheduler.register("cluster-a");
+        AtomicInteger passes = new AtomicInteger();
+        AtomicInteger checks = new AtomicInteger();
+        CountDownLatch ran = new CountDownLatch(3);
+
+        lane.scheduleWithFixedDelay(() -> {
+            passes.incrementAndGet();
+            ran.countDown();
+        }, 0, 10, TimeUnit.MILLISECONDS);
+        lane.scheduleCheck(checks::incrementAndGet, 0, 10, TimeUnit.MILLISECONDS);
+        assertThat(ran.await(5, TimeUnit.SECONDS)).isTrue();
+
+        lane.close();
+        Thread.sleep(50);
+        int passesAfterClose = passes.get();
+        int checksAfterClose = checks.get();
+        Thread.sleep(100);
+
+        assertThat(passes).hasValue(passesAfterClose);
+        assertThat(checks).hasValue(checksAfterClose);
+        assertThat(checksAfterClose).isPositive();
+    }
+
+    @Test
+    void testCheckIsCancelledThroughItsFuture() throws Exception {
+        scheduler = new PassScheduler(1, null);
+        AtomicInteger checks = new AtomicInteger();
+
+        ScheduledFuture<?> check = scheduler.scheduleCheck(checks::incrementAndGet, 0, 10, TimeUnit.MILLISECONDS);
+        Thread.sleep(100);
+        check.cancel(true);
+        Thread.sleep(50);
+        int checksAfterCancel = checks.get();
+        Thread.sleep(100);
+
+        assertThat(checksAfterCancel).isPositive();
+        assertThat(checks).hasValue(checksAfterCancel);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
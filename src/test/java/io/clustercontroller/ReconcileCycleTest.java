@@ -0,0 +1,151 @@
+package io.clustercontroller;
+
+import io.clustercontroller.allocation.ActualAllocationUpdater;
+import io.clustercontroller.allocation.AllocationStrategy;
+import io.clustercontroller.allocation.ShardAllocator;
+import io.clustercontroller.discovery.Discovery;
+import io.clustercontroller.models.SearchUnit;
+import io.clustercontroller.orchestration.GoalStateOrchestrator;
+import io.clustercontroller.store.EmbeddedMetadataStore;
+import io.clustercontroller.store.EtcdPathResolver;
+import io.clustercontroller.store.MetadataStore;
+import io.clustercontroller.store.SnapshotMetadataStore;
+import io.clustercontroller.tasks.TaskContext;
+import io.clustercontroller.util.EnvironmentUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.clustercontroller.ReconcileCycle.STAGE_STATUS_SKIPPED;
+import static io.clustercontroller.config.Constants.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for ReconcileCycle.
+ */
+class ReconcileCycleTest {
+
+    private static final String CLUSTER = "test-cluster";
+
+    @TempDir
+    Path directory;
+
+    private EmbeddedMetadataStore store;
+    private Discovery discovery;
+    private ShardAllocator shardAllocator;
+    private GoalStateOrchestrator goalStateOrchestrator;
+    private ActualAllocationUpdater actualAllocationUpdater;
+    private TaskContext taskContext;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        EnvironmentUtils.setForTesting("controller.runtime_env", "staging");
+        store = new EmbeddedMetadataStore(directory, false, new EtcdPathResolver());
+        store.initialize();
+        discovery = mock(Discovery.class);
+        shardAllocator = mock(ShardAllocator.class);
+        goalStateOrchestrator = mock(GoalStateOrchestrator.class);
+        actualAllocationUpdater = mock(ActualAllocationUpdater.class);
+        taskContext = new TaskContext(null, shardAllocator, actualAllocationUpdater, goalStateOrchestrator, discovery);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        store.close();
+    }
+
+    private static SearchUnit searchUnit(String name) {
+        SearchUnit unit = new SearchUnit();
+        unit.setName(name);
+        unit.setClusterName(CLUSTER);
+        return unit;
+    }
+
+    private static String indexConfig(String indexName) {
+        return "{\"index_name\":\"" + indexName + "\",\"settings\":{\"number_of_shards\":1}}";
+    }
+
+    @Test
+    void testStagesShareOneSnapshotAndSeeEarlierWrites() throws Exception {
+        List<MetadataStore> passStores = new ArrayList<>();
+        List<String> unitsSeenByAllocator = new ArrayList<>();
+        doAnswer(invocation -> {
+            MetadataStore pass = SnapshotMetadataStore.forPass(store, CLUSTER);
+            passStores.add(pass);
+            pass.upsertSearchUnit(CLUSTER, "node1", searchUnit("node1"));
+            return null;
+        }).when(discovery).discoverSearchUnits(CLUSTER);
+        doAnswer(invocation -> {
+            MetadataStore pass = SnapshotMetadataStore.forPass(store, CLUSTER);
+            passStores.add(pass);
+            pass.getAllSearchUnits(CLUSTER).forEach(unit -> unitsSeenByAllocator.add(unit.getName()));
+            return null;
+        }).when(shardAllocator).planShardAllocation(CLUSTER, AllocationStrategy.USE_ALL_AVAILABLE_NODES);
+        doAnswer(invocation -> passStores.add(SnapshotMetadataStore.forPass(store, CLUSTER)))
+            .when(goalStateOrchestrator).orchestrateGoalStates(CLUSTER);
+        doAnswer(invocation -> passStores.add(SnapshotMetadataStore.forPass(store, CLUSTER)))
+            .when(actualAllocationUpdater).updateActualAllocations(CLUSTER);
+
+        ReconcileCycle.Result result = new ReconcileCycle(store, taskContext, CLUSTER, 60, null).run();
+
+        assertThat(result.stages()).extracting(ReconcileCycle.StageResult::stage).containsExactly(
+            TASK_ACTION_DISCOVERY, TASK_ACTION_SHARD_ALLOCATOR, TASK_ACTION_GOAL_STATE_ORCHESTRATOR,
+            TASK_ACTION_ACTUAL_ALLOCATION_UPDATER);
+        assertThat(passStores).hasSize(4).allMatch(pass -> pass == passStores.get(0));
+        assertThat(passStores.get(0)).isInstanceOf(SnapshotMetadataStore.class);
+        assertThat(unitsSeenByAllocator).containsExactly("node1");
+        // Passes outside a cycle load their own snapshot again
+        assertThat(SnapshotMetadataStore.forPass(store, CLUSTER)).isNotSameAs(passStores.get(0));
+    }
+
+    @Test
+    void testStagesWithUnchangedInputsAreSkipped() throws Exception {
+        store.upsertSearchUnit(CLUSTER, "node1", searchUnit("node1"));
+        ReconcileCycle cycle = new ReconcileCycle(store, taskContext, CLUSTER, 3600, null);
+
+        cycle.run();
+        ReconcileCycle.Result unchanged = cycle.run();
+
+        assertThat(unchanged.stages()).extracting(ReconcileCycle.StageResult::stage, ReconcileCycle.StageResult::status)
+            .containsExactly(
+                tuple(TASK_ACTION_DISCOVERY, TASK_STATUS_COMPLETED),
+                tuple(TASK_ACTION_SHARD_ALLOCATOR, STAGE_STATUS_SKIPPED),
+                tuple(TASK_ACTION_GOAL_STATE_ORCHESTRATOR, STAGE_STATUS_SKIPPED),
+                tuple(TASK_ACTION_ACTUAL_ALLOCATION_UPDATER, STAGE_STATUS_SKIPPED));
+
+        // A new index config is read by the allocator and the actual allocation update, not the orchestrator
+        store.createIndexConfig(CLUSTER, "idx", indexConfig("idx"));
+        ReconcileCycle.Result changed = cycle.run();
+
+        assertThat(changed.stages()).extracting(ReconcileCycle.StageResult::status).containsExactly(
+            TASK_STATUS_COMPLETED, TASK_STATUS_COMPLETED, STAGE_STATUS_SKIPPED, TASK_STATUS_COMPLETED);
+        verify(discovery, times(3)).discoverSearchUnits(CLUSTER);
+        verify(shardAllocator, times(2)).planShardAllocation(CLUSTER, AllocationStrategy.USE_ALL_AVAILABLE_NODES);
+        verify(goalStateOrchestrator, times(1)).orchestrateGoalStates(CLUSTER);
+        assertThat(cycle.getLastResult()).contains(changed);
+    }
+
+    @Test
+    void testFailedStageRunsAgainAndMaxSkipAgeForcesRuns() throws Exception {
+        doThrow(new IllegalStateException("boom")).when(goalStateOrchestrator).orchestrateGoalStates(CLUSTER);
+        ReconcileCycle failing = new ReconcileCycle(store, taskContext, CLUSTER, 3600, null);
+
+        failing.run();
+        ReconcileCycle.Result result = failing.run();
+
+        assertThat(result.stages().get(2).status()).isEqualTo(TASK_STATUS_FAILED);
+        verify(goalStateOrchestrator, times(2)).orchestrateGoalStates(CLUSTER);
+
+        // With no skip age every stage runs in every cycle
+        ReconcileCycle noSkip = new ReconcileCycle(store, taskContext, CLUSTER, 0, null);
+        noSkip.run();
+        assertThat(noSkip.run().stages()).noneMatch(ReconcileCycle.StageResult::skipped);
+    }
+}
@@ -0,0 +1,173 @@
+package io.clustercontroller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.clustercontroller.models.SearchUnitActualState;
+import io.clustercontroller.models.ShardAllocation;
+import io.clustercontroller.store.EtcdPathResolver;
+import io.clustercontroller.store.WatchHub;
+import io.clustercontroller.util.EnvironmentUtils;
+import io.etcd.jetcd.ByteSequence;
+import io.etcd.jetcd.KeyValue;
+import io.etcd.jetcd.watch.WatchEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for ReconcileTrigger.
+ */
+class ReconcileTriggerTest {
+
+    private static final String CLUSTER = "test-cluster";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private EtcdPathResolver pathResolver;
+    private WatchHub watchHub;
+    private WatchHub.Subscription subscription;
+    private ReconcileTrigger trigger;
+    private AtomicInteger changes;
+
+    @BeforeEach
+    void setUp() {
+        EnvironmentUtils.setForTesting("controller.runtime_env", "staging");
+        pathResolver = new EtcdPathResolver();
+        watchHub = mock(WatchHub.class);
+        subscription = mock(WatchHub.Subscription.class);
+        when(watchHub.subscribePrefix(anyString(), anyString(), any())).thenReturn(subscription);
+        trigger = new ReconcileTrigger(watchHub, pathResolver, CLUSTER, 250, 60);
+        changes = new AtomicInteger();
+        trigger.start(changes::incrementAndGet);
+    }
+
+    private static WatchEvent event(String key, Object value, long version) throws Exception {
+        KeyValue kv = mock(KeyValue.class);
+        when(kv.getKey()).thenReturn(ByteSequence.from(key.getBytes()));
+        when(kv.getValue()).thenReturn(ByteSequence.from(value != null ? OBJECT_MAPPER.writeValueAsBytes(value) : new byte[0]));
+        when(kv.getVersion()).thenReturn(version);
+        WatchEvent event = mock(WatchEvent.class);
+        when(event.getKeyValue()).thenReturn(kv);
+        when(event.getEventType()).thenReturn(value != null ? WatchEvent.EventType.PUT : WatchEvent.EventType.DELETE);
+        return event;
+    }
+
+    private String actualStateKey(String unitName) {
+        return pathResolver.getSearchUnitsPrefix(CLUSTER) + "/" + unitName + "/actual-state";
+    }
+
+    private static SearchUnitActualState actualState(long timestamp, String startedIndex) {
+        SearchUnitActualState state = new SearchUnitActualState();
+        state.setAddress("10.0.0.1");
+        state.setTimestamp(timestamp);
+        state.setMemoryUsedMB(timestamp % 1000);
+        if (startedIndex != null) {
+            SearchUnitActualState.ShardRoutingInfo routing = new SearchUnitActualState.ShardRoutingInfo();
+            routing.setShardId(0);
+            state.setNodeRouting(Map.of(startedIndex, List.of(routing)));
+        }
+        return state;
+    }
+
+    private static ShardAllocation planned(long timestamp, String... ingestSUs) {
+        ShardAllocation allocation = new ShardAllocation("0", "idx");
+        allocation.setIngestSUs(List.of(ingestSUs));
+        allocation.setAllocationTimestamp(timestamp);
+        return allocation;
+    }
+
+    @Test
+    void testHeartbeatsWithoutRoutingChangesDoNotTrigger() throws Exception {
+        long now = System.currentTimeMillis();
+        trigger.onEvents(List.of(event(actualStateKey("node1"), actualState(now, null), 1)));
+        trigger.onEvents(List.of(event(actualStateKey("node1"), actualState(now + 5000, null), 2)));
+        assertThat(changes).hasValue(1);
+
+        trigger.onEvents(List.of(event(actualStateKey("node1"), actualState(now + 10000, "idx"), 3)));
+        assertThat(changes).hasValue(2);
+
+        trigger.onEvents(List.of(event(actualStateKey("node1"), null, 0)));
+        assertThat(changes).hasValue(3);
+    }
+
+    @Test
+    void testOnlyChangesAPassActsOnTrigger() throws Exception {
+        String plannedKey = pathResolver.getIndicesPrefix(CLUSTER) + "/idx/0/planned-allocation";
+        trigger.onEvents(List.of(event(plannedKey, planned(1, "node1"), 1)));
+        // The allocator rewrites the same plan with a new timestamp
+        trigger.onEvents(List.of(event(plannedKey, planned(2, "node1"), 2)));
+        assertThat(changes).hasValue(1);
+        trigger.onEvents(List.of(event(plannedKey, planned(3, "node2"), 3)));
+        assertThat(changes).hasValue(2);
+
+        // The controller's own writes
+        trigger.onEvents(List.of(
+            event(pathResolver.getIndicesPrefix(CLUSTER) + "/idx/0/actual-allocation", planned(4, "node2"), 5),
+            event(pathResolver.getSearchUnitsPrefix(CLUSTER) + "/node1/goal-state", Map.of(), 5),
+            event(pathResolver.getSearchUnitsPrefix(CLUSTER) + "/node1/conf", Map.of(), 5),
+            event(pathResolver.getControllerTasksPrefix(CLUSTER) + "/discovery", Map.of(), 7)));
+        assertThat(changes).hasValue(2);
+
+        // Listed once at start; the task status updates above are not task changes
+        assertThat(trigger.pollTaskChanges()).isTrue();
+        assertThat(trigger.pollTaskChanges()).isFalse();
+
+        trigger.onEvents(List.of(event(pathResolver.getIndicesPrefix(CLUSTER) + "/idx/conf", Map.of(), 2)));
+        trigger.onEvents(List.of(event(pathResolver.getControllerTasksPrefix(CLUSTER) + "/create-idx", Map.of(), 1)));
+        assertThat(changes).hasValue(4);
+        assertThat(trigger.pollTaskChanges()).isTrue();
+    }
+
+    @Test
+    void testTaskQueueIsToldOfNewTasksCancelRequestsAndRequeues() throws Exception {
+        ReconcileTrigger queueTrigger = new ReconcileTrigger(watchHub, pathResolver, CLUSTER, 250, 60);
+        AtomicInteger taskChanges = new AtomicInteger();
+        queueTrigger.start(() -> { }, taskChanges::incrementAndGet);
+        String taskKey = pathResolver.getControllerTasksPrefix(CLUSTER) + "/create-idx";
+
+        queueTrigger.onEvents(List.of(event(taskKey, Map.of("name", "create-idx", "status", "PENDING"), 1)));
+        assertThat(taskChanges).hasValue(1);
+
+        // The queue's own writes and the recurring tasks' checkpoints
+        queueTrigger.onEvents(List.of(
+            event(taskKey, Map.of("name", "create-idx", "status", "RUNNING"), 2),
+            event(taskKey, Map.of("name", "create-idx", "status", "COMPLETED", "cancel_requested", true), 4),
+            event(pathResolver.getControllerTasksPrefix(CLUSTER) + "/discovery",
+                Map.of("name", "discovery", "schedule", "repeat", "status", "PENDING"), 7),
+            event(taskKey, null, 0)));
+        assertThat(taskChanges).hasValue(1);
+
+        queueTrigger.onEvents(List.of(event(taskKey, Map.of("name", "create-idx", "status", "RUNNING", "cancel_requested", true), 3)));
+        assertThat(taskChanges).hasValue(2);
+        queueTrigger.onEvents(List.of(event(taskKey, Map.of("name", "create-idx", "status", "PENDING"), 5)));
+        assertThat(taskChanges).hasValue(3);
+    }
+
+    @Test
+    void testUnitThatStopsHeartbeatingIsReportedOnce() throws Exception {
+        long stale = System.currentTimeMillis() - 120_000;
+        trigger.onEvents(List.of(
+            event(actualStateKey("node1"), actualState(stale, null), 1),
+            event(actualStateKey("node2"), actualState(System.currentTimeMillis(), null), 1)));
+
+        assertThat(trigger.pollStaleUnits()).isTrue();
+        assertThat(trigger.pollStaleUnits()).isFalse();
+    }
+
+    @Test
+    void testCloseReleasesSubscriptions() {
+        verify(watchHub, times(3)).subscribePrefix(anyString(), anyString(), any());
+
+        trigger.close();
+
+        verify(subscription, times(3)).close();
+        // The hub is shared with the other clusters and components
+        verify(watchHub, never()).close();
+    }
+}
@@ -0,0 +1,74 @@
+package io.clustercontroller;
+
+import io.clustercontroller.multicluster.lifecycle.ClusterLifecycleManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SingleNodeClusterManagerTest {
+
+    @Mock
+    private ClusterLifecycleManager lifecycleManager;
+
+    @Test
+    void testStartsListedClustersWithoutLock() {
+        // Given
+        SingleNodeClusterManager manager = new SingleNodeClusterManager(lifecycleManager, " cluster-1, ,cluster-2");
+
+        // When
+        manager.start();
+        manager.shutdown();
+
+        // Then
+        verify(lifecycleManager).startCluster("cluster-1", null);
+        verify(lifecycleManager).startCluster("cluster-2", null);
+        verify(lifecycleManager).stopAll();
+    }
+
+    @Test
+    void testReconcileRestartsOnlyStoppedClusters() {
+        // Given
+        SingleNodeClusterManager manager = new SingleNodeClusterManager(lifecycleManager, "cluster-1,cluster-2");
+        when(lifecycleManager.isClusterManaged("cluster-1")).thenReturn(true);
+
+        // When
+        manager.reconcile();
+
+        // Then
+        verify(lifecycleManager, never()).startCluster(eq("cluster-1"), any());
+        verify(lifecycleManager).startCluster("cluster-2", null);
+    }
+
+    @Test
+    void testFailedStartIsRetriedOnNextReconcile() {
+        // Given
+        SingleNodeClusterManager manager = new SingleNodeClusterManager(lifecycleManager, "cluster-1");
+        doThrow(new RuntimeException("Failed to start cluster: cluster-1"))
+            .doNothing()
+            .when(lifecycleManager).startCluster("cluster-1", null);
+
+        // When
+        manager.reconcile();
+        manager.reconcile();
+
+        // Then
+        verify(lifecycleManager, times(2)).startCluster("cluster-1", null);
+    }
+
+    @Test
+    void testNothingListedNothingStarted() {
+        // Given
+        SingleNodeClusterManager manager = new SingleNodeClusterManager(lifecycleManager, "");
+
+        // When
+        manager.start();
+
+        // Then
+        verify(lifecycleManager, never()).startCluster(anyString(), any());
+    }
+}
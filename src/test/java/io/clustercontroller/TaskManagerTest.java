@@ -1,19 +1,27 @@
 package io.clustercontroller;
 
+import io.clustercontroller.config.TaskProperties;
+import io.clustercontroller.discovery.Discovery;
 import io.clustercontroller.models.TaskMetadata;
 import io.clustercontroller.store.MetadataStore;
 import io.clustercontroller.tasks.TaskContext;
+import io.clustercontroller.tracing.PassTracer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.time.OffsetDateTime;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
+import static io.clustercontroller.config.Constants.*;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -28,6 +36,20 @@ class TaskManagerTest {
     private TaskManager taskManager;
     private final String testClusterId = "test-cluster";
 
+    private static TaskProperties properties(long cleanupIntervalSeconds, boolean cleanupArchive,
+                                             long checkpointIntervalSeconds) {
+        TaskProperties properties = new TaskProperties();
+        properties.setCleanupRetentionSeconds(3600L);
+        properties.setCleanupIntervalSeconds(cleanupIntervalSeconds);
+        properties.setCleanupArchive(cleanupArchive);
+        properties.setCheckpointIntervalSeconds(checkpointIntervalSeconds);
+        return properties;
+    }
+
+    private static TaskProperties properties() {
+        return properties(300L, false, DEFAULT_TASK_CHECKPOINT_INTERVAL_SECONDS);
+    }
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
@@ -108,4 +130,280 @@ class TaskManagerTest {
 
         verify(metadataStore).getTask(testClusterId, taskName);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testCleanupOldTasks_DeletesTasksPastRetention() throws Exception {
+        // Given
+        TaskManager manager = new TaskManager(metadataStore, taskContext, testClusterId, 30L,
+            properties(300L, true, DEFAULT_TASK_CHECKPOINT_INTERVAL_SECONDS), null, null, null, null, null);
+        when(metadataStore.deleteOldTasks(anyString(), anyLong(), anyBoolean())).thenReturn(3);
+        long before = System.currentTimeMillis();
+
+        // When
+        int deleted = manager.cleanupOldTasks();
+
+        // Then
+        assertThat(deleted).isEqualTo(3);
+        ArgumentCaptor<Long> cutoff = ArgumentCaptor.forClass(Long.class);
+        verify(metadataStore).deleteOldTasks(eq(testClusterId), cutoff.capture(), eq(true));
+        assertThat(cutoff.getValue()).isBetween(before - 3_600_000L, System.currentTimeMillis() - 3_600_000L);
+    }
+
+    @Test
+    void testCleanupOldTasks_FailureIsLoggedNotThrown() throws Exception {
+        // Given
+        when(metadataStore.deleteOldTasks(anyString(), anyLong(), anyBoolean())).thenThrow(new Exception("etcd unavailable"));
+
+        // When
+        int deleted = taskManager.cleanupOldTasks();
+
+        // Then
+        assertThat(deleted).isZero();
+        verify(metadataStore).deleteOldTasks(eq(testClusterId), anyLong(), eq(false));
+    }
+
+    @Test
+    void testProcessTaskLoop_CycleModeRunsCycleAndOnlyOneShotTasks() throws Exception {
+        // Given
+        ReconcileCycle cycle = mock(ReconcileCycle.class);
+        TaskManager manager = new TaskManager(metadataStore, taskContext, testClusterId, 30L, properties(), null, cycle, null, null, null);
+        TaskMetadata recurring = new TaskMetadata("discovery", 1);
+        recurring.setSchedule("repeat");
+        TaskMetadata oneShot = new TaskMetadata("one-shot", 5);
+        oneShot.setSchedule("once");
+        when(metadataStore.getAllTasks(testClusterId)).thenReturn(List.of(recurring, oneShot));
+
+        // When
+        manager.processTaskLoop();
+
+        // Then
+        verify(cycle).run();
+        ArgumentCaptor<TaskMetadata> updated = ArgumentCaptor.forClass(TaskMetadata.class);
+        verify(metadataStore, atLeastOnce()).updateTask(eq(testClusterId), updated.capture());
+        assertThat(updated.getAllValues()).extracting(TaskMetadata::getName).containsOnly("one-shot");
+    }
+
+    @Test
+    void testProcessTaskLoop_CycleModeWithoutOneShotTasksOnlyRunsCycle() throws Exception {
+        // Given
+        ReconcileCycle cycle = mock(ReconcileCycle.class);
+        TaskManager manager = new TaskManager(metadataStore, taskContext, testClusterId, 30L, properties(), null, cycle, null, null, null);
+        TaskMetadata recurring = new TaskMetadata("discovery", 1);
+        recurring.setSchedule("repeat");
+        when(metadataStore.getAllTasks(testClusterId)).thenReturn(List.of(recurring));
+
+        // When
+        manager.processTaskLoop();
+
+        // Then
+        verify(cycle).run();
+        verify(metadataStore, never()).updateTask(anyString(), any(TaskMetadata.class));
+        assertThat(taskManager.getLastReconcileCycle()).isEmpty();
+    }
+
+    @Test
+    void testProcessTaskLoop_OneShotTasksAreLeftToTheTaskQueue() throws Exception {
+        // Given
+        ReconcileCycle cycle = mock(ReconcileCycle.class);
+        TaskQueue queue = mock(TaskQueue.class);
+        TaskManager manager = new TaskManager(metadataStore, taskContext, testClusterId, 30L, properties(), null, cycle, null, null,
+            queue);
+        TaskMetadata oneShot = new TaskMetadata("one-shot", 5);
+        oneShot.setSchedule(TASK_SCHEDULE_ONCE);
+        when(metadataStore.getAllTasks(testClusterId)).thenReturn(List.of(oneShot));
+
+        // When
+        manager.processTaskLoop();
+        manager.stop();
+
+        // Then
+        verify(cycle).run();
+        verify(metadataStore, never()).updateTask(anyString(), any(TaskMetadata.class));
+        assertThat(oneShot.getStatus()).isEqualTo(TASK_STATUS_PENDING);
+        verify(queue).close();
+    }
+
+    @Test
+    void testRequestPass_EventsWithinDebounceWindowRunOnePass() throws Exception {
+        // Given
+        ReconcileTrigger trigger = mock(ReconcileTrigger.class);
+        when(trigger.getDebounceMs()).thenReturn(200L);
+        when(trigger.getResyncIntervalSeconds()).thenReturn(3600L);
+        // Every pass lists the tasks, so the listings count the passes
+        when(trigger.pollTaskChanges()).thenReturn(true);
+        when(metadataStore.getTask(anyString(), anyString())).thenReturn(Optional.of(new TaskMetadata()));
+        when(metadataStore.getAllTasks(testClusterId)).thenReturn(List.of());
+        TaskManager manager = new TaskManager(metadataStore, taskContext, testClusterId, 30L,
+            properties(0L, false, DEFAULT_TASK_CHECKPOINT_INTERVAL_SECONDS), null, null, trigger, null, null);
+        manager.start();
+        verify(trigger).start(any(Runnable.class), any(Runnable.class));
+        // The initial pass
+        verify(metadataStore, timeout(2000).times(1)).getAllTasks(testClusterId);
+
+        // When
+        manager.requestPass();
+        manager.requestPass();
+        manager.requestPass();
+
+        // Then
+        verify(metadataStore, timeout(2000).times(2)).getAllTasks(testClusterId);
+        Thread.sleep(400);
+        verify(metadataStore, times(2)).getAllTasks(testClusterId);
+
+        manager.stop();
+        verify(trigger).close();
+    }
+
+    @Test
+    void testStart_EventDrivenLoopKeepsTheResyncIntervalOverAnAdaptiveOne() throws Exception {
+        // Given: an adaptive interval that would poll every 50ms
+        ReconcileTrigger trigger = mock(ReconcileTrigger.class);
+        when(trigger.getResyncIntervalSeconds()).thenReturn(3600L);
+        // Every pass lists the tasks, so the listings count the passes
+        when(trigger.pollTaskChanges()).thenReturn(true);
+        AdaptiveInterval adaptiveInterval = mock(AdaptiveInterval.class);
+        when(adaptiveInterval.getIntervalMillis()).thenReturn(50L);
+        when(metadataStore.getTask(anyString(), anyString())).thenReturn(Optional.of(new TaskMetadata()));
+        when(metadataStore.getAllTasks(testClusterId)).thenReturn(List.of());
+        TaskManager manager = new TaskManager(metadataStore, taskContext, testClusterId, 30L,
+            properties(0L, false, DEFAULT_TASK_CHECKPOINT_INTERVAL_SECONDS), null, null, trigger, adaptiveInterval, null);
+
+        // When
+        manager.start();
+
+        // Then: only the initial pass runs, the next one is the resync
+        verify(metadataStore, timeout(2000).times(1)).getAllTasks(testClusterId);
+        Thread.sleep(300);
+        manager.stop();
+        verify(metadataStore, times(1)).getAllTasks(testClusterId);
+        verify(adaptiveInterval, never()).getIntervalMillis();
+        verify(adaptiveInterval, never()).observe(any());
+    }
+
+    @Test
+    void testStart_EventDrivenTaskQueueIsPolledOnTaskChangesInsteadOfTheInterval() throws Exception {
+        // Given: a queue that would be polled every 10ms
+        ReconcileTrigger trigger = mock(ReconcileTrigger.class);
+        when(trigger.getResyncIntervalSeconds()).thenReturn(3600L);
+        TaskQueue queue = mock(TaskQueue.class);
+        when(queue.getPollIntervalMs()).thenReturn(10L);
+        when(metadataStore.getTask(anyString(), anyString())).thenReturn(Optional.of(new TaskMetadata()));
+        TaskManager manager = new TaskManager(metadataStore, taskContext, testClusterId, 30L,
+            properties(0L, false, DEFAULT_TASK_CHECKPOINT_INTERVAL_SECONDS), null, null, trigger, null, queue);
+        ArgumentCaptor<Runnable> onTaskChange = ArgumentCaptor.forClass(Runnable.class);
+
+        // When
+        manager.start();
+        verify(trigger).start(any(Runnable.class), onTaskChange.capture());
+
+        // Then: the initial poll, then one per batch of task changes
+        verify(queue, timeout(2000).times(1)).poll();
+        Thread.sleep(200);
+        verify(queue, times(1)).poll();
+        onTaskChange.getValue().run();
+        verify(queue, timeout(2000).times(2)).poll();
+        manager.stop();
+    }
+
+    @Test
+    void testProcessTaskLoop_RecurringTaskStateIsCheckpointedOnlyOnOutcomeChanges() throws Exception {
+        // Given
+        Discovery discovery = mock(Discovery.class);
+        when(taskContext.getDiscovery()).thenReturn(discovery);
+        TaskManager manager = new TaskManager(metadataStore, taskContext, testClusterId, 30L,
+            properties(300L, false, 3600L), null, null, null, null, null);
+        TaskMetadata recurring = new TaskMetadata(TASK_ACTION_DISCOVERY, 1);
+        recurring.setSchedule(TASK_SCHEDULE_REPEAT);
+        when(metadataStore.getAllTasks(testClusterId)).thenReturn(List.of(recurring));
+
+        // When: the first run checkpoints the state, the next ones are kept in memory
+        manager.processTaskLoop();
+        manager.processTaskLoop();
+        manager.processTaskLoop();
+
+        // Then
+        verify(discovery, times(3)).discoverSearchUnits(testClusterId);
+        verify(metadataStore, times(1)).updateTask(eq(testClusterId), any(TaskMetadata.class));
+
+        // When: a run fails, then one succeeds again
+        doThrow(new RuntimeException("etcd unavailable")).when(discovery).discoverSearchUnits(testClusterId);
+        manager.processTaskLoop();
+        doNothing().when(discovery).discoverSearchUnits(testClusterId);
+        manager.processTaskLoop();
+
+        // Then: both changes of outcome are written, never the RUNNING state
+        ArgumentCaptor<TaskMetadata> updated = ArgumentCaptor.forClass(TaskMetadata.class);
+        verify(metadataStore, times(3)).updateTask(eq(testClusterId), updated.capture());
+        assertThat(updated.getAllValues()).extracting(TaskMetadata::getStatus).doesNotContain(TASK_STATUS_RUNNING);
+    }
+
+    @Test
+    void testProcessTaskLoop_EventDrivenListsTasksOnlyAfterTaskChanges() throws Exception {
+        // Given
+        ReconcileCycle cycle = mock(ReconcileCycle.class);
+        ReconcileTrigger trigger = mock(ReconcileTrigger.class);
+        TaskManager manager = new TaskManager(metadataStore, taskContext, testClusterId, 30L, properties(), null, cycle, trigger, null, null);
+        TaskMetadata recurring = new TaskMetadata(TASK_ACTION_DISCOVERY, 1);
+        recurring.setSchedule(TASK_SCHEDULE_REPEAT);
+        when(metadataStore.getAllTasks(testClusterId)).thenReturn(List.of(recurring));
+
+        // When: nothing was created after the first listing
+        manager.processTaskLoop();
+        manager.processTaskLoop();
+
+        // Then
+        verify(metadataStore, times(1)).getAllTasks(testClusterId);
+        verify(cycle, times(2)).run();
+
+        // When: the trigger saw a task created
+        when(trigger.pollTaskChanges()).thenReturn(true);
+        manager.processTaskLoop();
+
+        // Then
+        verify(metadataStore, times(2)).getAllTasks(testClusterId);
+    }
+
+    @Test
+    void testProcessTaskLoop_AdaptiveIntervalObservesTheSharedPass() throws Exception {
+        // Given
+        AdaptiveInterval adaptiveInterval = mock(AdaptiveInterval.class);
+        ReconcileCycle cycle = mock(ReconcileCycle.class);
+        TaskManager manager = new TaskManager(metadataStore, taskContext, testClusterId, 30L,
+            properties(300L, false, 3600L), null, cycle, null, adaptiveInterval, null);
+        when(metadataStore.getAllTasks(testClusterId)).thenReturn(List.of());
+        // A store without snapshots: the pass is judged without one
+        when(metadataStore.loadClusterSnapshot(testClusterId)).thenReturn(null);
+
+        // When
+        manager.processTaskLoop();
+
+        // Then
+        verify(cycle).run();
+        verify(metadataStore, times(1)).loadClusterSnapshot(testClusterId);
+        verify(adaptiveInterval).observe(Optional.empty());
+    }
+
+    @Test
+    void testProcessTaskLoop_PassIsTracedThroughTheTaskContext() throws Exception {
+        // Given
+        PassTracer tracer = new PassTracer(null, 5, 100);
+        Discovery discovery = mock(Discovery.class);
+        when(taskContext.getTracer()).thenReturn(tracer);
+        when(taskContext.getDiscovery()).thenReturn(discovery);
+        TaskManager manager = new TaskManager(metadataStore, taskContext, testClusterId, 30L);
+        TaskMetadata recurring = new TaskMetadata(TASK_ACTION_DISCOVERY, 1);
+        recurring.setSchedule(TASK_SCHEDULE_REPEAT);
+        when(metadataStore.getAllTasks(testClusterId)).thenReturn(List.of(recurring));
+
+        // When
+        manager.processTaskLoop();
+
+        // Then
+        List<PassTracer.PassTrace> traces = tracer.getTraces(testClusterId);
+        assertThat(traces).hasSize(1);
+        PassTracer.SpanRecord root = traces.get(0).root();
+        assertThat(root.children()).extracting(PassTracer.SpanRecord::name)
+            .containsExactly("list-tasks", TASK_ACTION_DISCOVERY);
+        assertThat(root.children().get(1).tags()).containsEntry("status", TASK_STATUS_COMPLETED);
+    }
+}
@@ -0,0 +1,356 @@
+package io.clustercontroller;
+
+import io.clustercontroller.indices.IndexManager;
+import io.clustercontroller.models.TaskMetadata;
+import io.clustercontroller.store.MetadataStore;
+import io.clustercontroller.store.VersionConflictException;
+import io.clustercontroller.store.Versioned;
+import io.clustercontroller.tasks.TaskContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.clustercontroller.config.Constants.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TaskQueueTest {
+
+    private static final String CLUSTER = "test-cluster";
+    private static final long LEASE_ID = 42L;
+
+    @Mock
+    private MetadataStore metadataStore;
+
+    @Mock
+    private TaskContext taskContext;
+
+    @Mock
+    private IndexManager indexManager;
+
+    // "<task>:<status>" of every task write, in order
+    private final List<String> writes = new CopyOnWriteArrayList<>();
+    // The tasks as stored, each at the revision of its last write
+    private final Map<String, Versioned<TaskMetadata>> stored = new ConcurrentHashMap<>();
+    private final AtomicLong revision = new AtomicLong();
+    private TaskQueue queue;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        when(taskContext.getIndexManager()).thenReturn(indexManager);
+        when(metadataStore.claimTask(eq(CLUSTER), anyString(), eq("controller-1"), eq(LEASE_ID))).thenReturn(true);
+        when(metadataStore.getTaskVersioned(eq(CLUSTER), anyString()))
+            .thenAnswer(invocation -> read(invocation.getArgument(1)));
+        when(metadataStore.updateTask(eq(CLUSTER), any(TaskMetadata.class), anyLong())).thenAnswer(invocation -> {
+            TaskMetadata task = invocation.getArgument(1);
+            long expectedRevision = invocation.getArgument(2);
+            synchronized (stored) {
+                if (read(task.getName()).getModRevision() != expectedRevision) {
+                    throw new VersionConflictException(task.getName(), expectedRevision, read(task.getName()));
+                }
+                writes.add(task.getName() + ":" + task.getStatus());
+                return store(task);
+            }
+        });
+    }
+
+    /**
+     * Stores a copy of the task at a new revision, as a write by anyone would.
+     */
+    private Versioned<TaskMetadata> store(TaskMetadata task) {
+        Versioned<TaskMetadata> written = Versioned.of(copy(task), revision.incrementAndGet());
+        stored.put(task.getName(), written);
+        return written;
+    }
+
+    private Versioned<TaskMetadata> read(String name) {
+        Versioned<TaskMetadata> current = stored.getOrDefault(name, Versioned.absent());
+        return current.isPresent() ? Versioned.of(copy(current.getValue()), current.getModRevision()) : current;
+    }
+
+    private TaskMetadata stored(String name) {
+        return stored.get(name).getValue();
+    }
+
+    private static TaskMetadata copy(TaskMetadata task) {
+        TaskMetadata copy = task(task.getName(), task.getAction(), null, task.getPriority(), task.getCreateRevision());
+        copy.setSchedule(task.getSchedule());
+        copy.setInput(task.getInput());
+        copy.setStatus(task.getStatus());
+        copy.setOutput(task.getOutput());
+        copy.setDeadline(task.getDeadline());
+        copy.setCancelRequested(task.isCancelRequested());
+        return copy;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (queue != null) {
+            queue.close();
+        }
+    }
+
+    /**
+     * Tasks as a listing returns them, stored as listed.
+     */
+    private List<TaskMetadata> listed(TaskMetadata... tasks) {
+        for (TaskMetadata task : tasks) {
+            store(task);
+        }
+        return List.of(tasks);
+    }
+
+    private static TaskMetadata task(String name, String action, String index, int priority, long createRevision) {
+        TaskMetadata task = new TaskMetadata(name, priority);
+        task.setAction(action);
+        task.setSchedule(TASK_SCHEDULE_ONCE);
+        task.setInput("{\"index\":\"" + index + "\"}");
+        task.setCreateRevision(createRevision);
+        return task;
+    }
+
+    private static void awaitIdle(TaskQueue queue) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (queue.getRunningTasks() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(queue.getRunningTasks()).isZero();
+    }
+
+    @Test
+    void testStartsPendingTasksByPriorityThenCreateRevision() throws Exception {
+        // Given
+        queue = new TaskQueue(metadataStore, taskContext, CLUSTER, "controller-1", LEASE_ID, 1, 1000);
+        TaskMetadata low = task("low", TASK_ACTION_CREATE_INDEX, "a", 5, 10);
+        TaskMetadata later = task("later", TASK_ACTION_CREATE_INDEX, "b", 1, 20);
+        TaskMetadata first = task("first", TASK_ACTION_CREATE_INDEX, "c", 1, 15);
+
+        // When
+        queue.dispatch(listed(low, later, first));
+        awaitIdle(queue);
+
+        // Then
+        verify(metadataStore).claimTask(CLUSTER, "first", "controller-1", LEASE_ID);
+        verify(metadataStore, never()).claimTask(eq(CLUSTER), eq("later"), anyString(), anyLong());
+        verify(indexManager).createIndex(CLUSTER, "c", "{}");
+        verify(metadataStore).releaseTaskClaim(CLUSTER, "first");
+        assertThat(writes).containsExactly("first:" + TASK_STATUS_RUNNING, "first:" + TASK_STATUS_COMPLETED);
+    }
+
+    @Test
+    void testIndependentTasksRunTogetherAndTasksOnOneIndexInOrder() throws Exception {
+        // Given
+        queue = new TaskQueue(metadataStore, taskContext, CLUSTER, "controller-1", LEASE_ID, 4, 1000);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(2);
+        doAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return "{}";
+        }).when(indexManager).createIndex(eq(CLUSTER), anyString(), anyString());
+        TaskMetadata createA = task("create-a", TASK_ACTION_CREATE_INDEX, "a", 1, 1);
+        TaskMetadata deleteA = task("delete-a", TASK_ACTION_DELETE_INDEX, "a", 1, 2);
+        TaskMetadata createB = task("create-b", TASK_ACTION_CREATE_INDEX, "b", 1, 3);
+
+        // When
+        queue.dispatch(listed(createA, deleteA, createB));
+
+        // Then
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(queue.getRunningTasks()).isEqualTo(2);
+        verify(metadataStore, never()).claimTask(eq(CLUSTER), eq("delete-a"), anyString(), anyLong());
+
+        release.countDown();
+        awaitIdle(queue);
+        verify(indexManager, never()).deleteIndex(anyString(), anyString());
+    }
+
+    @Test
+    void testCancelledAndExpiredPendingTasksAreNotStarted() throws Exception {
+        // Given
+        queue = new TaskQueue(metadataStore, taskContext, CLUSTER, "controller-1", LEASE_ID, 4, 1000);
+        TaskMetadata cancelled = task("cancelled", TASK_ACTION_CREATE_INDEX, "a", 1, 1);
+        cancelled.setCancelRequested(true);
+        TaskMetadata expired = task("expired", TASK_ACTION_CREATE_INDEX, "b", 1, 2);
+        expired.setDeadline(OffsetDateTime.now().minusSeconds(1));
+
+        // When
+        queue.dispatch(listed(cancelled, expired));
+
+        // Then
+        assertThat(writes).containsExactly("cancelled:" + TASK_STATUS_CANCELLED, "expired:" + TASK_STATUS_FAILED);
+        assertThat(stored("expired").getOutput()).isEqualTo("Deadline exceeded before it started");
+        verify(metadataStore, never()).claimTask(anyString(), anyString(), anyString(), anyLong());
+        verifyNoInteractions(indexManager);
+    }
+
+    @Test
+    void testCancellingARunningTaskInterruptsIt() throws Exception {
+        // Given
+        queue = new TaskQueue(metadataStore, taskContext, CLUSTER, "controller-1", LEASE_ID, 4, 1000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return "{}";
+        }).when(indexManager).createIndex(eq(CLUSTER), anyString(), anyString());
+        queue.dispatch(listed(task("slow", TASK_ACTION_CREATE_INDEX, "a", 1, 1)));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        TaskMetadata cancelRequested = task("slow", TASK_ACTION_CREATE_INDEX, "a", 1, 1);
+        cancelRequested.setStatus(TASK_STATUS_RUNNING);
+        cancelRequested.setCancelRequested(true);
+        queue.dispatch(listed(cancelRequested));
+
+        // Then
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+        awaitIdle(queue);
+        assertThat(writes).containsExactly("slow:" + TASK_STATUS_RUNNING, "slow:" + TASK_STATUS_CANCELLED);
+        verify(metadataStore).releaseTaskClaim(CLUSTER, "slow");
+    }
+
+    @Test
+    void testRunningTaskWithoutClaimIsQueuedAgain() throws Exception {
+        // Given
+        queue = new TaskQueue(metadataStore, taskContext, CLUSTER, "controller-1", LEASE_ID, 4, 1000);
+        TaskMetadata orphaned = task("orphaned", TASK_ACTION_CREATE_INDEX, "a", 1, 1);
+        orphaned.setStatus(TASK_STATUS_RUNNING);
+        TaskMetadata elsewhere = task("elsewhere", TASK_ACTION_CREATE_INDEX, "b", 1, 2);
+        elsewhere.setStatus(TASK_STATUS_RUNNING);
+        when(metadataStore.isTaskClaimed(CLUSTER, "orphaned")).thenReturn(false);
+        when(metadataStore.isTaskClaimed(CLUSTER, "elsewhere")).thenReturn(true);
+
+        // When
+        queue.dispatch(listed(orphaned, elsewhere));
+
+        // Then
+        assertThat(writes).containsExactly("orphaned:" + TASK_STATUS_PENDING);
+        verifyNoInteractions(indexManager);
+    }
+
+    @Test
+    void testTaskClaimedByAnotherControllerIsSkipped() throws Exception {
+        // Given
+        queue = new TaskQueue(metadataStore, taskContext, CLUSTER, "controller-1", LEASE_ID, 4, 1000);
+        when(metadataStore.claimTask(CLUSTER, "taken", "controller-1", LEASE_ID)).thenReturn(false);
+
+        // When
+        queue.dispatch(listed(task("taken", TASK_ACTION_DELETE_INDEX, "a", 1, 1)));
+
+        // Then
+        assertThat(queue.getRunningTasks()).isZero();
+        assertThat(writes).isEmpty();
+        verifyNoInteractions(indexManager);
+    }
+
+    @Test
+    void testTaskCancelledSinceItWasListedIsNotStarted() throws Exception {
+        // Given
+        queue = new TaskQueue(metadataStore, taskContext, CLUSTER, "controller-1", LEASE_ID, 4, 1000);
+        List<TaskMetadata> listing = listed(task("create-a", TASK_ACTION_CREATE_INDEX, "a", 1, 1));
+        TaskMetadata cancelled = task("create-a", TASK_ACTION_CREATE_INDEX, "a", 1, 1);
+        cancelled.setCancelRequested(true);
+        store(cancelled);
+
+        // When
+        queue.dispatch(listing);
+
+        // Then
+        assertThat(writes).isEmpty();
+        assertThat(queue.getRunningTasks()).isZero();
+        verify(metadataStore).releaseTaskClaim(CLUSTER, "create-a");
+        verifyNoInteractions(indexManager);
+    }
+
+    @Test
+    void testOutcomeKeepsACancelRequestWrittenDuringTheRun() throws Exception {
+        // Given
+        queue = new TaskQueue(metadataStore, taskContext, CLUSTER, "controller-1", LEASE_ID, 4, 1000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return "{}";
+        }).when(indexManager).createIndex(eq(CLUSTER), anyString(), anyString());
+        queue.dispatch(listed(task("create-a", TASK_ACTION_CREATE_INDEX, "a", 1, 1)));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        // The outcome is written against the task as read before the cancel request
+        Versioned<TaskMetadata> beforeCancel = read("create-a");
+        doReturn(beforeCancel).doAnswer(invocation -> read(invocation.getArgument(1)))
+            .when(metadataStore).getTaskVersioned(CLUSTER, "create-a");
+        TaskMetadata cancelRequested = stored("create-a");
+        cancelRequested.setCancelRequested(true);
+        store(cancelRequested);
+
+        // When
+        release.countDown();
+        awaitIdle(queue);
+
+        // Then
+        assertThat(writes).containsExactly("create-a:" + TASK_STATUS_RUNNING, "create-a:" + TASK_STATUS_COMPLETED);
+        assertThat(stored("create-a").isCancelRequested()).isTrue();
+        verify(metadataStore, times(2)).updateTask(eq(CLUSTER), argThat(task -> TASK_STATUS_COMPLETED.equals(task.getStatus())), anyLong());
+    }
+
+    @Test
+    void testOrphanedTaskFinishedMeanwhileIsNotQueuedAgain() throws Exception {
+        // Given
+        queue = new TaskQueue(metadataStore, taskContext, CLUSTER, "controller-1", LEASE_ID, 4, 1000);
+        TaskMetadata orphaned = task("orphaned", TASK_ACTION_CREATE_INDEX, "a", 1, 1);
+        orphaned.setStatus(TASK_STATUS_RUNNING);
+        List<TaskMetadata> listing = listed(orphaned);
+        TaskMetadata completed = task("orphaned", TASK_ACTION_CREATE_INDEX, "a", 1, 1);
+        completed.setStatus(TASK_STATUS_COMPLETED);
+        store(completed);
+
+        // When
+        queue.dispatch(listing);
+
+        // Then
+        assertThat(writes).isEmpty();
+        assertThat(stored("orphaned").getStatus()).isEqualTo(TASK_STATUS_COMPLETED);
+    }
+
+    @Test
+    void testDeadlineOfAWaitingTaskComesDue() throws Exception {
+        // Given
+        queue = new TaskQueue(metadataStore, taskContext, CLUSTER, "controller-1", LEASE_ID, 4, 1000);
+        when(metadataStore.claimTask(CLUSTER, "taken", "controller-1", LEASE_ID)).thenReturn(false);
+        TaskMetadata taken = task("taken", TASK_ACTION_DELETE_INDEX, "a", 1, 1);
+        taken.setDeadline(OffsetDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(100)));
+        assertThat(queue.isDeadlineDue()).isFalse();
+
+        // When
+        queue.dispatch(listed(taken));
+
+        // Then
+        assertThat(queue.isDeadlineDue()).isFalse();
+        Thread.sleep(150);
+        assertThat(queue.isDeadlineDue()).isTrue();
+    }
+}
@@ -8,6 +8,7 @@ import io.clustercontroller.models.SearchUnit;
 import io.clustercontroller.models.SearchUnitActualState;
 import io.clustercontroller.models.ShardAllocation;
 import io.clustercontroller.store.MetadataStore;
+import io.clustercontroller.store.SequentialWriteBatch;
 import io.micrometer.core.instrument.Counter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -42,6 +43,8 @@ class ActualAllocationUpdaterCleanupTest {
     void setUp() {
         MockitoAnnotations.openMocks(this);
         updater = new ActualAllocationUpdater(metadataStore, metricsProvider);
+        // Batched writes go through the mocked store's single-key methods so they can be verified per call
+        lenient().when(metadataStore.newWriteBatch()).thenAnswer(invocation -> new SequentialWriteBatch(metadataStore));
         // Use lenient() for metrics since not all tests will trigger metric emissions
         lenient().when(metricsProvider.counter(anyString(), anyMap())).thenReturn(mockCounter);
     }
@@ -8,6 +8,7 @@ import io.clustercontroller.models.Index;
 import io.clustercontroller.models.SearchUnit;
 import io.clustercontroller.models.ShardAllocation;
 import io.clustercontroller.store.MetadataStore;
+import io.clustercontroller.store.SequentialWriteBatch;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -47,6 +48,8 @@ class ShardAllocatorTest {
         shardAllocator = new ShardAllocator(metadataStore, metricsProvider);
         // Inject the mock decision engine for testing
         shardAllocator.setAllocationDecisionEngine(allocationDecisionEngine);
+        // Batched writes go through the mocked store's single-key methods so they can be verified per call
+        lenient().when(metadataStore.newWriteBatch()).thenAnswer(invocation -> new SequentialWriteBatch(metadataStore));
         // Use lenient() since not all tests call gauge (e.g., tests with empty nodes or no planned allocation)
         lenient().when(metricsProvider.gauge(anyString(), anyDouble(), anyMap())).thenReturn(new AtomicDouble(0.0));
     }
@@ -60,6 +63,7 @@ class ShardAllocatorTest {
         shardAllocator.planShardAllocation(testClusterId, AllocationStrategy.RESPECT_REPLICA_COUNT);
 
         // Then
+        verify(metadataStore).loadClusterSnapshot(testClusterId);
         verify(metadataStore).getAllIndexConfigs(testClusterId);
         verifyNoMoreInteractions(metadataStore);
         verify(metricsProvider, never()).gauge(anyString(), anyDouble(), anyMap());
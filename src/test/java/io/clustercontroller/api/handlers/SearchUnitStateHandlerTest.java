@@ -0,0 +1,91 @@
+package io.clustercontroller.api.handlers;
+
+import io.clustercontroller.models.SearchUnitActualState;
+import io.clustercontroller.models.SearchUnitGoalState;
+import io.clustercontroller.store.MetadataStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class SearchUnitStateHandlerTest {
+
+    @Mock
+    private MetadataStore metadataStore;
+
+    private SearchUnitStateHandler handler;
+
+    private final String testClusterId = "test-cluster";
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        handler = new SearchUnitStateHandler(metadataStore);
+    }
+
+    @Test
+    void testPutActualState_Success() throws Exception {
+        // Given
+        SearchUnitActualState actualState = new SearchUnitActualState();
+
+        // When
+        ResponseEntity<Object> response = handler.putActualState(testClusterId, "node1", actualState);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        verify(metadataStore).setSearchUnitActualState(testClusterId, "node1", actualState);
+    }
+
+    @Test
+    void testPutActualState_MissingBody() throws Exception {
+        // When
+        ResponseEntity<Object> response = handler.putActualState(testClusterId, "node1", null);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        verify(metadataStore, never()).setSearchUnitActualState(anyString(), anyString(), any());
+    }
+
+    @Test
+    void testPutActualState_StoreFailure() throws Exception {
+        // Given
+        doThrow(new Exception("store unavailable"))
+            .when(metadataStore).setSearchUnitActualState(anyString(), anyString(), any());
+
+        // When
+        ResponseEntity<Object> response = handler.putActualState(testClusterId, "node1", new SearchUnitActualState());
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    @Test
+    void testGetGoalState_Success() throws Exception {
+        // Given
+        SearchUnitGoalState goalState = new SearchUnitGoalState();
+        when(metadataStore.getSearchUnitGoalState(testClusterId, "node1")).thenReturn(goalState);
+
+        // When
+        ResponseEntity<Object> response = handler.getGoalState(testClusterId, "node1");
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isSameAs(goalState);
+    }
+
+    @Test
+    void testGetGoalState_NotFound() throws Exception {
+        // When
+        ResponseEntity<Object> response = handler.getGoalState(testClusterId, "node1");
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+}
@@ -0,0 +1,188 @@
+package io.clustercontroller.api.handlers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.clustercontroller.api.models.requests.TaskRequest;
+import io.clustercontroller.config.TaskProperties;
+import io.clustercontroller.models.TaskMetadata;
+import io.clustercontroller.store.MetadataStore;
+import io.clustercontroller.store.VersionConflictException;
+import io.clustercontroller.store.Versioned;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+import static io.clustercontroller.config.Constants.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TaskHandlerTest {
+
+    @Mock
+    private MetadataStore metadataStore;
+
+    private TaskHandler taskHandler;
+
+    private final String testClusterId = "test-cluster";
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        taskHandler = new TaskHandler(metadataStore, new ObjectMapper(), properties(4));
+    }
+
+    private static TaskProperties properties(int queueMaxConcurrent) {
+        TaskProperties properties = new TaskProperties();
+        properties.setQueueMaxConcurrent(queueMaxConcurrent);
+        return properties;
+    }
+
+    private static TaskMetadata oneShotTask(String status) {
+        TaskMetadata task = new TaskMetadata("create_index-1", 10);
+        task.setSchedule(TASK_SCHEDULE_ONCE);
+        task.setStatus(status);
+        return task;
+    }
+
+    @Test
+    void testSubmitTask_Success() throws Exception {
+        // Given
+        TaskRequest request = TaskRequest.builder()
+            .action(TASK_ACTION_CREATE_INDEX)
+            .input(Map.of("index", "logs-1"))
+            .priority(3)
+            .timeoutSeconds(600L)
+            .build();
+
+        // When
+        ResponseEntity<Object> response = taskHandler.submitTask(testClusterId, request);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        ArgumentCaptor<TaskMetadata> created = ArgumentCaptor.forClass(TaskMetadata.class);
+        verify(metadataStore).createTask(eq(testClusterId), created.capture());
+        TaskMetadata task = created.getValue();
+        assertThat(task.getName()).startsWith(TASK_ACTION_CREATE_INDEX + "-");
+        assertThat(task.getAction()).isEqualTo(TASK_ACTION_CREATE_INDEX);
+        assertThat(task.getSchedule()).isEqualTo(TASK_SCHEDULE_ONCE);
+        assertThat(task.getStatus()).isEqualTo(TASK_STATUS_PENDING);
+        assertThat(task.getPriority()).isEqualTo(3);
+        assertThat(task.getInput()).isEqualTo("{\"index\":\"logs-1\"}");
+        assertThat(task.getDeadline()).isAfter(OffsetDateTime.now());
+    }
+
+    @Test
+    void testSubmitTask_RecurringActionIsRejected() throws Exception {
+        // Given
+        TaskRequest request = TaskRequest.builder().action(TASK_ACTION_DISCOVERY).build();
+
+        // When
+        ResponseEntity<Object> response = taskHandler.submitTask(testClusterId, request);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        verify(metadataStore, never()).createTask(anyString(), any(TaskMetadata.class));
+    }
+
+    @Test
+    void testGetTask_NotFound() throws Exception {
+        // Given
+        when(metadataStore.getTask(testClusterId, "missing")).thenReturn(Optional.empty());
+
+        // When
+        ResponseEntity<Object> response = taskHandler.getTask(testClusterId, "missing");
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void testSubmitTask_DeadlineIsRejectedWithoutTaskQueue() throws Exception {
+        // Given
+        taskHandler = new TaskHandler(metadataStore, new ObjectMapper(), properties(0));
+        TaskRequest request = TaskRequest.builder()
+            .action(TASK_ACTION_CREATE_INDEX)
+            .input(Map.of("index", "logs-1"))
+            .timeoutSeconds(600L)
+            .build();
+
+        // When
+        ResponseEntity<Object> response = taskHandler.submitTask(testClusterId, request);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        verify(metadataStore, never()).createTask(anyString(), any(TaskMetadata.class));
+    }
+
+    @Test
+    void testCancelTask_PendingTaskIsMarked() throws Exception {
+        // Given
+        TaskMetadata task = oneShotTask(TASK_STATUS_PENDING);
+        when(metadataStore.getTaskVersioned(testClusterId, task.getName())).thenReturn(Versioned.of(task, 7L));
+
+        // When
+        ResponseEntity<Object> response = taskHandler.cancelTask(testClusterId, task.getName());
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(task.isCancelRequested()).isTrue();
+        verify(metadataStore).updateTask(testClusterId, task, 7L);
+        verify(metadataStore, never()).updateTask(anyString(), any(TaskMetadata.class));
+    }
+
+    @Test
+    void testCancelTask_FinishedTaskIsRejected() throws Exception {
+        // Given
+        TaskMetadata task = oneShotTask(TASK_STATUS_COMPLETED);
+        when(metadataStore.getTaskVersioned(testClusterId, task.getName())).thenReturn(Versioned.of(task, 7L));
+
+        // When
+        ResponseEntity<Object> response = taskHandler.cancelTask(testClusterId, task.getName());
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        verify(metadataStore, never()).updateTask(anyString(), any(TaskMetadata.class), anyLong());
+    }
+
+    @Test
+    void testCancelTask_TaskCompletedMeanwhileIsNotResurrected() throws Exception {
+        // Given
+        TaskMetadata running = oneShotTask(TASK_STATUS_RUNNING);
+        TaskMetadata completed = oneShotTask(TASK_STATUS_COMPLETED);
+        when(metadataStore.getTaskVersioned(testClusterId, running.getName())).thenReturn(Versioned.of(running, 7L));
+        when(metadataStore.updateTask(testClusterId, running, 7L))
+            .thenThrow(new VersionConflictException("tasks/create_index-1", 7L, Versioned.of(completed, 9L)));
+
+        // When
+        ResponseEntity<Object> response = taskHandler.cancelTask(testClusterId, running.getName());
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(completed.isCancelRequested()).isFalse();
+        verify(metadataStore, never()).updateTask(eq(testClusterId), eq(completed), anyLong());
+    }
+
+    @Test
+    void testCancelTask_RejectedWithoutTaskQueue() throws Exception {
+        // Given
+        taskHandler = new TaskHandler(metadataStore, new ObjectMapper(), properties(0));
+
+        // When
+        ResponseEntity<Object> response = taskHandler.cancelTask(testClusterId, "create_index-1");
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        verifyNoInteractions(metadataStore);
+    }
+}
@@ -0,0 +1,74 @@
+package io.clustercontroller.api.handlers;
+
+import io.clustercontroller.tracing.PassTracer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TraceHandlerTest {
+
+    private final String testClusterId = "test-cluster";
+
+    private PassTracer passTracer;
+    private TraceHandler traceHandler;
+
+    @BeforeEach
+    void setUp() {
+        passTracer = new PassTracer(null, 10, 100);
+        traceHandler = new TraceHandler(passTracer);
+        for (int i = 0; i < 3; i++) {
+            try (PassTracer.Span pass = passTracer.startPass(testClusterId)) {
+                PassTracer.tag("pass", i);
+            }
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetTraces_NewestFirst() {
+        // When
+        ResponseEntity<Object> response = traceHandler.getTraces(testClusterId, null);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        List<PassTracer.PassTrace> traces = (List<PassTracer.PassTrace>) response.getBody();
+        assertThat(traces).extracting(trace -> trace.root().tags().get("pass")).containsExactly("2", "1", "0");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetTraces_WithLimit() {
+        // When
+        ResponseEntity<Object> response = traceHandler.getTraces(testClusterId, 1);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        List<PassTracer.PassTrace> traces = (List<PassTracer.PassTrace>) response.getBody();
+        assertThat(traces).hasSize(1);
+        assertThat(traces.get(0).root().tags()).containsEntry("pass", "2");
+    }
+
+    @Test
+    void testGetTraces_UnknownClusterIsEmpty() {
+        // When
+        ResponseEntity<Object> response = traceHandler.getTraces("other-cluster", null);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(List.of());
+    }
+
+    @Test
+    void testGetTraces_NegativeLimit() {
+        // When
+        ResponseEntity<Object> response = traceHandler.getTraces(testClusterId, -1);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+}
@@ -0,0 +1,43 @@
+package io.clustercontroller.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+import java.util.Map;
+
+import static io.clustercontroller.config.Constants.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for TaskProperties.
+ */
+class TaskPropertiesTest {
+
+    private static TaskProperties bind(Map<String, String> properties) {
+        Binder binder = new Binder(new MapConfigurationPropertySource(properties));
+        return binder.bindOrCreate("task", TaskProperties.class);
+    }
+
+    @Test
+    void testSnakeCaseKeysFromApplicationYmlAreBound() {
+        TaskProperties properties = bind(Map.of(
+            "task.queue_max_concurrent", "8",
+            "task.event_driven", "true",
+            "task.adaptive_interval_max_seconds", "30"));
+
+        assertThat(properties.getQueueMaxConcurrent()).isEqualTo(8);
+        assertThat(properties.isEventDriven()).isTrue();
+        assertThat(properties.getAdaptiveIntervalMaxSeconds()).isEqualTo(30L);
+    }
+
+    @Test
+    void testMissingKeysKeepTheDefaults() {
+        TaskProperties properties = bind(Map.of());
+
+        assertThat(properties.getMaxConcurrentPasses()).isEqualTo(DEFAULT_TASK_MAX_CONCURRENT_PASSES);
+        assertThat(properties.getResyncIntervalSeconds()).isEqualTo(DEFAULT_TASK_RESYNC_INTERVAL_SECONDS);
+        assertThat(properties.getQueueMaxConcurrent()).isEqualTo(DEFAULT_TASK_QUEUE_MAX_CONCURRENT);
+        assertThat(properties.getTracePasses()).isEqualTo(DEFAULT_TASK_TRACE_PASSES);
+    }
+}
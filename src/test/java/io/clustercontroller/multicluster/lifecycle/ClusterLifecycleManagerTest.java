@@ -9,11 +9,11 @@ import io.clustercontroller.multicluster.lock.DistributedLockManager;
 import io.clustercontroller.store.EtcdPathResolver;
 import io.clustercontroller.orchestration.GoalStateOrchestrator;
 import io.clustercontroller.store.MetadataStore;
+import io.clustercontroller.store.WatchHub;
 import io.clustercontroller.tasks.TaskContext;
 import io.etcd.jetcd.ByteSequence;
 import io.etcd.jetcd.Client;
 import io.etcd.jetcd.KV;
-import io.etcd.jetcd.Watch;
 import io.etcd.jetcd.support.CloseableClient;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -61,7 +61,7 @@ class ClusterLifecycleManagerTest {
     private EtcdPathResolver pathResolver;
 
     @Mock
-    private Watch.Watcher mockWatcher;
+    private WatchHub.Subscription mockWatcher;
 
     @Mock
     private CloseableClient mockKeepAlive;
@@ -159,6 +159,27 @@ class ClusterLifecycleManagerTest {
         verify(lockManager).releaseLock(lock);
     }
 
+    @Test
+    void testStopCluster_LeavesAssignmentKeysToTheLease() throws Exception {
+        // Given
+        String clusterId = "test-cluster";
+        ClusterLock lock = new ClusterLock(clusterId, 1L, ByteSequence.from("lock".getBytes()), mockKeepAlive);
+        when(lockManager.watchLock(any(), any(Runnable.class))).thenReturn(mockWatcher);
+        when(pathResolver.getClusterAssignedControllerPath(clusterId))
+            .thenReturn("/multi-cluster/clusters/test-cluster/assigned-to");
+
+        lifecycleManager.startCluster(clusterId, lock);
+        // Both assignment keys are written before startCluster returns
+        verify(kvClient, times(2)).put(any(ByteSequence.class), any(ByteSequence.class), any());
+
+        // When
+        lifecycleManager.stopCluster(clusterId);
+
+        // Then - revoking the lease removes them; a delete could hit a new owner's keys
+        verify(lockManager).releaseLock(lock);
+        verify(kvClient, never()).delete(any(ByteSequence.class));
+    }
+
     @Test
     void testStopCluster_NonExistent() {
         // When/Then - should not throw exception
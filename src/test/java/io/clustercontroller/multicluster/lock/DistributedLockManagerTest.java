@@ -1,8 +1,10 @@
 package io.clustercontroller.multicluster.lock;
 
 import io.clustercontroller.store.EtcdPathResolver;
+import io.clustercontroller.store.WatchHub;
 import io.etcd.jetcd.ByteSequence;
 import io.etcd.jetcd.Client;
+import io.etcd.jetcd.KeyValue;
 import io.etcd.jetcd.support.CloseableClient;
 import io.etcd.jetcd.Lease;
 import io.etcd.jetcd.Lock;
@@ -55,9 +57,8 @@ class DistributedLockManagerTest {
     void setUp() {
         lenient().when(etcdClient.getLeaseClient()).thenReturn(leaseClient);
         lenient().when(etcdClient.getLockClient()).thenReturn(lockClient);
-        lenient().when(etcdClient.getWatchClient()).thenReturn(watchClient);
         
-        lockManager = new DistributedLockManager(etcdClient, pathResolver);
+        lockManager = new DistributedLockManager(etcdClient, new WatchHub(watchClient, Runnable::run), pathResolver);
     }
 
     @Test
@@ -219,27 +220,30 @@ class DistributedLockManagerTest {
         Consumer<WatchResponse>[] callbackCaptor = new Consumer[1];
         
         Watch.Watcher mockWatcher = mock(Watch.Watcher.class);
-        when(watchClient.watch(eq(lockKey), any(Consumer.class)))
+        when(watchClient.watch(eq(lockKey), any(WatchOption.class), any(Consumer.class), any(Consumer.class)))
             .thenAnswer(invocation -> {
-                callbackCaptor[0] = invocation.getArgument(1);
+                callbackCaptor[0] = invocation.getArgument(2);
                 return mockWatcher;
             });
         
         Runnable onLockLost = mock(Runnable.class);
         
         // When
-        Watch.Watcher watcher = lockManager.watchLock(lock, onLockLost);
+        WatchHub.Subscription watcher = lockManager.watchLock(lock, onLockLost);
         
         // Simulate lock key deletion
         WatchResponse watchResponse = mock(WatchResponse.class);
+        KeyValue kv = mock(KeyValue.class);
+        when(kv.getKey()).thenReturn(lockKey);
         WatchEvent deleteEvent = mock(WatchEvent.class);
+        when(deleteEvent.getKeyValue()).thenReturn(kv);
         when(deleteEvent.getEventType()).thenReturn(WatchEvent.EventType.DELETE);
         when(watchResponse.getEvents()).thenReturn(List.of(deleteEvent));
         callbackCaptor[0].accept(watchResponse);
         
         // Then
         assertThat(watcher).isNotNull();
-        verify(watchClient).watch(eq(lockKey), any(Consumer.class));
+        verify(watchClient).watch(eq(lockKey), any(WatchOption.class), any(Consumer.class), any(Consumer.class));
         verify(onLockLost).run();
     }
 }
@@ -1,6 +1,7 @@
 package io.clustercontroller.multicluster.registry;
 
 import io.clustercontroller.store.EtcdPathResolver;
+import io.clustercontroller.store.WatchHub;
 import io.etcd.jetcd.ByteSequence;
 import io.etcd.jetcd.Client;
 import io.etcd.jetcd.KV;
@@ -9,6 +10,7 @@ import io.etcd.jetcd.Watch;
 import io.etcd.jetcd.kv.GetResponse;
 import io.etcd.jetcd.options.GetOption;
 import io.etcd.jetcd.options.WatchOption;
+import io.etcd.jetcd.watch.WatchEvent;
 import io.etcd.jetcd.watch.WatchResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -46,9 +48,8 @@ class ClusterRegistryTest {
     @BeforeEach
     void setUp() {
         when(etcdClient.getKVClient()).thenReturn(kvClient);
-        when(etcdClient.getWatchClient()).thenReturn(watchClient);
         
-        registry = new ClusterRegistry(etcdClient, pathResolver);
+        registry = new ClusterRegistry(etcdClient, new WatchHub(watchClient, Runnable::run), pathResolver);
     }
 
     @Test
@@ -135,7 +136,7 @@ class ClusterRegistryTest {
         Consumer<WatchResponse>[] callbackCaptor = new Consumer[1];
         
         Watch.Watcher mockWatcher = mock(Watch.Watcher.class);
-        when(watchClient.watch(any(ByteSequence.class), any(WatchOption.class), any(Consumer.class)))
+        when(watchClient.watch(any(ByteSequence.class), any(WatchOption.class), any(Consumer.class), any(Consumer.class)))
             .thenAnswer(invocation -> {
                 callbackCaptor[0] = invocation.getArgument(2);
                 return mockWatcher;
@@ -144,10 +145,15 @@ class ClusterRegistryTest {
         Runnable onClusterChange = mock(Runnable.class);
         
         // When
-        Watch.Watcher watcher = registry.watchClusters(onClusterChange);
+        WatchHub.Subscription watcher = registry.watchClusters(onClusterChange);
         
         // Simulate cluster change
+        KeyValue kv = mock(KeyValue.class);
+        when(kv.getKey()).thenReturn(ByteSequence.from(prefix + "cluster-1/metadata", UTF_8));
+        WatchEvent event = mock(WatchEvent.class);
+        when(event.getKeyValue()).thenReturn(kv);
         WatchResponse watchResponse = mock(WatchResponse.class);
+        when(watchResponse.getEvents()).thenReturn(List.of(event));
         callbackCaptor[0].accept(watchResponse);
         
         // Then
@@ -155,6 +161,7 @@ class ClusterRegistryTest {
         verify(watchClient).watch(
             eq(ByteSequence.from(prefix, UTF_8)),
             any(WatchOption.class),
+            any(Consumer.class),
             any(Consumer.class)
         );
         verify(onClusterChange).run();
@@ -1,6 +1,7 @@
 package io.clustercontroller.multicluster.registry;
 
 import io.clustercontroller.store.EtcdPathResolver;
+import io.clustercontroller.store.WatchHub;
 import io.etcd.jetcd.ByteSequence;
 import io.etcd.jetcd.Client;
 import io.etcd.jetcd.support.CloseableClient;
@@ -14,6 +15,7 @@ import io.etcd.jetcd.lease.LeaseGrantResponse;
 import io.etcd.jetcd.options.GetOption;
 import io.etcd.jetcd.options.PutOption;
 import io.etcd.jetcd.options.WatchOption;
+import io.etcd.jetcd.watch.WatchEvent;
 import io.etcd.jetcd.watch.WatchResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -58,9 +60,8 @@ class ControllerRegistryTest {
     void setUp() {
         when(etcdClient.getKVClient()).thenReturn(kvClient);
         when(etcdClient.getLeaseClient()).thenReturn(leaseClient);
-        when(etcdClient.getWatchClient()).thenReturn(watchClient);
         
-        registry = new ControllerRegistry(etcdClient, pathResolver);
+        registry = new ControllerRegistry(etcdClient, new WatchHub(watchClient, Runnable::run), pathResolver);
     }
 
     @Test
@@ -197,7 +198,8 @@ class ControllerRegistryTest {
         Consumer<WatchResponse>[] callbackCaptor = new Consumer[1];
         
         Watch.Watcher mockWatcher = mock(Watch.Watcher.class);
-        when(watchClient.watch(any(ByteSequence.class), any(WatchOption.class), (Consumer<WatchResponse>) any()))
+        when(watchClient.watch(any(ByteSequence.class), any(WatchOption.class), (Consumer<WatchResponse>) any(),
+                (Consumer<Throwable>) any()))
             .thenAnswer(invocation -> {
                 callbackCaptor[0] = invocation.getArgument(2);
                 return mockWatcher;
@@ -206,10 +208,15 @@ class ControllerRegistryTest {
         Runnable onMembershipChange = mock(Runnable.class);
         
         // When
-        Watch.Watcher watcher = registry.watchControllers(onMembershipChange);
+        WatchHub.Subscription watcher = registry.watchControllers(onMembershipChange);
         
         // Simulate controller change
+        KeyValue kv = mock(KeyValue.class);
+        when(kv.getKey()).thenReturn(ByteSequence.from(prefix + "controller-2/heartbeat", UTF_8));
+        WatchEvent event = mock(WatchEvent.class);
+        when(event.getKeyValue()).thenReturn(kv);
         WatchResponse watchResponse = mock(WatchResponse.class);
+        when(watchResponse.getEvents()).thenReturn(List.of(event));
         callbackCaptor[0].accept(watchResponse);
         
         // Then
@@ -217,7 +224,8 @@ class ControllerRegistryTest {
         verify(watchClient).watch(
             eq(ByteSequence.from(prefix, UTF_8)),
             any(WatchOption.class),
-            (Consumer<WatchResponse>) any()
+            (Consumer<WatchResponse>) any(),
+            (Consumer<Throwable>) any()
         );
         verify(onMembershipChange).run();
     }
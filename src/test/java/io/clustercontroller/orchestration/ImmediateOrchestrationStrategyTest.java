@@ -5,9 +5,12 @@ import io.clustercontroller.models.IndexSettings;
 import io.clustercontroller.models.ShardAllocation;
 import io.clustercontroller.models.SearchUnitGoalState;
 import io.clustercontroller.store.MetadataStore;
+import io.clustercontroller.store.VersionConflictException;
+import io.clustercontroller.store.Versioned;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -16,6 +19,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -49,11 +53,11 @@ class ImmediateOrchestrationStrategyTest {
         // Return a fresh empty goal state for each node (simulating separate states per node)
         when(metadataStore.getAllIndexConfigs(clusterId)).thenReturn(Arrays.asList(indexConfig));
         when(metadataStore.getPlannedAllocation(clusterId, indexName, "0")).thenReturn(planned);
-        when(metadataStore.getSearchUnitGoalState(eq(clusterId), anyString()))
+        when(metadataStore.getSearchUnitGoalStateVersioned(eq(clusterId), anyString()))
             .thenAnswer(invocation -> {
                 SearchUnitGoalState state = new SearchUnitGoalState();
                 state.setLocalShards(new HashMap<>());
-                return state;
+                return Versioned.of(state, 1L);
             });
 
         // When
@@ -64,9 +68,9 @@ class ImmediateOrchestrationStrategyTest {
         verify(metadataStore).getPlannedAllocation(clusterId, indexName, "0");
         
         // Verify goal states are set for all nodes
-        verify(metadataStore).setSearchUnitGoalState(eq(clusterId), eq("node1"), any(SearchUnitGoalState.class));
-        verify(metadataStore).setSearchUnitGoalState(eq(clusterId), eq("node2"), any(SearchUnitGoalState.class));
-        verify(metadataStore).setSearchUnitGoalState(eq(clusterId), eq("node3"), any(SearchUnitGoalState.class));
+        verify(metadataStore).setSearchUnitGoalState(eq(clusterId), eq("node1"), any(SearchUnitGoalState.class), anyLong());
+        verify(metadataStore).setSearchUnitGoalState(eq(clusterId), eq("node2"), any(SearchUnitGoalState.class), anyLong());
+        verify(metadataStore).setSearchUnitGoalState(eq(clusterId), eq("node3"), any(SearchUnitGoalState.class), anyLong());
     }
 
     @Test
@@ -96,14 +100,14 @@ class ImmediateOrchestrationStrategyTest {
         when(metadataStore.getPlannedAllocation(clusterId, "index1", "0")).thenReturn(planned1_0);
         when(metadataStore.getPlannedAllocation(clusterId, "index1", "1")).thenReturn(planned1_1);
         when(metadataStore.getPlannedAllocation(clusterId, "index2", "0")).thenReturn(planned2_0);
-        when(metadataStore.getSearchUnitGoalState(eq(clusterId), anyString()))
+        when(metadataStore.getSearchUnitGoalStateVersioned(eq(clusterId), anyString()))
             .thenAnswer(invocation -> {
                 String nodeId = invocation.getArgument(1);
-                return nodeGoalStates.computeIfAbsent(nodeId, k -> {
+                return Versioned.of(nodeGoalStates.computeIfAbsent(nodeId, k -> {
                     SearchUnitGoalState state = new SearchUnitGoalState();
                     state.setLocalShards(new HashMap<>());
                     return state;
-                });
+                }), 1L);
             });
 
         // When
@@ -119,7 +123,7 @@ class ImmediateOrchestrationStrategyTest {
         
         // Verify goal states are set for all nodes (7 total calls due to duplicate nodes across shards)
         // Each node/index/shard combination is unique, so all 7 updates should happen
-        verify(metadataStore, times(7)).setSearchUnitGoalState(eq(clusterId), anyString(), any(SearchUnitGoalState.class));
+        verify(metadataStore, times(7)).setSearchUnitGoalState(eq(clusterId), anyString(), any(SearchUnitGoalState.class), anyLong());
     }
 
     @Test
@@ -139,7 +143,7 @@ class ImmediateOrchestrationStrategyTest {
         // Then
         verify(metadataStore).getAllIndexConfigs(clusterId);
         verify(metadataStore).getPlannedAllocation(clusterId, indexName, "0");
-        verify(metadataStore, never()).setSearchUnitGoalState(anyString(), anyString(), any(SearchUnitGoalState.class));
+        verify(metadataStore, never()).setSearchUnitGoalState(anyString(), anyString(), any(SearchUnitGoalState.class), anyLong());
     }
 
     @Test
@@ -154,7 +158,7 @@ class ImmediateOrchestrationStrategyTest {
         // Then
         verify(metadataStore).getAllIndexConfigs(clusterId);
         verify(metadataStore, never()).getPlannedAllocation(anyString(), anyString(), anyString());
-        verify(metadataStore, never()).setSearchUnitGoalState(anyString(), anyString(), any(SearchUnitGoalState.class));
+        verify(metadataStore, never()).setSearchUnitGoalState(anyString(), anyString(), any(SearchUnitGoalState.class), anyLong());
     }
 
     @Test
@@ -171,7 +175,7 @@ class ImmediateOrchestrationStrategyTest {
         
         when(metadataStore.getAllIndexConfigs(clusterId)).thenReturn(Arrays.asList(indexConfig));
         when(metadataStore.getPlannedAllocation(clusterId, indexName, "0")).thenReturn(planned);
-        when(metadataStore.getSearchUnitGoalState(eq(clusterId), anyString())).thenReturn(null);
+        when(metadataStore.getSearchUnitGoalStateVersioned(eq(clusterId), anyString())).thenReturn(Versioned.absent());
 
         // When
         strategy.orchestrate(clusterId);
@@ -181,8 +185,8 @@ class ImmediateOrchestrationStrategyTest {
         verify(metadataStore).getPlannedAllocation(clusterId, indexName, "0");
         
         // Verify goal states are still set (new ones created for null existing states)
-        verify(metadataStore).setSearchUnitGoalState(eq(clusterId), eq("node1"), any(SearchUnitGoalState.class));
-        verify(metadataStore).setSearchUnitGoalState(eq(clusterId), eq("node2"), any(SearchUnitGoalState.class));
+        verify(metadataStore).setSearchUnitGoalState(eq(clusterId), eq("node1"), any(SearchUnitGoalState.class), anyLong());
+        verify(metadataStore).setSearchUnitGoalState(eq(clusterId), eq("node2"), any(SearchUnitGoalState.class), anyLong());
     }
 
     @Test
@@ -204,7 +208,7 @@ class ImmediateOrchestrationStrategyTest {
         when(metadataStore.getPlannedAllocation(clusterId, "index1", "0"))
                 .thenThrow(new RuntimeException("Database error"));
         when(metadataStore.getPlannedAllocation(clusterId, "index2", "0")).thenReturn(planned2);
-        when(metadataStore.getSearchUnitGoalState(eq(clusterId), anyString())).thenReturn(existingGoalState);
+        when(metadataStore.getSearchUnitGoalStateVersioned(eq(clusterId), anyString())).thenReturn(Versioned.of(existingGoalState, 1L));
 
         // When
         strategy.orchestrate(clusterId);
@@ -217,8 +221,8 @@ class ImmediateOrchestrationStrategyTest {
         verify(metadataStore).getPlannedAllocation(clusterId, "index2", "0");
         
         // Verify goal states are set for index2 nodes despite index1 failure
-        verify(metadataStore).setSearchUnitGoalState(eq(clusterId), eq("node1"), any(SearchUnitGoalState.class));
-        verify(metadataStore).setSearchUnitGoalState(eq(clusterId), eq("node2"), any(SearchUnitGoalState.class));
+        verify(metadataStore).setSearchUnitGoalState(eq(clusterId), eq("node1"), any(SearchUnitGoalState.class), anyLong());
+        verify(metadataStore).setSearchUnitGoalState(eq(clusterId), eq("node2"), any(SearchUnitGoalState.class), anyLong());
     }
 
     @Test
@@ -238,11 +242,11 @@ class ImmediateOrchestrationStrategyTest {
         
         when(metadataStore.getAllIndexConfigs(clusterId)).thenReturn(Arrays.asList(indexConfig));
         when(metadataStore.getPlannedAllocation(clusterId, indexName, "0")).thenReturn(planned);
-        when(metadataStore.getSearchUnitGoalState(clusterId, "node1")).thenReturn(existingGoalState);
-        when(metadataStore.getSearchUnitGoalState(clusterId, "node2"))
+        when(metadataStore.getSearchUnitGoalStateVersioned(clusterId, "node1")).thenReturn(Versioned.of(existingGoalState, 1L));
+        when(metadataStore.getSearchUnitGoalStateVersioned(clusterId, "node2"))
                 .thenThrow(new RuntimeException("Goal state error"));
         doThrow(new RuntimeException("Update error"))
-                .when(metadataStore).setSearchUnitGoalState(eq(clusterId), eq("node1"), any(SearchUnitGoalState.class));
+                .when(metadataStore).setSearchUnitGoalState(eq(clusterId), eq("node1"), any(SearchUnitGoalState.class), anyLong());
 
         // When
         strategy.orchestrate(clusterId);
@@ -252,8 +256,8 @@ class ImmediateOrchestrationStrategyTest {
         verify(metadataStore).getPlannedAllocation(clusterId, indexName, "0");
         
         // Verify that exceptions in goal state updates are handled gracefully
-        verify(metadataStore).setSearchUnitGoalState(eq(clusterId), eq("node1"), any(SearchUnitGoalState.class));
-        verify(metadataStore, never()).setSearchUnitGoalState(eq(clusterId), eq("node2"), any(SearchUnitGoalState.class));
+        verify(metadataStore).setSearchUnitGoalState(eq(clusterId), eq("node1"), any(SearchUnitGoalState.class), anyLong());
+        verify(metadataStore, never()).setSearchUnitGoalState(eq(clusterId), eq("node2"), any(SearchUnitGoalState.class), anyLong());
     }
 
     @Test
@@ -268,7 +272,7 @@ class ImmediateOrchestrationStrategyTest {
         planned.setIngestSUs(Arrays.asList(nodeId));
         planned.setSearchSUs(Arrays.asList("node2"));
         
-        when(metadataStore.getSearchUnitGoalState(clusterId, nodeId))
+        when(metadataStore.getSearchUnitGoalStateVersioned(clusterId, nodeId))
                 .thenThrow(new RuntimeException("Goal state retrieval failed"));
 
         // When & Then
@@ -283,7 +287,7 @@ class ImmediateOrchestrationStrategyTest {
         .hasCauseInstanceOf(RuntimeException.class)
         .hasRootCauseMessage("Goal state retrieval failed");
         
-        verify(metadataStore).getSearchUnitGoalState(clusterId, nodeId);
+        verify(metadataStore).getSearchUnitGoalStateVersioned(clusterId, nodeId);
     }
 
     @Test
@@ -300,7 +304,7 @@ class ImmediateOrchestrationStrategyTest {
         
         when(metadataStore.getAllIndexConfigs(clusterId)).thenReturn(Arrays.asList(indexConfig));
         when(metadataStore.getPlannedAllocation(clusterId, indexName, "0")).thenReturn(planned);
-        when(metadataStore.getSearchUnitGoalState(clusterId, "node1"))
+        when(metadataStore.getSearchUnitGoalStateVersioned(clusterId, "node1"))
                 .thenThrow(new RuntimeException("Goal state retrieval failed"));
 
         // When - orchestrate should handle the exception gracefully
@@ -310,7 +314,7 @@ class ImmediateOrchestrationStrategyTest {
         verify(metadataStore).getAllIndexConfigs(clusterId);
         verify(metadataStore).getPlannedAllocation(clusterId, indexName, "0");
         // The orchestration should complete without throwing (resilient behavior)
-        verify(metadataStore).getSearchUnitGoalState(clusterId, "node1");
+        verify(metadataStore).getSearchUnitGoalStateVersioned(clusterId, "node1");
     }
 
     @Test
@@ -330,9 +334,9 @@ class ImmediateOrchestrationStrategyTest {
         
         when(metadataStore.getAllIndexConfigs(clusterId)).thenReturn(Arrays.asList(indexConfig));
         when(metadataStore.getPlannedAllocation(clusterId, indexName, "0")).thenReturn(planned);
-        when(metadataStore.getSearchUnitGoalState(eq(clusterId), anyString())).thenReturn(existingGoalState);
+        when(metadataStore.getSearchUnitGoalStateVersioned(eq(clusterId), anyString())).thenReturn(Versioned.of(existingGoalState, 1L));
         doThrow(new RuntimeException("Goal state update failed"))
-                .when(metadataStore).setSearchUnitGoalState(eq(clusterId), eq("node1"), any(SearchUnitGoalState.class));
+                .when(metadataStore).setSearchUnitGoalState(eq(clusterId), eq("node1"), any(SearchUnitGoalState.class), anyLong());
 
         // When - orchestrate should handle the exception gracefully
         strategy.orchestrate(clusterId);
@@ -342,8 +346,8 @@ class ImmediateOrchestrationStrategyTest {
         
         verify(metadataStore).getAllIndexConfigs(clusterId);
         verify(metadataStore).getPlannedAllocation(clusterId, indexName, "0");
-        verify(metadataStore).getSearchUnitGoalState(clusterId, "node1");
-        verify(metadataStore).setSearchUnitGoalState(eq(clusterId), eq("node1"), any(SearchUnitGoalState.class));
+        verify(metadataStore).getSearchUnitGoalStateVersioned(clusterId, "node1");
+        verify(metadataStore).setSearchUnitGoalState(eq(clusterId), eq("node1"), any(SearchUnitGoalState.class), anyLong());
     }
 
     @Test
@@ -367,7 +371,7 @@ class ImmediateOrchestrationStrategyTest {
         // Then
         verify(metadataStore).getAllIndexConfigs(clusterId);
         verify(metadataStore).getPlannedAllocation(clusterId, indexName, "0");
-        verify(metadataStore, never()).setSearchUnitGoalState(anyString(), anyString(), any(SearchUnitGoalState.class));
+        verify(metadataStore, never()).setSearchUnitGoalState(anyString(), anyString(), any(SearchUnitGoalState.class), anyLong());
     }
 
     @Test
@@ -391,7 +395,7 @@ class ImmediateOrchestrationStrategyTest {
         // Then
         verify(metadataStore).getAllIndexConfigs(clusterId);
         verify(metadataStore).getPlannedAllocation(clusterId, indexName, "0");
-        verify(metadataStore, never()).setSearchUnitGoalState(anyString(), anyString(), any(SearchUnitGoalState.class));
+        verify(metadataStore, never()).setSearchUnitGoalState(anyString(), anyString(), any(SearchUnitGoalState.class), anyLong());
     }
 
     @Test
@@ -415,13 +419,13 @@ class ImmediateOrchestrationStrategyTest {
         
         when(metadataStore.getAllIndexConfigs(clusterId)).thenReturn(Arrays.asList(indexConfig));
         when(metadataStore.getPlannedAllocation(clusterId, indexName, "0")).thenReturn(planned);
-        when(metadataStore.getSearchUnitGoalState(clusterId, "node1")).thenReturn(existingGoalState);
+        when(metadataStore.getSearchUnitGoalStateVersioned(clusterId, "node1")).thenReturn(Versioned.of(existingGoalState, 1L));
 
         // When
         strategy.orchestrate(clusterId);
 
         // Then - Should update because the role changed from SEARCH_REPLICA to PRIMARY
-        verify(metadataStore).setSearchUnitGoalState(eq(clusterId), eq("node1"), any(SearchUnitGoalState.class));
+        verify(metadataStore).setSearchUnitGoalState(eq(clusterId), eq("node1"), any(SearchUnitGoalState.class), anyLong());
     }
 
     @Test
@@ -450,7 +454,7 @@ class ImmediateOrchestrationStrategyTest {
         when(metadataStore.getAllIndexConfigs(clusterId)).thenReturn(Arrays.asList(indexConfig));
         when(metadataStore.getPlannedAllocation(clusterId, indexName, "0")).thenReturn(planned0);
         when(metadataStore.getPlannedAllocation(clusterId, indexName, "1")).thenReturn(planned1);
-        when(metadataStore.getSearchUnitGoalState(clusterId, "node1")).thenReturn(existingGoalState);
+        when(metadataStore.getSearchUnitGoalStateVersioned(clusterId, "node1")).thenReturn(Versioned.of(existingGoalState, 1L));
 
         // When
         strategy.orchestrate(clusterId);
@@ -458,7 +462,7 @@ class ImmediateOrchestrationStrategyTest {
         // Then
         // Shard 0 should be skipped (already has PRIMARY role)
         // Shard 1 should be updated (new shard)
-        verify(metadataStore, times(1)).setSearchUnitGoalState(eq(clusterId), eq("node1"), any(SearchUnitGoalState.class));
+        verify(metadataStore, times(1)).setSearchUnitGoalState(eq(clusterId), eq("node1"), any(SearchUnitGoalState.class), anyLong());
     }
 
     @Test
@@ -489,8 +493,8 @@ class ImmediateOrchestrationStrategyTest {
         
         when(metadataStore.getAllIndexConfigs(clusterId)).thenReturn(Arrays.asList(indexConfig));
         when(metadataStore.getPlannedAllocation(clusterId, indexName, "0")).thenReturn(planned);
-        when(metadataStore.getSearchUnitGoalState(clusterId, "node1")).thenReturn(existingPrimaryGoalState);
-        when(metadataStore.getSearchUnitGoalState(clusterId, "node2")).thenReturn(existingReplicaGoalState);
+        when(metadataStore.getSearchUnitGoalStateVersioned(clusterId, "node1")).thenReturn(Versioned.of(existingPrimaryGoalState, 1L));
+        when(metadataStore.getSearchUnitGoalStateVersioned(clusterId, "node2")).thenReturn(Versioned.of(existingReplicaGoalState, 1L));
 
         // When
         strategy.orchestrate(clusterId);
@@ -500,7 +504,41 @@ class ImmediateOrchestrationStrategyTest {
         verify(metadataStore).getPlannedAllocation(clusterId, indexName, "0");
         
         // Verify goal states are NOT updated since they already have the correct shard+role
-        verify(metadataStore, never()).setSearchUnitGoalState(eq(clusterId), anyString(), any(SearchUnitGoalState.class));
+        verify(metadataStore, never()).setSearchUnitGoalState(eq(clusterId), anyString(), any(SearchUnitGoalState.class), anyLong());
+    }
+
+    @Test
+    void testConflictingGoalStateWriteIsMergedIntoCurrentStateWithoutRereading() throws Exception {
+        // Given: node1's goal state gains another shard between our read and our write
+        String clusterId = "test-cluster";
+        String indexName = "test-index";
+        
+        Index indexConfig = createIndex(indexName, 1);
+        
+        ShardAllocation planned = new ShardAllocation();
+        planned.setIngestSUs(Arrays.asList("node1"));
+        planned.setSearchSUs(Arrays.asList());
+        
+        SearchUnitGoalState concurrentGoalState = new SearchUnitGoalState();
+        concurrentGoalState.getLocalShards().put("other-index", new HashMap<>(Map.of("0", "PRIMARY")));
+        
+        when(metadataStore.getAllIndexConfigs(clusterId)).thenReturn(Arrays.asList(indexConfig));
+        when(metadataStore.getPlannedAllocation(clusterId, indexName, "0")).thenReturn(planned);
+        when(metadataStore.getSearchUnitGoalStateVersioned(clusterId, "node1")).thenReturn(Versioned.absent());
+        when(metadataStore.setSearchUnitGoalState(eq(clusterId), eq("node1"), any(SearchUnitGoalState.class), anyLong()))
+                .thenThrow(new VersionConflictException("/node1/goal-state", 0L, Versioned.of(concurrentGoalState, 7L)))
+                .thenAnswer(invocation -> Versioned.of(invocation.<SearchUnitGoalState>getArgument(2), 8L));
+
+        // When
+        strategy.orchestrate(clusterId);
+
+        // Then: the retry is conditional on the revision returned with the conflict and keeps the concurrent change
+        ArgumentCaptor<SearchUnitGoalState> written = ArgumentCaptor.forClass(SearchUnitGoalState.class);
+        verify(metadataStore).setSearchUnitGoalState(eq(clusterId), eq("node1"), any(SearchUnitGoalState.class), eq(0L));
+        verify(metadataStore).setSearchUnitGoalState(eq(clusterId), eq("node1"), written.capture(), eq(7L));
+        assertThat(written.getValue().getShardRole(indexName, "0")).isEqualTo("PRIMARY");
+        assertThat(written.getValue().getShardRole("other-index", "0")).isEqualTo("PRIMARY");
+        verify(metadataStore, times(1)).getSearchUnitGoalStateVersioned(clusterId, "node1");
     }
 
     // Helper method to create Index with initialized settings
@@ -8,6 +8,7 @@ import io.clustercontroller.models.ShardAllocation;
 import io.clustercontroller.models.SearchUnitActualState;
 import io.clustercontroller.models.SearchUnitGoalState;
 import io.clustercontroller.store.MetadataStore;
+import io.clustercontroller.store.SequentialWriteBatch;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -38,6 +39,8 @@ class RollingUpdateOrchestrationStrategyTest {
     @BeforeEach
     void setUp() {
         strategy = new RollingUpdateOrchestrationStrategy(metadataStore, metricsProvider);
+        // Batched writes go through the mocked store's single-key methods so they can be verified per call
+        lenient().when(metadataStore.newWriteBatch()).thenAnswer(invocation -> new SequentialWriteBatch(metadataStore));
         // Use lenient() since not all tests call gauge (e.g., tests with empty nodes or no planned allocation)
         lenient().when(metricsProvider.gauge(anyString(), anyDouble(), anyMap())).thenReturn(new AtomicDouble(0.0));
     }
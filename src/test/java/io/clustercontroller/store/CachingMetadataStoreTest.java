@@ -0,0 +1,252 @@
+package io.clustercontroller.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.clustercontroller.metrics.MetricsProvider;
+import io.clustercontroller.models.SearchUnitGoalState;
+import io.clustercontroller.models.ShardAllocation;
+import io.clustercontroller.util.EnvironmentUtils;
+import io.etcd.jetcd.ByteSequence;
+import io.etcd.jetcd.Client;
+import io.etcd.jetcd.KV;
+import io.etcd.jetcd.KeyValue;
+import io.etcd.jetcd.Response;
+import io.etcd.jetcd.Watch;
+import io.etcd.jetcd.common.exception.EtcdExceptionFactory;
+import io.etcd.jetcd.kv.GetResponse;
+import io.etcd.jetcd.options.GetOption;
+import io.etcd.jetcd.options.WatchOption;
+import io.etcd.jetcd.watch.WatchEvent;
+import io.etcd.jetcd.watch.WatchResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for CachingMetadataStore.
+ */
+class CachingMetadataStoreTest {
+
+    private static final String CLUSTER = "test-cluster";
+    private static final String PLANNED_KEY = "/test-cluster/indices/idx/0/planned-allocation";
+
+    private MetadataStore delegate;
+    private KV kvClient;
+    private Watch watchClient;
+    private Watch.Watcher watcher;
+    private CachingMetadataStore store;
+    private Consumer<WatchResponse> onNext;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        EnvironmentUtils.setForTesting("controller.runtime_env", "staging");
+        EtcdPathResolver pathResolver = new EtcdPathResolver();
+
+        delegate = mock(MetadataStore.class);
+        kvClient = mock(KV.class);
+        watchClient = mock(Watch.class);
+        watcher = mock(Watch.Watcher.class);
+        Client etcdClient = mock(Client.class);
+        when(etcdClient.getKVClient()).thenReturn(kvClient);
+        when(etcdClient.getWatchClient()).thenReturn(watchClient);
+        when(watchClient.watch(any(ByteSequence.class), any(WatchOption.class), any(Consumer.class), any(Consumer.class)))
+                .thenReturn(watcher);
+
+        store = new CachingMetadataStore(delegate, etcdClient, pathResolver, mock(MetricsProvider.class), 60_000);
+        store.manageCluster(CLUSTER);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        store.close();
+    }
+
+    private KeyValue kv(String key, String value, long modRevision) {
+        KeyValue kv = mock(KeyValue.class);
+        when(kv.getKey()).thenReturn(ByteSequence.from(key, UTF_8));
+        when(kv.getValue()).thenReturn(ByteSequence.from(value, UTF_8));
+        when(kv.getModRevision()).thenReturn(modRevision);
+        return kv;
+    }
+
+    private void mockInitialLoad(long revision, KeyValue... kvs) {
+        GetResponse response = mock(GetResponse.class);
+        Response.Header header = mock(Response.Header.class);
+        when(header.getRevision()).thenReturn(revision);
+        when(response.getHeader()).thenReturn(header);
+        when(response.getKvs()).thenReturn(Arrays.asList(kvs));
+        when(kvClient.get(any(ByteSequence.class), any(GetOption.class)))
+                .thenReturn(CompletableFuture.completedFuture(response));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void captureWatch() {
+        ArgumentCaptor<Consumer<WatchResponse>> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(watchClient).watch(any(ByteSequence.class), any(WatchOption.class), captor.capture(), any(Consumer.class));
+        onNext = captor.getValue();
+    }
+
+    private void deliver(WatchEvent.EventType type, KeyValue kv) {
+        onNext.accept(watchResponse(type, kv));
+    }
+
+    private WatchResponse watchResponse(WatchEvent.EventType type, KeyValue kv) {
+        WatchEvent event = mock(WatchEvent.class);
+        when(event.getEventType()).thenReturn(type);
+        when(event.getKeyValue()).thenReturn(kv);
+        WatchResponse response = mock(WatchResponse.class);
+        when(response.getEvents()).thenReturn(List.of(event));
+        return response;
+    }
+
+    @Test
+    void testReadsServedFromCacheAfterInitialLoad() throws Exception {
+        mockInitialLoad(10,
+                kv(PLANNED_KEY, "{}", 5),
+                kv("/test-cluster/search-unit/node1/goal-state", "{}", 6));
+
+        ShardAllocation planned = store.getPlannedAllocation(CLUSTER, "idx", "0");
+        List<String> nodes = store.getAllNodesWithGoalStates(CLUSTER);
+
+        assertThat(planned).isNotNull();
+        assertThat(nodes).containsExactly("node1");
+        verifyNoInteractions(delegate);
+        // The whole cluster prefix is loaded once, not per read
+        verify(kvClient, times(1)).get(any(ByteSequence.class), any(GetOption.class));
+    }
+
+    @Test
+    void testWatchResumesFromRevisionAfterLoad() throws Exception {
+        mockInitialLoad(42);
+        ArgumentCaptor<WatchOption> optionCaptor = ArgumentCaptor.forClass(WatchOption.class);
+
+        store.getAllNodesWithGoalStates(CLUSTER);
+
+        verify(watchClient).watch(eq(ByteSequence.from("/test-cluster/", UTF_8)), optionCaptor.capture(), any(Consumer.class), any(Consumer.class));
+        assertThat(optionCaptor.getValue().getRevision()).isEqualTo(43L);
+    }
+
+    @Test
+    void testWatchEventsUpdateCache() throws Exception {
+        mockInitialLoad(10);
+        assertThat(store.getAllNodesWithGoalStates(CLUSTER)).isEmpty();
+        captureWatch();
+
+        deliver(WatchEvent.EventType.PUT, kv("/test-cluster/search-unit/node2/goal-state", "{}", 11));
+        assertThat(store.getAllNodesWithGoalStates(CLUSTER)).containsExactly("node2");
+
+        deliver(WatchEvent.EventType.DELETE, kv("/test-cluster/search-unit/node2/goal-state", "", 12));
+        assertThat(store.getAllNodesWithGoalStates(CLUSTER)).isEmpty();
+        verifyNoInteractions(delegate);
+    }
+
+    @Test
+    void testWrittenKeyReadFromDelegateUntilWatchDeliversIt() throws Exception {
+        mockInitialLoad(10);
+        store.getAllNodesWithGoalStates(CLUSTER);
+        captureWatch();
+
+        SearchUnitGoalState goalState = new SearchUnitGoalState();
+        store.setSearchUnitGoalState(CLUSTER, "node1", goalState);
+        when(delegate.getSearchUnitGoalState(CLUSTER, "node1")).thenReturn(goalState);
+
+        // Watch has not caught up yet: read-your-writes requires going to etcd
+        assertThat(store.getSearchUnitGoalState(CLUSTER, "node1")).isSameAs(goalState);
+        verify(delegate).getSearchUnitGoalState(CLUSTER, "node1");
+
+        // Deliver the exact bytes that were written; the key is served from memory again
+        String written = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .writeValueAsString(goalState);
+        deliver(WatchEvent.EventType.PUT, kv("/test-cluster/search-unit/node1/goal-state", written, 11));
+
+        assertThat(store.getSearchUnitGoalState(CLUSTER, "node1")).isNotNull();
+        verify(delegate, times(1)).getSearchUnitGoalState(CLUSTER, "node1");
+    }
+
+    @Test
+    void testFallsBackToDelegateWhenLoadFails() throws Exception {
+        when(kvClient.get(any(ByteSequence.class), any(GetOption.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("etcd unavailable")));
+        when(delegate.getAllNodesWithGoalStates(CLUSTER)).thenReturn(List.of("node1"));
+
+        assertThat(store.getAllNodesWithGoalStates(CLUSTER)).containsExactly("node1");
+        verify(delegate).getAllNodesWithGoalStates(CLUSTER);
+    }
+
+    @Test
+    void testReadsOfUnmanagedClusterGoToDelegateWithoutCaching() throws Exception {
+        when(delegate.getAllNodesWithGoalStates("other-cluster")).thenReturn(List.of("node1"));
+
+        assertThat(store.getAllNodesWithGoalStates("other-cluster")).containsExactly("node1");
+
+        // No keyspace load and no watch for a cluster this controller does not manage
+        verifyNoInteractions(kvClient, watchClient);
+    }
+
+    @Test
+    void testReleasedClusterIsNotCachedAgainByLaterReads() throws Exception {
+        mockInitialLoad(10);
+        store.getAllNodesWithGoalStates(CLUSTER);
+        store.releaseCluster(CLUSTER);
+
+        store.getAllNodesWithGoalStates(CLUSTER);
+
+        verify(delegate).getAllNodesWithGoalStates(CLUSTER);
+        verify(watchClient, times(1)).watch(any(ByteSequence.class), any(WatchOption.class), any(Consumer.class), any(Consumer.class));
+    }
+
+    @Test
+    void testReleaseClusterClosesWatch() throws Exception {
+        mockInitialLoad(10);
+        store.getAllNodesWithGoalStates(CLUSTER);
+
+        store.releaseCluster(CLUSTER);
+
+        verify(watcher).close();
+        verify(delegate).releaseCluster(CLUSTER);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testEventAppliedDuringReloadIsNotLost() throws Exception {
+        mockInitialLoad(10);
+        store.getAllNodesWithGoalStates(CLUSTER);
+        ArgumentCaptor<Consumer<Throwable>> onError = ArgumentCaptor.forClass(Consumer.class);
+        verify(watchClient).watch(any(ByteSequence.class), any(WatchOption.class), any(Consumer.class), onError.capture());
+        captureWatch();
+        Consumer<WatchResponse> oldWatch = onNext;
+        onError.getValue().accept(EtcdExceptionFactory.newCompactedException(15));
+
+        // The reload reads at revision 20 while the old watch still delivers a put at revision 21
+        WatchResponse lateEvent = watchResponse(WatchEvent.EventType.PUT,
+                kv("/test-cluster/search-unit/node3/goal-state", "{}", 21));
+        GetResponse reload = mock(GetResponse.class);
+        Response.Header header = mock(Response.Header.class);
+        when(header.getRevision()).thenReturn(20L);
+        when(reload.getHeader()).thenReturn(header);
+        when(reload.getKvs()).thenReturn(List.of());
+        when(kvClient.get(any(ByteSequence.class), any(GetOption.class))).thenAnswer(invocation -> {
+            oldWatch.accept(lateEvent);
+            return CompletableFuture.completedFuture(reload);
+        });
+
+        assertThat(store.getAllNodesWithGoalStates(CLUSTER)).containsExactly("node3");
+        verifyNoInteractions(delegate);
+    }
+}
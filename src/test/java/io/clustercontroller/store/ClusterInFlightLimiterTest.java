@@ -0,0 +1,74 @@
+package io.clustercontroller.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for ClusterInFlightLimiter.
+ */
+class ClusterInFlightLimiterTest {
+
+    @Test
+    void testRequestsOverLimitQueueUntilSlotFrees() {
+        ClusterInFlightLimiter limiter = new ClusterInFlightLimiter(2);
+        List<CompletableFuture<String>> requests = new ArrayList<>();
+        AtomicInteger started = new AtomicInteger();
+        List<CompletableFuture<String>> results = new ArrayList<>();
+
+        for (int i = 0; i < 4; i++) {
+            CompletableFuture<String> request = new CompletableFuture<>();
+            requests.add(request);
+            results.add(limiter.submit("cluster-a", () -> {
+                started.incrementAndGet();
+                return request;
+            }));
+        }
+
+        assertThat(started).hasValue(2);
+        assertThat(limiter.inFlight("cluster-a")).isEqualTo(2);
+
+        requests.get(0).complete("first");
+
+        assertThat(results.get(0)).isCompletedWithValue("first");
+        assertThat(started).hasValue(3);
+        assertThat(limiter.inFlight("cluster-a")).isEqualTo(2);
+
+        requests.get(1).complete("second");
+        requests.get(2).complete("third");
+        requests.get(3).complete("fourth");
+
+        assertThat(results).allMatch(CompletableFuture::isDone);
+        assertThat(limiter.inFlight("cluster-a")).isZero();
+    }
+
+    @Test
+    void testClustersHaveIndependentLimits() {
+        ClusterInFlightLimiter limiter = new ClusterInFlightLimiter(1);
+
+        limiter.submit("cluster-a", CompletableFuture::new);
+        CompletableFuture<String> other = limiter.submit("cluster-b", () -> CompletableFuture.completedFuture("b"));
+
+        assertThat(limiter.inFlight("cluster-a")).isEqualTo(1);
+        assertThat(other).isCompletedWithValue("b");
+    }
+
+    @Test
+    void testFailedRequestReleasesSlotAndPropagatesError() {
+        ClusterInFlightLimiter limiter = new ClusterInFlightLimiter(1);
+
+        CompletableFuture<String> failed = limiter.submit("cluster-a", () -> {
+            throw new IllegalStateException("boom");
+        });
+        CompletableFuture<String> next = limiter.submit("cluster-a", () -> CompletableFuture.completedFuture("ok"));
+
+        assertThat(failed).isCompletedExceptionally();
+        assertThat(next).isCompletedWithValue("ok");
+        assertThat(limiter.inFlight("cluster-a")).isZero();
+    }
+}
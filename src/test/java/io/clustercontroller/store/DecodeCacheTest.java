@@ -0,0 +1,123 @@
+package io.clustercontroller.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.clustercontroller.models.SearchUnitActualState;
+import io.clustercontroller.models.SearchUnitGoalState;
+import io.clustercontroller.models.ShardAllocation;
+import io.etcd.jetcd.ByteSequence;
+import io.etcd.jetcd.KeyValue;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for DecodeCache.
+ */
+class DecodeCacheTest {
+
+    private static final String ACTUAL_STATE_JSON = "{\"nodeName\":\"node1\",\"address\":\"10.0.0.1\",\"httpPort\":9200,"
+        + "\"memoryUsedPercent\":40,\"diskAvailableMB\":50000,\"clusterlessRole\":\"PRIMARY\","
+        + "\"nodeRouting\":{\"idx\":[{\"shardId\":0,\"role\":\"primary\",\"state\":\"STARTED\"}]},"
+        + "\"stats\":{\"indices\":{\"docs\":{\"count\":10},\"shards\":{\"idx\":[{\"0\":{\"docs\":{\"count\":10},"
+        + "\"seq_no\":{\"max_seq_no\":5,\"local_checkpoint\":5,\"global_checkpoint\":4}}}]}}}}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static KeyValue keyValue(String key, String json, long modRevision) {
+        KeyValue kv = mock(KeyValue.class);
+        when(kv.getKey()).thenReturn(ByteSequence.from(key, UTF_8));
+        when(kv.getValue()).thenReturn(ByteSequence.from(json, UTF_8));
+        when(kv.getModRevision()).thenReturn(modRevision);
+        return kv;
+    }
+
+    @Test
+    void testUnchangedRevisionIsNotParsedAgainAndCallersGetCopies() throws Exception {
+        DecodeCache cache = new DecodeCache(JacksonValueCodec.json(objectMapper), 1024 * 1024);
+        KeyValue kv = keyValue("/c/search-unit/node1/actual-state", ACTUAL_STATE_JSON, 5);
+
+        SearchUnitActualState first = cache.decode(kv, SearchUnitActualState.class);
+        SearchUnitActualState second = cache.decode(kv, SearchUnitActualState.class);
+
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(second).isEqualTo(first).isNotSameAs(first);
+        assertThat(second).isEqualTo(objectMapper.readValue(ACTUAL_STATE_JSON, SearchUnitActualState.class));
+
+        // Mutating one caller's object is invisible to the next
+        first.getNodeRouting().get("idx").get(0).setRole("replica");
+        first.getStats().getIndices().getDocs().setCount(99);
+        SearchUnitActualState third = cache.decode(kv, SearchUnitActualState.class);
+        assertThat(third.getNodeRouting().get("idx").get(0).getRole()).isEqualTo("primary");
+        assertThat(third.getStats().getIndices().getDocs().getCount()).isEqualTo(10);
+    }
+
+    @Test
+    void testNewRevisionReplacesEntry() throws Exception {
+        DecodeCache cache = new DecodeCache(JacksonValueCodec.json(objectMapper), 1024 * 1024);
+        String key = "/c/search-unit/node1/goal-state";
+
+        cache.decode(keyValue(key, "{\"local_shards\":{\"idx\":{\"0\":\"PRIMARY\"}}}", 3), SearchUnitGoalState.class);
+        SearchUnitGoalState updated = cache.decode(
+            keyValue(key, "{\"local_shards\":{\"idx\":{\"0\":\"SEARCH_REPLICA\"}}}", 4), SearchUnitGoalState.class);
+
+        assertThat(updated.getShardRole("idx", "0")).isEqualTo("SEARCH_REPLICA");
+        assertThat(cache.getMisses()).isEqualTo(2);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsedByEncodedSize() throws Exception {
+        String json = "{\"local_shards\":{}}";
+        String keyA = "/c/search-unit/a/goal-state";
+        long entryWeight = keyA.length() + json.length();
+        DecodeCache cache = new DecodeCache(JacksonValueCodec.json(objectMapper), entryWeight * 2);
+
+        KeyValue a = keyValue(keyA, json, 1);
+        KeyValue b = keyValue("/c/search-unit/b/goal-state", json, 1);
+        KeyValue c = keyValue("/c/search-unit/c/goal-state", json, 1);
+        cache.decode(a, SearchUnitGoalState.class);
+        cache.decode(b, SearchUnitGoalState.class);
+        cache.decode(a, SearchUnitGoalState.class);
+        cache.decode(c, SearchUnitGoalState.class);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getWeightBytes()).isLessThanOrEqualTo(entryWeight * 2);
+        // b was least recently used and went first
+        cache.decode(a, SearchUnitGoalState.class);
+        cache.decode(b, SearchUnitGoalState.class);
+        assertThat(cache.getHits()).isEqualTo(2);
+        assertThat(cache.getMisses()).isEqualTo(4);
+    }
+
+    @Test
+    void testUncachedTypesAndUnversionedValuesAreAlwaysParsed() throws Exception {
+        DecodeCache cache = new DecodeCache(JacksonValueCodec.json(objectMapper), 1024 * 1024);
+
+        cache.decode(keyValue("/c/indices/idx/0/planned-allocation", "{\"index_name\":\"idx\"}", 2), ShardAllocation.class);
+        cache.decode(keyValue("/c/search-unit/x/goal-state", "{\"local_shards\":{}}", 0), SearchUnitGoalState.class);
+
+        assertThat(cache.size()).isZero();
+        assertThat(cache.getHits() + cache.getMisses()).isZero();
+    }
+
+    @Test
+    void testGoalStateCopyIsDeep() {
+        SearchUnitGoalState goalState = new SearchUnitGoalState();
+        goalState.getLocalShards().put("idx", new HashMap<>(Map.of("0", "PRIMARY")));
+        goalState.setVersion(7);
+
+        SearchUnitGoalState copy = DecodeCache.copyGoalState(goalState);
+        copy.getLocalShards().get("idx").put("1", "SEARCH_REPLICA");
+
+        assertThat(copy.getVersion()).isEqualTo(7);
+        assertThat(goalState.getShardsForIndex("idx")).isEqualTo(List.of("0"));
+    }
+}
@@ -0,0 +1,252 @@
+package io.clustercontroller.store;
+
+import io.clustercontroller.store.EmbeddedKvStore.CommitResult;
+import io.clustercontroller.store.EmbeddedKvStore.Event;
+import io.clustercontroller.store.EmbeddedKvStore.EventType;
+import io.clustercontroller.store.EmbeddedKvStore.Mutation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for EmbeddedKvStore.
+ */
+class EmbeddedKvStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private EmbeddedKvStore store;
+
+    @AfterEach
+    void tearDown() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    private static byte[] value(String value) {
+        return value.getBytes(UTF_8);
+    }
+
+    private static String valueOf(EmbeddedKvStore.Entry entry) {
+        return new String(entry.value(), UTF_8);
+    }
+
+    private EmbeddedKvStore reopen() throws IOException {
+        store.close();
+        store = EmbeddedKvStore.open(directory, true);
+        return store;
+    }
+
+    private Path logFile() {
+        return directory.resolve(EmbeddedKvStore.LOG_FILE_NAME);
+    }
+
+    @Test
+    void testCommitsSurviveReopen() throws Exception {
+        store = EmbeddedKvStore.open(directory, true);
+        store.put("/c/search-unit/node1/conf", value("a"));
+        store.put("/c/search-unit/node2/conf", value("b"));
+        store.put("/c/search-unit/node1/conf", value("c"));
+        store.delete("/c/search-unit/node2/conf");
+
+        reopen();
+
+        assertThat(store.revision()).isEqualTo(4);
+        assertThat(store.entries()).containsOnlyKeys("/c/search-unit/node1/conf");
+        assertThat(valueOf(store.get("/c/search-unit/node1/conf"))).isEqualTo("c");
+        assertThat(store.get("/c/search-unit/node1/conf").modRevision()).isEqualTo(3);
+    }
+
+    @Test
+    void testPrefixScanAndDeletePrefix() throws Exception {
+        store = EmbeddedKvStore.open(directory, true);
+        store.put("/c/indices/idx/conf", value("1"));
+        store.put("/c/indices/idx/0/planned-allocation", value("2"));
+        store.put("/c/indices/idx2/conf", value("3"));
+        store.put("/c/search-unit/node1/conf", value("4"));
+
+        EmbeddedKvStore.ScanResult scan = store.scan("/c/indices/idx/", "/c/search-unit/");
+        assertThat(scan.revision()).isEqualTo(4);
+        assertThat(scan.entries()).extracting(EmbeddedKvStore.Entry::key).containsExactly(
+            "/c/indices/idx/0/planned-allocation", "/c/indices/idx/conf", "/c/search-unit/node1/conf");
+
+        // One commit for the whole prefix
+        assertThat(store.deletePrefix("/c/indices/idx/")).isEqualTo(5);
+        assertThat(store.entries()).containsOnlyKeys("/c/indices/idx2/conf", "/c/search-unit/node1/conf");
+    }
+
+    @Test
+    void testGuardsAreCheckedPerMutation() throws Exception {
+        store = EmbeddedKvStore.open(directory, true);
+        long first = store.put("/c/a", value("1"));
+        store.put("/c/b", value("1"));
+
+        Mutation stale = Mutation.put("/c/a", value("2")).ifModRevision(first - 1);
+        Mutation current = Mutation.put("/c/b", value("2")).ifNotModifiedAfter(store.revision());
+        Mutation create = Mutation.put("/c/new", value("2")).ifModRevision(0);
+        CommitResult result = store.commit(List.of(stale, current, create));
+
+        assertThat(result.rejected()).containsExactly(stale);
+        assertThat(result.revision()).isEqualTo(3);
+        assertThat(valueOf(store.get("/c/a"))).isEqualTo("1");
+        assertThat(valueOf(store.get("/c/b"))).isEqualTo("2");
+        assertThat(store.get("/c/new").modRevision()).isEqualTo(3);
+
+        // Nothing to write: the revision does not move
+        CommitResult rejected = store.commit(List.of(Mutation.delete("/c/a").ifModRevision(2), Mutation.delete("/c/missing")));
+        assertThat(rejected.revision()).isEqualTo(3);
+        assertThat(rejected.isFullyApplied()).isFalse();
+    }
+
+    @Test
+    void testTornTailIsTruncatedOnRecovery() throws Exception {
+        store = EmbeddedKvStore.open(directory, true);
+        store.put("/c/a", value("1"));
+        store.put("/c/b", value("2"));
+        long validBytes = store.logBytes();
+        store.put("/c/c", value("3"));
+        store.close();
+
+        // Crash in the middle of appending the last record
+        try (FileChannel channel = FileChannel.open(logFile(), StandardOpenOption.WRITE)) {
+            channel.truncate(validBytes + 7);
+        }
+        store = EmbeddedKvStore.open(directory, true);
+
+        assertThat(store.entries()).containsOnlyKeys("/c/a", "/c/b");
+        assertThat(store.revision()).isEqualTo(2);
+        assertThat(Files.size(logFile())).isEqualTo(validBytes);
+
+        // Appends continue after the valid prefix
+        store.put("/c/d", value("4"));
+        reopen();
+        assertThat(store.entries()).containsOnlyKeys("/c/a", "/c/b", "/c/d");
+        assertThat(store.get("/c/d").modRevision()).isEqualTo(3);
+    }
+
+    @Test
+    void testCorruptRecordAndEverythingAfterItIsCutOff() throws Exception {
+        store = EmbeddedKvStore.open(directory, true);
+        store.put("/c/a", value("1"));
+        long corruptAt = store.logBytes();
+        store.put("/c/b", value("2"));
+        store.put("/c/c", value("3"));
+        store.close();
+
+        byte[] bytes = Files.readAllBytes(logFile());
+        // Flip a byte inside the second record's body
+        bytes[(int) corruptAt + 20] ^= 0x7F;
+        Files.write(logFile(), bytes);
+        store = EmbeddedKvStore.open(directory, true);
+
+        assertThat(store.entries()).containsOnlyKeys("/c/a");
+        assertThat(Files.size(logFile())).isEqualTo(corruptAt);
+    }
+
+    @Test
+    void testWatchDeliversMatchingEventsInCommitOrder() throws Exception {
+        store = EmbeddedKvStore.open(directory, false);
+        List<Event> events = new CopyOnWriteArrayList<>();
+        CountDownLatch delivered = new CountDownLatch(3);
+        AutoCloseable watch = store.watch("/c/search-unit/", batch -> {
+            events.addAll(batch);
+            batch.forEach(event -> delivered.countDown());
+        });
+
+        store.put("/c/search-unit/node1/actual-state", value("1"));
+        store.put("/c/indices/idx/conf", value("ignored"));
+        store.put("/c/search-unit/node1/actual-state", value("2"));
+        store.delete("/c/search-unit/node1/actual-state");
+
+        assertThat(delivered.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(events).extracting(Event::type).containsExactly(EventType.PUT, EventType.PUT, EventType.DELETE);
+        assertThat(events).extracting(Event::modRevision).containsExactly(1L, 3L, 4L);
+
+        watch.close();
+        store.put("/c/search-unit/node2/actual-state", value("3"));
+        store.commit(List.of()); // no-op commit, nothing dispatched
+        Thread.sleep(50);
+        assertThat(events).hasSize(3);
+    }
+
+    @Test
+    void testCompactionKeepsLiveKeysAndRevision() throws Exception {
+        store = EmbeddedKvStore.open(directory, true);
+        for (int i = 0; i < 100; i++) {
+            store.put("/c/search-unit/node1/actual-state", value("v" + i));
+        }
+        store.put("/c/search-unit/node2/conf", value("conf"));
+        store.put("/c/gone", value("x"));
+        store.delete("/c/gone");
+        long before = store.logBytes();
+
+        store.compact();
+
+        assertThat(store.logBytes()).isLessThan(before);
+        reopen();
+        assertThat(store.revision()).isEqualTo(103);
+        assertThat(store.entries()).containsOnlyKeys("/c/search-unit/node1/actual-state", "/c/search-unit/node2/conf");
+        assertThat(valueOf(store.get("/c/search-unit/node1/actual-state"))).isEqualTo("v99");
+        assertThat(store.get("/c/search-unit/node1/actual-state").modRevision()).isEqualTo(100);
+        assertThat(store.put("/c/next", value("n"))).isEqualTo(104);
+    }
+
+    @Test
+    void testCommitsDuringCompactionAreKept() throws Exception {
+        store = EmbeddedKvStore.open(directory, false);
+        for (int i = 0; i < 1000; i++) {
+            store.put("/c/search-unit/node" + (i % 10) + "/actual-state", value("v" + i));
+        }
+        Thread writer = new Thread(() -> {
+            try {
+                for (int i = 1000; i < 2000; i++) {
+                    store.put("/c/search-unit/node" + (i % 10) + "/actual-state", value("v" + i));
+                }
+                store.delete("/c/search-unit/node0/actual-state");
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        writer.start();
+        while (writer.isAlive()) {
+            store.compact();
+        }
+        writer.join();
+        store.compact();
+
+        reopen();
+        assertThat(store.revision()).isEqualTo(2001);
+        assertThat(store.entries()).hasSize(9).doesNotContainKey("/c/search-unit/node0/actual-state");
+        assertThat(valueOf(store.get("/c/search-unit/node9/actual-state"))).isEqualTo("v1999");
+        assertThat(store.get("/c/search-unit/node9/actual-state").modRevision()).isEqualTo(2000);
+    }
+
+    @Test
+    void testDirectoryCanOnlyBeOpenedOnce() throws Exception {
+        store = EmbeddedKvStore.open(directory, true);
+
+        assertThatThrownBy(() -> EmbeddedKvStore.open(directory, true))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("in use");
+
+        store.close();
+        assertThatThrownBy(() -> store.put("/c/a", value("1"))).isInstanceOf(IOException.class);
+    }
+}
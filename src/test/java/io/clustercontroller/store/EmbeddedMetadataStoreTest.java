@@ -0,0 +1,251 @@
+package io.clustercontroller.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.clustercontroller.models.Index;
+import io.clustercontroller.models.IndexSettings;
+import io.clustercontroller.models.SearchUnit;
+import io.clustercontroller.models.SearchUnitActualState;
+import io.clustercontroller.models.SearchUnitGoalState;
+import io.clustercontroller.models.ShardAllocation;
+import io.clustercontroller.models.TaskMetadata;
+import io.clustercontroller.util.EnvironmentUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for EmbeddedMetadataStore.
+ */
+class EmbeddedMetadataStoreTest {
+
+    private static final String CLUSTER = "test-cluster";
+    private static final String READY_SHARD_JSON =
+        "{\"docs\":{\"count\":5},\"seq_no\":{\"local_checkpoint\":4,\"global_checkpoint\":4}}";
+
+    @TempDir
+    Path directory;
+
+    private EmbeddedMetadataStore store;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        EnvironmentUtils.setForTesting("controller.runtime_env", "staging");
+        store = newStore();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        store.close();
+    }
+
+    private EmbeddedMetadataStore newStore() throws Exception {
+        EmbeddedMetadataStore embedded = new EmbeddedMetadataStore(directory, false, new EtcdPathResolver());
+        embedded.initialize();
+        return embedded;
+    }
+
+    private static SearchUnit searchUnit(String name) {
+        SearchUnit unit = new SearchUnit();
+        unit.setName(name);
+        unit.setClusterName(CLUSTER);
+        return unit;
+    }
+
+    private static SearchUnitGoalState goalState(String indexName) {
+        SearchUnitGoalState goalState = new SearchUnitGoalState();
+        goalState.getLocalShards().put(indexName, new HashMap<>(Map.of("0", "PRIMARY")));
+        return goalState;
+    }
+
+    private static SearchUnitActualState readyActualState(String indexName) throws Exception {
+        String json = "{\"stats\":{\"indices\":{\"shards\":{\"" + indexName + "\":[{\"0\":" + READY_SHARD_JSON + "}]}}}}";
+        return new ObjectMapper().readValue(json, SearchUnitActualState.class);
+    }
+
+    private static TaskMetadata task(String name, String status, String schedule, OffsetDateTime lastUpdated) {
+        TaskMetadata task = new TaskMetadata(name, 1);
+        task.setStatus(status);
+        task.setSchedule(schedule);
+        task.setLastUpdated(lastUpdated);
+        return task;
+    }
+
+    private static String indexConfig(String indexName, int shards) {
+        return "{\"index_name\":\"" + indexName + "\",\"settings\":{\"number_of_shards\":" + shards + "}}";
+    }
+
+    @Test
+    void testSearchUnitsAndIndexConfigsRoundTrip() throws Exception {
+        store.upsertSearchUnit(CLUSTER, "node1", searchUnit("node1"));
+        store.upsertSearchUnit(CLUSTER, "node2", searchUnit("node2"));
+        store.createIndexConfig(CLUSTER, "idx", indexConfig("idx", 2));
+        store.setIndexSettings(CLUSTER, "idx", "{\"number_of_shards\":2}");
+
+        assertThat(store.getAllSearchUnits(CLUSTER)).extracting(SearchUnit::getName).containsExactlyInAnyOrder("node1", "node2");
+        assertThat(store.getSearchUnit(CLUSTER, "missing")).isEmpty();
+        assertThat(store.getAllIndexConfigs(CLUSTER)).extracting(Index::getIndexName).containsExactly("idx");
+        // Stored wrapped in "index", returned unwrapped
+        assertThat(store.getIndexSettings(CLUSTER, "idx")).extracting(IndexSettings::getNumberOfShards).isEqualTo(2);
+
+        store.deleteSearchUnit(CLUSTER, "node2");
+        assertThat(store.getAllSearchUnits(CLUSTER)).extracting(SearchUnit::getName).containsExactly("node1");
+    }
+
+    @Test
+    void testMissingTemplateIsRejected() {
+        assertThatThrownBy(() -> store.getTemplate(CLUSTER, "missing"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testGoalStateCasRejectsStaleRevision() throws Exception {
+        Versioned<SearchUnitGoalState> written = store.setSearchUnitGoalState(CLUSTER, "node1", goalState("idx"), 0);
+        store.setSearchUnitGoalState(CLUSTER, "node1", goalState("idx2"), written.getModRevision());
+
+        assertThatThrownBy(() -> store.setSearchUnitGoalState(CLUSTER, "node1", goalState("idx3"), written.getModRevision()))
+            .isInstanceOf(VersionConflictException.class);
+        assertThat(store.getSearchUnitGoalState(CLUSTER, "node1").getLocalShards()).containsOnlyKeys("idx2");
+        assertThat(store.stats().totals(CLUSTER).casConflicts()).isEqualTo(1);
+    }
+
+    @Test
+    void testGuardedBatchOperationOnChangedTargetConflicts() throws Exception {
+        store.setSearchUnitGoalState(CLUSTER, "node1", goalState("idx"));
+        long snapshotRevision = store.loadClusterSnapshot(CLUSTER).getRevision();
+        // Changed after the snapshot the batch was computed from
+        store.setSearchUnitGoalState(CLUSTER, "node1", goalState("idx2"));
+
+        ShardAllocation planned = new ShardAllocation("0", "idx");
+        planned.setIngestSUs(List.of("node2"));
+        WriteBatchResult result = store.newWriteBatch()
+            .guardUnchangedSince(snapshotRevision)
+            .setSearchUnitGoalState(CLUSTER, "node1", goalState("idx3"))
+            .setPlannedAllocation(CLUSTER, "idx", "0", planned)
+            .commit();
+
+        assertThat(result.count(WriteBatchResult.Status.CONFLICT)).isEqualTo(1);
+        assertThat(result.count(WriteBatchResult.Status.APPLIED)).isEqualTo(1);
+        assertThat(store.getSearchUnitGoalState(CLUSTER, "node1").getLocalShards()).containsOnlyKeys("idx2");
+        assertThat(store.getPlannedAllocation(CLUSTER, "idx", "0").getIngestSUs()).containsExactly("node2");
+    }
+
+    @Test
+    void testSnapshotIsReadAtOneRevision() throws Exception {
+        store.upsertSearchUnit(CLUSTER, "node1", searchUnit("node1"));
+        Versioned<SearchUnitGoalState> goalState = store.setSearchUnitGoalState(CLUSTER, "node1", goalState("idx"), 0);
+        store.createIndexConfig(CLUSTER, "idx", indexConfig("idx", 1));
+
+        ClusterSnapshot snapshot = store.loadClusterSnapshot(CLUSTER);
+
+        assertThat(snapshot.getRevision()).isEqualTo(3);
+        assertThat(snapshot.getSearchUnits()).containsOnlyKeys("node1");
+        assertThat(snapshot.getIndexConfigs()).containsOnlyKeys("idx");
+        assertThat(snapshot.getGoalStateRevisions()).containsEntry("node1", goalState.getModRevision());
+    }
+
+    @Test
+    void testStateSurvivesRestart() throws Exception {
+        store.upsertSearchUnit(CLUSTER, "node1", searchUnit("node1"));
+        store.setSearchUnitGoalState(CLUSTER, "node1", goalState("idx"));
+        store.close();
+
+        store = newStore();
+
+        assertThat(store.getSearchUnit(CLUSTER, "node1")).isPresent();
+        assertThat(store.getAllNodesWithGoalStates(CLUSTER)).containsExactly("node1");
+    }
+
+    @Test
+    void testWaitForIndexReadyCompletesWhenShardBecomesReady() throws Exception {
+        store.createIndexConfig(CLUSTER, "idx", indexConfig("idx", 1));
+
+        CompletableFuture<Boolean> ready = store.waitForIndexReady(CLUSTER, "idx", 5_000);
+        assertThat(ready).isNotDone();
+
+        store.setSearchUnitActualState(CLUSTER, "node1", readyActualState("idx"));
+
+        assertThat(ready.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(store.isIndexReady(CLUSTER, "idx")).isTrue();
+    }
+
+    @Test
+    void testWaitForIndexReadyTimesOut() throws Exception {
+        store.createIndexConfig(CLUSTER, "idx", indexConfig("idx", 1));
+
+        assertThat(store.waitForIndexReady(CLUSTER, "idx", 50).get(5, TimeUnit.SECONDS)).isFalse();
+    }
+
+    @Test
+    void testGetAllTasksListsOnlyActiveTasks() throws Exception {
+        OffsetDateTime now = OffsetDateTime.now();
+        store.createTask(CLUSTER, task("discovery", "PENDING", "repeat", now));
+        store.createTask(CLUSTER, task("create-idx", "COMPLETED", "once", now));
+
+        assertThat(store.getAllTasks(CLUSTER)).extracting(TaskMetadata::getName).containsExactly("discovery");
+        // Still readable by name until compacted
+        assertThat(store.getTask(CLUSTER, "create-idx")).isPresent();
+
+        store.updateTask(CLUSTER, task("create-idx", "PENDING", "once", now));
+        assertThat(store.getAllTasks(CLUSTER)).extracting(TaskMetadata::getName).containsExactlyInAnyOrder("discovery", "create-idx");
+    }
+
+    @Test
+    void testTaskCasRejectsStaleRevisionWithTheCurrentTask() throws Exception {
+        OffsetDateTime now = OffsetDateTime.now();
+        store.createTask(CLUSTER, task("create-idx", "RUNNING", "once", now));
+        Versioned<TaskMetadata> read = store.getTaskVersioned(CLUSTER, "create-idx");
+        store.updateTask(CLUSTER, task("create-idx", "COMPLETED", "once", now), read.getModRevision());
+
+        TaskMetadata cancelled = read.getValue();
+        cancelled.setCancelRequested(true);
+        assertThatThrownBy(() -> store.updateTask(CLUSTER, cancelled, read.getModRevision()))
+            .isInstanceOfSatisfying(VersionConflictException.class, e ->
+                assertThat(e.<TaskMetadata>getCurrent().getValue().getStatus()).isEqualTo("COMPLETED"));
+        assertThat(store.getTask(CLUSTER, "create-idx").get().isCancelRequested()).isFalse();
+        assertThat(store.stats().totals(CLUSTER).casConflicts()).isEqualTo(1);
+    }
+
+    @Test
+    void testDeleteOldTasksArchivesAndDeletesExpiredTasks() throws Exception {
+        OffsetDateTime old = OffsetDateTime.now().minusDays(2);
+        store.createTask(CLUSTER, task("done", "COMPLETED", "once", old));
+        store.createTask(CLUSTER, task("broken", "FAILED", "once", old));
+        store.createTask(CLUSTER, task("recent", "COMPLETED", "once", OffsetDateTime.now()));
+        store.createTask(CLUSTER, task("discovery", "PENDING", "repeat", old));
+
+        int deleted = store.deleteOldTasks(CLUSTER, System.currentTimeMillis() - 86_400_000L, true);
+
+        assertThat(deleted).isEqualTo(2);
+        assertThat(store.getTask(CLUSTER, "done")).isEmpty();
+        assertThat(store.getTask(CLUSTER, "broken")).isEmpty();
+        assertThat(store.getTask(CLUSTER, "recent")).isPresent();
+        assertThat(store.getTask(CLUSTER, "discovery")).isPresent();
+
+        // Nothing left to compact
+        assertThat(store.deleteOldTasks(CLUSTER, System.currentTimeMillis() - 86_400_000L, true)).isZero();
+
+        // The archive is one compressed array of the deleted tasks, in key order
+        store.close();
+        try (EmbeddedKvStore kvStore = EmbeddedKvStore.open(directory, false)) {
+            List<EmbeddedKvStore.Entry> archives = kvStore
+                .scan(new EtcdPathResolver().getControllerTaskHistoryPrefix(CLUSTER) + "/").entries();
+            assertThat(archives).hasSize(1);
+            ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+            assertThat(TerminalTasks.decodeArchive(objectMapper, archives.get(0).value()))
+                .extracting(TaskMetadata::getName).containsExactly("broken", "done");
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package io.clustercontroller.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.clustercontroller.models.SearchUnitGoalState;
+import io.clustercontroller.models.TaskMetadata;
+import io.clustercontroller.models.Template;
+import io.etcd.jetcd.ByteSequence;
+import io.etcd.jetcd.KV;
+import io.etcd.jetcd.KeyValue;
+import io.etcd.jetcd.Txn;
+import io.etcd.jetcd.kv.GetResponse;
+import io.etcd.jetcd.kv.TxnResponse;
+import io.etcd.jetcd.options.GetOption;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for EtcdAsyncMetadataStore.
+ */
+class EtcdAsyncMetadataStoreTest {
+
+    private static final String CLUSTER = "test-cluster";
+
+    private KV kvClient;
+    private EtcdPathResolver pathResolver;
+
+    @BeforeEach
+    void setUp() {
+        kvClient = mock(KV.class);
+        pathResolver = new EtcdPathResolver();
+    }
+
+    private EtcdAsyncMetadataStore newStore(int maxInFlight) {
+        return new EtcdAsyncMetadataStore(kvClient, pathResolver, new ObjectMapper(), maxInFlight);
+    }
+
+    private static final String OLD = "2020-01-01T00:00:00Z";
+
+    private EtcdAsyncMetadataStore newTaskStore() {
+        return new EtcdAsyncMetadataStore(kvClient, pathResolver, new ObjectMapper().registerModule(new JavaTimeModule()), 8);
+    }
+
+    private static String taskJson(String name, int priority, String status, String schedule, String lastUpdated) {
+        return "{\"name\":\"" + name + "\",\"priority\":" + priority + ",\"status\":\"" + status
+            + "\",\"schedule\":\"" + schedule + "\",\"last_updated\":\"" + lastUpdated + "\"}";
+    }
+
+    private KeyValue taskKv(String name, String json, long modRevision) {
+        KeyValue kv = mock(KeyValue.class);
+        when(kv.getKey()).thenReturn(ByteSequence.from(pathResolver.getControllerTaskPath(CLUSTER, name), UTF_8));
+        when(kv.getValue()).thenReturn(ByteSequence.from(json, UTF_8));
+        when(kv.getModRevision()).thenReturn(modRevision);
+        return kv;
+    }
+
+    private void stubTaskScan(KeyValue... kvs) {
+        GetResponse page = mock(GetResponse.class);
+        when(page.getKvs()).thenReturn(List.of(kvs));
+        when(kvClient.get(any(ByteSequence.class), any(GetOption.class))).thenReturn(CompletableFuture.completedFuture(page));
+    }
+
+    private static GetResponse getResponse(String value) {
+        KeyValue kv = mock(KeyValue.class);
+        when(kv.getValue()).thenReturn(ByteSequence.from(value, UTF_8));
+        GetResponse response = mock(GetResponse.class);
+        when(response.getKvs()).thenReturn(List.of(kv));
+        when(response.getCount()).thenReturn(1L);
+        return response;
+    }
+
+    @Test
+    void testReadsAreIssuedWithoutWaitingAndBoundedPerCluster() {
+        List<CompletableFuture<GetResponse>> pending = new ArrayList<>();
+        when(kvClient.get(any(ByteSequence.class))).thenAnswer(invocation -> {
+            CompletableFuture<GetResponse> future = new CompletableFuture<>();
+            pending.add(future);
+            return future;
+        });
+        EtcdAsyncMetadataStore store = newStore(2);
+
+        List<CompletableFuture<SearchUnitGoalState>> results = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            results.add(store.getSearchUnitGoalState(CLUSTER, "node" + i));
+        }
+
+        // Two requests in flight, the third queued until one completes
+        assertThat(pending).hasSize(2);
+        pending.get(0).complete(getResponse("{\"local_shards\":{}}"));
+        assertThat(pending).hasSize(3);
+        pending.get(1).complete(getResponse("{\"local_shards\":{}}"));
+        pending.get(2).complete(getResponse("{\"local_shards\":{}}"));
+
+        assertThat(results).allMatch(future -> future.isDone() && !future.isCompletedExceptionally());
+        verify(kvClient, times(3)).get(any(ByteSequence.class));
+    }
+
+    @Test
+    void testFailuresCompleteWithSameExceptionAsBlockingCall() {
+        when(kvClient.get(any(ByteSequence.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("etcd unavailable")));
+        EtcdAsyncMetadataStore store = newStore(8);
+
+        assertThatThrownBy(() -> AsyncMetadataStore.await(store.getIndexConfig(CLUSTER, "idx")))
+                .isExactlyInstanceOf(Exception.class)
+                .hasMessage("Failed to retrieve index config from etcd")
+                .hasRootCauseMessage("etcd unavailable");
+    }
+
+    @Test
+    void testMissingTemplateFailsWithIllegalArgumentException() {
+        GetResponse empty = mock(GetResponse.class);
+        when(empty.getCount()).thenReturn(0L);
+        when(kvClient.get(any(ByteSequence.class))).thenReturn(CompletableFuture.completedFuture(empty));
+        EtcdAsyncMetadataStore store = newStore(8);
+
+        CompletableFuture<Template> result = store.getTemplate(CLUSTER, "missing");
+
+        assertThatThrownBy(() -> AsyncMetadataStore.await(result))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Template 'missing' not found");
+    }
+
+    @Test
+    void testListChildNamesUsesKeysOnlyReadAndFiltersBySuffix() throws Exception {
+        String prefix = pathResolver.getIndicesPrefix(CLUSTER);
+        GetResponse response = mock(GetResponse.class);
+        List<KeyValue> keys = new ArrayList<>();
+        for (String key : List.of(prefix + "/idx1/0/actual-allocation", prefix + "/idx1/1/actual-allocation",
+                prefix + "/idx1/conf", prefix + "/idx2/0/planned-allocation", prefix + "/idx3/0/actual-allocation")) {
+            KeyValue kv = mock(KeyValue.class);
+            when(kv.getKey()).thenReturn(ByteSequence.from(key, UTF_8));
+            keys.add(kv);
+        }
+        when(response.getKvs()).thenReturn(keys);
+        ArgumentCaptor<GetOption> optionCaptor = ArgumentCaptor.forClass(GetOption.class);
+        when(kvClient.get(any(ByteSequence.class), optionCaptor.capture()))
+                .thenReturn(CompletableFuture.completedFuture(response));
+
+        List<String> names = AsyncMetadataStore.await(newStore(8).listChildNames(CLUSTER, prefix, "actual-allocation"));
+
+        assertThat(names).containsExactly("idx1", "idx3");
+        assertThat(optionCaptor.getValue().isKeysOnly()).isTrue();
+    }
+
+    @Test
+    void testCountKeysUsesCountOnlyRead() throws Exception {
+        GetResponse response = mock(GetResponse.class);
+        when(response.getCount()).thenReturn(42L);
+        ArgumentCaptor<GetOption> optionCaptor = ArgumentCaptor.forClass(GetOption.class);
+        when(kvClient.get(any(ByteSequence.class), optionCaptor.capture()))
+                .thenReturn(CompletableFuture.completedFuture(response));
+
+        long count = AsyncMetadataStore.await(newStore(8).countKeys(CLUSTER, pathResolver.getAliasesPrefix(CLUSTER)));
+
+        assertThat(count).isEqualTo(42L);
+        assertThat(optionCaptor.getValue().isCountOnly()).isTrue();
+        assertThat(optionCaptor.getValue().isSerializable()).isFalse();
+    }
+
+    @Test
+    void testSerializableViewReadsWithoutLeaderAndSharesLimiter() throws Exception {
+        ArgumentCaptor<GetOption> optionCaptor = ArgumentCaptor.forClass(GetOption.class);
+        when(kvClient.get(any(ByteSequence.class), optionCaptor.capture()))
+                .thenReturn(CompletableFuture.completedFuture(getResponse("{\"local_shards\":{}}")));
+        when(kvClient.get(any(ByteSequence.class)))
+                .thenReturn(CompletableFuture.completedFuture(getResponse("{\"local_shards\":{}}")));
+        EtcdAsyncMetadataStore store = newStore(8);
+        EtcdAsyncMetadataStore view = store.serializableReads();
+
+        AsyncMetadataStore.await(view.getSearchUnitGoalState(CLUSTER, "node1"));
+        AsyncMetadataStore.await(store.getSearchUnitGoalState(CLUSTER, "node1"));
+
+        assertThat(optionCaptor.getAllValues()).singleElement().matches(GetOption::isSerializable);
+        verify(kvClient, times(1)).get(any(ByteSequence.class));
+        assertThat(view.serializableReads()).isSameAs(view);
+        assertThat(store.serializableReads()).isSameAs(view);
+        assertThat(view.getInFlightLimiter()).isSameAs(store.getInFlightLimiter());
+        assertThat(store.isSerializableReads()).isFalse();
+    }
+
+    @Test
+    void testSettingsApplyToSerializableView() {
+        EtcdAsyncMetadataStore store = newStore(8);
+        EtcdAsyncMetadataStore view = store.serializableReads();
+        ValueCodec codec = new JacksonValueCodec(new ObjectMapper(), ValueCodec.Format.SMILE, true);
+
+        store.setStateCodec(codec);
+
+        assertThat(view.getStateCodec()).isSameAs(codec);
+    }
+
+    @Test
+    void testStatsCountRequestsKeysAndBytesPerCluster() throws Exception {
+        String value = "{\"local_shards\":{}}";
+        when(kvClient.get(any(ByteSequence.class))).thenReturn(CompletableFuture.completedFuture(getResponse(value)));
+        when(kvClient.get(any(ByteSequence.class), any(GetOption.class)))
+                .thenReturn(CompletableFuture.completedFuture(getResponse(value)));
+        EtcdAsyncMetadataStore store = newStore(8);
+
+        AsyncMetadataStore.await(store.getSearchUnitGoalState(CLUSTER, "node1"));
+        AsyncMetadataStore.await(store.serializableReads().getSearchUnitGoalState(CLUSTER, "node2"));
+
+        StoreStats.Totals totals = store.getStats().totals(CLUSTER);
+        assertThat(totals.requests()).isEqualTo(2);
+        assertThat(totals.keysRead()).isEqualTo(2);
+        assertThat(totals.bytesRead()).isEqualTo(2L * value.length());
+        assertThat(store.getStats().totals("other-cluster")).isEqualTo(StoreStats.Totals.ZERO);
+    }
+
+    private static EtcdTimeouts timeouts(long readTimeoutMs, int readMaxAttempts, long passDeadlineMs) {
+        return new EtcdTimeouts(readTimeoutMs, readTimeoutMs, readTimeoutMs, readTimeoutMs, readMaxAttempts, 0, passDeadlineMs);
+    }
+
+    @Test
+    void testTimedOutReadIsRetried() throws Exception {
+        when(kvClient.get(any(ByteSequence.class)))
+                .thenReturn(CompletableFuture.failedFuture(new TimeoutException("slow member")))
+                .thenReturn(CompletableFuture.completedFuture(getResponse("{\"local_shards\":{}}")));
+        EtcdAsyncMetadataStore store = newStore(8);
+        store.setTimeouts(timeouts(1000, 3, 0));
+
+        assertThat(AsyncMetadataStore.await(store.getSearchUnitGoalState(CLUSTER, "node1"))).isNotNull();
+
+        verify(kvClient, times(2)).get(any(ByteSequence.class));
+        assertThat(store.getStats().totals(CLUSTER).timeouts()).isEqualTo(1);
+    }
+
+    @Test
+    void testReadRetriesAreBoundedAndWritesAreNotRetried() {
+        when(kvClient.get(any(ByteSequence.class)))
+                .thenReturn(CompletableFuture.failedFuture(new TimeoutException("slow member")));
+        when(kvClient.put(any(ByteSequence.class), any(ByteSequence.class)))
+                .thenReturn(CompletableFuture.failedFuture(new TimeoutException("slow member")));
+        EtcdAsyncMetadataStore store = newStore(8);
+        store.setTimeouts(timeouts(1000, 3, 0));
+
+        assertThatThrownBy(() -> AsyncMetadataStore.await(store.getSearchUnitGoalState(CLUSTER, "node1")))
+                .isInstanceOf(TimeoutException.class);
+        assertThatThrownBy(() -> AsyncMetadataStore.await(store.createIndexConfig(CLUSTER, "idx", "{}")))
+                .hasRootCauseInstanceOf(TimeoutException.class);
+
+        verify(kvClient, times(3)).get(any(ByteSequence.class));
+        verify(kvClient, times(1)).put(any(ByteSequence.class), any(ByteSequence.class));
+    }
+
+    @Test
+    void testRequestTimeoutIsCappedByPassDeadline() {
+        when(kvClient.get(any(ByteSequence.class))).thenReturn(new CompletableFuture<>());
+        EtcdAsyncMetadataStore store = newStore(8);
+        store.setTimeouts(timeouts(60_000, 1, 50));
+
+        try (PassDeadline deadline = store.startPassDeadline(CLUSTER)) {
+            long start = System.nanoTime();
+            assertThatThrownBy(() -> AsyncMetadataStore.await(store.getSearchUnitGoalState(CLUSTER, "node1")))
+                    .isInstanceOf(TimeoutException.class);
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(10_000);
+        }
+    }
+
+    @Test
+    void testExpiredPassDeadlineFailsFastWithoutSending() throws Exception {
+        EtcdAsyncMetadataStore store = newStore(8);
+        store.setTimeouts(timeouts(1000, 3, 1));
+
+        try (PassDeadline deadline = store.startPassDeadline(CLUSTER)) {
+            Thread.sleep(5);
+            assertThatThrownBy(() -> AsyncMetadataStore.await(store.getSearchUnitGoalState(CLUSTER, "node1")))
+                    .isInstanceOf(DeadlineExceededException.class);
+            // Other clusters are not bound by this cluster's pass
+            assertThat(store.getPassDeadlines().get("other-cluster")).isNull();
+        }
+
+        verifyNoInteractions(kvClient);
+        assertThat(store.getStats().totals(CLUSTER).requests()).isZero();
+        assertThat(store.getPassDeadlines().get(CLUSTER)).isNull();
+    }
+
+    @Test
+    void testPassDeadlineDoesNotBindOtherThreads() throws Exception {
+        EtcdAsyncMetadataStore store = newStore(8);
+        store.setTimeouts(timeouts(1000, 3, 1));
+
+        try (PassDeadline deadline = store.startPassDeadline(CLUSTER)) {
+            Thread.sleep(5);
+            // An API call on the same cluster while the pass overruns keeps its own timeouts
+            CompletableFuture<PassDeadline> seenByOtherThread =
+                    CompletableFuture.supplyAsync(() -> store.getPassDeadlines().get(CLUSTER));
+            assertThat(seenByOtherThread.get()).isNull();
+            assertThat(store.getPassDeadlines().get(CLUSTER)).isSameAs(deadline);
+        }
+    }
+
+    @Test
+    void testGetAllTasksSkipsFinishedTasksWithoutDecodingThemAgain() throws Exception {
+        String now = OffsetDateTime.now().toString();
+        KeyValue active = taskKv("discovery", taskJson("discovery", 1, "PENDING", "repeat", now), 5);
+        KeyValue finished = taskKv("create-idx", taskJson("create-idx", 2, "COMPLETED", "once", now), 6);
+        stubTaskScan(active, finished);
+        EtcdAsyncMetadataStore store = newTaskStore();
+
+        assertThat(AsyncMetadataStore.await(store.getAllTasks(CLUSTER))).extracting(TaskMetadata::getName)
+                .containsExactly("discovery");
+
+        // Same modRevision: known to be finished, so the value is not parsed again
+        when(finished.getValue()).thenReturn(ByteSequence.from("not json", UTF_8));
+        assertThat(AsyncMetadataStore.await(store.getAllTasks(CLUSTER))).extracting(TaskMetadata::getName)
+                .containsExactly("discovery");
+
+        // Rewritten as pending: listed again
+        when(finished.getValue()).thenReturn(ByteSequence.from(taskJson("create-idx", 2, "PENDING", "once", now), UTF_8));
+        when(finished.getModRevision()).thenReturn(7L);
+        assertThat(AsyncMetadataStore.await(store.getAllTasks(CLUSTER))).extracting(TaskMetadata::getName)
+                .containsExactly("discovery", "create-idx");
+        assertThat(store.getTerminalTasks().count(CLUSTER)).isZero();
+    }
+
+    @Test
+    void testDeleteOldTasksDeletesExpiredTasksInGuardedBatches() throws Exception {
+        String now = OffsetDateTime.now().toString();
+        stubTaskScan(
+                taskKv("t1", taskJson("t1", 0, "COMPLETED", "once", OLD), 1),
+                taskKv("t2", taskJson("t2", 0, "FAILED", "once", OLD), 2),
+                taskKv("t3", taskJson("t3", 0, "COMPLETED", "once", OLD), 3),
+                taskKv("recent", taskJson("recent", 0, "COMPLETED", "once", now), 4),
+                taskKv("discovery", taskJson("discovery", 0, "COMPLETED", "repeat", OLD), 5),
+                taskKv("pending", taskJson("pending", 0, "PENDING", "once", OLD), 6));
+        Txn txn = mock(Txn.class, RETURNS_SELF);
+        when(kvClient.txn()).thenReturn(txn);
+        TxnResponse applied = mock(TxnResponse.class);
+        when(applied.isSucceeded()).thenReturn(true);
+        TxnResponse conflict = mock(TxnResponse.class);
+        when(txn.commit()).thenReturn(CompletableFuture.completedFuture(applied), CompletableFuture.completedFuture(conflict));
+        EtcdAsyncMetadataStore store = newTaskStore();
+        // Two deletes and the archive put per transaction
+        store.setMaxTxnOps(3);
+
+        int deleted = AsyncMetadataStore.await(store.deleteOldTasks(CLUSTER, System.currentTimeMillis() - 3_600_000, true));
+
+        // t1 and t2 deleted; t3 was rewritten meanwhile, so its batch is left for the next run
+        assertThat(deleted).isEqualTo(2);
+        verify(kvClient, times(2)).txn();
+        assertThat(store.getStats().totals(CLUSTER).bytesWritten()).isGreaterThan(0);
+    }
+
+    @Test
+    void testDeleteOldTasksRetriesBatchWithoutTheTaskRewrittenMeanwhile() throws Exception {
+        KeyValue t1 = taskKv("t1", taskJson("t1", 0, "COMPLETED", "once", OLD), 1);
+        KeyValue t2 = taskKv("t2", taskJson("t2", 0, "FAILED", "once", OLD), 2);
+        KeyValue t3 = taskKv("t3", taskJson("t3", 0, "COMPLETED", "once", OLD), 3);
+        stubTaskScan(t1, t2, t3);
+        Txn txn = mock(Txn.class, RETURNS_SELF);
+        when(kvClient.txn()).thenReturn(txn);
+        // The Else reads show t2 rewritten at revision 9
+        List<GetResponse> reads = List.of(read(t1), read(taskKv("t2", "{}", 9)), read(t3));
+        TxnResponse conflict = mock(TxnResponse.class);
+        when(conflict.getGetResponses()).thenReturn(reads);
+        TxnResponse applied = mock(TxnResponse.class);
+        when(applied.isSucceeded()).thenReturn(true);
+        when(txn.commit()).thenReturn(CompletableFuture.completedFuture(conflict), CompletableFuture.completedFuture(applied));
+        EtcdAsyncMetadataStore store = newTaskStore();
+
+        int deleted = AsyncMetadataStore.await(store.deleteOldTasks(CLUSTER, System.currentTimeMillis() - 3_600_000, false));
+
+        // t1 and t3 are not held back until the next run by t2
+        assertThat(deleted).isEqualTo(2);
+        verify(kvClient, times(2)).txn();
+        assertThat(store.getStats().totals(CLUSTER).casConflicts()).isEqualTo(1);
+    }
+
+    private static GetResponse read(KeyValue kv) {
+        GetResponse response = mock(GetResponse.class);
+        when(response.getKvs()).thenReturn(List.of(kv));
+        return response;
+    }
+}
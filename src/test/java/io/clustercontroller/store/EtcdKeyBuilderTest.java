@@ -0,0 +1,82 @@
+package io.clustercontroller.store;
+
+import io.etcd.jetcd.ByteSequence;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for EtcdKeyBuilder.
+ */
+class EtcdKeyBuilderTest {
+
+    @Test
+    void testJoinMatchesPathsNormalization() {
+        String[][] cases = {
+            {"multi-cluster", "staging", "controllers", ""},
+            {"c", "search-unit", "unit-1", "goal-state"},
+            {"/c/", "//search-unit", "a/b", "conf/"},
+            {"", "c", "", "indices"},
+        };
+        for (String[] segments : cases) {
+            assertThat(EtcdKeyBuilder.join(segments))
+                .isEqualTo(Paths.get("/", segments).toString());
+        }
+        assertThat(EtcdKeyBuilder.join("")).isEqualTo("/");
+    }
+
+    @Test
+    void testAppendToNormalizedBase() {
+        assertThat(EtcdKeyBuilder.append("/c/indices", "idx")).isEqualTo("/c/indices/idx");
+        assertThat(EtcdKeyBuilder.append("/c/indices", "idx", "conf")).isEqualTo("/c/indices/idx/conf");
+        assertThat(EtcdKeyBuilder.append("/c/indices", "idx", "0", "planned-allocation"))
+            .isEqualTo("/c/indices/idx/0/planned-allocation");
+        assertThat(EtcdKeyBuilder.append("/c/search-unit", "/unit-1/", "")).isEqualTo("/c/search-unit/unit-1");
+    }
+
+    @Test
+    void testByteKeysMatchStringKeys() {
+        EtcdKeyBuilder.ClusterPrefixes prefixes = new EtcdKeyBuilder.ClusterPrefixes("test-cluster");
+
+        assertThat(prefixes.getSearchUnits()).isEqualTo("/test-cluster/search-unit");
+        assertThat(prefixes.searchUnitKey("unit-1", "goal-state"))
+            .isEqualTo(ByteSequence.from("/test-cluster/search-unit/unit-1/goal-state", UTF_8));
+        assertThat(prefixes.shardKey("logs", "3", "actual-allocation"))
+            .isEqualTo(ByteSequence.from("/test-cluster/indices/logs/3/actual-allocation", UTF_8));
+        // Non-ASCII and delimiter-bearing segments take the normalizing path
+        assertThat(prefixes.searchUnitKey("ünit", "conf"))
+            .isEqualTo(ByteSequence.from("/test-cluster/search-unit/ünit/conf", UTF_8));
+        assertThat(prefixes.shardKey("logs/", "3", "conf"))
+            .isEqualTo(ByteSequence.from("/test-cluster/indices/logs/3/conf", UTF_8));
+    }
+
+    @Test
+    void testSegmentsBelowPrefix() {
+        EtcdKeyBuilder.KeySegments unit = EtcdKeyBuilder.segments("/c/search-unit/unit-1/actual-state", "/c/search-unit");
+        assertThat(unit.size()).isEqualTo(2);
+        assertThat(unit.get(0)).isEqualTo("unit-1");
+        assertThat(unit.is(1, "actual-state")).isTrue();
+        assertThat(unit.is(1, "actual")).isFalse();
+        assertThat(unit.get(2)).isNull();
+
+        EtcdKeyBuilder.KeySegments shard = EtcdKeyBuilder.segments("/c/indices/idx/0/planned-allocation", "/c/indices/");
+        assertThat(shard.size()).isEqualTo(3);
+        assertThat(shard.get(0)).isEqualTo("idx");
+        assertThat(shard.get(1)).isEqualTo("0");
+        assertThat(shard.is(2, "planned-allocation")).isTrue();
+    }
+
+    @Test
+    void testSegmentsCountLikeSplit() {
+        String[] keys = {"a/b/", "a//b", "a", "", "a/b/c/d/e"};
+        for (String key : keys) {
+            String[] split = key.split("/");
+            int expected = key.isEmpty() ? 0 : split.length;
+            assertThat(EtcdKeyBuilder.segments("/p/" + key, "/p/").size()).as(key).isEqualTo(expected);
+        }
+        assertThat(EtcdKeyBuilder.segments("/p/a//b", "/p").get(1)).isEmpty();
+    }
+}
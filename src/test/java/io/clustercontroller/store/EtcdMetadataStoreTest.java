@@ -1053,6 +1053,66 @@ public class EtcdMetadataStoreTest {
         verify(mockTxn).commit();
     }
 
+    @Test
+    void testRevisionAwareGoalStateWriteIsSingleRoundTrip() throws Exception {
+        EtcdMetadataStore store = newStore();
+        KV mockKvClient = mock(KV.class);
+        setPrivateField(store, "kvClient", mockKvClient);
+        SearchUnitGoalState goalState = new SearchUnitGoalState();
+        goalState.getLocalShards().put("index1", Map.of("0", "PRIMARY"));
+
+        Response.Header header = mock(Response.Header.class);
+        when(header.getRevision()).thenReturn(101L);
+        TxnResponse txnResponse = mock(TxnResponse.class);
+        when(txnResponse.isSucceeded()).thenReturn(true);
+        when(txnResponse.getHeader()).thenReturn(header);
+        Txn mockTxn = mock(Txn.class);
+        when(mockTxn.If(any())).thenReturn(mockTxn);
+        when(mockTxn.Then(any())).thenReturn(mockTxn);
+        when(mockTxn.Else(any())).thenReturn(mockTxn);
+        when(mockTxn.commit()).thenReturn(CompletableFuture.completedFuture(txnResponse));
+        when(mockKvClient.txn()).thenReturn(mockTxn);
+
+        Versioned<SearchUnitGoalState> written = store.setSearchUnitGoalState(CLUSTER, "test-node", goalState, 100L);
+
+        assertThat(written.getValue()).isSameAs(goalState);
+        assertThat(written.getModRevision()).isEqualTo(101L);
+        verify(mockKvClient, never()).get(any(ByteSequence.class));
+        verify(mockKvClient, never()).get(any(ByteSequence.class), any(GetOption.class));
+        verify(mockTxn).commit();
+    }
+
+    @Test
+    void testRevisionAwareGoalStateConflictCarriesCurrentValue() throws Exception {
+        EtcdMetadataStore store = newStore();
+        KV mockKvClient = mock(KV.class);
+        setPrivateField(store, "kvClient", mockKvClient);
+
+        KeyValue currentKv = mock(KeyValue.class);
+        when(currentKv.getValue()).thenReturn(ByteSequence.from("{\"local_shards\":{\"index2\":{\"0\":\"PRIMARY\"}}}", UTF_8));
+        when(currentKv.getModRevision()).thenReturn(120L);
+        GetResponse current = mock(GetResponse.class);
+        when(current.getKvs()).thenReturn(List.of(currentKv));
+        TxnResponse txnResponse = mock(TxnResponse.class);
+        when(txnResponse.isSucceeded()).thenReturn(false);
+        when(txnResponse.getGetResponses()).thenReturn(List.of(current));
+        Txn mockTxn = mock(Txn.class);
+        when(mockTxn.If(any())).thenReturn(mockTxn);
+        when(mockTxn.Then(any())).thenReturn(mockTxn);
+        when(mockTxn.Else(any())).thenReturn(mockTxn);
+        when(mockTxn.commit()).thenReturn(CompletableFuture.completedFuture(txnResponse));
+        when(mockKvClient.txn()).thenReturn(mockTxn);
+
+        assertThatThrownBy(() -> store.setSearchUnitGoalState(CLUSTER, "test-node", new SearchUnitGoalState(), 100L))
+                .isInstanceOfSatisfying(VersionConflictException.class, e -> {
+                    Versioned<SearchUnitGoalState> fresh = e.getCurrent();
+                    assertThat(e.getExpectedRevision()).isEqualTo(100L);
+                    assertThat(fresh.getModRevision()).isEqualTo(120L);
+                    assertThat(fresh.getValue().getShardRole("index2", "0")).isEqualTo("PRIMARY");
+                });
+        verify(mockKvClient, never()).get(any(ByteSequence.class));
+    }
+
     // ------------------------- getAssignedController tests -------------------------
 
     @Test
@@ -1324,11 +1384,57 @@ public class EtcdMetadataStoreTest {
         verify(mockKv).get(any(ByteSequence.class));
     }
 
+    // ------------------------- cluster snapshot tests -------------------------
+
+    @Test
+    public void testLoadClusterSnapshotPinsRangeReadsToOneRevision() throws Exception {
+        EtcdMetadataStore store = newStore();
+        setPrivateField(store, "pathResolver", new EtcdPathResolver());
+
+        GetResponse unitsResp = mockGetResponse(List.of(
+            mockKvWithKey("/test-cluster/search-unit/node1/conf", "{\"name\":\"node1\"}"),
+            mockKvWithKey("/test-cluster/search-unit/node1/goal-state", "{\"local_shards\":{}}")));
+        Response.Header header = mock(Response.Header.class);
+        when(header.getRevision()).thenReturn(77L);
+        when(unitsResp.getHeader()).thenReturn(header);
+        GetResponse indicesResp = mockGetResponse(List.of(
+            mockKvWithKey("/test-cluster/indices/idx/0/planned-allocation", "{\"shard_id\":\"0\",\"index_name\":\"idx\"}"),
+            mockKvWithKey("/test-cluster/indices/idx/0/actual-allocation", "{\"shard_id\":\"0\",\"index_name\":\"idx\"}")));
+        GetResponse aliasesResp = mockGetResponse(List.of());
+
+        ArgumentCaptor<GetOption> optionCaptor = ArgumentCaptor.forClass(GetOption.class);
+        when(mockKv.get(any(ByteSequence.class), optionCaptor.capture())).thenAnswer(invocation -> {
+            String prefix = invocation.getArgument(0, ByteSequence.class).toString(UTF_8);
+            if (prefix.startsWith("/test-cluster/search-unit")) {
+                return CompletableFuture.completedFuture(unitsResp);
+            }
+            return CompletableFuture.completedFuture(prefix.startsWith("/test-cluster/indices") ? indicesResp : aliasesResp);
+        });
+
+        ClusterSnapshot snapshot = store.loadClusterSnapshot(CLUSTER);
+
+        assertThat(snapshot.getRevision()).isEqualTo(77L);
+        assertThat(snapshot.getSearchUnits()).containsOnlyKeys("node1");
+        assertThat(snapshot.getGoalStates()).containsOnlyKeys("node1");
+        assertThat(snapshot.getPlannedAllocation("idx", "0")).isNotNull();
+        assertThat(snapshot.getActualAllocation("idx", "0")).isNotNull();
+        assertThat(snapshot.getAliases()).isEmpty();
+        // The first read fixes the revision; the following reads are pinned to it
+        List<GetOption> options = optionCaptor.getAllValues();
+        assertThat(options).hasSize(3);
+        assertThat(options.get(1).getRevision()).isEqualTo(77L);
+        assertThat(options.get(2).getRevision()).isEqualTo(77L);
+    }
+
     // ------------------------- reflection util -------------------------
 
     private static void setPrivateField(Object target, String fieldName, Object value) throws Exception {
         Field f = target.getClass().getDeclaredField(fieldName);
         f.setAccessible(true);
         f.set(target, value);
+        // Data operations run on the store's async view, which holds its own references
+        if (target instanceof EtcdMetadataStore store) {
+            setPrivateField(store.async(), fieldName, value);
+        }
     }
 }
@@ -4,6 +4,7 @@ import io.clustercontroller.util.EnvironmentUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
 
 class EtcdPathResolverTest {
@@ -277,4 +278,13 @@ class EtcdPathResolverTest {
             EnvironmentUtils.setForTesting("controller.runtime_env", originalEnv);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void testByteKeysMatchStringPaths() {
+        assertThat(pathResolver.getSearchUnitKey(testClusterName, "unit1", "goal-state").toString(UTF_8))
+            .isEqualTo(pathResolver.getSearchUnitGoalStatePath(testClusterName, "unit1"));
+        assertThat(pathResolver.getShardKey(testClusterName, "index1", "0", "planned-allocation").toString(UTF_8))
+            .isEqualTo(pathResolver.getShardPlannedAllocationPath(testClusterName, "index1", "0"));
+        assertThat(pathResolver.prefixes(testClusterName)).isSameAs(pathResolver.prefixes(testClusterName));
+    }
+}
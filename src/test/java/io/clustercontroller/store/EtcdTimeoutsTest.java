@@ -0,0 +1,44 @@
+package io.clustercontroller.store;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for EtcdTimeouts.
+ */
+class EtcdTimeoutsTest {
+
+    @Test
+    void testTimeoutPerOperationClass() {
+        EtcdTimeouts timeouts = new EtcdTimeouts(100, 200, 300, 400, 3, 50, 0);
+
+        assertThat(timeouts.timeoutMs(EtcdTimeouts.OperationClass.READ)).isEqualTo(100);
+        assertThat(timeouts.timeoutMs(EtcdTimeouts.OperationClass.SCAN)).isEqualTo(200);
+        assertThat(timeouts.timeoutMs(EtcdTimeouts.OperationClass.WRITE)).isEqualTo(300);
+        assertThat(timeouts.timeoutMs(EtcdTimeouts.OperationClass.TXN)).isEqualTo(400);
+    }
+
+    @Test
+    void testRetryDelayGrowsWithJitterAndIsCapped() {
+        EtcdTimeouts timeouts = new EtcdTimeouts(100, 100, 100, 100, 3, 40, 0);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(timeouts.retryDelayMs(1)).isBetween(20L, 40L);
+            assertThat(timeouts.retryDelayMs(3)).isBetween(80L, 160L);
+            assertThat(timeouts.retryDelayMs(50)).isBetween(40L << 5, 40L << 6);
+        }
+    }
+
+    @Test
+    void testInvalidValuesAreClamped() {
+        EtcdTimeouts timeouts = new EtcdTimeouts(0, -1, 0, 0, 0, -5, -1);
+
+        assertThat(timeouts.readTimeoutMs()).isEqualTo(1);
+        assertThat(timeouts.scanTimeoutMs()).isEqualTo(1);
+        assertThat(timeouts.readMaxAttempts()).isEqualTo(1);
+        assertThat(timeouts.readRetryBackoffMs()).isZero();
+        assertThat(timeouts.passDeadlineMs()).isZero();
+        assertThat(timeouts.retryDelayMs(1)).isZero();
+    }
+}
@@ -0,0 +1,163 @@
+package io.clustercontroller.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.clustercontroller.models.SearchUnitGoalState;
+import io.clustercontroller.models.ShardAllocation;
+import io.etcd.jetcd.KV;
+import io.etcd.jetcd.KeyValue;
+import io.etcd.jetcd.Txn;
+import io.etcd.jetcd.kv.GetResponse;
+import io.etcd.jetcd.kv.TxnResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for EtcdWriteBatch.
+ */
+class EtcdWriteBatchTest {
+
+    private static final String CLUSTER = "test-cluster";
+
+    private KV kvClient;
+    private Txn txn;
+    private EtcdPathResolver pathResolver;
+
+    @BeforeEach
+    void setUp() {
+        kvClient = mock(KV.class);
+        // Builder-style If/Then/Else return the txn itself
+        txn = mock(Txn.class, RETURNS_SELF);
+        when(kvClient.txn()).thenReturn(txn);
+        pathResolver = new EtcdPathResolver();
+    }
+
+    private EtcdWriteBatch newBatch(int maxTxnOps) {
+        return new EtcdWriteBatch(kvClient, pathResolver, new ObjectMapper(), maxTxnOps);
+    }
+
+    private static TxnResponse txnResponse(boolean succeeded, List<GetResponse> getResponses) {
+        TxnResponse response = mock(TxnResponse.class);
+        when(response.isSucceeded()).thenReturn(succeeded);
+        when(response.getGetResponses()).thenReturn(getResponses);
+        return response;
+    }
+
+    private static GetResponse getResponse(long modRevision) {
+        KeyValue kv = mock(KeyValue.class);
+        when(kv.getModRevision()).thenReturn(modRevision);
+        GetResponse response = mock(GetResponse.class);
+        when(response.getKvs()).thenReturn(List.of(kv));
+        return response;
+    }
+
+    private static ShardAllocation allocation(String index, String shard) {
+        ShardAllocation allocation = new ShardAllocation(shard, index);
+        allocation.setIngestSUs(List.of("node1"));
+        return allocation;
+    }
+
+    @Test
+    void testCommitSplitsOperationsIntoChunksOfMaxTxnOps() throws Exception {
+        when(txn.commit()).thenReturn(CompletableFuture.completedFuture(txnResponse(true, List.of())));
+        WriteBatch batch = newBatch(2);
+        for (int shard = 0; shard < 5; shard++) {
+            batch.setPlannedAllocation(CLUSTER, "idx", String.valueOf(shard), allocation("idx", String.valueOf(shard)));
+        }
+
+        WriteBatchResult result = batch.commit();
+
+        assertThat(result.isAllApplied()).isTrue();
+        assertThat(result.count(WriteBatchResult.Status.APPLIED)).isEqualTo(5);
+        verify(kvClient, times(3)).txn();
+        verify(txn, times(3)).commit();
+    }
+
+    @Test
+    void testGuardConflictIsReportedAndRestOfChunkRetried() throws Exception {
+        // First attempt: node1 changed after the guard revision, node2 did not
+        when(txn.commit())
+                .thenReturn(CompletableFuture.completedFuture(txnResponse(false, List.of(getResponse(20), getResponse(5)))))
+                .thenReturn(CompletableFuture.completedFuture(txnResponse(true, List.of())));
+        WriteBatch batch = newBatch(128).guardUnchangedSince(10);
+        batch.setSearchUnitGoalState(CLUSTER, "node1", new SearchUnitGoalState());
+        batch.setSearchUnitGoalState(CLUSTER, "node2", new SearchUnitGoalState());
+
+        WriteBatchResult result = batch.commit();
+
+        assertThat(result.getOperations(WriteBatchResult.Status.CONFLICT))
+                .extracting(WriteOperation::getName).containsExactly("node1");
+        assertThat(result.getOperations(WriteBatchResult.Status.APPLIED))
+                .extracting(WriteOperation::getName).containsExactly("node2");
+        verify(txn, times(2)).commit();
+    }
+
+    @Test
+    void testFailedTransactionsAreRetriedThenReportedAsFailed() throws Exception {
+        when(txn.commit()).thenReturn(CompletableFuture.failedFuture(new RuntimeException("etcd unavailable")));
+        WriteBatch batch = newBatch(128);
+        batch.deleteActualAllocation(CLUSTER, "idx", "0");
+
+        WriteBatchResult result = batch.commit();
+
+        assertThat(result.count(WriteBatchResult.Status.FAILED)).isEqualTo(1);
+        verify(txn, times(3)).commit();
+    }
+
+    @Test
+    void testLastWriteToSameEntryWins() throws Exception {
+        when(txn.commit()).thenReturn(CompletableFuture.completedFuture(txnResponse(true, List.of())));
+        WriteBatch batch = newBatch(128);
+        batch.setActualAllocation(CLUSTER, "idx", "0", allocation("idx", "0"));
+        batch.deleteActualAllocation(CLUSTER, "idx", "0");
+        batch.setPlannedAllocation(CLUSTER, "idx", "0", allocation("idx", "0"));
+
+        assertThat(batch.size()).isEqualTo(2);
+        WriteBatchResult result = batch.commit();
+
+        assertThat(result.getOperations(WriteBatchResult.Status.APPLIED))
+                .extracting(WriteOperation::getType)
+                .containsExactly(WriteOperation.Type.DELETE_ACTUAL_ALLOCATION, WriteOperation.Type.PUT_PLANNED_ALLOCATION);
+    }
+
+    @Test
+    void testEmptyBatchCommitsWithoutTransactionAndIsSingleUse() throws Exception {
+        WriteBatch batch = newBatch(128);
+
+        assertThat(batch.commit().getStatuses()).isEmpty();
+        verify(kvClient, never()).txn();
+        assertThatThrownBy(batch::commit).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testKeyOfResolvesEtcdPaths() {
+        assertThat(EtcdWriteBatch.keyOf(
+                new WriteOperation(WriteOperation.Type.DELETE_ACTUAL_ALLOCATION, CLUSTER, "idx", "0", null, 0), pathResolver))
+                .isEqualTo(pathResolver.getShardActualAllocationPath(CLUSTER, "idx", "0"));
+        assertThat(EtcdWriteBatch.keyOf(
+                new WriteOperation(WriteOperation.Type.PUT_SEARCH_UNIT_GOAL_STATE, CLUSTER, "node1", null, null, 0), pathResolver))
+                .isEqualTo(pathResolver.getSearchUnitGoalStatePath(CLUSTER, "node1"));
+    }
+
+    @Test
+    void testExpiredPassDeadlineFailsOperationsWithoutSendingTxn() throws Exception {
+        PassDeadline.Registry deadlines = new PassDeadline.Registry();
+        EtcdWriteBatch batch = new EtcdWriteBatch(kvClient, pathResolver, new ObjectMapper(),
+                JacksonValueCodec.json(new ObjectMapper()), 8, new StoreStats(), EtcdTimeouts.DEFAULT, deadlines);
+        batch.setPlannedAllocation(CLUSTER, "idx", "0", allocation("idx", "0"));
+
+        try (PassDeadline deadline = deadlines.start(CLUSTER, 1)) {
+            Thread.sleep(5);
+            WriteBatchResult result = batch.commit();
+
+            assertThat(result.count(WriteBatchResult.Status.FAILED)).isEqualTo(1);
+        }
+        verify(kvClient, never()).txn();
+    }
+}
@@ -0,0 +1,146 @@
+package io.clustercontroller.store;
+
+import io.clustercontroller.metrics.MetricsProvider;
+import io.clustercontroller.models.TaskMetadata;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+
+import static io.clustercontroller.metrics.MetricsConstants.CLUSTER_ID_TAG;
+import static io.clustercontroller.metrics.MetricsConstants.METADATA_STORE_BYTES_WRITTEN_METRIC_NAME;
+import static io.clustercontroller.metrics.MetricsConstants.METADATA_STORE_ETCD_REQUESTS_METRIC_NAME;
+import static io.clustercontroller.metrics.MetricsConstants.METADATA_STORE_OP_LATENCY_METRIC_NAME;
+import static io.clustercontroller.metrics.MetricsConstants.OPERATION_TAG;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for InstrumentedMetadataStore.
+ */
+class InstrumentedMetadataStoreTest {
+
+    private static final String CLUSTER = "test-cluster";
+
+    private MetadataStore delegate;
+    private StoreStats stats;
+    private SimpleMeterRegistry registry;
+    private InstrumentedMetadataStore store;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(MetadataStore.class);
+        stats = new StoreStats();
+        when(delegate.stats()).thenReturn(stats);
+        registry = new SimpleMeterRegistry();
+        store = new InstrumentedMetadataStore(delegate, new MetricsProvider(registry, "test-controller"));
+    }
+
+    private Timer timer(String operation, String clusterId) {
+        return registry.find(METADATA_STORE_OP_LATENCY_METRIC_NAME)
+                .tag(OPERATION_TAG, operation)
+                .tag(CLUSTER_ID_TAG, clusterId)
+                .timer();
+    }
+
+    @Test
+    void testOperationsAreTimedPerOperationAndCluster() throws Exception {
+        when(delegate.getAllTasks(CLUSTER)).thenReturn(List.of(new TaskMetadata("discovery", 1)));
+
+        assertThat(store.getAllTasks(CLUSTER)).hasSize(1);
+        store.getAllTasks(CLUSTER);
+        store.getSearchUnitGoalState("other-cluster", "node1");
+        store.deleteOldTasks(CLUSTER, 0, false);
+
+        assertThat(timer("get_all_tasks", CLUSTER).count()).isEqualTo(2);
+        assertThat(timer("get_search_unit_goal_state", "other-cluster").count()).isEqualTo(1);
+        assertThat(timer("delete_old_tasks", CLUSTER).count()).isEqualTo(1);
+        assertThat(timer("get_all_tasks", "other-cluster")).isNull();
+    }
+
+    @Test
+    void testFailedOperationsAreTimedAndRethrown() throws Exception {
+        when(delegate.getAllTasks(CLUSTER)).thenThrow(new Exception("etcd unavailable"));
+
+        assertThatThrownBy(() -> store.getAllTasks(CLUSTER)).hasMessage("etcd unavailable");
+
+        assertThat(timer("get_all_tasks", CLUSTER).count()).isEqualTo(1);
+    }
+
+    @Test
+    void testPassSummarizesEtcdTrafficOfTheClusterAndPublishesCounters() throws Exception {
+        stats.recordRequest(CLUSTER);
+        when(delegate.getAllTasks(CLUSTER)).thenAnswer(invocation -> {
+            stats.recordRequest(CLUSTER);
+            stats.recordRequest("other-cluster");
+            return List.of();
+        });
+        doAnswer(invocation -> {
+            stats.recordRequest(CLUSTER);
+            stats.recordWrite(CLUSTER, 100);
+            stats.recordCasConflict(CLUSTER);
+            return null;
+        }).when(delegate).updateTask(eq(CLUSTER), any());
+
+        try (InstrumentedMetadataStore.Pass pass = InstrumentedMetadataStore.startPass(store, CLUSTER)) {
+            store.getAllTasks(CLUSTER);
+            store.updateTask(CLUSTER, new TaskMetadata("discovery", 1));
+        }
+
+        InstrumentedMetadataStore.PassSummary summary = store.getLastPassSummary(CLUSTER);
+        assertThat(summary.operations()).isEqualTo(2);
+        assertThat(summary.etcd()).isEqualTo(new StoreStats.Totals(2, 0, 0, 100, 1, 0));
+        assertThat(store.getLastPassSummary("other-cluster")).isNull();
+
+        // Counters carry all traffic of the cluster, including the request made before the pass
+        Counter requests = registry.find(METADATA_STORE_ETCD_REQUESTS_METRIC_NAME).tag(CLUSTER_ID_TAG, CLUSTER).counter();
+        assertThat(requests.count()).isEqualTo(3.0);
+        assertThat(registry.find(METADATA_STORE_BYTES_WRITTEN_METRIC_NAME).tag(CLUSTER_ID_TAG, CLUSTER).counter().count())
+                .isEqualTo(100.0);
+
+        // Only the increase since the last publish is added
+        stats.recordRequest(CLUSTER);
+        store.publish(CLUSTER);
+        store.publish(CLUSTER);
+        assertThat(requests.count()).isEqualTo(4.0);
+    }
+
+    @Test
+    void testStartPassOnPlainStoreIsNoOp() {
+        assertThat(InstrumentedMetadataStore.startPass(delegate, CLUSTER)).isNull();
+    }
+
+    @Test
+    void testWorksWithoutMetricsProviderOrBackendStats() throws Exception {
+        MetadataStore plain = mock(MetadataStore.class);
+        InstrumentedMetadataStore unpublished = new InstrumentedMetadataStore(plain, null);
+
+        try (InstrumentedMetadataStore.Pass pass = unpublished.startPass(CLUSTER)) {
+            unpublished.getAllTasks(CLUSTER);
+        }
+
+        assertThat(unpublished.getLastPassSummary(CLUSTER).operations()).isEqualTo(1);
+        assertThat(unpublished.getLastPassSummary(CLUSTER).etcd()).isEqualTo(StoreStats.Totals.ZERO);
+        assertThat(unpublished.stats()).isNotNull();
+    }
+
+    @Test
+    void testWriteBatchIsForwardedAndCommitIsTimed() throws Exception {
+        WriteBatch batch = mock(WriteBatch.class);
+        when(delegate.newWriteBatch()).thenReturn(batch);
+        when(batch.commit()).thenReturn(new WriteBatchResult());
+
+        store.newWriteBatch().setSearchUnitGoalState(CLUSTER, "node1", null).commit();
+
+        ArgumentCaptor<WriteOperation> operation = ArgumentCaptor.forClass(WriteOperation.class);
+        verify(batch).add(operation.capture());
+        assertThat(operation.getValue().getClusterId()).isEqualTo(CLUSTER);
+        verify(batch).commit();
+        assertThat(timer("commit_write_batch", CLUSTER).count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,108 @@
+package io.clustercontroller.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.clustercontroller.enums.ShardState;
+import io.clustercontroller.models.CoordinatorGoalState;
+import io.clustercontroller.models.SearchUnitActualState;
+import io.clustercontroller.models.SearchUnitGoalState;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for JacksonValueCodec.
+ */
+class JacksonValueCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private static SearchUnitActualState actualState() {
+        SearchUnitActualState state = new SearchUnitActualState();
+        state.setNodeName("node1");
+        state.setAddress("10.0.0.1");
+        state.setHttpPort(9200);
+        state.setMemoryUsedPercent(40);
+        state.setDiskAvailableMB(50_000);
+        state.setRole("PRIMARY");
+        List<SearchUnitActualState.ShardRoutingInfo> routings = new ArrayList<>();
+        for (int shard = 0; shard < 20; shard++) {
+            routings.add(new SearchUnitActualState.ShardRoutingInfo(shard, "primary", ShardState.STARTED));
+        }
+        state.getNodeRouting().put("logs-2024", routings);
+        return state;
+    }
+
+    @Test
+    void testDefaultCodecWritesPlainJson() throws Exception {
+        JacksonValueCodec codec = JacksonValueCodec.json(objectMapper);
+        SearchUnitGoalState goalState = new SearchUnitGoalState();
+        goalState.getLocalShards().put("idx", new HashMap<>(Map.of("0", "PRIMARY")));
+
+        byte[] bytes = codec.encode(goalState);
+
+        assertThat(bytes).isEqualTo(objectMapper.writeValueAsBytes(goalState));
+        assertThat(codec.decode(bytes, SearchUnitGoalState.class)).isEqualTo(goalState);
+    }
+
+    @Test
+    void testEveryFormatRoundTripsAndIsReadableByEveryCodec() throws Exception {
+        SearchUnitActualState state = actualState();
+        JacksonValueCodec reader = JacksonValueCodec.json(objectMapper);
+
+        for (ValueCodec.Format format : ValueCodec.Format.values()) {
+            for (boolean compressed : new boolean[]{false, true}) {
+                JacksonValueCodec codec = new JacksonValueCodec(objectMapper, format, compressed);
+                byte[] bytes = codec.encode(state);
+
+                assertThat(codec.decode(bytes, SearchUnitActualState.class)).isEqualTo(state);
+                assertThat(reader.decode(bytes, SearchUnitActualState.class)).isEqualTo(state);
+            }
+        }
+    }
+
+    @Test
+    void testBinaryAndCompressedValuesAreSmallerThanJson() throws Exception {
+        SearchUnitActualState state = actualState();
+        int jsonSize = objectMapper.writeValueAsBytes(state).length;
+
+        byte[] smile = new JacksonValueCodec(objectMapper, ValueCodec.Format.SMILE, false).encode(state);
+        byte[] compressed = new JacksonValueCodec(objectMapper, ValueCodec.Format.CBOR, true).encode(state);
+
+        assertThat(smile[0]).isEqualTo(JacksonValueCodec.MAGIC);
+        assertThat(smile.length).isLessThan(jsonSize);
+        assertThat(compressed.length).isLessThan(jsonSize);
+    }
+
+    @Test
+    void testCoordinatorGoalStateRoundTrips() throws Exception {
+        CoordinatorGoalState goalState = new CoordinatorGoalState();
+        JacksonValueCodec codec = new JacksonValueCodec(objectMapper, ValueCodec.Format.SMILE, true);
+
+        CoordinatorGoalState decoded = codec.decode(codec.encode(goalState), CoordinatorGoalState.class);
+
+        assertThat(objectMapper.writeValueAsString(decoded)).isEqualTo(objectMapper.writeValueAsString(goalState));
+    }
+
+    @Test
+    void testUnknownHeaderIsRejected() {
+        JacksonValueCodec codec = JacksonValueCodec.json(objectMapper);
+
+        assertThatThrownBy(() -> codec.decode(new byte[]{JacksonValueCodec.MAGIC, 9, 0, '{', '}'}, SearchUnitGoalState.class))
+                .isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> codec.decode(new byte[]{JacksonValueCodec.MAGIC, 1, 7, '{', '}'}, SearchUnitGoalState.class))
+                .isInstanceOf(IOException.class);
+        assertThat("{}".getBytes(UTF_8)[0]).isNotEqualTo(JacksonValueCodec.MAGIC);
+    }
+}
@@ -0,0 +1,151 @@
+package io.clustercontroller.store;
+
+import io.etcd.jetcd.ByteSequence;
+import io.etcd.jetcd.KeyValue;
+import io.etcd.jetcd.Response;
+import io.etcd.jetcd.kv.GetResponse;
+import io.etcd.jetcd.options.GetOption;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for PrefixScanner.
+ */
+class PrefixScannerTest {
+
+    private static final ByteSequence PREFIX = ByteSequence.from("/cluster/indices/", UTF_8);
+
+    private final List<ByteSequence> startKeys = new ArrayList<>();
+    private final List<GetOption> options = new ArrayList<>();
+
+    private static KeyValue keyValue(String key) {
+        KeyValue kv = mock(KeyValue.class);
+        when(kv.getKey()).thenReturn(ByteSequence.from(key, UTF_8));
+        return kv;
+    }
+
+    private static GetResponse page(long revision, boolean more, String... keys) {
+        List<KeyValue> kvs = new ArrayList<>();
+        for (String key : keys) {
+            kvs.add(keyValue(key));
+        }
+        Response.Header header = mock(Response.Header.class);
+        when(header.getRevision()).thenReturn(revision);
+        GetResponse response = mock(GetResponse.class);
+        when(response.getKvs()).thenReturn(kvs);
+        when(response.isMore()).thenReturn(more);
+        when(response.getHeader()).thenReturn(header);
+        return response;
+    }
+
+    private PrefixScanner.PageFetcher fetcher(GetResponse... responses) {
+        Iterator<GetResponse> pages = List.of(responses).iterator();
+        return (startKey, option) -> {
+            startKeys.add(startKey);
+            options.add(option);
+            return CompletableFuture.completedFuture(pages.next());
+        };
+    }
+
+    @Test
+    void testSmallPrefixIsReadInOneRequest() throws Exception {
+        PrefixScanner scanner = new PrefixScanner(
+            fetcher(page(10, false, "/cluster/indices/a", "/cluster/indices/b")), PREFIX, 256, 0);
+        List<String> keys = new ArrayList<>();
+
+        long revision = scanner.forEachPage(kvs -> kvs.forEach(kv -> keys.add(kv.getKey().toString(UTF_8)))).get();
+
+        assertThat(keys).containsExactly("/cluster/indices/a", "/cluster/indices/b");
+        assertThat(revision).isEqualTo(10L);
+        assertThat(options).hasSize(1);
+        assertThat(options.get(0).getLimit()).isEqualTo(256L);
+    }
+
+    @Test
+    void testLargePrefixContinuesAfterLastKeyAtFirstRevision() throws Exception {
+        PrefixScanner scanner = new PrefixScanner(fetcher(
+            page(10, true, "/cluster/indices/a", "/cluster/indices/b"),
+            page(12, false, "/cluster/indices/c")), PREFIX, 2, 0);
+        List<String> keys = new ArrayList<>();
+
+        long revision = scanner.forEachPage(kvs -> kvs.forEach(kv -> keys.add(kv.getKey().toString(UTF_8)))).get();
+
+        assertThat(keys).containsExactly("/cluster/indices/a", "/cluster/indices/b", "/cluster/indices/c");
+        assertThat(revision).isEqualTo(10L);
+        assertThat(startKeys.get(1)).isEqualTo(PrefixScanner.keyAfter(ByteSequence.from("/cluster/indices/b", UTF_8)));
+        assertThat(options.get(0).getRevision()).isZero();
+        assertThat(options.get(1).getRevision()).isEqualTo(10L);
+        assertThat(options.get(1).getEndKey()).contains(PrefixScanner.prefixEnd(PREFIX));
+    }
+
+    @Test
+    void testSerializableScanIsNotPinnedToFirstPageRevision() throws Exception {
+        PrefixScanner scanner = new PrefixScanner(fetcher(
+            page(10, true, "/cluster/indices/a"),
+            page(9, false, "/cluster/indices/b")), PREFIX, 1, 0, true);
+
+        scanner.forEachPage(kvs -> { }).get();
+
+        assertThat(options).hasSize(2).allMatch(GetOption::isSerializable);
+        assertThat(options.get(1).getRevision()).isZero();
+    }
+
+    @Test
+    void testConsumerFailureFailsScan() {
+        PrefixScanner scanner = new PrefixScanner(fetcher(page(10, true, "/cluster/indices/a")), PREFIX, 1, 0);
+
+        CompletableFuture<Long> result = scanner.forEachPage(kvs -> {
+            throw new IllegalStateException("bad entry");
+        });
+
+        assertThat(result).isCompletedExceptionally();
+        assertThat(options).hasSize(1);
+    }
+
+    @Test
+    void testIteratorFetchesPagesLazily() {
+        PrefixScanner scanner = new PrefixScanner(fetcher(
+            page(7, true, "/cluster/indices/a"),
+            page(7, false, "/cluster/indices/b")), PREFIX, 1, 0);
+
+        PrefixScanner.PageIterator iterator = scanner.iterator(5);
+        assertThat(options).isEmpty();
+
+        assertThat(iterator.next().getKey().toString(UTF_8)).isEqualTo("/cluster/indices/a");
+        assertThat(options).hasSize(1);
+        assertThat(iterator.next().getKey().toString(UTF_8)).isEqualTo("/cluster/indices/b");
+        assertThat(iterator.hasNext()).isFalse();
+        assertThat(iterator.getRevision()).isEqualTo(7L);
+        assertThat(options).hasSize(2);
+    }
+
+    @Test
+    void testStreamSurfacesRequestFailure() {
+        PrefixScanner scanner = new PrefixScanner(
+            (startKey, option) -> CompletableFuture.failedFuture(new RuntimeException("etcd unavailable")), PREFIX, 10, 0);
+
+        assertThatThrownBy(() -> scanner.stream(5).collect(Collectors.toList()))
+            .isInstanceOf(IllegalStateException.class)
+            .hasRootCauseMessage("etcd unavailable");
+    }
+
+    @Test
+    void testRangeKeys() {
+        assertThat(PrefixScanner.prefixEnd(ByteSequence.from("/a/", UTF_8))).isEqualTo(ByteSequence.from("/a0", UTF_8));
+        assertThat(PrefixScanner.prefixEnd(ByteSequence.from(new byte[]{'a', (byte) 0xff})))
+            .isEqualTo(ByteSequence.from("b", UTF_8));
+        assertThat(PrefixScanner.keyAfter(ByteSequence.from("ab", UTF_8)).getBytes())
+            .containsExactly('a', 'b', 0);
+    }
+}
@@ -0,0 +1,240 @@
+package io.clustercontroller.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.clustercontroller.models.Index;
+import io.clustercontroller.models.IndexSettings;
+import io.clustercontroller.models.SearchUnitActualState;
+import io.clustercontroller.util.EnvironmentUtils;
+import io.etcd.jetcd.ByteSequence;
+import io.etcd.jetcd.KeyValue;
+import io.etcd.jetcd.watch.WatchEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for ReadinessTracker.
+ */
+class ReadinessTrackerTest {
+
+    private static final String CLUSTER = "test-cluster";
+    private static final String READY_SHARD_JSON =
+        "{\"docs\":{\"count\":5},\"seq_no\":{\"local_checkpoint\":4,\"global_checkpoint\":4}}";
+
+    private WatchHub watchHub;
+    private WatchHub.Subscription subscription;
+    private EtcdPathResolver pathResolver;
+    private DecodeCache decodeCache;
+    private AtomicInteger loads;
+    private ClusterSnapshot snapshot;
+    private ReadinessTracker tracker;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        EnvironmentUtils.setForTesting("controller.runtime_env", "staging");
+        pathResolver = new EtcdPathResolver();
+        decodeCache = new DecodeCache(JacksonValueCodec.json(new ObjectMapper()), 1024 * 1024);
+        watchHub = mock(WatchHub.class);
+        subscription = mock(WatchHub.Subscription.class);
+        when(watchHub.subscribePrefix(anyString(), anyString(), any(WatchHub.Listener.class))).thenReturn(subscription);
+
+        // idx has two shards; node1 holds a ready copy of shard 0 only
+        snapshot = snapshot(10, Map.of("idx", index("idx", 2)),
+            Map.of("node1", actualState("{\"idx\":[{\"0\":" + READY_SHARD_JSON + "}]}")));
+        loads = new AtomicInteger();
+        tracker = newTracker(clusterId -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(snapshot);
+        });
+    }
+
+    private ReadinessTracker newTracker(Function<String, CompletableFuture<ClusterSnapshot>> loader) {
+        ReadinessTracker readiness = new ReadinessTracker(pathResolver, () -> decodeCache, loader);
+        readiness.setWatchHub(watchHub);
+        readiness.trackCluster(CLUSTER);
+        return readiness;
+    }
+
+    private static ClusterSnapshot snapshot(long revision, Map<String, Index> indexConfigs,
+                                            Map<String, SearchUnitActualState> actualStates) {
+        return new ClusterSnapshot(CLUSTER, revision, Map.of(), actualStates, Map.of(), indexConfigs,
+            Map.of(), Map.of(), Map.of());
+    }
+
+    private static Index index(String name, int shards) {
+        Index index = new Index();
+        index.setIndexName(name);
+        IndexSettings settings = new IndexSettings();
+        settings.setNumberOfShards(shards);
+        index.setSettings(settings);
+        return index;
+    }
+
+    private static SearchUnitActualState actualState(String shardsJson) throws Exception {
+        return new ObjectMapper().readValue(actualStateJson(shardsJson), SearchUnitActualState.class);
+    }
+
+    private static String actualStateJson(String shardsJson) {
+        return "{\"stats\":{\"indices\":{\"shards\":" + shardsJson + "}}}";
+    }
+
+    private static KeyValue kv(String key, String value, long modRevision) {
+        KeyValue kv = mock(KeyValue.class);
+        when(kv.getKey()).thenReturn(ByteSequence.from(key, UTF_8));
+        when(kv.getValue()).thenReturn(ByteSequence.from(value, UTF_8));
+        when(kv.getModRevision()).thenReturn(modRevision);
+        return kv;
+    }
+
+    private WatchHub.Listener watchListener() {
+        ArgumentCaptor<WatchHub.Listener> captor = ArgumentCaptor.forClass(WatchHub.Listener.class);
+        verify(watchHub, atLeastOnce()).subscribePrefix(anyString(), anyString(), captor.capture());
+        return captor.getValue();
+    }
+
+    private void deliver(WatchEvent.EventType type, KeyValue kv) {
+        WatchEvent event = mock(WatchEvent.class);
+        when(event.getEventType()).thenReturn(type);
+        when(event.getKeyValue()).thenReturn(kv);
+        watchListener().onEvents(List.of(event));
+    }
+
+    @Test
+    void testReadinessAnsweredFromOneSnapshot() {
+        assertThat(tracker.isIndexReady(CLUSTER, "idx")).isFalse();
+        assertThat(tracker.isIndexReady(CLUSTER, "missing")).isFalse();
+        assertThat(tracker.isIndexReady(CLUSTER, "idx")).isFalse();
+
+        assertThat(loads.get()).isEqualTo(1);
+        // Actual states and index configs are watched through the shared hub
+        verify(watchHub).subscribePrefix(anyString(), eq("/test-cluster/search-unit/"), any(WatchHub.Listener.class));
+        verify(watchHub).subscribePrefix(anyString(), eq("/test-cluster/indices/"), any(WatchHub.Listener.class));
+    }
+
+    @Test
+    void testUnmanagedClusterIsNeverWatched() {
+        assertThat(tracker.isIndexReady("other-cluster", "idx")).isNull();
+        assertThat(tracker.waitForIndexReady("other-cluster", "idx", 1000)).isCompletedExceptionally();
+
+        verifyNoInteractions(watchHub);
+        assertThat(loads.get()).isZero();
+    }
+
+    @Test
+    void testEventsSeenWhileLoadingAreReplayedIfNewer() {
+        CompletableFuture<ClusterSnapshot> pending = new CompletableFuture<>();
+        ReadinessTracker loading = newTracker(clusterId -> pending);
+        String node2 = "/test-cluster/search-unit/node2/actual-state";
+        String readyShard1 = actualStateJson("{\"idx\":[{\"1\":" + READY_SHARD_JSON + "}]}");
+        assertThat(loading.isIndexReady(CLUSTER, "idx")).isNull();
+
+        // Delivered before the snapshot lands: the older put is already in it, the newer one is not
+        deliver(WatchEvent.EventType.PUT, kv("/test-cluster/indices/idx/conf",
+            "{\"index_name\":\"idx\",\"settings\":{\"number_of_shards\":5}}", 9));
+        deliver(WatchEvent.EventType.PUT, kv(node2, readyShard1, 11));
+        pending.complete(snapshot);
+
+        assertThat(loading.isIndexReady(CLUSTER, "idx")).isTrue();
+    }
+
+    @Test
+    void testWatchEventsUpdateReadinessIncrementally() {
+        tracker.isIndexReady(CLUSTER, "idx");
+        String node2 = "/test-cluster/search-unit/node2/actual-state";
+
+        // node2 reports a ready copy of shard 1: every shard of idx has a ready copy
+        deliver(WatchEvent.EventType.PUT, kv(node2, actualStateJson("{\"idx\":[{\"1\":" + READY_SHARD_JSON + "}]}"), 11));
+        assertThat(tracker.isIndexReady(CLUSTER, "idx")).isTrue();
+
+        // Shard 1 is lagging on replication again
+        deliver(WatchEvent.EventType.PUT, kv(node2, actualStateJson(
+            "{\"idx\":[{\"1\":{\"docs\":{\"count\":5},\"seq_no\":{\"local_checkpoint\":4,\"global_checkpoint\":3}}}]}"), 12));
+        assertThat(tracker.isIndexReady(CLUSTER, "idx")).isFalse();
+
+        deliver(WatchEvent.EventType.PUT, kv(node2, actualStateJson("{\"idx\":[{\"1\":" + READY_SHARD_JSON + "}]}"), 13));
+        deliver(WatchEvent.EventType.DELETE, kv(node2, "", 14));
+        assertThat(tracker.isIndexReady(CLUSTER, "idx")).isFalse();
+
+        // Shrinking the config to the one ready shard makes the index ready
+        deliver(WatchEvent.EventType.PUT, kv("/test-cluster/indices/idx/conf",
+            "{\"index_name\":\"idx\",\"settings\":{\"number_of_shards\":1}}", 15));
+        assertThat(tracker.isIndexReady(CLUSTER, "idx")).isTrue();
+
+        deliver(WatchEvent.EventType.DELETE, kv("/test-cluster/indices/idx/conf", "", 16));
+        assertThat(tracker.isIndexReady(CLUSTER, "idx")).isFalse();
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void testWaitCompletesWhenLastShardBecomesReady() throws Exception {
+        CompletableFuture<Boolean> ready = tracker.waitForIndexReady(CLUSTER, "idx", 60_000);
+        assertThat(ready).isNotDone();
+
+        deliver(WatchEvent.EventType.PUT, kv("/test-cluster/search-unit/node2/actual-state",
+            actualStateJson("{\"idx\":[{\"1\":" + READY_SHARD_JSON + "}]}"), 11));
+
+        assertThat(ready).isCompletedWithValue(true);
+        // Already ready: answered immediately
+        assertThat(tracker.waitForIndexReady(CLUSTER, "idx", 60_000)).isCompletedWithValue(true);
+    }
+
+    @Test
+    void testWaitAnswersNotReadyOnTimeoutOrRelease() throws Exception {
+        assertThat(tracker.waitForIndexReady(CLUSTER, "idx", 50).get()).isFalse();
+
+        CompletableFuture<Boolean> pending = tracker.waitForIndexReady(CLUSTER, "idx", 60_000);
+        tracker.releaseCluster(CLUSTER);
+
+        assertThat(pending).isCompletedWithValue(false);
+        verify(subscription, times(2)).close();
+        // Released clusters are no longer tracked
+        assertThat(tracker.isIndexReady(CLUSTER, "idx")).isNull();
+    }
+
+    @Test
+    void testResyncReloadsCluster() {
+        tracker.isIndexReady(CLUSTER, "idx");
+        snapshot = snapshot(20, Map.of("idx", index("idx", 1)), snapshot.getActualStates());
+
+        watchListener().onResync();
+
+        // Reloaded from a new snapshot rather than answered from the stale state
+        assertThat(tracker.isIndexReady(CLUSTER, "idx")).isTrue();
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testWithoutWatchHubNothingIsTracked() {
+        ReadinessTracker untracked = new ReadinessTracker(pathResolver, () -> decodeCache,
+            clusterId -> CompletableFuture.completedFuture(snapshot));
+        untracked.trackCluster(CLUSTER);
+
+        assertThat(untracked.isIndexReady(CLUSTER, "idx")).isNull();
+        assertThatThrownBy(() -> untracked.waitForIndexReady(CLUSTER, "idx", 1000).get())
+            .isInstanceOf(ExecutionException.class)
+            .hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testFailedLoadFallsBack() {
+        ReadinessTracker failing = newTracker(clusterId -> CompletableFuture.failedFuture(new Exception("etcd unavailable")));
+
+        assertThat(failing.isIndexReady(CLUSTER, "idx")).isNull();
+        assertThat(failing.waitForIndexReady(CLUSTER, "idx", 1000)).isCompletedExceptionally();
+    }
+}
@@ -0,0 +1,261 @@
+package io.clustercontroller.store;
+
+import io.clustercontroller.enums.ShardState;
+import io.clustercontroller.models.Index;
+import io.clustercontroller.models.SearchUnit;
+import io.clustercontroller.models.SearchUnitActualState;
+import io.clustercontroller.models.SearchUnitGoalState;
+import io.clustercontroller.models.ShardAllocation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for SnapshotMetadataStore.
+ */
+class SnapshotMetadataStoreTest {
+
+    private static final String CLUSTER = "test-cluster";
+
+    private MetadataStore delegate;
+    private ClusterSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(MetadataStore.class);
+
+        SearchUnit node1 = new SearchUnit();
+        node1.setName("node1");
+        SearchUnitGoalState goalState = new SearchUnitGoalState();
+        goalState.getLocalShards().put("idx", new HashMap<>(Map.of("0", "PRIMARY")));
+        Index index = new Index();
+        index.setIndexName("idx");
+        ShardAllocation planned = new ShardAllocation("0", "idx");
+        planned.setIngestSUs(List.of("node1"));
+
+        snapshot = new ClusterSnapshot(CLUSTER, 42,
+                Map.of("node1", node1),
+                Map.of(),
+                Map.of("node1", goalState),
+                Map.of("idx", index),
+                Map.of("idx", Map.of("0", planned)),
+                Map.of(),
+                Map.of());
+    }
+
+    @Test
+    void testForPassFallsBackToStoreWithoutSnapshot() throws Exception {
+        when(delegate.loadClusterSnapshot(CLUSTER)).thenReturn(null);
+
+        assertThat(SnapshotMetadataStore.forPass(delegate, CLUSTER)).isSameAs(delegate);
+    }
+
+    @Test
+    void testForPassFallsBackToStoreWhenLoadFails() throws Exception {
+        when(delegate.loadClusterSnapshot(CLUSTER)).thenThrow(new Exception("etcd unavailable"));
+
+        assertThat(SnapshotMetadataStore.forPass(delegate, CLUSTER)).isSameAs(delegate);
+    }
+
+    @Test
+    void testShareOpenedAgainOnSameThreadReusesOpenPass() throws Exception {
+        when(delegate.loadClusterSnapshot(CLUSTER)).thenReturn(snapshot);
+
+        try (SnapshotMetadataStore.SharedPass outer = SnapshotMetadataStore.share(delegate, CLUSTER)) {
+            try (SnapshotMetadataStore.SharedPass inner = SnapshotMetadataStore.share(delegate, CLUSTER)) {
+                assertThat(inner.getStore()).isSameAs(outer.getStore());
+            }
+            // Closing the inner handle keeps the pass shared
+            assertThat(SnapshotMetadataStore.forPass(delegate, CLUSTER)).isSameAs(outer.getStore());
+        }
+        verify(delegate, times(1)).loadClusterSnapshot(CLUSTER);
+
+        // Closed by the outer handle: the next pass loads its own snapshot
+        SnapshotMetadataStore.forPass(delegate, CLUSTER);
+        verify(delegate, times(2)).loadClusterSnapshot(CLUSTER);
+    }
+
+    @Test
+    void testConvergenceCountsDivergentShardsAndRolloutsInFlight() throws Exception {
+        SnapshotMetadataStore store = new SnapshotMetadataStore(delegate, snapshot);
+
+        // Planned on node1 without an actual allocation; node1 has not heartbeated, so it is not rolling out
+        assertThat(store.convergence()).contains(new SnapshotMetadataStore.Convergence(1, 0));
+
+        ShardAllocation actual = new ShardAllocation("0", "idx");
+        actual.setIngestSUs(List.of("node1"));
+        store.setActualAllocation(CLUSTER, "idx", "0", actual);
+        SearchUnitActualState state = new SearchUnitActualState();
+        state.setTimestamp(System.currentTimeMillis());
+        store.setSearchUnitActualState(CLUSTER, "node1", state);
+
+        // Allocated as planned, but the shard in node1's goal state is not started yet
+        assertThat(store.convergence()).contains(new SnapshotMetadataStore.Convergence(0, 1));
+
+        SearchUnitActualState.ShardRoutingInfo routing = new SearchUnitActualState.ShardRoutingInfo();
+        routing.setShardId(0);
+        routing.setState(ShardState.STARTED);
+        state.setNodeRouting(Map.of("idx", List.of(routing)));
+        store.setSearchUnitActualState(CLUSTER, "node1", state);
+
+        assertThat(store.convergence()).hasValueSatisfying(convergence -> assertThat(convergence.converged()).isTrue());
+    }
+
+    private ClusterSnapshot snapshotWithPlannedRevision(long modRevision) {
+        return new ClusterSnapshot(CLUSTER, 42, snapshot.getSearchUnits(), Map.of(), snapshot.getGoalStates(),
+                Map.of("node1", 40L), snapshot.getIndexConfigs(), snapshot.getPlannedAllocations(), Map.of(), Map.of(),
+                Map.of(SnapshotMetadataStore.Section.PLANNED_ALLOCATIONS, Map.of("idx/0", modRevision)));
+    }
+
+    @Test
+    void testFingerprintComparesRevisionsAndWrittenValuesExactly() throws Exception {
+        Set<SnapshotMetadataStore.Section> sections = EnumSet.allOf(SnapshotMetadataStore.Section.class);
+        SnapshotMetadataStore first = new SnapshotMetadataStore(delegate, snapshotWithPlannedRevision(41));
+        SnapshotMetadataStore same = new SnapshotMetadataStore(delegate, snapshotWithPlannedRevision(41));
+        SnapshotMetadataStore rewritten = new SnapshotMetadataStore(delegate, snapshotWithPlannedRevision(42));
+
+        assertThat(first.fingerprint(sections)).isPresent().isEqualTo(same.fingerprint(sections));
+        // Rewritten with the same content is still a change
+        assertThat(rewritten.fingerprint(sections)).isNotEqualTo(first.fingerprint(sections));
+        assertThat(rewritten.fingerprint(EnumSet.of(SnapshotMetadataStore.Section.SEARCH_UNITS)))
+                .isEqualTo(first.fingerprint(EnumSet.of(SnapshotMetadataStore.Section.SEARCH_UNITS)));
+
+        // Entries written through the view are compared by value
+        ShardAllocation updated = new ShardAllocation("0", "idx");
+        updated.setIngestSUs(List.of("node2"));
+        first.setPlannedAllocation(CLUSTER, "idx", "0", updated);
+        assertThat(first.fingerprint(sections)).isNotEqualTo(same.fingerprint(sections));
+        same.setPlannedAllocation(CLUSTER, "idx", "0", updated);
+        assertThat(first.fingerprint(sections)).isEqualTo(same.fingerprint(sections));
+    }
+
+    @Test
+    void testReadsServedFromSnapshotAsCopies() throws Exception {
+        when(delegate.loadClusterSnapshot(CLUSTER)).thenReturn(snapshot);
+        MetadataStore store = SnapshotMetadataStore.forPass(delegate, CLUSTER);
+
+        assertThat(store).isInstanceOf(SnapshotMetadataStore.class);
+        assertThat(store.getAllSearchUnits(CLUSTER)).extracting(SearchUnit::getName).containsExactly("node1");
+        assertThat(store.getAllIndexConfigs(CLUSTER)).extracting(Index::getIndexName).containsExactly("idx");
+        assertThat(store.getAllNodesWithGoalStates(CLUSTER)).containsExactly("node1");
+        assertThat(store.getSearchUnitActualState(CLUSTER, "node1")).isNull();
+
+        // Mutating a returned value must not leak into the snapshot or later reads
+        SearchUnitGoalState goalState = store.getSearchUnitGoalState(CLUSTER, "node1");
+        goalState.getLocalShards().clear();
+        assertThat(store.getSearchUnitGoalState(CLUSTER, "node1").getLocalShards()).containsKey("idx");
+        assertThat(snapshot.getGoalStates().get("node1").getLocalShards()).containsKey("idx");
+        ShardAllocation planned = store.getPlannedAllocation(CLUSTER, "idx", "0");
+        planned.getIngestSUs().clear();
+        assertThat(store.getPlannedAllocation(CLUSTER, "idx", "0").getIngestSUs()).containsExactly("node1");
+
+        verify(delegate).loadClusterSnapshot(CLUSTER);
+        verifyNoMoreInteractions(delegate);
+    }
+
+    @Test
+    void testWritesGoToDelegateAndAreVisibleToLaterReads() throws Exception {
+        MetadataStore store = new SnapshotMetadataStore(delegate, snapshot);
+
+        ShardAllocation updated = new ShardAllocation("0", "idx");
+        updated.setIngestSUs(List.of("node2"));
+        store.setPlannedAllocation(CLUSTER, "idx", "0", updated);
+        store.deleteSearchUnit(CLUSTER, "node1");
+
+        verify(delegate).setPlannedAllocation(CLUSTER, "idx", "0", updated);
+        verify(delegate).deleteSearchUnit(CLUSTER, "node1");
+        assertThat(store.getPlannedAllocation(CLUSTER, "idx", "0").getIngestSUs()).containsExactly("node2");
+        assertThat(store.getAllSearchUnits(CLUSTER)).isEmpty();
+        assertThat(store.getSearchUnitGoalState(CLUSTER, "node1")).isNull();
+        verify(delegate, never()).getPlannedAllocation(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void testVersionedGoalStateReadsUseSnapshotRevisionsAndConflictsRefreshThem() throws Exception {
+        SearchUnitGoalState goalState = snapshot.getGoalStates().get("node1");
+        ClusterSnapshot versionedSnapshot = new ClusterSnapshot(CLUSTER, 42, snapshot.getSearchUnits(), Map.of(),
+                Map.of("node1", goalState), Map.of("node1", 40L), snapshot.getIndexConfigs(),
+                snapshot.getPlannedAllocations(), Map.of(), Map.of());
+        MetadataStore store = new SnapshotMetadataStore(delegate, versionedSnapshot);
+
+        assertThat(store.getSearchUnitGoalStateVersioned(CLUSTER, "node1").getModRevision()).isEqualTo(40L);
+        assertThat(store.getSearchUnitGoalStateVersioned(CLUSTER, "node2")).isEqualTo(Versioned.absent());
+
+        SearchUnitGoalState current = new SearchUnitGoalState();
+        current.getLocalShards().put("other", new HashMap<>(Map.of("0", "PRIMARY")));
+        when(delegate.setSearchUnitGoalState(CLUSTER, "node1", goalState, 40L))
+                .thenThrow(new VersionConflictException("/node1/goal-state", 40L, Versioned.of(current, 45L)));
+
+        assertThatThrownBy(() -> store.setSearchUnitGoalState(CLUSTER, "node1", goalState, 40L))
+                .isInstanceOf(VersionConflictException.class);
+        Versioned<SearchUnitGoalState> refreshed = store.getSearchUnitGoalStateVersioned(CLUSTER, "node1");
+        assertThat(refreshed.getModRevision()).isEqualTo(45L);
+        assertThat(refreshed.getValue().getLocalShards()).containsOnlyKeys("other");
+        verify(delegate, never()).getSearchUnitGoalStateVersioned(anyString(), anyString());
+
+        // Without a known revision the view reads through
+        store.setSearchUnitGoalState(CLUSTER, "node1", goalState);
+        store.getSearchUnitGoalStateVersioned(CLUSTER, "node1");
+        verify(delegate).getSearchUnitGoalStateVersioned(CLUSTER, "node1");
+    }
+
+    @Test
+    void testFailedWriteDoesNotChangeView() throws Exception {
+        MetadataStore store = new SnapshotMetadataStore(delegate, snapshot);
+        doThrow(new RuntimeException("concurrent modification"))
+                .when(delegate).setSearchUnitGoalState(anyString(), anyString(), any());
+
+        assertThatThrownBy(() -> store.setSearchUnitGoalState(CLUSTER, "node1", new SearchUnitGoalState()))
+                .hasMessageContaining("concurrent modification");
+
+        assertThat(store.getSearchUnitGoalState(CLUSTER, "node1").getLocalShards()).containsKey("idx");
+    }
+
+    @Test
+    void testBatchWritesAppliedToView() throws Exception {
+        MetadataStore store = new SnapshotMetadataStore(delegate, snapshot);
+        when(delegate.newWriteBatch()).thenAnswer(invocation -> new SequentialWriteBatch(delegate));
+        ShardAllocation planned = new ShardAllocation("0", "idx");
+        planned.setIngestSUs(List.of("node2"));
+
+        WriteBatchResult result = store.newWriteBatch()
+                .setPlannedAllocation(CLUSTER, "idx", "0", planned)
+                .setSearchUnitGoalState(CLUSTER, "node2", new SearchUnitGoalState())
+                .commit();
+
+        assertThat(result.isAllApplied()).isTrue();
+        verify(delegate).setPlannedAllocation(CLUSTER, "idx", "0", planned);
+        assertThat(store.getPlannedAllocation(CLUSTER, "idx", "0").getIngestSUs()).containsExactly("node2");
+        assertThat(store.getAllNodesWithGoalStates(CLUSTER)).containsExactlyInAnyOrder("node1", "node2");
+    }
+
+    @Test
+    void testIndexConfigWriteFallsBackToDelegate() throws Exception {
+        MetadataStore store = new SnapshotMetadataStore(delegate, snapshot);
+        when(delegate.getAllIndexConfigs(CLUSTER)).thenReturn(List.of());
+
+        store.deleteIndexConfig(CLUSTER, "idx");
+
+        assertThat(store.getAllIndexConfigs(CLUSTER)).isEmpty();
+        verify(delegate).getAllIndexConfigs(CLUSTER);
+    }
+
+    @Test
+    void testOtherClustersDelegate() throws Exception {
+        MetadataStore store = new SnapshotMetadataStore(delegate, snapshot);
+        when(delegate.getAllNodesWithGoalStates("other-cluster")).thenReturn(List.of("node9"));
+
+        assertThat(store.getAllNodesWithGoalStates("other-cluster")).containsExactly("node9");
+    }
+}
@@ -0,0 +1,213 @@
+package io.clustercontroller.store;
+
+import io.etcd.jetcd.ByteSequence;
+import io.etcd.jetcd.KeyValue;
+import io.etcd.jetcd.Watch;
+import io.etcd.jetcd.common.exception.CompactedException;
+import io.etcd.jetcd.options.WatchOption;
+import io.etcd.jetcd.watch.WatchEvent;
+import io.etcd.jetcd.watch.WatchResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for WatchHub.
+ */
+class WatchHubTest {
+
+    private static final String PREFIX = "/multi-cluster/staging/clusters/";
+
+    private Watch watchClient;
+    private Watch.Watcher watcher;
+    // Dispatches run only when the test drains them, so a listener can be kept busy
+    private Queue<Runnable> queuedDispatches;
+    private WatchHub hub;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        watchClient = mock(Watch.class);
+        watcher = mock(Watch.Watcher.class);
+        when(watchClient.watch(any(ByteSequence.class), any(WatchOption.class), any(Consumer.class), any(Consumer.class)))
+            .thenReturn(watcher);
+        queuedDispatches = new ConcurrentLinkedQueue<>();
+        hub = new WatchHub(watchClient, queuedDispatches::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.close();
+    }
+
+    private void runDispatches() {
+        Runnable dispatch;
+        while ((dispatch = queuedDispatches.poll()) != null) {
+            dispatch.run();
+        }
+    }
+
+    private static WatchResponse response(WatchEvent... events) {
+        WatchResponse response = mock(WatchResponse.class);
+        when(response.getEvents()).thenReturn(List.of(events));
+        return response;
+    }
+
+    private static WatchEvent event(String key, long modRevision) {
+        KeyValue kv = mock(KeyValue.class);
+        when(kv.getKey()).thenReturn(ByteSequence.from(key, UTF_8));
+        when(kv.getModRevision()).thenReturn(modRevision);
+        WatchEvent event = mock(WatchEvent.class);
+        when(event.getKeyValue()).thenReturn(kv);
+        when(event.getEventType()).thenReturn(WatchEvent.EventType.PUT);
+        return event;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Consumer<WatchResponse> onNext(int watchCall) {
+        ArgumentCaptor<Consumer<WatchResponse>> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(watchClient, atLeast(watchCall + 1)).watch(any(ByteSequence.class), any(WatchOption.class),
+            captor.capture(), any(Consumer.class));
+        return captor.getAllValues().get(watchCall);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Consumer<Throwable> onError() {
+        ArgumentCaptor<Consumer<Throwable>> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(watchClient, atLeastOnce()).watch(any(ByteSequence.class), any(WatchOption.class),
+            any(Consumer.class), captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testListenersOfSamePrefixShareOneWatch() {
+        AtomicInteger first = new AtomicInteger();
+        AtomicInteger second = new AtomicInteger();
+        WatchHub.Subscription a = hub.onChange("a", PREFIX, first::incrementAndGet);
+        WatchHub.Subscription b = hub.onChange("b", PREFIX, second::incrementAndGet);
+
+        onNext(0).accept(response(event(PREFIX + "c1/metadata", 5)));
+        runDispatches();
+
+        verify(watchClient, times(1)).watch(any(ByteSequence.class), any(WatchOption.class), any(Consumer.class), any(Consumer.class));
+        assertThat(hub.openWatchCount()).isEqualTo(1);
+        assertThat(first).hasValue(1);
+        assertThat(second).hasValue(1);
+
+        a.close();
+        verify(watcher, never()).close();
+        b.close();
+        verify(watcher).close();
+        assertThat(hub.openWatchCount()).isZero();
+    }
+
+    @Test
+    void testEventsForBusyListenerAreCoalescedPerKey() {
+        List<List<WatchEvent>> batches = new ArrayList<>();
+        hub.subscribePrefix("slow", PREFIX, batches::add);
+        Consumer<WatchResponse> onNext = onNext(0);
+
+        WatchEvent a1 = event(PREFIX + "a", 1);
+        WatchEvent b2 = event(PREFIX + "b", 2);
+        WatchEvent a3 = event(PREFIX + "a", 3);
+        onNext.accept(response(a1));
+        onNext.accept(response(b2));
+        onNext.accept(response(a3));
+
+        // One dispatch queued for the three responses
+        assertThat(queuedDispatches).hasSize(1);
+        WatchHub.ListenerStats stats = hub.listenerStats().get(0);
+        assertThat(stats.pendingEvents()).isEqualTo(2);
+        assertThat(stats.coalescedEvents()).isEqualTo(1);
+        assertThat(stats.revisionLag()).isEqualTo(3);
+
+        runDispatches();
+
+        assertThat(batches).containsExactly(List.of(b2, a3));
+        assertThat(hub.listenerStats().get(0).deliveredRevision()).isEqualTo(3);
+        assertThat(hub.listenerStats().get(0).revisionLag()).isZero();
+    }
+
+    @Test
+    void testFailedWatchResumesAfterLastRevision() {
+        List<List<WatchEvent>> batches = new ArrayList<>();
+        AtomicInteger resyncs = new AtomicInteger();
+        hub.subscribePrefix("listener", PREFIX, new WatchHub.Listener() {
+            @Override
+            public void onEvents(List<WatchEvent> events) {
+                batches.add(events);
+            }
+
+            @Override
+            public void onResync() {
+                resyncs.incrementAndGet();
+            }
+        });
+        onNext(0).accept(response(event(PREFIX + "a", 41)));
+
+        onError().accept(new RuntimeException("stream reset"));
+
+        ArgumentCaptor<WatchOption> options = ArgumentCaptor.forClass(WatchOption.class);
+        verify(watchClient, timeout(5000).times(2)).watch(any(ByteSequence.class), options.capture(), any(), any());
+        assertThat(options.getAllValues().get(1).getRevision()).isEqualTo(42);
+        runDispatches();
+        assertThat(batches).hasSize(1);
+        // Nothing was missed, so no resync
+        assertThat(resyncs).hasValue(0);
+    }
+
+    @Test
+    void testCompactedWatchResumesFromCompactionAndResyncs() {
+        AtomicInteger changes = new AtomicInteger();
+        hub.onChange("listener", PREFIX, changes::incrementAndGet);
+        onNext(0).accept(response(event(PREFIX + "a", 10)));
+        runDispatches();
+
+        CompactedException compacted = mock(CompactedException.class);
+        when(compacted.getCompactedRevision()).thenReturn(50L);
+        onError().accept(compacted);
+
+        ArgumentCaptor<WatchOption> options = ArgumentCaptor.forClass(WatchOption.class);
+        verify(watchClient, timeout(5000).times(2)).watch(any(ByteSequence.class), options.capture(), any(), any());
+        assertThat(options.getAllValues().get(1).getRevision()).isEqualTo(50);
+        verify(watcher).close();
+        // The resync is queued right after the watch is reopened
+        long deadline = System.currentTimeMillis() + 5000;
+        while (changes.get() < 2 && System.currentTimeMillis() < deadline) {
+            runDispatches();
+            Thread.onSpinWait();
+        }
+        assertThat(changes).hasValue(2);
+    }
+
+    @Test
+    void testListenerFailureDoesNotStopDelivery() {
+        AtomicInteger calls = new AtomicInteger();
+        hub.subscribePrefix("failing", PREFIX, events -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("boom");
+        });
+        Consumer<WatchResponse> onNext = onNext(0);
+
+        onNext.accept(response(event(PREFIX + "a", 1)));
+        runDispatches();
+        onNext.accept(response(event(PREFIX + "a", 2)));
+        runDispatches();
+
+        assertThat(calls).hasValue(2);
+    }
+}
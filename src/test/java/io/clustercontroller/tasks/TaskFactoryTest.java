@@ -54,6 +54,30 @@ class TaskFactoryTest {
         assertThat(task.getName()).isEqualTo(TASK_ACTION_PLAN_SHARD_ALLOCATION);
     }
     
+    @Test
+    void testCreateIndexTask_ByAction() {
+        TaskMetadata metadata = new TaskMetadata("create_index-1", 5);
+        metadata.setAction(TASK_ACTION_CREATE_INDEX);
+        metadata.setInput("{\"index\":\"logs-1\"}");
+        
+        Task task = TaskFactory.createTask(metadata);
+        
+        assertThat(task).isInstanceOf(CreateIndexTask.class);
+        assertThat(task.getName()).isEqualTo("create_index-1");
+        assertThat(task.getResource()).isEqualTo("index/logs-1");
+    }
+    
+    @Test
+    void testDeleteIndexTask_ByAction() {
+        TaskMetadata metadata = new TaskMetadata("delete_index-1", 5);
+        metadata.setAction(TASK_ACTION_DELETE_INDEX);
+        
+        Task task = TaskFactory.createTask(metadata);
+        
+        assertThat(task).isInstanceOf(DeleteIndexTask.class);
+        assertThat(task.getName()).isEqualTo("delete_index-1");
+    }
+    
     @Test
     void testUnknownTask() {
         TaskMetadata metadata = new TaskMetadata("unknown-task-type", 7);
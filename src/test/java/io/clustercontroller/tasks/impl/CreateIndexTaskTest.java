@@ -0,0 +1,64 @@
+package io.clustercontroller.tasks.impl;
+
+import io.clustercontroller.indices.IndexManager;
+import io.clustercontroller.tasks.TaskContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static io.clustercontroller.config.Constants.*;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for CreateIndexTask.
+ */
+class CreateIndexTaskTest {
+
+    @Mock
+    private TaskContext taskContext;
+
+    @Mock
+    private IndexManager indexManager;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(taskContext.getIndexManager()).thenReturn(indexManager);
+    }
+
+    @Test
+    void testCreateIndexTaskExecution() throws Exception {
+        String input = "{\"index\":\"logs-1\",\"config\":{\"settings\":{\"number_of_shards\":2}}}";
+        CreateIndexTask task = new CreateIndexTask("create_index-1", 5, input, TASK_SCHEDULE_ONCE);
+
+        String result = task.execute(taskContext, "test-cluster");
+
+        assertThat(result).isEqualTo(TASK_STATUS_COMPLETED);
+        assertThat(task.getResource()).isEqualTo("index/logs-1");
+        verify(indexManager).createIndex("test-cluster", "logs-1", "{\"settings\":{\"number_of_shards\":2}}");
+    }
+
+    @Test
+    void testCreateIndexTaskExecutionFailure() throws Exception {
+        CreateIndexTask task = new CreateIndexTask("create_index-1", 5, "{\"index\":\"logs-1\"}", TASK_SCHEDULE_ONCE);
+        doThrow(new Exception("Index 'logs-1' already exists")).when(indexManager).createIndex("test-cluster", "logs-1", "{}");
+
+        String result = task.execute(taskContext, "test-cluster");
+
+        assertThat(result).isEqualTo(TASK_STATUS_FAILED);
+        assertThat(task.getOutput()).isEqualTo("Index 'logs-1' already exists");
+    }
+
+    @Test
+    void testCreateIndexTaskWithoutIndexFails() {
+        CreateIndexTask task = new CreateIndexTask("create_index-1", 5, "not json", TASK_SCHEDULE_ONCE);
+
+        String result = task.execute(taskContext, "test-cluster");
+
+        assertThat(result).isEqualTo(TASK_STATUS_FAILED);
+        assertThat(task.getResource()).isNull();
+        verifyNoInteractions(indexManager);
+    }
+}
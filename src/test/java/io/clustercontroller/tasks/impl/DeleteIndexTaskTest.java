@@ -0,0 +1,52 @@
+package io.clustercontroller.tasks.impl;
+
+import io.clustercontroller.indices.IndexManager;
+import io.clustercontroller.tasks.TaskContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static io.clustercontroller.config.Constants.*;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for DeleteIndexTask.
+ */
+class DeleteIndexTaskTest {
+
+    @Mock
+    private TaskContext taskContext;
+
+    @Mock
+    private IndexManager indexManager;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(taskContext.getIndexManager()).thenReturn(indexManager);
+    }
+
+    @Test
+    void testDeleteIndexTaskExecution() throws Exception {
+        DeleteIndexTask task = new DeleteIndexTask("delete_index-1", 5, "{\"index\":\"logs-1\"}", TASK_SCHEDULE_ONCE);
+
+        String result = task.execute(taskContext, "test-cluster");
+
+        assertThat(result).isEqualTo(TASK_STATUS_COMPLETED);
+        assertThat(task.getResource()).isEqualTo("index/logs-1");
+        verify(indexManager).deleteIndex("test-cluster", "logs-1");
+    }
+
+    @Test
+    void testDeleteIndexTaskExecutionFailure() throws Exception {
+        DeleteIndexTask task = new DeleteIndexTask("delete_index-1", 5, "{\"index\":\"logs-1\"}", TASK_SCHEDULE_ONCE);
+        doThrow(new Exception("etcd unavailable")).when(indexManager).deleteIndex("test-cluster", "logs-1");
+
+        String result = task.execute(taskContext, "test-cluster");
+
+        assertThat(result).isEqualTo(TASK_STATUS_FAILED);
+        assertThat(task.getOutput()).isEqualTo("etcd unavailable");
+    }
+}
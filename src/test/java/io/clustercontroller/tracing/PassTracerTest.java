@@ -0,0 +1,111 @@
+package io.clustercontroller.tracing;
+
+import io.clustercontroller.store.StoreStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for PassTracer.
+ */
+class PassTracerTest {
+
+    private static final String CLUSTER = "test-cluster";
+
+    private static StoreStats.Totals totals(long requests, long bytesRead, long bytesWritten) {
+        return new StoreStats.Totals(requests, requests, bytesRead, bytesWritten, 0, 0);
+    }
+
+    @Test
+    void testNestedSpansRecordTheirEtcdTraffic() {
+        StoreStats stats = mock(StoreStats.class);
+        // Read at the pass start, the index start, the shard start and end, the index end and the pass end
+        when(stats.totals(CLUSTER)).thenReturn(totals(10, 100, 0), totals(11, 150, 0), totals(11, 150, 0),
+            totals(13, 250, 40), totals(14, 260, 40), totals(15, 260, 90));
+        PassTracer tracer = new PassTracer(stats, 5, 100);
+
+        try (PassTracer.Span pass = PassTracer.startPass(tracer, CLUSTER)) {
+            try (PassTracer.Span index = PassTracer.span(PassTracer.KIND_INDEX, "idx")) {
+                try (PassTracer.Span shard = PassTracer.span(PassTracer.KIND_SHARD, "0")) {
+                    PassTracer.tag("status", "COMPLETED");
+                }
+            }
+        }
+
+        List<PassTracer.PassTrace> traces = tracer.getTraces(CLUSTER);
+        assertThat(traces).hasSize(1);
+        PassTracer.PassTrace trace = traces.get(0);
+        assertThat(trace.spans()).isEqualTo(3);
+        assertThat(trace.droppedSpans()).isZero();
+
+        PassTracer.SpanRecord root = trace.root();
+        assertThat(root.kind()).isEqualTo(PassTracer.KIND_PASS);
+        assertThat(root.etcdRequests()).isEqualTo(5);
+        assertThat(root.bytesWritten()).isEqualTo(90);
+        PassTracer.SpanRecord index = root.children().get(0);
+        assertThat(index.name()).isEqualTo("idx");
+        assertThat(index.etcdRequests()).isEqualTo(3);
+        assertThat(index.bytesRead()).isEqualTo(110);
+        PassTracer.SpanRecord shard = index.children().get(0);
+        assertThat(shard.kind()).isEqualTo(PassTracer.KIND_SHARD);
+        assertThat(shard.etcdRequests()).isEqualTo(2);
+        assertThat(shard.bytesRead()).isEqualTo(100);
+        assertThat(shard.bytesWritten()).isEqualTo(40);
+        assertThat(shard.tags()).containsEntry("status", "COMPLETED");
+
+        // The pass is over: nothing is traced on this thread any more
+        assertThat(PassTracer.span(PassTracer.KIND_PHASE, "late")).isNull();
+    }
+
+    @Test
+    void testKeepsTheLastPassesNewestFirst() {
+        PassTracer tracer = new PassTracer(null, 2, 100);
+
+        for (String phase : List.of("first", "second", "third")) {
+            try (PassTracer.Span pass = tracer.startPass(CLUSTER);
+                 PassTracer.Span span = PassTracer.span(PassTracer.KIND_PHASE, phase)) {
+                // Traced phase
+            }
+        }
+
+        assertThat(tracer.getTraces(CLUSTER))
+            .extracting(trace -> trace.root().children().get(0).name())
+            .containsExactly("third", "second");
+        assertThat(tracer.getTraces("other-cluster")).isEmpty();
+
+        tracer.releaseCluster(CLUSTER);
+        assertThat(tracer.getTraces(CLUSTER)).isEmpty();
+    }
+
+    @Test
+    void testSpansPastTheLimitAreOnlyCounted() {
+        PassTracer tracer = new PassTracer(null, 1, 3);
+
+        try (PassTracer.Span pass = tracer.startPass(CLUSTER)) {
+            for (int shard = 0; shard < 5; shard++) {
+                try (PassTracer.Span span = PassTracer.span(PassTracer.KIND_SHARD, String.valueOf(shard))) {
+                    // Traced shard
+                }
+            }
+        }
+
+        PassTracer.PassTrace trace = tracer.getTraces(CLUSTER).get(0);
+        assertThat(trace.root().children()).extracting(PassTracer.SpanRecord::name).containsExactly("0", "1");
+        assertThat(trace.spans()).isEqualTo(3);
+        assertThat(trace.droppedSpans()).isEqualTo(3);
+    }
+
+    @Test
+    void testDisabledTracerTracesNothing() {
+        PassTracer tracer = new PassTracer(null, 0, 100);
+
+        assertThat(tracer.startPass(CLUSTER)).isNull();
+        assertThat(PassTracer.startPass(null, CLUSTER)).isNull();
+        assertThat(PassTracer.span(PassTracer.KIND_PHASE, "phase")).isNull();
+        assertThat(tracer.getTraces(CLUSTER)).isEmpty();
+    }
+}